@@ -39,7 +39,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -148,18 +147,17 @@ public class Features {
     }
 
     /**
-     * Clears out features with identical ids.
+     * Clears out features with identical ids, features without id are kept (see {@link DuplicateFeatureFilter}).
      * 
      * @param col
      * @return a new list of features
      */
     public static List<Feature> clearDuplicates( Collection<Feature> col ) {
         List<Feature> list = new ArrayList<Feature>();
-        HashSet<String> ids = new HashSet<String>();
+        DuplicateFeatureFilter filter = new DuplicateFeatureFilter();
         for ( Feature f : col ) {
-            if ( !ids.contains( f.getId() ) ) {
+            if ( filter.add( f ) ) {
                 list.add( f );
-                ids.add( f.getId() );
             }
         }
         return list;
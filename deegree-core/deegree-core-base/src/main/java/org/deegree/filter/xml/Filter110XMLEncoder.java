@@ -90,7 +90,7 @@ import org.deegree.filter.spatial.SpatialOperator;
 import org.deegree.filter.spatial.Touches;
 import org.deegree.filter.spatial.Within;
 import org.deegree.geometry.Geometry;
-import org.deegree.geometry.io.DecimalCoordinateFormatter;
+import org.deegree.geometry.io.FastCoordinateFormatter;
 import org.deegree.gml.GMLOutputFactory;
 import org.deegree.gml.GMLStreamWriter;
 import org.deegree.gml.GMLVersion;
@@ -376,7 +376,7 @@ public class Filter110XMLEncoder {
         writer.writeStartElement( elementName.getNamespaceURI(), elementName.getLocalPart() );
 
         GMLStreamWriter gmlWriter = GMLOutputFactory.createGMLStreamWriter( GMLVersion.GML_31, writer );
-        gmlWriter.setCoordinateFormatter( new DecimalCoordinateFormatter( 3 ) );
+        gmlWriter.setCoordinateFormatter( new FastCoordinateFormatter( 3 ) );
         Map<String, String> bindings = new HashMap<String, String>();
         bindings.put( "gml", GML_31.getNamespace() );
         writer.writeNamespace( "gml", GML_31.getNamespace() );
@@ -97,7 +97,7 @@ import org.deegree.filter.spatial.Touches;
 import org.deegree.filter.spatial.Within;
 import org.deegree.filter.temporal.TemporalOperator;
 import org.deegree.geometry.Geometry;
-import org.deegree.geometry.io.DecimalCoordinateFormatter;
+import org.deegree.geometry.io.FastCoordinateFormatter;
 import org.deegree.gml.GMLOutputFactory;
 import org.deegree.gml.GMLStreamWriter;
 import org.deegree.time.gml.writer.GmlTimeGeometricPrimitiveWriter;
@@ -559,7 +559,7 @@ public class Filter200XMLEncoder {
     private static GMLStreamWriter createGml32StreamWriter( XMLStreamWriter writer )
                             throws XMLStreamException {
         GMLStreamWriter gmlWriter = GMLOutputFactory.createGMLStreamWriter( GML_32, writer );
-        gmlWriter.setCoordinateFormatter( new DecimalCoordinateFormatter( 3 ) );
+        gmlWriter.setCoordinateFormatter( new FastCoordinateFormatter( 3 ) );
         Map<String, String> bindings = new HashMap<String, String>();
         bindings.put( GML_PREFIX, GML3_2_NS );
         writer.writeNamespace( GML_PREFIX, GML3_2_NS );
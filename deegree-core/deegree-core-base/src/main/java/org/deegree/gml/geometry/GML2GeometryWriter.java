@@ -56,8 +56,9 @@ import org.deegree.geometry.composite.CompositeCurve;
 import org.deegree.geometry.composite.CompositeGeometry;
 import org.deegree.geometry.composite.CompositeSolid;
 import org.deegree.geometry.composite.CompositeSurface;
+import org.deegree.geometry.io.CoordinateCharBuffer;
 import org.deegree.geometry.io.CoordinateFormatter;
-import org.deegree.geometry.io.DecimalCoordinateFormatter;
+import org.deegree.geometry.io.FastCoordinateFormatter;
 import org.deegree.geometry.multi.MultiCurve;
 import org.deegree.geometry.multi.MultiGeometry;
 import org.deegree.geometry.multi.MultiLineString;
@@ -100,7 +101,8 @@ public class GML2GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
 
     private final SFSProfiler simplifier;
 
-    private CoordinateFormatter formatter;
+    // reused for all ordinates written by this writer
+    private CoordinateCharBuffer ordinateBuffer;
 
     private CoordinateTransformer transformer;
 
@@ -129,10 +131,11 @@ public class GML2GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
                            + ". Encoding will fail if a transformation is actually necessary." );
             }
         }
-        formatter = gmlStream.getCoordinateFormatter();
+        CoordinateFormatter formatter = gmlStream.getCoordinateFormatter();
         if ( formatter == null ) {
-            formatter = new DecimalCoordinateFormatter( crsUnits );
+            formatter = new FastCoordinateFormatter( crsUnits );
         }
+        ordinateBuffer = new CoordinateCharBuffer( formatter );
     }
 
     @SuppressWarnings("unchecked")
@@ -199,15 +202,15 @@ public class GML2GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
         double[] ords = getTransformedCoordinate( point.getCoordinateSystem(), point.getAsArray() );
         writer.writeStartElement( "gml", "coord", GML21NS );
         writer.writeStartElement( "gml", "X", GML21NS );
-        writer.writeCharacters( formatter.format( ords[0] ) );
+        writeOrdinate( ords[0] );
         writer.writeEndElement();
         if ( ords.length > 1 ) {
             writer.writeStartElement( "gml", "Y", GML21NS );
-            writer.writeCharacters( formatter.format( ords[1] ) );
+            writeOrdinate( ords[1] );
             writer.writeEndElement();
             if ( ords.length > 2 ) {
                 writer.writeStartElement( "gml", "Z", GML21NS );
-                writer.writeCharacters( formatter.format( ords[2] ) );
+                writeOrdinate( ords[2] );
                 writer.writeEndElement();
             }
         }
@@ -221,24 +224,26 @@ public class GML2GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
         writer.writeAttribute( "decimal", "." );
         writer.writeAttribute( "cs", "," );
         writer.writeAttribute( "ts", " " );
-        StringBuilder sb = new StringBuilder();
         boolean first = true;
         for ( Point point : points ) {
             if ( !first ) {
-                sb.append( " " );
+                ordinateBuffer.append( ' ' );
             }
             double[] ords = getTransformedCoordinate( point.getCoordinateSystem(), point.getAsArray() );
-            sb.append( formatter.format( ords[0] ) );
-            for ( int i = 1; i < ords.length; i++ ) {
-                sb.append( "," );
-                sb.append( formatter.format( ords[i] ) );
-            }
+            ordinateBuffer.append( ords, ',' );
+            ordinateBuffer.flushIfFull( writer );
             first = false;
         }
-        writer.writeCharacters( sb.toString() );
+        ordinateBuffer.writeTo( writer );
         writer.writeEndElement();
     }
 
+    private void writeOrdinate( double ordinate )
+                            throws XMLStreamException {
+        ordinateBuffer.append( ordinate );
+        ordinateBuffer.writeTo( writer );
+    }
+
     /**
      * @param polygon
      * @throws XMLStreamException
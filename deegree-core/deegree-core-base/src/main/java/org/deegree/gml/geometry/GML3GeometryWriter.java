@@ -67,8 +67,9 @@ import org.deegree.geometry.composite.CompositeCurve;
 import org.deegree.geometry.composite.CompositeGeometry;
 import org.deegree.geometry.composite.CompositeSolid;
 import org.deegree.geometry.composite.CompositeSurface;
+import org.deegree.geometry.io.CoordinateCharBuffer;
 import org.deegree.geometry.io.CoordinateFormatter;
-import org.deegree.geometry.io.DecimalCoordinateFormatter;
+import org.deegree.geometry.io.FastCoordinateFormatter;
 import org.deegree.geometry.multi.MultiCurve;
 import org.deegree.geometry.multi.MultiGeometry;
 import org.deegree.geometry.multi.MultiLineString;
@@ -143,7 +144,8 @@ public class GML3GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
 
     private final SFSProfiler simplifier;
 
-    private CoordinateFormatter formatter;
+    // reused for all ordinates written by this writer
+    private CoordinateCharBuffer ordinateBuffer;
 
     private CoordinateTransformer transformer;
 
@@ -175,10 +177,11 @@ public class GML3GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
                            + ". Encoding will fail if a transformation is actually necessary." );
             }
         }
-        formatter = gmlStreamWriter.getCoordinateFormatter();
+        CoordinateFormatter formatter = gmlStreamWriter.getCoordinateFormatter();
         if ( formatter == null ) {
-            formatter = new DecimalCoordinateFormatter( crsUnits );
+            formatter = new FastCoordinateFormatter( crsUnits );
         }
+        ordinateBuffer = new CoordinateCharBuffer( formatter );
     }
 
     @SuppressWarnings("unchecked")
@@ -417,10 +420,8 @@ public class GML3GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
 
         writer.writeStartElement( gmlNs, "pos" );
         double[] ordinates = getTransformedCoordinate( point.getCoordinateSystem(), point.getAsArray() );
-        writer.writeCharacters( formatter.format( ordinates[0] ) );
-        for ( int i = 1; i < ordinates.length; i++ ) {
-            writer.writeCharacters( " " + formatter.format( ordinates[i] ) );
-        }
+        ordinateBuffer.append( ordinates, ' ' );
+        ordinateBuffer.writeTo( writer );
         writer.writeEndElement();
     }
 
@@ -883,10 +884,8 @@ public class GML3GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
             writer.writeStartElement( "gml", "lowerCorner", gmlNs );
         }
         double[] ordinates = env.getMin().getAsArray();
-        writer.writeCharacters( formatter.format( ordinates[0] ) );
-        for ( int i = 1; i < ordinates.length; i++ ) {
-            writer.writeCharacters( " " + formatter.format( ordinates[i] ) );
-        }
+        ordinateBuffer.append( ordinates, ' ' );
+        ordinateBuffer.writeTo( writer );
         writer.writeEndElement();
 
         if ( version == GML_30 ) {
@@ -895,10 +894,8 @@ public class GML3GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
             writer.writeStartElement( "gml", "upperCorner", gmlNs );
         }
         ordinates = env.getMax().getAsArray();
-        writer.writeCharacters( formatter.format( ordinates[0] ) );
-        for ( int i = 1; i < ordinates.length; i++ ) {
-            writer.writeCharacters( " " + formatter.format( ordinates[i] ) );
-        }
+        ordinateBuffer.append( ordinates, ' ' );
+        ordinateBuffer.writeTo( writer );
         writer.writeEndElement();
         writer.writeEndElement();
     }
@@ -1513,15 +1510,14 @@ public class GML3GeometryWriter extends AbstractGMLObjectWriter implements GMLGe
             boolean first = true;
             for ( final Point p : points ) {
                 final double[] ordinates = getTransformedCoordinate( p.getCoordinateSystem(), p.getAsArray() );
-                for ( int i = 0; i < ordinates.length; i++ ) {
-                    if ( !first ) {
-                        writer.writeCharacters( " " + formatter.format( ordinates[i] ) );
-                    } else {
-                        writer.writeCharacters( formatter.format( ordinates[i] ) );
-                        first = false;
-                    }
+                if ( !first ) {
+                    ordinateBuffer.append( ' ' );
                 }
+                ordinateBuffer.append( ordinates, ' ' );
+                ordinateBuffer.flushIfFull( writer );
+                first = false;
             }
+            ordinateBuffer.writeTo( writer );
             writer.writeEndElement();
         } else {
             for ( final Point p : points ) {
@@ -0,0 +1,387 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.gml.geometry;
+
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.COMMENT;
+import static javax.xml.stream.XMLStreamConstants.END_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.ENTITY_REFERENCE;
+import static javax.xml.stream.XMLStreamConstants.PROCESSING_INSTRUCTION;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.util.Arrays;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.deegree.commons.xml.XMLParsingException;
+import org.deegree.commons.xml.stax.XMLStreamReaderWrapper;
+
+/**
+ * Parses lists of ordinates (e.g. <code>gml:posList</code>, <code>gml:pos</code> or <code>gml:coordinates</code>)
+ * directly from the character events of an {@link XMLStreamReaderWrapper}.
+ * <p>
+ * Other than {@link XMLStreamReaderWrapper#getElementText()} in combination with tokenizing and
+ * {@link Double#parseDouble(String)}, no intermediate strings are created: the characters are consumed from
+ * {@link XMLStreamReaderWrapper#getTextCharacters()} and converted into a reusable <code>double</code> array. Numbers
+ * with up to 18 significant digits and a small exponent are converted exactly (with the same result as
+ * {@link Double#parseDouble(String)}), all others are delegated to {@link Double#parseDouble(String)}.
+ * </p>
+ * Instances are not thread-safe.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class OrdinateListParser {
+
+    private static final String WHITESPACE = " \t\n\r\f";
+
+    private static final byte TOKEN_CHAR = 0;
+
+    private static final byte ORDINATE_SEPARATOR = 1;
+
+    private static final byte TUPLE_SEPARATOR = 2;
+
+    private static final byte WHITESPACE_CHAR = 3;
+
+    private static final double[] POW10 = new double[23];
+
+    private static final long MAX_EXACT = 1L << 53;
+
+    private static final int MAX_DIGITS = 18;
+
+    static {
+        POW10[0] = 1;
+        for ( int i = 1; i < POW10.length; i++ ) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    private double[] ordinates = new double[256];
+
+    private int numOrdinates;
+
+    private char[] token = new char[32];
+
+    private int tokenLength;
+
+    // classes of the ASCII characters, all other characters are token characters
+    private final byte[] charClasses = new byte[128];
+
+    private String ordinateSeparators;
+
+    private String tupleSeparators;
+
+    private int tupleDimension;
+
+    private int tupleSize;
+
+    /**
+     * Parses the whitespace separated ordinates of the current element.
+     * <ul>
+     * <li>Precondition: cursor must point at the <code>START_ELEMENT</code> event</li>
+     * <li>Postcondition: cursor points at the corresponding <code>END_ELEMENT</code> event</li>
+     * </ul>
+     * 
+     * @param xmlStream
+     *            must not be <code>null</code>
+     * @return the ordinates, never <code>null</code>
+     * @throws XMLParsingException
+     *             if a value is not a valid double
+     * @throws XMLStreamException
+     */
+    double[] parse( XMLStreamReaderWrapper xmlStream )
+                            throws XMLParsingException, XMLStreamException {
+        return parse( xmlStream, WHITESPACE, null );
+    }
+
+    /**
+     * Parses the ordinates of the current element, structured in tuples (<code>gml:coordinates</code>). The number of
+     * ordinates per tuple is available from {@link #getTupleDimension()} afterwards.
+     * <ul>
+     * <li>Precondition: cursor must point at the <code>START_ELEMENT</code> event</li>
+     * <li>Postcondition: cursor points at the corresponding <code>END_ELEMENT</code> event</li>
+     * </ul>
+     * 
+     * @param xmlStream
+     *            must not be <code>null</code>
+     * @param ordinateSeparators
+     *            characters that separate ordinates, must not be <code>null</code>
+     * @param tupleSeparators
+     *            characters that separate tuples, may be <code>null</code> (no tuple structure)
+     * @return the ordinates, never <code>null</code>
+     * @throws XMLParsingException
+     *             if a value is not a valid double or the tuples have different sizes
+     * @throws XMLStreamException
+     */
+    double[] parse( XMLStreamReaderWrapper xmlStream, String ordinateSeparators, String tupleSeparators )
+                            throws XMLParsingException, XMLStreamException {
+        if ( xmlStream.getEventType() != START_ELEMENT ) {
+            throw new XMLStreamException( "parser must be on START_ELEMENT to read next text",
+                                          xmlStream.getLocation() );
+        }
+        if ( !ordinateSeparators.equals( this.ordinateSeparators ) || !equals( tupleSeparators, this.tupleSeparators ) ) {
+            initCharClasses( ordinateSeparators, tupleSeparators );
+        }
+        numOrdinates = 0;
+        tokenLength = 0;
+        tupleDimension = -1;
+        tupleSize = 0;
+
+        int eventType = xmlStream.next();
+        while ( eventType != END_ELEMENT ) {
+            if ( eventType == CHARACTERS || eventType == CDATA || eventType == SPACE ) {
+                consume( xmlStream, xmlStream.getTextCharacters(), xmlStream.getTextStart(),
+                         xmlStream.getTextLength() );
+            } else if ( eventType == ENTITY_REFERENCE ) {
+                char[] chars = xmlStream.getText().toCharArray();
+                consume( xmlStream, chars, 0, chars.length );
+            } else if ( eventType == PROCESSING_INSTRUCTION || eventType == COMMENT ) {
+                // skipping
+            } else if ( eventType == END_DOCUMENT ) {
+                throw new XMLStreamException( "unexpected end of document when reading element text content",
+                                              xmlStream.getLocation() );
+            } else if ( eventType == START_ELEMENT ) {
+                throw new XMLStreamException( "element text content may not contain START_ELEMENT",
+                                              xmlStream.getLocation() );
+            } else {
+                throw new XMLStreamException( "Unexpected event type " + eventType, xmlStream.getLocation() );
+            }
+            eventType = xmlStream.next();
+        }
+        endToken( xmlStream );
+        endTuple( xmlStream );
+        return Arrays.copyOf( ordinates, numOrdinates );
+    }
+
+    /**
+     * Returns the number of ordinates per tuple of the last {@link #parse(XMLStreamReaderWrapper, String, String)}
+     * call.
+     * 
+     * @return number of ordinates per tuple, <code>-1</code> if no tuple has been parsed
+     */
+    int getTupleDimension() {
+        return tupleDimension;
+    }
+
+    private void initCharClasses( String ordinateSeparators, String tupleSeparators ) {
+        this.ordinateSeparators = ordinateSeparators;
+        this.tupleSeparators = tupleSeparators;
+        boolean whitespaceSeparatesTuples = tupleSeparators != null && tupleSeparators.trim().isEmpty();
+        for ( int c = 0; c < charClasses.length; c++ ) {
+            if ( ordinateSeparators.indexOf( c ) >= 0 ) {
+                charClasses[c] = ORDINATE_SEPARATOR;
+            } else if ( tupleSeparators != null && tupleSeparators.indexOf( c ) >= 0 ) {
+                charClasses[c] = TUPLE_SEPARATOR;
+            } else if ( WHITESPACE.indexOf( c ) >= 0 ) {
+                charClasses[c] = whitespaceSeparatesTuples ? TUPLE_SEPARATOR : WHITESPACE_CHAR;
+            } else {
+                charClasses[c] = TOKEN_CHAR;
+            }
+        }
+    }
+
+    private static boolean equals( String s1, String s2 ) {
+        return s1 == null ? s2 == null : s1.equals( s2 );
+    }
+
+    private boolean isTokenChar( char c ) {
+        return c >= charClasses.length || charClasses[c] == TOKEN_CHAR;
+    }
+
+    private void consume( XMLStreamReaderWrapper xmlStream, char[] chars, int start, int length )
+                            throws XMLParsingException {
+        int end = start + length;
+        int i = start;
+        while ( i < end ) {
+            char c = chars[i];
+            if ( !isTokenChar( c ) ) {
+                endToken( xmlStream );
+                if ( charClasses[c] == TUPLE_SEPARATOR ) {
+                    endTuple( xmlStream );
+                }
+                i++;
+                continue;
+            }
+            int tokenStart = i;
+            while ( i < end && isTokenChar( chars[i] ) ) {
+                i++;
+            }
+            if ( tokenLength == 0 && i < end ) {
+                // token is complete and not split between text events, parse it in place
+                addOrdinate( parseToken( xmlStream, chars, tokenStart, i - tokenStart ) );
+            } else {
+                appendToken( chars, tokenStart, i - tokenStart );
+            }
+        }
+    }
+
+    private void appendToken( char[] chars, int start, int length ) {
+        if ( tokenLength + length > token.length ) {
+            token = Arrays.copyOf( token, Math.max( 2 * token.length, tokenLength + length ) );
+        }
+        System.arraycopy( chars, start, token, tokenLength, length );
+        tokenLength += length;
+    }
+
+    private void endToken( XMLStreamReaderWrapper xmlStream )
+                            throws XMLParsingException {
+        if ( tokenLength > 0 ) {
+            addOrdinate( parseToken( xmlStream, token, 0, tokenLength ) );
+            tokenLength = 0;
+        }
+    }
+
+    private void addOrdinate( double value ) {
+        if ( numOrdinates == ordinates.length ) {
+            ordinates = Arrays.copyOf( ordinates, 2 * ordinates.length );
+        }
+        ordinates[numOrdinates++] = value;
+        tupleSize++;
+    }
+
+    private void endTuple( XMLStreamReaderWrapper xmlStream )
+                            throws XMLParsingException {
+        if ( tupleSize == 0 || tupleSeparators == null ) {
+            return;
+        }
+        if ( tupleDimension == -1 ) {
+            tupleDimension = tupleSize;
+        } else if ( tupleDimension != tupleSize ) {
+            String msg = "Tuples with different numbers of coordinates (" + tupleDimension + " and " + tupleSize
+                         + ") are not supported.";
+            throw new XMLParsingException( xmlStream, msg );
+        }
+        tupleSize = 0;
+    }
+
+    private double parseToken( XMLStreamReaderWrapper xmlStream, char[] chars, int start, int length )
+                            throws XMLParsingException {
+        double value = parseFast( chars, start, length );
+        if ( Double.isNaN( value ) ) {
+            String s = new String( chars, start, length );
+            try {
+                value = Double.parseDouble( s );
+            } catch ( NumberFormatException e ) {
+                String msg = "Value '" + s + "' cannot be parsed as a double.";
+                throw new XMLParsingException( xmlStream, msg );
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Converts decimal numbers (optional sign, digits, optional fraction, optional exponent) whose significand and
+     * power of ten are exactly representable as double: a single multiplication or division of two exact values is
+     * correctly rounded, so the result is identical to {@link Double#parseDouble(String)}.
+     * 
+     * @return the value, or {@link Double#NaN} if the fast path is not applicable
+     */
+    static double parseFast( char[] chars, int start, int length ) {
+        int i = start;
+        int end = start + length;
+        boolean negative = false;
+        if ( length > 0 && ( chars[i] == '-' || chars[i] == '+' ) ) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long significand = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+        for ( ; i < end && chars[i] >= '0' && chars[i] <= '9'; i++ ) {
+            hasDigits = true;
+            if ( significand > 0 || chars[i] != '0' ) {
+                if ( ++significantDigits > MAX_DIGITS ) {
+                    return Double.NaN;
+                }
+                significand = significand * 10 + ( chars[i] - '0' );
+            }
+        }
+        if ( i < end && chars[i] == '.' ) {
+            for ( i++; i < end && chars[i] >= '0' && chars[i] <= '9'; i++ ) {
+                hasDigits = true;
+                if ( significand > 0 || chars[i] != '0' ) {
+                    if ( ++significantDigits > MAX_DIGITS ) {
+                        return Double.NaN;
+                    }
+                    significand = significand * 10 + ( chars[i] - '0' );
+                }
+                exponent--;
+            }
+        }
+        if ( !hasDigits ) {
+            return Double.NaN;
+        }
+        if ( i < end && ( chars[i] == 'e' || chars[i] == 'E' ) ) {
+            i++;
+            boolean negativeExponent = false;
+            if ( i < end && ( chars[i] == '-' || chars[i] == '+' ) ) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+            int explicitExponent = 0;
+            int exponentDigits = 0;
+            for ( ; i < end && chars[i] >= '0' && chars[i] <= '9'; i++ ) {
+                if ( ++exponentDigits > 4 ) {
+                    return Double.NaN;
+                }
+                explicitExponent = explicitExponent * 10 + ( chars[i] - '0' );
+            }
+            if ( exponentDigits == 0 ) {
+                return Double.NaN;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if ( i != end || significand > MAX_EXACT ) {
+            return Double.NaN;
+        }
+        double value;
+        if ( significand == 0 ) {
+            value = 0;
+        } else if ( exponent >= 0 && exponent < POW10.length ) {
+            value = significand * POW10[exponent];
+        } else if ( exponent < 0 && -exponent < POW10.length ) {
+            value = significand / POW10[-exponent];
+        } else {
+            return Double.NaN;
+        }
+        return negative ? -value : value;
+    }
+}
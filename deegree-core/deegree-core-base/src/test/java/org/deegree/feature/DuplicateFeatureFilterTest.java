@@ -0,0 +1,96 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link DuplicateFeatureFilter} and {@link Features#clearDuplicates(java.util.Collection)}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class DuplicateFeatureFilterTest {
+
+    @Test
+    public void testSameIdIsDuplicate() {
+        DuplicateFeatureFilter filter = new DuplicateFeatureFilter();
+        assertTrue( filter.add( feature( "ROAD_1" ) ) );
+        assertTrue( filter.add( feature( "ROAD_2" ) ) );
+        assertFalse( filter.add( feature( "ROAD_1" ) ) );
+    }
+
+    @Test
+    public void testFeaturesWithoutIdAreKept() {
+        DuplicateFeatureFilter filter = new DuplicateFeatureFilter();
+        Feature f = feature( null );
+        assertTrue( filter.add( f ) );
+        assertTrue( filter.add( feature( null ) ) );
+        assertTrue( filter.add( feature( null ) ) );
+        // the same instance is still a duplicate
+        assertFalse( filter.add( f ) );
+    }
+
+    @Test
+    public void testClearDuplicates() {
+        Feature road = feature( "ROAD_1" );
+        Feature noId1 = feature( null );
+        Feature noId2 = feature( null );
+        List<Feature> list = Features.clearDuplicates( asList( road, noId1, feature( "ROAD_1" ), noId2, noId1 ) );
+        assertEquals( 3, list.size() );
+        assertSame( road, list.get( 0 ) );
+        assertSame( noId1, list.get( 1 ) );
+        assertSame( noId2, list.get( 2 ) );
+    }
+
+    private static Feature feature( String id ) {
+        Feature f = mock( Feature.class );
+        when( f.getId() ).thenReturn( id );
+        return f;
+    }
+
+}
@@ -51,8 +51,12 @@ import junit.framework.Assert;
 import org.deegree.commons.xml.XMLParsingException;
 import org.deegree.cs.exceptions.UnknownCRSException;
 import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.points.Points;
+import org.deegree.geometry.standard.points.PackedPoints;
 import org.deegree.geometry.validation.event.CurveDiscontinuity;
 import org.deegree.geometry.validation.event.CurveSelfIntersection;
+import org.deegree.geometry.validation.event.DuplicatePoints;
 import org.deegree.geometry.validation.event.ExteriorRingOrientation;
 import org.deegree.geometry.validation.event.GeometryValidationEvent;
 import org.deegree.geometry.validation.event.InteriorRingIntersectsExterior;
@@ -286,6 +290,27 @@ public class GeometryValidatorTest {
         Assert.assertFalse( intersectionEvent.isSinglePoint() );        
     }
     
+    @Test
+    public void validatePackedLineString() {
+        DummyValidationEventHandler eventHandler = new DummyValidationEventHandler();
+        GeometryValidator validator = new GeometryValidator( eventHandler );
+        Points points = new PackedPoints( null, new double[] { 0, 0, 1, 0, 1, 1, 2, 1 }, 2 );
+        Geometry geom = new GeometryFactory().createLineString( null, null, points );
+        Assert.assertTrue( validator.validateGeometry( geom ) );
+        Assert.assertTrue( eventHandler.getEvents().isEmpty() );
+    }
+
+    @Test
+    public void validatePackedLineStringDuplicatePoints() {
+        DummyValidationEventHandler eventHandler = new DummyValidationEventHandler();
+        GeometryValidator validator = new GeometryValidator( eventHandler );
+        Points points = new PackedPoints( null, new double[] { 0, 0, 1, 0, 1, 0, 2, 1 }, 2 );
+        Geometry geom = new GeometryFactory().createLineString( null, null, points );
+        Assert.assertTrue( validator.validateGeometry( geom ) );
+        Assert.assertEquals( 1, eventHandler.getEvents().size() );
+        Assert.assertEquals( DuplicatePoints.class, eventHandler.getEvents().get( 0 ).getClass() );
+    }
+
     private Geometry parseGeometry( String fileName )
                             throws XMLStreamException, FactoryConfigurationError, IOException, XMLParsingException,
                             UnknownCRSException {
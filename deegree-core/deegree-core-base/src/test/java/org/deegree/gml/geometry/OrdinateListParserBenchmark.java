@@ -0,0 +1,138 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.gml.geometry;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.StringTokenizer;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.deegree.commons.xml.stax.XMLStreamReaderWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark that compares parsing a dense <code>gml:posList</code> with {@link OrdinateListParser} and with the
+ * former approach (element text, {@link StringTokenizer}, {@link Double#parseDouble(String)}).
+ * <p>
+ * Not executed by the unit tests, run {@link #main(String[])} from the test classpath.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrdinateListParserBenchmark {
+
+    private String posList;
+
+    private XMLInputFactory factory;
+
+    private OrdinateListParser parser;
+
+    @Setup
+    public void setup() {
+        Random random = new Random( 42 );
+        StringBuilder sb = new StringBuilder( "<gml:posList xmlns:gml=\"http://www.opengis.net/gml\">" );
+        for ( int i = 0; i < 10000; i++ ) {
+            sb.append( Math.round( ( 300000 + random.nextDouble() * 500000 ) * 1000 ) / 1000.0 ).append( ' ' );
+            sb.append( Math.round( ( 5000000 + random.nextDouble() * 1000000 ) * 1000 ) / 1000.0 ).append( ' ' );
+        }
+        sb.append( "</gml:posList>" );
+        posList = sb.toString();
+        factory = XMLInputFactory.newInstance();
+        parser = new OrdinateListParser();
+    }
+
+    @Benchmark
+    public double[] tokenizer()
+                            throws XMLStreamException {
+        XMLStreamReaderWrapper xmlStream = open();
+        String s = xmlStream.getElementText();
+        StringTokenizer st = new StringTokenizer( s );
+        List<String> tokens = new ArrayList<String>();
+        while ( st.hasMoreTokens() ) {
+            tokens.add( st.nextToken() );
+        }
+        double[] doubles = new double[tokens.size()];
+        for ( int i = 0; i < doubles.length; i++ ) {
+            doubles[i] = Double.parseDouble( tokens.get( i ) );
+        }
+        return doubles;
+    }
+
+    @Benchmark
+    public double[] ordinateListParser()
+                            throws XMLStreamException {
+        return parser.parse( open() );
+    }
+
+    private XMLStreamReaderWrapper open()
+                            throws XMLStreamException {
+        XMLStreamReader reader = factory.createXMLStreamReader( new StringReader( posList ) );
+        XMLStreamReaderWrapper xmlStream = new XMLStreamReaderWrapper( reader, null );
+        xmlStream.nextTag();
+        return xmlStream;
+    }
+
+    public static void main( String[] args )
+                            throws RunnerException {
+        new Runner( new OptionsBuilder().include( OrdinateListParserBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
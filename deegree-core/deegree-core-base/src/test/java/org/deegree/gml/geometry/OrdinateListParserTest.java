@@ -0,0 +1,138 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.gml.geometry;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.util.Random;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.deegree.commons.xml.XMLParsingException;
+import org.deegree.commons.xml.stax.XMLStreamReaderWrapper;
+import org.junit.Test;
+
+/**
+ * Tests for {@link OrdinateListParser}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class OrdinateListParserTest {
+
+    @Test
+    public void testPosList()
+                            throws Exception {
+        XMLStreamReaderWrapper xmlStream = open( "<posList>\n  1 2.5\t-3.25e2   4E-3 <!-- comment -->5\n</posList>" );
+        double[] ordinates = new OrdinateListParser().parse( xmlStream );
+        assertArrayEquals( new double[] { 1, 2.5, -325, 0.004, 5 }, ordinates, 0.0 );
+        assertEquals( XMLStreamConstants.END_ELEMENT, xmlStream.getEventType() );
+    }
+
+    @Test
+    public void testEmpty()
+                            throws Exception {
+        assertEquals( 0, new OrdinateListParser().parse( open( "<posList/>" ) ).length );
+    }
+
+    @Test
+    public void testCoordinates()
+                            throws Exception {
+        OrdinateListParser parser = new OrdinateListParser();
+        double[] ordinates = parser.parse( open( "<coordinates> 1,2,3  4,5,6\n7,8,9 </coordinates>" ), ",", " " );
+        assertArrayEquals( new double[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 }, ordinates, 0.0 );
+        assertEquals( 3, parser.getTupleDimension() );
+    }
+
+    @Test(expected = XMLParsingException.class)
+    public void testCoordinatesDifferentTupleSizes()
+                            throws Exception {
+        new OrdinateListParser().parse( open( "<coordinates>1,2 3,4,5</coordinates>" ), ",", " " );
+    }
+
+    @Test(expected = XMLParsingException.class)
+    public void testInvalidValue()
+                            throws Exception {
+        new OrdinateListParser().parse( open( "<posList>1 2 x3</posList>" ) );
+    }
+
+    @Test
+    public void testSameResultAsParseDouble()
+                            throws Exception {
+        Random random = new Random( 42 );
+        String[] values = new String[20000];
+        StringBuilder sb = new StringBuilder( "<posList>" );
+        for ( int i = 0; i < values.length; i++ ) {
+            switch ( i % 4 ) {
+            case 0:
+                values[i] = Double.toString( random.nextDouble() * 1000000 - 500000 );
+                break;
+            case 1:
+                values[i] = Double.toString( Math.round( random.nextDouble() * 1e9 ) / 1000.0 );
+                break;
+            case 2:
+                values[i] = Double.toString( Double.longBitsToDouble( random.nextLong() ) );
+                break;
+            default:
+                values[i] = "0.000" + Math.abs( random.nextLong() ) + "e" + ( random.nextInt( 60 ) - 30 );
+            }
+            if ( "NaN".equals( values[i] ) ) {
+                values[i] = "0";
+            }
+            sb.append( values[i] ).append( ' ' );
+        }
+        sb.append( "</posList>" );
+        double[] ordinates = new OrdinateListParser().parse( open( sb.toString() ) );
+        assertEquals( values.length, ordinates.length );
+        for ( int i = 0; i < values.length; i++ ) {
+            assertEquals( values[i], Double.parseDouble( values[i] ), ordinates[i], 0.0 );
+        }
+    }
+
+    private static XMLStreamReaderWrapper open( String xml )
+                            throws XMLStreamException {
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader( new StringReader( xml ) );
+        XMLStreamReaderWrapper xmlStream = new XMLStreamReaderWrapper( reader, null );
+        xmlStream.nextTag();
+        return xmlStream;
+    }
+}
@@ -46,6 +46,8 @@ import org.apache.commons.dbcp.DelegatingConnection;
 import org.apache.commons.dbcp.DriverManagerConnectionFactory;
 import org.apache.commons.dbcp.PoolableConnectionFactory;
 import org.apache.commons.dbcp.PoolingDataSource;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool.impl.GenericKeyedObjectPoolFactory;
 import org.apache.commons.pool.impl.GenericObjectPool;
 import org.deegree.commons.annotations.LoggingNotes;
 import org.slf4j.Logger;
@@ -82,6 +84,25 @@ public class ConnectionPool {
      */
     public ConnectionPool( String id, String connectURI, String user, String password, boolean readOnly, int minIdle,
                     int maxActive ) {
+        this( id, connectURI, user, password, readOnly, minIdle, maxActive, 0 );
+    }
+
+    /**
+     * Creates a new {@link ConnectionPool} instance.
+     * 
+     * @param id
+     * @param connectURI
+     * @param user
+     * @param password
+     * @param readOnly
+     * @param minIdle
+     * @param maxActive
+     * @param maxOpenStatements
+     *            maximum number of prepared statements that are kept open (per connection) for reuse, 0 (or less)
+     *            disables statement pooling
+     */
+    public ConnectionPool( String id, String connectURI, String user, String password, boolean readOnly, int minIdle,
+                    int maxActive, int maxOpenStatements ) {
 
         this.id = id;
         pool = new GenericObjectPool<Connection>( null );
@@ -89,8 +110,15 @@ public class ConnectionPool {
         pool.setMaxActive( maxActive );
 
         ConnectionFactory connectionFactory = new DriverManagerConnectionFactory( connectURI, user, password );
+        GenericKeyedObjectPoolFactory<Object, Object> stmtPoolFactory = null;
+        if ( maxOpenStatements > 0 ) {
+            // same settings as BasicDataSource with poolPreparedStatements enabled
+            byte whenExhausted = GenericKeyedObjectPool.WHEN_EXHAUSTED_FAIL;
+            stmtPoolFactory = new GenericKeyedObjectPoolFactory<Object, Object>( null, -1, whenExhausted, 0, 1,
+                                                                                maxOpenStatements );
+        }
         // TODO make this configurable
-        new PoolableConnectionFactory( connectionFactory, pool, null, null, readOnly, true );
+        new PoolableConnectionFactory( connectionFactory, pool, stmtPoolFactory, null, readOnly, true );
         ds = new PoolingDataSource( pool );
         // needed, so users can retrieve the underlying connection from pooled
         // connections, e.g. to access the
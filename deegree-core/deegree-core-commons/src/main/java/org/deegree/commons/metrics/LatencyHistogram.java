@@ -0,0 +1,226 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets.
+ * <p>
+ * Values are recorded in microseconds. Every power of two is split into four linear sub-buckets, so the relative
+ * error of a reported quantile is at most 25%, independent of the magnitude of the value (HDR style). Each bucket is
+ * a {@link LongAdder}, so concurrent calls to {@link #record(long)} never block each other and don't contend on a
+ * single memory location.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Values of 2^(MAX_EXPONENT+1) microseconds (~ 76 hours) and larger are counted in the last bucket. */
+    private static final int MAX_EXPONENT = 37;
+
+    private static final int NUM_BUCKETS = ( MAX_EXPONENT - SUB_BUCKET_BITS + 2 ) * SUB_BUCKETS;
+
+    private final LongAdder[] buckets = new LongAdder[NUM_BUCKETS];
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Creates a new empty {@link LatencyHistogram}.
+     */
+    public LatencyHistogram() {
+        for ( int i = 0; i < NUM_BUCKETS; i++ ) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a single observation.
+     * 
+     * @param micros
+     *            observed value in microseconds, negative values are treated as zero
+     */
+    public void record( long micros ) {
+        long value = micros < 0 ? 0 : micros;
+        buckets[getBucketIndex( value )].increment();
+        count.increment();
+        sum.add( value );
+        long current = max.get();
+        while ( value > current && !max.compareAndSet( current, value ) ) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Records a single observation, given as the start time obtained from {@link System#nanoTime()}.
+     * 
+     * @param startNanos
+     *            start of the observed operation, as returned by {@link System#nanoTime()}
+     */
+    public void recordSince( long startNanos ) {
+        record( ( System.nanoTime() - startNanos ) / 1000 );
+    }
+
+    /**
+     * @return number of recorded observations
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return sum of all recorded observations in microseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return largest recorded observation in microseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns an estimate for the given quantile.
+     * 
+     * @param quantile
+     *            quantile to estimate, between 0 and 1
+     * @return estimated value in microseconds (middle of the matching bucket), 0 if nothing has been recorded
+     */
+    public long getQuantile( double quantile ) {
+        long[] counts = getBucketCounts();
+        long total = 0;
+        for ( long c : counts ) {
+            total += c;
+        }
+        if ( total == 0 ) {
+            return 0;
+        }
+        long rank = (long) Math.ceil( quantile * total );
+        if ( rank < 1 ) {
+            rank = 1;
+        }
+        long seen = 0;
+        for ( int i = 0; i < NUM_BUCKETS; i++ ) {
+            seen += counts[i];
+            if ( seen >= rank ) {
+                long lower = getLowerBound( i );
+                long upper = getLowerBound( i + 1 );
+                return Math.min( lower + ( upper - lower - 1 ) / 2, max.get() );
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Returns the number of observations that are smaller than <code>2^exponent</code> microseconds.
+     * 
+     * @param exponent
+     *            exponent of the power of two that bounds the observations
+     * @return number of observations below the bound
+     */
+    public long getCountBelowPowerOfTwo( int exponent ) {
+        int limit;
+        if ( exponent > MAX_EXPONENT ) {
+            limit = NUM_BUCKETS;
+        } else if ( exponent < SUB_BUCKET_BITS ) {
+            limit = 1 << exponent;
+        } else {
+            limit = getBucketIndex( 1L << exponent );
+        }
+        long result = 0;
+        for ( int i = 0; i < limit; i++ ) {
+            result += buckets[i].sum();
+        }
+        return result;
+    }
+
+    /**
+     * Discards all recorded observations.
+     */
+    public void reset() {
+        for ( LongAdder bucket : buckets ) {
+            bucket.reset();
+        }
+        count.reset();
+        sum.reset();
+        max.set( 0 );
+    }
+
+    private long[] getBucketCounts() {
+        long[] counts = new long[NUM_BUCKETS];
+        for ( int i = 0; i < NUM_BUCKETS; i++ ) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    static int getBucketIndex( long value ) {
+        if ( value < SUB_BUCKETS ) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros( value );
+        if ( exponent > MAX_EXPONENT ) {
+            return NUM_BUCKETS - 1;
+        }
+        int sub = (int) ( value >>> ( exponent - SUB_BUCKET_BITS ) ) & ( SUB_BUCKETS - 1 );
+        return ( exponent - SUB_BUCKET_BITS + 1 ) * SUB_BUCKETS + sub;
+    }
+
+    static long getLowerBound( int index ) {
+        if ( index < SUB_BUCKETS ) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = index % SUB_BUCKETS;
+        return ( SUB_BUCKETS + sub ) << ( exponent - SUB_BUCKET_BITS );
+    }
+
+}
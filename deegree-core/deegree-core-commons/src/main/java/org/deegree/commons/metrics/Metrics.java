@@ -0,0 +1,313 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.metrics;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+
+/**
+ * Process wide registry for request and backend metrics.
+ * <p>
+ * Metrics are organized in families (e.g. <code>deegree_ows_request_duration_seconds</code>) that consist of series
+ * identified by label values (e.g. service and operation). Lookups and updates are lock-free, so the registry can be
+ * used from any request thread. The contents can be exported in the Prometheus text exposition format using
+ * {@link #writePrometheus(Writer)}.
+ * </p>
+ * <p>
+ * As label values may be derived from request parameters, the number of series per family is limited. Observations
+ * for additional series are still accepted, but not exported.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public final class Metrics {
+
+    private static final Logger LOG = getLogger( Metrics.class );
+
+    private static final int MAX_SERIES_PER_FAMILY = 1000;
+
+    private static final ConcurrentMap<String, Family> FAMILIES = new ConcurrentHashMap<String, Family>();
+
+    /** Exported histogram bounds are the powers of two between 2^MIN_EXPORT_EXPONENT and 2^MAX_EXPORT_EXPONENT us. */
+    private static final int MIN_EXPORT_EXPONENT = 8;
+
+    private static final int MAX_EXPORT_EXPONENT = 26;
+
+    private enum Type {
+        counter, gauge, histogram
+    }
+
+    private Metrics() {
+        // avoid instantiation
+    }
+
+    /**
+     * Returns the latency histogram for the given family and label values, creating it if necessary.
+     * 
+     * @param family
+     *            name of the metric family, should end with <code>_seconds</code>, must not be <code>null</code>
+     * @param help
+     *            description of the family, can be <code>null</code>
+     * @param labels
+     *            alternating label names and values, must not be <code>null</code>
+     * @return histogram, never <code>null</code>
+     */
+    public static LatencyHistogram getHistogram( String family, String help, String... labels ) {
+        return (LatencyHistogram) getFamily( family, help, Type.histogram ).get( labels );
+    }
+
+    /**
+     * Returns the (monotonic) counter for the given family and label values, creating it if necessary.
+     * 
+     * @param family
+     *            name of the metric family, should end with <code>_total</code>, must not be <code>null</code>
+     * @param help
+     *            description of the family, can be <code>null</code>
+     * @param labels
+     *            alternating label names and values, must not be <code>null</code>
+     * @return counter, never <code>null</code>
+     */
+    public static LongAdder getCounter( String family, String help, String... labels ) {
+        return (LongAdder) getFamily( family, help, Type.counter ).get( labels );
+    }
+
+    /**
+     * Returns the gauge (a counter that may be decremented) for the given family and label values, creating it if
+     * necessary.
+     * 
+     * @param family
+     *            name of the metric family, must not be <code>null</code>
+     * @param help
+     *            description of the family, can be <code>null</code>
+     * @param labels
+     *            alternating label names and values, must not be <code>null</code>
+     * @return gauge, never <code>null</code>
+     */
+    public static LongAdder getGauge( String family, String help, String... labels ) {
+        return (LongAdder) getFamily( family, help, Type.gauge ).get( labels );
+    }
+
+    /**
+     * Writes all registered metrics in the Prometheus text exposition format (version 0.0.4).
+     * 
+     * @param out
+     *            writer to write to, must not be <code>null</code>
+     * @throws IOException
+     *             if writing fails
+     */
+    public static void writePrometheus( Writer out )
+                            throws IOException {
+        for ( Family family : new TreeMap<String, Family>( FAMILIES ).values() ) {
+            family.write( out );
+        }
+        out.flush();
+    }
+
+    /**
+     * Removes all registered metrics.
+     */
+    public static void clear() {
+        FAMILIES.clear();
+    }
+
+    private static Family getFamily( String name, String help, Type type ) {
+        Family family = FAMILIES.get( name );
+        if ( family == null ) {
+            Family newFamily = new Family( name, help, type );
+            family = FAMILIES.putIfAbsent( name, newFamily );
+            if ( family == null ) {
+                family = newFamily;
+            }
+        }
+        if ( family.type != type ) {
+            throw new IllegalArgumentException( "Metric family '" + name + "' is a " + family.type + ", not a " + type
+                                                + "." );
+        }
+        return family;
+    }
+
+    private static void writeLabels( Writer out, List<String> labels, String extraName, String extraValue )
+                            throws IOException {
+        if ( labels.isEmpty() && extraName == null ) {
+            return;
+        }
+        out.write( '{' );
+        boolean first = true;
+        for ( int i = 0; i + 1 < labels.size(); i += 2 ) {
+            if ( !first ) {
+                out.write( ',' );
+            }
+            writeLabel( out, labels.get( i ), labels.get( i + 1 ) );
+            first = false;
+        }
+        if ( extraName != null ) {
+            if ( !first ) {
+                out.write( ',' );
+            }
+            writeLabel( out, extraName, extraValue );
+        }
+        out.write( '}' );
+    }
+
+    private static void writeLabel( Writer out, String name, String value )
+                            throws IOException {
+        out.write( name );
+        out.write( "=\"" );
+        String s = value == null ? "" : value;
+        for ( int i = 0; i < s.length(); i++ ) {
+            char c = s.charAt( i );
+            switch ( c ) {
+            case '\\':
+                out.write( "\\\\" );
+                break;
+            case '"':
+                out.write( "\\\"" );
+                break;
+            case '\n':
+                out.write( "\\n" );
+                break;
+            default:
+                out.write( c );
+            }
+        }
+        out.write( '"' );
+    }
+
+    private static class Family {
+
+        private final String name;
+
+        private final String help;
+
+        private final Type type;
+
+        private final ConcurrentMap<List<String>, Object> series = new ConcurrentHashMap<List<String>, Object>();
+
+        private volatile boolean overflowLogged;
+
+        Family( String name, String help, Type type ) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        Object get( String[] labels ) {
+            List<String> key = Collections.unmodifiableList( Arrays.asList( labels.clone() ) );
+            Object value = series.get( key );
+            if ( value == null ) {
+                Object newValue = type == Type.histogram ? new LatencyHistogram() : new LongAdder();
+                if ( series.size() >= MAX_SERIES_PER_FAMILY ) {
+                    if ( !overflowLogged ) {
+                        overflowLogged = true;
+                        LOG.warn( "Metric family '{}' exceeds {} series, further series are not exported.", name,
+                                  MAX_SERIES_PER_FAMILY );
+                    }
+                    return newValue;
+                }
+                value = series.putIfAbsent( key, newValue );
+                if ( value == null ) {
+                    value = newValue;
+                }
+            }
+            return value;
+        }
+
+        void write( Writer out )
+                                throws IOException {
+            List<Entry<List<String>, Object>> entries = new ArrayList<Entry<List<String>, Object>>( series.entrySet() );
+            if ( entries.isEmpty() ) {
+                return;
+            }
+            if ( help != null ) {
+                out.write( "# HELP " + name + " " + help.replace( "\\", "\\\\" ).replace( "\n", "\\n" ) + "\n" );
+            }
+            out.write( "# TYPE " + name + " " + type + "\n" );
+            Map<String, Entry<List<String>, Object>> sorted = new TreeMap<String, Entry<List<String>, Object>>();
+            for ( Entry<List<String>, Object> entry : entries ) {
+                sorted.put( entry.getKey().toString(), entry );
+            }
+            for ( Entry<List<String>, Object> entry : sorted.values() ) {
+                List<String> labels = entry.getKey();
+                if ( type == Type.histogram ) {
+                    writeHistogram( out, labels, (LatencyHistogram) entry.getValue() );
+                } else {
+                    out.write( name );
+                    writeLabels( out, labels, null, null );
+                    out.write( " " + ( (LongAdder) entry.getValue() ).sum() + "\n" );
+                }
+            }
+        }
+
+        private void writeHistogram( Writer out, List<String> labels, LatencyHistogram histogram )
+                                throws IOException {
+            // read count first, so the cumulative buckets never exceed it
+            long count = histogram.getCount();
+            double sum = histogram.getSum() / 1e6;
+            for ( int exp = MIN_EXPORT_EXPONENT; exp <= MAX_EXPORT_EXPONENT; exp++ ) {
+                out.write( name + "_bucket" );
+                writeLabels( out, labels, "le", BigDecimal.valueOf( 1L << exp ).movePointLeft( 6 ).toPlainString() );
+                out.write( " " + Math.min( count, histogram.getCountBelowPowerOfTwo( exp ) ) + "\n" );
+            }
+            out.write( name + "_bucket" );
+            writeLabels( out, labels, "le", "+Inf" );
+            out.write( " " + count + "\n" );
+            out.write( name + "_sum" );
+            writeLabels( out, labels, null, null );
+            out.write( " " + sum + "\n" );
+            out.write( name + "_count" );
+            writeLabels( out, labels, null, null );
+            out.write( " " + count + "\n" );
+        }
+    }
+
+}
@@ -154,6 +154,11 @@ public class OWSException extends Exception {
      */
     public static final String NOT_FOUND = "NotFound";
 
+    /**
+     * the server is too busy to accept the request (e.g. WPS execution queue is full)
+     */
+    public static final String SERVER_BUSY = "ServerBusy";
+
     private final String exceptionCode;
 
     private final String locator;
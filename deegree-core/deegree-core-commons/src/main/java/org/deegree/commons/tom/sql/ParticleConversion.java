@@ -63,4 +63,12 @@ public class ParticleConversion<T extends TypedObjectNode> {
                             throws SQLException {
         converter.setParticle( stmt, particle, paramIndex );
     }
+
+    public ParticleConverter<T> getConverter() {
+        return converter;
+    }
+
+    public T getParticle() {
+        return particle;
+    }
 }
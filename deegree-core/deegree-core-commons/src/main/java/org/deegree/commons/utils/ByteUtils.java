@@ -42,6 +42,8 @@ import static java.lang.Integer.toHexString;
 
 import java.io.DataInput;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
  * <code>ByteUtils</code>
@@ -119,4 +121,18 @@ public class ByteUtils {
         return sb.toString();
     }
 
+    /**
+     * @param bs
+     *            the data to hash, must not be <code>null</code>
+     * @return the MD5 hash of the data as hex string (32 characters), never <code>null</code>
+     */
+    public static String md5Hex( byte[] bs ) {
+        try {
+            return encode( MessageDigest.getInstance( "MD5" ).digest( bs ) );
+        } catch ( NoSuchAlgorithmException e ) {
+            // every Java platform is required to support MD5
+            throw new IllegalStateException( e );
+        }
+    }
+
 }
@@ -92,7 +92,7 @@ public class StreamBufferStore extends OutputStream {
      */
     public StreamBufferStore( int limit ) {
         this.limit = limit;
-        os = new ByteArrayOutputStream( limit );
+        os = new MemoryBuffer( limit );
     }
 
     /**
@@ -106,7 +106,7 @@ public class StreamBufferStore extends OutputStream {
      */
     public StreamBufferStore( int limit, File targetFile ) {
         this.limit = limit;
-        os = new ByteArrayOutputStream( limit );
+        os = new MemoryBuffer( limit );
         this.targetFile = targetFile;
     }
 
@@ -129,7 +129,7 @@ public class StreamBufferStore extends OutputStream {
                             throws IOException {
         os.flush();
         if ( tmpFile == null ) {
-            return new ByteArrayInputStream( ( (ByteArrayOutputStream) os ).toByteArray() );
+            return ( (MemoryBuffer) os ).getInputStream();
         }
         return new FileInputStream( tmpFile );
     }
@@ -207,10 +207,26 @@ public class StreamBufferStore extends OutputStream {
         }
         if ( tmpFile != null ) {
             tmpFile.delete();
-            os = new ByteArrayOutputStream( limit );
+            os = new MemoryBuffer( limit );
             tmpFile = null;
         } else {
-            os = new ByteArrayOutputStream( limit );
+            os = new MemoryBuffer( limit );
+        }
+        bytesWritten = 0;
+    }
+
+    /**
+     * Allows reading the buffered bytes without copying them.
+     */
+    private static class MemoryBuffer extends ByteArrayOutputStream {
+
+        MemoryBuffer( int size ) {
+            super( size );
+        }
+
+        synchronized InputStream getInputStream() {
+            // bytes are only appended (or the buffer is replaced when growing), so the current bytes stay valid
+            return new ByteArrayInputStream( buf, 0, count );
         }
     }
 
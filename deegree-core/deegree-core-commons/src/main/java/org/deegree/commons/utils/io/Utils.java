@@ -41,6 +41,10 @@ import static org.apache.commons.io.IOUtils.toByteArray;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 
 /**
  * 
@@ -90,4 +94,42 @@ public class Utils {
         }
     }
 
+    /**
+     * Releases the memory mapping of the given buffer immediately instead of on garbage collection, so the file can be
+     * deleted (on Windows) and the address space is freed. The buffer (and all views on it) must not be accessed
+     * afterwards, doing so crashes the JVM.
+     * 
+     * @param buffer
+     *            the mapped buffer, may be <code>null</code>
+     * @return <code>true</code>, if the mapping was released, <code>false</code> if the JVM does not support it (the
+     *         mapping is released on garbage collection then)
+     */
+    public static boolean unmap( MappedByteBuffer buffer ) {
+        if ( buffer == null ) {
+            return false;
+        }
+        try {
+            try {
+                // Java 9 and later
+                Class<?> unsafeClass = Class.forName( "sun.misc.Unsafe" );
+                Method invokeCleaner = unsafeClass.getMethod( "invokeCleaner", ByteBuffer.class );
+                Field theUnsafe = unsafeClass.getDeclaredField( "theUnsafe" );
+                theUnsafe.setAccessible( true );
+                invokeCleaner.invoke( theUnsafe.get( null ), buffer );
+            } catch ( NoSuchMethodException e ) {
+                // Java 8
+                Method cleanerMethod = buffer.getClass().getMethod( "cleaner" );
+                cleanerMethod.setAccessible( true );
+                Object cleaner = cleanerMethod.invoke( buffer );
+                if ( cleaner == null ) {
+                    return false;
+                }
+                cleaner.getClass().getMethod( "clean" ).invoke( cleaner );
+            }
+            return true;
+        } catch ( Throwable t ) {
+            return false;
+        }
+    }
+
 }
@@ -0,0 +1,109 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for {@link LatencyHistogram} and {@link Metrics}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class LatencyHistogramTest {
+
+    @After
+    public void clear() {
+        Metrics.clear();
+    }
+
+    @Test
+    public void testBucketBoundsAreContinuous() {
+        for ( int i = 0; i < 100; i++ ) {
+            long lower = LatencyHistogram.getLowerBound( i );
+            assertEquals( i, LatencyHistogram.getBucketIndex( lower ) );
+            assertEquals( i, LatencyHistogram.getBucketIndex( LatencyHistogram.getLowerBound( i + 1 ) - 1 ) );
+        }
+    }
+
+    @Test
+    public void testQuantilesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for ( int i = 1; i <= 10000; i++ ) {
+            histogram.record( i );
+        }
+        assertEquals( 10000, histogram.getCount() );
+        assertEquals( 10000, histogram.getMax() );
+        assertEquals( 50005000, histogram.getSum() );
+        assertEquals( 5000, histogram.getQuantile( 0.5 ), 5000 * 0.25 );
+        assertEquals( 9900, histogram.getQuantile( 0.99 ), 9900 * 0.25 );
+    }
+
+    @Test
+    public void testCountBelowPowerOfTwo() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record( 1023 );
+        histogram.record( 1024 );
+        histogram.record( 1025 );
+        assertEquals( 1, histogram.getCountBelowPowerOfTwo( 10 ) );
+        assertEquals( 3, histogram.getCountBelowPowerOfTwo( 11 ) );
+    }
+
+    @Test
+    public void testPrometheusExport()
+                            throws IOException {
+        Metrics.getHistogram( "test_duration_seconds", "Test.", "service", "wms" ).record( 2000 );
+        Metrics.getCounter( "test_errors_total", null, "service", "w\"s" ).increment();
+        StringWriter out = new StringWriter();
+        Metrics.writePrometheus( out );
+        String s = out.toString();
+        assertTrue( s.contains( "# TYPE test_duration_seconds histogram\n" ) );
+        assertTrue( s.contains( "test_duration_seconds_bucket{service=\"wms\",le=\"0.001024\"} 0\n" ) );
+        assertTrue( s.contains( "test_duration_seconds_bucket{service=\"wms\",le=\"0.002048\"} 1\n" ) );
+        assertTrue( s.contains( "test_duration_seconds_bucket{service=\"wms\",le=\"+Inf\"} 1\n" ) );
+        assertTrue( s.contains( "test_duration_seconds_count{service=\"wms\"} 1\n" ) );
+        assertTrue( s.contains( "test_errors_total{service=\"w\\\"s\"} 1\n" ) );
+    }
+
+}
@@ -0,0 +1,65 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.commons.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link ByteUtils}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class ByteUtilsTest {
+
+    @Test
+    public void testEncodeDecode() {
+        byte[] bs = new byte[] { 0, 1, 15, 16, 127, -128, -1 };
+        assertEquals( "00010f107f80ff", ByteUtils.encode( bs ) );
+        assertArrayEquals( bs, ByteUtils.decode( "00010f107f80ff" ) );
+    }
+
+    @Test
+    public void testMd5Hex() {
+        assertEquals( "d41d8cd98f00b204e9800998ecf8427e", ByteUtils.md5Hex( new byte[0] ) );
+        assertEquals( "900150983cd24fb0d6963f7d28e17f72", ByteUtils.md5Hex( new byte[] { 'a', 'b', 'c' } ) );
+    }
+
+}
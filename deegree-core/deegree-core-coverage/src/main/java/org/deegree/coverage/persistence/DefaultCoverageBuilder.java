@@ -111,7 +111,13 @@ public class DefaultCoverageBuilder implements ResourceBuilder<Coverage> {
             return fromJAXB( (MultiResolutionRasterConfig) config, null );
         }
         if ( config instanceof RasterConfig ) {
-            return fromJAXB( (RasterConfig) config, null, null, ( (RasterConfig) config ).getNodata() );
+            RasterConfig rasterConfig = (RasterConfig) config;
+            AbstractRaster raster = fromJAXB( rasterConfig, null, null, rasterConfig.getNodata() );
+            String overviewDir = rasterConfig.getOverviewDirectory();
+            if ( raster != null && overviewDir != null && !overviewDir.trim().isEmpty() ) {
+                return withOverviews( raster, location.resolveToFile( overviewDir.trim() ) );
+            }
+            return raster;
         }
         LOG.warn( "An unknown object '{}' came out of JAXB parsing. This is probably a bug.", config.getClass() );
         return null;
@@ -184,6 +190,51 @@ public class DefaultCoverageBuilder implements ResourceBuilder<Coverage> {
         return mrr;
     }
 
+    /**
+     * Wraps the given raster into a {@link MultiResolutionRaster} together with the pre-generated overview levels
+     * found in the given directory (one sub directory per resolution, as written by the overview builder tool). The
+     * best fitting level is selected per request through {@link MultiResolutionRaster#getRaster(double)}, so coarse
+     * requests never touch the full resolution data.
+     * 
+     * @param raster
+     *            the full resolution raster
+     * @param overviewDirectory
+     *            containing the overview levels
+     * @return a {@link MultiResolutionRaster} containing the raster and its overviews, or the raster itself if no
+     *         overview could be loaded.
+     */
+    AbstractCoverage withOverviews( AbstractRaster raster, File overviewDirectory ) {
+        if ( !overviewDirectory.isDirectory() ) {
+            LOG.warn( "Configured overview directory {} does not exist, overviews will not be available.",
+                      overviewDirectory.getAbsolutePath() );
+            return raster;
+        }
+        ICRS crs = raster.getCoordinateSystem();
+        RasterIOOptions options = new RasterIOOptions();
+        if ( crs != null ) {
+            options.add( RasterIOOptions.CRS, crs.getAlias() );
+        }
+        MultiResolutionRaster mrr = new MultiResolutionRaster( metadata );
+        mrr.setCoordinateSystem( crs );
+        mrr.addRaster( raster );
+        int levels = 0;
+        for ( File resDir : findResolutionDirs( overviewDirectory ) ) {
+            AbstractRaster level = buildTiledRaster( resDir, false, options );
+            if ( level != null ) {
+                level.setCoordinateSystem( crs );
+                mrr.addRaster( level );
+                levels++;
+            }
+        }
+        if ( levels == 0 ) {
+            LOG.warn( "No overview levels found in {}.", overviewDirectory.getAbsolutePath() );
+            return raster;
+        }
+        LOG.info( "Registered {} overview level(s) from {}, resolutions: {}",
+                  new Object[] { levels, overviewDirectory.getAbsolutePath(), mrr.getResolutions() } );
+        return mrr;
+    }
+
     /**
      * @param mrrConfig
      * @param adapter
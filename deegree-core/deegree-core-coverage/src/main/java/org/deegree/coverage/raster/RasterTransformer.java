@@ -38,6 +38,8 @@ package org.deegree.coverage.raster;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import javax.media.jai.WarpPolynomial;
 import javax.vecmath.Point3d;
@@ -48,11 +50,13 @@ import org.deegree.coverage.raster.geom.RasterRect;
 import org.deegree.coverage.raster.interpolation.Interpolation;
 import org.deegree.coverage.raster.interpolation.InterpolationFactory;
 import org.deegree.coverage.raster.interpolation.InterpolationType;
-import org.deegree.cs.CoordinateTransformer;
 import org.deegree.cs.Transformer;
 import org.deegree.cs.coordinatesystems.ICRS;
 import org.deegree.cs.exceptions.TransformationException;
 import org.deegree.cs.exceptions.UnknownCRSException;
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.cs.transformations.Transformation;
+import org.deegree.cs.transformations.TransformationFactory;
 import org.deegree.geometry.Envelope;
 import org.deegree.geometry.Geometry;
 import org.deegree.geometry.GeometryTransformer;
@@ -76,6 +80,16 @@ public class RasterTransformer extends Transformer {
 
     private final int refPointsGridSize = 10;
 
+    /**
+     * Edge length (in pixels) of the destination tiles which are warped independently of each other.
+     */
+    static final int WARP_TILE_SIZE = 256;
+
+    /**
+     * Shared pool for the tile-blocked warping, worker threads are daemon threads, so the pool needs no shutdown.
+     */
+    private static final ForkJoinPool WARP_POOL = new ForkJoinPool( Runtime.getRuntime().availableProcessors() );
+
     private byte[] backgroundValue;
 
     // private CoordinateSystem srcCRS;
@@ -155,9 +169,6 @@ public class RasterTransformer extends Transformer {
                 srcData.setNoDataValue( backgroundValue );
             }
 
-            // interpolation is needed.
-            Interpolation interpolation = InterpolationFactory.getInterpolation( interpolationType, srcData );
-
             RasterRect rr = new RasterRect( 0, 0, dstWidth, dstHeight );
             RasterData dstData = srcData.createCompatibleWritableRasterData( rr, null );
             RasterGeoReference dstREnv = RasterGeoReference.create( sourceRaster.getRasterReference().getOriginLocation(),
@@ -167,31 +178,41 @@ public class RasterTransformer extends Transformer {
             // the warp is a cubic polynomial function created of 100 points in the dstEnvelope. This function will map
             // points from the source crs to the target crs very accurate.
             WarpPolynomial warp = createWarp( dstWidth, dstHeight, srcCRS, srcREnv, dstREnv );
-            warpTransform( warp, interpolation, dstData );
+            warpTransform( warp, interpolationType, srcData, dstData, true );
 
             return new SimpleRaster( dstData, dstEnvelope, dstREnv, null );
         }
     }
 
     /**
+     * Warps the source data into the destination data. The destination raster is split into tiles of
+     * {@link #WARP_TILE_SIZE} pixels, which are calculated in parallel on a fork/join pool. Every tile uses its own
+     * read-only view on the source data and its own {@link Interpolation} instance, so no state is shared between the
+     * workers while interpolating.
+     * 
      * @param warp
-     * @param interpolation
+     *            mapping the destination pixel positions to source pixel positions
+     * @param interpolationType
+     *            the type of interpolation to use
+     * @param srcData
+     *            to read the samples from
      * @param dstData
+     *            to write the interpolated pixels to
+     * @param parallel
+     *            <code>false</code> to warp the whole destination raster as a single tile in the calling thread
      */
-    private void warpTransform( WarpPolynomial warp, Interpolation interpolation, RasterData dstData ) {
-        byte[] pixel = new byte[dstData.getBands() * dstData.getDataType().getSize()];
-        float[] srcCoords = new float[dstData.getColumns() * 2];
-        for ( int y = 0; y < dstData.getRows(); y++ ) {
-            // look-up the pixel positions in the source raster for every pixel in this row, the srcCoords will contain
-            // the x,y ([2n],[2n+1]) values in the source raster (defined in the native CRS) for this row of pixels.
-            warp.warpRect( 0, y, dstData.getColumns(), 1, srcCoords );
-            for ( int x = 0; x < dstData.getColumns(); x++ ) {
-                // get the interpolated pixel and set the value into the result raster
-                interpolation.getPixel( srcCoords[x * 2], srcCoords[x * 2 + 1], pixel );
-                dstData.setPixel( x, y, pixel );
-            }
+    static void warpTransform( WarpPolynomial warp, InterpolationType interpolationType, RasterData srcData,
+                               RasterData dstData, boolean parallel ) {
+        // check the interpolation type before any work is scheduled.
+        InterpolationFactory.getInterpolation( interpolationType, srcData );
+        WarpTask task = new WarpTask( warp, interpolationType, srcData, dstData, 0, 0, dstData.getColumns(),
+                                      dstData.getRows() );
+        if ( !parallel || ( dstData.getColumns() <= WARP_TILE_SIZE && dstData.getRows() <= WARP_TILE_SIZE ) ) {
+            // a single tile, no need to hand it to the pool
+            task.warpTile();
+        } else {
+            WARP_POOL.invoke( task );
         }
-
     }
 
     /**
@@ -242,24 +263,23 @@ public class RasterTransformer extends Transformer {
         float dy = ( dstHeight - 1 ) / (float) ( refPointsGridSize - 1 );
         float[] srcCoords = new float[refPointsGridSize * refPointsGridSize * 2];
         float[] dstCoords = new float[refPointsGridSize * refPointsGridSize * 2];
-        List<Point3d> points = new ArrayList<Point3d>( refPointsGridSize * refPointsGridSize );
+        double[] worldCoords = new double[refPointsGridSize * refPointsGridSize * 2];
         for ( int j = 0; j < refPointsGridSize; j++ ) {
             for ( int i = 0; i < refPointsGridSize; i++ ) {
                 dstCoords[k] = i * dx;
                 dstCoords[k + 1] = j * dy;
                 double[] dstWCoords = dstREnv.getWorldCoordinate( (int) dstCoords[k], (int) dstCoords[k + 1] );
-                points.add( new Point3d( dstWCoords[0], dstWCoords[1], Double.NaN ) );
+                worldCoords[k] = dstWCoords[0];
+                worldCoords[k + 1] = dstWCoords[1];
                 k += 2;
             }
         }
-        List<Point3d> resultList = transformDstToSrc( srcCRS, points );
+        transformDstToSrc( srcCRS, worldCoords );
 
-        k = 0;
-        for ( Point3d point : resultList ) {
-            double[] srcRCoords = srcREnv.getRasterCoordinateUnrounded( point.x, point.y );
+        for ( k = 0; k < srcCoords.length; k += 2 ) {
+            double[] srcRCoords = srcREnv.getRasterCoordinateUnrounded( worldCoords[k], worldCoords[k + 1] );
             srcCoords[k] = (float) srcRCoords[0];
             srcCoords[k + 1] = (float) srcRCoords[1];
-            k += 2;
         }
 
         // create a best fit polynomial for out grid
@@ -268,10 +288,43 @@ public class RasterTransformer extends Transformer {
         return warp;
     }
 
-    private List<Point3d> transformDstToSrc( ICRS srcCRS, List<Point3d> points )
+    /**
+     * Transforms the given interleaved x,y ordinates from the target crs of this transformer into the given source crs.
+     * The points are handed to the transformation without a height (z is <code>NaN</code>), just like the
+     * {@link org.deegree.cs.CoordinateTransformer} would do.
+     * 
+     * @param srcCRS
+     *            the crs of the source raster
+     * @param ordinates
+     *            x,y ([2n],[2n+1]) ordinates in the target crs, will be replaced by the transformed ordinates
+     * @throws TransformationException
+     */
+    private void transformDstToSrc( ICRS srcCRS, double[] ordinates )
                             throws TransformationException {
-        // transform all grid points
-        return new CoordinateTransformer( srcCRS ).transform( getTargetCRS(), points );
+        Transformation trans = CRSManager.getTransformation( null, getTargetCRS(), srcCRS );
+        if ( TransformationFactory.isIdentity( trans ) ) {
+            return;
+        }
+        List<Point3d> points = new ArrayList<Point3d>( ordinates.length / 2 );
+        for ( int i = 0; i < ordinates.length; i += 2 ) {
+            points.add( new Point3d( ordinates[i], ordinates[i + 1], Double.NaN ) );
+        }
+        List<Point3d> result;
+        try {
+            result = trans.doTransform( points );
+        } catch ( TransformationException e ) {
+            // use the points which could be transformed, just like the CoordinateTransformer would do.
+            if ( e.getTransformedPoints() == null || e.getTransformedPoints().isEmpty() ) {
+                throw e;
+            }
+            LOG.debug( "Not all reference points could be transformed: " + e.getMessage() );
+            result = e.getTransformedPoints();
+        }
+        int i = 0;
+        for ( Point3d p : result ) {
+            ordinates[i++] = p.x;
+            ordinates[i++] = p.y;
+        }
     }
 
     /**
@@ -343,4 +396,94 @@ public class RasterTransformer extends Transformer {
     // }
     // }
 
+    /**
+     * Fork/join task warping a rectangular region of the destination raster, regions larger than
+     * {@link RasterTransformer#WARP_TILE_SIZE} are split in halves.
+     */
+    private static class WarpTask extends RecursiveAction {
+
+        private static final long serialVersionUID = -2914356383245837392L;
+
+        private final WarpPolynomial warp;
+
+        private final InterpolationType interpolationType;
+
+        private final RasterData srcData;
+
+        private final RasterData dstData;
+
+        private final int x;
+
+        private final int y;
+
+        private final int width;
+
+        private final int height;
+
+        WarpTask( WarpPolynomial warp, InterpolationType interpolationType, RasterData srcData, RasterData dstData,
+                  int x, int y, int width, int height ) {
+            this.warp = warp;
+            this.interpolationType = interpolationType;
+            this.srcData = srcData;
+            this.dstData = dstData;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        protected void compute() {
+            if ( width <= WARP_TILE_SIZE && height <= WARP_TILE_SIZE ) {
+                warpTile();
+                return;
+            }
+            // split along the longer side, at a tile border
+            if ( width >= height ) {
+                int half = splitSize( width );
+                invokeAll( new WarpTask( warp, interpolationType, srcData, dstData, x, y, half, height ),
+                           new WarpTask( warp, interpolationType, srcData, dstData, x + half, y, width - half, height ) );
+            } else {
+                int half = splitSize( height );
+                invokeAll( new WarpTask( warp, interpolationType, srcData, dstData, x, y, width, half ),
+                           new WarpTask( warp, interpolationType, srcData, dstData, x, y + half, width, height - half ) );
+            }
+        }
+
+        private static int splitSize( int size ) {
+            int tiles = ( size + WARP_TILE_SIZE - 1 ) / WARP_TILE_SIZE;
+            return ( tiles / 2 ) * WARP_TILE_SIZE;
+        }
+
+        /**
+         * Warps this region into a tile local buffer and copies the result into the destination raster.
+         */
+        void warpTile() {
+            RasterData source;
+            // the views share the underlying buffer but keep their own buffer positions
+            synchronized ( srcData ) {
+                source = srcData.asReadOnly();
+            }
+            Interpolation interpolation = InterpolationFactory.getInterpolation( interpolationType, source );
+            RasterData tile = dstData.createCompatibleWritableRasterData( new RasterRect( 0, 0, width, height ), null );
+
+            byte[] pixel = new byte[dstData.getBands() * dstData.getDataType().getSize()];
+            // look-up the pixel positions in the source raster for every pixel in this tile, the srcCoords will
+            // contain the x,y ([2n],[2n+1]) values in the source raster (defined in the native CRS), row by row.
+            float[] srcCoords = warp.warpRect( x, y, width, height, new float[width * height * 2] );
+            int k = 0;
+            for ( int row = 0; row < height; row++ ) {
+                for ( int col = 0; col < width; col++ ) {
+                    // get the interpolated pixel and set the value into the tile
+                    interpolation.getPixel( srcCoords[k], srcCoords[k + 1], pixel );
+                    tile.setPixel( col, row, pixel );
+                    k += 2;
+                }
+            }
+            synchronized ( dstData ) {
+                dstData.setSubset( x, y, width, height, tile );
+            }
+        }
+    }
+
 }
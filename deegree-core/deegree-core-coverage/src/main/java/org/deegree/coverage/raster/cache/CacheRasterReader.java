@@ -39,6 +39,7 @@
 package org.deegree.coverage.raster.cache;
 
 import static java.lang.System.currentTimeMillis;
+import static org.deegree.commons.utils.io.Utils.unmap;
 import static org.deegree.coverage.raster.cache.RasterCache.FILE_EXTENSION;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -46,10 +47,12 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.deegree.commons.utils.FileUtils;
 import org.deegree.coverage.raster.AbstractRaster;
@@ -67,7 +70,10 @@ import org.deegree.coverage.raster.utils.Rasters;
 import org.slf4j.Logger;
 
 /**
- * The <code>CacheRasterReader</code> is a grid based caching mechanism for raster readers.
+ * The <code>CacheRasterReader</code> is a grid based caching mechanism for raster readers. If
+ * {@link RasterCache#isMemoryMapped()} is set, tiles read from the cached reader are written to the cache file
+ * immediately (and accounted as used disk space) and all reads of tiles on file are done through (shared) memory mapped
+ * buffers instead of heap copies. The mappings are released when the reader is cleared or disposed.
  * 
  * @author <a href="mailto:bezema@lat-lon.de">Rutger Bezema</a>
  * @author last edited by: $Author$
@@ -93,6 +99,14 @@ public class CacheRasterReader extends GridFileReader {
 
     private RasterCache cacheManager;
 
+    private final boolean memoryMapped = RasterCache.isMemoryMapped();
+
+    // true if tiles were written to the cache file, without updating the info file.
+    private volatile boolean cacheInfoOutdated;
+
+    // reads of mapped tiles hold the read lock, the mappings are only released while holding the write lock
+    private final ReentrantReadWriteLock mappings = new ReentrantReadWriteLock();
+
     /**
      * Instantiate the map
      * 
@@ -331,12 +345,21 @@ public class CacheRasterReader extends GridFileReader {
                         resultBuffer = ByteBufferPool.allocate( intersection.height * intersection.width * sampleSize,
                                                                 false, false );
                     }
-                    for ( int row = minCRmaxCR[1]; row < getTileRows() && row <= minCRmaxCR[3]; ++row ) {
-                        for ( int col = minCRmaxCR[0]; col < getTileColumns() && col <= minCRmaxCR[2]; ++col ) {
-                            leaveStreamOpen( true );
-                            // getTileBuffer will get a read only (copy-of the tiles[row][col]) bytebuffer.
-                            ByteBuffer tileBuffer = getTileBuffer( col, row );
-                            copyValuesFromTile( col, row, intersection, tileBuffer, resultBuffer );
+                    if ( memoryMapped ) {
+                        mappings.readLock().lock();
+                    }
+                    try {
+                        for ( int row = minCRmaxCR[1]; row < getTileRows() && row <= minCRmaxCR[3]; ++row ) {
+                            for ( int col = minCRmaxCR[0]; col < getTileColumns() && col <= minCRmaxCR[2]; ++col ) {
+                                leaveStreamOpen( true );
+                                // getTileBuffer will get a read only (copy-of the tiles[row][col]) bytebuffer.
+                                ByteBuffer tileBuffer = getTileBuffer( col, row );
+                                copyValuesFromTile( col, row, intersection, tileBuffer, resultBuffer );
+                            }
+                        }
+                    } finally {
+                        if ( memoryMapped ) {
+                            mappings.readLock().unlock();
                         }
                     }
                     leaveStreamOpen( false );
@@ -357,6 +380,7 @@ public class CacheRasterReader extends GridFileReader {
      */
     public long clear( boolean deleteCacheFile ) {
         long result = 0;
+        releaseMappings();
         synchronized ( LOCK ) {
             for ( TileEntry entry : tiles.values() ) {
                 if ( entry != null ) {
@@ -379,6 +403,7 @@ public class CacheRasterReader extends GridFileReader {
      */
     public boolean deleteCacheFile() {
         boolean result = true;
+        releaseMappings();
         synchronized ( LOCK ) {
             super.dispose();
             File f = file();
@@ -481,6 +506,7 @@ public class CacheRasterReader extends GridFileReader {
      * @return the amount of freed memory.
      */
     public long dispose( boolean memoryBuffersAsWell ) {
+        releaseMappings();
         if ( cachedReader != null ) {
             // close the file in the reader as well.
             cachedReader.dispose();
@@ -555,19 +581,29 @@ public class CacheRasterReader extends GridFileReader {
         ByteBuffer result = null;
         TileEntry entry = getEntry( column, row );
         if ( entry != null ) {
+            if ( memoryMapped ) {
+                result = getMappedTileBuffer( column, row, entry );
+                if ( result != null ) {
+                    return result;
+                }
+            }
 
             ByteBuffer entryBuffer = null;
             synchronized ( LOCK ) {
                 entryBuffer = entry.getBuffer();
             }
+            boolean writeThrough = memoryMapped && gridWriter != null;
             if ( entryBuffer == null ) {
                 // allocation of the buffer should not be in the synchronized block, it may cause a dead lock with the
-                // raster cache.
-                entryBuffer = allocateTileBuffer( false, true );
+                // raster cache. If the tile will be written to the file, it will not be held in memory.
+                entryBuffer = allocateTileBuffer( false, !writeThrough );
             }
 
+            // bytes the cache file grew by writing the tile through, -1 if the tile was not written
+            long writtenToFile = -1;
             synchronized ( LOCK ) {
                 if ( !entry.isInMemory() ) {
+                    boolean read = false;
                     // check the cache file
                     if ( entry.isOnFile() ) {
                         try {
@@ -576,19 +612,104 @@ public class CacheRasterReader extends GridFileReader {
                             // could not read from the tile, so get rid of the tilesOnFile
                             entry.setTileOnFile( false );
                         }
-                    }
-                    if ( !entry.isOnFile() ) {
-                        // this can happen if the file could not be read from the cache file because of an IOException.
+                    } else if ( writeThrough ) {
                         readTileFromReader( entry, entryBuffer );
+                        read = true;
+                        long fileSize = cacheFileSize();
+                        if ( writeTileThrough( column, row, entry, entryBuffer ) ) {
+                            writtenToFile = cacheFileSize() - fileSize;
+                        } else {
+                            // keep the tile in memory
+                            RasterCache.updateUsedSpace( entryBuffer.capacity(), 0 );
+                        }
+                    }
+                    if ( writtenToFile < 0 ) {
+                        if ( !read && !entry.isOnFile() ) {
+                            // this can happen if the file could not be read from the cache file because of an
+                            // IOException.
+                            readTileFromReader( entry, entryBuffer );
+                        }
+                        this.inMemorySize += entry.setBuffer( entryBuffer );
                     }
-                    this.inMemorySize += entry.setBuffer( entryBuffer );
                 }
             }
+            if ( writtenToFile >= 0 ) {
+                // the tile is not held in memory, but on disk, which may exceed the maximum cache disk size
+                RasterCache.updateUsedSpace( 0, writtenToFile );
+                RasterCache.freeDisk( this );
+            }
             result = entryBuffer.asReadOnlyBuffer();
         }
         return result;
     }
 
+    /**
+     * Get a memory mapped view on the given tile, the tile will be mapped if it is on file but was not mapped before.
+     * 
+     * @param column
+     * @param row
+     * @param entry
+     * @return a read only view on the mapped tile data, or <code>null</code> if the tile is not on file or could not be
+     *         mapped.
+     */
+    private ByteBuffer getMappedTileBuffer( int column, int row, TileEntry entry ) {
+        ByteBuffer result = entry.getMappedBuffer();
+        if ( result == null && entry.isOnFile() ) {
+            try {
+                entry.setMappedBuffer( mapTile( column, row ) );
+                result = entry.getMappedBuffer();
+            } catch ( IOException e ) {
+                LOG.debug( "Could not map tile {}, {} of cache file {}: {}",
+                           new Object[] { column, row, file(), e.getLocalizedMessage() } );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Unmaps all memory mapped tiles, they are mapped again on the next read. If a read is in progress (possibly in the
+     * current thread, e.g. when the cache is freeing disk space), the mappings are only dropped and released on garbage
+     * collection, as unmapping them would crash the reading thread.
+     */
+    private void releaseMappings() {
+        if ( !memoryMapped ) {
+            return;
+        }
+        boolean locked = mappings.writeLock().tryLock();
+        try {
+            for ( TileEntry entry : tiles.values() ) {
+                ByteBuffer mapped = entry.releaseMappedBuffer();
+                if ( locked && mapped instanceof MappedByteBuffer ) {
+                    unmap( (MappedByteBuffer) mapped );
+                }
+            }
+        } finally {
+            if ( locked ) {
+                mappings.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes the given tile buffer to the cache file, only called from within synchronized blocks.
+     * 
+     * @return true if the tile was written.
+     */
+    private boolean writeTileThrough( int column, int row, TileEntry entry, ByteBuffer tileBuffer ) {
+        try {
+            boolean onFile = gridWriter.writeTile( column, row, tileBuffer );
+            entry.setTileOnFile( onFile );
+            if ( onFile ) {
+                cacheInfoOutdated = true;
+            }
+            return onFile;
+        } catch ( IOException e ) {
+            LOG.debug( "Could not write tile {}, {} to cache file {}: {}",
+                       new Object[] { column, row, file(), e.getLocalizedMessage() } );
+        }
+        return false;
+    }
+
     /**
      * @param tileBuffer
      *            may be <code>null</code>
@@ -643,7 +764,8 @@ public class CacheRasterReader extends GridFileReader {
 //                    }
 //                } else {
                     gridWriter.leaveStreamOpen( true );
-                    boolean rewriteInfo = false;
+                    boolean rewriteInfo = cacheInfoOutdated;
+                    cacheInfoOutdated = false;
                     for ( int row = 0; row < getTileRows(); ++row ) {
                         for ( int column = 0; column < getTileColumns(); ++column ) {
                             TileEntry entry = getEntry( column, row );
@@ -49,6 +49,7 @@ import java.util.SortedSet;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.deegree.commons.utils.StringUtils;
 import org.deegree.coverage.raster.SimpleRaster;
@@ -65,7 +66,13 @@ import org.slf4j.Logger;
  * {@link #freeMemory(long)} which in turn keeps track of reserved memory.
  * <p>
  * The RasterCache memory size and the amount of disk space can be set by adding the keys
- * {@link #DEF_RASTER_CACHE_MEM_SIZE} and {@link #DEF_RASTER_CACHE_DISK_SIZE} to the JVM.
+ * {@link #DEF_RASTER_CACHE_MEM_SIZE} and {@link #DEF_RASTER_CACHE_DISK_SIZE} to the JVM. Setting the key
+ * {@link #DEF_RASTER_CACHE_MMAP} to <code>true</code> will make the {@link CacheRasterReader}s write tiles directly to
+ * their cache files and read them through memory mapped buffers, leaving the caching to the page cache of the
+ * operating system.
+ * <p>
+ * The used memory and disk space are tracked with striped counters, only the eviction of cached data (if the memory
+ * limit was exceeded) is synchronized.
  * 
  * @author <a href="mailto:bezema@lat-lon.de">Rutger Bezema</a>
  * @author last edited by: $Author$
@@ -87,9 +94,17 @@ public class RasterCache {
     /** A key which can be given to the JVM to define the amount of disk memory used for caching (e.g. 1024m). */
     public static final String DEF_RASTER_CACHE_DISK_SIZE = "deegree.raster.cache.disksize";
 
-    private static long maxCacheMem;
+    /**
+     * A key which can be given to the JVM to enable the memory mapped access to the cache files (true/false), default is
+     * false.
+     */
+    public static final String DEF_RASTER_CACHE_MMAP = "deegree.raster.cache.mmap";
+
+    private static volatile long maxCacheMem;
+
+    private static volatile long maxCacheDisk;
 
-    private static long maxCacheDisk;
+    private static volatile boolean memoryMapped;
 
     /**
      * Standard name for a deegree cache file.
@@ -104,9 +119,9 @@ public class RasterCache {
 
     private final File cacheDir;
 
-    private static long currentlyUsedMemory = 0;
+    private static final LongAdder currentlyUsedMemory = new LongAdder();
 
-    private static long currentlyUsedDisk = 0;
+    private static final LongAdder currentlyUsedDisk = new LongAdder();
 
     private final static ConcurrentSkipListSet<CacheRasterReader> cache = new ConcurrentSkipListSet<CacheRasterReader>(
                                                                                                                         new CacheComparator() );
@@ -151,6 +166,11 @@ public class RasterCache {
                           ( mm / ( 1024 * 1024 ) ) + "Mb", DEF_RASTER_CACHE_DISK_SIZE );
             }
             maxCacheDisk = mm;
+            memoryMapped = Boolean.parseBoolean( System.getProperty( DEF_RASTER_CACHE_MMAP ) );
+            if ( memoryMapped ) {
+                LOG.info( "Using memory mapped raster cache files (because it was set with the {} property).",
+                          DEF_RASTER_CACHE_MMAP );
+            }
         }
     }
 
@@ -203,13 +223,18 @@ public class RasterCache {
                 cacheDir = directory;
             }
         }
-        synchronized ( CURRENT_CACHE_LOCK ) {
-            if ( !currentCaches.containsKey( cacheDir.getAbsolutePath() ) ) {
-                currentCaches.put( cacheDir.getAbsolutePath(), new RasterCache( cacheDir ) );
+        String key = cacheDir.getAbsolutePath();
+        RasterCache result = currentCaches.get( key );
+        if ( result == null ) {
+            synchronized ( CURRENT_CACHE_LOCK ) {
+                result = currentCaches.get( key );
+                if ( result == null ) {
+                    result = new RasterCache( cacheDir );
+                    currentCaches.put( key, result );
+                }
             }
         }
-
-        return currentCaches.get( cacheDir.getAbsolutePath() );
+        return result;
     }
 
     /**
@@ -256,14 +281,22 @@ public class RasterCache {
      * @return the currentlyUsedMemory
      */
     public static final long getCurrentlyUsedMemory() {
-        return currentlyUsedMemory;
+        return currentlyUsedMemory.sum();
     }
 
     /**
      * @return the currentlyUsedDisk
      */
     public static final long getCurrentlyUsedDisk() {
-        return currentlyUsedDisk;
+        return currentlyUsedDisk.sum();
+    }
+
+    /**
+     * @return true if the cache files should be accessed through memory mapped buffers, see
+     *         {@link #DEF_RASTER_CACHE_MMAP}.
+     */
+    public static final boolean isMemoryMapped() {
+        return memoryMapped;
     }
 
     /**
@@ -291,8 +324,8 @@ public class RasterCache {
                 }
             }
             cache.clear();
-            currentlyUsedMemory = 0;
-            currentlyUsedDisk = 0;
+            currentlyUsedMemory.reset();
+            currentlyUsedDisk.reset();
         }
         synchronized ( CURRENT_CACHE_LOCK ) {
             if ( deleteCacheFiles && currentCaches.values() != null ) {
@@ -364,22 +397,65 @@ public class RasterCache {
      * @return the amount of currently used cache memory, which is only an approximation.
      */
     public static long freeMemory( long requiredMemory ) {
-        synchronized ( MEM_LOCK ) {
-            LOG.debug( "Currently used cache memory:{} MB, totalCacheMemory:{} MB", currentlyUsedMemory
-                                                                                    / ( 1024d * 1024 ),
-                       maxCacheMem / ( 1024d * 1024 ) );
-            if ( currentlyUsedMemory + requiredMemory > maxCacheMem ) {
+        if ( currentlyUsedMemory.sum() + requiredMemory > maxCacheMem ) {
+            synchronized ( MEM_LOCK ) {
+                LOG.debug( "Currently used cache memory:{} MB, totalCacheMemory:{} MB",
+                           currentlyUsedMemory.sum() / ( 1024d * 1024 ), maxCacheMem / ( 1024d * 1024 ) );
                 disposeMemory( requiredMemory );
             }
-            currentlyUsedMemory += requiredMemory;
         }
+        currentlyUsedMemory.add( requiredMemory );
+        return currentlyUsedMemory.sum();
+    }
 
-        return currentlyUsedMemory;
+    /**
+     * Adds the given amount of bytes to the memory (or disk space) used by the cache, without trying to free any memory.
+     * This method may be called while holding locks of a {@link CacheRasterReader}.
+     * 
+     * @param memory
+     *            the amount of memory which was allocated (or freed if negative).
+     * @param disk
+     *            the amount of disk space which was allocated (or freed if negative).
+     */
+    static void updateUsedSpace( long memory, long disk ) {
+        currentlyUsedMemory.add( memory );
+        currentlyUsedDisk.add( disk );
+    }
+
+    /**
+     * Deletes the cache files of the least recently used readers until the used disk space is below the maximum cache
+     * disk size. Readers writing their tiles through to the cache file (see {@link #isMemoryMapped()}) call this
+     * method, as they do not allocate cache memory which would trigger the clean up otherwise. This method must not be
+     * called while synchronizing on a {@link CacheRasterReader}.
+     * 
+     * @param current
+     *            the reader which just wrote to its cache file, its file is kept
+     */
+    static void freeDisk( CacheRasterReader current ) {
+        if ( currentlyUsedDisk.sum() <= maxCacheDisk ) {
+            return;
+        }
+        synchronized ( MEM_LOCK ) {
+            // make a copy, to reflect the last read access.
+            SortedSet<CacheRasterReader> sort = new ConcurrentSkipListSet<CacheRasterReader>( cache );
+            Iterator<CacheRasterReader> it = sort.iterator();
+            while ( it.hasNext() && currentlyUsedDisk.sum() > maxCacheDisk ) {
+                CacheRasterReader next = it.next();
+                if ( next == null || next == current ) {
+                    continue;
+                }
+                long onDisk = next.cacheFileSize();
+                if ( onDisk > 0 ) {
+                    currentlyUsedMemory.add( -next.clear( true ) );
+                    currentlyUsedDisk.add( -onDisk );
+                }
+            }
+        }
     }
 
     private static void disposeMemory( long requiredMemory ) {
         synchronized ( MEM_LOCK ) {
-            if ( currentlyUsedMemory + requiredMemory > maxCacheMem ) {
+            if ( currentlyUsedMemory.sum() + requiredMemory > maxCacheMem ) {
                 // make a copy, to reflect the last read access.
                 SortedSet<CacheRasterReader> sort = new ConcurrentSkipListSet<CacheRasterReader>( cache );
                 Iterator<CacheRasterReader> it = sort.iterator();
@@ -391,28 +467,28 @@ public class RasterCache {
                         if ( next != null ) {
                             ++readersConsidered;
                             long onDisk = next.cacheFileSize();
-                            if ( currentlyUsedDisk > maxCacheDisk && onDisk > 0 ) {
+                            if ( currentlyUsedDisk.sum() > maxCacheDisk && onDisk > 0 ) {
                                 // just delete the cache file and any in memory data from the least recently used cache
                                 // file.
-                                currentlyUsedMemory -= next.clear( true );
-                                currentlyUsedDisk -= onDisk;
+                                currentlyUsedMemory.add( -next.clear( true ) );
+                                currentlyUsedDisk.add( -onDisk );
                             } else {
                                 long mem = next.currentApproxMemory();
                                 if ( mem > 0 && next.canCreateCacheFile() ) {
-                                    currentlyUsedMemory -= next.dispose( false );
+                                    currentlyUsedMemory.add( -next.dispose( false ) );
                                     // add the new cache file size
-                                    currentlyUsedDisk += ( next.cacheFileSize() - onDisk );
+                                    currentlyUsedDisk.add( next.cacheFileSize() - onDisk );
                                 } else if ( mem > 0 ) {
-                                    currentlyUsedMemory -= next.dispose( true );
+                                    currentlyUsedMemory.add( -next.dispose( true ) );
                                 }
                             }
                         }
-                        if ( currentlyUsedMemory + requiredMemory < halfMem ) {
+                        if ( currentlyUsedMemory.sum() + requiredMemory < halfMem ) {
                             break;
                         }
                     }
 
-                    if ( currentlyUsedMemory > halfMem || readersConsidered > ( cache.size() * 0.5 ) ) {
+                    if ( currentlyUsedMemory.sum() > halfMem || readersConsidered > ( cache.size() * 0.5 ) ) {
                         // disposed more than half of the readers or could not get required memory..., update the real
                         // memory, it might well be the current values are invalid.
                         updateCurrentlyUsedSpace();
@@ -438,13 +514,15 @@ public class RasterCache {
                     onDisk += next.cacheFileSize();
                 }
             }
-            LOG.debug( "Resetting currently used memory from: {} to: {}", ( currentlyUsedMemory / ( 1024 * 1024d ) ),
-                       ( cum / ( 1024 * 1024d ) ) );
+            LOG.debug( "Resetting currently used memory from: {} to: {}",
+                       ( currentlyUsedMemory.sum() / ( 1024 * 1024d ) ), ( cum / ( 1024 * 1024d ) ) );
 
             LOG.debug( "Resetting currently used space on disk from: {} to: {}",
-                       ( currentlyUsedDisk / ( 1024 * 1024d ) ), ( onDisk / ( 1024 * 1024d ) ) );
-            currentlyUsedMemory = cum;
-            currentlyUsedDisk = onDisk;
+                       ( currentlyUsedDisk.sum() / ( 1024 * 1024d ) ), ( onDisk / ( 1024 * 1024d ) ) );
+            currentlyUsedMemory.reset();
+            currentlyUsedMemory.add( cum );
+            currentlyUsedDisk.reset();
+            currentlyUsedDisk.add( onDisk );
         }
     }
 
@@ -454,12 +532,8 @@ public class RasterCache {
      * @param reader
      */
     private static void addReader( CacheRasterReader reader ) {
-        boolean added = false;
-        synchronized ( MEM_LOCK ) {
-            currentlyUsedMemory += reader.currentApproxMemory();
-            currentlyUsedDisk += reader.cacheFileSize();
-            added = cache.add( reader );
-        }
+        updateUsedSpace( reader.currentApproxMemory(), reader.cacheFileSize() );
+        boolean added = cache.add( reader );
         if ( !added ) {
             LOG.debug( "Not adding reader ({}) to cache because it is already in the cache.", reader );
         }
@@ -52,8 +52,11 @@ class TileEntry {
     // the memory buffer containing the data of this buffer.
     private ByteBuffer memoryTile;
 
+    // read only mapping of the data of this tile in the cache file.
+    private volatile ByteBuffer mappedTile;
+
     // time this tile was written to cache.
-    private long writtenToCache;
+    private volatile long writtenToCache;
 
     // time this tile was read from the original raster
     private long readFromOriginal;
@@ -102,6 +105,35 @@ class TileEntry {
         return memoryTile == null ? null : memoryTile.asReadOnlyBuffer();
     }
 
+    /**
+     * @param buffer
+     *            a read only memory mapped buffer on the data of this tile in the cache file, may be <code>null</code>.
+     *            The mapped buffer is not accounted as used memory.
+     */
+    public void setMappedBuffer( ByteBuffer buffer ) {
+        this.mappedTile = buffer;
+    }
+
+    /**
+     * @return a read only view on the memory mapped data of this tile or <code>null</code> if the tile was not mapped.
+     *         Every call returns a new view, so multiple threads may read from their result simultaneously.
+     */
+    public ByteBuffer getMappedBuffer() {
+        ByteBuffer mapped = mappedTile;
+        return mapped == null ? null : mapped.asReadOnlyBuffer();
+    }
+
+    /**
+     * Removes the memory mapping from this tile, the tile will be mapped again on the next read.
+     * 
+     * @return the mapped buffer or <code>null</code> if the tile was not mapped.
+     */
+    public ByteBuffer releaseMappedBuffer() {
+        ByteBuffer mapped = mappedTile;
+        mappedTile = null;
+        return mapped;
+    }
+
     /**
      * Delete the memory buffer of this tile, implicit reset of {@link #getReadTime}.
      * 
@@ -137,6 +169,9 @@ class TileEntry {
      */
     public void setTileOnFile( boolean isOnFile ) {
         writtenToCache = isOnFile ? System.currentTimeMillis() : 0;
+        if ( !isOnFile ) {
+            mappedTile = null;
+        }
     }
 
     /**
@@ -151,7 +186,10 @@ class TileEntry {
         long result = memoryTile == null ? 0 : memoryTile.capacity();
         memoryTile = null;
         readFromOriginal = 0;
-        writtenToCache = clearFileTime ? 0 : writtenToCache;
+        if ( clearFileTime ) {
+            writtenToCache = 0;
+            mappedTile = null;
+        }
         return result;
     }
 
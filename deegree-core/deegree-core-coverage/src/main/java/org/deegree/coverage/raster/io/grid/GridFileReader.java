@@ -38,12 +38,14 @@
 
 package org.deegree.coverage.raster.io.grid;
 
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.HashSet;
@@ -74,6 +76,8 @@ public class GridFileReader extends GridReader {
 
     private FileInputStream fileAccess;
 
+    private RandomAccessFile mappingAccess;
+
     private final Object LOCK = new Object();
 
     private File gridFile;
@@ -283,6 +287,32 @@ public class GridFileReader extends GridReader {
 
     }
 
+    /**
+     * Maps the data of the given tile read only into memory. The mapping stays valid after this reader was disposed,
+     * the data is paged in by the operating system on access.
+     * 
+     * @param columnId
+     * @param rowId
+     * @return a read only buffer on the data of the tile in the grid file.
+     * @throws IOException
+     *             if the grid file could not be mapped, e.g. because it does not (yet) contain the tile.
+     */
+    protected ByteBuffer mapTile( int columnId, int rowId )
+                            throws IOException {
+        long position = ( getTileId( columnId, rowId ) % getTilesPerBlob() ) * getBytesPerTile();
+        synchronized ( LOCK ) {
+            if ( mappingAccess == null ) {
+                mappingAccess = new RandomAccessFile( gridFile, "r" );
+            }
+            FileChannel channel = mappingAccess.getChannel();
+            if ( channel.size() < position + getBytesPerTile() ) {
+                throw new IOException( "The grid file " + gridFile + " does not contain tile: " + columnId + ", "
+                                       + rowId );
+            }
+            return channel.map( READ_ONLY, position, getBytesPerTile() );
+        }
+    }
+
     /**
      * @param tileColumn
      * @param tileRow
@@ -359,6 +389,13 @@ public class GridFileReader extends GridReader {
         leaveStreamOpen( false );
         try {
             closeReadStream();
+            synchronized ( LOCK ) {
+                if ( mappingAccess != null ) {
+                    // existing mappings stay valid
+                    mappingAccess.close();
+                    mappingAccess = null;
+                }
+            }
         } catch ( IOException e ) {
             if ( LOG.isDebugEnabled() ) {
                 LOG.debug( "(Stack) Exception occurred: " + e.getLocalizedMessage(), e );
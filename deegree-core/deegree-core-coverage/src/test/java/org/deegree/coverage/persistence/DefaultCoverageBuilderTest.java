@@ -0,0 +1,139 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2012 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.coverage.persistence;
+
+import static java.util.Arrays.asList;
+import static org.deegree.coverage.raster.container.GriddedBlobTileContainer.BLOB_FILE_EXT;
+import static org.deegree.coverage.raster.container.GriddedBlobTileContainer.BLOB_FILE_NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.deegree.coverage.AbstractCoverage;
+import org.deegree.coverage.Coverage;
+import org.deegree.coverage.raster.AbstractRaster;
+import org.deegree.coverage.raster.MultiResolutionRaster;
+import org.deegree.coverage.raster.SimpleRaster;
+import org.deegree.coverage.raster.data.RasterDataFactory;
+import org.deegree.coverage.raster.data.info.DataType;
+import org.deegree.coverage.raster.geom.RasterGeoReference;
+import org.deegree.coverage.raster.geom.RasterGeoReference.OriginLocation;
+import org.deegree.coverage.raster.io.RasterIOOptions;
+import org.deegree.coverage.raster.io.grid.GridWriter;
+import org.deegree.workspace.ResourceMetadata;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the overview support of the {@link DefaultCoverageBuilder}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class DefaultCoverageBuilderTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @SuppressWarnings("unchecked")
+    private final DefaultCoverageBuilder builder = new DefaultCoverageBuilder( null, mock( ResourceMetadata.class ) );
+
+    @Test
+    public void testWithOverviewsSelectsLevelByResolution()
+                            throws IOException {
+        AbstractRaster raster = createRaster( 1, 600, 400 );
+        File overviews = tmp.newFolder( "overviews" );
+        writeLevel( new File( overviews, "2.0" ), createRaster( 2, 300, 200 ) );
+        writeLevel( new File( overviews, "4.0" ), createRaster( 4, 150, 100 ) );
+
+        AbstractCoverage coverage = builder.withOverviews( raster, overviews );
+
+        assertTrue( coverage instanceof MultiResolutionRaster );
+        MultiResolutionRaster mrr = (MultiResolutionRaster) coverage;
+        assertEquals( asList( 1.0, 2.0, 4.0 ), mrr.getResolutions() );
+        assertSame( raster, mrr.getRaster( 0.5 ) );
+        assertSame( raster, mrr.getRaster( 1 ) );
+        assertSame( raster, mrr.getRaster( 1.9 ) );
+        assertEquals( 2.0, mrr.getRaster( 2 ).getRasterReference().getResolutionX(), 1e-9 );
+        assertEquals( 2.0, mrr.getRaster( 3.5 ).getRasterReference().getResolutionX(), 1e-9 );
+        assertEquals( 4.0, mrr.getRaster( 4 ).getRasterReference().getResolutionX(), 1e-9 );
+        assertEquals( 4.0, mrr.getRaster( 100 ).getRasterReference().getResolutionX(), 1e-9 );
+        assertEquals( 300, mrr.getRaster( 2 ).getColumns() );
+        assertEquals( 200, mrr.getRaster( 2 ).getRows() );
+    }
+
+    @Test
+    public void testWithoutOverviewDirectoryKeepsRaster() {
+        AbstractRaster raster = createRaster( 1, 600, 400 );
+        assertSame( raster, builder.withOverviews( raster, new File( tmp.getRoot(), "missing" ) ) );
+    }
+
+    @Test
+    public void testWithEmptyOverviewDirectoryKeepsRaster()
+                            throws IOException {
+        AbstractRaster raster = createRaster( 1, 600, 400 );
+        assertSame( raster, builder.withOverviews( raster, tmp.newFolder( "empty" ) ) );
+    }
+
+    private static SimpleRaster createRaster( double resolution, int width, int height ) {
+        RasterGeoReference ref = new RasterGeoReference( OriginLocation.OUTER, resolution, -resolution, 1000, 1400 );
+        return new SimpleRaster( RasterDataFactory.createRasterData( width, height, DataType.BYTE, false ),
+                                 ref.getEnvelope( width, height, null ), ref, null );
+    }
+
+    private static void writeLevel( File levelDir, SimpleRaster level )
+                            throws IOException {
+        assertTrue( levelDir.mkdirs() );
+        File blobFile = new File( levelDir, BLOB_FILE_NAME + 0 + BLOB_FILE_EXT );
+        GridWriter writer = new GridWriter( 1, 1, level.getEnvelope(), level.getRasterReference(), blobFile,
+                                            level.getRasterDataInfo() );
+        writer.write( level, null );
+        writer.writeMetadataFile( new RasterIOOptions() );
+    }
+
+}
@@ -0,0 +1,140 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.coverage.raster;
+
+import static org.deegree.coverage.raster.data.RasterDataFactory.createRasterData;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.AffineTransform;
+import java.util.Random;
+
+import javax.media.jai.WarpAffine;
+import javax.media.jai.WarpPolynomial;
+
+import org.deegree.coverage.raster.data.RasterData;
+import org.deegree.coverage.raster.data.info.DataType;
+import org.deegree.coverage.raster.geom.RasterRect;
+import org.deegree.coverage.raster.interpolation.InterpolationType;
+import org.junit.Test;
+
+/**
+ * Tests the tile-blocked parallel warping of the {@link RasterTransformer} against the sequential warping.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class RasterTransformerTest {
+
+    private static final int SRC_WIDTH = 700;
+
+    private static final int SRC_HEIGHT = 600;
+
+    // more than one tile in each direction, not a multiple of the tile size
+    private static final int DST_WIDTH = RasterTransformer.WARP_TILE_SIZE * 2 + 77;
+
+    private static final int DST_HEIGHT = RasterTransformer.WARP_TILE_SIZE + 131;
+
+    @Test
+    public void testParallelNearestNeighborEqualsSequential() {
+        assertParallelEqualsSequential( InterpolationType.NEAREST_NEIGHBOR, DataType.BYTE );
+    }
+
+    @Test
+    public void testParallelBilinearEqualsSequential() {
+        assertParallelEqualsSequential( InterpolationType.BILINEAR, DataType.BYTE );
+    }
+
+    @Test
+    public void testParallelBilinearFloatEqualsSequential() {
+        assertParallelEqualsSequential( InterpolationType.BILINEAR, DataType.FLOAT );
+    }
+
+    private void assertParallelEqualsSequential( InterpolationType interpolationType, DataType dataType ) {
+        RasterData src = createSource( dataType );
+        // rotated, scaled and shifted, parts of the destination are outside of the source raster
+        AffineTransform transform = AffineTransform.getRotateInstance( Math.toRadians( 12 ), 300, 250 );
+        transform.scale( 1.1, 0.9 );
+        transform.translate( -20, 15 );
+        WarpPolynomial warp = new WarpAffine( transform );
+
+        RasterData sequential = src.createCompatibleWritableRasterData( new RasterRect( 0, 0, DST_WIDTH, DST_HEIGHT ),
+                                                                        null );
+        RasterTransformer.warpTransform( warp, interpolationType, src, sequential, false );
+        RasterData parallel = src.createCompatibleWritableRasterData( new RasterRect( 0, 0, DST_WIDTH, DST_HEIGHT ),
+                                                                      null );
+        RasterTransformer.warpTransform( warp, interpolationType, src, parallel, true );
+
+        byte[] expected = sequential.getPixel( 0, 0, null );
+        byte[] actual = parallel.getPixel( 0, 0, null );
+        boolean hasData = false;
+        for ( int y = 0; y < DST_HEIGHT; y++ ) {
+            for ( int x = 0; x < DST_WIDTH; x++ ) {
+                expected = sequential.getPixel( x, y, expected );
+                actual = parallel.getPixel( x, y, actual );
+                assertArrayEquals( "pixel " + x + "," + y, expected, actual );
+                hasData |= !isZero( expected );
+            }
+        }
+        assertTrue( hasData );
+    }
+
+    private static RasterData createSource( DataType dataType ) {
+        RasterData src = createRasterData( SRC_WIDTH, SRC_HEIGHT, dataType, false );
+        Random random = new Random( 42 );
+        for ( int y = 0; y < SRC_HEIGHT; y++ ) {
+            for ( int x = 0; x < SRC_WIDTH; x++ ) {
+                if ( dataType == DataType.FLOAT ) {
+                    src.setFloatSample( x, y, 0, random.nextFloat() * 1000 );
+                } else {
+                    src.setByteSample( x, y, 0, (byte) random.nextInt( 256 ) );
+                }
+            }
+        }
+        return src;
+    }
+
+    private static boolean isZero( byte[] pixel ) {
+        for ( byte b : pixel ) {
+            if ( b != 0 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -41,6 +41,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -137,6 +138,7 @@ public class TestRasterCache {
         System.out.println( "class is going down" );
         System.setProperty( RasterCache.DEF_RASTER_CACHE_MEM_SIZE, "" );
         System.setProperty( RasterCache.DEF_RASTER_CACHE_DISK_SIZE, "" );
+        System.setProperty( RasterCache.DEF_RASTER_CACHE_MMAP, "" );
         RasterCache.reset( true );
     }
 
@@ -298,6 +300,45 @@ public class TestRasterCache {
         clearCache();
     }
 
+    /**
+     * Test the write through of tiles to the cache files and the reading through memory mapped tiles.
+     * 
+     * @throws IOException
+     * @throws URISyntaxException
+     */
+    @Test
+    public void testMemoryMappedCache()
+                            throws IOException, URISyntaxException {
+        System.setProperty( RasterCache.DEF_RASTER_CACHE_MMAP, "true" );
+        setRasterCache();
+        TiledRaster tR = buildTiledRaster( OriginLocation.CENTER );
+
+        // the tiles are written to the cache files instead of being held in memory
+        ByteBuffer written = ( (ByteBufferRasterData) tR.getSubRaster( tR.getEnvelope() ).getAsSimpleRaster().getRasterData() ).getByteBuffer();
+        checkDiskSize( TILED_RASTER_SIZE );
+        checkMemSize( 0 );
+
+        // read again through the mapped tiles
+        ByteBuffer mapped = ( (ByteBufferRasterData) tR.getSubRaster( tR.getEnvelope() ).getAsSimpleRaster().getRasterData() ).getByteBuffer();
+        Assert.assertEquals( written, mapped );
+        checkDiskSize( TILED_RASTER_SIZE );
+
+        /**
+         * writing the overview tiles exceeds the maximum disk size (3000000 + 9 * 334668 = 6012012 > 5Mb), so the cache
+         * files of the two least recently used tiles are deleted: 6012012 - 2 * 750000 = 4512012
+         */
+        AbstractRaster raster = buildRaster( OriginLocation.CENTER, "overview.png", "png", "epsg:26912" );
+        ( (ByteBufferRasterData) raster.getSubRaster( raster.getEnvelope() ).getAsSimpleRaster().getRasterData() ).getByteBuffer();
+        checkDiskSize( TILED_SINGLE_RASTER_SIZE * 2 + OVERVIEW_RASTER_SIZE );
+        checkMemSize( 0 );
+
+        // disposing releases the mappings, the tiles are mapped again on the next read
+        RasterCache.dispose();
+        mapped = ( (ByteBufferRasterData) tR.getSubRaster( tR.getEnvelope() ).getAsSimpleRaster().getRasterData() ).getByteBuffer();
+        Assert.assertEquals( written, mapped );
+        clearCache();
+    }
+
     @Test
     public void testMultiThreaded()
                             throws IOException, URISyntaxException {
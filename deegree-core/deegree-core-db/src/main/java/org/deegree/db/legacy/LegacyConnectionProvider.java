@@ -71,17 +71,23 @@ public class LegacyConnectionProvider implements ConnectionProvider {
 
     public LegacyConnectionProvider( String url, String user, String password, boolean readOnly,
                                      LegacyConnectionProviderMetadata metadata ) {
+        this( url, user, password, readOnly, 0, metadata );
+    }
+
+    /**
+     * @param maxOpenStatements
+     *            maximum number of prepared statements that are kept open (per connection) for reuse, 0 disables
+     *            statement pooling
+     */
+    public LegacyConnectionProvider( String url, String user, String password, boolean readOnly,
+                                     int maxOpenStatements, LegacyConnectionProviderMetadata metadata ) {
         this.metadata = metadata;
         // hardcoded as until 3.2
         int poolMinSize = 5;
         int poolMaxSize = 25;
 
-        if ( metadata != null ) {
-            pool = new ConnectionPool( metadata.getIdentifier().getId(), url, user, password, readOnly, poolMinSize,
-                                       poolMaxSize );
-        } else {
-            pool = new ConnectionPool( "<unspecified>", url, user, password, readOnly, poolMinSize, poolMaxSize );
-        }
+        String id = metadata != null ? metadata.getIdentifier().getId() : "<unspecified>";
+        pool = new ConnectionPool( id, url, user, password, readOnly, poolMinSize, poolMaxSize, maxOpenStatements );
     }
 
     public void setDialect( SQLDialect dialect ) {
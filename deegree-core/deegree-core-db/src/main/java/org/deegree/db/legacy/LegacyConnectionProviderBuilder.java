@@ -85,8 +85,10 @@ public class LegacyConnectionProviderBuilder implements ResourceBuilder<Connecti
     public ConnectionProvider build() {
         String url = config.getUrl();
         LegacyConnectionProvider cprov;
-        cprov = new LegacyConnectionProvider( url, config.getUser(), config.getPassword(),
-                                              config.isReadOnly() == null ? false : config.isReadOnly(), metadata );
+        boolean readOnly = config.isReadOnly() == null ? false : config.isReadOnly();
+        int maxOpenStatements = config.getMaxOpenStatements() == null ? 0 : config.getMaxOpenStatements().intValue();
+        cprov = new LegacyConnectionProvider( url, config.getUser(), config.getPassword(), readOnly,
+                                              maxOpenStatements, metadata );
 
         ServiceLoader<SqlDialectProvider> dialectLoader = ServiceLoader.load( SqlDialectProvider.class,
                                                                               workspace.getModuleClassLoader() );
@@ -58,6 +58,7 @@ import org.deegree.geometry.standard.multi.DefaultMultiGeometry;
 import org.deegree.geometry.standard.multi.DefaultMultiLineString;
 import org.deegree.geometry.standard.multi.DefaultMultiPoint;
 import org.deegree.geometry.standard.multi.DefaultMultiPolygon;
+import org.deegree.geometry.standard.points.PackedPoints;
 import org.deegree.geometry.standard.points.PointsList;
 import org.deegree.geometry.standard.primitive.DefaultLineString;
 import org.deegree.geometry.standard.primitive.DefaultPoint;
@@ -177,6 +178,21 @@ public class SimpleGeometryFactory {
         return inspect( new PointsList( points ) );
     }
 
+    /**
+     * Creates a {@link Points} object backed by the given coordinate array.
+     * 
+     * @param crs
+     *            coordinate reference system of the points, may be <code>null</code>
+     * @param coordinates
+     *            ordinates of the points (x0, y0[, z0], x1, y1[, z1], ...), must not be <code>null</code>
+     * @param dimension
+     *            coordinate dimension of the points
+     * @return created {@link Points}
+     */
+    public Points createPoints( ICRS crs, double[] coordinates, int dimension ) {
+        return inspect( new PackedPoints( crs, coordinates, dimension ) );
+    }
+
     /**
      * Creates a {@link Polygon} surface.
      * 
@@ -0,0 +1,252 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.geometry.io;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Reusable character buffer for writing formatted ordinates without creating intermediate strings.
+ * <p>
+ * If the {@link CoordinateFormatter} is a {@link FastCoordinateFormatter}, ordinates are written directly into the
+ * buffer, otherwise the strings returned by {@link CoordinateFormatter#format(double)} are copied. The buffer grows if
+ * necessary, callers writing long coordinate lists should use {@link #flushIfFull(XMLStreamWriter)} or
+ * {@link #flushIfFull(Writer)} to keep it small. Instances are not thread-safe.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class CoordinateCharBuffer {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    // space reserved for a single ordinate, longer representations make the buffer grow
+    private static final int ORDINATE_SPACE = 32;
+
+    private final CoordinateFormatter formatter;
+
+    private final FastCoordinateFormatter fastFormatter;
+
+    private char[] chars;
+
+    private int length;
+
+    /**
+     * Creates a new {@link CoordinateCharBuffer} instance.
+     * 
+     * @param formatter
+     *            formatter to use, must not be <code>null</code>
+     */
+    public CoordinateCharBuffer( CoordinateFormatter formatter ) {
+        this( formatter, DEFAULT_CAPACITY );
+    }
+
+    /**
+     * Creates a new {@link CoordinateCharBuffer} instance.
+     * 
+     * @param formatter
+     *            formatter to use, must not be <code>null</code>
+     * @param capacity
+     *            initial capacity in characters
+     */
+    public CoordinateCharBuffer( CoordinateFormatter formatter, int capacity ) {
+        this.formatter = formatter;
+        this.fastFormatter = formatter instanceof FastCoordinateFormatter ? (FastCoordinateFormatter) formatter : null;
+        this.chars = new char[Math.max( capacity, 2 * ORDINATE_SPACE )];
+    }
+
+    /**
+     * Returns the formatter used by this buffer.
+     * 
+     * @return formatter, never <code>null</code>
+     */
+    public CoordinateFormatter getFormatter() {
+        return formatter;
+    }
+
+    /**
+     * Appends the formatted ordinate.
+     * 
+     * @param ordinate
+     *            ordinate to append
+     */
+    public void append( double ordinate ) {
+        if ( fastFormatter != null ) {
+            ensureCapacity( ORDINATE_SPACE );
+            int end = fastFormatter.format( ordinate, chars, length );
+            if ( end >= 0 ) {
+                length = end;
+                return;
+            }
+        }
+        append( formatter.format( ordinate ) );
+    }
+
+    /**
+     * Appends the formatted ordinates, separated by the given character.
+     * 
+     * @param ordinates
+     *            ordinates to append, must not be <code>null</code>
+     * @param separator
+     *            character written between two ordinates
+     */
+    public void append( double[] ordinates, char separator ) {
+        for ( int i = 0; i < ordinates.length; i++ ) {
+            if ( i > 0 ) {
+                append( separator );
+            }
+            append( ordinates[i] );
+        }
+    }
+
+    /**
+     * Appends a single character.
+     * 
+     * @param c
+     *            character to append
+     */
+    public void append( char c ) {
+        ensureCapacity( 1 );
+        chars[length++] = c;
+    }
+
+    /**
+     * Appends the given string.
+     * 
+     * @param s
+     *            string to append, must not be <code>null</code>
+     */
+    public void append( String s ) {
+        ensureCapacity( s.length() );
+        s.getChars( 0, s.length(), chars, length );
+        length += s.length();
+    }
+
+    /**
+     * Returns the number of buffered characters.
+     * 
+     * @return number of buffered characters
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Discards the buffered characters.
+     */
+    public void reset() {
+        length = 0;
+    }
+
+    /**
+     * Writes the buffered characters to the given writer and resets the buffer.
+     * 
+     * @param writer
+     *            writer to write to, must not be <code>null</code>
+     * @throws XMLStreamException
+     */
+    public void writeTo( XMLStreamWriter writer )
+                            throws XMLStreamException {
+        if ( length > 0 ) {
+            writer.writeCharacters( chars, 0, length );
+            length = 0;
+        }
+    }
+
+    /**
+     * Writes the buffered characters to the given writer and resets the buffer.
+     * 
+     * @param writer
+     *            writer to write to, must not be <code>null</code>
+     * @throws IOException
+     */
+    public void writeTo( Writer writer )
+                            throws IOException {
+        if ( length > 0 ) {
+            writer.write( chars, 0, length );
+            length = 0;
+        }
+    }
+
+    /**
+     * Writes the buffered characters to the given writer if the buffer is (almost) full.
+     * 
+     * @param writer
+     *            writer to write to, must not be <code>null</code>
+     * @throws XMLStreamException
+     */
+    public void flushIfFull( XMLStreamWriter writer )
+                            throws XMLStreamException {
+        if ( isFull() ) {
+            writeTo( writer );
+        }
+    }
+
+    /**
+     * Writes the buffered characters to the given writer if the buffer is (almost) full.
+     * 
+     * @param writer
+     *            writer to write to, must not be <code>null</code>
+     * @throws IOException
+     */
+    public void flushIfFull( Writer writer )
+                            throws IOException {
+        if ( isFull() ) {
+            writeTo( writer );
+        }
+    }
+
+    private boolean isFull() {
+        return chars.length - length < 2 * ORDINATE_SPACE;
+    }
+
+    private void ensureCapacity( int additional ) {
+        if ( length + additional > chars.length ) {
+            chars = Arrays.copyOf( chars, Math.max( 2 * chars.length, length + additional ) );
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new String( chars, 0, length );
+    }
+}
@@ -0,0 +1,285 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.geometry.io;
+
+import static java.math.RoundingMode.HALF_DOWN;
+import static java.math.RoundingMode.HALF_EVEN;
+import static java.math.RoundingMode.HALF_UP;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.deegree.cs.components.IUnit;
+import org.deegree.cs.components.Unit;
+
+/**
+ * Fast, thread-safe {@link CoordinateFormatter} that converts ordinates to characters without
+ * {@link java.text.DecimalFormat}.
+ * <p>
+ * Two modes are supported:
+ * <ul>
+ * <li>fixed number of decimal places: produces the same output as a {@link DecimalCoordinateFormatter} with the same
+ * number of places (half-even rounding, trailing zeros kept)</li>
+ * <li>{@link #ROUNDTRIP}: the shortest plain decimal representation (up to 17 decimal places) that parses back to the
+ * exact same double value, <code>Double#toString()</code> is used for values without such a representation</li>
+ * </ul>
+ * Besides {@link #format(double)}, ordinates can be written directly into a character array with
+ * {@link #format(double, char[], int)}, see {@link CoordinateCharBuffer}.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class FastCoordinateFormatter implements CoordinateFormatter {
+
+    /** Special number of decimal places that selects the exact roundtrip mode. **/
+    public static final int ROUNDTRIP = -1;
+
+    // scaled values must be exactly representable as long and double
+    private static final double FAST_LIMIT = 1e15;
+
+    private static final double ROUNDTRIP_LIMIT = 9007199254740992.0; // 2^53
+
+    private static final int MAX_FAST_PLACES = 17;
+
+    private static final double[] POW10 = new double[23];
+
+    private static final long[] LONG_POW10 = new long[19];
+
+    static {
+        POW10[0] = 1;
+        for ( int i = 1; i < POW10.length; i++ ) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+        LONG_POW10[0] = 1;
+        for ( int i = 1; i < LONG_POW10.length; i++ ) {
+            LONG_POW10[i] = LONG_POW10[i - 1] * 10;
+        }
+    }
+
+    private final int decimalPlaces;
+
+    /**
+     * Creates a new {@link FastCoordinateFormatter} instance that uses
+     * {@link DecimalCoordinateFormatter#DEFAULT_PLACES}.
+     */
+    public FastCoordinateFormatter() {
+        this( DecimalCoordinateFormatter.DEFAULT_PLACES );
+    }
+
+    /**
+     * Creates a new {@link FastCoordinateFormatter} instance suitable for the specified {@link Unit} (same number of
+     * decimal places as {@link DecimalCoordinateFormatter#DecimalCoordinateFormatter(IUnit)}).
+     * 
+     * @param uom
+     *            unit-of-measure, may be <code>null</code>
+     */
+    public FastCoordinateFormatter( IUnit uom ) {
+        this( uom == Unit.METRE ? 3 : DecimalCoordinateFormatter.DEFAULT_PLACES );
+    }
+
+    /**
+     * Creates a new {@link FastCoordinateFormatter} instance that uses the specified number of decimal places.
+     * 
+     * @param decimalPlaces
+     *            number of decimal places, or {@link #ROUNDTRIP} for exact roundtrip output
+     */
+    public FastCoordinateFormatter( int decimalPlaces ) {
+        if ( decimalPlaces < 0 && decimalPlaces != ROUNDTRIP ) {
+            throw new IllegalArgumentException( "Invalid number of decimal places: " + decimalPlaces );
+        }
+        this.decimalPlaces = decimalPlaces;
+    }
+
+    /**
+     * Returns the number of decimal places.
+     * 
+     * @return number of decimal places, or {@link #ROUNDTRIP}
+     */
+    public int getDecimalPlaces() {
+        return decimalPlaces;
+    }
+
+    @Override
+    public String format( double ordinate ) {
+        char[] chars = new char[32];
+        int end = formatFast( ordinate, chars, 0 );
+        if ( end >= 0 ) {
+            return new String( chars, 0, end );
+        }
+        return formatSlow( ordinate );
+    }
+
+    /**
+     * Writes the formatted representation of the given ordinate into the given character array.
+     * 
+     * @param ordinate
+     *            ordinate to be formatted
+     * @param buffer
+     *            target array, must not be <code>null</code>
+     * @param offset
+     *            index of the first character to write
+     * @return index after the last character written, or <code>-1</code> if the remaining space of the array was
+     *         not sufficient (nothing has been written in that case)
+     */
+    public int format( double ordinate, char[] buffer, int offset ) {
+        int end = formatFast( ordinate, buffer, offset );
+        if ( end >= 0 ) {
+            return end;
+        }
+        if ( end == -1 ) {
+            return -1;
+        }
+        String s = formatSlow( ordinate );
+        if ( s.length() > buffer.length - offset ) {
+            return -1;
+        }
+        s.getChars( 0, s.length(), buffer, offset );
+        return offset + s.length();
+    }
+
+    /**
+     * @return end index, -1 if the representation does not fit into the buffer, -2 if the slow path is required
+     */
+    private int formatFast( double ordinate, char[] buffer, int offset ) {
+        if ( decimalPlaces == ROUNDTRIP ) {
+            return formatRoundtrip( ordinate, buffer, offset );
+        }
+        return formatFixed( ordinate, buffer, offset );
+    }
+
+    private int formatFixed( double ordinate, char[] buffer, int offset ) {
+        if ( decimalPlaces > MAX_FAST_PLACES ) {
+            return -2;
+        }
+        double abs = Math.abs( ordinate );
+        double scaled = abs * POW10[decimalPlaces];
+        // also catches NaN and infinity
+        if ( !( scaled < FAST_LIMIT ) ) {
+            return -2;
+        }
+        long m = (long) scaled;
+        double fraction = scaled - m;
+        // scaled is off by at most half an ulp, so only near-ties may be rounded differently than the exact value
+        if ( Math.abs( fraction - 0.5 ) <= Math.ulp( scaled ) ) {
+            return -2;
+        }
+        if ( fraction > 0.5 ) {
+            m++;
+        }
+        return write( Double.doubleToRawLongBits( ordinate ) < 0, m, decimalPlaces, buffer, offset );
+    }
+
+    private int formatRoundtrip( double ordinate, char[] buffer, int offset ) {
+        double abs = Math.abs( ordinate );
+        // also catches NaN and infinity
+        if ( !( abs < ROUNDTRIP_LIMIT ) ) {
+            return -2;
+        }
+        for ( int places = 0; places <= MAX_FAST_PLACES; places++ ) {
+            double scaled = abs * POW10[places];
+            if ( scaled >= ROUNDTRIP_LIMIT ) {
+                break;
+            }
+            long m = (long) ( scaled + 0.5 );
+            // both operands are exact, so the quotient equals the parsed decimal string m * 10^-places
+            if ( m / POW10[places] == abs ) {
+                return write( Double.doubleToRawLongBits( ordinate ) < 0, m, places, buffer, offset );
+            }
+        }
+        return -2;
+    }
+
+    private static int write( boolean negative, long m, int places, char[] buffer, int offset ) {
+        long integerPart = m / LONG_POW10[places];
+        long fractionPart = m - integerPart * LONG_POW10[places];
+        int integerDigits = digits( integerPart );
+        int length = ( negative ? 1 : 0 ) + integerDigits + ( places > 0 ? places + 1 : 0 );
+        if ( length > buffer.length - offset ) {
+            return -1;
+        }
+        int pos = offset;
+        if ( negative ) {
+            buffer[pos++] = '-';
+        }
+        pos += integerDigits;
+        writeDigits( integerPart, buffer, pos, integerDigits );
+        if ( places > 0 ) {
+            buffer[pos++] = '.';
+            pos += places;
+            writeDigits( fractionPart, buffer, pos, places );
+        }
+        return pos;
+    }
+
+    private static void writeDigits( long value, char[] buffer, int end, int count ) {
+        for ( int i = end - 1; i >= end - count; i-- ) {
+            long q = value / 10;
+            buffer[i] = (char) ( '0' + ( value - q * 10 ) );
+            value = q;
+        }
+    }
+
+    private static int digits( long value ) {
+        int digits = 1;
+        while ( digits < LONG_POW10.length && value >= LONG_POW10[digits] ) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private String formatSlow( double ordinate ) {
+        if ( decimalPlaces == ROUNDTRIP || Double.isNaN( ordinate ) || Double.isInfinite( ordinate ) ) {
+            return Double.toString( ordinate );
+        }
+        // like DecimalFormat: round the shortest decimal representation, but decide ties by the exact binary value
+        BigDecimal shortest = new BigDecimal( Double.toString( ordinate ) );
+        int cmp = new BigDecimal( ordinate ).abs().compareTo( shortest.abs() );
+        RoundingMode mode = cmp > 0 ? HALF_UP : ( cmp < 0 ? HALF_DOWN : HALF_EVEN );
+        BigDecimal value = shortest.setScale( decimalPlaces, mode );
+        // DecimalFormat keeps the sign of negative values that round to zero
+        if ( value.signum() == 0 && Double.doubleToRawLongBits( ordinate ) < 0 ) {
+            return "-" + value.toPlainString();
+        }
+        return value.toPlainString();
+    }
+
+    @Override
+    public String toString() {
+        return "FastCoordinateFormatter (" + ( decimalPlaces == ROUNDTRIP ? "roundtrip" : decimalPlaces ) + ")";
+    }
+}
@@ -115,7 +115,8 @@ public class WKTWriter {
 
     private CurveLinearizer linearizer;
 
-    private CoordinateFormatter formatter;
+    // reused for all ordinates written by this writer
+    private CoordinateCharBuffer ordinateBuffer;
 
     private int linearizedControlPoints = 5;
 
@@ -151,18 +152,15 @@ public class WKTWriter {
      *            signaling the capabilities of this writer, if <code>null</code> only some geometries can be exported
      *            (all dialects are disabled).
      * @param formatter
-     *            to use, if <code>null</code> the default decimal formatter with 5 decimals is used.
+     *            to use, if <code>null</code> a {@link FastCoordinateFormatter} with
+     *            {@link DecimalCoordinateFormatter#DEFAULT_PLACES} decimals is used.
      */
     public WKTWriter( Set<WKTFlag> flags, CoordinateFormatter formatter ) {
         this.flags = flags;
         if ( this.flags == null ) {
             this.flags = new HashSet<WKTFlag>();
         }
-        if ( formatter == null ) {
-            this.formatter = new DecimalCoordinateFormatter();
-        } else {
-            this.formatter = formatter;
-        }
+        setFormatter( formatter );
     }
 
     /**
@@ -185,10 +183,14 @@ public class WKTWriter {
 
     /**
      * @param formatter
-     *            the formatter to set
+     *            the formatter to set, if <code>null</code> a {@link FastCoordinateFormatter} with
+     *            {@link DecimalCoordinateFormatter#DEFAULT_PLACES} decimals is used
      */
     public void setFormatter( CoordinateFormatter formatter ) {
-        this.formatter = formatter;
+        if ( formatter == null ) {
+            formatter = new FastCoordinateFormatter();
+        }
+        ordinateBuffer = new CoordinateCharBuffer( formatter );
     }
 
     /**
@@ -289,19 +291,14 @@ public class WKTWriter {
     private void writePointWithoutPrefix( Point geometry, Writer writer )
                             throws IOException {
 
+        ordinateBuffer.append( geometry.get0() );
+        ordinateBuffer.append( ' ' );
+        ordinateBuffer.append( geometry.get1() );
         if ( flags.contains( WKTFlag.USE_3D ) ) {
-            writer.append( formatter.format( geometry.get0() ) );
-            writer.append( ' ' );
-            writer.append( formatter.format( geometry.get1() ) );
-            writer.append( ' ' );
-            writer.append( formatter.format( geometry.get2() ) );
-
-        } else {
-            writer.append( formatter.format( geometry.get0() ) );
-            writer.append( ' ' );
-            writer.append( formatter.format( geometry.get1() ) );
-
+            ordinateBuffer.append( ' ' );
+            ordinateBuffer.append( geometry.get2() );
         }
+        ordinateBuffer.writeTo( writer );
 
     }
 
@@ -1277,15 +1274,17 @@ public class WKTWriter {
             writer.append( "ENVELOPE " );
             appendObjectProps( writer, envelope );
             writer.append( '(' );
-            writer.append( formatter.format( pMinX ) + ' ' + formatter.format( pMinY ) + ',' );
-            writer.append( formatter.format( pMaxX ) + ' ' + formatter.format( pMaxY ) );
+            writePosition( pMinX, pMinY, writer );
+            writer.append( ',' );
+            writePosition( pMaxX, pMaxY, writer );
             writer.append( ')' );
 
         } else if ( flags.contains( WKTFlag.USE_ENVELOPE ) ) {
             writer.append( "ENVELOPE " );
             writer.append( '(' );
-            writer.append( formatter.format( pMinX ) + ' ' + formatter.format( pMinY ) + ',' );
-            writer.append( formatter.format( pMaxX ) + ' ' + formatter.format( pMaxY ) );
+            writePosition( pMinX, pMinY, writer );
+            writer.append( ',' );
+            writePosition( pMaxX, pMaxY, writer );
             writer.append( ')' );
         } else {
 
@@ -1294,11 +1293,15 @@ public class WKTWriter {
             } else {
                 writer.append( "POLYGON ((" );
 
-                writer.append( formatter.format( pMinX ) + ' ' + formatter.format( pMinY ) + ',' );
-                writer.append( formatter.format( pMaxX ) + ' ' + formatter.format( pMinY ) + ',' );
-                writer.append( formatter.format( pMaxX ) + ' ' + formatter.format( pMaxY ) + ',' );
-                writer.append( formatter.format( pMinX ) + ' ' + formatter.format( pMaxY ) + ',' );
-                writer.append( formatter.format( pMinX ) + ' ' + formatter.format( pMinY ) );
+                writePosition( pMinX, pMinY, writer );
+                writer.append( ',' );
+                writePosition( pMaxX, pMinY, writer );
+                writer.append( ',' );
+                writePosition( pMaxX, pMaxY, writer );
+                writer.append( ',' );
+                writePosition( pMinX, pMaxY, writer );
+                writer.append( ',' );
+                writePosition( pMinX, pMinY, writer );
 
                 writer.append( "))" );
 
@@ -1307,6 +1310,14 @@ public class WKTWriter {
 
     }
 
+    private void writePosition( double x, double y, Writer writer )
+                            throws IOException {
+        ordinateBuffer.append( x );
+        ordinateBuffer.append( ' ' );
+        ordinateBuffer.append( y );
+        ordinateBuffer.writeTo( writer );
+    }
+
     /**
      * Export the given geometry to wkt, without using any {@link WKTFlag}s. The writing is done to a StringWriter,
      * which should be handled with care.
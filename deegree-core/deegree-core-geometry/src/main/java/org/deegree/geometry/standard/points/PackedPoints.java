@@ -100,12 +100,6 @@ public class PackedPoints implements Points {
 
             private int idx = 0;
 
-            @SuppressWarnings("synthetic-access")
-            private double[] pointCoordinates = new double[dimension];
-
-            @SuppressWarnings("synthetic-access")
-            private DefaultPoint point = new DefaultPoint( null, crs, null, pointCoordinates );
-
             @Override
             public boolean hasNext() {
                 return idx < coordinates.length;
@@ -116,11 +110,11 @@ public class PackedPoints implements Points {
                 if ( !hasNext() ) {
                     throw new NoSuchElementException();
                 }
-                for ( int i = 0; i < dimension; i++ ) {
-                    pointCoordinates[i] = coordinates[idx + i];
-                }
+                // a new point for every element, callers keep references (e.g. GeometryValidator, GeometryFixer)
+                double[] pointCoordinates = new double[dimension];
+                System.arraycopy( coordinates, idx, pointCoordinates, 0, dimension );
                 idx += dimension;
-                return point;
+                return new DefaultPoint( null, crs, null, pointCoordinates );
             }
 
             @Override
@@ -151,7 +145,7 @@ public class PackedPoints implements Points {
 
     @Override
     public Envelope expandEnvelope( Envelope env ) {
-        for ( int i = 0; i < coordinates.length; i += 2 ) {
+        for ( int i = 0; i < coordinates.length; i += dimension ) {
             env.expandToInclude( coordinates[i], coordinates[i + 1] );
         }
         return env;
@@ -159,37 +153,41 @@ public class PackedPoints implements Points {
 
     @Override
     public Coordinate getCoordinate( int index ) {
-        Point point = get( index );
-        return new Coordinate( point.get0(), point.get1(), point.get2() );
+        return getCoordinateCopy( index );
     }
 
     @Override
     public void getCoordinate( int index, Coordinate coord ) {
-        Point point = get( index );
-        coord.x = point.get0();
-        coord.y = point.get1();
-        coord.z = point.get2();
+        int idx = index * dimension;
+        coord.x = coordinates[idx];
+        coord.y = coordinates[idx + 1];
+        coord.z = dimension > 2 ? coordinates[idx + 2] : Double.NaN;
     }
 
     @Override
     public Coordinate getCoordinateCopy( int index ) {
-        Point point = get( index );
-        return new Coordinate( point.get0(), point.get1(), point.get2() );
+        Coordinate coord = new Coordinate();
+        getCoordinate( index, coord );
+        return coord;
     }
 
     @Override
     public double getOrdinate( int index, int ordinateIndex ) {
-        return get( index ).get( ordinateIndex );
+        // CoordinateSequence contract: missing ordinates (e.g. Z of 2D points) are NaN
+        if ( ordinateIndex < 0 || ordinateIndex >= dimension ) {
+            return Double.NaN;
+        }
+        return coordinates[index * dimension + ordinateIndex];
     }
 
     @Override
     public double getX( int index ) {
-        return get( index ).get0();
+        return coordinates[index * dimension];
     }
 
     @Override
     public double getY( int index ) {
-        return get( index ).get1();
+        return coordinates[index * dimension + 1];
     }
 
     @Override
@@ -201,7 +199,7 @@ public class PackedPoints implements Points {
     public Coordinate[] toCoordinateArray() {
         Coordinate[] coords = new Coordinate[coordinates.length / dimension];
         for ( int i = 0; i < coords.length; i++ ) {
-            coords[i] = new Coordinate( coordinates[i * 2], coordinates[i * 2 + 1] );
+            coords[i] = new Coordinate( coordinates[i * dimension], coordinates[i * dimension + 1] );
         }
         return coords;
     }
@@ -38,6 +38,7 @@ package org.deegree.geometry.utils;
 
 import org.deegree.commons.tom.sql.ParticleConverter;
 import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.geometry.Envelope;
 import org.deegree.geometry.Geometry;
 
 /**
@@ -53,4 +54,23 @@ public interface GeometryParticleConverter extends ParticleConverter<Geometry> {
     public String getSrid();
 
     public ICRS getCrs();
+
+    /**
+     * Returns an SQL snippet for selecting a generalized version of the geometry, suitable for rendering at a given
+     * resolution.
+     * <p>
+     * The returned snippet must be decodable by {@link #toParticle(java.sql.ResultSet, int)}. Implementations that
+     * don't support generalization return the same snippet as {@link #getSelectSnippet(String)}.
+     * </p>
+     * 
+     * @param tableAlias
+     *            alias to use for qualifying the column, can be <code>null</code>
+     * @param tolerance
+     *            maximum deviation from the original geometry (in units of the storage CRS), a value &lt;= 0 disables
+     *            simplification
+     * @param clipBox
+     *            box (in the storage CRS) to clip the geometry to, can be <code>null</code> (no clipping)
+     * @return SQL snippet, never <code>null</code>
+     */
+    public String getGeneralizedSelectSnippet( String tableAlias, double tolerance, Envelope clipBox );
 }
\ No newline at end of file
@@ -177,15 +177,11 @@ public class GeometryFixer {
     private static Points getFixedPoints( Points points, Point newLastPoint ) {
         int numPoints = points.size();
         List<Point> fixedPointsList = new ArrayList<Point>( numPoints );
-        int i = 0;
-        // TODO check if this works for all Points implementations
-        for ( Point p : points ) {
-            if ( i++ != ( numPoints - 1 ) ) {
-                fixedPointsList.add( p );
-            } else {
-                fixedPointsList.add( newLastPoint );
-            }
+        // get() instead of iterating, as iterators may reuse the point instance (PackedPoints)
+        for ( int i = 0; i < numPoints - 1; i++ ) {
+            fixedPointsList.add( points.get( i ) );
         }
+        fixedPointsList.add( newLastPoint );
         return new PointsList( fixedPointsList );
     }
 
@@ -0,0 +1,130 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.geometry.io;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark that compares writing a coordinate list with the {@link DecimalCoordinateFormatter} (string per
+ * ordinate) and the {@link FastCoordinateFormatter} (directly into a {@link CoordinateCharBuffer}).
+ * <p>
+ * Not executed by the unit tests, run {@link #main(String[])} from the test classpath.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinateFormatterBenchmark {
+
+    @Param({ "3", "6", "-1" })
+    public int places;
+
+    private double[] ordinates;
+
+    private CoordinateFormatter decimalFormatter;
+
+    private CoordinateCharBuffer fastBuffer;
+
+    private StringWriter sink;
+
+    @Setup
+    public void setup() {
+        Random random = new Random( 42 );
+        ordinates = new double[10000];
+        for ( int i = 0; i < ordinates.length; i += 2 ) {
+            ordinates[i] = 300000 + random.nextDouble() * 500000;
+            ordinates[i + 1] = 5000000 + random.nextDouble() * 1000000;
+        }
+        // DecimalFormat has no roundtrip mode, use Double#toString() as reference
+        decimalFormatter = places < 0 ? new DoubleCoordinateFormatter() : new DecimalCoordinateFormatter( places );
+        fastBuffer = new CoordinateCharBuffer( new FastCoordinateFormatter( places ) );
+        sink = new StringWriter( 300000 );
+    }
+
+    @Benchmark
+    public int decimalFormatter()
+                            throws IOException {
+        sink.getBuffer().setLength( 0 );
+        for ( int i = 0; i < ordinates.length; i++ ) {
+            sink.write( ' ' );
+            sink.write( decimalFormatter.format( ordinates[i] ) );
+        }
+        return sink.getBuffer().length();
+    }
+
+    @Benchmark
+    public int fastFormatter()
+                            throws IOException {
+        sink.getBuffer().setLength( 0 );
+        for ( int i = 0; i < ordinates.length; i++ ) {
+            fastBuffer.append( ' ' );
+            fastBuffer.append( ordinates[i] );
+            fastBuffer.flushIfFull( sink );
+        }
+        fastBuffer.writeTo( sink );
+        return sink.getBuffer().length();
+    }
+
+    public static void main( String[] args )
+                            throws RunnerException {
+        new Runner( new OptionsBuilder().include( CoordinateFormatterBenchmark.class.getSimpleName() ).build() ).run();
+    }
+}
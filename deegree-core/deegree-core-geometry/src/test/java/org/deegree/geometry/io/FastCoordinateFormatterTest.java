@@ -0,0 +1,143 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.geometry.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link FastCoordinateFormatter} and {@link CoordinateCharBuffer}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class FastCoordinateFormatterTest {
+
+    @Test
+    public void testFixedEqualsDecimalCoordinateFormatter() {
+        Random random = new Random( 42 );
+        for ( int places : new int[] { 0, 1, 3, 6, 8, 17, 20 } ) {
+            CoordinateFormatter expected = new DecimalCoordinateFormatter( places );
+            CoordinateFormatter fast = new FastCoordinateFormatter( places );
+            for ( int i = 0; i < 20000; i++ ) {
+                double d = randomOrdinate( random, i, places );
+                assertEquals( "Ordinate " + d, expected.format( d ), fast.format( d ) );
+            }
+        }
+    }
+
+    @Test
+    public void testFixedSpecialValues() {
+        FastCoordinateFormatter fast = new FastCoordinateFormatter( 3 );
+        assertEquals( "0.000", fast.format( 0.0 ) );
+        assertEquals( "-0.000", fast.format( -0.0 ) );
+        assertEquals( "-0.000", fast.format( -0.0001 ) );
+        assertEquals( "0.002", fast.format( 0.0015 ) );
+        assertEquals( "0.003", fast.format( 0.0025 ) );
+        assertEquals( "1.000", fast.format( 1.0005 ) );
+        assertEquals( "12345678.900", fast.format( 12345678.9 ) );
+        assertEquals( "100000000000000000000.000", fast.format( 1e20 ) );
+    }
+
+    @Test
+    public void testRoundtrip() {
+        FastCoordinateFormatter fast = new FastCoordinateFormatter( FastCoordinateFormatter.ROUNDTRIP );
+        assertEquals( "0.1", fast.format( 0.1 ) );
+        assertEquals( "7", fast.format( 7 ) );
+        assertEquals( "-123.456", fast.format( -123.456 ) );
+        assertEquals( "0.000000000001", fast.format( 1e-12 ) );
+        Random random = new Random( 42 );
+        for ( int i = 0; i < 100000; i++ ) {
+            double d = i % 2 == 0 ? Double.longBitsToDouble( random.nextLong() ) : random.nextDouble() * 360 - 180;
+            if ( !Double.isNaN( d ) ) {
+                assertEquals( d, Double.parseDouble( fast.format( d ) ), 0.0 );
+            }
+        }
+    }
+
+    @Test
+    public void testFormatIntoArray() {
+        FastCoordinateFormatter fast = new FastCoordinateFormatter( 2 );
+        char[] chars = new char[8];
+        int end = fast.format( -12.345, chars, 1 );
+        assertEquals( "-12.35", new String( chars, 1, end - 1 ) );
+        assertEquals( -1, fast.format( 123456.0, chars, 1 ) );
+    }
+
+    @Test
+    public void testCharBuffer() {
+        CoordinateCharBuffer buffer = new CoordinateCharBuffer( new FastCoordinateFormatter( 1 ), 1 );
+        StringBuilder expected = new StringBuilder();
+        for ( int i = 0; i < 1000; i++ ) {
+            if ( i > 0 ) {
+                buffer.append( ' ' );
+                expected.append( ' ' );
+            }
+            buffer.append( new double[] { i, -i }, ',' );
+            expected.append( i ).append( ".0," ).append( -i ).append( ".0" );
+        }
+        buffer.append( 1e300 );
+        assertEquals( expected.toString() + new DecimalCoordinateFormatter( 1 ).format( 1e300 ), buffer.toString() );
+    }
+
+    @Test
+    public void testCharBufferCustomFormatter() {
+        CoordinateCharBuffer buffer = new CoordinateCharBuffer( new DoubleCoordinateFormatter() );
+        buffer.append( new double[] { 1.5, 2.25 }, ' ' );
+        assertEquals( "1.5 2.25", buffer.toString() );
+    }
+
+    private static double randomOrdinate( Random random, int i, int places ) {
+        switch ( i % 5 ) {
+        case 0:
+            return random.nextDouble() * 360 - 180;
+        case 1:
+            return Math.round( random.nextDouble() * 1e9 ) / 1000.0;
+        case 2:
+            // values close to rounding ties
+            return ( random.nextInt( 2000000 ) - 1000000 ) / Math.pow( 10, random.nextInt( 8 ) ) + 0.5
+                   / Math.pow( 10, places );
+        case 3:
+            return random.nextGaussian() * Math.pow( 10, random.nextInt( 30 ) - 10 );
+        default:
+            return -random.nextDouble() * 1e-5;
+        }
+    }
+}
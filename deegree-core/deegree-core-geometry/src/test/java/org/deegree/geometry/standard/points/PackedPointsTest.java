@@ -0,0 +1,94 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree
+ Copyright (C) 2001-2013 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+ and others
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ e-mail: info@deegree.org
+ website: http://www.deegree.org/
+----------------------------------------------------------------------------*/
+package org.deegree.geometry.standard.points;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+
+import org.deegree.geometry.primitive.Point;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+/**
+ * Tests for {@link PackedPoints}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class PackedPointsTest {
+
+    private final PackedPoints points2d = new PackedPoints( null, new double[] { 1, 2, 3, 4, 5, 6 }, 2 );
+
+    private final PackedPoints points3d = new PackedPoints( null, new double[] { 1, 2, 3, 4, 5, 6 }, 3 );
+
+    @Test
+    public void testOrdinates() {
+        assertEquals( 3, points2d.size() );
+        assertEquals( 5.0, points2d.getOrdinate( 2, 0 ), 0 );
+        assertEquals( 6.0, points2d.getOrdinate( 2, 1 ), 0 );
+        assertEquals( 6.0, points3d.getOrdinate( 1, 2 ), 0 );
+    }
+
+    @Test
+    public void testMissingOrdinateIsNaN() {
+        assertTrue( Double.isNaN( points2d.getOrdinate( 0, 2 ) ) );
+        assertTrue( Double.isNaN( points3d.getOrdinate( 0, 3 ) ) );
+    }
+
+    @Test
+    public void testGetCoordinate() {
+        Coordinate c = points3d.getCoordinate( 1 );
+        assertEquals( new Coordinate( 4, 5, 6 ), c );
+        assertEquals( 6.0, c.z, 0 );
+        assertTrue( Double.isNaN( points2d.getCoordinate( 1 ).z ) );
+    }
+
+    @Test
+    public void testIteratorReturnsNewPoints() {
+        Iterator<Point> iter = points2d.iterator();
+        Point first = iter.next();
+        Point second = iter.next();
+        assertNotSame( first, second );
+        assertEquals( 1.0, first.get0(), 0 );
+        assertEquals( 2.0, first.get1(), 0 );
+        assertEquals( 3.0, second.get0(), 0 );
+        assertEquals( 4.0, second.get1(), 0 );
+    }
+
+    @Test
+    public void testGetReturnsNewPoint() {
+        assertNotSame( points2d.get( 0 ), points2d.get( 0 ) );
+        assertEquals( 2.0, points2d.get( 0 ).get1(), 0 );
+    }
+
+}
@@ -51,6 +51,8 @@ import org.deegree.layer.persistence.base.jaxb.LayerOptionsType;
 import org.deegree.layer.persistence.base.jaxb.StyleRefType;
 import org.deegree.layer.persistence.base.jaxb.StyleRefType.Style.LegendGraphic;
 import org.deegree.layer.persistence.base.jaxb.StyleRefType.Style.LegendStyle;
+import org.deegree.rendering.r2d.Generalization;
+import org.deegree.rendering.r2d.Generalization.Mode;
 import org.deegree.rendering.r2d.context.MapOptions;
 import org.deegree.rendering.r2d.context.MapOptions.Antialias;
 import org.deegree.rendering.r2d.context.MapOptions.Interpolation;
@@ -247,7 +249,14 @@ public final class ConfigUtils {
         if ( cfg.isOpaque() != null ) {
             opaque = cfg.isOpaque();
         }
-        return new MapOptions( quali, interpol, alias, maxFeats, rad, opaque );
+        MapOptions options = new MapOptions( quali, interpol, alias, maxFeats, rad, opaque );
+        if ( cfg.getGeneralization() != null ) {
+            LayerOptionsType.Generalization gen = cfg.getGeneralization();
+            // the schema restricts the mode to the values of Mode
+            Mode mode = Mode.valueOf( gen.getMode() );
+            options.setGeneralization( new Generalization( mode, gen.getTolerance(), gen.isTopologyPreserving() ) );
+        }
+        return options;
     }
 
     public static Map<String, Dimension<?>> parseDimensions( String layerName, List<DimensionType> dimensions ) {
@@ -47,6 +47,7 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.xml.namespace.QName;
 
@@ -79,7 +80,9 @@ public class Dimension<T> {
 
     private QName property;
 
-    private List<?> extent;
+    private volatile List<?> extent;
+
+    private final AtomicLong extentVersion = new AtomicLong();
 
     private String name;
 
@@ -163,6 +166,25 @@ public class Dimension<T> {
         return extent;
     }
 
+    /**
+     * Replaces the extent, eg. with an extent that has been computed from the data.
+     * 
+     * @param extent
+     *            the new extent, must not be <code>null</code>
+     */
+    public void setExtent( List<?> extent ) {
+        this.extent = extent;
+        extentVersion.incrementAndGet();
+    }
+
+    /**
+     * @return the number of times the extent of this dimension has been replaced, can be used to invalidate cached
+     *         capabilities documents
+     */
+    public long getExtentVersion() {
+        return extentVersion.get();
+    }
+
     /**
      * @return the extent as comma separated list as in the specs
      */
@@ -291,12 +313,15 @@ public class Dimension<T> {
         if ( o instanceof Integer ) {
             return (Integer) o;
         }
-        if ( o instanceof Long ) {
-            return (Long) o;
+        if ( o instanceof Number ) {
+            return ( (Number) o ).doubleValue();
         }
         if ( o instanceof Date ) {
             return ( (Date) o ).getTime();
         }
+        if ( o instanceof Temporal ) {
+            return ( (Temporal) o ).getTimeInMilliseconds();
+        }
         if ( o instanceof Duration ) {
             return ( (Duration) o ).getEnd( new DateTime( new Date( 0 ), null ) ).getTimeInMilliseconds();
         }
@@ -310,7 +335,7 @@ public class Dimension<T> {
     public Object getNearestValue( Object val ) {
         NearestValueStatus status = new NearestValueStatus( getAsDouble( val ), val );
 
-        for ( Object o : extent ) {
+        for ( Object o : getExtent() ) {
             if ( o instanceof DimensionInterval<?, ?, ?> ) {
                 DimensionInterval<?, ?, ?> iv = (DimensionInterval<?, ?, ?>) o;
                 if ( !getNearestValueFromInterval( status, iv ) ) {
@@ -421,8 +446,8 @@ public class Dimension<T> {
             DimensionInterval<?, ?, ?> iv = (DimensionInterval<?, ?, ?>) val;
             return isValidInInterval( iv );
         } else {
-            for ( Object o : extent ) {
-                if ( o.equals( val ) ) {
+            for ( Object o : getExtent() ) {
+                if ( isSameValue( o, val ) ) {
                     return true;
                 }
                 if ( o instanceof DimensionInterval<?, ?, ?> ) {
@@ -436,8 +461,19 @@ public class Dimension<T> {
         return false;
     }
 
+    // time values are compared as instants (time zones may differ), numbers by value (types may differ)
+    private static boolean isSameValue( Object o, Object val ) {
+        if ( ( o instanceof Temporal || o instanceof Date ) && ( val instanceof Temporal || val instanceof Date ) ) {
+            return getAsDouble( o ) == getAsDouble( val );
+        }
+        if ( o instanceof Number && val instanceof Number ) {
+            return ( (Number) o ).doubleValue() == ( (Number) val ).doubleValue();
+        }
+        return o.equals( val );
+    }
+
     private boolean isValidInInterval( DimensionInterval<?, ?, ?> iv ) {
-        for ( Object o : extent ) {
+        for ( Object o : getExtent() ) {
             if ( o instanceof DimensionInterval<?, ?, ?> ) {
                 DimensionInterval<?, ?, ?> newIv = (DimensionInterval<?, ?, ?>) o;
 
@@ -445,8 +481,11 @@ public class Dimension<T> {
                 final double max = getAsDouble( newIv.max );
                 double res = getAsDouble( newIv.res );
                 if ( res <= 0 ) {
-                    // TODO think about a better way
-                    res = 1;
+                    // continuous extent, stepping through it would take forever for time values
+                    if ( getAsDouble( iv.min ) <= max && min <= getAsDouble( iv.max ) ) {
+                        return true;
+                    }
+                    continue;
                 }
 
                 while ( min < max ) {
@@ -0,0 +1,117 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2012 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d;
+
+/**
+ * Settings for the scale dependent generalization of geometries before they are rendered. The tolerance is given in
+ * pixels and converted to world units using the current world to screen transform of the renderer.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class Generalization {
+
+    /** Default tolerance in pixels. */
+    public static final double DEFAULT_TOLERANCE = 0.5;
+
+    /**
+     * The generalization algorithm.
+     */
+    public static enum Mode {
+        /** No generalization */
+        NONE,
+        /** Removes consecutive vertices falling into the same cell of a pixel grid */
+        PIXEL_SNAP,
+        /** Douglas-Peucker line simplification */
+        DOUGLAS_PEUCKER,
+        /** Visvalingam-Whyatt simplification (effective area) */
+        VISVALINGAM
+    }
+
+    private final Mode mode;
+
+    private final double tolerance;
+
+    private final boolean topologyPreserving;
+
+    /**
+     * @param mode
+     *            the algorithm to use, <code>null</code> means {@link Mode#NONE}
+     * @param tolerance
+     *            in pixels, if not positive {@link #DEFAULT_TOLERANCE} is used
+     * @param topologyPreserving
+     *            if true, simplified polygons will not become invalid (self intersecting rings, collapsed holes)
+     */
+    public Generalization( Mode mode, double tolerance, boolean topologyPreserving ) {
+        this.mode = mode == null ? Mode.NONE : mode;
+        this.tolerance = tolerance > 0 ? tolerance : DEFAULT_TOLERANCE;
+        this.topologyPreserving = topologyPreserving;
+    }
+
+    /**
+     * @return the algorithm, never <code>null</code>
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return the tolerance in pixels
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * @return true if simplified polygons must stay valid
+     */
+    public boolean isTopologyPreserving() {
+        return topologyPreserving;
+    }
+
+    @Override
+    public String toString() {
+        return mode + " (" + tolerance + "px" + ( topologyPreserving ? ", topology preserving)" : ")" );
+    }
+
+}
@@ -0,0 +1,270 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2012 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.awt.geom.AffineTransform;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.primitive.Point;
+import org.deegree.geometry.standard.AbstractDefaultGeometry;
+import org.deegree.rendering.r2d.Generalization.Mode;
+import org.slf4j.Logger;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.CoordinateSequence;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.Polygonal;
+import com.vividsolutions.jts.geom.util.GeometryTransformer;
+import com.vividsolutions.jts.simplify.DouglasPeuckerSimplifier;
+import com.vividsolutions.jts.simplify.TopologyPreservingSimplifier;
+
+/**
+ * Generalizes geometries (in world crs) to the resolution of the map before the java2d paths are built. Applied after
+ * clipping, so only the visible part of a geometry is generalized.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class GeometryGeneralizer {
+
+    private static final Logger LOG = getLogger( GeometryGeneralizer.class );
+
+    // geometries with less points are not worth the effort
+    private static final int MIN_POINTS = 8;
+
+    private final Generalization settings;
+
+    private final AffineTransform worldToScreen;
+
+    private final double worldTolerance;
+
+    GeometryGeneralizer( Generalization settings, AffineTransform worldToScreen ) {
+        this.settings = settings;
+        this.worldToScreen = worldToScreen;
+        double scale = Math.sqrt( Math.abs( worldToScreen.getDeterminant() ) );
+        this.worldTolerance = scale > 0 ? settings.getTolerance() / scale : 0;
+    }
+
+    /**
+     * @param geom
+     *            in world crs, may be <code>null</code>
+     * @return the generalized geometry, or the given geometry if it could or need not be generalized
+     */
+    Geometry generalize( Geometry geom ) {
+        if ( worldTolerance <= 0 || geom instanceof Point || !( geom instanceof AbstractDefaultGeometry ) ) {
+            return geom;
+        }
+        try {
+            AbstractDefaultGeometry defaultGeom = (AbstractDefaultGeometry) geom;
+            com.vividsolutions.jts.geom.Geometry jtsGeom = defaultGeom.getJTSGeometry();
+            if ( jtsGeom == null || jtsGeom.getNumPoints() < MIN_POINTS ) {
+                return geom;
+            }
+            com.vividsolutions.jts.geom.Geometry simplified = simplify( jtsGeom );
+            if ( simplified == null || simplified.isEmpty() || simplified.getNumPoints() >= jtsGeom.getNumPoints() ) {
+                return geom;
+            }
+            return defaultGeom.createFromJTS( simplified, geom.getCoordinateSystem() );
+        } catch ( Throwable e ) {
+            // e.g. non linear curves, render them as they are
+            LOG.debug( "Could not generalize geometry: {}", e.getLocalizedMessage() );
+            LOG.trace( "Stack trace:", e );
+            return geom;
+        }
+    }
+
+    private com.vividsolutions.jts.geom.Geometry simplify( com.vividsolutions.jts.geom.Geometry jtsGeom ) {
+        com.vividsolutions.jts.geom.Geometry simplified;
+        Mode mode = settings.getMode();
+        switch ( mode ) {
+        case DOUGLAS_PEUCKER:
+            if ( settings.isTopologyPreserving() ) {
+                return TopologyPreservingSimplifier.simplify( jtsGeom, worldTolerance );
+            }
+            return DouglasPeuckerSimplifier.simplify( jtsGeom, worldTolerance );
+        case PIXEL_SNAP:
+            simplified = new PixelSnapper().transform( jtsGeom );
+            break;
+        case VISVALINGAM:
+            simplified = new VisvalingamSimplifier().transform( jtsGeom );
+            break;
+        default:
+            return jtsGeom;
+        }
+        if ( settings.isTopologyPreserving() && jtsGeom instanceof Polygonal && !simplified.isValid() ) {
+            return TopologyPreservingSimplifier.simplify( jtsGeom, worldTolerance );
+        }
+        return simplified;
+    }
+
+    private static int minPoints( com.vividsolutions.jts.geom.Geometry parent ) {
+        return parent instanceof LinearRing ? 4 : 2;
+    }
+
+    /**
+     * Removes consecutive vertices which fall into the same cell of a grid of tolerance sized pixels.
+     */
+    private class PixelSnapper extends GeometryTransformer {
+
+        @Override
+        protected CoordinateSequence transformCoordinates( CoordinateSequence coords,
+                                                           com.vividsolutions.jts.geom.Geometry parent ) {
+            Coordinate[] in = coords.toCoordinateArray();
+            int minPoints = minPoints( parent );
+            if ( in.length <= minPoints ) {
+                return copy( coords );
+            }
+            double cell = settings.getTolerance();
+            double[] screen = new double[2];
+            List<Coordinate> out = new ArrayList<Coordinate>( in.length );
+            long lastX = Long.MIN_VALUE, lastY = Long.MIN_VALUE;
+            for ( int i = 0; i < in.length; ++i ) {
+                screen[0] = in[i].x;
+                screen[1] = in[i].y;
+                worldToScreen.transform( screen, 0, screen, 0, 1 );
+                long x = (long) Math.floor( screen[0] / cell );
+                long y = (long) Math.floor( screen[1] / cell );
+                if ( i == in.length - 1 ) {
+                    // always keep the last vertex, replacing a previous one in the same cell
+                    if ( x == lastX && y == lastY && out.size() > 1 ) {
+                        out.remove( out.size() - 1 );
+                    }
+                    out.add( in[i] );
+                } else if ( x != lastX || y != lastY ) {
+                    out.add( in[i] );
+                    lastX = x;
+                    lastY = y;
+                }
+            }
+            if ( out.size() < minPoints ) {
+                return copy( coords );
+            }
+            return factory.getCoordinateSequenceFactory().create( out.toArray( new Coordinate[out.size()] ) );
+        }
+    }
+
+    /**
+     * Visvalingam-Whyatt simplification, removes vertices whose effective area (the triangle with its neighbours) is
+     * smaller than the squared tolerance.
+     */
+    private class VisvalingamSimplifier extends GeometryTransformer {
+
+        private final Comparator<double[]> byArea = new Comparator<double[]>() {
+            @Override
+            public int compare( double[] o1, double[] o2 ) {
+                return Double.compare( o1[0], o2[0] );
+            }
+        };
+
+        @Override
+        protected CoordinateSequence transformCoordinates( CoordinateSequence coords,
+                                                           com.vividsolutions.jts.geom.Geometry parent ) {
+            Coordinate[] pts = coords.toCoordinateArray();
+            int minPoints = minPoints( parent );
+            int n = pts.length;
+            if ( n <= minPoints ) {
+                return copy( coords );
+            }
+            double minArea = worldTolerance * worldTolerance;
+            int[] prev = new int[n];
+            int[] next = new int[n];
+            double[] area = new double[n];
+            boolean[] removed = new boolean[n];
+            PriorityQueue<double[]> queue = new PriorityQueue<double[]>( n, byArea );
+            for ( int i = 0; i < n; ++i ) {
+                prev[i] = i - 1;
+                next[i] = i + 1;
+            }
+            for ( int i = 1; i < n - 1; ++i ) {
+                area[i] = area( pts[i - 1], pts[i], pts[i + 1] );
+                queue.add( new double[] { area[i], i } );
+            }
+            int remaining = n;
+            while ( !queue.isEmpty() && remaining > minPoints ) {
+                double[] entry = queue.poll();
+                int i = (int) entry[1];
+                if ( removed[i] || entry[0] != area[i] ) {
+                    // outdated entry
+                    continue;
+                }
+                if ( entry[0] >= minArea ) {
+                    break;
+                }
+                removed[i] = true;
+                --remaining;
+                int p = prev[i];
+                int nx = next[i];
+                next[p] = nx;
+                prev[nx] = p;
+                // the effective area of the neighbours must not become smaller than the one of the removed vertex
+                if ( p > 0 ) {
+                    area[p] = Math.max( entry[0], area( pts[prev[p]], pts[p], pts[nx] ) );
+                    queue.add( new double[] { area[p], p } );
+                }
+                if ( nx < n - 1 ) {
+                    area[nx] = Math.max( entry[0], area( pts[p], pts[nx], pts[next[nx]] ) );
+                    queue.add( new double[] { area[nx], nx } );
+                }
+            }
+            Coordinate[] out = new Coordinate[remaining];
+            int k = 0;
+            for ( int i = 0; i < n; ++i ) {
+                if ( !removed[i] ) {
+                    out[k++] = pts[i];
+                }
+            }
+            return factory.getCoordinateSequenceFactory().create( out );
+        }
+
+        private double area( Coordinate a, Coordinate b, Coordinate c ) {
+            return Math.abs( ( b.x - a.x ) * ( c.y - a.y ) - ( c.x - a.x ) * ( b.y - a.y ) ) / 2;
+        }
+    }
+
+}
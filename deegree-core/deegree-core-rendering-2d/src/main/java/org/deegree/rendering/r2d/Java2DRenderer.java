@@ -87,6 +87,8 @@ public class Java2DRenderer implements Renderer {
 
     public RendererContext rendererContext;
 
+    private GeometryGeneralizer generalizer;
+
     /**
      * @param graphics
      * @param width
@@ -139,6 +141,20 @@ public class Java2DRenderer implements Renderer {
         rendererContext = new RendererContext( pixelSize, res, graphics, this, bbox, width, worldToScreen );
     }
 
+    /**
+     * Sets the generalization applied to geometries after clipping and before the paths are built.
+     * 
+     * @param generalization
+     *            <code>null</code> or {@link Generalization.Mode#NONE} disables the generalization
+     */
+    public void setGeneralization( Generalization generalization ) {
+        if ( generalization == null || generalization.getMode() == Generalization.Mode.NONE ) {
+            generalizer = null;
+        } else {
+            generalizer = new GeometryGeneralizer( generalization, worldToScreen );
+        }
+    }
+
     @Override
     public void render( final PointStyling styling, final Geometry geom ) {
         if ( geom == null ) {
@@ -150,7 +166,7 @@ public class Java2DRenderer implements Renderer {
             rendererContext.pointRenderer.render( styling, pointInWorldCrs.get0(), pointInWorldCrs.get1() );
             return;
         }
-        final Geometry clippedGeometry = transformToWorldCrsAndClip( geom );
+        final Geometry clippedGeometry = generalize( transformToWorldCrsAndClip( geom ) );
         if ( clippedGeometry == null ) {
             return;
         }
@@ -185,6 +201,7 @@ public class Java2DRenderer implements Renderer {
         } else {
             renderGeometry = rendererContext.geomHelper.transform( geom );
         }
+        renderGeometry = generalize( renderGeometry );
         if ( renderGeometry instanceof Curve ) {
             final Double line = rendererContext.geomHelper.fromCurve( (Curve) renderGeometry, false );
             rendererContext.strokeRenderer.applyStroke( styling.stroke, styling.uom, line, styling.perpendicularOffset,
@@ -222,6 +239,7 @@ public class Java2DRenderer implements Renderer {
         if ( renderGeometry instanceof Envelope ) {
             renderGeometry = envelopeToPolygon( (Envelope) renderGeometry );
         }
+        renderGeometry = generalize( renderGeometry );
         if ( renderGeometry instanceof Surface ) {
             rendererContext.polygonRenderer.render( styling, (Surface) renderGeometry );
         }
@@ -266,6 +284,13 @@ public class Java2DRenderer implements Renderer {
         }
     }
 
+    private Geometry generalize( final Geometry geom ) {
+        if ( generalizer == null || geom == null ) {
+            return geom;
+        }
+        return generalizer.generalize( geom );
+    }
+
     Geometry transformToWorldCrsAndClip( final Geometry geom ) {
         final Geometry geomInWorldCrs = rendererContext.geomHelper.transform( geom );
         if ( rendererContext.clipper == null ) {
@@ -0,0 +1,289 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2010 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Encodes features with tile-local integer geometries into the protocol buffer format of the Mapbox Vector Tile
+ * specification (version 2).
+ * <p>
+ * Geometries are passed as command sequences (see {@link Commands}), layers are created on demand and attribute keys
+ * and values are de-duplicated per layer.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class MvtEncoder {
+
+    static final int POINT = 1;
+
+    static final int LINESTRING = 2;
+
+    static final int POLYGON = 3;
+
+    private static final int VARINT = 0;
+
+    private static final int FIXED64 = 1;
+
+    private static final int LENGTH_DELIMITED = 2;
+
+    private final int extent;
+
+    private final Map<String, Layer> layers = new LinkedHashMap<String, Layer>();
+
+    /**
+     * @param extent
+     *            the number of integer units along one side of the tile, usually 4096
+     */
+    MvtEncoder( int extent ) {
+        this.extent = extent;
+    }
+
+    /**
+     * @param layer
+     *            name of the layer to add the feature to, never <code>null</code>
+     * @param type
+     *            one of {@link #POINT}, {@link #LINESTRING} or {@link #POLYGON}
+     * @param geometry
+     *            the geometry commands, must not be empty
+     * @param attributes
+     *            attribute values (String, Boolean, Long or Double), never <code>null</code>
+     */
+    void addFeature( String layer, int type, Commands geometry, Map<String, Object> attributes ) {
+        Layer l = layers.get( layer );
+        if ( l == null ) {
+            l = new Layer( layer );
+            layers.put( layer, l );
+        }
+        l.addFeature( type, geometry, attributes );
+    }
+
+    boolean isEmpty() {
+        return layers.isEmpty();
+    }
+
+    void write( OutputStream out )
+                            throws IOException {
+        Message tile = new Message();
+        for ( Layer layer : layers.values() ) {
+            tile.writeMessage( 3, layer.encode() );
+        }
+        tile.writeTo( out );
+    }
+
+    private class Layer {
+
+        private final String name;
+
+        private final List<Message> features = new ArrayList<Message>();
+
+        private final Map<String, Integer> keys = new LinkedHashMap<String, Integer>();
+
+        private final Map<Object, Integer> values = new LinkedHashMap<Object, Integer>();
+
+        Layer( String name ) {
+            this.name = name;
+        }
+
+        void addFeature( int type, Commands geometry, Map<String, Object> attributes ) {
+            Commands tags = new Commands();
+            for ( Entry<String, Object> attribute : attributes.entrySet() ) {
+                if ( attribute.getValue() != null ) {
+                    tags.add( index( keys, attribute.getKey() ) );
+                    tags.add( index( values, attribute.getValue() ) );
+                }
+            }
+            Message feature = new Message();
+            feature.writePacked( 2, tags );
+            feature.writeVarint( 3, type );
+            feature.writePacked( 4, geometry );
+            features.add( feature );
+        }
+
+        Message encode() {
+            Message layer = new Message();
+            layer.writeVarint( 15, 2 );
+            layer.writeString( 1, name );
+            for ( Message feature : features ) {
+                layer.writeMessage( 2, feature );
+            }
+            for ( String key : keys.keySet() ) {
+                layer.writeString( 3, key );
+            }
+            for ( Object value : values.keySet() ) {
+                layer.writeMessage( 4, encodeValue( value ) );
+            }
+            layer.writeVarint( 5, extent );
+            return layer;
+        }
+
+        private <T> int index( Map<T, Integer> dictionary, T entry ) {
+            Integer idx = dictionary.get( entry );
+            if ( idx == null ) {
+                idx = dictionary.size();
+                dictionary.put( entry, idx );
+            }
+            return idx;
+        }
+
+        private Message encodeValue( Object value ) {
+            Message msg = new Message();
+            if ( value instanceof Boolean ) {
+                msg.writeVarint( 7, ( (Boolean) value ) ? 1 : 0 );
+            } else if ( value instanceof Long ) {
+                msg.writeVarint( 6, zigZag( (Long) value ) );
+            } else if ( value instanceof Double ) {
+                msg.writeTag( 3, FIXED64 );
+                long bits = Double.doubleToLongBits( (Double) value );
+                for ( int i = 0; i < 8; ++i ) {
+                    msg.write( (int) ( bits >>> ( 8 * i ) ) );
+                }
+            } else {
+                msg.writeString( 1, value.toString() );
+            }
+            return msg;
+        }
+    }
+
+    static long zigZag( long value ) {
+        return ( value << 1 ) ^ ( value >> 63 );
+    }
+
+    /**
+     * Growable list of unsigned 32 bit integers, used for the geometry command sequences and the feature tags.
+     */
+    static class Commands {
+
+        private int[] data = new int[16];
+
+        private int size;
+
+        void add( int value ) {
+            if ( size == data.length ) {
+                int[] tmp = new int[size * 2];
+                System.arraycopy( data, 0, tmp, 0, size );
+                data = tmp;
+            }
+            data[size++] = value;
+        }
+
+        /**
+         * @param id
+         *            1 (MoveTo), 2 (LineTo) or 7 (ClosePath)
+         * @param count
+         *            number of parameter pairs following the command
+         */
+        void command( int id, int count ) {
+            add( ( id & 0x7 ) | ( count << 3 ) );
+        }
+
+        void parameter( int delta ) {
+            add( ( delta << 1 ) ^ ( delta >> 31 ) );
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get( int idx ) {
+            return data[idx];
+        }
+    }
+
+    /**
+     * Minimal protocol buffer message writer.
+     */
+    private static class Message extends ByteArrayOutputStream {
+
+        void writeTag( int field, int wireType ) {
+            writeRawVarint( ( field << 3 ) | wireType );
+        }
+
+        void writeVarint( int field, long value ) {
+            writeTag( field, VARINT );
+            writeRawVarint( value );
+        }
+
+        void writeString( int field, String value ) {
+            byte[] bytes;
+            try {
+                bytes = value.getBytes( "UTF-8" );
+            } catch ( IOException e ) {
+                // UTF-8 is always supported
+                throw new IllegalStateException( e );
+            }
+            writeTag( field, LENGTH_DELIMITED );
+            writeRawVarint( bytes.length );
+            write( bytes, 0, bytes.length );
+        }
+
+        void writeMessage( int field, Message msg ) {
+            writeTag( field, LENGTH_DELIMITED );
+            writeRawVarint( msg.size() );
+            write( msg.buf, 0, msg.count );
+        }
+
+        void writePacked( int field, Commands values ) {
+            if ( values.size() == 0 ) {
+                return;
+            }
+            Message packed = new Message();
+            for ( int i = 0; i < values.size(); ++i ) {
+                packed.writeRawVarint( values.get( i ) & 0xFFFFFFFFL );
+            }
+            writeMessage( field, packed );
+        }
+
+        private void writeRawVarint( long value ) {
+            while ( ( value & ~0x7FL ) != 0 ) {
+                write( (int) ( ( value & 0x7F ) | 0x80 ) );
+                value >>>= 7;
+            }
+            write( (int) value );
+        }
+    }
+
+}
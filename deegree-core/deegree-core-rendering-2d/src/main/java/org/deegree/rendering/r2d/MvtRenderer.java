@@ -0,0 +1,404 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2010 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d;
+
+import static java.util.Collections.emptyMap;
+import static org.deegree.rendering.r2d.RenderHelper.getWorldToScreenTransform;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.awt.geom.AffineTransform;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.deegree.commons.tom.TypedObjectNode;
+import org.deegree.commons.tom.gml.property.Property;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.feature.Feature;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.linearization.GeometryLinearizer;
+import org.deegree.geometry.linearization.NumPointsCriterion;
+import org.deegree.geometry.refs.GeometryReference;
+import org.deegree.geometry.standard.AbstractDefaultGeometry;
+import org.deegree.rendering.r2d.MvtEncoder.Commands;
+import org.deegree.style.styling.LineStyling;
+import org.deegree.style.styling.PointStyling;
+import org.deegree.style.styling.PolygonStyling;
+import org.deegree.style.styling.Styling;
+import org.slf4j.Logger;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.geom.util.AffineTransformation;
+
+/**
+ * {@link Renderer} that encodes the geometries as Mapbox Vector Tile features instead of painting them.
+ * <p>
+ * Geometries are transformed into the tile grid, clipped to the tile extent plus a buffer, snapped to the integer grid
+ * and cleaned from the degenerate parts this produces. The styling only decides <i>whether</i> a geometry is
+ * included, the client is responsible for the symbolization. All geometries rendered between two calls to
+ * {@link #startFeature(Feature)} are written with the simple attributes of that feature into a layer named after the
+ * feature type.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class MvtRenderer implements Renderer {
+
+    private static final Logger LOG = getLogger( MvtRenderer.class );
+
+    private static final GeometryLinearizer linearizer = new GeometryLinearizer();
+
+    private static final String DEFAULT_LAYER = "features";
+
+    private final MvtEncoder encoder;
+
+    private final GeometryHelper helper;
+
+    private final AffineTransformation worldToTile;
+
+    private final com.vividsolutions.jts.geom.Geometry clipBox;
+
+    private final Set<Geometry> encoded = Collections.newSetFromMap( new IdentityHashMap<Geometry, Boolean>() );
+
+    private String layer = DEFAULT_LAYER;
+
+    private Map<String, Object> attributes = emptyMap();
+
+    /**
+     * @param bbox
+     *            the envelope of the tile, never <code>null</code>
+     * @param extent
+     *            number of grid cells along each side of the tile (4096 is common)
+     * @param buffer
+     *            number of grid cells around the tile to include when clipping, avoids artifacts at tile borders
+     */
+    public MvtRenderer( Envelope bbox, int extent, int buffer ) {
+        encoder = new MvtEncoder( extent );
+        helper = new GeometryHelper( bbox, extent, null );
+        AffineTransform at = new AffineTransform();
+        getWorldToScreenTransform( at, bbox, extent, extent );
+        worldToTile = new AffineTransformation( at.getScaleX(), at.getShearX(), at.getTranslateX(), at.getShearY(),
+                                                at.getScaleY(), at.getTranslateY() );
+        clipBox = new GeometryFactory().toGeometry( new com.vividsolutions.jts.geom.Envelope( -buffer,
+                                                                                               extent + buffer,
+                                                                                               -buffer,
+                                                                                               extent + buffer ) );
+    }
+
+    /**
+     * Starts a new vector tile feature. Subsequently rendered geometries are attributed to the given feature.
+     * 
+     * @param feature
+     *            the feature, never <code>null</code>
+     */
+    public void startFeature( Feature feature ) {
+        layer = feature.getName().getLocalPart();
+        attributes = new LinkedHashMap<String, Object>();
+        for ( Property p : feature.getProperties() ) {
+            String key = p.getName().getLocalPart();
+            Object value = toAttributeValue( p.getValue() );
+            if ( value != null && !attributes.containsKey( key ) ) {
+                attributes.put( key, value );
+            }
+        }
+        encoded.clear();
+    }
+
+    @Override
+    public void render( PointStyling styling, Geometry geom ) {
+        render( (Styling) styling, geom );
+    }
+
+    @Override
+    public void render( LineStyling styling, Geometry geom ) {
+        render( (Styling) styling, geom );
+    }
+
+    @Override
+    public void render( PolygonStyling styling, Geometry geom ) {
+        render( (Styling) styling, geom );
+    }
+
+    @Override
+    public void render( Styling styling, Collection<Geometry> geoms ) {
+        for ( Geometry geom : geoms ) {
+            render( styling, geom );
+        }
+    }
+
+    @Override
+    public void render( Styling styling, Geometry geom ) {
+        if ( geom == null ) {
+            LOG.debug( "Trying to render null geometry." );
+            return;
+        }
+        // several rules of a style may apply to the same geometry, but it must only be encoded once
+        if ( !encoded.add( geom ) ) {
+            return;
+        }
+        if ( geom instanceof GeometryReference<?> ) {
+            geom = ( (GeometryReference<?>) geom ).getReferencedObject();
+        }
+        Geometry g = linearizer.linearize( helper.transform( geom ), new NumPointsCriterion( 100 ) );
+        if ( !( g instanceof AbstractDefaultGeometry ) ) {
+            LOG.warn( "Cannot encode geometry of type '{}' into a vector tile.", g.getClass().getSimpleName() );
+            return;
+        }
+        com.vividsolutions.jts.geom.Geometry jts = ( (AbstractDefaultGeometry) g ).getJTSGeometry();
+        encode( clip( worldToTile.transform( jts ) ) );
+    }
+
+    /**
+     * @return <code>true</code>, if nothing has been encoded so far
+     */
+    public boolean isEmpty() {
+        return encoder.isEmpty();
+    }
+
+    /**
+     * Writes the encoded vector tile.
+     * 
+     * @param out
+     *            the stream to write to, will not be closed
+     * @throws IOException
+     */
+    public void write( OutputStream out )
+                            throws IOException {
+        encoder.write( out );
+    }
+
+    private com.vividsolutions.jts.geom.Geometry clip( com.vividsolutions.jts.geom.Geometry jts ) {
+        if ( clipBox.getEnvelopeInternal().contains( jts.getEnvelopeInternal() ) ) {
+            return jts;
+        }
+        try {
+            return clipBox.intersection( jts );
+        } catch ( RuntimeException e ) {
+            // invalid geometries may break the overlay operation, clients clip coordinates outside the extent anyway
+            LOG.debug( "Clipping geometry failed: {}", e.getLocalizedMessage() );
+            return jts;
+        }
+    }
+
+    private void encode( com.vividsolutions.jts.geom.Geometry jts ) {
+        if ( jts.isEmpty() ) {
+            return;
+        }
+        Cursor points = new Cursor();
+        Cursor lines = new Cursor();
+        Cursor polygons = new Cursor();
+        collect( jts, points, lines, polygons );
+        points.flushPoints();
+        if ( points.commands.size() > 0 ) {
+            encoder.addFeature( layer, MvtEncoder.POINT, points.commands, attributes );
+        }
+        if ( lines.commands.size() > 0 ) {
+            encoder.addFeature( layer, MvtEncoder.LINESTRING, lines.commands, attributes );
+        }
+        if ( polygons.commands.size() > 0 ) {
+            encoder.addFeature( layer, MvtEncoder.POLYGON, polygons.commands, attributes );
+        }
+    }
+
+    private void collect( com.vividsolutions.jts.geom.Geometry jts, Cursor points, Cursor lines, Cursor polygons ) {
+        if ( jts instanceof com.vividsolutions.jts.geom.Point ) {
+            points.point( jts.getCoordinate() );
+        } else if ( jts instanceof LineString ) {
+            lines.line( snap( jts.getCoordinates(), false ) );
+        } else if ( jts instanceof Polygon ) {
+            Polygon polygon = (Polygon) jts;
+            int[] exterior = snap( polygon.getExteriorRing().getCoordinates(), true );
+            if ( polygons.ring( exterior, true ) ) {
+                for ( int i = 0; i < polygon.getNumInteriorRing(); ++i ) {
+                    polygons.ring( snap( polygon.getInteriorRingN( i ).getCoordinates(), true ), false );
+                }
+            }
+        } else {
+            for ( int i = 0; i < jts.getNumGeometries(); ++i ) {
+                collect( jts.getGeometryN( i ), points, lines, polygons );
+            }
+        }
+    }
+
+    /**
+     * Rounds the coordinates to the tile grid, dropping repeated points (and the closing point of rings).
+     * 
+     * @return interleaved x/y values
+     */
+    private static int[] snap( Coordinate[] coords, boolean ring ) {
+        int[] xy = new int[coords.length * 2];
+        int n = 0;
+        for ( Coordinate c : coords ) {
+            int x = (int) Math.round( c.x );
+            int y = (int) Math.round( c.y );
+            if ( n == 0 || x != xy[n - 2] || y != xy[n - 1] ) {
+                xy[n++] = x;
+                xy[n++] = y;
+            }
+        }
+        if ( ring && n > 2 && xy[0] == xy[n - 2] && xy[1] == xy[n - 1] ) {
+            n -= 2;
+        }
+        int[] result = new int[n];
+        System.arraycopy( xy, 0, result, 0, n );
+        return result;
+    }
+
+    private static Object toAttributeValue( TypedObjectNode node ) {
+        if ( !( node instanceof PrimitiveValue ) ) {
+            return null;
+        }
+        PrimitiveValue pv = (PrimitiveValue) node;
+        Object value = pv.getValue();
+        if ( value instanceof Boolean ) {
+            return value;
+        }
+        if ( value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte ) {
+            return ( (Number) value ).longValue();
+        }
+        if ( value instanceof BigInteger && ( (BigInteger) value ).bitLength() < 64 ) {
+            return ( (BigInteger) value ).longValue();
+        }
+        if ( value instanceof Double || value instanceof Float || value instanceof BigDecimal ) {
+            return ( (Number) value ).doubleValue();
+        }
+        return pv.getAsText();
+    }
+
+    /**
+     * Accumulates the command sequence of one vector tile feature, tracking the current pen position.
+     */
+    private static class Cursor {
+
+        private final Commands commands = new Commands();
+
+        private final Commands points = new Commands();
+
+        private int x, y;
+
+        void point( Coordinate c ) {
+            points.add( (int) Math.round( c.x ) );
+            points.add( (int) Math.round( c.y ) );
+        }
+
+        /**
+         * Writes the collected points, multiple points must be encoded as a single MoveTo command.
+         */
+        void flushPoints() {
+            if ( points.size() == 0 ) {
+                return;
+            }
+            commands.command( 1, points.size() / 2 );
+            int[] xy = new int[2];
+            for ( int i = 0; i < points.size(); i += 2 ) {
+                xy[0] = points.get( i );
+                xy[1] = points.get( i + 1 );
+                moveBy( xy, 0 );
+            }
+        }
+
+        void line( int[] xy ) {
+            if ( xy.length < 4 ) {
+                return;
+            }
+            path( xy );
+        }
+
+        /**
+         * @return <code>false</code>, if the ring collapsed when snapping it to the grid
+         */
+        boolean ring( int[] xy, boolean exterior ) {
+            if ( xy.length < 6 ) {
+                return false;
+            }
+            long area = 0;
+            for ( int i = 0; i < xy.length; i += 2 ) {
+                int j = ( i + 2 ) % xy.length;
+                area += (long) xy[i] * xy[j + 1] - (long) xy[j] * xy[i + 1];
+            }
+            if ( area == 0 ) {
+                return false;
+            }
+            // exterior rings must have a positive area in the tile coordinate system, interior rings a negative one
+            if ( ( area > 0 ) != exterior ) {
+                reverse( xy );
+            }
+            path( xy );
+            commands.command( 7, 1 );
+            return true;
+        }
+
+        private void path( int[] xy ) {
+            commands.command( 1, 1 );
+            moveBy( xy, 0 );
+            commands.command( 2, xy.length / 2 - 1 );
+            for ( int i = 2; i < xy.length; i += 2 ) {
+                moveBy( xy, i );
+            }
+        }
+
+        private void moveBy( int[] xy, int idx ) {
+            commands.parameter( xy[idx] - x );
+            commands.parameter( xy[idx + 1] - y );
+            x = xy[idx];
+            y = xy[idx + 1];
+        }
+
+        private static void reverse( int[] xy ) {
+            for ( int i = 0, j = xy.length - 2; i < j; i += 2, j -= 2 ) {
+                int tx = xy[i], ty = xy[i + 1];
+                xy[i] = xy[j];
+                xy[i + 1] = xy[j + 1];
+                xy[j] = tx;
+                xy[j + 1] = ty;
+            }
+        }
+    }
+
+}
@@ -127,6 +127,7 @@ public class ImageRenderContext extends Java2DRenderContext {
         applyQuality( options );
         applyInterpolation( options );
         applyAntialias( options );
+        renderer.setGeneralization( options.getGeneralization() );
     }
 
     private void applyAntialias( MapOptions options ) {
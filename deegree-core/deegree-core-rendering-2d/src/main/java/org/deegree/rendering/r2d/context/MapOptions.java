@@ -35,6 +35,8 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.rendering.r2d.context;
 
+import org.deegree.rendering.r2d.Generalization;
+
 /**
  * 
  * @author <a href="mailto:schmitz@lat-lon.de">Andreas Schmitz</a>
@@ -54,6 +56,8 @@ public class MapOptions {
 
     private boolean opaque;
 
+    private Generalization generalization;
+
     public MapOptions( Quality quality, Interpolation interpol, Antialias antialias, int maxFeatures,
                        int featureInfoRadius ) {
         this( quality, interpol, antialias, maxFeatures, featureInfoRadius, false );
@@ -159,6 +163,21 @@ public class MapOptions {
         this.opaque = opaque;
     }
 
+    /**
+     * @return the generalization applied before rendering geometries, may be <code>null</code>
+     */
+    public Generalization getGeneralization() {
+        return generalization;
+    }
+
+    /**
+     * @param generalization
+     *            the generalization applied before rendering geometries, may be <code>null</code>
+     */
+    public void setGeneralization( Generalization generalization ) {
+        this.generalization = generalization;
+    }
+
     /**
      * <code>Quality</code>
      * 
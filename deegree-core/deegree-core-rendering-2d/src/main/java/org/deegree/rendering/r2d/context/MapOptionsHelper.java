@@ -58,6 +58,18 @@ public class MapOptionsHelper {
         insertInterpolation( layer, options, layerDefaults, globalDefaults );
         insertMaxFeatures( layer, options, layerDefaults, globalDefaults );
         insertRadius( layer, options, layerDefaults, globalDefaults );
+        insertGeneralization( layer, options, layerDefaults, globalDefaults );
+    }
+
+    private static void insertGeneralization( String layer, MapOptionsMaps options, MapOptions layerDefaults,
+                                              MapOptions globalDefaults ) {
+        if ( options.getGeneralization( layer ) == null ) {
+            if ( layerDefaults != null && layerDefaults.getGeneralization() != null ) {
+                options.setGeneralization( layer, layerDefaults.getGeneralization() );
+            } else if ( globalDefaults != null && globalDefaults.getGeneralization() != null ) {
+                options.setGeneralization( layer, globalDefaults.getGeneralization() );
+            }
+        }
     }
 
     private static void insertRadius( String layer, MapOptionsMaps options, MapOptions layerDefaults,
@@ -39,6 +39,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import org.deegree.rendering.r2d.Generalization;
 import org.deegree.rendering.r2d.context.MapOptions.Antialias;
 import org.deegree.rendering.r2d.context.MapOptions.Interpolation;
 import org.deegree.rendering.r2d.context.MapOptions.Quality;
@@ -108,6 +109,18 @@ public class MapOptionsMaps {
         return opts == null ? null : opts.getInterpolation();
     }
 
+    public Generalization getGeneralization( String layer ) {
+        MapOptions opts = options.get( layer );
+        return opts == null ? null : opts.getGeneralization();
+    }
+
+    public void setGeneralization( String layer, Generalization generalization ) {
+        if ( options.get( layer ) == null ) {
+            options.put( layer, new MapOptions( null, null, null, -1, -1 ) );
+        }
+        options.get( layer ).setGeneralization( generalization );
+    }
+
     public void setMaxFeatures( String layer, int maxFeatures ) {
         if ( options.get( layer ) == null ) {
             options.put( layer, new MapOptions( null, null, null, maxFeatures, -1 ) );
@@ -149,8 +162,10 @@ public class MapOptionsMaps {
     }
 
     public MapOptions get( String layer ) {
-        return new MapOptions( getQuality( layer ), getInterpolation( layer ), getAntialias( layer ),
-                               getMaxFeatures( layer ), getFeatureInfoRadius( layer ) );
+        MapOptions opts = new MapOptions( getQuality( layer ), getInterpolation( layer ), getAntialias( layer ),
+                                          getMaxFeatures( layer ), getFeatureInfoRadius( layer ) );
+        opts.setGeneralization( getGeneralization( layer ) );
+        return opts;
     }
 
 }
@@ -0,0 +1,222 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2010 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d.context;
+
+import static org.apache.commons.io.IOUtils.closeQuietly;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.deegree.coverage.raster.AbstractRaster;
+import org.deegree.feature.Feature;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.primitive.Point;
+import org.deegree.rendering.r2d.Label;
+import org.deegree.rendering.r2d.LabelRenderer;
+import org.deegree.rendering.r2d.MvtRenderer;
+import org.deegree.rendering.r2d.RasterRenderer;
+import org.deegree.rendering.r2d.TextRenderer;
+import org.deegree.rendering.r2d.TileRenderer;
+import org.deegree.style.styling.RasterStyling;
+import org.deegree.style.styling.TextStyling;
+import org.deegree.tile.Tile;
+import org.slf4j.Logger;
+
+/**
+ * Render context that produces Mapbox Vector Tiles instead of images.
+ * <p>
+ * Only vector data can be represented, text, labels and raster data are ignored (clients label features using the
+ * encoded attributes). The tile grid always has an extent of {@value #EXTENT}, independent of the requested width and
+ * height.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class MvtRenderContext implements FeatureRenderContext {
+
+    private static final Logger LOG = getLogger( MvtRenderContext.class );
+
+    /**
+     * The mime type of Mapbox Vector Tiles.
+     */
+    public static final String FORMAT = "application/vnd.mapbox-vector-tile";
+
+    static final int EXTENT = 4096;
+
+    private static final int BUFFER = 64;
+
+    private final MvtRenderer renderer;
+
+    private final IgnoringRenderer ignoringRenderer = new IgnoringRenderer();
+
+    private final OutputStream outputStream;
+
+    /**
+     * @param info
+     *            the rendering info, the envelope is used as tile envelope
+     * @param outputStream
+     *            the stream to write the tile to on {@link #close()}, may be <code>null</code>
+     */
+    public MvtRenderContext( RenderingInfo info, OutputStream outputStream ) {
+        this.renderer = new MvtRenderer( info.getEnvelope(), EXTENT, BUFFER );
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    public void startFeature( Feature feature ) {
+        renderer.startFeature( feature );
+    }
+
+    @Override
+    public MvtRenderer getVectorRenderer() {
+        return renderer;
+    }
+
+    @Override
+    public TextRenderer getTextRenderer() {
+        return ignoringRenderer;
+    }
+
+    @Override
+    public LabelRenderer getLabelRenderer() {
+        return ignoringRenderer;
+    }
+
+    @Override
+    public RasterRenderer getRasterRenderer() {
+        return ignoringRenderer;
+    }
+
+    @Override
+    public TileRenderer getTileRenderer() {
+        return ignoringRenderer;
+    }
+
+    @Override
+    public void optimizeAndDrawLabels() {
+        // labels are not encoded
+    }
+
+    @Override
+    public void paintImage( BufferedImage img ) {
+        LOG.debug( "Images cannot be encoded into vector tiles, ignoring." );
+    }
+
+    @Override
+    public boolean close()
+                            throws IOException {
+        try {
+            if ( outputStream != null ) {
+                renderer.write( outputStream );
+            }
+            return outputStream != null;
+        } finally {
+            closeQuietly( outputStream );
+        }
+    }
+
+    @Override
+    public void applyOptions( MapOptions options ) {
+        // rendering options only affect the symbolization
+    }
+
+    private static class IgnoringRenderer implements TextRenderer, LabelRenderer, RasterRenderer, TileRenderer {
+
+        @Override
+        public void render( TextStyling styling, String text, Geometry geom ) {
+            // ignored
+        }
+
+        @Override
+        public void render( TextStyling styling, String text, Collection<Geometry> geoms ) {
+            // ignored
+        }
+
+        @Override
+        public void createLabel( TextStyling styling, String text, Collection<Geometry> geoms ) {
+            // ignored
+        }
+
+        @Override
+        public void createLabel( TextStyling styling, String text, Geometry geom ) {
+            // ignored
+        }
+
+        @Override
+        public Label createLabel( TextStyling styling, Font font, String text, Point p ) {
+            return null;
+        }
+
+        @Override
+        public void render( List<Label> labels ) {
+            // ignored
+        }
+
+        @Override
+        public void render( Label label ) {
+            // ignored
+        }
+
+        @Override
+        public void render() {
+            // ignored
+        }
+
+        @Override
+        public List<Label> getLabels() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void render( RasterStyling styling, AbstractRaster raster ) {
+            LOG.debug( "Raster data cannot be encoded into vector tiles, ignoring." );
+        }
+
+        @Override
+        public void render( Tile tile ) {
+            LOG.debug( "Tiles cannot be encoded into vector tiles, ignoring." );
+        }
+    }
+
+}
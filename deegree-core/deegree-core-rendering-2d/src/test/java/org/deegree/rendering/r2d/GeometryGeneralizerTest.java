@@ -0,0 +1,125 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.AffineTransform;
+
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.io.WKTReader;
+import org.deegree.geometry.standard.AbstractDefaultGeometry;
+import org.deegree.rendering.r2d.Generalization.Mode;
+import org.junit.Test;
+
+import com.vividsolutions.jts.io.ParseException;
+
+/**
+ * Test cases for {@link GeometryGeneralizer}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class GeometryGeneralizerTest {
+
+    // one world unit is one pixel
+    private final AffineTransform worldToScreen = new AffineTransform();
+
+    @Test
+    public void generalizeDenseLineString()
+                            throws ParseException {
+        Geometry line = new WKTReader( null ).read( createWigglyLine( 1000 ) );
+        for ( Mode mode : new Mode[] { Mode.PIXEL_SNAP, Mode.DOUGLAS_PEUCKER, Mode.VISVALINGAM } ) {
+            Geometry generalized = generalizer( mode, false ).generalize( line );
+            int numPoints = jts( generalized ).getNumPoints();
+            assertTrue( mode + " kept " + numPoints + " points", numPoints < 200 );
+            assertEquals( jts( line ).getCoordinates()[0], jts( generalized ).getCoordinates()[0] );
+            assertEquals( jts( line ).getCoordinates()[999], jts( generalized ).getCoordinates()[numPoints - 1] );
+        }
+    }
+
+    @Test
+    public void generalizedPolygonStaysValid()
+                            throws ParseException {
+        StringBuilder wkt = new StringBuilder( "POLYGON ((" );
+        for ( int i = 0; i < 360; ++i ) {
+            double angle = Math.toRadians( i );
+            wkt.append( 50 * Math.cos( angle ) ).append( ' ' ).append( 50 * Math.sin( angle ) ).append( ',' );
+        }
+        wkt.append( "50 0))" );
+        Geometry polygon = new WKTReader( null ).read( wkt.toString() );
+        for ( Mode mode : new Mode[] { Mode.PIXEL_SNAP, Mode.DOUGLAS_PEUCKER, Mode.VISVALINGAM } ) {
+            Geometry generalized = generalizer( mode, true ).generalize( polygon );
+            assertTrue( mode.toString(), jts( generalized ).isValid() );
+            assertTrue( mode.toString(), jts( generalized ).getNumPoints() <= jts( polygon ).getNumPoints() );
+        }
+    }
+
+    @Test
+    public void smallGeometriesAreNotTouched()
+                            throws ParseException {
+        Geometry line = new WKTReader( null ).read( "LINESTRING (0 0, 0.1 0.1, 0.2 0, 10 10)" );
+        assertSame( line, generalizer( Mode.DOUGLAS_PEUCKER, false ).generalize( line ) );
+    }
+
+    private GeometryGeneralizer generalizer( Mode mode, boolean topologyPreserving ) {
+        return new GeometryGeneralizer( new Generalization( mode, 0.5, topologyPreserving ), worldToScreen );
+    }
+
+    private static com.vividsolutions.jts.geom.Geometry jts( Geometry geom ) {
+        return ( (AbstractDefaultGeometry) geom ).getJTSGeometry();
+    }
+
+    private static String createWigglyLine( int numPoints ) {
+        StringBuilder wkt = new StringBuilder( "LINESTRING (" );
+        for ( int i = 0; i < numPoints; ++i ) {
+            if ( i > 0 ) {
+                wkt.append( ',' );
+            }
+            wkt.append( i * 0.1 ).append( ' ' ).append( i % 2 == 0 ? 0 : 0.05 );
+        }
+        return wkt.append( ')' ).toString();
+    }
+
+}
@@ -0,0 +1,177 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2010 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.rendering.r2d;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.io.WKTReader;
+import org.deegree.style.styling.Styling;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vividsolutions.jts.io.ParseException;
+
+/**
+ * Test cases for {@link MvtRenderer}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class MvtRendererTest {
+
+    private MvtRenderer renderer;
+
+    @Before
+    public void setup() {
+        final Envelope tile = new GeometryFactory().createEnvelope( 0, 0, 1, 1, null );
+        renderer = new MvtRenderer( tile, 4096, 64 );
+    }
+
+    @Test
+    public void renderPolygonWithClockwiseExteriorRing()
+                            throws ParseException, IOException {
+        String wkt = "POLYGON ((0.25 0.25,0.75 0.25,0.75 0.75,0.25 0.75,0.25 0.25))";
+        renderer.render( (Styling) null, new WKTReader( null ).read( wkt ) );
+        List<Long> geometry = readGeometry( encode() );
+        long[] expected = { 9, 2048, 2048, 26, 4096, 0, 0, 4096, 4095, 0, 15 };
+        assertArrayEquals( expected, toArray( geometry ) );
+    }
+
+    @Test
+    public void renderPolygonCollapsingOnGrid()
+                            throws ParseException {
+        String wkt = "POLYGON ((0.5 0.5,0.50001 0.5,0.50001 0.50001,0.5 0.5))";
+        renderer.render( (Styling) null, new WKTReader( null ).read( wkt ) );
+        assertTrue( renderer.isEmpty() );
+    }
+
+    @Test
+    public void renderLineStringClippedToBuffer()
+                            throws ParseException, IOException {
+        renderer.render( (Styling) null, new WKTReader( null ).read( "LINESTRING (-1 0.5,2 0.5)" ) );
+        List<Long> geometry = readGeometry( encode() );
+        // MoveTo (-64, 2048), LineTo (4160, 2048)
+        long[] expected = { 9, 127, 4096, 10, 8448, 0 };
+        assertArrayEquals( expected, toArray( geometry ) );
+    }
+
+    @Test
+    public void renderSameGeometryOnlyOnce()
+                            throws ParseException, IOException {
+        Geometry point = new WKTReader( null ).read( "POINT (0.5 0.5)" );
+        renderer.render( (Styling) null, point );
+        renderer.render( (Styling) null, point );
+        byte[] layer = readFields( encode(), 3 ).get( 0 );
+        assertEquals( 1, readFields( layer, 2 ).size() );
+    }
+
+    private byte[] encode()
+                            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderer.write( out );
+        return out.toByteArray();
+    }
+
+    private static long[] toArray( List<Long> values ) {
+        long[] result = new long[values.size()];
+        for ( int i = 0; i < result.length; ++i ) {
+            result[i] = values.get( i );
+        }
+        return result;
+    }
+
+    /**
+     * Extracts the geometry commands of the first feature of the first layer.
+     */
+    private static List<Long> readGeometry( byte[] tile ) {
+        byte[] layer = readFields( tile, 3 ).get( 0 );
+        byte[] feature = readFields( layer, 2 ).get( 0 );
+        byte[] packed = readFields( feature, 4 ).get( 0 );
+        List<Long> values = new ArrayList<Long>();
+        int[] pos = { 0 };
+        while ( pos[0] < packed.length ) {
+            values.add( readVarint( packed, pos ) );
+        }
+        return values;
+    }
+
+    private static List<byte[]> readFields( byte[] msg, int field ) {
+        List<byte[]> fields = new ArrayList<byte[]>();
+        int[] pos = { 0 };
+        while ( pos[0] < msg.length ) {
+            long tag = readVarint( msg, pos );
+            int wireType = (int) ( tag & 0x7 );
+            if ( wireType == 0 ) {
+                readVarint( msg, pos );
+            } else if ( wireType == 1 ) {
+                pos[0] += 8;
+            } else {
+                int len = (int) readVarint( msg, pos );
+                if ( ( tag >>> 3 ) == field ) {
+                    byte[] result = new byte[len];
+                    System.arraycopy( msg, pos[0], result, 0, len );
+                    fields.add( result );
+                }
+                pos[0] += len;
+            }
+        }
+        return fields;
+    }
+
+    private static long readVarint( byte[] msg, int[] pos ) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = msg[pos[0]++];
+            value |= (long) ( b & 0x7F ) << shift;
+            shift += 7;
+        } while ( ( b & 0x80 ) != 0 );
+        return value;
+    }
+
+}
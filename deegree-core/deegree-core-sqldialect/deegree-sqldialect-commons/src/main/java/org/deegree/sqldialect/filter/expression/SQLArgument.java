@@ -105,6 +105,22 @@ public class SQLArgument implements SQLExpression {
         this.isSpatial = true;
     }
 
+    /**
+     * Returns a spatial {@link SQLArgument} that uses the same converter as this argument, but a different value.
+     * 
+     * @param value
+     *            value, can be <code>null</code>
+     * @return new argument, never <code>null</code>
+     * @throws IllegalStateException
+     *             if this argument is not spatial
+     */
+    public SQLArgument withGeometry( Geometry value ) {
+        if ( !isSpatial ) {
+            throw new IllegalStateException( "Cannot rebind a non-spatial argument to a geometry." );
+        }
+        return new SQLArgument( value, (GeometryParticleConverter) converter );
+    }
+
     public void setArgument( PreparedStatement stmt, int paramIndex )
                             throws SQLException {
 
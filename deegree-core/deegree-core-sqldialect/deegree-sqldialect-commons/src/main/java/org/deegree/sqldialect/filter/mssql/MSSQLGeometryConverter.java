@@ -42,6 +42,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.geometry.Envelope;
 import org.deegree.geometry.Geometry;
 import org.deegree.geometry.GeometryTransformer;
 import org.deegree.geometry.io.WKBReader;
@@ -97,6 +98,14 @@ public class MSSQLGeometryConverter implements GeometryParticleConverter {
         return tableAlias + "." + column + ".ToString()";
     }
 
+    @Override
+    public String getGeneralizedSelectSnippet( String tableAlias, double tolerance, Envelope clipBox ) {
+        if ( !is2d || tolerance <= 0 ) {
+            return getSelectSnippet( tableAlias );
+        }
+        return ( tableAlias == null ? "" : ( tableAlias + "." ) ) + column + ".Reduce(" + tolerance + ").STAsBinary()";
+    }
+
     public String getSetSnippet( Geometry particle ) {
         if ( is2d )
             return "geometry::STGeomFromWKB(?, " + srid + ")";
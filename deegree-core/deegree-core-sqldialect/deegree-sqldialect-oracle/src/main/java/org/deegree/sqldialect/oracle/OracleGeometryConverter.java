@@ -44,6 +44,7 @@ import oracle.jdbc.OracleConnection;
 import oracle.sql.STRUCT;
 
 import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.geometry.Envelope;
 import org.deegree.geometry.Geometry;
 import org.deegree.geometry.GeometryTransformer;
 import org.deegree.geometry.utils.GeometryParticleConverter;
@@ -102,6 +103,15 @@ public class OracleGeometryConverter implements GeometryParticleConverter {
         return column;
     }
 
+    @Override
+    public String getGeneralizedSelectSnippet( String tableAlias, double tolerance, Envelope clipBox ) {
+        if ( tolerance <= 0 ) {
+            return getSelectSnippet( tableAlias );
+        }
+        // clipping via SDO_GEOM.SDO_INTERSECTION is usually more expensive than transferring the geometry
+        return "SDO_UTIL.SIMPLIFY(" + getSelectSnippet( tableAlias ) + "," + tolerance + ")";
+    }
+
     @Override
     public String getSetSnippet( Geometry particle ) {
         return "?";
@@ -0,0 +1,426 @@
+//$HeadURL: svn+ssh://mschneider@svn.wald.intevation.org/deegree/deegree3/trunk/deegree-datastores/deegree-featurestore/deegree-featurestore-sql/src/main/java/org/deegree/sqldialect/postgis/PostGISDialect.java $
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2010 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.sqldialect.postgis;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.deegree.commons.jdbc.SQLIdentifier;
+import org.deegree.commons.jdbc.TableName;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.commons.tom.sql.DefaultPrimitiveConverter;
+import org.deegree.commons.tom.sql.ParticleConversion;
+import org.deegree.commons.utils.JDBCUtils;
+import org.deegree.geometry.Geometry;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads table rows into a PostgreSQL database using <code>COPY ... FROM STDIN</code> instead of single
+ * <code>INSERT</code> statements.
+ * <p>
+ * Rows are buffered per table (and column list) and streamed to the database when the buffer limit is reached or
+ * {@link #flush()} is called. Tables are flushed in the order of their first use, rows that refer to a table which has
+ * been used later cause a flush of all buffered rows before they are added. This keeps foreign key constraints
+ * satisfied as long as the caller passes the parent tables of every row.
+ * </p>
+ * <p>
+ * If index deferral is enabled, all indexes on a target table that don't back a constraint are dropped before the first
+ * row is copied into it and recreated in {@link #close()}. As DDL is transactional in PostgreSQL, a rollback also
+ * restores the indexes.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class PostGISCopyLoader {
+
+    private static final Logger LOG = LoggerFactory.getLogger( PostGISCopyLoader.class );
+
+    private static final int DEFAULT_MAX_BUFFERED_ROWS = 10000;
+
+    private static final int SEQUENCE_BLOCK_SIZE = 1000;
+
+    private static final String NULL = "\\N";
+
+    private final Connection conn;
+
+    private final CopyManager copyManager;
+
+    private final boolean deferIndexes;
+
+    private final int maxBufferedRows;
+
+    // key: table (in order of first use), value: buffered rows per column list
+    private final Map<TableName, Map<List<SQLIdentifier>, StringBuilder>> tableToBuffers = new LinkedHashMap<TableName, Map<List<SQLIdentifier>, StringBuilder>>();
+
+    private final Map<TableName, Integer> tableToPosition = new HashMap<TableName, Integer>();
+
+    private final Set<TableName> indexesChecked = new HashSet<TableName>();
+
+    private final List<String> deferredIndexDefs = new ArrayList<String>();
+
+    private final Map<String, LinkedList<Long>> sequenceToValues = new HashMap<String, LinkedList<Long>>();
+
+    private int bufferedRows;
+
+    /**
+     * Creates a new {@link PostGISCopyLoader} instance.
+     * 
+     * @param conn
+     *            connection to use, must not be <code>null</code> and must wrap a PostgreSQL connection (see
+     *            {@link #isSupported(Connection)})
+     * @param deferIndexes
+     *            <code>true</code>, if indexes should be dropped during the load and recreated in {@link #close()}
+     * @throws SQLException
+     */
+    public PostGISCopyLoader( Connection conn, boolean deferIndexes ) throws SQLException {
+        this.conn = conn;
+        this.copyManager = conn.unwrap( PGConnection.class ).getCopyAPI();
+        this.deferIndexes = deferIndexes;
+        this.maxBufferedRows = DEFAULT_MAX_BUFFERED_ROWS;
+    }
+
+    /**
+     * Returns whether <code>COPY</code> is available for the given connection.
+     * 
+     * @param conn
+     *            connection, must not be <code>null</code>
+     * @return <code>true</code>, if the connection is (or wraps) a PostgreSQL connection, <code>false</code> otherwise
+     */
+    public static boolean isSupported( Connection conn ) {
+        try {
+            return conn.isWrapperFor( PGConnection.class );
+        } catch ( Throwable t ) {
+            LOG.debug( "Unable to determine if connection wraps a PostgreSQL connection: " + t.getMessage() );
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether the given (prepared statement) value can be encoded for <code>COPY</code>.
+     * 
+     * @param value
+     *            value, may be <code>null</code>
+     * @return <code>true</code>, if the value can be copied, <code>false</code> otherwise
+     */
+    public boolean isCopyable( Object value ) {
+        if ( value instanceof ParticleConversion<?> ) {
+            ParticleConversion<?> conversion = (ParticleConversion<?>) value;
+            return conversion.getConverter() instanceof PostGISGeometryConverter
+                   || conversion.getConverter().getClass() == DefaultPrimitiveConverter.class;
+        }
+        return value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+               || value instanceof java.util.Date || value instanceof byte[];
+    }
+
+    /**
+     * Adds a row. The values must be copyable (see {@link #isCopyable(Object)}).
+     * 
+     * @param table
+     *            target table, must not be <code>null</code>
+     * @param columns
+     *            target columns, must not be <code>null</code>
+     * @param values
+     *            values (same order as the columns), must not be <code>null</code>
+     * @param parentTables
+     *            tables that contain rows the new row refers to (foreign keys), must not be <code>null</code>
+     * @throws SQLException
+     */
+    public void addRow( TableName table, List<SQLIdentifier> columns, List<Object> values,
+                        Collection<TableName> parentTables )
+                            throws SQLException {
+
+        Integer position = tableToPosition.get( table );
+        if ( position == null ) {
+            deferIndexes( table );
+            position = tableToPosition.size();
+            tableToPosition.put( table, position );
+            tableToBuffers.put( table, new LinkedHashMap<List<SQLIdentifier>, StringBuilder>() );
+        }
+        for ( TableName parentTable : parentTables ) {
+            Integer parentPosition = tableToPosition.get( parentTable );
+            if ( parentPosition != null && parentPosition > position ) {
+                LOG.debug( "Table '" + table + "' refers to table '" + parentTable + "' which is copied later." );
+                flush();
+                break;
+            }
+        }
+
+        Map<List<SQLIdentifier>, StringBuilder> buffers = tableToBuffers.get( table );
+        StringBuilder buffer = buffers.get( columns );
+        if ( buffer == null ) {
+            buffer = new StringBuilder();
+            buffers.put( new ArrayList<SQLIdentifier>( columns ), buffer );
+        }
+        for ( int i = 0; i < values.size(); i++ ) {
+            if ( i > 0 ) {
+                buffer.append( '\t' );
+            }
+            appendValue( buffer, values.get( i ) );
+        }
+        buffer.append( '\n' );
+
+        if ( ++bufferedRows >= maxBufferedRows ) {
+            flush();
+        }
+    }
+
+    /**
+     * Streams all buffered rows to the database.
+     * 
+     * @throws SQLException
+     */
+    public void flush()
+                            throws SQLException {
+        if ( bufferedRows == 0 ) {
+            return;
+        }
+        long begin = System.currentTimeMillis();
+        for ( Entry<TableName, Map<List<SQLIdentifier>, StringBuilder>> tableAndBuffers : tableToBuffers.entrySet() ) {
+            for ( Entry<List<SQLIdentifier>, StringBuilder> columnsAndBuffer : tableAndBuffers.getValue().entrySet() ) {
+                String sql = getCopySql( tableAndBuffers.getKey(), columnsAndBuffer.getKey() );
+                LOG.debug( "Executing: " + sql );
+                try {
+                    copyManager.copyIn( sql, new StringReader( columnsAndBuffer.getValue().toString() ) );
+                } catch ( IOException e ) {
+                    throw new SQLException( e.getMessage(), e );
+                }
+            }
+            tableAndBuffers.getValue().clear();
+        }
+        LOG.debug( "Copying " + bufferedRows + " rows took " + ( System.currentTimeMillis() - begin ) + " [ms]" );
+        bufferedRows = 0;
+    }
+
+    /**
+     * Returns the next value of the given sequence. Values are fetched from the database in blocks.
+     * 
+     * @param sequence
+     *            name of the sequence, must not be <code>null</code>
+     * @return next value
+     * @throws SQLException
+     */
+    public long getSequenceNextVal( String sequence )
+                            throws SQLException {
+        LinkedList<Long> values = sequenceToValues.get( sequence );
+        if ( values == null ) {
+            values = new LinkedList<Long>();
+            sequenceToValues.put( sequence, values );
+        }
+        if ( values.isEmpty() ) {
+            String sql = "SELECT nextval(?) FROM generate_series(1," + SEQUENCE_BLOCK_SIZE + ")";
+            PreparedStatement stmt = null;
+            ResultSet rs = null;
+            try {
+                stmt = conn.prepareStatement( sql );
+                stmt.setString( 1, sequence );
+                rs = stmt.executeQuery();
+                while ( rs.next() ) {
+                    values.add( rs.getLong( 1 ) );
+                }
+            } finally {
+                JDBCUtils.close( rs, stmt, null, LOG );
+            }
+        }
+        return values.removeFirst();
+    }
+
+    /**
+     * Streams all buffered rows to the database and recreates deferred indexes.
+     * 
+     * @throws SQLException
+     */
+    public void close()
+                            throws SQLException {
+        flush();
+        if ( deferredIndexDefs.isEmpty() ) {
+            return;
+        }
+        Statement stmt = null;
+        try {
+            stmt = conn.createStatement();
+            for ( String indexDef : deferredIndexDefs ) {
+                LOG.debug( "Recreating index: " + indexDef );
+                long begin = System.currentTimeMillis();
+                stmt.executeUpdate( indexDef );
+                LOG.debug( "Recreating index took " + ( System.currentTimeMillis() - begin ) + " [ms]" );
+            }
+            deferredIndexDefs.clear();
+        } finally {
+            JDBCUtils.close( null, stmt, null, LOG );
+        }
+    }
+
+    private void deferIndexes( TableName table )
+                            throws SQLException {
+        if ( !deferIndexes || !indexesChecked.add( table ) ) {
+            return;
+        }
+        String sql = "SELECT ix.indexrelid::regclass::text,pg_get_indexdef(ix.indexrelid) FROM pg_index ix "
+                     + "WHERE ix.indrelid=?::regclass AND NOT ix.indisunique AND NOT EXISTS "
+                     + "(SELECT 1 FROM pg_constraint c WHERE c.conindid=ix.indexrelid)";
+        List<String> indexNames = new ArrayList<String>();
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conn.prepareStatement( sql );
+            stmt.setString( 1, table.toString() );
+            rs = stmt.executeQuery();
+            while ( rs.next() ) {
+                indexNames.add( rs.getString( 1 ) );
+                deferredIndexDefs.add( rs.getString( 2 ) );
+            }
+        } finally {
+            JDBCUtils.close( rs, stmt, null, LOG );
+        }
+        Statement dropStmt = null;
+        try {
+            dropStmt = conn.createStatement();
+            for ( String indexName : indexNames ) {
+                LOG.debug( "Dropping index '" + indexName + "' (recreated after load)." );
+                dropStmt.executeUpdate( "DROP INDEX " + indexName );
+            }
+        } finally {
+            JDBCUtils.close( null, dropStmt, null, LOG );
+        }
+    }
+
+    private String getCopySql( TableName table, List<SQLIdentifier> columns ) {
+        StringBuilder sql = new StringBuilder( "COPY " );
+        sql.append( table );
+        sql.append( " (" );
+        for ( int i = 0; i < columns.size(); i++ ) {
+            if ( i > 0 ) {
+                sql.append( ',' );
+            }
+            sql.append( columns.get( i ) );
+        }
+        sql.append( ") FROM STDIN" );
+        return sql.toString();
+    }
+
+    /**
+     * Appends the given value in the text format of <code>COPY</code>.
+     * 
+     * @param sb
+     *            buffer to append to, must not be <code>null</code>
+     * @param value
+     *            copyable value (see {@link #isCopyable(Object)}), may be <code>null</code>
+     * @throws SQLException
+     *             if a geometry cannot be encoded
+     */
+    static void appendValue( StringBuilder sb, Object value )
+                            throws SQLException {
+        if ( value instanceof ParticleConversion<?> ) {
+            ParticleConversion<?> conversion = (ParticleConversion<?>) value;
+            if ( conversion.getParticle() == null ) {
+                sb.append( NULL );
+            } else if ( conversion.getConverter() instanceof PostGISGeometryConverter ) {
+                PostGISGeometryConverter converter = (PostGISGeometryConverter) conversion.getConverter();
+                appendHex( sb, converter.toEWKB( (Geometry) conversion.getParticle() ) );
+            } else {
+                DefaultPrimitiveConverter converter = (DefaultPrimitiveConverter) conversion.getConverter();
+                Object primitive = ( (PrimitiveValue) conversion.getParticle() ).getValue();
+                appendValue( sb, primitive != null ? converter.toSqlValue( primitive ) : null );
+            }
+        } else if ( value == null ) {
+            sb.append( NULL );
+        } else if ( value instanceof Boolean ) {
+            sb.append( ( (Boolean) value ) ? 't' : 'f' );
+        } else if ( value instanceof BigDecimal ) {
+            sb.append( ( (BigDecimal) value ).toPlainString() );
+        } else if ( value instanceof byte[] ) {
+            // bytea hex format, backslash escaped
+            sb.append( "\\\\x" );
+            appendHex( sb, (byte[]) value );
+        } else if ( value instanceof java.util.Date && !( value instanceof java.sql.Date )
+                    && !( value instanceof java.sql.Time ) && !( value instanceof Timestamp ) ) {
+            sb.append( new Timestamp( ( (java.util.Date) value ).getTime() ) );
+        } else {
+            appendEscaped( sb, value.toString() );
+        }
+    }
+
+    private static void appendEscaped( StringBuilder sb, String s ) {
+        for ( int i = 0; i < s.length(); i++ ) {
+            char c = s.charAt( i );
+            switch ( c ) {
+            case '\\':
+                sb.append( "\\\\" );
+                break;
+            case '\n':
+                sb.append( "\\n" );
+                break;
+            case '\r':
+                sb.append( "\\r" );
+                break;
+            case '\t':
+                sb.append( "\\t" );
+                break;
+            default:
+                sb.append( c );
+            }
+        }
+    }
+
+    private static void appendHex( StringBuilder sb, byte[] bytes ) {
+        for ( byte b : bytes ) {
+            sb.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) );
+            sb.append( Character.forDigit( b & 0xF, 16 ) );
+        }
+    }
+}
@@ -35,11 +35,14 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.sqldialect.postgis;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.geometry.Envelope;
 import org.deegree.geometry.Geometry;
 import org.deegree.geometry.GeometryTransformer;
 import org.deegree.geometry.io.WKBReader;
@@ -60,6 +63,8 @@ public class PostGISGeometryConverter implements GeometryParticleConverter {
 
     private static Logger LOG = LoggerFactory.getLogger( PostGISGeometryConverter.class );
 
+    private static final int EWKB_SRID_FLAG = 0x20000000;
+
     private final String column;
 
     private final boolean useLegacyPredicates;
@@ -97,6 +102,24 @@ public class PostGISGeometryConverter implements GeometryParticleConverter {
         return asewkb + "(" + column + ")";
     }
 
+    @Override
+    public String getGeneralizedSelectSnippet( String tableAlias, double tolerance, Envelope clipBox ) {
+        if ( useLegacyPredicates || ( tolerance <= 0 && clipBox == null ) ) {
+            // ST_ClipByBox2D / ST_SimplifyPreserveTopology are not available in legacy PostGIS versions
+            return getSelectSnippet( tableAlias );
+        }
+        String expr = tableAlias != null ? tableAlias + "." + column : column;
+        if ( clipBox != null ) {
+            expr = "ST_ClipByBox2D(" + expr + ",ST_MakeEnvelope(" + clipBox.getMin().get0() + ","
+                   + clipBox.getMin().get1() + "," + clipBox.getMax().get0() + "," + clipBox.getMax().get1() + ","
+                   + ( srid == null ? "-1" : srid ) + "))";
+        }
+        if ( tolerance > 0 ) {
+            expr = "ST_SimplifyPreserveTopology(ST_SnapToGrid(" + expr + "," + tolerance + ")," + tolerance + ")";
+        }
+        return "ST_AsEWKB(" + expr + ")";
+    }
+
     @Override
     public Geometry toParticle( ResultSet rs, int colIndex )
                             throws SQLException {
@@ -139,6 +162,39 @@ public class PostGISGeometryConverter implements GeometryParticleConverter {
         stmt.setBytes( paramIndex, wkb );
     }
 
+    /**
+     * Encodes the given geometry as EWKB, i.e. WKB with the SRID of the column embedded (as expected by the PostGIS
+     * geometry input function, e.g. when loading rows via <code>COPY</code>).
+     * 
+     * @param particle
+     *            geometry to encode, must not be <code>null</code>
+     * @return EWKB (or plain WKB, if the column has no SRID), never <code>null</code>
+     * @throws SQLException
+     *             if the geometry cannot be transformed or encoded
+     */
+    public byte[] toEWKB( Geometry particle )
+                            throws SQLException {
+        byte[] wkb;
+        try {
+            wkb = WKBWriter.write( getCompatibleGeometry( particle ) );
+        } catch ( SQLException e ) {
+            throw e;
+        } catch ( Throwable t ) {
+            throw new SQLException( t.getMessage(), t );
+        }
+        int sridValue = srid == null ? 0 : Integer.parseInt( srid.trim() );
+        if ( sridValue <= 0 ) {
+            return wkb;
+        }
+        ByteOrder order = wkb[0] == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        ByteBuffer ewkb = ByteBuffer.allocate( wkb.length + 4 ).order( order );
+        ewkb.put( wkb[0] );
+        ewkb.putInt( ByteBuffer.wrap( wkb, 1, 4 ).order( order ).getInt() | EWKB_SRID_FLAG );
+        ewkb.putInt( sridValue );
+        ewkb.put( wkb, 5, wkb.length - 5 );
+        return ewkb.array();
+    }
+
     private Geometry getCompatibleGeometry( Geometry literal )
                             throws SQLException {
         if ( crs == null ) {
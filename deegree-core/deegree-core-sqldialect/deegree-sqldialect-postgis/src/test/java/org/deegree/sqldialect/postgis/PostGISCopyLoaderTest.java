@@ -0,0 +1,150 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2010 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.sqldialect.postgis;
+
+import static org.deegree.commons.tom.primitive.BaseType.INTEGER;
+import static org.deegree.commons.tom.primitive.BaseType.STRING;
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import org.deegree.commons.tom.primitive.PrimitiveType;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.commons.tom.sql.DefaultPrimitiveConverter;
+import org.deegree.commons.tom.sql.ParticleConversion;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryFactory;
+import org.junit.Test;
+
+/**
+ * Tests for the <code>COPY</code> text encoding of {@link PostGISCopyLoader}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class PostGISCopyLoaderTest {
+
+    @Test
+    public void testNull()
+                            throws SQLException {
+        assertEquals( "\\N", encode( null ) );
+    }
+
+    @Test
+    public void testBoolean()
+                            throws SQLException {
+        assertEquals( "t", encode( Boolean.TRUE ) );
+        assertEquals( "f", encode( Boolean.FALSE ) );
+    }
+
+    @Test
+    public void testNumbers()
+                            throws SQLException {
+        assertEquals( "42", encode( 42 ) );
+        assertEquals( "1.5", encode( 1.5 ) );
+        assertEquals( "1000", encode( new BigDecimal( "1E+3" ) ) );
+    }
+
+    @Test
+    public void testStringEscaping()
+                            throws SQLException {
+        assertEquals( "plain", encode( "plain" ) );
+        assertEquals( "a\\tb\\nc\\rd\\\\e", encode( "a\tb\nc\rd\\e" ) );
+        // the null marker must not be produced by a string value
+        assertEquals( "\\\\N", encode( "\\N" ) );
+    }
+
+    @Test
+    public void testBytes()
+                            throws SQLException {
+        assertEquals( "\\\\x00017fabff", encode( new byte[] { 0x00, 0x01, 0x7f, (byte) 0xab, (byte) 0xff } ) );
+    }
+
+    @Test
+    public void testDates()
+                            throws SQLException {
+        assertEquals( new Timestamp( 1234567L ).toString(), encode( new java.util.Date( 1234567L ) ) );
+        java.sql.Date date = java.sql.Date.valueOf( "2016-02-29" );
+        assertEquals( "2016-02-29", encode( date ) );
+    }
+
+    @Test
+    public void testPrimitiveConversion()
+                            throws SQLException {
+        DefaultPrimitiveConverter stringConverter = new DefaultPrimitiveConverter( new PrimitiveType( STRING ),
+                                                                                   "name" );
+        PrimitiveValue string = new PrimitiveValue( "x\ty", new PrimitiveType( STRING ) );
+        assertEquals( "x\\ty", encode( new ParticleConversion<PrimitiveValue>( stringConverter, string ) ) );
+
+        DefaultPrimitiveConverter intConverter = new DefaultPrimitiveConverter( new PrimitiveType( INTEGER ), "id" );
+        PrimitiveValue integer = new PrimitiveValue( "17", new PrimitiveType( INTEGER ) );
+        assertEquals( "17", encode( new ParticleConversion<PrimitiveValue>( intConverter, integer ) ) );
+
+        assertEquals( "\\N", encode( new ParticleConversion<PrimitiveValue>( stringConverter, null ) ) );
+    }
+
+    @Test
+    public void testGeometryConversion()
+                            throws SQLException {
+        PostGISGeometryConverter converter = new PostGISGeometryConverter( "geom", null, "4326", false );
+        Geometry point = new GeometryFactory().createPoint( null, 1.0, 2.0, null );
+        StringBuilder expected = new StringBuilder();
+        for ( byte b : converter.toEWKB( point ) ) {
+            expected.append( String.format( "%02x", b & 0xff ) );
+        }
+        assertEquals( expected.toString(), encode( new ParticleConversion<Geometry>( converter, point ) ) );
+        assertEquals( "\\N", encode( new ParticleConversion<Geometry>( converter, null ) ) );
+    }
+
+    @Test
+    public void testMultipleValues()
+                            throws SQLException {
+        StringBuilder sb = new StringBuilder();
+        PostGISCopyLoader.appendValue( sb, "a" );
+        PostGISCopyLoader.appendValue( sb, null );
+        assertEquals( "a\\N", sb.toString() );
+    }
+
+    private static String encode( Object value )
+                            throws SQLException {
+        StringBuilder sb = new StringBuilder();
+        PostGISCopyLoader.appendValue( sb, value );
+        return sb.toString();
+    }
+}
@@ -0,0 +1,84 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2010 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.sqldialect.postgis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.io.WKBWriter;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PostGISGeometryConverter}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class PostGISGeometryConverterTest {
+
+    private final Geometry point = new GeometryFactory().createPoint( null, 7.1, 50.7, null );
+
+    @Test
+    public void testToEWKBEmbedsSrid()
+                            throws Exception {
+        byte[] wkb = WKBWriter.write( point );
+        byte[] ewkb = new PostGISGeometryConverter( "geom", null, "4326", false ).toEWKB( point );
+
+        assertEquals( wkb.length + 4, ewkb.length );
+        assertEquals( wkb[0], ewkb[0] );
+        ByteOrder order = ewkb[0] == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        int wkbType = ByteBuffer.wrap( wkb, 1, 4 ).order( order ).getInt();
+        assertEquals( wkbType | 0x20000000, ByteBuffer.wrap( ewkb, 1, 4 ).order( order ).getInt() );
+        assertEquals( 4326, ByteBuffer.wrap( ewkb, 5, 4 ).order( order ).getInt() );
+        assertArrayEquals( Arrays.copyOfRange( wkb, 5, wkb.length ), Arrays.copyOfRange( ewkb, 9, ewkb.length ) );
+    }
+
+    @Test
+    public void testToEWKBWithoutSrid()
+                            throws Exception {
+        byte[] wkb = WKBWriter.write( point );
+        assertArrayEquals( wkb, new PostGISGeometryConverter( "geom", null, null, false ).toEWKB( point ) );
+        assertArrayEquals( wkb, new PostGISGeometryConverter( "geom", null, "-1", false ).toEWKB( point ) );
+        assertArrayEquals( wkb, new PostGISGeometryConverter( "geom", null, " 0 ", false ).toEWKB( point ) );
+    }
+}
@@ -107,4 +107,30 @@ public interface Tile {
     FeatureCollection getFeatures( int i, int j, int limit )
                             throws UnsupportedOperationException;
 
+    /**
+     * Returns the time the tile data has been modified last.
+     * <p>
+     * Implementations must be able to determine this value without accessing the tile data itself (e.g. by looking at
+     * the file modification time), as it is used to answer conditional requests.
+     * </p>
+     *
+     * @return modification time in milliseconds since the epoch, or <code>-1</code> if unknown (default)
+     */
+    default long getLastModified() {
+        return -1;
+    }
+
+    /**
+     * Returns an opaque stamp that changes whenever the tile data changes (e.g. a content hash or a combination of
+     * file size and modification time).
+     * <p>
+     * Like {@link #getLastModified()}, this must be cheap to determine. Callers use it as entity tag for HTTP caching.
+     * </p>
+     *
+     * @return version stamp, or <code>null</code> if unknown (default)
+     */
+    default String getVersion() {
+        return null;
+    }
+
 }
@@ -41,6 +41,10 @@
 
 package org.deegree.tile;
 
+import static org.deegree.commons.utils.ByteUtils.md5Hex;
+
+import java.io.File;
+
 import org.deegree.geometry.Envelope;
 import org.deegree.geometry.GeometryFactory;
 
@@ -120,4 +124,44 @@ public class Tiles {
         return GEOMETRY_FACTORY.createEnvelope( minx, miny, minx + width, miny - height, env.getCoordinateSystem() );
     }
 
+    /**
+     * Returns the modification time of a file that backs tile data, for implementing {@link Tile#getLastModified()}.
+     * 
+     * @param file
+     *            file, must not be <code>null</code>
+     * @return modification time in milliseconds since the epoch, or <code>-1</code> if the file does not exist
+     */
+    public static long getLastModified( File file ) {
+        long lastModified = file.lastModified();
+        return lastModified == 0 ? -1 : lastModified;
+    }
+
+    /**
+     * Returns a version stamp for a file that backs tile data, for implementing {@link Tile#getVersion()}. The stamp is
+     * derived from size and modification time of the file, so the file contents are not read.
+     * 
+     * @param file
+     *            file, must not be <code>null</code>
+     * @return version stamp, or <code>null</code> if the file does not exist
+     */
+    public static String getVersion( File file ) {
+        long lastModified = file.lastModified();
+        if ( lastModified == 0 ) {
+            return null;
+        }
+        return Long.toHexString( file.length() ) + "-" + Long.toHexString( lastModified );
+    }
+
+    /**
+     * Returns a version stamp for encoded tile data, for implementing {@link Tile#getVersion()} when the data is
+     * already available in memory.
+     * 
+     * @param data
+     *            encoded tile data, must not be <code>null</code>
+     * @return version stamp (hex encoded MD5 hash of the data), never <code>null</code>
+     */
+    public static String getVersion( byte[] data ) {
+        return md5Hex( data );
+    }
+
 }
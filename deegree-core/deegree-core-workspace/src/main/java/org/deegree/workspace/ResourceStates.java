@@ -51,7 +51,7 @@ public class ResourceStates {
      * @param state
      *            may not be <code>null</code>
      */
-    public void setState( ResourceIdentifier<? extends Resource> id, ResourceState state ) {
+    public synchronized void setState( ResourceIdentifier<? extends Resource> id, ResourceState state ) {
         map.put( id, state );
     }
 
@@ -60,7 +60,7 @@ public class ResourceStates {
      *            may not be <code>null</code>
      * @return will return <code>null</code> if the state is not known
      */
-    public ResourceState getState( ResourceIdentifier<? extends Resource> id ) {
+    public synchronized ResourceState getState( ResourceIdentifier<? extends Resource> id ) {
         return map.get( id );
     }
 
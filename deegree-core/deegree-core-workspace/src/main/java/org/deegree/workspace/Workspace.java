@@ -78,6 +78,27 @@ public interface Workspace {
      */
     <T extends Resource> void destroy( ResourceIdentifier<T> id );
 
+    /**
+     * Re-reads, prepares, builds and initializes the resource with the given id and all resources that depend on it.
+     * The default implementation destroys and re-initializes the chain (see
+     * {@link WorkspaceUtils#reinitializeChain(Workspace, ResourceIdentifier)}). Implementations may replace the
+     * resources without interrupting the service instead (see <code>DefaultWorkspace</code>).
+     * 
+     * @param id
+     *            never <code>null</code>
+     * @return the new resource, never <code>null</code>
+     * @throws ResourceInitException
+     *             if the resource could not be rebuilt
+     */
+    default <T extends Resource> T reload( ResourceIdentifier<T> id ) {
+        WorkspaceUtils.reinitializeChain( this, id );
+        T res = getResource( id.getProvider(), id.getId() );
+        if ( res == null ) {
+            throw new ResourceInitException( "Unable to reload resource " + id + "." );
+        }
+        return res;
+    }
+
     /**
      * Used to obtain the class loader coupled with this workspace.
      * 
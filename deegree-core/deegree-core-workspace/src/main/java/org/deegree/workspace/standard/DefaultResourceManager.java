@@ -153,6 +153,16 @@ public class DefaultResourceManager<T extends Resource> implements ResourceManag
         return metadataMap.get( location.getIdentifier() );
     }
 
+    /**
+     * Replaces the metadata of a resource without re-reading it, used when a resource has been reloaded.
+     * 
+     * @param md
+     *            never <code>null</code>
+     */
+    void register( ResourceMetadata<T> md ) {
+        metadataMap.put( md.getIdentifier(), md );
+    }
+
     @Override
     public void remove( ResourceMetadata<?> md ) {
         metadataMap.remove( md.getIdentifier() );
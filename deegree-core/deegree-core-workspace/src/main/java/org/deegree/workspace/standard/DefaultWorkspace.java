@@ -58,9 +58,15 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.deegree.workspace.Destroyable;
 import org.deegree.workspace.ErrorHandler;
@@ -118,6 +124,14 @@ public class DefaultWorkspace implements Workspace {
 
     private boolean startedUp = false;
 
+    // resources built by a running #reload, only visible to the reloading thread
+    private final ThreadLocal<ReloadContext> reloadContext = new ThreadLocal<ReloadContext>();
+
+    // replaced resources waiting for their grace period to end
+    private final List<Resource> retiredResources = new ArrayList<Resource>();
+
+    private ScheduledExecutorService retirementExecutor;
+
     public DefaultWorkspace( File directory ) {
         this.directory = directory;
     }
@@ -127,7 +141,7 @@ public class DefaultWorkspace implements Workspace {
         startup();
         errors.clear();
         scan();
-        PreparedResources prepared = prepare();
+        final PreparedResources prepared = prepare();
 
         LOG.info( "--------------------------------------------------------------------------------" );
         LOG.info( "Building and initializing resources." );
@@ -138,41 +152,52 @@ public class DefaultWorkspace implements Workspace {
             graph.insertNode( md );
         }
 
-        outer: for ( ResourceMetadata<? extends Resource> md : graph.toSortedList() ) {
-            if ( states.getState( md.getIdentifier() ) == Deactivated ) {
-                LOG.warn( "Not building resource {} (deactivated).", md.getIdentifier() );
-                continue;
-            }
-            LOG.info( "Building resource {}.", md.getIdentifier() );
-            for ( ResourceIdentifier<? extends Resource> dep : md.getDependencies() ) {
-                if ( states.getState( dep ) != Initialized ) {
-                    states.setState( md.getIdentifier(), Error );
-                    String msg = "Dependent resource " + dep + " failed to initialize.";
-                    LOG.error( "Unable to build resource {}: " + msg, md.getIdentifier() );
-                    errors.registerError( md.getIdentifier(), msg );
-                    continue outer;
-                }
+        int threads = ResourceInitScheduler.getConfiguredThreads();
+        long timeout = ResourceInitScheduler.getConfiguredTimeout();
+        ResourceInitScheduler scheduler = new ResourceInitScheduler( graph, threads, timeout );
+        scheduler.run( graph.toSortedList(), new ResourceInitScheduler.InitTask() {
+            @Override
+            public void init( ResourceMetadata<? extends Resource> md ) {
+                buildAndInit( md, prepared );
             }
-            try {
-                Resource res = prepared.getBuilder( md.getIdentifier() ).build();
-                if ( res == null ) {
-                    errors.registerError( md.getIdentifier(), "Unable to prepare." );
-                    states.setState( md.getIdentifier(), Error );
-                    LOG.error( "Unable to build resource {}.", md.getIdentifier() );
-                    continue;
-                }
-                states.setState( md.getIdentifier(), Built );
-                LOG.info( "Initializing resource {}.", md.getIdentifier() );
-                res.init();
-                states.setState( md.getIdentifier(), Initialized );
-                resources.put( res.getMetadata().getIdentifier(), res );
-            } catch ( Exception ex ) {
+        } );
+    }
+
+    private void buildAndInit( ResourceMetadata<? extends Resource> md, PreparedResources prepared ) {
+        if ( states.getState( md.getIdentifier() ) == Deactivated ) {
+            LOG.warn( "Not building resource {} (deactivated).", md.getIdentifier() );
+            return;
+        }
+        LOG.info( "Building resource {}.", md.getIdentifier() );
+        for ( ResourceIdentifier<? extends Resource> dep : md.getDependencies() ) {
+            if ( states.getState( dep ) != Initialized ) {
                 states.setState( md.getIdentifier(), Error );
-                String msg = "Unable to build resource " + md.getIdentifier() + ": " + ex.getLocalizedMessage();
+                String msg = "Dependent resource " + dep + " failed to initialize.";
+                LOG.error( "Unable to build resource {}: " + msg, md.getIdentifier() );
                 errors.registerError( md.getIdentifier(), msg );
-                LOG.error( msg );
-                LOG.trace( "Stack trace:", ex );
+                return;
+            }
+        }
+        try {
+            Resource res = prepared.getBuilder( md.getIdentifier() ).build();
+            if ( res == null ) {
+                errors.registerError( md.getIdentifier(), "Unable to prepare." );
+                states.setState( md.getIdentifier(), Error );
+                LOG.error( "Unable to build resource {}.", md.getIdentifier() );
+                return;
             }
+            states.setState( md.getIdentifier(), Built );
+            LOG.info( "Initializing resource {}.", md.getIdentifier() );
+            res.init();
+            // register before marking as initialized, dependents check the state from other threads
+            resources.put( res.getMetadata().getIdentifier(), res );
+            states.setState( md.getIdentifier(), Initialized );
+        } catch ( Exception ex ) {
+            states.setState( md.getIdentifier(), Error );
+            String msg = "Unable to build resource " + md.getIdentifier() + ": " + ex.getLocalizedMessage();
+            errors.registerError( md.getIdentifier(), msg );
+            LOG.error( msg );
+            LOG.trace( "Stack trace:", ex );
         }
     }
 
@@ -193,6 +218,8 @@ public class DefaultWorkspace implements Workspace {
             }
         }
 
+        destroyRetiredResources();
+
         for ( ResourceManager<? extends Resource> mgr : resourceManagers.values() ) {
             mgr.shutdown();
         }
@@ -277,12 +304,22 @@ public class DefaultWorkspace implements Workspace {
     @Override
     public <T extends Resource> ResourceMetadata<T> getResourceMetadata( Class<? extends ResourceProvider<T>> providerClass,
                                                                                String id ) {
-        return (ResourceMetadata<T>) resourceMetadata.get( new DefaultResourceIdentifier<T>( providerClass, id ) );
+        DefaultResourceIdentifier<T> identifier = new DefaultResourceIdentifier<T>( providerClass, id );
+        ReloadContext ctx = reloadContext.get();
+        if ( ctx != null && ctx.metadata.containsKey( identifier ) ) {
+            return (ResourceMetadata<T>) ctx.metadata.get( identifier );
+        }
+        return (ResourceMetadata<T>) resourceMetadata.get( identifier );
     }
 
     @Override
     public <T extends Resource> T getResource( Class<? extends ResourceProvider<T>> providerClass, String id ) {
-        return (T) resources.get( new DefaultResourceIdentifier( providerClass, id ) );
+        DefaultResourceIdentifier<T> identifier = new DefaultResourceIdentifier<T>( providerClass, id );
+        ReloadContext ctx = reloadContext.get();
+        if ( ctx != null && ctx.resources.containsKey( identifier ) ) {
+            return (T) ctx.resources.get( identifier );
+        }
+        return (T) resources.get( identifier );
     }
 
     /**
@@ -315,7 +352,7 @@ public class DefaultWorkspace implements Workspace {
         wsModules = new ArrayList<ModuleInfo>();
         resourceManagers = new HashMap<Class<? extends ResourceProvider<? extends Resource>>, ResourceManager<? extends Resource>>();
         resourceMetadata = new HashMap<ResourceIdentifier<? extends Resource>, ResourceMetadata<? extends Resource>>();
-        resources = new HashMap<ResourceIdentifier<? extends Resource>, Resource>();
+        resources = new ConcurrentHashMap<ResourceIdentifier<? extends Resource>, Resource>();
         initializables.clear();
         graph = new ResourceGraph();
         states = new ResourceStates();
@@ -525,6 +562,216 @@ public class DefaultWorkspace implements Workspace {
         errors.clear( id );
     }
 
+    /**
+     * Replaces the resource and its dependents without interrupting the service. The new instances are created while
+     * the current ones stay available, and replace them (including their metadata) only if all of them could be
+     * initialized. The replaced instances are destroyed after a grace period, so requests that are still using them
+     * can finish.
+     */
+    @Override
+    public synchronized <T extends Resource> T reload( ResourceIdentifier<T> id ) {
+        ResourceMetadata<? extends Resource> current = resourceMetadata.get( id );
+        if ( current == null ) {
+            throw new ResourceInitException( "Unable to reload resource " + id + ": no such resource." );
+        }
+        LOG.info( "Reloading resource {} and its dependents.", id );
+
+        Map<ResourceIdentifier<? extends Resource>, ResourceMetadata<? extends Resource>> chain = new LinkedHashMap<ResourceIdentifier<? extends Resource>, ResourceMetadata<? extends Resource>>();
+        List<ResourceMetadata<? extends Resource>> list = new ArrayList<ResourceMetadata<? extends Resource>>();
+        list.add( current );
+        WorkspaceUtils.collectDependents( list, graph.getNode( id ) );
+        for ( ResourceMetadata<? extends Resource> md : list ) {
+            if ( states.getState( md.getIdentifier() ) == Deactivated ) {
+                LOG.info( "Not reloading resource {} (deactivated).", md.getIdentifier() );
+                continue;
+            }
+            chain.put( md.getIdentifier(), md );
+        }
+
+        ReloadContext ctx = new ReloadContext();
+        List<ResourceMetadata<? extends Resource>> sorted = null;
+        reloadContext.set( ctx );
+        try {
+            // re-read and prepare the whole chain first, so changed dependencies are known before building
+            Map<ResourceMetadata<? extends Resource>, ResourceBuilder<? extends Resource>> builders = new HashMap<ResourceMetadata<? extends Resource>, ResourceBuilder<? extends Resource>>();
+            for ( ResourceMetadata<? extends Resource> md : chain.values() ) {
+                ResourceMetadata<? extends Resource> newMd = rescan( md );
+                ctx.metadata.put( newMd.getIdentifier(), newMd );
+            }
+            for ( ResourceMetadata<? extends Resource> md : ctx.metadata.values() ) {
+                LOG.info( "Preparing resource {}.", md.getIdentifier() );
+                ResourceBuilder<? extends Resource> builder = md.prepare();
+                if ( builder == null ) {
+                    throw new ResourceInitException( "Unable to prepare resource " + md.getIdentifier() + "." );
+                }
+                builders.put( md, builder );
+            }
+            sorted = new ResourceGraph( new ArrayList<ResourceMetadata<? extends Resource>>( ctx.metadata.values() ) ).toSortedList();
+            for ( ResourceMetadata<? extends Resource> md : sorted ) {
+                for ( ResourceIdentifier<? extends Resource> dep : md.getDependencies() ) {
+                    if ( !ctx.resources.containsKey( dep ) && states.getState( dep ) != Initialized ) {
+                        throw new ResourceInitException( "Unable to build resource " + md.getIdentifier()
+                                                         + ": dependent resource " + dep + " is not available." );
+                    }
+                }
+                LOG.info( "Building resource {}.", md.getIdentifier() );
+                Resource res = builders.get( md ).build();
+                if ( res == null ) {
+                    throw new ResourceInitException( "Unable to build resource " + md.getIdentifier() + "." );
+                }
+                LOG.info( "Initializing resource {}.", md.getIdentifier() );
+                ctx.resources.put( md.getIdentifier(), res );
+                res.init();
+            }
+        } catch ( Exception e ) {
+            String msg = "Unable to reload resource " + id + ": " + e.getLocalizedMessage();
+            LOG.error( msg + " Keeping the current resources." );
+            LOG.trace( "Stack trace:", e );
+            List<Resource> built = new ArrayList<Resource>( ctx.resources.values() );
+            Collections.reverse( built );
+            destroyQuietly( built );
+            errors.registerError( id, msg );
+            if ( e instanceof ResourceInitException ) {
+                throw (ResourceInitException) e;
+            }
+            throw new ResourceInitException( msg, e );
+        } finally {
+            reloadContext.remove();
+        }
+
+        // swap in dependency order, so every replaced resource only ever sees consistent dependencies
+        List<Resource> replaced = new ArrayList<Resource>();
+        for ( ResourceMetadata<? extends Resource> md : sorted ) {
+            ResourceIdentifier<? extends Resource> rid = md.getIdentifier();
+            resourceMetadata.put( rid, md );
+            register( md );
+            graph.insertNode( md );
+            Resource old = resources.put( rid, ctx.resources.get( rid ) );
+            if ( old != null ) {
+                replaced.add( old );
+            }
+            states.setState( rid, Initialized );
+            errors.clear( rid );
+        }
+        Collections.reverse( replaced );
+        retire( replaced );
+        LOG.info( "Reloaded {} resource(s).", sorted.size() );
+        return (T) resources.get( id );
+    }
+
+    /**
+     * Re-reads the metadata of the given resource, without replacing the metadata known to the resource manager (see
+     * {@link #register(ResourceMetadata)}).
+     */
+    private <T extends Resource> ResourceMetadata<T> rescan( ResourceMetadata<T> md ) {
+        ResourceManager<T> mgr = (ResourceManager) resourceManagers.get( md.getIdentifier().getProvider() );
+        ResourceLocation<T> location = md.getLocation();
+        String ns = location.getNamespace();
+        ResourceProvider<T> provider = null;
+        if ( mgr != null ) {
+            for ( ResourceProvider<T> prov : mgr.getProviders() ) {
+                if ( prov.getNamespace().equals( ns ) ) {
+                    provider = prov;
+                }
+            }
+        }
+        if ( provider == null ) {
+            throw new ResourceInitException( "Unable to read resource " + md.getIdentifier()
+                                             + ": no provider found for namespace " + ns + "." );
+        }
+        ResourceMetadata<T> newMd = provider.read( this, location );
+        if ( newMd == null ) {
+            throw new ResourceInitException( "Unable to read resource " + md.getIdentifier() + "." );
+        }
+        return newMd;
+    }
+
+    /**
+     * Replaces the metadata known to the resource manager, once the reloaded resource is active.
+     */
+    private <T extends Resource> void register( ResourceMetadata<T> md ) {
+        ResourceManager<T> mgr = (ResourceManager) resourceManagers.get( md.getIdentifier().getProvider() );
+        if ( mgr instanceof DefaultResourceManager ) {
+            ( (DefaultResourceManager<T>) mgr ).register( md );
+        } else if ( mgr != null ) {
+            mgr.add( md.getLocation() );
+        }
+    }
+
+    /**
+     * Destroys the given (replaced) resources once the grace period configured via the system property
+     * <code>deegree.workspace.reload.grace</code> (in seconds, default 30) is over.
+     */
+    private void retire( final List<Resource> replaced ) {
+        if ( replaced.isEmpty() ) {
+            return;
+        }
+        long grace = 30;
+        String value = System.getProperty( "deegree.workspace.reload.grace" );
+        if ( value != null ) {
+            try {
+                grace = Long.parseLong( value.trim() );
+            } catch ( NumberFormatException e ) {
+                LOG.warn( "Ignoring invalid value '{}' of system property deegree.workspace.reload.grace.", value );
+            }
+        }
+        if ( grace <= 0 ) {
+            destroyQuietly( replaced );
+            return;
+        }
+        synchronized ( retiredResources ) {
+            retiredResources.addAll( replaced );
+            if ( retirementExecutor == null ) {
+                retirementExecutor = Executors.newSingleThreadScheduledExecutor( new ThreadFactory() {
+                    @Override
+                    public Thread newThread( Runnable r ) {
+                        Thread t = new Thread( r, "deegree-workspace-retire" );
+                        t.setDaemon( true );
+                        return t;
+                    }
+                } );
+            }
+            retirementExecutor.schedule( new Runnable() {
+                @Override
+                public void run() {
+                    synchronized ( retiredResources ) {
+                        if ( !retiredResources.removeAll( replaced ) ) {
+                            // already destroyed by a workspace shutdown
+                            return;
+                        }
+                    }
+                    destroyQuietly( replaced );
+                }
+            }, grace, TimeUnit.SECONDS );
+        }
+    }
+
+    private void destroyRetiredResources() {
+        List<Resource> list;
+        synchronized ( retiredResources ) {
+            list = new ArrayList<Resource>( retiredResources );
+            retiredResources.clear();
+            if ( retirementExecutor != null ) {
+                retirementExecutor.shutdownNow();
+                retirementExecutor = null;
+            }
+        }
+        destroyQuietly( list );
+    }
+
+    private void destroyQuietly( List<Resource> list ) {
+        for ( Resource res : list ) {
+            try {
+                LOG.info( "Shutting down replaced instance of {}.", res.getMetadata().getIdentifier() );
+                res.destroy();
+            } catch ( Exception e ) {
+                LOG.warn( "Unable to destroy resource {}: {}", res.getMetadata().getIdentifier(),
+                          e.getLocalizedMessage() );
+                LOG.trace( "Stack trace:", e );
+            }
+        }
+    }
+
     private void removeMetadataFromResourceManager( ResourceIdentifier<?> id ) {
         for ( ResourceManager<?> mgr : getResourceManagers() ) {
             for ( ResourceMetadata<?> md : mgr.getResourceMetadata() ) {
@@ -556,4 +803,15 @@ public class DefaultWorkspace implements Workspace {
         return locationHandler;
     }
 
+    /**
+     * Metadata and resources of a reload in progress.
+     */
+    private static class ReloadContext {
+
+        final Map<ResourceIdentifier<? extends Resource>, ResourceMetadata<? extends Resource>> metadata = new LinkedHashMap<ResourceIdentifier<? extends Resource>, ResourceMetadata<? extends Resource>>();
+
+        final Map<ResourceIdentifier<? extends Resource>, Resource> resources = new LinkedHashMap<ResourceIdentifier<? extends Resource>, Resource>();
+
+    }
+
 }
@@ -0,0 +1,361 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2012 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.workspace.standard;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.deegree.workspace.Resource;
+import org.deegree.workspace.ResourceIdentifier;
+import org.deegree.workspace.ResourceMetadata;
+import org.deegree.workspace.graph.ResourceGraph;
+import org.deegree.workspace.graph.ResourceNode;
+import org.slf4j.Logger;
+
+/**
+ * Runs the build/init step of all resources of a {@link ResourceGraph}, optionally on a bounded thread pool. In
+ * parallel mode, a resource is scheduled as soon as all of its (hard and soft) dependencies have been processed, so
+ * independent resources are initialized concurrently while the initialization order of dependent resources is
+ * preserved.
+ * <p>
+ * Parallel initialization is opt-in: the number of threads can be configured using the system property
+ * <code>deegree.workspace.init.threads</code> and defaults to <code>1</code>, i.e. resources are initialized
+ * sequentially in the calling thread, in the order of {@link ResourceGraph#toSortedList()}. In parallel mode, the
+ * system property <code>deegree.workspace.init.timeout</code> limits the time (in seconds, defaults to 1800) to wait
+ * for all resources; resources that are unfinished by then are reported and left behind.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class ResourceInitScheduler {
+
+    private static final Logger LOG = getLogger( ResourceInitScheduler.class );
+
+    static final String THREADS_PROPERTY = "deegree.workspace.init.threads";
+
+    static final String TIMEOUT_PROPERTY = "deegree.workspace.init.timeout";
+
+    private static final long DEFAULT_TIMEOUT = 1800;
+
+    private static final long PROGRESS_INTERVAL = 60;
+
+    private static final int SLOWEST_REPORTED = 10;
+
+    private final ResourceGraph graph;
+
+    private final int threads;
+
+    private final long timeout;
+
+    private final Map<ResourceIdentifier<? extends Resource>, Long> timings = Collections.synchronizedMap( new HashMap<ResourceIdentifier<? extends Resource>, Long>() );
+
+    /**
+     * @param graph
+     *            the dependency graph, never <code>null</code>
+     * @param threads
+     *            maximum number of resources to initialize concurrently, values < 1 are treated as 1
+     */
+    ResourceInitScheduler( ResourceGraph graph, int threads ) {
+        this( graph, threads, DEFAULT_TIMEOUT * 1000 );
+    }
+
+    /**
+     * @param graph
+     *            the dependency graph, never <code>null</code>
+     * @param threads
+     *            maximum number of resources to initialize concurrently, values < 1 are treated as 1
+     * @param timeout
+     *            maximum time (in milliseconds) to wait for all resources in parallel mode
+     */
+    ResourceInitScheduler( ResourceGraph graph, int threads, long timeout ) {
+        this.graph = graph;
+        this.threads = Math.max( 1, threads );
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return the configured number of init threads, never < 1
+     */
+    static int getConfiguredThreads() {
+        return (int) getPositiveProperty( THREADS_PROPERTY, 1 );
+    }
+
+    /**
+     * @return the configured init timeout in milliseconds, always > 0
+     */
+    static long getConfiguredTimeout() {
+        return getPositiveProperty( TIMEOUT_PROPERTY, DEFAULT_TIMEOUT ) * 1000;
+    }
+
+    private static long getPositiveProperty( String name, long defaultValue ) {
+        String value = System.getProperty( name );
+        if ( value == null ) {
+            return defaultValue;
+        }
+        try {
+            return Math.max( 1, Integer.parseInt( value.trim() ) );
+        } catch ( NumberFormatException e ) {
+            LOG.warn( "Ignoring invalid value '{}' of system property {}.", value, name );
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Runs the task for every resource of the given list, blocking until all resources have been processed. The task
+     * is responsible for checking the state of the dependencies (a resource is scheduled once its dependencies have
+     * been processed, regardless of whether they succeeded).
+     * 
+     * @param sorted
+     *            the resources of the graph, as returned by {@link ResourceGraph#toSortedList()}, never
+     *            <code>null</code>
+     * @param task
+     *            never <code>null</code>
+     */
+    void run( List<ResourceMetadata<? extends Resource>> sorted, InitTask task ) {
+        timings.clear();
+        long start = System.nanoTime();
+        if ( threads == 1 || sorted.size() < 2 ) {
+            for ( ResourceMetadata<? extends Resource> md : sorted ) {
+                execute( md, task );
+            }
+        } else {
+            runParallel( sorted, task );
+        }
+        logTimings( sorted.size(), System.nanoTime() - start );
+    }
+
+    /**
+     * @return the build/init times (in nanoseconds) of the last run, never <code>null</code>
+     */
+    Map<ResourceIdentifier<? extends Resource>, Long> getTimings() {
+        return timings;
+    }
+
+    private void runParallel( List<ResourceMetadata<? extends Resource>> sorted, final InitTask task ) {
+        final Map<ResourceIdentifier<? extends Resource>, AtomicInteger> pending = new HashMap<ResourceIdentifier<? extends Resource>, AtomicInteger>();
+        final Map<ResourceIdentifier<? extends Resource>, ResourceMetadata<? extends Resource>> metadata = new HashMap<ResourceIdentifier<? extends Resource>, ResourceMetadata<? extends Resource>>();
+        // snapshot of the dependents, the graph may be modified by resources initializing other resources
+        final Map<ResourceIdentifier<? extends Resource>, List<ResourceIdentifier<? extends Resource>>> dependents = new HashMap<ResourceIdentifier<? extends Resource>, List<ResourceIdentifier<? extends Resource>>>();
+        final Set<ResourceIdentifier<? extends Resource>> unfinished = Collections.newSetFromMap( new ConcurrentHashMap<ResourceIdentifier<? extends Resource>, Boolean>() );
+        List<ResourceMetadata<? extends Resource>> roots = new ArrayList<ResourceMetadata<? extends Resource>>();
+        for ( ResourceMetadata<? extends Resource> md : sorted ) {
+            metadata.put( md.getIdentifier(), md );
+        }
+        for ( ResourceMetadata<? extends Resource> md : sorted ) {
+            ResourceNode<? extends Resource> node = graph.getNode( md.getIdentifier() );
+            // a resource may be both a hard and a soft dependency, but is only released once by each dependency
+            Set<ResourceIdentifier<? extends Resource>> deps = new LinkedHashSet<ResourceIdentifier<? extends Resource>>();
+            addScheduled( node.getDependencies(), metadata, deps );
+            addScheduled( node.getSoftDependencies(), metadata, deps );
+            pending.put( md.getIdentifier(), new AtomicInteger( deps.size() ) );
+            Set<ResourceIdentifier<? extends Resource>> ids = new LinkedHashSet<ResourceIdentifier<? extends Resource>>();
+            addScheduled( node.getDependents(), metadata, ids );
+            dependents.put( md.getIdentifier(), new ArrayList<ResourceIdentifier<? extends Resource>>( ids ) );
+            unfinished.add( md.getIdentifier() );
+            if ( deps.isEmpty() ) {
+                roots.add( md );
+            }
+        }
+
+        final CountDownLatch done = new CountDownLatch( sorted.size() );
+        final ExecutorService pool = Executors.newFixedThreadPool( Math.min( threads, sorted.size() ),
+                                                                   new InitThreadFactory() );
+        final Scheduler scheduler = new Scheduler() {
+            @Override
+            public void schedule( final ResourceMetadata<? extends Resource> md ) {
+                final Scheduler self = this;
+                Runnable job = new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            execute( md, task );
+                        } finally {
+                            unfinished.remove( md.getIdentifier() );
+                            // every node is released exactly once, after its last dependency finished
+                            for ( ResourceIdentifier<? extends Resource> id : dependents.get( md.getIdentifier() ) ) {
+                                AtomicInteger count = pending.get( id );
+                                if ( count != null && count.decrementAndGet() == 0 ) {
+                                    self.schedule( metadata.get( id ) );
+                                }
+                            }
+                            done.countDown();
+                        }
+                    }
+                };
+                try {
+                    pool.execute( job );
+                } catch ( RejectedExecutionException e ) {
+                    // timed out or interrupted, dependents of late finishers are not initialized anymore
+                    LOG.debug( "Not initializing resource {}, initialization has been aborted.", md.getIdentifier() );
+                }
+            }
+        };
+
+        try {
+            for ( ResourceMetadata<? extends Resource> md : roots ) {
+                scheduler.schedule( md );
+            }
+            long deadline = System.currentTimeMillis() + timeout;
+            long remaining = timeout;
+            while ( !done.await( Math.min( remaining, PROGRESS_INTERVAL * 1000 ), TimeUnit.MILLISECONDS ) ) {
+                remaining = deadline - System.currentTimeMillis();
+                if ( remaining <= 0 ) {
+                    LOG.error( "Resource initialization did not finish within {} s, giving up on {} resource(s): {}",
+                               new Object[] { timeout / 1000, unfinished.size(), unfinished } );
+                    break;
+                }
+                LOG.warn( "Still waiting for {} resource(s) to initialize: {}", unfinished.size(), unfinished );
+            }
+        } catch ( InterruptedException e ) {
+            LOG.warn( "Interrupted while initializing resources, {} resources have not been initialized: {}",
+                      unfinished.size(), unfinished );
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void addScheduled( List<ResourceNode<? extends Resource>> nodes,
+                                      Map<ResourceIdentifier<? extends Resource>, ResourceMetadata<? extends Resource>> scheduled,
+                                      Set<ResourceIdentifier<? extends Resource>> ids ) {
+        for ( ResourceNode<? extends Resource> node : nodes ) {
+            ResourceIdentifier<? extends Resource> id = node.getMetadata().getIdentifier();
+            if ( scheduled.containsKey( id ) ) {
+                ids.add( id );
+            }
+        }
+    }
+
+    private void execute( ResourceMetadata<? extends Resource> md, InitTask task ) {
+        long start = System.nanoTime();
+        try {
+            task.init( md );
+        } catch ( Throwable t ) {
+            LOG.error( "Unexpected error initializing resource {}: {}", md.getIdentifier(), t.getLocalizedMessage() );
+            LOG.trace( "Stack trace:", t );
+        } finally {
+            timings.put( md.getIdentifier(), System.nanoTime() - start );
+        }
+    }
+
+    private void logTimings( int count, long total ) {
+        List<Map.Entry<ResourceIdentifier<? extends Resource>, Long>> list;
+        synchronized ( timings ) {
+            list = new ArrayList<Map.Entry<ResourceIdentifier<? extends Resource>, Long>>( timings.entrySet() );
+        }
+        Collections.sort( list, new Comparator<Map.Entry<ResourceIdentifier<? extends Resource>, Long>>() {
+            @Override
+            public int compare( Map.Entry<ResourceIdentifier<? extends Resource>, Long> e1,
+                                Map.Entry<ResourceIdentifier<? extends Resource>, Long> e2 ) {
+                return e2.getValue().compareTo( e1.getValue() );
+            }
+        } );
+        LOG.info( "Built and initialized {} resources in {} ms using {} thread(s).", count, total / 1000000,
+                  Math.min( threads, Math.max( 1, count ) ) );
+        int i = 0;
+        for ( Map.Entry<ResourceIdentifier<? extends Resource>, Long> e : list ) {
+            if ( i++ < SLOWEST_REPORTED ) {
+                LOG.info( "  {} ms: {}", e.getValue() / 1000000, e.getKey() );
+            } else {
+                LOG.debug( "  {} ms: {}", e.getValue() / 1000000, e.getKey() );
+            }
+        }
+    }
+
+    /**
+     * Builds and initializes a single resource.
+     */
+    interface InitTask {
+
+        /**
+         * @param md
+         *            the resource to build and initialize, never <code>null</code>
+         */
+        void init( ResourceMetadata<? extends Resource> md );
+
+    }
+
+    private interface Scheduler {
+
+        void schedule( ResourceMetadata<? extends Resource> md );
+
+    }
+
+    /**
+     * Creates daemon threads that inherit the context class loader of the thread that started the initialization
+     * (resources may load classes from workspace modules via the context class loader).
+     */
+    private static class InitThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        @Override
+        public Thread newThread( Runnable r ) {
+            Thread t = new Thread( r, "deegree-workspace-init-" + count.incrementAndGet() );
+            t.setDaemon( true );
+            t.setContextClassLoader( contextClassLoader );
+            return t;
+        }
+
+    }
+
+}
@@ -0,0 +1,303 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2012 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.workspace.standard;
+
+import static org.deegree.workspace.ResourceStates.ResourceState.Initialized;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.deegree.workspace.Resource;
+import org.deegree.workspace.ResourceBuilder;
+import org.deegree.workspace.ResourceIdentifier;
+import org.deegree.workspace.ResourceInitException;
+import org.deegree.workspace.ResourceLocation;
+import org.deegree.workspace.ResourceMetadata;
+import org.deegree.workspace.Workspace;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link DefaultWorkspace#reload(ResourceIdentifier)}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class DefaultWorkspaceReloadTest {
+
+    private static final String NS = "http://www.deegree.org/test/reload";
+
+    private static final String GRACE_PROPERTY = "deegree.workspace.reload.grace";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DefaultWorkspace workspace;
+
+    private String oldGrace;
+
+    @Before
+    public void setUp()
+                            throws IOException {
+        oldGrace = System.getProperty( GRACE_PROPERTY );
+        // destroy replaced instances immediately
+        System.setProperty( GRACE_PROPERTY, "0" );
+        write( "a", "1", null, false );
+        write( "b", "1", "a", false );
+        workspace = new DefaultWorkspace( folder.getRoot() );
+        workspace.initAll();
+    }
+
+    @After
+    public void tearDown() {
+        workspace.destroy();
+        if ( oldGrace == null ) {
+            System.clearProperty( GRACE_PROPERTY );
+        } else {
+            System.setProperty( GRACE_PROPERTY, oldGrace );
+        }
+    }
+
+    private void write( String id, String value, String depends, boolean fail )
+                            throws IOException {
+        File dir = new File( folder.getRoot(), "test" );
+        String xml = "<Test xmlns='" + NS + "' value='" + value + "'"
+                     + ( depends == null ? "" : " depends='" + depends + "'" ) + ( fail ? " fail='true'" : "" )
+                     + "/>";
+        FileUtils.writeStringToFile( new File( dir, id + ".xml" ), xml );
+    }
+
+    private TestResource get( String id ) {
+        return workspace.getResource( TestProvider.class, id );
+    }
+
+    private ResourceMetadata<TestResource> managerMetadata( String id ) {
+        TestResourceManager mgr = workspace.getResourceManager( TestResourceManager.class );
+        for ( ResourceMetadata<TestResource> md : mgr.getResourceMetadata() ) {
+            if ( md.getIdentifier().getId().equals( id ) ) {
+                return md;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testReload()
+                            throws IOException {
+        TestResource a = get( "a" );
+        TestResource b = get( "b" );
+        assertEquals( "1", a.value );
+        assertSame( a, b.dependency );
+
+        write( "a", "2", null, false );
+        TestResource newA = workspace.reload( a.getMetadata().getIdentifier() );
+
+        assertEquals( "2", newA.value );
+        assertSame( newA, get( "a" ) );
+        assertTrue( newA.initialized );
+        // dependents are rebuilt against the new instance
+        TestResource newB = get( "b" );
+        assertNotSame( b, newB );
+        assertSame( newA, newB.dependency );
+        assertTrue( a.destroyed );
+        assertTrue( b.destroyed );
+        assertSame( newA.getMetadata(), workspace.getResourceMetadata( TestProvider.class, "a" ) );
+        assertSame( newA.getMetadata(), managerMetadata( "a" ) );
+        assertEquals( Initialized, workspace.getStates().getState( newA.getMetadata().getIdentifier() ) );
+    }
+
+    @Test
+    public void testFailedReloadKeepsCurrentResources()
+                            throws IOException {
+        TestResource a = get( "a" );
+        TestResource b = get( "b" );
+        ResourceMetadata<TestResource> md = workspace.getResourceMetadata( TestProvider.class, "a" );
+
+        write( "a", "2", null, true );
+        try {
+            workspace.reload( md.getIdentifier() );
+            fail( "Expected a ResourceInitException." );
+        } catch ( ResourceInitException e ) {
+            // expected
+        }
+
+        assertSame( a, get( "a" ) );
+        assertSame( b, get( "b" ) );
+        assertFalse( a.destroyed );
+        assertFalse( b.destroyed );
+        assertSame( md, workspace.getResourceMetadata( TestProvider.class, "a" ) );
+        assertSame( md, managerMetadata( "a" ) );
+        assertEquals( Initialized, workspace.getStates().getState( md.getIdentifier() ) );
+        assertTrue( workspace.getErrorHandler().hasErrors() );
+    }
+
+    /**
+     * Resource with a value, optionally depending on another test resource.
+     */
+    public static class TestResource implements Resource {
+
+        final ResourceMetadata<TestResource> metadata;
+
+        final String value;
+
+        final TestResource dependency;
+
+        final boolean fail;
+
+        boolean initialized;
+
+        boolean destroyed;
+
+        TestResource( ResourceMetadata<TestResource> metadata, String value, TestResource dependency, boolean fail ) {
+            this.metadata = metadata;
+            this.value = value;
+            this.dependency = dependency;
+            this.fail = fail;
+        }
+
+        @Override
+        public ResourceMetadata<TestResource> getMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public void init() {
+            if ( fail ) {
+                throw new ResourceInitException( "Failing on purpose." );
+            }
+            initialized = true;
+        }
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+        }
+
+    }
+
+    public static class TestProvider extends AbstractResourceProvider<TestResource> {
+
+        @Override
+        public String getNamespace() {
+            return NS;
+        }
+
+        @Override
+        public ResourceMetadata<TestResource> createFromLocation( Workspace workspace,
+                                                                  ResourceLocation<TestResource> location ) {
+            return new TestMetadata( workspace, location, this );
+        }
+
+        @Override
+        public URL getSchema() {
+            return null;
+        }
+
+    }
+
+    public static class TestResourceManager extends DefaultResourceManager<TestResource> {
+
+        public TestResourceManager() {
+            super( new DefaultResourceManagerMetadata<TestResource>( TestProvider.class, "test resources", "test" ) );
+        }
+
+    }
+
+    private static class TestMetadata extends AbstractResourceMetadata<TestResource> {
+
+        TestMetadata( Workspace workspace, ResourceLocation<TestResource> location, TestProvider provider ) {
+            super( workspace, location, provider );
+        }
+
+        @Override
+        public ResourceBuilder<TestResource> prepare() {
+            final String value;
+            final String depends;
+            final boolean fail;
+            InputStream in = location.getAsStream();
+            try {
+                XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader( in );
+                reader.nextTag();
+                value = reader.getAttributeValue( null, "value" );
+                depends = reader.getAttributeValue( null, "depends" );
+                fail = "true".equals( reader.getAttributeValue( null, "fail" ) );
+                reader.close();
+            } catch ( Exception e ) {
+                throw new ResourceInitException( e.getLocalizedMessage(), e );
+            } finally {
+                IOUtils.closeQuietly( in );
+            }
+            if ( depends != null ) {
+                dependencies.add( new DefaultResourceIdentifier<TestResource>( TestProvider.class, depends ) );
+            }
+            return new ResourceBuilder<TestResource>() {
+                @Override
+                public TestResource build() {
+                    TestResource dep = null;
+                    if ( depends != null ) {
+                        dep = workspace.getResource( TestProvider.class, depends );
+                    }
+                    return new TestResource( TestMetadata.this, value, dep, fail );
+                }
+            };
+        }
+
+    }
+
+}
@@ -0,0 +1,245 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2012 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.workspace.standard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.deegree.workspace.Resource;
+import org.deegree.workspace.ResourceBuilder;
+import org.deegree.workspace.ResourceIdentifier;
+import org.deegree.workspace.ResourceMetadata;
+import org.deegree.workspace.ResourceProvider;
+import org.deegree.workspace.graph.ResourceGraph;
+import org.junit.Test;
+
+/**
+ * Tests for the dependency driven resource initialization.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class ResourceInitSchedulerTest {
+
+    private static AbstractResourceMetadata createMetadata( String id, final String... deps ) {
+        ResourceIdentifier rid = new DefaultResourceIdentifier( ResourceProvider.class, id );
+        DefaultResourceLocation loc = new DefaultResourceLocation( new File( "/tmp/" ), rid );
+        AbstractResourceMetadata md = new AbstractResourceMetadata( null, loc, null ) {
+            @Override
+            public ResourceBuilder prepare() {
+                for ( String dep : deps ) {
+                    dependencies.add( new DefaultResourceIdentifier( ResourceProvider.class, dep ) );
+                }
+                return null;
+            }
+        };
+        md.prepare();
+        return md;
+    }
+
+    private static AbstractResourceMetadata createMetadataWithSoftDependency( String id, final String softDep ) {
+        ResourceIdentifier rid = new DefaultResourceIdentifier( ResourceProvider.class, id );
+        DefaultResourceLocation loc = new DefaultResourceLocation( new File( "/tmp/" ), rid );
+        AbstractResourceMetadata md = new AbstractResourceMetadata( null, loc, null ) {
+            @Override
+            public ResourceBuilder prepare() {
+                ResourceIdentifier dep = new DefaultResourceIdentifier( ResourceProvider.class, softDep );
+                dependencies.add( dep );
+                softDependencies.add( dep );
+                return null;
+            }
+        };
+        md.prepare();
+        return md;
+    }
+
+    private static ResourceGraph createGraph() {
+        // md1 depends on md2 and md3, which both depend on md4; md5 is independent
+        ResourceGraph graph = new ResourceGraph();
+        graph.insertNode( createMetadata( "md1", "md2", "md3" ) );
+        graph.insertNode( createMetadata( "md2", "md4" ) );
+        graph.insertNode( createMetadata( "md3", "md4" ) );
+        graph.insertNode( createMetadata( "md4" ) );
+        graph.insertNode( createMetadata( "md5" ) );
+        return graph;
+    }
+
+    private static void assertDependencyOrder( List<String> order ) {
+        assertEquals( 5, order.size() );
+        assertTrue( order.indexOf( "md4" ) < order.indexOf( "md2" ) );
+        assertTrue( order.indexOf( "md4" ) < order.indexOf( "md3" ) );
+        assertTrue( order.indexOf( "md2" ) < order.indexOf( "md1" ) );
+        assertTrue( order.indexOf( "md3" ) < order.indexOf( "md1" ) );
+    }
+
+    @Test
+    public void testSequential() {
+        ResourceGraph graph = createGraph();
+        final List<String> order = new ArrayList<String>();
+        ResourceInitScheduler scheduler = new ResourceInitScheduler( graph, 1 );
+        scheduler.run( graph.toSortedList(), new ResourceInitScheduler.InitTask() {
+            @Override
+            public void init( ResourceMetadata<? extends Resource> md ) {
+                order.add( md.getIdentifier().getId() );
+            }
+        } );
+        assertDependencyOrder( order );
+        assertEquals( 5, scheduler.getTimings().size() );
+    }
+
+    @Test
+    public void testParallel() {
+        ResourceGraph graph = createGraph();
+        final List<String> order = Collections.synchronizedList( new ArrayList<String>() );
+        // md2 and md3 only finish if they run concurrently
+        final CountDownLatch latch = new CountDownLatch( 2 );
+        final List<String> timedOut = Collections.synchronizedList( new ArrayList<String>() );
+        ResourceInitScheduler scheduler = new ResourceInitScheduler( graph, 4 );
+        scheduler.run( graph.toSortedList(), new ResourceInitScheduler.InitTask() {
+            @Override
+            public void init( ResourceMetadata<? extends Resource> md ) {
+                String id = md.getIdentifier().getId();
+                if ( id.equals( "md2" ) || id.equals( "md3" ) ) {
+                    latch.countDown();
+                    try {
+                        if ( !latch.await( 10, TimeUnit.SECONDS ) ) {
+                            timedOut.add( id );
+                        }
+                    } catch ( InterruptedException e ) {
+                        timedOut.add( id );
+                    }
+                }
+                order.add( id );
+            }
+        } );
+        assertDependencyOrder( order );
+        assertTrue( timedOut.isEmpty() );
+        assertEquals( 5, scheduler.getTimings().size() );
+    }
+
+    @Test
+    public void testFailingTaskReleasesDependents() {
+        ResourceGraph graph = createGraph();
+        final List<String> order = Collections.synchronizedList( new ArrayList<String>() );
+        ResourceInitScheduler scheduler = new ResourceInitScheduler( graph, 3 );
+        scheduler.run( graph.toSortedList(), new ResourceInitScheduler.InitTask() {
+            @Override
+            public void init( ResourceMetadata<? extends Resource> md ) {
+                order.add( md.getIdentifier().getId() );
+                if ( md.getIdentifier().getId().equals( "md4" ) ) {
+                    throw new IllegalStateException();
+                }
+            }
+        } );
+        assertDependencyOrder( order );
+    }
+
+    @Test
+    public void testHardAndSoftDependencyOnSameResource() {
+        ResourceGraph graph = new ResourceGraph();
+        graph.insertNode( createMetadataWithSoftDependency( "md1", "md2" ) );
+        graph.insertNode( createMetadata( "md2" ) );
+        graph.insertNode( createMetadata( "md3" ) );
+        final List<String> order = Collections.synchronizedList( new ArrayList<String>() );
+        ResourceInitScheduler scheduler = new ResourceInitScheduler( graph, 2, 10000 );
+        scheduler.run( graph.toSortedList(), new ResourceInitScheduler.InitTask() {
+            @Override
+            public void init( ResourceMetadata<? extends Resource> md ) {
+                order.add( md.getIdentifier().getId() );
+            }
+        } );
+        assertEquals( 3, order.size() );
+        assertTrue( order.indexOf( "md2" ) < order.indexOf( "md1" ) );
+    }
+
+    @Test
+    public void testTimeout() {
+        ResourceGraph graph = createGraph();
+        final CountDownLatch blocker = new CountDownLatch( 1 );
+        final List<String> order = Collections.synchronizedList( new ArrayList<String>() );
+        ResourceInitScheduler scheduler = new ResourceInitScheduler( graph, 2, 200 );
+        long start = System.currentTimeMillis();
+        scheduler.run( graph.toSortedList(), new ResourceInitScheduler.InitTask() {
+            @Override
+            public void init( ResourceMetadata<? extends Resource> md ) {
+                if ( md.getIdentifier().getId().equals( "md4" ) ) {
+                    try {
+                        blocker.await();
+                    } catch ( InterruptedException e ) {
+                        return;
+                    }
+                }
+                order.add( md.getIdentifier().getId() );
+            }
+        } );
+        assertTrue( System.currentTimeMillis() - start < 10000 );
+        assertFalse( order.contains( "md4" ) );
+        assertFalse( order.contains( "md1" ) );
+    }
+
+    @Test
+    public void testSequentialByDefault() {
+        String old = System.getProperty( ResourceInitScheduler.THREADS_PROPERTY );
+        System.clearProperty( ResourceInitScheduler.THREADS_PROPERTY );
+        try {
+            assertEquals( 1, ResourceInitScheduler.getConfiguredThreads() );
+            System.setProperty( ResourceInitScheduler.THREADS_PROPERTY, "4" );
+            assertEquals( 4, ResourceInitScheduler.getConfiguredThreads() );
+        } finally {
+            if ( old == null ) {
+                System.clearProperty( ResourceInitScheduler.THREADS_PROPERTY );
+            } else {
+                System.setProperty( ResourceInitScheduler.THREADS_PROPERTY, old );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2012 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.persistence;
+
+import org.deegree.feature.FeatureCollection;
+import org.deegree.protocol.wfs.transaction.action.IDGenMode;
+
+/**
+ * {@link FeatureStoreTransaction} that supports a bulk load mode for inserting large datasets.
+ * <p>
+ * In bulk load mode, {@link #performInsert(FeatureCollection, IDGenMode)} may use backend specific mechanisms (e.g.
+ * PostgreSQL <code>COPY</code>) that are considerably faster than inserting feature by feature. The mode stays active
+ * until the transaction is committed or rolled back.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public interface BulkLoadTransaction extends FeatureStoreTransaction {
+
+    /**
+     * Switches this transaction to bulk load mode (if supported by the backend).
+     * 
+     * @param deferIndexes
+     *            <code>true</code>, if indexes of the target tables should be dropped during the load and recreated on
+     *            commit, ignored if the feature store configuration does not allow it
+     * @return <code>true</code>, if bulk load mode is active, <code>false</code> if the backend doesn't support it
+     *         (inserts are performed as usual)
+     * @throws FeatureStoreException
+     *             if switching to bulk load mode fails
+     */
+    public boolean enableBulkLoad( boolean deferIndexes )
+                            throws FeatureStoreException;
+
+}
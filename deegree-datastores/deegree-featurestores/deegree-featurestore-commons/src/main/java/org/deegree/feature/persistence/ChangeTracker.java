@@ -0,0 +1,146 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree
+ Copyright (C) 2001-2013 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+ and others
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ e-mail: info@deegree.org
+ website: http://www.deegree.org/
+----------------------------------------------------------------------------*/
+package org.deegree.feature.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
+/**
+ * Tracks the feature types that are changed by a {@link FeatureStoreTransaction}, to be passed to the
+ * {@link FeatureStoreChangeListener}s after the commit.
+ * <p>
+ * For feature types that have only been inserted into, the ids of the inserted features are kept (up to
+ * {@link #MAX_TRACKED_IDS}), so listeners can update derived information incrementally. Updates and deletes (and
+ * larger inserts) require a full recalculation.
+ * </p>
+ * 
+ * @see BBoxTracker
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ * 
+ * @since 3.4
+ */
+public class ChangeTracker {
+
+    /** Maximum number of tracked ids of inserted features per feature type. */
+    public static final int MAX_TRACKED_IDS = 10000;
+
+    // feature types that require recalculation
+    private final Set<QName> recalcFts = new HashSet<QName>();
+
+    private final Map<QName, List<String>> insertedIds = new HashMap<QName, List<String>>();
+
+    /**
+     * An insert event for the specified feature.
+     * 
+     * @param ft
+     *            feature type of the inserted feature, must not be <code>null</code>
+     * @param id
+     *            id of the inserted feature, must not be <code>null</code>
+     */
+    public void insert( QName ft, String id ) {
+        if ( recalcFts.contains( ft ) ) {
+            return;
+        }
+        List<String> ids = insertedIds.get( ft );
+        if ( ids == null ) {
+            ids = new ArrayList<String>();
+            insertedIds.put( ft, ids );
+        }
+        if ( ids.size() < MAX_TRACKED_IDS ) {
+            ids.add( id );
+        } else {
+            recalc( ft );
+        }
+    }
+
+    /**
+     * An update event for the specified feature type.
+     * 
+     * @param ft
+     *            feature type to be updated, must not be <code>null</code>
+     */
+    public void update( QName ft ) {
+        recalc( ft );
+    }
+
+    /**
+     * A delete event for the specified feature type.
+     * 
+     * @param ft
+     *            feature type to be deleted from, must not be <code>null</code>
+     */
+    public void delete( QName ft ) {
+        recalc( ft );
+    }
+
+    /**
+     * @return <code>true</code>, if no feature type has been changed
+     */
+    public boolean isEmpty() {
+        return recalcFts.isEmpty() && insertedIds.isEmpty();
+    }
+
+    /**
+     * @return the names of all changed feature types, never <code>null</code>
+     */
+    public Set<QName> getFeatureTypes() {
+        Set<QName> fts = new HashSet<QName>( recalcFts );
+        fts.addAll( insertedIds.keySet() );
+        return fts;
+    }
+
+    /**
+     * @param ft
+     *            name of a feature type, must not be <code>null</code>
+     * @return the ids of the inserted features if the feature type has only been inserted into, <code>null</code> if
+     *         it requires a full recalculation (an empty list if it has not been changed)
+     */
+    public List<String> getInsertedIds( QName ft ) {
+        if ( recalcFts.contains( ft ) ) {
+            return null;
+        }
+        List<String> ids = insertedIds.get( ft );
+        return ids == null ? Collections.<String> emptyList() : Collections.unmodifiableList( ids );
+    }
+
+    private void recalc( QName ft ) {
+        recalcFts.add( ft );
+        insertedIds.remove( ft );
+    }
+
+}
@@ -0,0 +1,55 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree
+ Copyright (C) 2001-2013 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+ and others
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ e-mail: info@deegree.org
+ website: http://www.deegree.org/
+----------------------------------------------------------------------------*/
+package org.deegree.feature.persistence;
+
+/**
+ * Listener interface for sending a notification that the features of a {@link FeatureStore} have been changed by a
+ * committed transaction.
+ * 
+ * @see FeatureStores#addChangeListener(FeatureStore, FeatureStoreChangeListener)
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ * 
+ * @since 3.4
+ */
+public interface FeatureStoreChangeListener {
+
+    /**
+     * Called after a transaction on the feature store has been committed. Implementations should return quickly, as
+     * this is invoked by the committing thread.
+     * 
+     * @param fs
+     *            the feature store whose features have changed, never <code>null</code>
+     * @param changes
+     *            the feature types changed by the transaction, never <code>null</code> or empty
+     */
+    void featuresChanged( FeatureStore fs, ChangeTracker changes );
+
+}
@@ -40,8 +40,16 @@
  ----------------------------------------------------------------------------*/
 package org.deegree.feature.persistence;
 
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import org.deegree.feature.types.FeatureType;
 import org.deegree.geometry.Envelope;
+import org.slf4j.Logger;
 
 /**
  * @author stranger
@@ -49,6 +57,11 @@ import org.deegree.geometry.Envelope;
  */
 public class FeatureStores {
 
+    private static final Logger LOG = getLogger( FeatureStores.class );
+
+    private static final Map<FeatureStore, List<FeatureStoreChangeListener>> listeners =
+                                                                                     new HashMap<FeatureStore, List<FeatureStoreChangeListener>>();
+
     /**
      * Ignores all errors, tries to aggregate all envelopes of all feature types.
      * 
@@ -80,4 +93,76 @@ public class FeatureStores {
         return env;
     }
 
+    /**
+     * Registers a listener that is notified whenever a transaction on the given feature store has been committed. The
+     * listener (and the feature store) stays referenced until it is removed with
+     * {@link #removeChangeListener(FeatureStore, FeatureStoreChangeListener)}, so it must be removed when it is
+     * destroyed.
+     * 
+     * @param fs
+     *            feature store to listen to, must not be <code>null</code>
+     * @param listener
+     *            listener to register, must not be <code>null</code>
+     */
+    public static void addChangeListener( FeatureStore fs, FeatureStoreChangeListener listener ) {
+        synchronized ( listeners ) {
+            List<FeatureStoreChangeListener> list = listeners.get( fs );
+            if ( list == null ) {
+                list = new CopyOnWriteArrayList<FeatureStoreChangeListener>();
+                listeners.put( fs, list );
+            }
+            list.add( listener );
+        }
+    }
+
+    /**
+     * Unregisters a listener, nothing happens if the listener has not been registered.
+     * 
+     * @param fs
+     *            feature store the listener has been registered for, must not be <code>null</code>
+     * @param listener
+     *            listener to unregister, must not be <code>null</code>
+     */
+    public static void removeChangeListener( FeatureStore fs, FeatureStoreChangeListener listener ) {
+        synchronized ( listeners ) {
+            List<FeatureStoreChangeListener> list = listeners.get( fs );
+            if ( list != null ) {
+                list.remove( listener );
+                if ( list.isEmpty() ) {
+                    listeners.remove( fs );
+                }
+            }
+        }
+    }
+
+    /**
+     * Notifies the registered listeners that the features of the given feature store have changed. To be called by
+     * transaction implementations after a successful commit. Errors of listeners are logged, but not propagated.
+     * 
+     * @param fs
+     *            feature store whose features have changed, must not be <code>null</code>
+     * @param changes
+     *            the changes of the committed transaction, must not be <code>null</code>
+     */
+    public static void fireFeaturesChanged( FeatureStore fs, ChangeTracker changes ) {
+        if ( changes.isEmpty() ) {
+            return;
+        }
+        List<FeatureStoreChangeListener> list;
+        synchronized ( listeners ) {
+            list = listeners.get( fs );
+        }
+        if ( list == null ) {
+            return;
+        }
+        for ( FeatureStoreChangeListener listener : list ) {
+            try {
+                listener.featuresChanged( fs, changes );
+            } catch ( Throwable e ) {
+                LOG.warn( "Feature store change listener failed: {}", e.getLocalizedMessage() );
+                LOG.trace( "Stack trace:", e );
+            }
+        }
+    }
+
 }
@@ -57,9 +57,11 @@ import org.deegree.cs.exceptions.UnknownCRSException;
 import org.deegree.feature.Feature;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.feature.GenericFeatureCollection;
+import org.deegree.feature.persistence.ChangeTracker;
 import org.deegree.feature.persistence.FeatureStore;
 import org.deegree.feature.persistence.FeatureStoreException;
 import org.deegree.feature.persistence.FeatureStoreTransaction;
+import org.deegree.feature.persistence.FeatureStores;
 import org.deegree.feature.persistence.lock.Lock;
 import org.deegree.feature.persistence.lock.LockManager;
 import org.deegree.feature.persistence.transaction.FeatureUpdater;
@@ -108,6 +110,8 @@ class MemoryFeatureStoreTransaction implements FeatureStoreTransaction {
 
     private final LockManager lockManager;
 
+    private final ChangeTracker changes = new ChangeTracker();
+
     /**
      * Creates a new {@link MemoryFeatureStoreTransaction} instance.
      *
@@ -133,6 +137,7 @@ class MemoryFeatureStoreTransaction implements FeatureStoreTransaction {
             throw new FeatureStoreException( e.getMessage() );
         }
         fs.releaseTransaction( this, sf );
+        FeatureStores.fireFeaturesChanged( fs, changes );
     }
 
     @Override
@@ -172,6 +177,7 @@ class MemoryFeatureStoreTransaction implements FeatureStoreTransaction {
                 deleted = delete.size();
                 for ( Feature feature : delete ) {
                     sf.removeFeature( feature );
+                    changes.delete( ftName );
                     if ( lock != null ) {
                         lock.release( feature.getId() );
                     }
@@ -208,6 +214,7 @@ class MemoryFeatureStoreTransaction implements FeatureStoreTransaction {
                 if ( obj instanceof Feature ) {
                     Feature f = (Feature) obj;
                     sf.removeFeature( f );
+                    changes.delete( f.getName() );
                     deleted++;
                 }
             }
@@ -247,6 +254,7 @@ class MemoryFeatureStoreTransaction implements FeatureStoreTransaction {
         begin = System.currentTimeMillis();
         for ( Feature feature : features ) {
             sf.addFeature( feature );
+            changes.insert( feature.getName(), feature.getId() );
         }
         elapsed = System.currentTimeMillis() - begin;
         LOG.debug( "Adding of features took {} [ms]", elapsed );
@@ -547,6 +555,7 @@ class MemoryFeatureStoreTransaction implements FeatureStoreTransaction {
                 }
 
                 for ( Feature feature : update ) {
+                    changes.update( ftName );
                     updatedFids.add( feature.getId() );
                     new FeatureUpdater().update( feature, replacementProps );
                     if ( lock != null ) {
@@ -38,6 +38,7 @@ package org.deegree.feature.persistence.sql;
 import static org.deegree.commons.xml.CommonNamespaces.OGCNS;
 import static org.deegree.commons.xml.CommonNamespaces.XLNNS;
 import static org.deegree.commons.xml.CommonNamespaces.XSINS;
+import static org.deegree.feature.persistence.query.Query.QueryHint.HINT_RESOLUTION;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.lang.reflect.Constructor;
@@ -54,6 +55,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 import javax.xml.namespace.QName;
 
@@ -61,6 +63,7 @@ import org.deegree.commons.annotations.LoggingNotes;
 import org.deegree.commons.jdbc.ResultSetIterator;
 import org.deegree.commons.jdbc.SQLIdentifier;
 import org.deegree.commons.jdbc.TableName;
+import org.deegree.commons.metrics.Metrics;
 import org.deegree.commons.tom.CombinedReferenceResolver;
 import org.deegree.commons.tom.TypedObjectNode;
 import org.deegree.commons.tom.gml.GMLObject;
@@ -74,6 +77,7 @@ import org.deegree.commons.utils.JDBCUtils;
 import org.deegree.commons.utils.Pair;
 import org.deegree.commons.utils.kvp.InvalidParameterValueException;
 import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.persistence.CRSManager;
 import org.deegree.db.ConnectionProvider;
 import org.deegree.db.ConnectionProviderProvider;
 import org.deegree.feature.Feature;
@@ -101,9 +105,12 @@ import org.deegree.feature.persistence.sql.id.IdAnalysis;
 import org.deegree.feature.persistence.sql.jaxb.CustomConverterJAXB;
 import org.deegree.feature.persistence.sql.jaxb.CustomInspector;
 import org.deegree.feature.persistence.sql.jaxb.SQLFeatureStoreJAXB;
+import org.deegree.feature.persistence.sql.jaxb.SQLFeatureStoreJAXB.GeometryGeneralization;
+import org.deegree.feature.persistence.sql.jaxb.StorageCRS;
 import org.deegree.feature.persistence.sql.rules.CompoundMapping;
 import org.deegree.feature.persistence.sql.rules.FeatureBuilderRelational;
 import org.deegree.feature.persistence.sql.rules.FeatureMapping;
+import org.deegree.feature.persistence.sql.rules.GeometryGeneralizer;
 import org.deegree.feature.persistence.sql.rules.GeometryMapping;
 import org.deegree.feature.persistence.sql.rules.Mapping;
 import org.deegree.feature.persistence.sql.rules.PrimitiveMapping;
@@ -162,6 +169,8 @@ public class SQLFeatureStore implements FeatureStore {
 
     private static final int DEFAULT_CACHE_SIZE = 10000;
 
+    private static final int DEFAULT_PLAN_CACHE_SIZE = 256;
+
     private final SQLFeatureStoreJAXB config;
 
     private final URL configURL;
@@ -180,6 +189,14 @@ public class SQLFeatureStore implements FeatureStore {
 
     private final FeatureStoreCache cache;
 
+    private final GeometryGeneralization generalization;
+
+    private final boolean allowDeferredIndexes;
+
+    private final SQLPlanCache planCache = new SQLPlanCache( DEFAULT_PLAN_CACHE_SIZE );
+
+    private SpatialCatalog spatialCatalog;
+
     private BBoxCache bboxCache;
 
     private GMLReferenceResolver resolver = new FeatureStoreGMLIdResolver( this );
@@ -228,6 +245,12 @@ public class SQLFeatureStore implements FeatureStore {
                                                                           : !dialect.requiresTransactionForCursorMode();
         LOG.debug( "Read auto commit: " + readAutoCommit );
 
+        generalization = config.getGeometryGeneralization();
+        LOG.debug( "Geometry generalization: " + ( generalization != null ) );
+
+        allowDeferredIndexes = config.getBulkLoad() != null && config.getBulkLoad().isAllowDeferredIndexes();
+        LOG.debug( "Deferred indexes in bulk load mode: " + allowDeferredIndexes );
+
         if ( config.getFeatureCache() != null ) {
             cache = new SimpleFeatureStoreCache( DEFAULT_CACHE_SIZE );
         } else {
@@ -387,6 +410,13 @@ public class SQLFeatureStore implements FeatureStore {
             // TODO what should be favored for hybrid mappings?
             if ( blobMapping != null ) {
                 env = calcEnvelope( ftName, blobMapping, conn );
+            } else if ( spatialCatalog != null && spatialCatalog.isIndexed( ftName ) ) {
+                try {
+                    env = spatialCatalog.calcEnvelope( conn, ftName );
+                } catch ( SQLException e ) {
+                    LOG.debug( e.getMessage(), e );
+                    throw new FeatureStoreException( e.getMessage(), e );
+                }
             } else if ( schema.getFtMapping( ft.getName() ) != null ) {
                 FeatureTypeMapping ftMapping = schema.getFtMapping( ft.getName() );
                 env = calcEnvelope( ftMapping, conn );
@@ -629,23 +659,28 @@ public class SQLFeatureStore implements FeatureStore {
 
         Filter filter = query.getFilter();
 
+        long start = System.nanoTime();
         int hits = 0;
-        if ( query.getTypeNames().length == 1 && ( filter == null || filter instanceof OperatorFilter ) ) {
-            QName ftName = query.getTypeNames()[0].getFeatureTypeName();
-            FeatureType ft = getSchema().getFeatureType( ftName );
-            if ( ft == null ) {
-                String msg = "Feature type '" + ftName + "' is not served by this feature store.";
-                throw new FeatureStoreException( msg );
-            }
-            hits = queryHitsByOperatorFilter( query, ftName, (OperatorFilter) filter );
-        } else {
-            // must be an id filter based query
-            if ( query.getFilter() == null || !( query.getFilter() instanceof IdFilter ) ) {
-                String msg = "Invalid query. If no type names are specified, it must contain an IdFilter.";
-                throw new FilterEvaluationException( msg );
+        try {
+            if ( query.getTypeNames().length == 1 && ( filter == null || filter instanceof OperatorFilter ) ) {
+                QName ftName = query.getTypeNames()[0].getFeatureTypeName();
+                FeatureType ft = getSchema().getFeatureType( ftName );
+                if ( ft == null ) {
+                    String msg = "Feature type '" + ftName + "' is not served by this feature store.";
+                    throw new FeatureStoreException( msg );
+                }
+                hits = queryHitsByOperatorFilter( query, ftName, (OperatorFilter) filter );
+            } else {
+                // must be an id filter based query
+                if ( query.getFilter() == null || !( query.getFilter() instanceof IdFilter ) ) {
+                    String msg = "Invalid query. If no type names are specified, it must contain an IdFilter.";
+                    throw new FilterEvaluationException( msg );
+                }
+                // should be no problem iterating over the features (id queries usually request only a few ids)
+                hits = queryByIdFilter( query.getTypeNames(), (IdFilter) filter, query.getSortProperties() ).count();
             }
-            // should be no problem iterating over the features (id queries usually request only a few ids)
-            hits = queryByIdFilter( query.getTypeNames(), (IdFilter) filter, query.getSortProperties() ).count();
+        } finally {
+            recordQueryTime( "hits", start );
         }
         return hits;
     }
@@ -890,25 +925,41 @@ public class SQLFeatureStore implements FeatureStore {
         FeatureInputStream result = null;
         Filter filter = query.getFilter();
 
-        if ( query.getTypeNames().length == 1 && ( filter == null || filter instanceof OperatorFilter ) ) {
-            QName ftName = query.getTypeNames()[0].getFeatureTypeName();
-            FeatureType ft = getSchema().getFeatureType( ftName );
-            if ( ft == null ) {
-                String msg = "Feature store is not configured to serve feature type '" + ftName + "'.";
-                throw new FeatureStoreException( msg );
-            }
-            result = queryByOperatorFilter( query, ftName, (OperatorFilter) filter );
-        } else {
-            // must be an id filter based query
-            if ( query.getFilter() == null || !( query.getFilter() instanceof IdFilter ) ) {
-                String msg = "Invalid query. If no type names are specified, it must contain an IdFilter.";
-                throw new FilterEvaluationException( msg );
+        long start = System.nanoTime();
+        try {
+            if ( query.getTypeNames().length == 1 && ( filter == null || filter instanceof OperatorFilter ) ) {
+                QName ftName = query.getTypeNames()[0].getFeatureTypeName();
+                FeatureType ft = getSchema().getFeatureType( ftName );
+                if ( ft == null ) {
+                    String msg = "Feature store is not configured to serve feature type '" + ftName + "'.";
+                    throw new FeatureStoreException( msg );
+                }
+                result = queryByOperatorFilter( query, ftName, (OperatorFilter) filter );
+            } else {
+                // must be an id filter based query
+                if ( query.getFilter() == null || !( query.getFilter() instanceof IdFilter ) ) {
+                    String msg = "Invalid query. If no type names are specified, it must contain an IdFilter.";
+                    throw new FilterEvaluationException( msg );
+                }
+                result = queryByIdFilter( query.getTypeNames(), (IdFilter) filter, query.getSortProperties() );
             }
-            result = queryByIdFilter( query.getTypeNames(), (IdFilter) filter, query.getSortProperties() );
+        } finally {
+            recordQueryTime( "query", start );
         }
         return result;
     }
 
+    /**
+     * Records the time spent in a query method, i.e. the time until the SQL has been executed and the first results
+     * are available (features are fetched lazily from the returned stream).
+     */
+    private void recordQueryTime( String operation, long startNanos ) {
+        String store = metadata == null ? "unknown" : metadata.getIdentifier().getId();
+        Metrics.getHistogram( "deegree_feature_store_query_duration_seconds",
+                              "Time until the results of a feature store query are available.", "store", store,
+                              "operation", operation ).recordSince( startNanos );
+    }
+
     @Override
     public FeatureInputStream query( final Query[] queries )
                             throws FeatureStoreException, FilterEvaluationException {
@@ -929,7 +980,17 @@ public class SQLFeatureStore implements FeatureStore {
         }
 
         if ( wmsStyleQuery ) {
-            return queryMultipleFts( queries, env );
+            long start = System.nanoTime();
+            try {
+                return queryMultipleFts( queries, env );
+            } finally {
+                recordQueryTime( "query", start );
+            }
+        }
+
+        final Query[] prefiltered = prefilterBySpatialCatalog( queries );
+        if ( prefiltered.length == 0 ) {
+            return new EmptyFeatureInputStream();
         }
 
         Iterator<FeatureInputStream> rsIter = new Iterator<FeatureInputStream>() {
@@ -937,7 +998,7 @@ public class SQLFeatureStore implements FeatureStore {
 
             @Override
             public boolean hasNext() {
-                return i < queries.length;
+                return i < prefiltered.length;
             }
 
             @Override
@@ -947,7 +1008,7 @@ public class SQLFeatureStore implements FeatureStore {
                 }
                 FeatureInputStream rs;
                 try {
-                    rs = query( queries[i++] );
+                    rs = query( prefiltered[i++] );
                 } catch ( InvalidParameterValueException e ){
                     throw e;
                 } catch ( Throwable e ) {
@@ -965,6 +1026,55 @@ public class SQLFeatureStore implements FeatureStore {
         return new CombinedFeatureInputStream( rsIter );
     }
 
+    /**
+     * Removes the queries that target feature types without features in the (common) prefilter bbox. Only applies if a
+     * {@link SpatialCatalog} is configured and all queries target a single feature type and share the same bbox.
+     */
+    private Query[] prefilterBySpatialCatalog( Query[] queries )
+                            throws FeatureStoreException {
+        if ( spatialCatalog == null || queries.length < 2 ) {
+            return queries;
+        }
+        BBOX bbox = queries[0].getPrefilterBBox();
+        if ( bbox == null ) {
+            return queries;
+        }
+        Envelope env = bbox.getBoundingBox();
+        for ( Query query : queries ) {
+            Envelope queryEnv = query.getPrefilterBBoxEnvelope();
+            if ( query.getTypeNames().length != 1 || queryEnv == null
+                 || ( queryEnv != env && !queryEnv.equals( env ) ) ) {
+                return queries;
+            }
+        }
+
+        List<QName> candidates = new ArrayList<QName>( queries.length );
+        for ( Query query : queries ) {
+            candidates.add( query.getTypeNames()[0].getFeatureTypeName() );
+        }
+        Set<QName> ftNames = null;
+        Connection conn = null;
+        try {
+            conn = getConnection();
+            ftNames = spatialCatalog.getFeatureTypes( conn, bbox, candidates );
+        } catch ( Exception e ) {
+            String msg = "Error querying spatial catalog: " + e.getMessage();
+            LOG.error( msg, e );
+            throw new FeatureStoreException( msg, e );
+        } finally {
+            release( null, null, conn );
+        }
+
+        List<Query> prefiltered = new ArrayList<Query>( queries.length );
+        for ( Query query : queries ) {
+            if ( ftNames.contains( query.getTypeNames()[0].getFeatureTypeName() ) ) {
+                prefiltered.add( query );
+            }
+        }
+        LOG.debug( "Spatial catalog prefilter: {} of {} queries remain.", prefiltered.size(), queries.length );
+        return prefiltered.toArray( new Query[prefiltered.size()] );
+    }
+
     private FeatureInputStream queryByIdFilter( TypeName[] typeNames, IdFilter filter, SortProperty[] sortCrit )
                             throws FeatureStoreException {
         if ( blobMapping != null ) {
@@ -1310,69 +1420,58 @@ public class SQLFeatureStore implements FeatureStore {
         try {
             conn = getConnection();
 
-            wb = getWhereBuilder( ft, filter, query.getSortProperties(), conn );
-            String ftTableAlias = wb.getAliasManager().getRootTableAlias();
-            LOG.debug( "WHERE clause: " + wb.getWhere() );
-            LOG.debug( "ORDER BY clause: " + wb.getOrderBy() );
-
-            FeatureBuilder builder = new FeatureBuilderRelational( this, ft, ftMapping, conn, ftTableAlias,
-                                                                   nullEscalation );
-            List<String> columns = builder.getInitialSelectList();
-
-            BlobMapping blobMapping = getSchema().getBlobMapping();
-
-            StringBuilder sql = new StringBuilder( "SELECT " );
-            sql.append( columns.get( 0 ) );
-            for ( int i = 1; i < columns.size(); i++ ) {
-                sql.append( ',' );
-                sql.append( columns.get( i ) );
+            FeatureBuilder builder = null;
+            List<Object> planKey = null;
+            SQLPlanCache.Plan plan = null;
+            BBOX planBBox = null;
+            if ( generalization == null || !generalization.isClip() ) {
+                // clip boxes are part of the select list, so plans would never be reused
+                planBBox = SQLPlanCache.getCacheableBBox( filter );
             }
-            sql.append( " FROM " );
-
-            // pure relational query
-            sql.append( ftMapping.getFtTable() );
-            sql.append( ' ' );
-            sql.append( ftTableAlias );
-
-            for ( PropertyNameMapping mappedPropName : wb.getMappedPropertyNames() ) {
-                for ( Join join : mappedPropName.getJoins() ) {
-                    sql.append( " LEFT OUTER JOIN " );
-                    sql.append( join.getToTable() );
-                    sql.append( ' ' );
-                    sql.append( join.getToTableAlias() );
-                    sql.append( " ON " );
-                    sql.append( join.getSQLJoinCondition() );
-                }
+            if ( planBBox != null ) {
+                String ftTableAlias = new TableAliasManager().getRootTableAlias();
+                builder = new FeatureBuilderRelational( this, ft, ftMapping, conn, ftTableAlias, nullEscalation,
+                                                        getGeneralizer( query, false ) );
+                List<String> columns = builder.getInitialSelectList();
+                planKey = SQLPlanCache.createKey( ftName, planBBox, query.getSortProperties(), columns );
+                plan = planCache.get( planKey, ftTableAlias );
             }
 
-            if ( wb.getWhere() != null ) {
-                if ( blobMapping != null ) {
-                    sql.append( " AND " );
-                } else {
-                    sql.append( " WHERE " );
+            String sql;
+            List<SQLArgument> args;
+            if ( plan != null ) {
+                LOG.debug( "Using cached SQL plan." );
+                sql = plan.getSql();
+                args = plan.bind( planBBox.getBoundingBox() );
+            } else {
+                wb = getWhereBuilder( ft, filter, query.getSortProperties(), conn );
+                LOG.debug( "WHERE clause: " + wb.getWhere() );
+                LOG.debug( "ORDER BY clause: " + wb.getOrderBy() );
+                builder = new FeatureBuilderRelational( this, ft, ftMapping, conn,
+                                                        wb.getAliasManager().getRootTableAlias(), nullEscalation,
+                                                        getGeneralizer( query, wb.getPostFilter() != null ) );
+                sql = buildRelationalSelect( ftMapping, wb, builder.getInitialSelectList() );
+                args = new ArrayList<SQLArgument>();
+                if ( wb.getWhere() != null ) {
+                    args.addAll( wb.getWhere().getArguments() );
+                }
+                if ( wb.getOrderBy() != null ) {
+                    args.addAll( wb.getOrderBy().getArguments() );
+                }
+                if ( planKey != null && wb.getPostFilter() == null && wb.getPostSortCriteria() == null ) {
+                    planCache.put( planKey, wb.getAliasManager().getRootTableAlias(), sql, args,
+                                   planBBox.getBoundingBox() );
                 }
-                sql.append( wb.getWhere().getSQL() );
-            }
-            if ( wb.getOrderBy() != null ) {
-                sql.append( " ORDER BY " );
-                sql.append( wb.getOrderBy().getSQL() );
             }
 
             LOG.debug( "SQL: {}", sql );
             long begin = System.currentTimeMillis();
-            stmt = conn.prepareStatement( sql.toString() );
+            stmt = conn.prepareStatement( sql );
             LOG.debug( "Preparing SELECT took {} [ms] ", System.currentTimeMillis() - begin );
 
             int i = 1;
-            if ( wb.getWhere() != null ) {
-                for ( SQLArgument o : wb.getWhere().getArguments() ) {
-                    o.setArgument( stmt, i++ );
-                }
-            }
-            if ( wb.getOrderBy() != null ) {
-                for ( SQLArgument o : wb.getOrderBy().getArguments() ) {
-                    o.setArgument( stmt, i++ );
-                }
+            for ( SQLArgument o : args ) {
+                o.setArgument( stmt, i++ );
             }
 
             begin = System.currentTimeMillis();
@@ -1393,17 +1492,75 @@ public class SQLFeatureStore implements FeatureStore {
             throw new FeatureStoreException( msg, e );
         }
 
-        if ( wb.getPostFilter() != null ) {
+        if ( wb != null && wb.getPostFilter() != null ) {
             LOG.debug( "Applying in-memory post-filtering." );
             result = new FilteredFeatureInputStream( result, wb.getPostFilter() );
         }
-        if ( wb.getPostSortCriteria() != null ) {
+        if ( wb != null && wb.getPostSortCriteria() != null ) {
             LOG.debug( "Applying in-memory post-sorting." );
             result = new MemoryFeatureInputStream( Features.sortFc( result.toCollection(), wb.getPostSortCriteria() ) );
         }
         return result;
     }
 
+    private String buildRelationalSelect( FeatureTypeMapping ftMapping, AbstractWhereBuilder wb,
+                                          List<String> columns ) {
+        String ftTableAlias = wb.getAliasManager().getRootTableAlias();
+        BlobMapping blobMapping = getSchema().getBlobMapping();
+
+        StringBuilder sql = new StringBuilder( "SELECT " );
+        sql.append( columns.get( 0 ) );
+        for ( int i = 1; i < columns.size(); i++ ) {
+            sql.append( ',' );
+            sql.append( columns.get( i ) );
+        }
+        sql.append( " FROM " );
+
+        // pure relational query
+        sql.append( ftMapping.getFtTable() );
+        sql.append( ' ' );
+        sql.append( ftTableAlias );
+
+        for ( PropertyNameMapping mappedPropName : wb.getMappedPropertyNames() ) {
+            for ( Join join : mappedPropName.getJoins() ) {
+                sql.append( " LEFT OUTER JOIN " );
+                sql.append( join.getToTable() );
+                sql.append( ' ' );
+                sql.append( join.getToTableAlias() );
+                sql.append( " ON " );
+                sql.append( join.getSQLJoinCondition() );
+            }
+        }
+
+        if ( wb.getWhere() != null ) {
+            if ( blobMapping != null ) {
+                sql.append( " AND " );
+            } else {
+                sql.append( " WHERE " );
+            }
+            sql.append( wb.getWhere().getSQL() );
+        }
+        if ( wb.getOrderBy() != null ) {
+            sql.append( " ORDER BY " );
+            sql.append( wb.getOrderBy().getSQL() );
+        }
+        return sql.toString();
+    }
+
+    private GeometryGeneralizer getGeneralizer( Query query, boolean postFiltering ) {
+        if ( generalization == null || postFiltering ) {
+            // post filters must be evaluated against the original geometries
+            return null;
+        }
+        Object resolution = query.getHint( HINT_RESOLUTION );
+        Envelope bbox = query.getPrefilterBBoxEnvelope();
+        if ( !( resolution instanceof Number ) || ( (Number) resolution ).doubleValue() <= 0 || bbox == null ) {
+            return null;
+        }
+        return new GeometryGeneralizer( bbox, ( (Number) resolution ).doubleValue(), generalization.getTolerance(),
+                                        generalization.isClip(), generalization.getClipBuffer() );
+    }
+
     private FeatureInputStream queryMultipleFts( Query[] queries, Envelope looseBBox )
                             throws FeatureStoreException {
         FeatureInputStream result = null;
@@ -1510,10 +1667,28 @@ public class SQLFeatureStore implements FeatureStore {
         return dialect.getWhereBuilder( mapper, filter, null, allowInMemoryFiltering );
     }
 
+    /**
+     * Returns whether bulk loads may drop the indexes of the target tables and recreate them on commit.
+     * 
+     * @return <code>true</code>, if enabled in the configuration, <code>false</code> otherwise
+     */
+    public boolean isDeferredIndexesAllowed() {
+        return allowDeferredIndexes;
+    }
+
     public SQLDialect getDialect() {
         return dialect;
     }
 
+    /**
+     * Returns the {@link SpatialCatalog} of this store.
+     *
+     * @return the spatial catalog, or <code>null</code> if none is configured
+     */
+    public SpatialCatalog getSpatialCatalog() {
+        return spatialCatalog;
+    }
+
     private class FeatureResultSetIterator extends ResultSetIterator<Feature> {
 
         private final FeatureBuilder builder;
@@ -1632,6 +1807,66 @@ public class SQLFeatureStore implements FeatureStore {
         } else {
             nullEscalation = config.isNullEscalation();
         }
+
+        initSpatialCatalog();
+    }
+
+    private void initSpatialCatalog() {
+        SQLFeatureStoreJAXB.SpatialCatalog catalogConfig = config.getSpatialCatalog();
+        if ( catalogConfig == null ) {
+            return;
+        }
+        if ( blobMapping != null ) {
+            LOG.warn( "Spatial catalog is only supported in relational mode. Ignoring it." );
+            return;
+        }
+        StorageCRS storageCRS = catalogConfig.getStorageCRS();
+        ICRS crs = CRSManager.getCRSRef( storageCRS.getValue() );
+        String srid = storageCRS.getSrid() != null ? storageCRS.getSrid().toString() : null;
+        spatialCatalog = new SpatialCatalog( catalogConfig.getTable(), crs, srid, dialect );
+        LOG.debug( "Spatial catalog: " + spatialCatalog.getTable() );
+        Connection conn = null;
+        try {
+            conn = connProvider.getConnection();
+            spatialCatalog.init( conn );
+        } catch ( Throwable t ) {
+            LOG.warn( "Unable to read spatial catalog, disabling it: " + t.getMessage() );
+            LOG.trace( "Stack trace:", t );
+            spatialCatalog = null;
+            return;
+        } finally {
+            JDBCUtils.close( conn );
+        }
+        if ( catalogConfig.isPopulateOnStartup() ) {
+            for ( FeatureTypeMapping ftMapping : schema.getFtMappings().values() ) {
+                if ( !spatialCatalog.isIndexed( ftMapping.getFeatureType() )
+                     && ftMapping.getDefaultGeometryMapping() != null ) {
+                    populateSpatialCatalog( ftMapping.getFeatureType() );
+                }
+            }
+        }
+    }
+
+    private void populateSpatialCatalog( QName ftName ) {
+        LOG.info( "Populating spatial catalog '" + spatialCatalog.getTable() + "' for feature type '" + ftName + "'." );
+        Connection conn = null;
+        FeatureInputStream rs = null;
+        try {
+            conn = connProvider.getConnection();
+            conn.setAutoCommit( false );
+            Query query = new Query( new TypeName[] { new TypeName( ftName, null ) }, null, null, null, null );
+            rs = queryByOperatorFilter( query, ftName, null );
+            spatialCatalog.populate( conn, ftName, rs.iterator(), fetchSize );
+        } catch ( Throwable t ) {
+            LOG.warn( "Unable to populate spatial catalog for feature type '" + ftName + "': " + t.getMessage() );
+            LOG.trace( "Stack trace:", t );
+            JDBCUtils.rollbackQuietly( conn );
+        } finally {
+            if ( rs != null ) {
+                rs.close();
+            }
+            JDBCUtils.close( conn );
+        }
     }
 
     public void checkIfFeatureTypIsRequested( TypeName[] typeNames, FeatureType ft ) {
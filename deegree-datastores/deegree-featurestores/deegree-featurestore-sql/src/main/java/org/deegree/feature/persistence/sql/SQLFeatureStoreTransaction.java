@@ -49,6 +49,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -77,10 +78,13 @@ import org.deegree.feature.Feature;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.feature.GenericFeatureCollection;
 import org.deegree.feature.persistence.BBoxTracker;
+import org.deegree.feature.persistence.BulkLoadTransaction;
+import org.deegree.feature.persistence.ChangeTracker;
 import org.deegree.feature.persistence.FeatureInspector;
 import org.deegree.feature.persistence.FeatureStore;
 import org.deegree.feature.persistence.FeatureStoreException;
 import org.deegree.feature.persistence.FeatureStoreTransaction;
+import org.deegree.feature.persistence.FeatureStores;
 import org.deegree.feature.persistence.lock.Lock;
 import org.deegree.feature.persistence.query.Query;
 import org.deegree.feature.persistence.sql.blob.BlobCodec;
@@ -112,6 +116,8 @@ import org.deegree.protocol.wfs.transaction.action.ParsedPropertyReplacement;
 import org.deegree.protocol.wfs.transaction.action.UpdateAction;
 import org.deegree.sqldialect.filter.DBField;
 import org.deegree.sqldialect.filter.MappingExpression;
+import org.deegree.sqldialect.postgis.PostGISCopyLoader;
+import org.deegree.sqldialect.postgis.PostGISDialect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -124,7 +130,7 @@ import org.slf4j.LoggerFactory;
  *
  * @version $Revision$, $Date$
  */
-public class SQLFeatureStoreTransaction implements FeatureStoreTransaction {
+public class SQLFeatureStoreTransaction implements BulkLoadTransaction {
 
     private static final Logger LOG = LoggerFactory.getLogger( SQLFeatureStoreTransaction.class );
 
@@ -140,9 +146,14 @@ public class SQLFeatureStoreTransaction implements FeatureStoreTransaction {
 
     private final BBoxTracker bboxTracker;
 
+    private final ChangeTracker changes = new ChangeTracker();
+
     // TODO
     private ParticleConverter<Geometry> blobGeomConverter;
 
+    // only set in bulk load mode
+    private PostGISCopyLoader copyLoader;
+
     /**
      * Creates a new {@link SQLFeatureStoreTransaction} instance.
      *
@@ -179,6 +190,9 @@ public class SQLFeatureStoreTransaction implements FeatureStoreTransaction {
 
         LOG.debug( "Committing transaction." );
         try {
+            if ( copyLoader != null ) {
+                copyLoader.close();
+            }
             conn.commit();
             updateBBoxCache();
         } catch ( Throwable t ) {
@@ -187,6 +201,7 @@ public class SQLFeatureStoreTransaction implements FeatureStoreTransaction {
         } finally {
             fs.closeAndDetachTransactionConnection();
         }
+        FeatureStores.fireFeaturesChanged( fs, changes );
     }
 
     private void updateBBoxCache()
@@ -215,8 +230,13 @@ public class SQLFeatureStoreTransaction implements FeatureStoreTransaction {
             }
 
             // TODO configuration switch for bbox recalculation strategy
-            if ( !recalcFTs.isEmpty() ) {
-                LOG.debug( "Full recalculation of feature type envelopes required. Delete 'bbox_cache.properties' if you need minimal envelopes." );
+            SpatialCatalog catalog = fs.getSpatialCatalog();
+            for ( QName ftName : recalcFTs ) {
+                if ( catalog != null && catalog.isIndexed( ftName ) ) {
+                    fs.calcEnvelope( ftName, conn );
+                } else {
+                    LOG.debug( "Full recalculation of feature type envelopes required. Delete 'bbox_cache.properties' if you need minimal envelopes." );
+                }
             }
 
             try {
@@ -246,6 +266,31 @@ public class SQLFeatureStoreTransaction implements FeatureStoreTransaction {
         return fs;
     }
 
+    @Override
+    public boolean enableBulkLoad( boolean deferIndexes )
+                            throws FeatureStoreException {
+        if ( copyLoader != null ) {
+            return true;
+        }
+        if ( blobMapping != null || !( fs.getDialect() instanceof PostGISDialect )
+             || !PostGISCopyLoader.isSupported( conn ) ) {
+            LOG.debug( "Bulk load mode is only available for PostGIS in relational mode." );
+            return false;
+        }
+        if ( deferIndexes && !fs.isDeferredIndexesAllowed() ) {
+            LOG.warn( "Deferred indexes are not enabled in the feature store configuration. Keeping indexes." );
+            deferIndexes = false;
+        }
+        try {
+            copyLoader = new PostGISCopyLoader( conn, deferIndexes );
+        } catch ( SQLException e ) {
+            LOG.debug( e.getMessage(), e );
+            throw new FeatureStoreException( "Unable to switch to bulk load mode: " + e.getMessage(), e );
+        }
+        LOG.debug( "Bulk load mode enabled (deferred indexes: " + deferIndexes + ")." );
+        return true;
+    }
+
     /**
      * Returns the underlying JDBC connection. Can be used for performing other operations in the same transaction
      * context.
@@ -276,6 +321,7 @@ public class SQLFeatureStoreTransaction implements FeatureStoreTransaction {
         // TODO improve this
         for ( FeatureType ft : schema.getFeatureTypes( null, false, false ) ) {
             bboxTracker.delete( ft.getName() );
+            changes.delete( ft.getName() );
         }
 
         return deleted;
@@ -316,6 +362,7 @@ public class SQLFeatureStoreTransaction implements FeatureStoreTransaction {
         checkIfFeaturesAreNotLocked( filter, lock );
         
         int deleted = 0;
+        List<String> deletedFids = new ArrayList<String>();
         for ( ResourceId id : filter.getSelectedIds() ) {
             LOG.debug( "Analyzing id: " + id.getRid() );
             IdAnalysis analysis = null;
@@ -329,10 +376,19 @@ public class SQLFeatureStoreTransaction implements FeatureStoreTransaction {
                     LOG.debug( "Depending on database to delete joined rows automatically." );
                 }
                 deleted += deleteFeatureRow( analysis );
+                deletedFids.add( id.getRid() );
             } catch ( IllegalArgumentException e ) {
                 throw new FeatureStoreException( "Unable to determine feature type for id '" + id + "'." );
             }
         }
+        if ( fs.getSpatialCatalog() != null ) {
+            try {
+                fs.getSpatialCatalog().delete( conn, deletedFids );
+            } catch ( SQLException e ) {
+                LOG.debug( e.getMessage(), e );
+                throw new FeatureStoreException( e.getMessage(), e );
+            }
+        }
         return deleted;
     }
 
@@ -638,6 +694,7 @@ public class SQLFeatureStoreTransaction implements FeatureStoreTransaction {
                     }
                     ICRS storageSrs = blobMapping.getCRS();
                     bboxTracker.insert( feature, storageSrs );
+                    changes.insert( feature.getName(), fid );
                 }
                 if ( blobInsertStmt != null ) {
                     blobInsertStmt.close();
@@ -645,7 +702,8 @@ public class SQLFeatureStoreTransaction implements FeatureStoreTransaction {
             } else {
                 // pure relational mode
                 List<FeatureRow> idAssignments = new ArrayList<FeatureRow>();
-                InsertRowManager insertManager = new InsertRowManager( fs, conn, mode );
+                List<Feature> insertedFeatures = new ArrayList<Feature>();
+                InsertRowManager insertManager = new InsertRowManager( fs, conn, mode, copyLoader );
                 for ( Feature feature : features ) {
                     FeatureTypeMapping ftMapping = fs.getMapping( feature.getName() );
                     if ( ftMapping == null ) {
@@ -654,6 +712,7 @@ public class SQLFeatureStoreTransaction implements FeatureStoreTransaction {
 //                                                         + "'. No mapping defined and BLOB mode is off." );
                     }
                     idAssignments.add( insertManager.insertFeature( feature, ftMapping ) );
+                    insertedFeatures.add( feature );
                     Pair<TableName, GeometryMapping> mapping = ftMapping.getDefaultGeometryMapping();
                     if ( mapping != null ) {
                         ICRS storageSrs = mapping.second.getCRS();
@@ -665,10 +724,21 @@ public class SQLFeatureStoreTransaction implements FeatureStoreTransaction {
                                  + " delayed rows left uninserted. Probably a cyclic key constraint blocks insertion.";
                     throw new RuntimeException( msg );
                 }
+                if ( copyLoader != null ) {
+                    copyLoader.flush();
+                }
                 // TODO why is this necessary?
                 fids.clear();
-                for ( FeatureRow assignment : idAssignments ) {
-                    fids.add( assignment.getNewId() );
+                for ( int i = 0; i < idAssignments.size(); i++ ) {
+                    fids.add( idAssignments.get( i ).getNewId() );
+                    changes.insert( insertedFeatures.get( i ).getName(), idAssignments.get( i ).getNewId() );
+                }
+                if ( fs.getSpatialCatalog() != null ) {
+                    Map<String, Feature> fidToFeature = new LinkedHashMap<String, Feature>();
+                    for ( int i = 0; i < idAssignments.size(); i++ ) {
+                        fidToFeature.put( idAssignments.get( i ).getNewId(), insertedFeatures.get( i ) );
+                    }
+                    fs.getSpatialCatalog().insert( conn, fidToFeature );
                 }
             }
         } catch ( Throwable t ) {
@@ -738,8 +808,12 @@ public class SQLFeatureStoreTransaction implements FeatureStoreTransaction {
             updatedFids = performUpdateBlob( ftName, replacementProps, filter, lock );
         } else {
             updatedFids = performUpdateRelational( ftName, replacementProps, filter );
+            if ( fs.getSpatialCatalog() != null ) {
+                updateSpatialCatalog( ftName, updatedFids );
+            }
         }
         bboxTracker.update( ftName );
+        changes.update( ftName );
         return updatedFids;
     }
 
@@ -1038,6 +1112,33 @@ public class SQLFeatureStoreTransaction implements FeatureStoreTransaction {
         }
     }
 
+    private void updateSpatialCatalog( QName ftName, List<String> fids )
+                            throws FeatureStoreException {
+        if ( fids == null || fids.isEmpty() ) {
+            return;
+        }
+        Map<String, Feature> fidToFeature = new LinkedHashMap<String, Feature>();
+        Query query = new Query( ftName, new IdFilter( fids ), -1, -1, -1 );
+        FeatureInputStream rs = null;
+        try {
+            rs = fs.query( query );
+            for ( Feature feature : rs ) {
+                fidToFeature.put( feature.getId(), feature );
+            }
+            fs.getSpatialCatalog().delete( conn, fids );
+            fs.getSpatialCatalog().insert( conn, fidToFeature );
+        } catch ( FilterEvaluationException e ) {
+            throw new FeatureStoreException( e );
+        } catch ( SQLException e ) {
+            LOG.debug( e.getMessage(), e );
+            throw new FeatureStoreException( e.getMessage(), e );
+        } finally {
+            if ( rs != null ) {
+                rs.close();
+            }
+        }
+    }
+
     private IdFilter getIdFilter( QName ftName, OperatorFilter filter )
                             throws FeatureStoreException {
         Set<String> ids = new HashSet<String>();
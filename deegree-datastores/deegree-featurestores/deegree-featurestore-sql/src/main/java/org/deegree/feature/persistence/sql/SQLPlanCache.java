@@ -0,0 +1,218 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.persistence.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.filter.OperatorFilter;
+import org.deegree.filter.sort.SortProperty;
+import org.deegree.filter.spatial.BBOX;
+import org.deegree.geometry.Envelope;
+import org.deegree.sqldialect.filter.expression.SQLArgument;
+
+/**
+ * Caches the SQL of relational queries whose filter consists of a single {@link BBOX} operator (e.g. map and tile
+ * requests), so subsequent queries of the same shape only need to bind the new bounding box.
+ * <p>
+ * A plan is only cached if it can be rebound safely: every spatial argument of the statement must be the bounding box
+ * literal itself (the conversion to the storage CRS is performed by the argument converter on binding), and no
+ * in-memory post-processing must be necessary.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class SQLPlanCache {
+
+    private final Map<List<Object>, Plan> plans;
+
+    /**
+     * Creates a new {@link SQLPlanCache} instance.
+     * 
+     * @param maxSize
+     *            maximum number of cached plans, least recently used plans are evicted first
+     */
+    SQLPlanCache( final int maxSize ) {
+        plans = new LinkedHashMap<List<Object>, Plan>( 16, 0.75f, true ) {
+
+            private static final long serialVersionUID = 7232145283715127449L;
+
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<List<Object>, Plan> eldest ) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the bounding box operator if the given filter has a cacheable shape.
+     * 
+     * @param filter
+     *            filter, can be <code>null</code>
+     * @return bounding box operator, or <code>null</code> if the filter is not cacheable
+     */
+    static BBOX getCacheableBBox( OperatorFilter filter ) {
+        if ( filter != null && filter.getOperator() instanceof BBOX ) {
+            return (BBOX) filter.getOperator();
+        }
+        return null;
+    }
+
+    /**
+     * Creates the cache key for a query.
+     * 
+     * @param ftName
+     *            name of the queried feature type, must not be <code>null</code>
+     * @param bbox
+     *            bounding box operator, must not be <code>null</code>
+     * @param sortCrit
+     *            sort criteria, must not be <code>null</code>
+     * @param columns
+     *            select list, must not be <code>null</code>
+     * @return key, never <code>null</code>
+     */
+    static List<Object> createKey( QName ftName, BBOX bbox, SortProperty[] sortCrit, List<String> columns ) {
+        List<Object> key = new ArrayList<Object>( 5 + sortCrit.length );
+        key.add( ftName );
+        key.add( bbox.getPropName() == null ? null : bbox.getPropName().getAsText() );
+        key.add( bbox.getAllowFalsePositives() );
+        Envelope env = bbox.getBoundingBox();
+        key.add( env.getCoordinateSystem() == null ? null : env.getCoordinateSystem().getAlias() );
+        for ( SortProperty sortProp : sortCrit ) {
+            key.add( sortProp.getSortProperty().getAsText() + ( sortProp.getSortOrder() ? " ASC" : " DESC" ) );
+        }
+        key.add( columns );
+        return key;
+    }
+
+    /**
+     * Returns the cached plan for a query.
+     * 
+     * @param key
+     *            key as returned by {@link #createKey(QName, BBOX, SortProperty[], List)}, must not be
+     *            <code>null</code>
+     * @param rootTableAlias
+     *            alias of the feature type table that the select list of the query refers to, must not be
+     *            <code>null</code>
+     * @return cached plan, or <code>null</code> if there is none or it uses a different root table alias
+     */
+    synchronized Plan get( List<Object> key, String rootTableAlias ) {
+        Plan plan = plans.get( key );
+        if ( plan != null && !plan.rootTableAlias.equals( rootTableAlias ) ) {
+            return null;
+        }
+        return plan;
+    }
+
+    /**
+     * Caches the given statement, if it can be rebound to other bounding boxes.
+     * 
+     * @param key
+     *            key as returned by {@link #createKey(QName, BBOX, SortProperty[], List)}, must not be
+     *            <code>null</code>
+     * @param rootTableAlias
+     *            alias of the feature type table used by the where builder, must not be <code>null</code>
+     * @param sql
+     *            statement, must not be <code>null</code>
+     * @param args
+     *            statement arguments (in order), must not be <code>null</code>
+     * @param env
+     *            bounding box literal that the statement has been created for, must not be <code>null</code>
+     */
+    void put( List<Object> key, String rootTableAlias, String sql, List<SQLArgument> args, Envelope env ) {
+        boolean[] bboxArgs = new boolean[args.size()];
+        for ( int i = 0; i < bboxArgs.length; i++ ) {
+            SQLArgument arg = args.get( i );
+            if ( arg.getValue() == env ) {
+                bboxArgs[i] = true;
+            } else if ( arg.isSpatial() ) {
+                // literal has been modified by the where builder, cannot rebind
+                return;
+            }
+        }
+        Plan plan = new Plan( rootTableAlias, sql, new ArrayList<SQLArgument>( args ), bboxArgs );
+        synchronized ( this ) {
+            plans.put( key, plan );
+        }
+    }
+
+    /**
+     * Cached SQL statement of a query shape.
+     */
+    static class Plan {
+
+        private final String rootTableAlias;
+
+        private final String sql;
+
+        private final List<SQLArgument> args;
+
+        private final boolean[] bboxArgs;
+
+        private Plan( String rootTableAlias, String sql, List<SQLArgument> args, boolean[] bboxArgs ) {
+            this.rootTableAlias = rootTableAlias;
+            this.sql = sql;
+            this.args = args;
+            this.bboxArgs = bboxArgs;
+        }
+
+        String getSql() {
+            return sql;
+        }
+
+        /**
+         * Returns the statement arguments for the given bounding box.
+         * 
+         * @param env
+         *            bounding box, must not be <code>null</code>
+         * @return arguments (in order), never <code>null</code>
+         */
+        List<SQLArgument> bind( Envelope env ) {
+            SQLArgument[] bound = new SQLArgument[bboxArgs.length];
+            for ( int i = 0; i < bound.length; i++ ) {
+                bound[i] = bboxArgs[i] ? args.get( i ).withGeometry( env ) : args.get( i );
+            }
+            return Arrays.asList( bound );
+        }
+    }
+}
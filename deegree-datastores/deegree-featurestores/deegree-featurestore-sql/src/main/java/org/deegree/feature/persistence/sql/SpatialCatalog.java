@@ -0,0 +1,425 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.persistence.sql;
+
+import static org.deegree.commons.utils.JDBCUtils.close;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.jdbc.TableName;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.feature.Feature;
+import org.deegree.filter.FilterEvaluationException;
+import org.deegree.filter.OperatorFilter;
+import org.deegree.filter.expression.ValueReference;
+import org.deegree.filter.spatial.BBOX;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.Geometries;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.utils.GeometryParticleConverter;
+import org.deegree.sqldialect.SQLDialect;
+import org.deegree.sqldialect.filter.AbstractWhereBuilder;
+import org.deegree.sqldialect.filter.PropertyNameMapper;
+import org.deegree.sqldialect.filter.PropertyNameMapping;
+import org.deegree.sqldialect.filter.TableAliasManager;
+import org.deegree.sqldialect.filter.UnmappableException;
+import org.deegree.sqldialect.filter.expression.SQLArgument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Table that stores the bounding box of every feature of a relational {@link SQLFeatureStore}.
+ * <p>
+ * The catalog is maintained by {@link SQLFeatureStoreTransaction} and allows to determine the feature types that have
+ * features in a given bbox (using a single indexed query) as well as to recalculate feature type envelopes without
+ * scanning the feature tables. Expected columns: <code>gml_id</code> (primary key), <code>ft_type</code>,
+ * <code>bbox</code> (spatially indexed) and <code>updated</code>.
+ * </p>
+ * <p>
+ * Only <i>indexed</i> feature types are tracked by the catalog: types that had catalog rows on startup or that have
+ * been {@link #populate(Connection, QName, Iterator, int) populated} since. For all other types, a missing row does not
+ * mean that there is no feature, so they are always considered to match.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class SpatialCatalog {
+
+    private static final Logger LOG = LoggerFactory.getLogger( SpatialCatalog.class );
+
+    private static final String GML_ID_COLUMN = "gml_id";
+
+    private static final String TYPE_COLUMN = "ft_type";
+
+    private static final String BBOX_COLUMN = "bbox";
+
+    private static final String UPDATED_COLUMN = "updated";
+
+    private final TableName table;
+
+    private final ICRS crs;
+
+    private final SQLDialect dialect;
+
+    private final GeometryParticleConverter converter;
+
+    private final Set<QName> indexedFts = Collections.newSetFromMap( new ConcurrentHashMap<QName, Boolean>() );
+
+    /**
+     * Creates a new {@link SpatialCatalog} instance.
+     * 
+     * @param table
+     *            name of the catalog table, must not be <code>null</code>
+     * @param crs
+     *            crs used for storing the bboxes, must not be <code>null</code>
+     * @param srid
+     *            database srid of the bbox column, may be <code>null</code> (undefined srid)
+     * @param dialect
+     *            sql dialect of the database, must not be <code>null</code>
+     */
+    public SpatialCatalog( String table, ICRS crs, String srid, SQLDialect dialect ) {
+        this.table = new TableName( table );
+        this.crs = crs;
+        this.dialect = dialect;
+        String storageSrid = srid != null ? srid : dialect.getUndefinedSrid();
+        this.converter = dialect.getGeometryConverter( BBOX_COLUMN, crs, storageSrid, true );
+    }
+
+    /**
+     * Returns the table that stores the bboxes.
+     * 
+     * @return the table, never <code>null</code>
+     */
+    public TableName getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the crs used for storing the bboxes.
+     * 
+     * @return the crs, never <code>null</code>
+     */
+    public ICRS getCRS() {
+        return crs;
+    }
+
+    /**
+     * Determines the indexed feature types, i.e. the types that already have catalog rows.
+     * 
+     * @param conn
+     *            connection to use, must not be <code>null</code>
+     * @throws SQLException
+     */
+    public void init( Connection conn )
+                            throws SQLException {
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conn.prepareStatement( "SELECT DISTINCT " + TYPE_COLUMN + " FROM " + table );
+            rs = stmt.executeQuery();
+            while ( rs.next() ) {
+                indexedFts.add( QName.valueOf( rs.getString( 1 ) ) );
+            }
+        } finally {
+            close( rs, stmt, null, LOG );
+        }
+        LOG.debug( "Indexed feature types in spatial catalog: " + indexedFts );
+    }
+
+    /**
+     * Returns whether the catalog contains the rows of all features of the given feature type.
+     * 
+     * @param ftName
+     *            name of the feature type, must not be <code>null</code>
+     * @return <code>true</code>, if the feature type is indexed, <code>false</code> otherwise
+     */
+    public boolean isIndexed( QName ftName ) {
+        return indexedFts.contains( ftName );
+    }
+
+    /**
+     * Inserts catalog rows for all features of a feature type that is not indexed yet and commits the connection.
+     * Afterwards, the feature type is indexed.
+     * 
+     * @param conn
+     *            connection to use (autocommit must be off), must not be <code>null</code>
+     * @param ftName
+     *            name of the feature type, must not be <code>null</code>
+     * @param features
+     *            all features of the feature type, must not be <code>null</code>
+     * @param batchSize
+     *            number of rows to insert per batch
+     * @throws SQLException
+     */
+    public void populate( Connection conn, QName ftName, Iterator<Feature> features, int batchSize )
+                            throws SQLException {
+        Map<String, Feature> fidToFeature = new LinkedHashMap<String, Feature>();
+        while ( features.hasNext() ) {
+            Feature feature = features.next();
+            fidToFeature.put( feature.getId(), feature );
+            if ( fidToFeature.size() >= batchSize ) {
+                insertRows( conn, fidToFeature.entrySet() );
+                fidToFeature.clear();
+            }
+        }
+        insertRows( conn, fidToFeature.entrySet() );
+        conn.commit();
+        indexedFts.add( ftName );
+    }
+
+    /**
+     * Inserts catalog rows for the given features. Features without envelope and features of types that are not
+     * indexed are skipped.
+     * 
+     * @param conn
+     *            connection to use, must not be <code>null</code>
+     * @param fidToFeature
+     *            features to insert (keys are the final gml ids), must not be <code>null</code>
+     * @throws SQLException
+     */
+    public void insert( Connection conn, Map<String, Feature> fidToFeature )
+                            throws SQLException {
+        List<Entry<String, Feature>> rows = new ArrayList<Entry<String, Feature>>( fidToFeature.size() );
+        for ( Entry<String, Feature> fidAndFeature : fidToFeature.entrySet() ) {
+            if ( isIndexed( fidAndFeature.getValue().getName() ) ) {
+                rows.add( fidAndFeature );
+            }
+        }
+        insertRows( conn, rows );
+    }
+
+    private void insertRows( Connection conn, Collection<Entry<String, Feature>> fidsAndFeatures )
+                            throws SQLException {
+        if ( fidsAndFeatures.isEmpty() ) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder( "INSERT INTO " );
+        sql.append( table );
+        sql.append( " (" ).append( GML_ID_COLUMN );
+        sql.append( ',' ).append( TYPE_COLUMN );
+        sql.append( ',' ).append( BBOX_COLUMN );
+        sql.append( ',' ).append( UPDATED_COLUMN );
+        sql.append( ") VALUES (?,?," );
+        sql.append( converter.getSetSnippet( null ) );
+        sql.append( ",CURRENT_TIMESTAMP)" );
+        LOG.debug( "Spatial catalog insert: " + sql );
+
+        PreparedStatement stmt = null;
+        try {
+            stmt = conn.prepareStatement( sql.toString() );
+            int rows = 0;
+            for ( Entry<String, Feature> fidAndFeature : fidsAndFeatures ) {
+                Geometry bbox = getEnvelopeAsGeometry( fidAndFeature.getValue() );
+                if ( bbox == null ) {
+                    continue;
+                }
+                stmt.setString( 1, fidAndFeature.getKey() );
+                stmt.setString( 2, fidAndFeature.getValue().getName().toString() );
+                converter.setParticle( stmt, bbox, 3 );
+                stmt.addBatch();
+                rows++;
+            }
+            if ( rows > 0 ) {
+                stmt.executeBatch();
+            }
+        } finally {
+            close( null, stmt, null, LOG );
+        }
+    }
+
+    /**
+     * Deletes the catalog rows of the given features.
+     * 
+     * @param conn
+     *            connection to use, must not be <code>null</code>
+     * @param fids
+     *            gml ids of the features, must not be <code>null</code>
+     * @throws SQLException
+     */
+    public void delete( Connection conn, Collection<String> fids )
+                            throws SQLException {
+        if ( fids.isEmpty() ) {
+            return;
+        }
+        PreparedStatement stmt = null;
+        try {
+            stmt = conn.prepareStatement( "DELETE FROM " + table + " WHERE " + GML_ID_COLUMN + "=?" );
+            for ( String fid : fids ) {
+                stmt.setString( 1, fid );
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } finally {
+            close( null, stmt, null, LOG );
+        }
+    }
+
+    /**
+     * Returns the feature types that may have features which interact with the given bbox. These are the indexed types
+     * with at least one catalog hit and all types that are not indexed.
+     * 
+     * @param conn
+     *            connection to use, must not be <code>null</code>
+     * @param bbox
+     *            bbox operator, must not be <code>null</code>
+     * @param ftNames
+     *            names of the candidate feature types, must not be <code>null</code>
+     * @return names of the feature types (subset of the candidates), never <code>null</code>
+     * @throws SQLException
+     * @throws FilterEvaluationException
+     * @throws UnmappableException
+     */
+    public Set<QName> getFeatureTypes( Connection conn, BBOX bbox, Collection<QName> ftNames )
+                            throws SQLException, FilterEvaluationException, UnmappableException {
+        Set<QName> result = new HashSet<QName>();
+        for ( QName ftName : ftNames ) {
+            if ( !isIndexed( ftName ) ) {
+                result.add( ftName );
+            }
+        }
+        if ( result.size() < ftNames.size() ) {
+            for ( QName ftName : getFeatureTypes( conn, bbox ) ) {
+                if ( ftNames.contains( ftName ) ) {
+                    result.add( ftName );
+                }
+            }
+        }
+        return result;
+    }
+
+    private Set<QName> getFeatureTypes( Connection conn, BBOX bbox )
+                            throws SQLException, FilterEvaluationException, UnmappableException {
+        PropertyNameMapper mapper = new PropertyNameMapper() {
+            @Override
+            public PropertyNameMapping getMapping( ValueReference propName, TableAliasManager aliasManager )
+                                    throws FilterEvaluationException, UnmappableException {
+                return new PropertyNameMapping( converter, null, BBOX_COLUMN, aliasManager.getRootTableAlias() );
+            }
+
+            @Override
+            public PropertyNameMapping getSpatialMapping( ValueReference propName, TableAliasManager aliasManager )
+                                    throws FilterEvaluationException, UnmappableException {
+                return getMapping( propName, aliasManager );
+            }
+        };
+        AbstractWhereBuilder wb = dialect.getWhereBuilder( mapper, new OperatorFilter( bbox ), null, false );
+        String alias = wb.getAliasManager().getRootTableAlias();
+
+        StringBuilder sql = new StringBuilder( "SELECT DISTINCT " );
+        sql.append( alias ).append( '.' ).append( TYPE_COLUMN );
+        sql.append( " FROM " ).append( table ).append( ' ' ).append( alias );
+        sql.append( " WHERE " ).append( wb.getWhere().getSQL() );
+        LOG.debug( "Spatial catalog query: " + sql );
+
+        Set<QName> ftNames = new HashSet<QName>();
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conn.prepareStatement( sql.toString() );
+            int i = 1;
+            for ( SQLArgument arg : wb.getWhere().getArguments() ) {
+                arg.setArgument( stmt, i++ );
+            }
+            rs = stmt.executeQuery();
+            while ( rs.next() ) {
+                ftNames.add( QName.valueOf( rs.getString( 1 ) ) );
+            }
+        } finally {
+            close( rs, stmt, null, LOG );
+        }
+        return ftNames;
+    }
+
+    /**
+     * Calculates the envelope of all features of the given feature type.
+     * 
+     * @param conn
+     *            connection to use, must not be <code>null</code>
+     * @param ftName
+     *            name of the feature type, must not be <code>null</code>
+     * @return the envelope, or <code>null</code> if there are no features of the type
+     * @throws SQLException
+     */
+    public Envelope calcEnvelope( Connection conn, QName ftName )
+                            throws SQLException {
+        StringBuilder sql = new StringBuilder( "SELECT " );
+        sql.append( dialect.getBBoxAggregateSnippet( BBOX_COLUMN ) );
+        sql.append( " FROM " ).append( table );
+        sql.append( " WHERE " ).append( TYPE_COLUMN ).append( "=?" );
+
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conn.prepareStatement( sql.toString() );
+            stmt.setString( 1, ftName.toString() );
+            rs = stmt.executeQuery();
+            rs.next();
+            return dialect.getBBoxAggregateValue( rs, 1, crs );
+        } finally {
+            close( rs, stmt, null, LOG );
+        }
+    }
+
+    private Geometry getEnvelopeAsGeometry( Feature feature ) {
+        try {
+            Envelope env = feature.getEnvelope();
+            if ( env != null ) {
+                return Geometries.getAsGeometry( env );
+            }
+        } catch ( Exception e ) {
+            LOG.warn( "Unable to determine bbox of feature with id '" + feature.getId() + "': " + e.getMessage() );
+        }
+        return null;
+    }
+}
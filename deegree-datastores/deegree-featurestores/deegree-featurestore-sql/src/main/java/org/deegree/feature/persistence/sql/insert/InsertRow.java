@@ -40,16 +40,21 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.regex.Pattern;
 
 import org.deegree.commons.jdbc.SQLIdentifier;
+import org.deegree.commons.jdbc.TableName;
 import org.deegree.commons.jdbc.TransactionRow;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
 import org.deegree.commons.tom.sql.ParticleConversion;
 import org.deegree.commons.utils.JDBCUtils;
 import org.deegree.feature.persistence.FeatureStoreException;
@@ -57,6 +62,7 @@ import org.deegree.feature.persistence.sql.id.AutoIDGenerator;
 import org.deegree.feature.persistence.sql.id.IDGenerator;
 import org.deegree.feature.persistence.sql.id.SequenceIDGenerator;
 import org.deegree.feature.persistence.sql.id.UUIDGenerator;
+import org.deegree.sqldialect.postgis.PostGISCopyLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -72,11 +78,16 @@ public abstract class InsertRow extends TransactionRow {
 
     private static Logger LOG = LoggerFactory.getLogger( InsertRow.class );
 
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile( "-?\\d+(\\.\\d+)?" );
+
     protected final InsertRowManager mgr;
 
     // parent rows
     private final Map<InsertRow, ParentRowReference> parentToRef = new HashMap<InsertRow, ParentRowReference>();
 
+    // tables of the parent rows that have been inserted already
+    private final Set<TableName> parentTables = new HashSet<TableName>();
+
     protected InsertRow( InsertRowManager mgr ) {
         super( null );
         this.mgr = mgr;
@@ -114,6 +125,14 @@ public abstract class InsertRow extends TransactionRow {
 
     private int getSequenceNextVal( String sequenceName )
                             throws FeatureStoreException {
+        if ( mgr.getCopyLoader() != null ) {
+            try {
+                return (int) mgr.getCopyLoader().getSequenceNextVal( sequenceName );
+            } catch ( SQLException e ) {
+                String msg = "Error determining ID from db sequence '" + sequenceName + "': " + e.getMessage();
+                throw new FeatureStoreException( msg, e );
+            }
+        }
         String sql = mgr.getDialect().getSelectSequenceNextVal( sequenceName );
         Statement stmt = null;
         ResultSet rs = null;
@@ -164,6 +183,7 @@ public abstract class InsertRow extends TransactionRow {
         }
 
         parentToRef.remove( parent );
+        parentTables.add( parent.getTable() );
     }
 
     /**
@@ -194,10 +214,20 @@ public abstract class InsertRow extends TransactionRow {
             LOG.debug( "Inserting row: " + this );
         }
 
+        Set<SQLIdentifier> autoGenColumns = getAutogenColumns( propagateNonFidAutoGenColumns );
+
+        PostGISCopyLoader copyLoader = mgr.getCopyLoader();
+        if ( copyLoader != null ) {
+            if ( performCopy( copyLoader, autoGenColumns ) ) {
+                return;
+            }
+            // row needs to be inserted right away, so parent rows must not be buffered anymore
+            copyLoader.flush();
+        }
+
         String sql = getSql();
         PreparedStatement stmt = null;
 
-        Set<SQLIdentifier> autoGenColumns = getAutogenColumns( propagateNonFidAutoGenColumns );
         if ( autoGenColumns.isEmpty() ) {
             stmt = conn.prepareStatement( sql );
         } else {
@@ -253,6 +283,50 @@ public abstract class InsertRow extends TransactionRow {
         stmt.close();
     }
 
+    /**
+     * Hands this row to the given {@link PostGISCopyLoader}, if possible. This requires that the values of all auto
+     * generated columns are known already (i.e. they are not generated by the DB on insert) and that all values can be
+     * encoded for <code>COPY</code>.
+     * 
+     * @return <code>true</code>, if the row has been handed to the loader, <code>false</code> otherwise
+     */
+    private boolean performCopy( PostGISCopyLoader copyLoader, Set<SQLIdentifier> autoGenColumns )
+                            throws SQLException {
+        for ( SQLIdentifier autoGenColumn : autoGenColumns ) {
+            if ( columnToObject.get( autoGenColumn ) == null ) {
+                return false;
+            }
+        }
+        List<SQLIdentifier> columns = new ArrayList<SQLIdentifier>( columnToLiteral.size() );
+        List<Object> values = new ArrayList<Object>( columnToLiteral.size() );
+        for ( Entry<SQLIdentifier, String> entry : columnToLiteral.entrySet() ) {
+            Object value = entry.getValue();
+            if ( columnToObject.containsKey( entry.getKey() ) ) {
+                value = columnToObject.get( entry.getKey() );
+                boolean converted = value instanceof ParticleConversion<?>;
+                if ( !( converted || "?".equals( entry.getValue() ) ) || !copyLoader.isCopyable( value ) ) {
+                    return false;
+                }
+            } else if ( !NUMERIC_LITERAL.matcher( entry.getValue() ).matches() ) {
+                return false;
+            }
+            columns.add( entry.getKey() );
+            values.add( value );
+        }
+        copyLoader.addRow( table, columns, values, parentTables );
+
+        // no generated keys are returned, so provide the plain values (as for a JDBC insert)
+        for ( SQLIdentifier autoGenColumn : autoGenColumns ) {
+            Object value = columnToObject.get( autoGenColumn );
+            if ( value instanceof ParticleConversion<?>
+                 && ( (ParticleConversion<?>) value ).getParticle() instanceof PrimitiveValue ) {
+                columnToObject.put( autoGenColumn,
+                                    ( (PrimitiveValue) ( (ParticleConversion<?>) value ).getParticle() ).getValue() );
+            }
+        }
+        return true;
+    }
+
     protected Set<SQLIdentifier> getAutogenColumns( boolean propagateNonFidAutoGenColumns ) {
         Set<SQLIdentifier> cols = new LinkedHashSet<SQLIdentifier>();
         if ( propagateNonFidAutoGenColumns ) {
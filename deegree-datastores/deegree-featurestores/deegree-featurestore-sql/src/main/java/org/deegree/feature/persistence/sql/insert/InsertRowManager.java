@@ -81,6 +81,7 @@ import org.deegree.protocol.wfs.transaction.action.ParsedPropertyReplacement;
 import org.deegree.sqldialect.SQLDialect;
 import org.deegree.sqldialect.filter.DBField;
 import org.deegree.sqldialect.filter.MappingExpression;
+import org.deegree.sqldialect.postgis.PostGISCopyLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -114,6 +115,8 @@ public class InsertRowManager {
 
     private final TableDependencies tableDeps;
 
+    private final PostGISCopyLoader copyLoader;
+
     // key: original feature id (from Feature or FeatureReference), value: feature row
     private final Map<String, FeatureRow> origFidToFeatureRow = new HashMap<String, FeatureRow>();
 
@@ -137,11 +140,28 @@ public class InsertRowManager {
      *            feature id generation mode, must not be <code>null</code>
      */
     public InsertRowManager( SQLFeatureStore fs, Connection conn, IDGenMode idGenMode ) {
+        this( fs, conn, idGenMode, null );
+    }
+
+    /**
+     * Creates a new {@link InsertRowManager} instance that hands rows to a {@link PostGISCopyLoader} (bulk load mode).
+     * 
+     * @param fs
+     *            feature store, must not be <code>null</code>
+     * @param conn
+     *            connection, must not be <code>null</code>
+     * @param idGenMode
+     *            feature id generation mode, must not be <code>null</code>
+     * @param copyLoader
+     *            loader for rows that can be copied, may be <code>null</code> (insert every row via JDBC)
+     */
+    public InsertRowManager( SQLFeatureStore fs, Connection conn, IDGenMode idGenMode, PostGISCopyLoader copyLoader ) {
         this.fs = fs;
         this.dialect = fs.getDialect();
         this.conn = conn;
         this.idGenMode = idGenMode;
         this.tableDeps = fs.getSchema().getKeyDependencies();
+        this.copyLoader = copyLoader;
     }
 
     /**
@@ -252,6 +272,10 @@ public class InsertRowManager {
         return conn;
     }
 
+    PostGISCopyLoader getCopyLoader() {
+        return copyLoader;
+    }
+
     IDGenMode getIdGenMode() {
         return idGenMode;
     }
@@ -96,6 +96,7 @@ import org.deegree.geometry.primitive.LineString;
 import org.deegree.geometry.primitive.Polygon;
 import org.deegree.geometry.primitive.patches.SurfacePatch;
 import org.deegree.geometry.primitive.segments.CurveSegment;
+import org.deegree.geometry.utils.GeometryParticleConverter;
 import org.deegree.gml.GMLInputFactory;
 import org.deegree.gml.GMLOutputFactory;
 import org.deegree.gml.GMLStreamReader;
@@ -147,6 +148,8 @@ public class FeatureBuilderRelational implements FeatureBuilder {
 
     private final boolean nullEscalation;
 
+    private final GeometryGeneralizer generalizer;
+
     /**
      * Creates a new {@link FeatureBuilderRelational} instance.
      * 
@@ -163,12 +166,38 @@ public class FeatureBuilderRelational implements FeatureBuilder {
      */
     public FeatureBuilderRelational( SQLFeatureStore fs, FeatureType ft, FeatureTypeMapping ftMapping, Connection conn,
                                      String ftTableAlias, boolean nullEscalation ) {
+        this( fs, ft, ftMapping, conn, ftTableAlias, nullEscalation, null );
+    }
+
+    /**
+     * Creates a new {@link FeatureBuilderRelational} instance that selects generalized geometries.
+     * <p>
+     * Features built with a generalizer don't use the feature cache of the store, as their geometries are not
+     * complete.
+     * </p>
+     * 
+     * @param fs
+     *            feature store, must not be <code>null</code>
+     * @param ft
+     *            feature type, must not be <code>null</code>
+     * @param ftMapping
+     *            feature type mapping, must not be <code>null</code>
+     * @param conn
+     *            JDBC connection (used for performing subsequent SELECTs), must not be <code>null</code>
+     * @param escalationPolicy
+     *            the void escalation policy, must not be <code>null</code>
+     * @param generalizer
+     *            generalizer for geometry columns, can be <code>null</code> (select original geometries)
+     */
+    public FeatureBuilderRelational( SQLFeatureStore fs, FeatureType ft, FeatureTypeMapping ftMapping, Connection conn,
+                                     String ftTableAlias, boolean nullEscalation, GeometryGeneralizer generalizer ) {
         this.fs = fs;
         this.ft = ft;
         this.ftMapping = ftMapping;
         this.conn = conn;
         this.tableAlias = ftTableAlias;
         this.nullEscalation = nullEscalation;
+        this.generalizer = generalizer;
         this.nsBindings = new NamespaceBindings();
         for ( String prefix : fs.getNamespaceContext().keySet() ) {
             String ns = fs.getNamespaceContext().get( prefix );
@@ -199,6 +228,13 @@ public class FeatureBuilderRelational implements FeatureBuilder {
         }
     }
 
+    private String getGeometrySelectSnippet( ParticleConverter<?> converter ) {
+        if ( generalizer != null && converter instanceof GeometryParticleConverter ) {
+            return generalizer.getSelectSnippet( (GeometryParticleConverter) converter, tableAlias );
+        }
+        return converter.getSelectSnippet( tableAlias );
+    }
+
     private LinkedHashMap<String, Integer> getSubsequentSelectColumns( Mapping mapping ) {
         LinkedHashMap<String, Integer> colToRsIdx = new LinkedHashMap<String, Integer>();
         addSelectColumns( mapping, colToRsIdx, false );
@@ -230,7 +266,7 @@ public class FeatureBuilderRelational implements FeatureBuilder {
                 }
             } else if ( mapping instanceof GeometryMapping ) {
                 if ( particleConverter != null ) {
-                    addColumn( colToRsIdx, particleConverter.getSelectSnippet( tableAlias ) );
+                    addColumn( colToRsIdx, getGeometrySelectSnippet( particleConverter ) );
                 } else {
                     LOG.info( "Omitting mapping '" + mapping + "' from SELECT list. Not mapped to column.'" );
                 }
@@ -266,7 +302,7 @@ public class FeatureBuilderRelational implements FeatureBuilder {
                 gmlId += ftMapping.getFidMapping().getDelimiter()
                          + rs.getObject( qualifiedSqlExprToRsIdx.get( tableAlias + "." + fidColumns.get( i ).first ) );
             }
-            if ( fs.getCache() != null ) {
+            if ( fs.getCache() != null && generalizer == null ) {
                 feature = (Feature) fs.getCache().get( gmlId );
             }
             if ( feature == null ) {
@@ -286,7 +322,7 @@ public class FeatureBuilderRelational implements FeatureBuilder {
                     }
                 }
                 feature = ft.newFeatureInstance( gmlId, props, null );
-                if ( fs.getCache() != null ) {
+                if ( fs.getCache() != null && generalizer == null ) {
                     fs.getCache().add( feature );
                 }
             } else {
@@ -447,7 +483,7 @@ public class FeatureBuilderRelational implements FeatureBuilder {
             GeometryMapping pm = (GeometryMapping) mapping;
             MappingExpression me = pm.getMapping();
             if ( me instanceof DBField ) {
-                String col = converter.getSelectSnippet( tableAlias );
+                String col = getGeometrySelectSnippet( converter );
                 int colIndex = colToRsIdx.get( col );
                 particle = converter.toParticle( rs, colIndex );
                 Geometry geom = ( (Geometry) particle );
@@ -0,0 +1,148 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.persistence.sql.rules;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.GeometryTransformer;
+import org.deegree.geometry.utils.GeometryParticleConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Determines the generalized geometry select snippets for a query that targets a known resolution (e.g. a map
+ * request).
+ * <p>
+ * The resolution and the clip box are given in the CRS of the query. For geometry columns that are stored in a
+ * different CRS, both are converted to the storage CRS (the resolution is scaled with the extent of the transformed
+ * box).
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class GeometryGeneralizer {
+
+    private static final Logger LOG = LoggerFactory.getLogger( GeometryGeneralizer.class );
+
+    private final Envelope bbox;
+
+    private final double tolerance;
+
+    private final double clipBuffer;
+
+    private final boolean clip;
+
+    // generalizers are used for a single query (and table alias), so the converter identifies the snippet
+    private final Map<GeometryParticleConverter, String> converterToSnippet;
+
+    /**
+     * Creates a new {@link GeometryGeneralizer} instance.
+     * 
+     * @param bbox
+     *            bounding box of the query, must not be <code>null</code>
+     * @param resolution
+     *            size of a pixel (in units of the bbox CRS), must be positive
+     * @param tolerancePixels
+     *            maximum deviation of generalized geometries in pixels, a value &lt;= 0 disables simplification
+     * @param clip
+     *            true, if geometries shall be clipped to the (buffered) bbox
+     * @param clipBufferPixels
+     *            size of the buffer added to the bbox before clipping (in pixels), must not be negative
+     */
+    public GeometryGeneralizer( Envelope bbox, double resolution, double tolerancePixels, boolean clip,
+                                int clipBufferPixels ) {
+        this.bbox = bbox;
+        this.tolerance = tolerancePixels * resolution;
+        this.clipBuffer = clipBufferPixels * resolution;
+        this.clip = clip;
+        this.converterToSnippet = new HashMap<GeometryParticleConverter, String>();
+    }
+
+    /**
+     * Returns the select snippet for the given geometry converter.
+     * 
+     * @param converter
+     *            geometry converter, must not be <code>null</code>
+     * @param tableAlias
+     *            alias to use for qualifying the column, can be <code>null</code>
+     * @return select snippet, never <code>null</code> (the snippet is stable for the same converter and alias)
+     */
+    public String getSelectSnippet( GeometryParticleConverter converter, String tableAlias ) {
+        String snippet = converterToSnippet.get( converter );
+        if ( snippet == null ) {
+            snippet = createSelectSnippet( converter, tableAlias );
+            converterToSnippet.put( converter, snippet );
+        }
+        return snippet;
+    }
+
+    private String createSelectSnippet( GeometryParticleConverter converter, String tableAlias ) {
+        Envelope box = bbox;
+        double tol = tolerance;
+        double buffer = clipBuffer;
+        ICRS storageCrs = converter.getCrs();
+        ICRS queryCrs = bbox.getCoordinateSystem();
+        if ( storageCrs != null && queryCrs != null && !storageCrs.equals( queryCrs ) ) {
+            try {
+                box = new GeometryTransformer( storageCrs ).transform( bbox );
+            } catch ( Exception e ) {
+                LOG.debug( "Cannot transform query bbox to storage CRS, not generalizing: {}", e.getMessage() );
+                return converter.getSelectSnippet( tableAlias );
+            }
+            if ( bbox.getSpan0() <= 0 || box.getSpan0() <= 0 ) {
+                return converter.getSelectSnippet( tableAlias );
+            }
+            double scale = box.getSpan0() / bbox.getSpan0();
+            tol *= scale;
+            buffer *= scale;
+        }
+        Envelope clipBox = null;
+        if ( clip ) {
+            double[] min = new double[] { box.getMin().get0() - buffer, box.getMin().get1() - buffer };
+            double[] max = new double[] { box.getMax().get0() + buffer, box.getMax().get1() + buffer };
+            clipBox = new GeometryFactory().createEnvelope( min, max, storageCrs );
+        }
+        String snippet = converter.getGeneralizedSelectSnippet( tableAlias, tol, clipBox );
+        LOG.debug( "Generalized geometry select: {}", snippet );
+        return snippet;
+    }
+}
@@ -307,6 +307,32 @@ public class SQLFeatureStoreTOPPStatesTest {
         Assert.assertTrue( stateNames.contains( "New Jersey" ) );
     }
 
+    @Test
+    public void queryByBBOXRebindsCachedPlan()
+                            throws FeatureStoreException, FilterEvaluationException, UnknownCRSException {
+        ICRS crs = CRSManager.lookup( "EPSG:4326" );
+        GeometryFactory geomFac = new GeometryFactory();
+        BBOX eastCoast = new BBOX( geomFac.createEnvelope( -75.102613, 40.212597, -72.361859, 41.512517, crs ) );
+        BBOX springfield = new BBOX( geomFac.createEnvelope( -89.7, 39.7, -89.5, 39.9, crs ) );
+
+        // second and third query have the same shape as the first one and use the cached statement
+        Assert.assertEquals( 4, queryStateNames( eastCoast ).size() );
+        Set<String> stateNames = queryStateNames( springfield );
+        Assert.assertEquals( 1, stateNames.size() );
+        Assert.assertTrue( stateNames.contains( "Illinois" ) );
+        Assert.assertEquals( 4, queryStateNames( eastCoast ).size() );
+    }
+
+    private Set<String> queryStateNames( BBOX oper )
+                            throws FeatureStoreException, FilterEvaluationException {
+        Query query = new Query( TOPP_STATES, new OperatorFilter( oper ), -1, -1, -1 );
+        Set<String> stateNames = new HashSet<String>();
+        for ( Feature f : fs.query( query ).toCollection() ) {
+            stateNames.add( getPropertyValue( f, STATE_NAME ).getAsText() );
+        }
+        return stateNames;
+    }
+
     private PrimitiveValue getPropertyValue( Feature f, QName propName ) {
         return (PrimitiveValue) f.getProperties( propName ).get( 0 ).getValue();
     }
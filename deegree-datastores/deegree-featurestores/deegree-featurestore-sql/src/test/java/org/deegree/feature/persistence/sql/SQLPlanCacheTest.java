@@ -0,0 +1,210 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2011 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.persistence.sql;
+
+import static java.util.Collections.singletonList;
+import static org.deegree.commons.tom.primitive.BaseType.STRING;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.tom.primitive.PrimitiveType;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.commons.tom.sql.DefaultPrimitiveConverter;
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.filter.OperatorFilter;
+import org.deegree.filter.comparison.PropertyIsEqualTo;
+import org.deegree.filter.expression.Literal;
+import org.deegree.filter.expression.ValueReference;
+import org.deegree.filter.sort.SortProperty;
+import org.deegree.filter.spatial.BBOX;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.sqldialect.filter.expression.SQLArgument;
+import org.deegree.sqldialect.filter.mssql.MSSQLGeometryConverter;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SQLPlanCache}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class SQLPlanCacheTest {
+
+    private static final QName FT_NAME = QName.valueOf( "{http://www.openplans.org/topp}states" );
+
+    private static final SortProperty[] NO_SORT = new SortProperty[0];
+
+    private static final List<String> COLUMNS = Arrays.asList( "X1.attr_gid", "X1.the_geom" );
+
+    private final GeometryFactory geomFac = new GeometryFactory();
+
+    private final MSSQLGeometryConverter geomConverter = new MSSQLGeometryConverter( "the_geom", null, "4326",
+                                                                                     true );
+
+    @Test
+    public void testGetCacheableBBox() {
+        BBOX bbox = new BBOX( envelope( 0, 0, 1, 1 ) );
+        assertSame( bbox, SQLPlanCache.getCacheableBBox( new OperatorFilter( bbox ) ) );
+        PropertyIsEqualTo equals = new PropertyIsEqualTo( new ValueReference( "STATE_NAME", null ),
+                                                          new Literal( "Illinois" ), false, null );
+        assertNull( SQLPlanCache.getCacheableBBox( new OperatorFilter( equals ) ) );
+        assertNull( SQLPlanCache.getCacheableBBox( null ) );
+    }
+
+    @Test
+    public void testCreateKeyIgnoresBoundingBoxValues() {
+        List<Object> key1 = SQLPlanCache.createKey( FT_NAME, new BBOX( envelope( 0, 0, 1, 1 ) ), NO_SORT, COLUMNS );
+        List<Object> key2 = SQLPlanCache.createKey( FT_NAME, new BBOX( envelope( 5, 5, 7, 8 ) ), NO_SORT, COLUMNS );
+        assertEquals( key1, key2 );
+        assertEquals( key1.hashCode(), key2.hashCode() );
+    }
+
+    @Test
+    public void testCreateKeyDistinguishesShape() {
+        BBOX bbox = new BBOX( envelope( 0, 0, 1, 1 ) );
+        List<Object> key = SQLPlanCache.createKey( FT_NAME, bbox, NO_SORT, COLUMNS );
+
+        QName otherFt = QName.valueOf( "{http://www.openplans.org/topp}counties" );
+        assertFalse( key.equals( SQLPlanCache.createKey( otherFt, bbox, NO_SORT, COLUMNS ) ) );
+
+        BBOX withProp = new BBOX( new ValueReference( "the_geom", null ), envelope( 0, 0, 1, 1 ) );
+        assertFalse( key.equals( SQLPlanCache.createKey( FT_NAME, withProp, NO_SORT, COLUMNS ) ) );
+
+        BBOX exact = new BBOX( null, envelope( 0, 0, 1, 1 ), false );
+        assertFalse( key.equals( SQLPlanCache.createKey( FT_NAME, exact, NO_SORT, COLUMNS ) ) );
+
+        BBOX otherCrs = new BBOX( geomFac.createEnvelope( 0, 0, 1, 1, CRSManager.getCRSRef( "EPSG:4326" ) ) );
+        assertFalse( key.equals( SQLPlanCache.createKey( FT_NAME, otherCrs, NO_SORT, COLUMNS ) ) );
+
+        SortProperty[] sort = new SortProperty[] { new SortProperty( new ValueReference( "STATE_NAME", null ), true ) };
+        assertFalse( key.equals( SQLPlanCache.createKey( FT_NAME, bbox, sort, COLUMNS ) ) );
+
+        List<String> columns = singletonList( "X1.attr_gid" );
+        assertFalse( key.equals( SQLPlanCache.createKey( FT_NAME, bbox, NO_SORT, columns ) ) );
+    }
+
+    @Test
+    public void testBindReplacesOnlyBoundingBoxArguments() {
+        Envelope env = envelope( 0, 0, 1, 1 );
+        SQLArgument name = new SQLArgument( new PrimitiveValue( "Illinois" ),
+                                            new DefaultPrimitiveConverter( new PrimitiveType( STRING ), "name" ) );
+        List<SQLArgument> args = new ArrayList<SQLArgument>();
+        args.add( new SQLArgument( env, geomConverter ) );
+        args.add( name );
+
+        SQLPlanCache cache = new SQLPlanCache( 10 );
+        List<Object> key = createKey( env );
+        cache.put( key, "X1", "SELECT ...", args, env );
+
+        SQLPlanCache.Plan plan = cache.get( key, "X1" );
+        assertNotNull( plan );
+        assertEquals( "SELECT ...", plan.getSql() );
+
+        Envelope other = envelope( 5, 5, 7, 8 );
+        List<SQLArgument> bound = plan.bind( other );
+        assertEquals( 2, bound.size() );
+        assertSame( other, bound.get( 0 ).getValue() );
+        assertSame( geomConverter, bound.get( 0 ).getConverter() );
+        assertSame( name, bound.get( 1 ) );
+
+        // binding must not modify the cached plan
+        assertSame( env, plan.bind( env ).get( 0 ).getValue() );
+    }
+
+    @Test
+    public void testPutRejectsModifiedSpatialLiteral() {
+        Envelope env = envelope( 0, 0, 1, 1 );
+        // e.g. the where builder has replaced the literal by a transformed or clipped copy
+        List<SQLArgument> args = singletonList( new SQLArgument( envelope( 0, 0, 1, 1 ), geomConverter ) );
+
+        SQLPlanCache cache = new SQLPlanCache( 10 );
+        List<Object> key = createKey( env );
+        cache.put( key, "X1", "SELECT ...", args, env );
+        assertNull( cache.get( key, "X1" ) );
+    }
+
+    @Test
+    public void testGetRejectsDifferentRootTableAlias() {
+        Envelope env = envelope( 0, 0, 1, 1 );
+        List<SQLArgument> args = singletonList( new SQLArgument( env, geomConverter ) );
+
+        SQLPlanCache cache = new SQLPlanCache( 10 );
+        List<Object> key = createKey( env );
+        cache.put( key, "X2", "SELECT ...", args, env );
+        assertNull( cache.get( key, "X1" ) );
+        assertNotNull( cache.get( key, "X2" ) );
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPlanIsEvicted() {
+        Envelope env = envelope( 0, 0, 1, 1 );
+        List<SQLArgument> args = singletonList( new SQLArgument( env, geomConverter ) );
+        List<Object> key1 = createKey( env, "a" );
+        List<Object> key2 = createKey( env, "b" );
+        List<Object> key3 = createKey( env, "c" );
+
+        SQLPlanCache cache = new SQLPlanCache( 2 );
+        cache.put( key1, "X1", "SELECT a", args, env );
+        cache.put( key2, "X1", "SELECT b", args, env );
+        // touch the first plan, so the second one is the least recently used
+        assertNotNull( cache.get( key1, "X1" ) );
+        cache.put( key3, "X1", "SELECT c", args, env );
+
+        assertNotNull( cache.get( key1, "X1" ) );
+        assertNull( cache.get( key2, "X1" ) );
+        assertNotNull( cache.get( key3, "X1" ) );
+    }
+
+    private List<Object> createKey( Envelope env, String... columns ) {
+        List<String> select = columns.length == 0 ? COLUMNS : Arrays.asList( columns );
+        return SQLPlanCache.createKey( FT_NAME, new BBOX( env ), NO_SORT, select );
+    }
+
+    private Envelope envelope( double minX, double minY, double maxX, double maxY ) {
+        return geomFac.createEnvelope( minX, minY, maxX, maxY, null );
+    }
+}
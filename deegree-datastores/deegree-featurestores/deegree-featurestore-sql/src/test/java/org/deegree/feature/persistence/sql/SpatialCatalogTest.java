@@ -0,0 +1,247 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2011 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.persistence.sql;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.feature.Feature;
+import org.deegree.filter.OperatorFilter;
+import org.deegree.filter.sort.SortProperty;
+import org.deegree.filter.spatial.BBOX;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.utils.GeometryParticleConverter;
+import org.deegree.sqldialect.SQLDialect;
+import org.deegree.sqldialect.filter.AbstractWhereBuilder;
+import org.deegree.sqldialect.filter.PropertyNameMapper;
+import org.deegree.sqldialect.filter.TableAliasManager;
+import org.deegree.sqldialect.filter.expression.SQLArgument;
+import org.deegree.sqldialect.filter.expression.SQLExpression;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SpatialCatalog}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class SpatialCatalogTest {
+
+    private static final QName FT_A = QName.valueOf( "{http://www.deegree.org/app}A" );
+
+    private static final QName FT_B = QName.valueOf( "{http://www.deegree.org/app}B" );
+
+    private static final QName FT_C = QName.valueOf( "{http://www.deegree.org/app}C" );
+
+    private final Envelope env = new GeometryFactory().createEnvelope( 0, 0, 1, 1, null );
+
+    private SQLDialect dialect;
+
+    private Connection conn;
+
+    private PreparedStatement stmt;
+
+    private ResultSet rs;
+
+    private SpatialCatalog catalog;
+
+    @Before
+    public void setUp()
+                            throws SQLException {
+        GeometryParticleConverter converter = mock( GeometryParticleConverter.class );
+        when( converter.getSetSnippet( null ) ).thenReturn( "?" );
+        dialect = mock( SQLDialect.class );
+        when( dialect.getUndefinedSrid() ).thenReturn( "-1" );
+        when( dialect.getGeometryConverter( anyString(), any( ICRS.class ), anyString(),
+                                            anyBoolean() ) ).thenReturn( converter );
+        rs = mock( ResultSet.class );
+        stmt = mock( PreparedStatement.class );
+        when( stmt.executeQuery() ).thenReturn( rs );
+        conn = mock( Connection.class );
+        when( conn.prepareStatement( anyString() ) ).thenReturn( stmt );
+        catalog = new SpatialCatalog( "spatial_catalog", null, null, dialect );
+    }
+
+    @Test
+    public void testInitReadsIndexedFeatureTypes()
+                            throws SQLException {
+        initCatalog( FT_A, FT_C );
+        assertTrue( catalog.isIndexed( FT_A ) );
+        assertFalse( catalog.isIndexed( FT_B ) );
+        assertTrue( catalog.isIndexed( FT_C ) );
+    }
+
+    @Test
+    public void testInsertSkipsFeaturesOfTypesThatAreNotIndexed()
+                            throws SQLException {
+        initCatalog( FT_A );
+        Map<String, Feature> fidToFeature = new LinkedHashMap<String, Feature>();
+        fidToFeature.put( "A_1", createFeature( FT_A, "A_1", env ) );
+        fidToFeature.put( "B_1", createFeature( FT_B, "B_1", env ) );
+        fidToFeature.put( "A_2", createFeature( FT_A, "A_2", null ) );
+        catalog.insert( conn, fidToFeature );
+
+        verify( stmt ).setString( 1, "A_1" );
+        verify( stmt, never() ).setString( 1, "B_1" );
+        verify( stmt, never() ).setString( 1, "A_2" );
+        verify( stmt, times( 1 ) ).addBatch();
+        verify( stmt ).executeBatch();
+    }
+
+    @Test
+    public void testInsertOfTypesThatAreNotIndexedIsSkipped()
+                            throws SQLException {
+        initCatalog();
+        catalog.insert( conn, Collections.singletonMap( "B_1", createFeature( FT_B, "B_1", env ) ) );
+        verify( stmt, never() ).addBatch();
+        verify( stmt, never() ).executeBatch();
+    }
+
+    @Test
+    public void testPopulateIndexesFeatureTypeAfterCommit()
+                            throws SQLException {
+        initCatalog();
+        Feature b1 = createFeature( FT_B, "B_1", env );
+        Feature b2 = createFeature( FT_B, "B_2", env );
+        Feature b3 = createFeature( FT_B, "B_3", env );
+        catalog.populate( conn, FT_B, asList( b1, b2, b3 ).iterator(), 2 );
+
+        verify( stmt, times( 3 ) ).addBatch();
+        verify( stmt, times( 2 ) ).executeBatch();
+        verify( conn ).commit();
+        assertTrue( catalog.isIndexed( FT_B ) );
+    }
+
+    @Test
+    public void testFailedPopulateKeepsFeatureTypeUnindexed()
+                            throws SQLException {
+        initCatalog();
+        when( stmt.executeBatch() ).thenThrow( new SQLException( "Insert failed." ) );
+        try {
+            catalog.populate( conn, FT_B, asList( createFeature( FT_B, "B_1", env ) ).iterator(), 10 );
+        } catch ( SQLException e ) {
+            // expected
+        }
+        verify( conn, never() ).commit();
+        assertFalse( catalog.isIndexed( FT_B ) );
+    }
+
+    @Test
+    public void testGetFeatureTypesKeepsTypesThatAreNotIndexed()
+                            throws Exception {
+        initCatalog( FT_A, FT_C );
+        mockWhereBuilder();
+        // catalog hit for A only
+        when( rs.next() ).thenReturn( true, false );
+        when( rs.getString( 1 ) ).thenReturn( FT_A.toString() );
+
+        assertEquals( new HashSet<QName>( asList( FT_A, FT_B ) ),
+                      catalog.getFeatureTypes( conn, new BBOX( env ), asList( FT_A, FT_B, FT_C ) ) );
+    }
+
+    @Test
+    public void testGetFeatureTypesWithoutIndexedCandidatesSkipsCatalogQuery()
+                            throws Exception {
+        initCatalog( FT_A );
+        assertEquals( Collections.singleton( FT_B ), catalog.getFeatureTypes( conn, new BBOX( env ), asList( FT_B ) ) );
+        verify( dialect, never() ).getWhereBuilder( any( PropertyNameMapper.class ), any( OperatorFilter.class ),
+                                                    any( SortProperty[].class ), anyBoolean() );
+    }
+
+    private void initCatalog( QName... indexedFts )
+                            throws SQLException {
+        Boolean[] next = new Boolean[indexedFts.length];
+        String[] names = new String[indexedFts.length];
+        for ( int i = 0; i < indexedFts.length; i++ ) {
+            next[i] = i < indexedFts.length - 1;
+            names[i] = indexedFts[i].toString();
+        }
+        if ( indexedFts.length == 0 ) {
+            when( rs.next() ).thenReturn( false );
+        } else {
+            when( rs.next() ).thenReturn( true, next );
+            when( rs.getString( 1 ) ).thenReturn( names[0], Arrays.copyOfRange( names, 1, names.length ) );
+        }
+        catalog.init( conn );
+    }
+
+    private void mockWhereBuilder()
+                            throws Exception {
+        SQLExpression where = mock( SQLExpression.class );
+        when( where.getSQL() ).thenReturn( new StringBuilder( "X1.bbox && ?" ) );
+        when( where.getArguments() ).thenReturn( Collections.<SQLArgument> emptyList() );
+        AbstractWhereBuilder wb = mock( AbstractWhereBuilder.class );
+        when( wb.getAliasManager() ).thenReturn( new TableAliasManager() );
+        when( wb.getWhere() ).thenReturn( where );
+        when( dialect.getWhereBuilder( any( PropertyNameMapper.class ), any( OperatorFilter.class ),
+                                       any( SortProperty[].class ), eq( false ) ) ).thenReturn( wb );
+    }
+
+    private static Feature createFeature( QName ftName, String fid, Envelope env ) {
+        Feature feature = mock( Feature.class );
+        when( feature.getName() ).thenReturn( ftName );
+        when( feature.getId() ).thenReturn( fid );
+        when( feature.getEnvelope() ).thenReturn( env );
+        return feature;
+    }
+}
@@ -0,0 +1,85 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.feature.persistence.sql.rules;
+
+import static org.junit.Assert.assertEquals;
+
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.sqldialect.postgis.PostGISGeometryConverter;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeometryGeneralizer}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class GeometryGeneralizerTest {
+
+    private final Envelope bbox = new GeometryFactory().createEnvelope( 0, 0, 100, 50, null );
+
+    private final PostGISGeometryConverter converter = new PostGISGeometryConverter( "geom", null, "4326", false );
+
+    @Test
+    public void testSimplify() {
+        GeometryGeneralizer generalizer = new GeometryGeneralizer( bbox, 0.25, 2, false, 0 );
+        assertEquals( "ST_AsEWKB(ST_SimplifyPreserveTopology(ST_SnapToGrid(X1.geom,0.5),0.5))",
+                      generalizer.getSelectSnippet( converter, "X1" ) );
+    }
+
+    @Test
+    public void testSimplifyAndClip() {
+        GeometryGeneralizer generalizer = new GeometryGeneralizer( bbox, 0.25, 2, true, 4 );
+        assertEquals( "ST_AsEWKB(ST_SimplifyPreserveTopology(ST_SnapToGrid(ST_ClipByBox2D(X1.geom,"
+                      + "ST_MakeEnvelope(-1.0,-1.0,101.0,51.0,4326)),0.5),0.5))",
+                      generalizer.getSelectSnippet( converter, "X1" ) );
+    }
+
+    @Test
+    public void testNoGeneralization() {
+        GeometryGeneralizer generalizer = new GeometryGeneralizer( bbox, 0.25, 0, false, 0 );
+        assertEquals( converter.getSelectSnippet( "X1" ), generalizer.getSelectSnippet( converter, "X1" ) );
+    }
+
+    @Test
+    public void testLegacyPredicates() {
+        PostGISGeometryConverter legacy = new PostGISGeometryConverter( "geom", null, "4326", true );
+        GeometryGeneralizer generalizer = new GeometryGeneralizer( bbox, 0.25, 2, true, 4 );
+        assertEquals( legacy.getSelectSnippet( "X1" ), generalizer.getSelectSnippet( legacy, "X1" ) );
+    }
+}
@@ -0,0 +1,358 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree
+ Copyright (C) 2001-2013 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+ and others
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ e-mail: info@deegree.org
+ website: http://www.deegree.org/
+----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.bundle;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.slf4j.Logger;
+
+/**
+ * Manages the {@link TileBundle}s of a tile data set.
+ * <p>
+ * Every tile matrix has a sub directory in the bundle directory, named by the index of the tile matrix in the tile
+ * matrix set (using 2 digits eg. 01, counting starts with 0). A tile matrix is split into blocks of
+ * <code>bundleSize x bundleSize</code> tiles, every block is stored in a file named
+ * <code>R&lt;block row&gt;C&lt;block column&gt;.bundle</code> (hexadecimal, 4 digits). Bundle files are created when
+ * the first tile is written. A bounded number of bundles is kept open, the least recently used bundle is closed when
+ * another bundle has to be opened.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ * 
+ * @since 3.4
+ */
+class BundleDirectory {
+
+    private static final Logger LOG = getLogger( BundleDirectory.class );
+
+    private static final int MAX_RETRIES = 3;
+
+    private final File dir;
+
+    private final String fileType;
+
+    private final int bundleSize;
+
+    private final Map<String, String> levelDirs = new HashMap<String, String>();
+
+    private final LinkedHashMap<String, TileBundle> openBundles;
+
+    /**
+     * Creates a new {@link BundleDirectory} instance.
+     * 
+     * @param dir
+     *            the bundle directory, must not be <code>null</code>
+     * @param fileType
+     *            image format of the tiles, must not be <code>null</code>
+     * @param bundleSize
+     *            number of tile columns and rows per bundle, must be positive
+     * @param maxOpenBundles
+     *            maximum number of bundles kept open, must be positive
+     * @param tileMatrixIds
+     *            identifiers of the tile matrices in the order of the tile matrix set, must not be <code>null</code>
+     */
+    BundleDirectory( File dir, String fileType, int bundleSize, final int maxOpenBundles, List<String> tileMatrixIds ) {
+        this.dir = dir;
+        this.fileType = fileType;
+        this.bundleSize = bundleSize;
+        DecimalFormat formatter = new DecimalFormat( "00" );
+        for ( int i = 0; i < tileMatrixIds.size(); i++ ) {
+            levelDirs.put( tileMatrixIds.get( i ), formatter.format( i ) );
+        }
+        openBundles = new LinkedHashMap<String, TileBundle>( 16, 0.75f, true ) {
+
+            private static final long serialVersionUID = -5412237862232093317L;
+
+            @Override
+            protected boolean removeEldestEntry( Entry<String, TileBundle> eldest ) {
+                if ( size() > maxOpenBundles ) {
+                    eldest.getValue().close();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the bundle directory, never <code>null</code>
+     */
+    File getDirectory() {
+        return dir;
+    }
+
+    /**
+     * @return the image format of the tiles (e.g. <code>png</code>), never <code>null</code>
+     */
+    String getFileType() {
+        return fileType;
+    }
+
+    /**
+     * @param matrixId
+     *            identifier of the tile matrix, must not be <code>null</code>
+     * @param x
+     *            column index of the tile
+     * @param y
+     *            row index of the tile
+     * @return <code>true</code>, if the tile has been stored
+     * @throws IOException
+     *             if accessing the bundle file failed
+     */
+    boolean contains( String matrixId, long x, long y )
+                            throws IOException {
+        for ( int attempt = 1;; attempt++ ) {
+            TileBundle bundle = getBundle( matrixId, x, y, false );
+            if ( bundle == null ) {
+                return false;
+            }
+            try {
+                return bundle.contains( (int) ( x % bundleSize ), (int) ( y % bundleSize ) );
+            } catch ( ClosedChannelException e ) {
+                handleClosed( bundle, e, attempt );
+            }
+        }
+    }
+
+    /**
+     * @param matrixId
+     *            identifier of the tile matrix, must not be <code>null</code>
+     * @param x
+     *            column index of the tile
+     * @param y
+     *            row index of the tile
+     * @return the encoded tile image, <code>null</code> if the tile has not been stored
+     * @throws IOException
+     *             if reading the bundle file failed
+     */
+    byte[] read( String matrixId, long x, long y )
+                            throws IOException {
+        for ( int attempt = 1;; attempt++ ) {
+            TileBundle bundle = getBundle( matrixId, x, y, false );
+            if ( bundle == null ) {
+                return null;
+            }
+            try {
+                return bundle.read( (int) ( x % bundleSize ), (int) ( y % bundleSize ) );
+            } catch ( ClosedChannelException e ) {
+                handleClosed( bundle, e, attempt );
+            }
+        }
+    }
+
+    /**
+     * @param matrixId
+     *            identifier of the tile matrix, must not be <code>null</code>
+     * @param x
+     *            column index of the tile
+     * @param y
+     *            row index of the tile
+     * @return version stamp of the tile, changes whenever the tile is replaced, <code>null</code> if the tile has not
+     *         been stored
+     * @throws IOException
+     *             if accessing the bundle file failed
+     */
+    String getVersion( String matrixId, long x, long y )
+                            throws IOException {
+        for ( int attempt = 1;; attempt++ ) {
+            TileBundle bundle = getBundle( matrixId, x, y, false );
+            if ( bundle == null ) {
+                return null;
+            }
+            try {
+                return bundle.getVersion( (int) ( x % bundleSize ), (int) ( y % bundleSize ) );
+            } catch ( ClosedChannelException e ) {
+                handleClosed( bundle, e, attempt );
+            }
+        }
+    }
+
+    /**
+     * Stores the encoded tile image, an existing tile is replaced.
+     * 
+     * @param matrixId
+     *            identifier of the tile matrix, must not be <code>null</code>
+     * @param x
+     *            column index of the tile
+     * @param y
+     *            row index of the tile
+     * @param data
+     *            encoded tile image, must not be <code>null</code>
+     * @throws IOException
+     *             if writing the bundle file failed
+     */
+    void write( String matrixId, long x, long y, byte[] data )
+                            throws IOException {
+        for ( int attempt = 1;; attempt++ ) {
+            TileBundle bundle = getBundle( matrixId, x, y, true );
+            try {
+                bundle.write( (int) ( x % bundleSize ), (int) ( y % bundleSize ), data );
+                return;
+            } catch ( ClosedChannelException e ) {
+                handleClosed( bundle, e, attempt );
+            }
+        }
+    }
+
+    /**
+     * Removes a tile, nothing happens if the tile has not been stored.
+     * 
+     * @param matrixId
+     *            identifier of the tile matrix, must not be <code>null</code>
+     * @param x
+     *            column index of the tile
+     * @param y
+     *            row index of the tile
+     * @throws IOException
+     *             if writing the bundle file failed
+     */
+    void delete( String matrixId, long x, long y )
+                            throws IOException {
+        for ( int attempt = 1;; attempt++ ) {
+            TileBundle bundle = getBundle( matrixId, x, y, false );
+            if ( bundle == null ) {
+                return;
+            }
+            try {
+                bundle.delete( (int) ( x % bundleSize ), (int) ( y % bundleSize ) );
+                return;
+            } catch ( ClosedChannelException e ) {
+                handleClosed( bundle, e, attempt );
+            }
+        }
+    }
+
+    /**
+     * Commits the tiles written to the open bundles, bundles that have been closed in the meantime have been committed
+     * when they were closed.
+     * 
+     * @throws IOException
+     *             if writing a bundle file failed
+     */
+    void flush()
+                            throws IOException {
+        List<TileBundle> bundles;
+        synchronized ( openBundles ) {
+            bundles = new ArrayList<TileBundle>( openBundles.values() );
+        }
+        for ( TileBundle bundle : bundles ) {
+            try {
+                bundle.flush();
+            } catch ( ClosedChannelException e ) {
+                if ( bundle.isOpen() ) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes all open bundles.
+     */
+    void close() {
+        List<TileBundle> bundles;
+        synchronized ( openBundles ) {
+            bundles = new ArrayList<TileBundle>( openBundles.values() );
+            openBundles.clear();
+        }
+        for ( TileBundle bundle : bundles ) {
+            bundle.close();
+        }
+    }
+
+    /**
+     * @param matrixId
+     *            identifier of the tile matrix, must not be <code>null</code>
+     * @param x
+     *            column index of the tile
+     * @param y
+     *            row index of the tile
+     * @return the bundle file that stores the tile, never <code>null</code>
+     */
+    File getBundleFile( String matrixId, long x, long y ) {
+        String levelDir = levelDirs.get( matrixId );
+        if ( levelDir == null ) {
+            throw new IllegalArgumentException( "No tile matrix with id " + matrixId + "." );
+        }
+        String name = String.format( "R%04xC%04x.bundle", y / bundleSize, x / bundleSize );
+        return new File( new File( dir, levelDir ), name );
+    }
+
+    private TileBundle getBundle( String matrixId, long x, long y, boolean create )
+                            throws IOException {
+        File file = getBundleFile( matrixId, x, y );
+        String key = file.getPath();
+        synchronized ( openBundles ) {
+            TileBundle bundle = openBundles.get( key );
+            if ( bundle == null ) {
+                if ( !file.exists() ) {
+                    if ( !create ) {
+                        return null;
+                    }
+                    File parent = file.getParentFile();
+                    if ( !parent.isDirectory() && !parent.mkdirs() ) {
+                        throw new IOException( "Unable to create bundle directory " + parent );
+                    }
+                }
+                bundle = TileBundle.open( file, bundleSize );
+                openBundles.put( key, bundle );
+            }
+            return bundle;
+        }
+    }
+
+    private void handleClosed( TileBundle bundle, ClosedChannelException e, int attempt )
+                            throws IOException {
+        // the bundle has been evicted, or its channel has been closed by an interrupt of another thread
+        synchronized ( openBundles ) {
+            String key = bundle.getFile().getPath();
+            if ( openBundles.get( key ) == bundle ) {
+                openBundles.remove( key );
+            }
+        }
+        bundle.close();
+        if ( Thread.currentThread().isInterrupted() || attempt >= MAX_RETRIES ) {
+            throw e;
+        }
+        LOG.debug( "Reopening tile bundle {}.", bundle.getFile() );
+    }
+
+}
@@ -0,0 +1,141 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree
+ Copyright (C) 2001-2013 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+ and others
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ e-mail: info@deegree.org
+ website: http://www.deegree.org/
+----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.bundle;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+import org.deegree.feature.FeatureCollection;
+import org.deegree.geometry.Envelope;
+import org.deegree.tile.Tile;
+import org.deegree.tile.TileIOException;
+import org.deegree.tile.Tiles;
+
+/**
+ * A {@link Tile} that is backed by a {@link BundleTileStore}. The tile data is read from the bundle on request.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ * 
+ * @since 3.4
+ */
+class BundleTile implements Tile {
+
+    private final Envelope bbox;
+
+    private final BundleDirectory bundles;
+
+    private final String matrixId;
+
+    private final long x;
+
+    private final long y;
+
+    /**
+     * Creates a new {@link BundleTile} instance.
+     * 
+     * @param bbox
+     *            envelope of the tile, must not be <code>null</code>
+     * @param bundles
+     *            bundles of the tile data set, must not be <code>null</code>
+     * @param matrixId
+     *            identifier of the tile matrix, must not be <code>null</code>
+     * @param x
+     *            column index of the tile
+     * @param y
+     *            row index of the tile
+     */
+    BundleTile( Envelope bbox, BundleDirectory bundles, String matrixId, long x, long y ) {
+        this.bbox = bbox;
+        this.bundles = bundles;
+        this.matrixId = matrixId;
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public BufferedImage getAsImage()
+                            throws TileIOException {
+        try {
+            return ImageIO.read( getAsStream() );
+        } catch ( IOException e ) {
+            throw new TileIOException( "Error decoding tile " + x + "/" + y + " of tile matrix " + matrixId + ": "
+                                       + e.getMessage(), e );
+        }
+    }
+
+    @Override
+    public InputStream getAsStream()
+                            throws TileIOException {
+        byte[] data;
+        try {
+            data = bundles.read( matrixId, x, y );
+        } catch ( IOException e ) {
+            throw new TileIOException( "Error reading tile " + x + "/" + y + " of tile matrix " + matrixId + " from "
+                                       + bundles.getBundleFile( matrixId, x, y ) + ": " + e.getMessage(), e );
+        }
+        if ( data == null ) {
+            throw new TileIOException( "Tile " + x + "/" + y + " of tile matrix " + matrixId + " does not exist." );
+        }
+        return new ByteArrayInputStream( data );
+    }
+
+    @Override
+    public Envelope getEnvelope() {
+        return bbox;
+    }
+
+    @Override
+    public FeatureCollection getFeatures( int i, int j, int limit )
+                            throws UnsupportedOperationException {
+        throw new UnsupportedOperationException( "Feature retrieval is not supported by the BundleTileStore." );
+    }
+
+    /**
+     * Returns the modification time of the bundle file, which may be later than the modification of this tile.
+     */
+    @Override
+    public long getLastModified() {
+        return Tiles.getLastModified( bundles.getBundleFile( matrixId, x, y ) );
+    }
+
+    @Override
+    public String getVersion() {
+        try {
+            return bundles.getVersion( matrixId, x, y );
+        } catch ( IOException e ) {
+            throw new TileIOException( "Error reading index entry of tile " + x + "/" + y + " of tile matrix "
+                                       + matrixId + ": " + e.getMessage(), e );
+        }
+    }
+}
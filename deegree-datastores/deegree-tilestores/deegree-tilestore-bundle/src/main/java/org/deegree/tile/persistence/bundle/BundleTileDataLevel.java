@@ -0,0 +1,96 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree
+ Copyright (C) 2001-2013 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+ and others
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ e-mail: info@deegree.org
+ website: http://www.deegree.org/
+----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.bundle;
+
+import static org.deegree.tile.Tiles.calcTileEnvelope;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.deegree.tile.Tile;
+import org.deegree.tile.TileDataLevel;
+import org.deegree.tile.TileIOException;
+import org.deegree.tile.TileMatrix;
+
+/**
+ * {@link TileDataLevel} implementation for the {@link BundleTileStore}.
+ * 
+ * @see BundleDirectory
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ * 
+ * @since 3.4
+ */
+class BundleTileDataLevel implements TileDataLevel {
+
+    private final TileMatrix metadata;
+
+    private final BundleDirectory bundles;
+
+    /**
+     * Creates a new {@link BundleTileDataLevel} instance.
+     * 
+     * @param metadata
+     *            the tile matrix, must not be <code>null</code>
+     * @param bundles
+     *            bundles of the tile data set, must not be <code>null</code>
+     */
+    BundleTileDataLevel( TileMatrix metadata, BundleDirectory bundles ) {
+        this.metadata = metadata;
+        this.bundles = bundles;
+    }
+
+    @Override
+    public TileMatrix getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public Tile getTile( long x, long y ) {
+        if ( metadata.getNumTilesX() <= x || metadata.getNumTilesY() <= y || x < 0 || y < 0 ) {
+            return null;
+        }
+        String id = metadata.getIdentifier();
+        try {
+            if ( !bundles.contains( id, x, y ) ) {
+                return null;
+            }
+        } catch ( IOException e ) {
+            throw new TileIOException( "Error accessing tile bundle " + bundles.getBundleFile( id, x, y ) + ": "
+                                       + e.getMessage(), e );
+        }
+        return new BundleTile( calcTileEnvelope( metadata, x, y ), bundles, id, x, y );
+    }
+
+    @Override
+    public List<String> getStyles() {
+        return null;
+    }
+}
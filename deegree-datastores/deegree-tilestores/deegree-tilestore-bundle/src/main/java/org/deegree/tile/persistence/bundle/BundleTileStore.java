@@ -0,0 +1,87 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree
+ Copyright (C) 2001-2013 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+ and others
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ e-mail: info@deegree.org
+ website: http://www.deegree.org/
+----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.bundle;
+
+import java.util.Map;
+
+import org.deegree.tile.TileDataSet;
+import org.deegree.tile.persistence.GenericTileStore;
+import org.deegree.tile.persistence.TileStore;
+import org.deegree.workspace.ResourceMetadata;
+
+/**
+ * {@link TileStore} that packs the tiles of each tile data set into a directory of indexed bundle files, instead of
+ * storing every tile in a file of its own.
+ * 
+ * @see BundleDirectory
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ * 
+ * @since 3.4
+ */
+public class BundleTileStore extends GenericTileStore {
+
+    private final Map<String, BundleDirectory> bundles;
+
+    /**
+     * Creates a new {@link BundleTileStore} instance.
+     * 
+     * @param tileDataSets
+     *            the tile data sets to serve, must not be <code>null</code>
+     * @param bundles
+     *            the bundle directories of the tile data sets, must not be <code>null</code>
+     * @param metadata
+     *            resource metadata for this tile store, may not be <code>null</code> if managed by workspace
+     */
+    BundleTileStore( Map<String, TileDataSet> tileDataSets, Map<String, BundleDirectory> bundles,
+                     ResourceMetadata<TileStore> metadata ) {
+        super( tileDataSets, metadata );
+        this.bundles = bundles;
+    }
+
+    @Override
+    public BundleTileStoreTransaction acquireTransaction( String id ) {
+        if ( getTileDataSet( id ) == null ) {
+            throw new IllegalArgumentException( "No tile data set with id " + id + "." );
+        }
+        return new BundleTileStoreTransaction( id, this );
+    }
+
+    @Override
+    public void destroy() {
+        for ( BundleDirectory dir : bundles.values() ) {
+            dir.close();
+        }
+    }
+
+    BundleDirectory getBundles( String tileDataSet ) {
+        return bundles.get( tileDataSet );
+    }
+}
@@ -0,0 +1,121 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree
+ Copyright (C) 2001-2013 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+ and others
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ e-mail: info@deegree.org
+ website: http://www.deegree.org/
+----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.bundle;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.deegree.tile.DefaultTileDataSet;
+import org.deegree.tile.TileDataLevel;
+import org.deegree.tile.TileDataSet;
+import org.deegree.tile.TileMatrix;
+import org.deegree.tile.TileMatrixSet;
+import org.deegree.tile.persistence.TileStore;
+import org.deegree.tile.persistence.bundle.jaxb.BundleTileStoreJAXB;
+import org.deegree.tile.tilematrixset.TileMatrixSetProvider;
+import org.deegree.workspace.ResourceBuilder;
+import org.deegree.workspace.ResourceInitException;
+import org.deegree.workspace.ResourceMetadata;
+import org.deegree.workspace.Workspace;
+
+/**
+ * This class is responsible for building bundle tile stores.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ * 
+ * @since 3.4
+ */
+class BundleTileStoreBuilder implements ResourceBuilder<TileStore> {
+
+    private static final int DEFAULT_BUNDLE_SIZE = 128;
+
+    private static final int MAX_BUNDLE_SIZE = 1024;
+
+    private static final int DEFAULT_MAX_OPEN_BUNDLES = 64;
+
+    private final BundleTileStoreJAXB config;
+
+    private final ResourceMetadata<TileStore> metadata;
+
+    private final Workspace workspace;
+
+    BundleTileStoreBuilder( BundleTileStoreJAXB config, ResourceMetadata<TileStore> metadata, Workspace workspace ) {
+        this.config = config;
+        this.metadata = metadata;
+        this.workspace = workspace;
+    }
+
+    @Override
+    public TileStore build() {
+        Map<String, TileDataSet> dataSets = new HashMap<String, TileDataSet>();
+        Map<String, BundleDirectory> bundles = new HashMap<String, BundleDirectory>();
+
+        for ( BundleTileStoreJAXB.TileDataSet tds : config.getTileDataSet() ) {
+            File dir = new File( tds.getBundleDirectory() );
+            if ( !dir.isAbsolute() ) {
+                dir = metadata.getLocation().resolveToFile( tds.getBundleDirectory() );
+            }
+            String id = tds.getIdentifier() != null ? tds.getIdentifier() : dir.getName();
+
+            TileMatrixSet tms = workspace.getResource( TileMatrixSetProvider.class, tds.getTileMatrixSetId() );
+            if ( tms == null ) {
+                throw new ResourceInitException( "Unable to create BundleTileStore: No tile matrix set with id '"
+                                                 + tds.getTileMatrixSetId() + "' in workspace." );
+            }
+
+            int bundleSize = tds.getBundleSize() != null ? tds.getBundleSize() : DEFAULT_BUNDLE_SIZE;
+            if ( bundleSize < 1 || bundleSize > MAX_BUNDLE_SIZE ) {
+                throw new ResourceInitException( "Unable to create BundleTileStore: BundleSize must be between 1 and "
+                                                 + MAX_BUNDLE_SIZE + "." );
+            }
+            int maxOpen = tds.getMaxOpenBundles() != null ? tds.getMaxOpenBundles() : DEFAULT_MAX_OPEN_BUNDLES;
+
+            List<String> matrixIds = new ArrayList<String>();
+            for ( TileMatrix tm : tms.getTileMatrices() ) {
+                matrixIds.add( tm.getIdentifier() );
+            }
+            BundleDirectory dirBundles = new BundleDirectory( dir, tds.getFileType(), bundleSize,
+                                                              Math.max( 1, maxOpen ), matrixIds );
+
+            List<TileDataLevel> levels = new ArrayList<TileDataLevel>( tms.getTileMatrices().size() );
+            for ( TileMatrix tm : tms.getTileMatrices() ) {
+                levels.add( new BundleTileDataLevel( tm, dirBundles ) );
+            }
+            dataSets.put( id, new DefaultTileDataSet( levels, tms, "image/" + tds.getFileType() ) );
+            bundles.put( id, dirBundles );
+        }
+
+        return new BundleTileStore( dataSets, bundles, metadata );
+    }
+
+}
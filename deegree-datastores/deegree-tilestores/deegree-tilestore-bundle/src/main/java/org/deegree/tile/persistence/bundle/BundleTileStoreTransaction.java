@@ -0,0 +1,151 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree
+ Copyright (C) 2001-2013 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+ and others
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ e-mail: info@deegree.org
+ website: http://www.deegree.org/
+----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.bundle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.deegree.tile.Tile;
+import org.deegree.tile.TileDataLevel;
+import org.deegree.tile.TileIOException;
+import org.deegree.tile.TileMatrix;
+import org.deegree.tile.persistence.AbstractTileStoreTransaction;
+
+/**
+ * {@link org.deegree.tile.persistence.TileStoreTransaction} for the {@link BundleTileStore}.
+ * <p>
+ * Tiles are encoded in the image format of the tile data set. Callers that already have encoded tile images (e.g. when
+ * migrating an existing tile cache) can use {@link #putEncoded(String, byte[], long, long)} to avoid decoding and
+ * encoding the images.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ * 
+ * @since 3.4
+ */
+public class BundleTileStoreTransaction extends AbstractTileStoreTransaction {
+
+    private final BundleDirectory bundles;
+
+    /**
+     * Creates a new {@link BundleTileStoreTransaction}.
+     * 
+     * @param id
+     *            the id of the tile data set, must not be <code>null</code>
+     * @param store
+     *            tile store, must not be <code>null</code>
+     */
+    BundleTileStoreTransaction( String id, BundleTileStore store ) {
+        super( store, id );
+        this.bundles = store.getBundles( id );
+    }
+
+    @Override
+    public void put( String matrixId, Tile tile, long x, long y )
+                            throws TileIOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            if ( !ImageIO.write( tile.getAsImage(), bundles.getFileType(), out ) ) {
+                throw new TileIOException( "No image writer available for file type " + bundles.getFileType() + "." );
+            }
+        } catch ( IOException e ) {
+            throw new TileIOException( "Error encoding tile: " + e.getMessage(), e );
+        }
+        putEncoded( matrixId, out.toByteArray(), x, y );
+    }
+
+    /**
+     * Stores an already encoded tile image.
+     * 
+     * @param matrixId
+     *            identifier of the tile matrix, must not be <code>null</code>
+     * @param data
+     *            tile image, encoded in the image format of the tile data set, must not be <code>null</code>
+     * @param x
+     *            column index of the tile
+     * @param y
+     *            row index of the tile
+     * @throws TileIOException
+     *             if the tile is outside of the tile matrix or writing failed
+     */
+    public void putEncoded( String matrixId, byte[] data, long x, long y )
+                            throws TileIOException {
+        checkTileIndex( matrixId, x, y );
+        try {
+            bundles.write( matrixId, x, y, data );
+        } catch ( IOException e ) {
+            throw new TileIOException( "Error writing tile to " + bundles.getBundleFile( matrixId, x, y ) + ": "
+                                       + e.getMessage(), e );
+        }
+    }
+
+    @Override
+    public void delete( String matrixId, long x, long y )
+                            throws TileIOException {
+        checkTileIndex( matrixId, x, y );
+        try {
+            bundles.delete( matrixId, x, y );
+        } catch ( IOException e ) {
+            throw new TileIOException( "Error deleting tile from " + bundles.getBundleFile( matrixId, x, y ) + ": "
+                                       + e.getMessage(), e );
+        }
+    }
+
+    /**
+     * Makes the tiles written so far durable. Tiles are visible to readers as soon as they have been written, but are
+     * only forced to disk by this method or when the tile store is destroyed, so calling it once per batch of tiles
+     * avoids a disk sync per tile.
+     * 
+     * @throws TileIOException
+     *             if writing failed
+     */
+    public void commit()
+                            throws TileIOException {
+        try {
+            bundles.flush();
+        } catch ( IOException e ) {
+            throw new TileIOException( "Error committing tiles in " + bundles.getDirectory() + ": " + e.getMessage(),
+                                       e );
+        }
+    }
+
+    private void checkTileIndex( String matrixId, long x, long y ) {
+        TileDataLevel level = store.getTileDataSet( tileMatrixSet ).getTileDataLevel( matrixId );
+        if ( level == null ) {
+            throw new TileIOException( "No tile matrix with id " + matrixId + "." );
+        }
+        TileMatrix matrix = level.getMetadata();
+        if ( x < 0 || y < 0 || x >= matrix.getNumTilesX() || y >= matrix.getNumTilesY() ) {
+            throw new TileIOException( "Tile " + x + "/" + y + " is outside of tile matrix " + matrixId + "." );
+        }
+    }
+}
@@ -0,0 +1,509 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree
+ Copyright (C) 2001-2013 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+ and others
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ e-mail: info@deegree.org
+ website: http://www.deegree.org/
+----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.bundle;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.io.IOUtils;
+import org.deegree.commons.utils.io.Utils;
+import org.slf4j.Logger;
+
+/**
+ * A single bundle file that stores the encoded images of a block of <code>size x size</code> tiles.
+ * <p>
+ * File layout:
+ * <ul>
+ * <li>32 bytes header: magic number, format version, bundle size, reserved</li>
+ * <li>index with <code>size * size</code> entries (row major), 32 bytes each: 8 bytes file offset of the slot that
+ * holds the tile data, 4 bytes capacity of the slot, 4 bytes length of the tile data (-1 for a deleted tile), 4 bytes
+ * number of writes of the tile, 8 bytes file offset and 4 bytes capacity of a spare slot of the tile. An offset of 0
+ * marks a tile that has never been written.</li>
+ * <li>tile data slots, appended in the order they have been needed</li>
+ * </ul>
+ * The index is memory mapped. Data of a committed tile is never overwritten: a replaced tile is written into the spare
+ * slot of the tile if it fits (otherwise a new slot is appended), and the old slot becomes the spare slot. Index
+ * changes are kept in memory until {@link #flush()}, which forces the tile data to disk before the index is updated.
+ * After a crash, the index therefore only points to complete tiles, changes since the last flush are lost.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ * 
+ * @since 3.4
+ */
+class TileBundle {
+
+    private static final Logger LOG = getLogger( TileBundle.class );
+
+    static final int MAGIC = 0x64746231;
+
+    static final int VERSION = 3;
+
+    // aligns the index entries, so no entry spans two pages
+    static final int HEADER_SIZE = 32;
+
+    static final int ENTRY_SIZE = 32;
+
+    private static final int CAPACITY = 8;
+
+    private static final int LENGTH = 12;
+
+    private static final int WRITES = 16;
+
+    private static final int SPARE = 20;
+
+    private static final int SPARE_CAPACITY = 28;
+
+    private final File file;
+
+    private final int size;
+
+    private final RandomAccessFile raf;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer index;
+
+    private final boolean readOnly;
+
+    // slots of uncommitted tiles may be overwritten, so reading holds the read lock until the data has been read
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // index entries that have been changed since the last flush, by position in the index
+    private final Map<Integer, Entry> pending = new HashMap<Integer, Entry>();
+
+    private boolean closed;
+
+    private TileBundle( File file, int size, RandomAccessFile raf, MappedByteBuffer index, boolean readOnly ) {
+        this.file = file;
+        this.size = size;
+        this.raf = raf;
+        this.channel = raf.getChannel();
+        this.index = index;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Opens the given bundle file, the file is created if it does not exist.
+     * 
+     * @param file
+     *            bundle file, must not be <code>null</code>
+     * @param size
+     *            number of tile columns and rows in the bundle
+     * @return the opened bundle, never <code>null</code>
+     * @throws IOException
+     *             if the file could not be opened or is not a bundle file of the given size
+     */
+    static TileBundle open( File file, int size )
+                            throws IOException {
+        boolean readOnly = file.exists() && !file.canWrite();
+        RandomAccessFile raf = new RandomAccessFile( file, readOnly ? "r" : "rw" );
+        try {
+            FileChannel channel = raf.getChannel();
+            long indexLength = (long) size * size * ENTRY_SIZE;
+            if ( raf.length() == 0 && !readOnly ) {
+                ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+                header.putInt( MAGIC ).putInt( VERSION ).putInt( size ).putInt( 0 );
+                header.flip();
+                writeFully( channel, header, 0 );
+                raf.setLength( HEADER_SIZE + indexLength );
+            } else {
+                checkHeader( file, channel, size );
+            }
+            MappedByteBuffer index = channel.map( readOnly ? READ_ONLY : READ_WRITE, HEADER_SIZE, indexLength );
+            return new TileBundle( file, size, raf, index, readOnly );
+        } catch ( IOException e ) {
+            IOUtils.closeQuietly( raf );
+            throw e;
+        }
+    }
+
+    private static void checkHeader( File file, FileChannel channel, int size )
+                            throws IOException {
+        ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+        readFully( channel, header, 0 );
+        header.flip();
+        if ( header.getInt() != MAGIC ) {
+            throw new IOException( "File '" + file + "' is not a tile bundle." );
+        }
+        int version = header.getInt();
+        if ( version != VERSION ) {
+            throw new IOException( "Tile bundle '" + file + "' has unsupported version " + version + "." );
+        }
+        int fileSize = header.getInt();
+        if ( fileSize != size ) {
+            throw new IOException( "Tile bundle '" + file + "' has been written with bundle size " + fileSize
+                                   + ", but bundle size " + size + " is configured." );
+        }
+    }
+
+    /**
+     * @param col
+     *            column of the tile within the bundle
+     * @param row
+     *            row of the tile within the bundle
+     * @return <code>true</code>, if the bundle contains the tile
+     * @throws ClosedChannelException
+     *             if the bundle has been closed
+     */
+    boolean contains( int col, int row )
+                            throws ClosedChannelException {
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            return getEntry( entry( col, row ) ).exists();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param col
+     *            column of the tile within the bundle
+     * @param row
+     *            row of the tile within the bundle
+     * @return version stamp of the tile, derived from the slot of the tile data and the number of writes of the tile,
+     *         <code>null</code> if the bundle does not contain the tile
+     * @throws ClosedChannelException
+     *             if the bundle has been closed
+     */
+    String getVersion( int col, int row )
+                            throws ClosedChannelException {
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            Entry entry = getEntry( entry( col, row ) );
+            if ( !entry.exists() ) {
+                return null;
+            }
+            return Long.toHexString( entry.offset ) + "-" + Integer.toHexString( entry.writes );
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param col
+     *            column of the tile within the bundle
+     * @param row
+     *            row of the tile within the bundle
+     * @return the encoded tile image, <code>null</code> if the bundle does not contain the tile
+     * @throws IOException
+     *             if reading failed, {@link ClosedChannelException} if the bundle has been closed
+     */
+    byte[] read( int col, int row )
+                            throws IOException {
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            Entry entry = getEntry( entry( col, row ) );
+            if ( !entry.exists() ) {
+                return null;
+            }
+            byte[] data = new byte[entry.length];
+            readFully( channel, ByteBuffer.wrap( data ), entry.offset );
+            return data;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores the encoded tile image in a slot that is not used by the committed index, the tile is visible to readers
+     * immediately and committed with the next {@link #flush()}.
+     * 
+     * @param col
+     *            column of the tile within the bundle
+     * @param row
+     *            row of the tile within the bundle
+     * @param data
+     *            encoded tile image, must not be <code>null</code>
+     * @throws IOException
+     *             if writing failed, {@link ClosedChannelException} if the bundle has been closed
+     */
+    void write( int col, int row, byte[] data )
+                            throws IOException {
+        lock.writeLock().lock();
+        try {
+            checkWritable();
+            int pos = entry( col, row );
+            Entry committed = Entry.read( index, pos );
+            Entry entry = getEntry( pos ).copy();
+            // the current slot can be reused if it is not committed yet, or the committed tile has been deleted
+            if ( !Entry.fits( entry.offset, entry.capacity, data.length, committed ) ) {
+                if ( Entry.fits( entry.spare, entry.spareCapacity, data.length, committed ) ) {
+                    entry.swap();
+                } else {
+                    // keep the larger of the old slots as spare slot, the space of the other one is not reclaimed
+                    if ( entry.capacity > entry.spareCapacity ) {
+                        entry.swap();
+                    }
+                    entry.offset = channel.size();
+                    entry.capacity = data.length;
+                }
+            }
+            writeFully( channel, ByteBuffer.wrap( data ), entry.offset );
+            entry.length = data.length;
+            entry.writes++;
+            pending.put( pos, entry );
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the tile from the index with the next {@link #flush()}, the slot of the tile is kept for the next write
+     * of the tile.
+     * 
+     * @param col
+     *            column of the tile within the bundle
+     * @param row
+     *            row of the tile within the bundle
+     * @throws IOException
+     *             if the bundle is read-only, {@link ClosedChannelException} if the bundle has been closed
+     */
+    void delete( int col, int row )
+                            throws IOException {
+        lock.writeLock().lock();
+        try {
+            checkWritable();
+            int pos = entry( col, row );
+            Entry entry = getEntry( pos );
+            if ( entry.exists() ) {
+                entry = entry.copy();
+                entry.length = -1;
+                pending.put( pos, entry );
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Commits the tiles written since the last flush: forces the tile data to disk, then updates and forces the index.
+     * 
+     * @throws IOException
+     *             if writing failed, {@link ClosedChannelException} if the bundle has been closed
+     */
+    void flush()
+                            throws IOException {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            commit();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void commit()
+                            throws IOException {
+        if ( pending.isEmpty() ) {
+            return;
+        }
+        channel.force( false );
+        for ( Map.Entry<Integer, Entry> e : pending.entrySet() ) {
+            e.getValue().write( index, e.getKey() );
+        }
+        index.force();
+        pending.clear();
+    }
+
+    /**
+     * @return <code>true</code>, if the bundle can still be used
+     */
+    boolean isOpen() {
+        lock.readLock().lock();
+        try {
+            return !closed && channel.isOpen();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes pending index changes to disk, closes the bundle file and releases the mapping of the index.
+     */
+    void close() {
+        lock.writeLock().lock();
+        try {
+            if ( closed ) {
+                return;
+            }
+            closed = true;
+            try {
+                commit();
+            } catch ( IOException e ) {
+                LOG.warn( "Unable to commit {} tiles of bundle {}: {}", pending.size(), file, e.getMessage() );
+            } finally {
+                IOUtils.closeQuietly( raf );
+                if ( !Utils.unmap( index ) ) {
+                    LOG.debug( "Unable to release the index mapping of {}, it is released on garbage collection.",
+                               file );
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    private int entry( int col, int row ) {
+        if ( col < 0 || row < 0 || col >= size || row >= size ) {
+            throw new IllegalArgumentException( "Tile " + col + "/" + row + " is outside of the bundle." );
+        }
+        return ( row * size + col ) * ENTRY_SIZE;
+    }
+
+    private Entry getEntry( int pos ) {
+        Entry entry = pending.get( pos );
+        return entry != null ? entry : Entry.read( index, pos );
+    }
+
+    private void checkOpen()
+                            throws ClosedChannelException {
+        if ( closed || !channel.isOpen() ) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private void checkWritable()
+                            throws IOException {
+        checkOpen();
+        if ( readOnly ) {
+            throw new IOException( "Tile bundle '" + file + "' is read-only." );
+        }
+    }
+
+    private static void readFully( FileChannel channel, ByteBuffer buffer, long position )
+                            throws IOException {
+        long pos = position;
+        while ( buffer.hasRemaining() ) {
+            int read = channel.read( buffer, pos );
+            if ( read < 0 ) {
+                throw new EOFException( "Unexpected end of tile bundle." );
+            }
+            pos += read;
+        }
+    }
+
+    private static void writeFully( FileChannel channel, ByteBuffer buffer, long position )
+                            throws IOException {
+        long pos = position;
+        while ( buffer.hasRemaining() ) {
+            pos += channel.write( buffer, pos );
+        }
+    }
+
+    /**
+     * Index entry of a tile.
+     */
+    private static class Entry {
+
+        private long offset;
+
+        private int capacity;
+
+        private int length;
+
+        private int writes;
+
+        private long spare;
+
+        private int spareCapacity;
+
+        private static Entry read( ByteBuffer index, int pos ) {
+            Entry entry = new Entry();
+            entry.offset = index.getLong( pos );
+            entry.capacity = index.getInt( pos + CAPACITY );
+            entry.length = index.getInt( pos + LENGTH );
+            entry.writes = index.getInt( pos + WRITES );
+            entry.spare = index.getLong( pos + SPARE );
+            entry.spareCapacity = index.getInt( pos + SPARE_CAPACITY );
+            return entry;
+        }
+
+        private void write( ByteBuffer index, int pos ) {
+            index.putLong( pos, offset );
+            index.putInt( pos + CAPACITY, capacity );
+            index.putInt( pos + LENGTH, length );
+            index.putInt( pos + WRITES, writes );
+            index.putLong( pos + SPARE, spare );
+            index.putInt( pos + SPARE_CAPACITY, spareCapacity );
+        }
+
+        private boolean exists() {
+            return offset != 0 && length >= 0;
+        }
+
+        // true, if the slot can take the data and is not used by the committed tile
+        private static boolean fits( long slot, int slotCapacity, int length, Entry committed ) {
+            return slot != 0 && slotCapacity >= length && !( committed.exists() && committed.offset == slot );
+        }
+
+        private void swap() {
+            long o = offset;
+            int c = capacity;
+            offset = spare;
+            capacity = spareCapacity;
+            spare = o;
+            spareCapacity = c;
+        }
+
+        private Entry copy() {
+            Entry entry = new Entry();
+            entry.offset = offset;
+            entry.capacity = capacity;
+            entry.length = length;
+            entry.writes = writes;
+            entry.spare = spare;
+            entry.spareCapacity = spareCapacity;
+            return entry;
+        }
+    }
+
+}
@@ -0,0 +1,248 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree
+ Copyright (C) 2001-2013 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+ and others
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ e-mail: info@deegree.org
+ website: http://www.deegree.org/
+----------------------------------------------------------------------------*/
+package org.deegree.tile.persistence.bundle;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link BundleDirectory} and {@link TileBundle}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class BundleDirectoryTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private BundleDirectory bundles;
+
+    @Before
+    public void setup() {
+        bundles = new BundleDirectory( tmp.getRoot(), "png", 4, 2, asList( "level0", "level1" ) );
+    }
+
+    @After
+    public void tearDown() {
+        bundles.close();
+    }
+
+    @Test
+    public void testWriteRead()
+                            throws IOException {
+        bundles.write( "level1", 5, 6, new byte[] { 1, 2, 3 } );
+        assertTrue( bundles.contains( "level1", 5, 6 ) );
+        assertArrayEquals( new byte[] { 1, 2, 3 }, bundles.read( "level1", 5, 6 ) );
+        assertFalse( bundles.contains( "level1", 6, 5 ) );
+        assertNull( bundles.read( "level1", 6, 5 ) );
+        assertNull( bundles.read( "level0", 5, 6 ) );
+    }
+
+    @Test
+    public void testBundleFile()
+                            throws IOException {
+        bundles.write( "level1", 5, 6, new byte[] { 1 } );
+        File file = new File( new File( tmp.getRoot(), "01" ), "R0001C0001.bundle" );
+        assertEquals( file, bundles.getBundleFile( "level1", 5, 6 ) );
+        assertTrue( file.isFile() );
+        assertEquals( TileBundle.HEADER_SIZE + 4 * 4 * TileBundle.ENTRY_SIZE + 1, file.length() );
+    }
+
+    @Test
+    public void testMissingBundleIsNotCreated()
+                            throws IOException {
+        assertFalse( bundles.contains( "level0", 100, 100 ) );
+        bundles.delete( "level0", 100, 100 );
+        assertFalse( bundles.getBundleFile( "level0", 100, 100 ).exists() );
+    }
+
+    @Test
+    public void testReplaceAndDelete()
+                            throws IOException {
+        bundles.write( "level0", 1, 1, new byte[] { 1, 2, 3 } );
+        bundles.write( "level0", 1, 1, new byte[] { 4, 5 } );
+        assertArrayEquals( new byte[] { 4, 5 }, bundles.read( "level0", 1, 1 ) );
+        bundles.delete( "level0", 1, 1 );
+        assertFalse( bundles.contains( "level0", 1, 1 ) );
+        assertNull( bundles.read( "level0", 1, 1 ) );
+    }
+
+    @Test
+    public void testReplaceReusesSpareSlot()
+                            throws IOException {
+        File file = bundles.getBundleFile( "level0", 1, 1 );
+        bundles.write( "level0", 1, 1, new byte[] { 1, 2, 3 } );
+        bundles.flush();
+        long length = file.length();
+        // the committed slot is not overwritten
+        bundles.write( "level0", 1, 1, new byte[] { 4, 5 } );
+        bundles.flush();
+        assertEquals( length + 2, file.length() );
+        // from now on the tile alternates between its two slots
+        bundles.write( "level0", 1, 1, new byte[] { 6, 7, 8 } );
+        bundles.flush();
+        bundles.write( "level0", 1, 1, new byte[] { 9 } );
+        bundles.flush();
+        assertEquals( length + 2, file.length() );
+        assertArrayEquals( new byte[] { 9 }, bundles.read( "level0", 1, 1 ) );
+        bundles.write( "level0", 1, 1, new byte[] { 1, 2, 3, 4 } );
+        assertEquals( length + 6, file.length() );
+        assertArrayEquals( new byte[] { 1, 2, 3, 4 }, bundles.read( "level0", 1, 1 ) );
+    }
+
+    @Test
+    public void testReplaceWithinBatchReusesUncommittedSlot()
+                            throws IOException {
+        File file = bundles.getBundleFile( "level0", 1, 1 );
+        bundles.write( "level0", 1, 1, new byte[] { 1, 2, 3 } );
+        long length = file.length();
+        bundles.write( "level0", 1, 1, new byte[] { 4, 5 } );
+        bundles.write( "level0", 1, 1, new byte[] { 6, 7, 8 } );
+        assertEquals( length, file.length() );
+        assertArrayEquals( new byte[] { 6, 7, 8 }, bundles.read( "level0", 1, 1 ) );
+    }
+
+    @Test
+    public void testDeleteKeepsSlot()
+                            throws IOException {
+        File file = bundles.getBundleFile( "level0", 1, 1 );
+        bundles.write( "level0", 1, 1, new byte[] { 1, 2, 3 } );
+        long length = file.length();
+        bundles.delete( "level0", 1, 1 );
+        bundles.flush();
+        bundles.write( "level0", 1, 1, new byte[] { 4 } );
+        assertEquals( length, file.length() );
+        assertArrayEquals( new byte[] { 4 }, bundles.read( "level0", 1, 1 ) );
+    }
+
+    @Test
+    public void testUncommittedChangesDoNotAffectCommittedTiles()
+                            throws IOException {
+        bundles.write( "level0", 1, 1, new byte[] { 1, 2, 3 } );
+        bundles.write( "level0", 2, 1, new byte[] { 4, 5, 6 } );
+        bundles.flush();
+        bundles.write( "level0", 1, 1, new byte[] { 7, 8, 9 } );
+        bundles.delete( "level0", 2, 1 );
+        bundles.write( "level0", 3, 1, new byte[] { 1 } );
+        // a copy of the file has the state after a crash without commit
+        File copy = tmp.newFile( "copy.bundle" );
+        FileUtils.copyFile( bundles.getBundleFile( "level0", 1, 1 ), copy );
+        TileBundle bundle = TileBundle.open( copy, 4 );
+        try {
+            assertArrayEquals( new byte[] { 1, 2, 3 }, bundle.read( 1, 1 ) );
+            assertArrayEquals( new byte[] { 4, 5, 6 }, bundle.read( 2, 1 ) );
+            assertNull( bundle.read( 3, 1 ) );
+        } finally {
+            bundle.close();
+        }
+        assertArrayEquals( new byte[] { 7, 8, 9 }, bundles.read( "level0", 1, 1 ) );
+        assertNull( bundles.read( "level0", 2, 1 ) );
+    }
+
+    @Test
+    public void testCloseReleasesBundle()
+                            throws IOException {
+        TileBundle bundle = TileBundle.open( tmp.newFile( "test.bundle" ), 4 );
+        bundle.write( 0, 0, new byte[] { 1 } );
+        bundle.close();
+        assertFalse( bundle.isOpen() );
+        try {
+            bundle.read( 0, 0 );
+            fail();
+        } catch ( ClosedChannelException e ) {
+            // expected
+        }
+        // no mapping is left, so the file can be removed
+        assertTrue( bundle.getFile().delete() );
+    }
+
+    @Test
+    public void testVersionChangesOnReplace()
+                            throws IOException {
+        assertNull( bundles.getVersion( "level0", 1, 1 ) );
+        bundles.write( "level0", 1, 1, new byte[] { 1, 2, 3 } );
+        String version = bundles.getVersion( "level0", 1, 1 );
+        assertNotNull( version );
+        assertEquals( version, bundles.getVersion( "level0", 1, 1 ) );
+        bundles.write( "level0", 1, 1, new byte[] { 1, 2, 3 } );
+        assertNotEquals( version, bundles.getVersion( "level0", 1, 1 ) );
+        bundles.delete( "level0", 1, 1 );
+        assertNull( bundles.getVersion( "level0", 1, 1 ) );
+    }
+
+    @Test
+    public void testReopen()
+                            throws IOException {
+        bundles.write( "level0", 3, 2, new byte[] { 7, 8, 9 } );
+        bundles.close();
+        bundles = new BundleDirectory( tmp.getRoot(), "png", 4, 2, asList( "level0", "level1" ) );
+        assertArrayEquals( new byte[] { 7, 8, 9 }, bundles.read( "level0", 3, 2 ) );
+    }
+
+    @Test
+    public void testEviction()
+                            throws IOException {
+        // max. two open bundles, so writing to three bundles closes the least recently used one
+        bundles.write( "level0", 0, 0, new byte[] { 1 } );
+        bundles.write( "level0", 4, 0, new byte[] { 2 } );
+        bundles.write( "level0", 8, 0, new byte[] { 3 } );
+        assertArrayEquals( new byte[] { 1 }, bundles.read( "level0", 0, 0 ) );
+        assertArrayEquals( new byte[] { 2 }, bundles.read( "level0", 4, 0 ) );
+        assertArrayEquals( new byte[] { 3 }, bundles.read( "level0", 8, 0 ) );
+    }
+
+    @Test(expected = IOException.class)
+    public void testBundleSizeMismatch()
+                            throws IOException {
+        bundles.write( "level0", 0, 0, new byte[] { 1 } );
+        bundles.close();
+        bundles = new BundleDirectory( tmp.getRoot(), "png", 8, 2, asList( "level0", "level1" ) );
+        bundles.read( "level0", 0, 0 );
+    }
+
+}
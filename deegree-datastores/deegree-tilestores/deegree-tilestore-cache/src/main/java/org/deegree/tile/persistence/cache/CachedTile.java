@@ -58,6 +58,7 @@ import org.deegree.feature.FeatureCollection;
 import org.deegree.geometry.Envelope;
 import org.deegree.tile.Tile;
 import org.deegree.tile.TileIOException;
+import org.deegree.tile.Tiles;
 import org.slf4j.Logger;
 
 /**
@@ -81,6 +82,10 @@ public class CachedTile implements Tile {
 
     private byte[] data;
 
+    private long created = -1;
+
+    private String version;
+
     public CachedTile( Tile tile, Cache cache, String key ) {
         this.tile = tile;
         this.cache = cache;
@@ -115,10 +120,32 @@ public class CachedTile implements Tile {
         return tile.getFeatures( i, j, limit );
     }
 
+    /**
+     * Returns the time the tile data has been put into the cache, as the cached data may be older than the data of
+     * the underlying tile.
+     */
+    @Override
+    public synchronized long getLastModified() {
+        getData();
+        return created;
+    }
+
+    /**
+     * Returns a hash of the cached tile data. This only accesses the cache, not the underlying tile (unless the tile
+     * is not cached yet).
+     */
+    @Override
+    public synchronized String getVersion() {
+        if ( version == null ) {
+            version = Tiles.getVersion( getData() );
+        }
+        return version;
+    }
+
     private synchronized byte[] getData() {
         if ( data == null ) {
-            Element elem = cache.get( key );
-            if ( elem == null ) {
+            Element cached = cache.get( key );
+            if ( cached == null ) {
                 try {
                     InputStream is = tile.getAsStream();
                     if ( is == null ) {
@@ -126,13 +153,16 @@ public class CachedTile implements Tile {
                     } else {
                         data = IOUtils.toByteArray( is );
                     }
-                    cache.put( new Element( key, data ) );
+                    Element elem = new Element( key, data );
+                    cache.put( elem );
+                    created = elem.getCreationTime();
                 } catch ( IOException e ) {
                     LOG.trace( e.getMessage(), e );
                     throw new TileIOException( e.getMessage(), e );
                 }
             } else {
-                data = (byte[]) elem.getValue();
+                data = (byte[]) cached.getValue();
+                created = cached.getCreationTime();
             }
         }
         return data;
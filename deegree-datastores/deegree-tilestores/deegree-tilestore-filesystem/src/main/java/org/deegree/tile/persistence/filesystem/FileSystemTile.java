@@ -50,6 +50,7 @@ import org.deegree.feature.FeatureCollection;
 import org.deegree.geometry.Envelope;
 import org.deegree.tile.Tile;
 import org.deegree.tile.TileIOException;
+import org.deegree.tile.Tiles;
 
 /**
  * A {@link Tile} that is backed by a {@link FileSystemTileStore}.
@@ -112,4 +113,14 @@ class FileSystemTile implements Tile {
                             throws UnsupportedOperationException {
         throw new UnsupportedOperationException( "Feature retrieval is not supported by the FileSystemTileStore." );
     }
+
+    @Override
+    public long getLastModified() {
+        return Tiles.getLastModified( file );
+    }
+
+    @Override
+    public String getVersion() {
+        return Tiles.getVersion( file );
+    }
 }
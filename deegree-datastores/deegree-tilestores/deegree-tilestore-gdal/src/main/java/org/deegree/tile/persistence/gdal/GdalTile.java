@@ -41,6 +41,7 @@ import org.deegree.feature.FeatureCollection;
 import org.deegree.geometry.Envelope;
 import org.deegree.tile.Tile;
 import org.deegree.tile.TileIOException;
+import org.deegree.tile.Tiles;
 
 /**
  * {@link Tile} backed by a {@link GdalDataset}.
@@ -147,4 +148,14 @@ class GdalTile implements Tile {
         throw new UnsupportedOperationException( "Feature retrieval is not supported by the GDALTileStore." );
     }
 
+    @Override
+    public long getLastModified() {
+        return Tiles.getLastModified( file );
+    }
+
+    @Override
+    public String getVersion() {
+        return Tiles.getVersion( file );
+    }
+
 }
@@ -44,6 +44,7 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Hashtable;
@@ -56,6 +57,7 @@ import org.deegree.feature.FeatureCollection;
 import org.deegree.geometry.Envelope;
 import org.deegree.tile.Tile;
 import org.deegree.tile.TileIOException;
+import org.deegree.tile.Tiles;
 
 /**
  * A {@link Tile} that is read from a GeoTIFF/BigTIFF file, through ImageIO/imageio-ext. Uses an object pool to cache
@@ -78,9 +80,12 @@ public class GeoTIFFTile implements Tile {
 
     private final GenericObjectPool readerPool;
 
-    public GeoTIFFTile( GenericObjectPool readerPool, int imageIndex, int x, int y, Envelope envelope, int sizeX,
-                        int sizeY ) {
+    private final File file;
+
+    public GeoTIFFTile( GenericObjectPool readerPool, File file, int imageIndex, int x, int y, Envelope envelope,
+                        int sizeX, int sizeY ) {
         this.readerPool = readerPool;
+        this.file = file;
         this.imageIndex = imageIndex;
         this.x = x;
         this.y = y;
@@ -146,4 +151,14 @@ public class GeoTIFFTile implements Tile {
                             throws UnsupportedOperationException {
         throw new UnsupportedOperationException( "Feature retrieval is not supported by the GeoTIFFTileStore." );
     }
+
+    @Override
+    public long getLastModified() {
+        return Tiles.getLastModified( file );
+    }
+
+    @Override
+    public String getVersion() {
+        return Tiles.getVersion( file );
+    }
 }
@@ -29,6 +29,7 @@ package org.deegree.tile.persistence.merge;
 
 import static java.awt.Color.WHITE;
 import static java.awt.image.BufferedImage.TYPE_3BYTE_BGR;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import java.awt.Color;
 import java.awt.Graphics;
@@ -52,6 +53,7 @@ import org.deegree.feature.FeatureCollection;
 import org.deegree.geometry.Envelope;
 import org.deegree.tile.Tile;
 import org.deegree.tile.TileIOException;
+import org.deegree.tile.Tiles;
 
 /**
  * {@link Tile} implementation used by {@link MergingTileStore}.
@@ -136,4 +138,30 @@ class MergingTile implements Tile {
                             throws UnsupportedOperationException {
         throw new UnsupportedOperationException( "MergingTile does not support getFeatures" );
     }
+
+    @Override
+    public long getLastModified() {
+        long lastModified = -1;
+        for ( Tile tile : tiles ) {
+            long tileLastModified = tile.getLastModified();
+            if ( tileLastModified < 0 ) {
+                return -1;
+            }
+            lastModified = Math.max( lastModified, tileLastModified );
+        }
+        return lastModified;
+    }
+
+    @Override
+    public String getVersion() {
+        StringBuilder sb = new StringBuilder();
+        for ( Tile tile : tiles ) {
+            String version = tile.getVersion();
+            if ( version == null ) {
+                return null;
+            }
+            sb.append( version ).append( '\n' );
+        }
+        return Tiles.getVersion( sb.toString().getBytes( UTF_8 ) );
+    }
 }
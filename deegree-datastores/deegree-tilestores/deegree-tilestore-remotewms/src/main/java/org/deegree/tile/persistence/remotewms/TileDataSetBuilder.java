@@ -126,8 +126,16 @@ class TileDataSetBuilder {
         extractParameters( requestParams.getParameter(), defaultGetMap, defaultGetFeatureInfo, hardGetMap,
                            hardGetFeatureInfo );
 
-        if ( outputFormat.startsWith( "image/" ) ) {
-            outputFormat = outputFormat.substring( 6 );
+        String nativeFormat;
+        if ( outputFormat.equals( format ) && !format.startsWith( "image/" ) ) {
+            // non-image formats (e.g. vector tiles) cannot be recoded, pass them through unchanged
+            nativeFormat = format;
+            outputFormat = null;
+        } else {
+            if ( outputFormat.startsWith( "image/" ) ) {
+                outputFormat = outputFormat.substring( 6 );
+            }
+            nativeFormat = "image/" + outputFormat;
         }
 
         List<TileDataLevel> dataLevels = new ArrayList<TileDataLevel>();
@@ -137,7 +145,7 @@ class TileDataSetBuilder {
                                                           hardGetFeatureInfo );
             dataLevels.add( 0, m );
         }
-        return new DefaultTileDataSet( dataLevels, tms, "image/" + outputFormat );
+        return new DefaultTileDataSet( dataLevels, tms, nativeFormat );
     }
 
     private static List<String> splitNullSafe( String csv ) {
@@ -50,17 +50,23 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
 import javax.imageio.ImageIO;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.utils.DateUtils;
 import org.deegree.commons.ows.exception.OWSException;
 import org.deegree.commons.ows.metadata.operation.Operation;
 import org.deegree.commons.utils.RequestUtils;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.geometry.Envelope;
 import org.deegree.protocol.ows.http.CloseRequiredInputStream;
+import org.deegree.protocol.ows.http.OwsHttpResponse;
 import org.deegree.protocol.wmts.client.GetTileResponse;
 import org.deegree.protocol.wmts.client.Layer;
 import org.deegree.protocol.wmts.client.WMTSClient;
@@ -94,6 +100,12 @@ class RemoteWMTSTile implements Tile {
 
     private Map<String, String> hardGetFeatureInfo;
 
+    private byte[] fetchedData;
+
+    private String remoteETag;
+
+    private long remoteLastModified = -1;
+
     /**
      * Creates a new {@link RemoteWMTSTile} instance.
      * 
@@ -145,6 +157,11 @@ class RemoteWMTSTile implements Tile {
 
     private CloseRequiredInputStream getNativeFormatRemoteStream()
                             throws TileIOException {
+        synchronized ( this ) {
+            if ( fetchedData != null ) {
+                return new CloseRequiredInputStream( null, new ByteArrayInputStream( fetchedData ) );
+            }
+        }
 
         CloseRequiredInputStream is = null;
         try {
@@ -156,6 +173,49 @@ class RemoteWMTSTile implements Tile {
         return is;
     }
 
+    /**
+     * Performs the remote request (once) and keeps the response body, so the validators sent by the remote WMTS are
+     * available without requesting the tile twice.
+     */
+    private synchronized void fetch()
+                            throws TileIOException {
+        if ( fetchedData != null ) {
+            return;
+        }
+        OwsHttpResponse response = null;
+        try {
+            response = client.getTile( request ).getAsRawResponse();
+            HttpResponse httpResponse = response.getAsHttpResponse();
+            Header etag = httpResponse.getFirstHeader( "ETag" );
+            if ( etag != null ) {
+                remoteETag = stripQuotes( etag.getValue() );
+            }
+            Header lastModified = httpResponse.getFirstHeader( "Last-Modified" );
+            if ( lastModified != null ) {
+                Date date = DateUtils.parseDate( lastModified.getValue() );
+                remoteLastModified = date == null ? -1 : date.getTime();
+            }
+            fetchedData = IOUtils.toByteArray( response.getAsBinaryStream() );
+        } catch ( Exception e ) {
+            throw new TileIOException( e.getMessage(), e );
+        } finally {
+            if ( response != null ) {
+                response.close();
+            }
+        }
+    }
+
+    private static String stripQuotes( String etag ) {
+        String value = etag.trim();
+        if ( value.startsWith( "W/" ) ) {
+            value = value.substring( 2 );
+        }
+        if ( value.length() > 1 && value.startsWith( "\"" ) && value.endsWith( "\"" ) ) {
+            value = value.substring( 1, value.length() - 1 );
+        }
+        return value.isEmpty() ? null : value;
+    }
+
     private CloseRequiredInputStream getRecodedImageStream()
                             throws TileIOException {
         BufferedImage img = getAsImage();
@@ -222,4 +282,24 @@ class RemoteWMTSTile implements Tile {
         }
         return fc;
     }
+
+    /**
+     * Returns the <code>Last-Modified</code> header sent by the remote WMTS. The tile is requested from the remote
+     * WMTS to determine it, subsequent calls of {@link #getAsStream()} use the fetched data.
+     */
+    @Override
+    public long getLastModified() {
+        fetch();
+        return remoteLastModified;
+    }
+
+    /**
+     * Returns the <code>ETag</code> header sent by the remote WMTS. The tile is requested from the remote WMTS to
+     * determine it, subsequent calls of {@link #getAsStream()} use the fetched data.
+     */
+    @Override
+    public String getVersion() {
+        fetch();
+        return remoteETag;
+    }
 }
@@ -55,6 +55,7 @@ import org.deegree.layer.metadata.LayerMetadata;
 import org.deegree.layer.persistence.LayerStore;
 import org.deegree.layer.persistence.MultipleLayerStore;
 import org.deegree.layer.persistence.feature.jaxb.FeatureLayers.AutoLayers;
+import org.deegree.layer.persistence.feature.jaxb.RenderCacheType;
 import org.deegree.style.persistence.StyleStore;
 import org.deegree.style.persistence.StyleStoreProvider;
 import org.deegree.style.se.unevaluated.Style;
@@ -105,13 +106,14 @@ class AutoFeatureLayerBuilder {
         }
 
         for ( FeatureType ft : store.getSchema().getFeatureTypes() ) {
-            addLayer( store, ft, sstore, map );
+            addLayer( store, ft, sstore, auto.getRenderCache(), map );
         }
 
         return new MultipleLayerStore( map, metadata );
     }
 
-    private void addLayer( FeatureStore store, FeatureType ft, StyleStore sstore, Map<String, Layer> map ) {
+    private void addLayer( FeatureStore store, FeatureType ft, StyleStore sstore, RenderCacheType renderCache,
+                           Map<String, Layer> map ) {
         String name = ft.getName().getLocalPart();
         LOG.debug( "Adding layer {}.", name );
         LayerMetadata md = LayerMetadataBuilder.buildMetadataForAutoMode( store, ft, name );
@@ -130,7 +132,10 @@ class AutoFeatureLayerBuilder {
             styles.put( "default", new Style() );
         }
         md.setStyles( styles );
-        Layer l = new FeatureLayer( md, store, ft.getName(), null, null, null );
+        FeatureLayer l = new FeatureLayer( md, store, ft.getName(), null, null, null );
+        if ( renderCache != null ) {
+            l.setRenderCache( new FeatureRenderCache( renderCache.getMaxEntries(), store, ft.getName() ) );
+        }
         map.put( name, l );
     }
 
@@ -45,6 +45,7 @@ import static java.lang.System.currentTimeMillis;
 import static org.deegree.commons.tom.datetime.ISO8601Converter.formatDateTime;
 import static org.deegree.layer.dims.Dimension.formatDimensionValueList;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
@@ -76,8 +77,20 @@ class DimensionFilterBuilder {
 
     private Map<String, Dimension<?>> dimensions;
 
+    private DimensionIndex index;
+
     DimensionFilterBuilder( Map<String, Dimension<?>> dimensions ) {
+        this( dimensions, null );
+    }
+
+    /**
+     * @param dimensions
+     * @param index
+     *            used to leave out requested values without data, may be <code>null</code>
+     */
+    DimensionFilterBuilder( Map<String, Dimension<?>> dimensions, DimensionIndex index ) {
         this.dimensions = dimensions;
+        this.index = index;
     }
 
     /**
@@ -116,6 +129,9 @@ class DimensionFilterBuilder {
                     throw new OWSException( "Multiple values are not allowed for ELEVATION.", "InvalidDimensionValue",
                                             "elevation" );
                 }
+                os = narrow( name, dim, vals, os );
+            }
+            if ( os.length > 1 ) {
                 ops.add( new Or( os ) );
             } else {
                 ops.add( os[0] );
@@ -165,6 +181,26 @@ class DimensionFilterBuilder {
         }
     }
 
+    /**
+     * Leaves out the filters of values that do not hit any data according to the dimension index. If no value hits any
+     * data, all filters are kept (the layer skips the store query in this case).
+     */
+    private Operator[] narrow( String name, Dimension<?> dim, List<?> vals, Operator[] os ) {
+        if ( index == null || dim.getNearestValue() ) {
+            return os;
+        }
+        List<Operator> hits = new ArrayList<Operator>( os.length );
+        for ( int i = 0; i < os.length; ++i ) {
+            if ( index.mayContain( name, vals.get( i ) ) ) {
+                hits.add( os[i] );
+            }
+        }
+        if ( hits.isEmpty() ) {
+            return os;
+        }
+        return hits.toArray( new Operator[hits.size()] );
+    }
+
     private void checkValidity( Dimension<?> dim, Object o, String name )
                             throws OWSException {
         if ( !dim.getNearestValue() && !dim.isValid( o ) ) {
@@ -225,6 +261,9 @@ class DimensionFilterBuilder {
                 String msg = "Multiple values are not allowed for TIME.";
                 throw new OWSException( msg, "InvalidDimensionValue", "time" );
             }
+            os = narrow( "time", time, vals, os );
+        }
+        if ( os.length > 1 ) {
             try {
                 ops.add( new Or( os ) );
             } catch ( Throwable e ) {
@@ -0,0 +1,665 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree
+ Copyright (C) 2001-2013 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+ and others
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ e-mail: info@deegree.org
+ website: http://www.deegree.org/
+----------------------------------------------------------------------------*/
+package org.deegree.layer.persistence.feature;
+
+import static java.lang.Math.abs;
+import static java.util.Arrays.binarySearch;
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.sort;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.deegree.commons.tom.datetime.ISO8601Converter.parseDateTime;
+import static org.deegree.layer.dims.Dimension.formatDimensionValueList;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.tom.TypedObjectNode;
+import org.deegree.commons.tom.datetime.DateTime;
+import org.deegree.commons.tom.datetime.Duration;
+import org.deegree.commons.tom.datetime.Temporal;
+import org.deegree.commons.tom.gml.property.Property;
+import org.deegree.commons.tom.gml.property.PropertyType;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.feature.Feature;
+import org.deegree.feature.persistence.ChangeTracker;
+import org.deegree.feature.persistence.FeatureStore;
+import org.deegree.feature.persistence.FeatureStoreChangeListener;
+import org.deegree.feature.persistence.FeatureStoreException;
+import org.deegree.feature.persistence.FeatureStores;
+import org.deegree.feature.persistence.query.Query;
+import org.deegree.feature.stream.FeatureInputStream;
+import org.deegree.feature.types.AppSchemas;
+import org.deegree.feature.types.FeatureType;
+import org.deegree.feature.xpath.TypedObjectNodeXPathEvaluator;
+import org.deegree.filter.FilterEvaluationException;
+import org.deegree.filter.IdFilter;
+import org.deegree.filter.OperatorFilter;
+import org.deegree.layer.dims.Dimension;
+import org.deegree.layer.dims.DimensionInterval;
+import org.slf4j.Logger;
+
+/**
+ * In-memory index of the distinct dimension values (time instants as milliseconds, numbers) of the features of a
+ * {@link FeatureLayer}.
+ * <p>
+ * The index is used to skip store queries for dimension values without data, and to narrow multi-valued dimension
+ * requests to the values that actually exist. Optionally, the dimension extents are replaced with extents computed from
+ * the indexed values (the extents are only replaced if they actually change).
+ * </p>
+ * <p>
+ * The index is built in the background with a single scan of the layer's features. Transactions that only insert into
+ * the layer's feature type are merged into the index by querying the inserted features, updates and deletes of the
+ * feature type cause a new scan, and transactions on other feature types are ignored. While the index is being
+ * updated, it does not exclude anything.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ * 
+ * @since 3.4
+ */
+class DimensionIndex implements FeatureStoreChangeListener {
+
+    private static final Logger LOG = getLogger( DimensionIndex.class );
+
+    /** Maximum number of distinct values that are listed in a computed extent, more values result in an interval. */
+    static final int MAX_LISTED_VALUES = 100;
+
+    private static final TimeZone GMT = TimeZone.getTimeZone( "GMT" );
+
+    private final FeatureStore featureStore;
+
+    private final QName featureType;
+
+    private final OperatorFilter filter;
+
+    private final Map<String, Dimension<?>> dimensions;
+
+    private final boolean computeExtents;
+
+    private final AtomicLong changes = new AtomicLong();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // ids of inserted features that are not indexed yet, guarded by this
+    private final List<String> pendingIds = new ArrayList<String>();
+
+    // true, if the next build has to scan all features, guarded by this
+    private boolean rescan = true;
+
+    private volatile boolean destroyed;
+
+    private volatile Snapshot snapshot;
+
+    private ThreadPoolExecutor builder;
+
+    /**
+     * @param featureStore
+     *            the store of the layer, must not be <code>null</code>
+     * @param featureType
+     *            the feature type of the layer, must not be <code>null</code>
+     * @param filter
+     *            the layer filter, may be <code>null</code>
+     * @param dimensions
+     *            the dimensions of the layer, must not be <code>null</code>
+     * @param computeExtents
+     *            <code>true</code>, if the dimension extents should be replaced with the extents of the data
+     */
+    DimensionIndex( FeatureStore featureStore, QName featureType, OperatorFilter filter,
+                    Map<String, Dimension<?>> dimensions, boolean computeExtents ) {
+        this.featureStore = featureStore;
+        this.featureType = featureType;
+        this.filter = filter;
+        this.dimensions = dimensions;
+        this.computeExtents = computeExtents;
+    }
+
+    /**
+     * Starts listening to transactions and schedules the initial build of the index.
+     */
+    void start() {
+        // single thread that terminates when idle, so no thread outlives the layer (and its classloader)
+        builder = new ThreadPoolExecutor( 0, 1, 60, SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread( Runnable r ) {
+                Thread t = new Thread( r, "deegree-dimension-index" );
+                t.setDaemon( true );
+                return t;
+            }
+        } );
+        FeatureStores.addChangeListener( featureStore, this );
+        schedule();
+    }
+
+    /**
+     * Stops listening to transactions and releases the indexed values.
+     */
+    void destroy() {
+        destroyed = true;
+        FeatureStores.removeChangeListener( featureStore, this );
+        if ( builder != null ) {
+            builder.shutdownNow();
+        }
+        snapshot = null;
+    }
+
+    @Override
+    public void featuresChanged( FeatureStore fs, ChangeTracker changes ) {
+        if ( !changes.getFeatureTypes().contains( featureType ) ) {
+            return;
+        }
+        List<String> ids = changes.getInsertedIds( featureType );
+        synchronized ( this ) {
+            if ( ids == null || pendingIds.size() + ids.size() > ChangeTracker.MAX_TRACKED_IDS ) {
+                rescan = true;
+                pendingIds.clear();
+            } else if ( !rescan ) {
+                pendingIds.addAll( ids );
+            }
+            this.changes.incrementAndGet();
+        }
+        schedule();
+    }
+
+    /**
+     * @return <code>true</code>, if the index reflects the current data
+     */
+    boolean isCurrent() {
+        Snapshot s = snapshot;
+        return s != null && s.generation == changes.get();
+    }
+
+    /**
+     * Checks whether the requested dimension values may hit any data. Dimensions with nearest value semantics are not
+     * checked, as their values are moved to the extent anyway.
+     * 
+     * @param requested
+     *            the requested dimension values, missing dimensions use the default values, must not be
+     *            <code>null</code>
+     * @return <code>false</code>, if the index is current and no data exists for the values of at least one dimension
+     */
+    boolean mayMatch( Map<String, List<?>> requested ) {
+        Snapshot s = current();
+        if ( s == null ) {
+            return true;
+        }
+        for ( Entry<String, Dimension<?>> e : dimensions.entrySet() ) {
+            Dimension<?> dim = e.getValue();
+            List<?> vals = requested.get( e.getKey() );
+            if ( vals == null ) {
+                vals = dim.getDefaultValue();
+            }
+            if ( dim.getNearestValue() || vals == null ) {
+                continue;
+            }
+            boolean hit = false;
+            for ( Object val : vals ) {
+                if ( mayContain( s, e.getKey(), val ) ) {
+                    hit = true;
+                    break;
+                }
+            }
+            if ( !hit ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param name
+     *            name of the dimension, must not be <code>null</code>
+     * @param val
+     *            a requested dimension value (a single value or a {@link DimensionInterval})
+     * @return <code>false</code>, if the index is current and no data exists for the value
+     */
+    boolean mayContain( String name, Object val ) {
+        Snapshot s = current();
+        return s == null || mayContain( s, name, val );
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if ( s == null || s.generation != changes.get() ) {
+            return null;
+        }
+        return s;
+    }
+
+    private static boolean mayContain( Snapshot s, String name, Object val ) {
+        double[] values = s.values.get( name );
+        if ( values == null ) {
+            return true;
+        }
+        boolean time = name.equals( "time" );
+        if ( val instanceof DimensionInterval<?, ?, ?> ) {
+            DimensionInterval<?, ?, ?> iv = (DimensionInterval<?, ?, ?>) val;
+            Double min = toDouble( iv.min, time );
+            // open intervals end with 'current'
+            Double max = iv.max instanceof String ? Double.valueOf( System.currentTimeMillis() )
+                                                 : toDouble( iv.max, time );
+            if ( min == null || max == null ) {
+                return true;
+            }
+            return containsAny( values, min, max );
+        }
+        Double d = toDouble( val, time );
+        // 'current' or values that cannot be compared
+        return d == null || binarySearch( values, d ) >= 0;
+    }
+
+    /**
+     * @param values
+     *            sorted values, must not be <code>null</code>
+     * @return <code>true</code>, if any value lies within <code>[min, max]</code>
+     */
+    static boolean containsAny( double[] values, double min, double max ) {
+        int idx = binarySearch( values, min );
+        if ( idx >= 0 ) {
+            return true;
+        }
+        int insertion = -idx - 1;
+        return insertion < values.length && values[insertion] <= max;
+    }
+
+    private void schedule() {
+        if ( destroyed || !scheduled.compareAndSet( false, true ) ) {
+            return;
+        }
+        try {
+            builder.execute( new Runnable() {
+                @Override
+                public void run() {
+                    // changes from now on schedule another build
+                    scheduled.set( false );
+                    if ( !destroyed ) {
+                        build();
+                    }
+                }
+            } );
+        } catch ( RejectedExecutionException e ) {
+            // destroyed in the meantime
+        }
+    }
+
+    private void build() {
+        long generation;
+        List<String> ids;
+        boolean full;
+        synchronized ( this ) {
+            generation = changes.get();
+            full = rescan || snapshot == null;
+            ids = new ArrayList<String>( pendingIds );
+            pendingIds.clear();
+            rescan = false;
+        }
+        if ( !full && ids.isEmpty() ) {
+            snapshot = new Snapshot( generation, snapshot.values );
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Map<String, double[]> values = null;
+        if ( !full ) {
+            try {
+                values = addInserted( snapshot.values, ids );
+            } catch ( Throwable e ) {
+                LOG.debug( "Could not add inserted features to dimension index for feature type {}, rescanning: {}",
+                           featureType, e.getLocalizedMessage() );
+                LOG.trace( "Stack trace:", e );
+            }
+        }
+        if ( values == null ) {
+            try {
+                values = scan();
+            } catch ( Throwable e ) {
+                LOG.warn( "Could not build dimension index for feature type {}: {}", featureType,
+                          e.getLocalizedMessage() );
+                LOG.trace( "Stack trace:", e );
+                synchronized ( this ) {
+                    rescan = true;
+                }
+                return;
+            }
+        }
+        if ( destroyed ) {
+            return;
+        }
+        snapshot = new Snapshot( generation, values );
+        LOG.debug( "Indexed dimension values of feature type {} ({}) in {} ms.",
+                   new Object[] { featureType, full ? "full scan" : ids.size() + " inserted features",
+                                 System.currentTimeMillis() - start } );
+        if ( computeExtents ) {
+            for ( Entry<String, double[]> e : values.entrySet() ) {
+                if ( e.getValue().length > 0 ) {
+                    boolean time = e.getKey().equals( "time" );
+                    List<?> extent = computeExtent( e.getValue(), time );
+                    Dimension<?> dim = dimensions.get( e.getKey() );
+                    // replacing an unchanged extent would invalidate cached capabilities
+                    if ( !formatDimensionValueList( extent, time ).equals( dim.getExtentAsString() ) ) {
+                        dim.setExtent( extent );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the sorted distinct values of all features of the layer, mapped to the dimension names
+     */
+    private Map<String, double[]> scan()
+                            throws FeatureStoreException, FilterEvaluationException {
+        Map<QName, String> props = resolveProperties();
+        Map<String, ValueCollector> collectors = new HashMap<String, ValueCollector>();
+        for ( String name : props.values() ) {
+            collectors.put( name, new ValueCollector() );
+        }
+        collect( new Query( featureType, filter, -1, -1, -1 ), false, props, collectors );
+        Map<String, double[]> values = new HashMap<String, double[]>();
+        for ( Entry<String, ValueCollector> e : collectors.entrySet() ) {
+            values.put( e.getKey(), e.getValue().toSortedArray() );
+        }
+        return values;
+    }
+
+    /**
+     * @param indexed
+     *            the currently indexed values, must not be <code>null</code>
+     * @param ids
+     *            the ids of the inserted features, must not be <code>null</code> or empty
+     * @return the indexed values plus the values of the inserted features that match the layer filter
+     */
+    private Map<String, double[]> addInserted( Map<String, double[]> indexed, List<String> ids )
+                            throws FeatureStoreException, FilterEvaluationException {
+        Map<QName, String> props = resolveProperties();
+        Map<String, ValueCollector> collectors = new HashMap<String, ValueCollector>();
+        for ( String name : props.values() ) {
+            // dimensions with non-comparable values are not indexed
+            if ( indexed.containsKey( name ) ) {
+                collectors.put( name, new ValueCollector() );
+            }
+        }
+        Set<String> indexable = new HashSet<String>( collectors.keySet() );
+        collect( new Query( featureType, new IdFilter( ids ), -1, -1, -1 ), true, props, collectors );
+        Map<String, double[]> values = new HashMap<String, double[]>();
+        for ( String name : indexable ) {
+            ValueCollector collector = collectors.get( name );
+            if ( collector != null ) {
+                values.put( name, merge( indexed.get( name ), collector.toSortedArray() ) );
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Adds the dimension values of the queried features to the collectors. Collectors of dimensions with
+     * non-comparable values are removed.
+     * 
+     * @param evaluateFilter
+     *            <code>true</code>, if the features have to be checked against the layer filter
+     */
+    private void collect( Query query, boolean evaluateFilter, Map<QName, String> props,
+                          Map<String, ValueCollector> collectors )
+                            throws FeatureStoreException, FilterEvaluationException {
+        TypedObjectNodeXPathEvaluator evaluator = null;
+        if ( evaluateFilter && filter != null ) {
+            Map<String, QName> bindings = new HashMap<String, QName>();
+            for ( QName name : AppSchemas.collectProperyNames( featureStore.getSchema(), featureType ) ) {
+                bindings.put( name.getLocalPart(), name );
+            }
+            evaluator = new TypedObjectNodeXPathEvaluator( bindings );
+        }
+        FeatureInputStream features = featureStore.query( query );
+        try {
+            for ( Feature f : features ) {
+                if ( evaluator != null && !filter.evaluate( f, evaluator ) ) {
+                    continue;
+                }
+                for ( Entry<QName, String> e : props.entrySet() ) {
+                    ValueCollector collector = collectors.get( e.getValue() );
+                    if ( collector == null ) {
+                        continue;
+                    }
+                    for ( Property p : f.getProperties( e.getKey() ) ) {
+                        Double d = toDouble( p.getValue(), e.getValue().equals( "time" ) );
+                        if ( d == null ) {
+                            LOG.debug( "Dimension '{}' has non-comparable values, it is not indexed.", e.getValue() );
+                            collectors.remove( e.getValue() );
+                            break;
+                        }
+                        collector.add( d );
+                    }
+                }
+            }
+        } finally {
+            features.close();
+        }
+    }
+
+    /**
+     * @return the feature type property names of the dimensions, mapped to the dimension names
+     */
+    private Map<QName, String> resolveProperties() {
+        FeatureType ft = featureStore.getSchema().getFeatureType( featureType );
+        Map<QName, String> props = new HashMap<QName, String>();
+        for ( Entry<String, Dimension<?>> e : dimensions.entrySet() ) {
+            QName name = e.getValue().getPropertyName();
+            if ( name == null ) {
+                continue;
+            }
+            if ( ft != null && ft.getPropertyDeclaration( name ) == null ) {
+                // property names in the configuration are often not qualified
+                for ( PropertyType pt : ft.getPropertyDeclarations() ) {
+                    if ( pt.getName().getLocalPart().equals( name.getLocalPart() ) ) {
+                        name = pt.getName();
+                        break;
+                    }
+                }
+            }
+            props.put( name, e.getKey() );
+        }
+        return props;
+    }
+
+    /**
+     * Converts feature property values and requested dimension values to doubles (time instants as milliseconds).
+     * 
+     * @param o
+     *            the value, may be <code>null</code>
+     * @param time
+     *            <code>true</code>, if the value belongs to the time dimension
+     * @return the value as double, <code>null</code> if it cannot be converted
+     */
+    static Double toDouble( Object o, boolean time ) {
+        if ( o instanceof PrimitiveValue ) {
+            o = ( (PrimitiveValue) o ).getValue();
+        } else if ( o instanceof TypedObjectNode && !( o instanceof Temporal ) ) {
+            return null;
+        }
+        if ( o instanceof Temporal ) {
+            return (double) ( (Temporal) o ).getTimeInMilliseconds();
+        }
+        if ( o instanceof Date ) {
+            return (double) ( (Date) o ).getTime();
+        }
+        if ( o instanceof Number ) {
+            return ( (Number) o ).doubleValue();
+        }
+        if ( o instanceof String ) {
+            try {
+                if ( time ) {
+                    return (double) parseDateTime( (String) o ).getTimeInMilliseconds();
+                }
+                return Double.valueOf( (String) o );
+            } catch ( Exception e ) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Computes a compact extent for the given values: a value list for up to {@link #MAX_LISTED_VALUES} values, an
+     * interval otherwise. The interval has a resolution if the values are evenly spaced, and is continuous otherwise.
+     * 
+     * @param values
+     *            sorted distinct values, must not be <code>null</code> or empty
+     * @param time
+     *            <code>true</code>, if the values are time instants
+     * @return the extent in the representation used by {@link Dimension}, never <code>null</code>
+     */
+    static List<?> computeExtent( double[] values, boolean time ) {
+        if ( values.length <= MAX_LISTED_VALUES ) {
+            List<Object> list = new ArrayList<Object>( values.length );
+            for ( double d : values ) {
+                list.add( time ? new DateTime( new Date( (long) d ), GMT ) : toNumber( d ) );
+            }
+            return list;
+        }
+        double min = values[0];
+        double max = values[values.length - 1];
+        double step = values[1] - min;
+        for ( int i = 2; i < values.length && step > 0; ++i ) {
+            if ( abs( values[i] - values[i - 1] - step ) > step * 1e-9 ) {
+                step = 0;
+            }
+        }
+        if ( time ) {
+            Date minDate = new Date( (long) min );
+            Date maxDate = new Date( (long) max );
+            long seconds = (long) step / 1000;
+            if ( step > 0 && seconds * 1000 == (long) step && seconds / 86400 <= Integer.MAX_VALUE ) {
+                Duration res = new Duration( 0, 0, (int) ( seconds / 86400 ), (int) ( seconds % 86400 / 3600 ),
+                                             (int) ( seconds % 3600 / 60 ), (int) ( seconds % 60 ) );
+                return Collections.singletonList( new DimensionInterval<Date, Date, Duration>( minDate, maxDate,
+                                                                                               res ) );
+            }
+            return Collections.singletonList( new DimensionInterval<Date, Date, Object>( minDate, maxDate, null ) );
+        }
+        Object res = step > 0 ? toNumber( step ) : Integer.valueOf( 0 );
+        return Collections.singletonList( new DimensionInterval<Object, Object, Object>( toNumber( min ),
+                                                                                         toNumber( max ), res ) );
+    }
+
+    /**
+     * @param a
+     *            sorted distinct values, must not be <code>null</code>
+     * @param b
+     *            sorted distinct values, must not be <code>null</code>
+     * @return the sorted distinct values of both arrays, never <code>null</code>
+     */
+    static double[] merge( double[] a, double[] b ) {
+        double[] merged = new double[a.length + b.length];
+        int i = 0, j = 0, size = 0;
+        while ( i < a.length || j < b.length ) {
+            double d;
+            if ( j == b.length || ( i < a.length && a[i] <= b[j] ) ) {
+                d = a[i++];
+            } else {
+                d = b[j++];
+            }
+            if ( size == 0 || merged[size - 1] != d ) {
+                merged[size++] = d;
+            }
+        }
+        return copyOf( merged, size );
+    }
+
+    private static Object toNumber( double d ) {
+        if ( d == Math.rint( d ) && abs( d ) <= Integer.MAX_VALUE ) {
+            return Integer.valueOf( (int) d );
+        }
+        return Double.valueOf( d );
+    }
+
+    private static class Snapshot {
+
+        final long generation;
+
+        final Map<String, double[]> values;
+
+        Snapshot( long generation, Map<String, double[]> values ) {
+            this.generation = generation;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Collects distinct values without boxing, duplicates are removed whenever the buffer is full.
+     */
+    static class ValueCollector {
+
+        private double[] buffer = new double[1024];
+
+        private int size;
+
+        void add( double d ) {
+            if ( size == buffer.length ) {
+                compact();
+                if ( size > buffer.length / 2 ) {
+                    buffer = copyOf( buffer, buffer.length * 2 );
+                }
+            }
+            buffer[size++] = d;
+        }
+
+        double[] toSortedArray() {
+            compact();
+            return copyOf( buffer, size );
+        }
+
+        private void compact() {
+            sort( buffer, 0, size );
+            int distinct = 0;
+            for ( int i = 0; i < size; ++i ) {
+                if ( distinct == 0 || buffer[i] != buffer[distinct - 1] ) {
+                    buffer[distinct++] = buffer[i];
+                }
+            }
+            size = distinct;
+        }
+    }
+
+}
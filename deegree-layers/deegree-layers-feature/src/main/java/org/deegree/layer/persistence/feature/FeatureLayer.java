@@ -45,6 +45,7 @@ import static org.deegree.layer.persistence.feature.FilterBuilder.buildFilterFor
 import static org.deegree.style.utils.Styles.getStyleFilters;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -88,7 +89,11 @@ public class FeatureLayer extends AbstractLayer {
 
     SortProperty[] sortBy, sortByFeatureInfo;
 
-    private final DimensionFilterBuilder dimFilterBuilder;
+    private DimensionFilterBuilder dimFilterBuilder;
+
+    private FeatureRenderCache renderCache;
+
+    private DimensionIndex dimIndex;
 
     public FeatureLayer( LayerMetadata md, FeatureStore featureStore, QName featureType, OperatorFilter filter,
                          List<SortProperty> sortBy, List<SortProperty> sortByFeatureInfo ) {
@@ -105,15 +110,45 @@ public class FeatureLayer extends AbstractLayer {
         dimFilterBuilder = new DimensionFilterBuilder( md.getDimensions() );
     }
 
+    /**
+     * Sets and starts the render cache.
+     * 
+     * @param renderCache
+     *            the cache for evaluated and generalized features, must not be <code>null</code>
+     */
+    void setRenderCache( FeatureRenderCache renderCache ) {
+        this.renderCache = renderCache;
+        renderCache.start();
+    }
+
+    /**
+     * @return the render cache, may be <code>null</code>
+     */
+    public FeatureRenderCache getRenderCache() {
+        return renderCache;
+    }
+
+    /**
+     * Sets and starts the index that is used to skip store queries for dimension values without data.
+     * 
+     * @param dimIndex
+     *            the dimension index, must not be <code>null</code>
+     */
+    void setDimensionIndex( DimensionIndex dimIndex ) {
+        this.dimIndex = dimIndex;
+        dimFilterBuilder = new DimensionFilterBuilder( getMetadata().getDimensions(), dimIndex );
+        dimIndex.start();
+    }
+
     @Override
     public FeatureLayerData mapQuery( final LayerQuery query, List<String> headers )
                             throws OWSException {
-        Style style = resolveStyleRef( query.getStyle() );
-        if ( style == null ) {
+        Style layerStyle = resolveStyleRef( query.getStyle() );
+        if ( layerStyle == null ) {
             throw new OWSException( "The style " + query.getStyle().getName() + " is not defined for layer "
                                     + getMetadata().getName() + ".", "StyleNotDefined", "styles" );
         }
-        style = style.filter( query.getScale() );
+        Style style = layerStyle.filter( query.getScale() );
 
         OperatorFilter filter = buildFilterForMap( this.filter, style, query, dimFilterBuilder, headers );
 
@@ -137,6 +172,11 @@ public class FeatureLayer extends AbstractLayer {
 
         filter = Filters.repair( filter, AppSchemas.collectProperyNames( featureStore.getSchema(), ftName ) );
 
+        if ( dimIndex != null && !dimIndex.mayMatch( query.getDimensions() ) ) {
+            LOG.debug( "No data for the requested dimension values, skipping the feature store query." );
+            return new FeatureLayerData( Collections.<Query> emptyList(), featureStore, -1, style, ftName );
+        }
+
         QueryBuilder builder = new QueryBuilder( featureStore, filter, ftName, bbox, query, geomProp, sortBy,
                                                  getMetadata().getName() );
         List<Query> queries = builder.buildMapQueries();
@@ -149,7 +189,23 @@ public class FeatureLayer extends AbstractLayer {
         Integer maxFeats = query.getRenderingOptions().getMaxFeatures( getMetadata().getName() );
         final int maxFeatures = maxFeats == null ? -1 : maxFeats;
 
-        return new FeatureLayerData( queries, featureStore, maxFeatures, style, ftName );
+        FeatureRenderCache.Scope cacheScope = null;
+        if ( renderCache != null ) {
+            cacheScope = renderCache.getScope( layerStyle, style, bbox, query.getResolution(), filter, maxFeatures );
+        }
+
+        return new FeatureLayerData( queries, featureStore, maxFeatures, style, ftName, cacheScope );
+    }
+
+    @Override
+    public void destroy() {
+        if ( renderCache != null ) {
+            renderCache.destroy();
+        }
+        if ( dimIndex != null ) {
+            dimIndex.destroy();
+        }
+        super.destroy();
     }
 
     @Override
@@ -178,6 +234,11 @@ public class FeatureLayer extends AbstractLayer {
 
         filter = Filters.repair( filter, AppSchemas.collectProperyNames( featureStore.getSchema(), featureType ) );
 
+        if ( dimIndex != null && !dimIndex.mayMatch( query.getDimensions() ) ) {
+            LOG.debug( "No data for the requested dimension values, skipping the feature store query." );
+            return new FeatureLayerData( Collections.<Query> emptyList(), featureStore, -1, style, featureType );
+        }
+
         LOG.debug( "Querying the feature store(s)..." );
 
         QueryBuilder builder = new QueryBuilder( featureStore, filter, featureType, clickBox, query, null,
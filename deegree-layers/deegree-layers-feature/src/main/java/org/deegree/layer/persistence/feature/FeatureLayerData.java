@@ -38,12 +38,15 @@ package org.deegree.layer.persistence.feature;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import javax.xml.namespace.QName;
 
+import org.deegree.commons.utils.Triple;
+import org.deegree.feature.DuplicateFeatureFilter;
 import org.deegree.feature.Feature;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.feature.GenericFeatureCollection;
@@ -55,9 +58,12 @@ import org.deegree.feature.types.AppSchemas;
 import org.deegree.feature.xpath.TypedObjectNodeXPathEvaluator;
 import org.deegree.filter.FilterEvaluationException;
 import org.deegree.filter.XPathEvaluator;
+import org.deegree.geometry.Geometry;
 import org.deegree.layer.LayerData;
+import org.deegree.rendering.r2d.context.FeatureRenderContext;
 import org.deegree.rendering.r2d.context.RenderContext;
 import org.deegree.style.se.unevaluated.Style;
+import org.deegree.style.styling.Styling;
 import org.slf4j.Logger;
 
 /**
@@ -81,7 +87,24 @@ public class FeatureLayerData implements LayerData {
 
     private final FeatureStore featureStore;
 
+    private final FeatureRenderCache.Scope renderCache;
+
     public FeatureLayerData( List<Query> queries, FeatureStore featureStore, int maxFeatures, Style style, QName ftName ) {
+        this( queries, featureStore, maxFeatures, style, ftName, null );
+    }
+
+    /**
+     * @param queries
+     * @param featureStore
+     * @param maxFeatures
+     * @param style
+     * @param ftName
+     * @param renderCache
+     *            the render cache to use, may be <code>null</code>
+     */
+    public FeatureLayerData( List<Query> queries, FeatureStore featureStore, int maxFeatures, Style style,
+                             QName ftName, FeatureRenderCache.Scope renderCache ) {
+        this.renderCache = renderCache;
         this.queries = queries;
         this.featureStore = featureStore;
         this.maxFeatures = maxFeatures;
@@ -96,13 +119,29 @@ public class FeatureLayerData implements LayerData {
 
     @Override
     public void render( RenderContext context ) throws InterruptedException {
+        if ( queries.isEmpty() ) {
+            // nothing to render, eg. no data for the requested dimension values
+            return;
+        }
+        FeatureRenderContext featureContext = context instanceof FeatureRenderContext ? (FeatureRenderContext) context
+                                                                                      : null;
+        // feature render contexts need the features, not only the stylings
+        FeatureRenderCache.Scope cache = featureContext == null ? renderCache : null;
+        if ( cache != null ) {
+            List<Triple<Styling, LinkedList<Geometry>, String>> cached = cache.get();
+            if ( cached != null ) {
+                LOG.debug( "Rendering {} cached stylings, skipping the feature store query.", cached.size() );
+                new FeatureStreamRenderer( context, maxFeatures, evaluator ).renderCached( cached );
+                return;
+            }
+        }
         FeatureInputStream features = null;
         try {
             // TODO Should this always be done on this level? What about queueSize value?
             features = featureStore.query( queries.toArray( new Query[queries.size()] ) );
             features = new ThreadedFeatureInputStream( features, 100 );
 
-            FeatureStreamRenderer renderer = new FeatureStreamRenderer( context, maxFeatures, evaluator );
+            FeatureStreamRenderer renderer = new FeatureStreamRenderer( context, maxFeatures, evaluator, cache );
             renderer.renderFeatureStream( features, style );
         } catch ( InterruptedException e ) {
             throw e;
@@ -119,13 +158,21 @@ public class FeatureLayerData implements LayerData {
         }
     }
 
-    private static FeatureCollection clearDuplicates( FeatureInputStream rs ) {
+    /**
+     * Collects the distinct features (see {@link DuplicateFeatureFilter}) of the stream, stopping as soon as the given
+     * number of features has been collected.
+     */
+    private static FeatureCollection clearDuplicates( FeatureInputStream rs, int maxFeatures ) {
         FeatureCollection col = null;
         try {
             col = new GenericFeatureCollection();
+            DuplicateFeatureFilter filter = new DuplicateFeatureFilter();
             for ( Feature f : rs ) {
-                if ( !col.contains( f ) ) {
+                if ( filter.add( f ) ) {
                     col.add( f );
+                    if ( maxFeatures > 0 && col.size() >= maxFeatures ) {
+                        break;
+                    }
                 }
             }
         } finally {
@@ -136,9 +183,12 @@ public class FeatureLayerData implements LayerData {
 
     @Override
     public FeatureCollection info() {
+        if ( queries.isEmpty() ) {
+            return new GenericFeatureCollection();
+        }
         FeatureCollection col = null;
         try {
-            col = clearDuplicates( featureStore.query( queries.toArray( new Query[queries.size()] ) ) );
+            col = clearDuplicates( featureStore.query( queries.toArray( new Query[queries.size()] ) ), maxFeatures );
         } catch ( Throwable e ) {
             LOG.warn( "Data could not be fetched from the feature store. The error was '{}'.", e.getLocalizedMessage() );
             LOG.trace( "Stack trace:", e );
@@ -0,0 +1,342 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2012 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.layer.persistence.feature;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.utils.Triple;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.feature.persistence.ChangeTracker;
+import org.deegree.feature.persistence.FeatureStore;
+import org.deegree.feature.persistence.FeatureStoreChangeListener;
+import org.deegree.feature.persistence.FeatureStores;
+import org.deegree.filter.OperatorFilter;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryTransformer;
+import org.deegree.geometry.primitive.Point;
+import org.deegree.geometry.refs.GeometryReference;
+import org.deegree.geometry.standard.AbstractDefaultGeometry;
+import org.deegree.style.se.unevaluated.Style;
+import org.deegree.style.styling.Styling;
+import org.deegree.style.styling.TextStyling;
+import org.slf4j.Logger;
+
+import com.vividsolutions.jts.simplify.TopologyPreservingSimplifier;
+
+/**
+ * Caches the evaluated stylings of all features rendered for a map extent, with geometries transformed into the map
+ * crs and simplified to the pixel size. Repeated requests for the same map (e.g. the same tile requested by different
+ * clients) skip the feature store query, the style evaluation, the crs transformation, linearization and
+ * simplification.
+ * <p>
+ * Entries are keyed by style, map crs, query extent, resolution, filter and maximum number of features, as the feature
+ * store may return features clipped to the extent and generalized for the resolution. The cache is bounded by the
+ * number of entries, and values are held by {@link SoftReference}s. All entries are removed after a transaction on
+ * the feature type of the layer.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class FeatureRenderCache implements FeatureStoreChangeListener {
+
+    private static final Logger LOG = getLogger( FeatureRenderCache.class );
+
+    /** Default maximum number of cached map extents. */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final Map<Scope, SoftReference<List<Triple<Styling, LinkedList<Geometry>, String>>>> cache;
+
+    private final FeatureStore featureStore;
+
+    private final QName featureType;
+
+    // incremented by transactions, renderings started before are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param maxEntries
+     *            the maximum number of cached map extents
+     * @param featureStore
+     *            the store of the layer, must not be <code>null</code> if the cache is started
+     * @param featureType
+     *            the feature type of the layer, <code>null</code> if transactions on all feature types invalidate the
+     *            cache
+     */
+    public FeatureRenderCache( int maxEntries, FeatureStore featureStore, QName featureType ) {
+        this.cache = Collections.synchronizedMap( new CacheMap( maxEntries ) );
+        this.featureStore = featureStore;
+        this.featureType = featureType;
+    }
+
+    /**
+     * Starts listening to transactions on the feature store.
+     */
+    void start() {
+        FeatureStores.addChangeListener( featureStore, this );
+    }
+
+    /**
+     * Stops listening to transactions and removes all entries.
+     */
+    void destroy() {
+        FeatureStores.removeChangeListener( featureStore, this );
+        clear();
+    }
+
+    @Override
+    public void featuresChanged( FeatureStore fs, ChangeTracker changes ) {
+        if ( featureType == null || changes.getFeatureTypes().contains( featureType ) ) {
+            generation.incrementAndGet();
+            clear();
+        }
+    }
+
+    /**
+     * @param style
+     *            the (unfiltered) style of the layer, used as part of the cache key
+     * @param scaleFilteredStyle
+     *            the style filtered for the requested scale
+     * @param queryBox
+     *            the extent of the feature store query, in the crs of the map
+     * @param resolution
+     *            the resolution of the map in crs units per pixel
+     * @param filter
+     *            the filter of the feature store query, may be <code>null</code>
+     * @param maxFeatures
+     *            the maximum number of rendered features, -1 for no limit
+     * @return a scope to access the cache for one rendering, or <code>null</code> if the values do not allow caching
+     */
+    public Scope getScope( Style style, Style scaleFilteredStyle, Envelope queryBox, double resolution,
+                           OperatorFilter filter, int maxFeatures ) {
+        ICRS crs = queryBox == null ? null : queryBox.getCoordinateSystem();
+        if ( crs == null || Double.isNaN( resolution ) || resolution <= 0 || Double.isInfinite( resolution ) ) {
+            return null;
+        }
+        try {
+            return new Scope( style, scaleFilteredStyle, queryBox, resolution, filter, maxFeatures );
+        } catch ( Throwable e ) {
+            LOG.debug( "Render cache not used, could not set up transformer to {}: {}", crs.getAlias(),
+                       e.getLocalizedMessage() );
+            LOG.trace( "Stack trace:", e );
+            return null;
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Access to the cache for one map rendering.
+     */
+    public class Scope {
+
+        private final Style style;
+
+        private final List<Object> rules;
+
+        private final String crs;
+
+        private final double[] queryBox;
+
+        private final double resolution;
+
+        private final String filter;
+
+        private final int maxFeatures;
+
+        private final long generation;
+
+        private final double tolerance;
+
+        private final GeometryTransformer transformer;
+
+        private Scope( Style style, Style scaleFilteredStyle, Envelope queryBox, double resolution,
+                       OperatorFilter filter, int maxFeatures ) {
+            this.style = style;
+            this.rules = new ArrayList<Object>( scaleFilteredStyle.getRules() );
+            this.crs = queryBox.getCoordinateSystem().getAlias();
+            this.queryBox = new double[] { queryBox.getMin().get0(), queryBox.getMin().get1(),
+                                          queryBox.getMax().get0(), queryBox.getMax().get1() };
+            this.resolution = resolution;
+            this.filter = filter == null ? "" : filter.toString();
+            this.maxFeatures = maxFeatures;
+            this.generation = FeatureRenderCache.this.generation.get();
+            // half of the pixel size
+            this.tolerance = resolution / 2;
+            this.transformer = new GeometryTransformer( queryBox.getCoordinateSystem() );
+        }
+
+        /**
+         * @return the cached stylings of all features of the map, or <code>null</code>
+         */
+        public List<Triple<Styling, LinkedList<Geometry>, String>> get() {
+            SoftReference<List<Triple<Styling, LinkedList<Geometry>, String>>> ref = cache.get( this );
+            return ref == null ? null : ref.get();
+        }
+
+        /**
+         * Caches the stylings of all features of the map. Nothing is cached if a transaction has been committed since
+         * this scope was created.
+         * 
+         * @param prepared
+         *            the stylings as returned by {@link #prepare(LinkedList)}, must not be <code>null</code>
+         */
+        public void put( List<Triple<Styling, LinkedList<Geometry>, String>> prepared ) {
+            if ( generation == FeatureRenderCache.this.generation.get() ) {
+                cache.put( this, new SoftReference<List<Triple<Styling, LinkedList<Geometry>, String>>>( prepared ) );
+            }
+        }
+
+        /**
+         * Transforms and simplifies the geometries of the given evaluated stylings.
+         * 
+         * @param evaluated
+         *            as returned by {@link Style#evaluate}
+         * @return the prepared stylings, to be used for rendering
+         */
+        public LinkedList<Triple<Styling, LinkedList<Geometry>, String>> prepare( LinkedList<Triple<Styling, LinkedList<Geometry>, String>> evaluated ) {
+            LinkedList<Triple<Styling, LinkedList<Geometry>, String>> prepared = new LinkedList<Triple<Styling, LinkedList<Geometry>, String>>();
+            for ( Triple<Styling, LinkedList<Geometry>, String> evald : evaluated ) {
+                boolean simplify = !( evald.first instanceof TextStyling );
+                LinkedList<Geometry> geoms = new LinkedList<Geometry>();
+                for ( Geometry geom : evald.second ) {
+                    geoms.add( prepare( geom, simplify ) );
+                }
+                prepared.add( new Triple<Styling, LinkedList<Geometry>, String>( evald.first, geoms, evald.third ) );
+            }
+            return prepared;
+        }
+
+        private Geometry prepare( Geometry geom, boolean simplify ) {
+            if ( geom == null ) {
+                return null;
+            }
+            if ( geom instanceof GeometryReference<?> ) {
+                geom = ( (GeometryReference<?>) geom ).getReferencedObject();
+            }
+            if ( geom.getCoordinateSystem() == null || geom instanceof Envelope ) {
+                return geom;
+            }
+            Geometry result = geom;
+            try {
+                if ( !transformer.getTargetCRS().equals( geom.getCoordinateSystem() ) ) {
+                    result = transformer.transform( geom );
+                }
+                if ( simplify && !( result instanceof Point ) && result instanceof AbstractDefaultGeometry ) {
+                    AbstractDefaultGeometry defaultGeom = (AbstractDefaultGeometry) result;
+                    com.vividsolutions.jts.geom.Geometry jtsGeom = defaultGeom.getJTSGeometry();
+                    com.vividsolutions.jts.geom.Geometry simplified = TopologyPreservingSimplifier.simplify( jtsGeom,
+                                                                                                           tolerance );
+                    if ( !simplified.isEmpty() ) {
+                        result = defaultGeom.createFromJTS( simplified, result.getCoordinateSystem() );
+                    }
+                }
+            } catch ( Throwable e ) {
+                // the renderer will transform (and linearize) the original geometry
+                LOG.debug( "Geometry could not be prepared for the render cache: {}", e.getLocalizedMessage() );
+                LOG.trace( "Stack trace:", e );
+                return geom;
+            }
+            return result == null ? geom : result;
+        }
+
+        @Override
+        public boolean equals( Object other ) {
+            if ( !( other instanceof Scope ) ) {
+                return false;
+            }
+            Scope that = (Scope) other;
+            return style == that.style && resolution == that.resolution && maxFeatures == that.maxFeatures
+                   && crs.equals( that.crs ) && Arrays.equals( queryBox, that.queryBox )
+                   && filter.equals( that.filter ) && rules.equals( that.rules );
+        }
+
+        @Override
+        public int hashCode() {
+            int code = System.identityHashCode( style );
+            long bits = Double.doubleToLongBits( resolution );
+            code = code * 37 + (int) ( bits ^ ( bits >>> 32 ) );
+            code = code * 37 + maxFeatures;
+            code = code * 37 + crs.hashCode();
+            code = code * 37 + Arrays.hashCode( queryBox );
+            code = code * 37 + filter.hashCode();
+            return code * 37 + rules.hashCode();
+        }
+    }
+
+    private class CacheMap extends LinkedHashMap<Scope, SoftReference<List<Triple<Styling, LinkedList<Geometry>, String>>>> {
+
+        private static final long serialVersionUID = 2920362357126390186L;
+
+        private final int maxEntries;
+
+        private CacheMap( int maxEntries ) {
+            super( 16, 0.75f, true );
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<Scope, SoftReference<List<Triple<Styling, LinkedList<Geometry>, String>>>> eldest ) {
+            return size() > maxEntries;
+        }
+    }
+
+}
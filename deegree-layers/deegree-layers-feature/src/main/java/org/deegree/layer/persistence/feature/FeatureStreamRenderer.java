@@ -45,6 +45,7 @@ import static org.slf4j.LoggerFactory.getLogger;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 
 import org.deegree.commons.utils.Triple;
 import org.deegree.feature.Feature;
@@ -56,6 +57,7 @@ import org.deegree.rendering.r2d.Renderer;
 import org.deegree.rendering.r2d.TextRenderer;
 import org.deegree.rendering.r2d.LabelRenderer;
 import org.deegree.rendering.r2d.Label;
+import org.deegree.rendering.r2d.context.FeatureRenderContext;
 import org.deegree.rendering.r2d.context.RenderContext;
 import org.deegree.style.se.unevaluated.Style;
 import org.deegree.style.styling.Styling;
@@ -80,10 +82,25 @@ class FeatureStreamRenderer {
 
     private XPathEvaluator<?> evaluator;
 
+    private FeatureRenderCache.Scope cache;
+
     FeatureStreamRenderer( RenderContext context, int maxFeatures, XPathEvaluator<?> evaluator ) {
+        this( context, maxFeatures, evaluator, null );
+    }
+
+    /**
+     * @param context
+     * @param maxFeatures
+     * @param evaluator
+     * @param cache
+     *            to store the evaluated and generalized features of the rendering, may be <code>null</code>
+     */
+    FeatureStreamRenderer( RenderContext context, int maxFeatures, XPathEvaluator<?> evaluator,
+                           FeatureRenderCache.Scope cache ) {
         this.context = context;
         this.maxFeatures = maxFeatures;
         this.evaluator = evaluator;
+        this.cache = cache;
     }
 
     void renderFeatureStream( FeatureInputStream features, Style style )
@@ -94,22 +111,27 @@ class FeatureStreamRenderer {
         //TextRenderer textRenderer = context.getTextRenderer();
         LabelRenderer labelRenderer = context.getLabelRenderer();
         //ArrayList<Label> labelList = new ArrayList<Label>();
-        
+        FeatureRenderContext featureContext = context instanceof FeatureRenderContext ? (FeatureRenderContext) context
+                                                                                      : null;
+        List<Triple<Styling, LinkedList<Geometry>, String>> prepared = cache == null ? null
+                                                                                     : new ArrayList<Triple<Styling, LinkedList<Geometry>, String>>();
+
         for ( Feature f : features ) {
             if ( Thread.interrupted() ) {
                 throw new InterruptedException();
             }
             try {
+                if ( featureContext != null ) {
+                    featureContext.startFeature( f );
+                }
                 LinkedList<Triple<Styling, LinkedList<Geometry>, String>> evalds = style.evaluate( f,
                                                                                                    (XPathEvaluator<Feature>) evaluator );
+                if ( cache != null ) {
+                    evalds = cache.prepare( evalds );
+                    prepared.addAll( evalds );
+                }
                 for ( Triple<Styling, LinkedList<Geometry>, String> evald : evalds ) {
-                    if ( evald.first instanceof TextStyling ) {
-                        //textRenderer.render( (TextStyling) evald.first, evald.third, evald.second );
-                       // labelList.addAll( 
-                        labelRenderer.createLabel( (TextStyling) evald.first, evald.third, evald.second );
-                    } else {
-                        renderer.render( evald.first, evald.second );
-                    }
+                    render( evald, renderer, labelRenderer );
                 }
             } catch ( Throwable e ) {
                 LOG.warn( "Unable to render feature, probably a curve had multiple/non-linear segments." );
@@ -121,8 +143,46 @@ class FeatureStreamRenderer {
                 break;
             }
         }
-        
 
+        // only complete renderings are cached
+        if ( cache != null ) {
+            cache.put( prepared );
+        }
+    }
+
+    /**
+     * Renders the stylings of a cached rendering.
+     * 
+     * @param prepared
+     *            as returned by {@link FeatureRenderCache.Scope#get()}, must not be <code>null</code>
+     * @throws InterruptedException
+     */
+    void renderCached( List<Triple<Styling, LinkedList<Geometry>, String>> prepared )
+                            throws InterruptedException {
+        Renderer renderer = context.getVectorRenderer();
+        LabelRenderer labelRenderer = context.getLabelRenderer();
+        for ( Triple<Styling, LinkedList<Geometry>, String> evald : prepared ) {
+            if ( Thread.interrupted() ) {
+                throw new InterruptedException();
+            }
+            try {
+                render( evald, renderer, labelRenderer );
+            } catch ( Throwable e ) {
+                LOG.warn( "Unable to render cached feature: {}", e.getLocalizedMessage() );
+                LOG.trace( "Stack trace:", e );
+            }
+        }
+    }
+
+    private void render( Triple<Styling, LinkedList<Geometry>, String> evald, Renderer renderer,
+                         LabelRenderer labelRenderer ) {
+        if ( evald.first instanceof TextStyling ) {
+            //textRenderer.render( (TextStyling) evald.first, evald.third, evald.second );
+            // labelList.addAll( 
+            labelRenderer.createLabel( (TextStyling) evald.first, evald.third, evald.second );
+        } else {
+            renderer.render( evald.first, evald.second );
+        }
     }
 
 }
@@ -42,6 +42,7 @@
 package org.deegree.layer.persistence.feature;
 
 import static org.deegree.layer.config.ConfigUtils.parseStyles;
+import static org.slf4j.LoggerFactory.getLogger;
 
 import java.net.URISyntaxException;
 import java.util.ArrayList;
@@ -66,6 +67,7 @@ import org.deegree.layer.persistence.feature.jaxb.FeatureLayers;
 import org.deegree.style.se.unevaluated.Style;
 import org.deegree.workspace.ResourceMetadata;
 import org.deegree.workspace.Workspace;
+import org.slf4j.Logger;
 
 /**
  * Builds feature layers that are manually configured.
@@ -77,6 +79,8 @@ import org.deegree.workspace.Workspace;
  */
 class ManualFeatureLayerBuilder {
 
+    private static final Logger LOG = getLogger( ManualFeatureLayerBuilder.class );
+
     private FeatureLayers lays;
 
     private ResourceMetadata<LayerStore> metadata;
@@ -118,7 +122,21 @@ class ManualFeatureLayerBuilder {
             Pair<Map<String, Style>, Map<String, Style>> p = parseStyles( workspace, lay.getName(), lay.getStyleRef() );
             md.setStyles( p.first );
             md.setLegendStyles( p.second );
-            Layer l = new FeatureLayer( md, store, featureType, filter, sortBy, sortByFeatureInfo );
+            FeatureLayer l = new FeatureLayer( md, store, featureType, filter, sortBy, sortByFeatureInfo );
+            if ( lay.getRenderCache() != null ) {
+                l.setRenderCache( new FeatureRenderCache( lay.getRenderCache().getMaxEntries(), store, featureType ) );
+            }
+            if ( lay.getDimensionIndex() != null ) {
+                if ( featureType == null ) {
+                    LOG.warn( "Layer {} does not configure a feature type, dimension index is disabled.",
+                              lay.getName() );
+                } else if ( md.getDimensions().isEmpty() ) {
+                    LOG.warn( "Layer {} does not have dimensions, dimension index is disabled.", lay.getName() );
+                } else {
+                    l.setDimensionIndex( new DimensionIndex( store, featureType, filter, md.getDimensions(),
+                                                             lay.getDimensionIndex().isComputeExtent() ) );
+                }
+            }
             map.put( lay.getName(), l );
         }
         return new MultipleLayerStore( map, metadata );
@@ -0,0 +1,180 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree
+ Copyright (C) 2001-2013 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+ and others
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ e-mail: info@deegree.org
+ website: http://www.deegree.org/
+----------------------------------------------------------------------------*/
+package org.deegree.layer.persistence.feature;
+
+import static org.deegree.commons.tom.datetime.ISO8601Converter.parseDateTime;
+import static org.deegree.layer.persistence.feature.DimensionIndex.computeExtent;
+import static org.deegree.layer.persistence.feature.DimensionIndex.containsAny;
+import static org.deegree.layer.persistence.feature.DimensionIndex.merge;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+
+import org.deegree.commons.tom.datetime.DateTime;
+import org.deegree.commons.tom.datetime.Duration;
+import org.deegree.layer.dims.Dimension;
+import org.deegree.layer.dims.DimensionInterval;
+import org.deegree.layer.persistence.feature.DimensionIndex.ValueCollector;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DimensionIndex}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class DimensionIndexTest {
+
+    private static final long HOUR = 3600 * 1000;
+
+    @Test
+    public void testComputeExtentListsFewNumbers() {
+        List<?> extent = computeExtent( new double[] { 1, 2.5, 7 }, false );
+        assertEquals( 3, extent.size() );
+        assertEquals( Integer.valueOf( 1 ), extent.get( 0 ) );
+        assertEquals( Double.valueOf( 2.5 ), extent.get( 1 ) );
+        assertEquals( Integer.valueOf( 7 ), extent.get( 2 ) );
+    }
+
+    @Test
+    public void testComputeExtentListsFewTimes() {
+        long t = parseDateTime( "2014-01-01T00:00:00Z" ).getTimeInMilliseconds();
+        List<?> extent = computeExtent( new double[] { t, t + HOUR }, true );
+        assertEquals( 2, extent.size() );
+        assertTrue( extent.get( 0 ) instanceof DateTime );
+        assertEquals( t + HOUR, ( (DateTime) extent.get( 1 ) ).getTimeInMilliseconds() );
+    }
+
+    @Test
+    public void testComputeExtentEvenlySpacedNumbers() {
+        DimensionInterval<?, ?, ?> iv = interval( computeExtent( range( 0, 5, 200 ), false ) );
+        assertEquals( Integer.valueOf( 0 ), iv.min );
+        assertEquals( Integer.valueOf( 995 ), iv.max );
+        assertEquals( Integer.valueOf( 5 ), iv.res );
+    }
+
+    @Test
+    public void testComputeExtentUnevenNumbers() {
+        double[] values = range( 0, 5, 200 );
+        values[100] += 1;
+        DimensionInterval<?, ?, ?> iv = interval( computeExtent( values, false ) );
+        assertEquals( Integer.valueOf( 0 ), iv.res );
+    }
+
+    @Test
+    public void testComputeExtentEvenlySpacedTimes() {
+        long t = parseDateTime( "2014-01-01T00:00:00Z" ).getTimeInMilliseconds();
+        DimensionInterval<?, ?, ?> iv = interval( computeExtent( range( t, HOUR * 25, 101 ), true ) );
+        assertEquals( new Date( t ), iv.min );
+        assertEquals( new Date( t + HOUR * 25 * 100 ), iv.max );
+        Duration res = (Duration) iv.res;
+        assertEquals( 1, res.getDays() );
+        assertEquals( 1, res.getHours() );
+        assertEquals( 0, res.getMinutes() );
+    }
+
+    @Test
+    public void testContainsAny() {
+        double[] values = { 1, 5, 9 };
+        assertTrue( containsAny( values, 5, 5 ) );
+        assertTrue( containsAny( values, 2, 6 ) );
+        assertTrue( containsAny( values, 0, 1 ) );
+        assertFalse( containsAny( values, 2, 4 ) );
+        assertFalse( containsAny( values, 10, 20 ) );
+        assertFalse( containsAny( new double[0], 0, 1 ) );
+    }
+
+    @Test
+    public void testValueCollectorRemovesDuplicates() {
+        ValueCollector collector = new ValueCollector();
+        for ( int i = 0; i < 5000; ++i ) {
+            collector.add( i % 10 );
+        }
+        assertArrayEquals( range( 0, 1, 10 ), collector.toSortedArray(), 0 );
+    }
+
+    @Test
+    public void testValueCollectorGrows() {
+        ValueCollector collector = new ValueCollector();
+        for ( int i = 3000; i > 0; --i ) {
+            collector.add( i );
+        }
+        double[] values = collector.toSortedArray();
+        assertEquals( 3000, values.length );
+        assertEquals( 1, values[0], 0 );
+        assertEquals( 3000, values[2999], 0 );
+    }
+
+    @Test
+    public void testMerge() {
+        assertArrayEquals( new double[] { 1, 2, 3, 5, 8 }, merge( new double[] { 1, 3, 5 }, new double[] { 2, 3, 8 } ),
+                           0 );
+        assertArrayEquals( new double[] { 1, 2 }, merge( new double[0], new double[] { 1, 2 } ), 0 );
+        assertArrayEquals( new double[] { 1, 2 }, merge( new double[] { 1, 2 }, new double[0] ), 0 );
+    }
+
+    @Test
+    public void testComputedTimeExtentValidatesRequests()
+                            throws Exception {
+        long t = parseDateTime( "2014-01-01T00:00:00Z" ).getTimeInMilliseconds();
+        Dimension<Object> dim = new Dimension<Object>( "time", null, false, false, true, null, null, null, null );
+        dim.setExtent( computeExtent( new double[] { t, t + HOUR }, true ) );
+        assertTrue( dim.isValid( Dimension.parseTyped( "2014-01-01T01:00:00Z", true ) ) );
+        assertTrue( dim.isValid( Dimension.parseTyped( "2014-01-01T02:00:00+01:00", true ) ) );
+        assertFalse( dim.isValid( Dimension.parseTyped( "2014-01-01T00:30:00Z", true ) ) );
+    }
+
+    @Test
+    public void testComputedNumberExtentValidatesRequests()
+                            throws Exception {
+        Dimension<Object> dim = new Dimension<Object>( "elevation", null, false, false, true, null, null, null, null );
+        dim.setExtent( computeExtent( new double[] { 10, 20.5 }, false ) );
+        assertTrue( dim.isValid( Dimension.parseTyped( "10.0", false ) ) );
+        assertTrue( dim.isValid( Dimension.parseTyped( "20.5", false ) ) );
+        assertFalse( dim.isValid( Dimension.parseTyped( "15", false ) ) );
+    }
+
+    private static DimensionInterval<?, ?, ?> interval( List<?> extent ) {
+        assertEquals( 1, extent.size() );
+        return (DimensionInterval<?, ?, ?>) extent.get( 0 );
+    }
+
+    private static double[] range( double start, double step, int count ) {
+        double[] values = new double[count];
+        for ( int i = 0; i < count; ++i ) {
+            values[i] = start + i * step;
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,207 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2012 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ Occam Labs UG (haftungsbeschränkt)
+ Godesberger Allee 139, 53175 Bonn
+ Germany
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.layer.persistence.feature;
+
+import static org.deegree.cs.persistence.CRSManager.getCRSRef;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.utils.Triple;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.feature.persistence.ChangeTracker;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.primitive.Point;
+import org.deegree.layer.persistence.feature.FeatureRenderCache.Scope;
+import org.deegree.style.se.unevaluated.Style;
+import org.deegree.style.styling.Styling;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link FeatureRenderCache}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class FeatureRenderCacheTest {
+
+    private static final QName FT = new QName( "http://www.deegree.org/app", "Road" );
+
+    private static final QName OTHER_FT = new QName( "http://www.deegree.org/app", "River" );
+
+    private final GeometryFactory fac = new GeometryFactory();
+
+    private ICRS crs;
+
+    private Style style;
+
+    private FeatureRenderCache cache;
+
+    @Before
+    public void setUp() {
+        crs = getCRSRef( "EPSG:4326" );
+        style = new Style();
+        // the listener is not registered, changes are passed in directly
+        cache = new FeatureRenderCache( 2, null, FT );
+    }
+
+    @Test
+    public void testSameExtentHits() {
+        List<Triple<Styling, LinkedList<Geometry>, String>> rendering = rendering();
+        scope( 0, 0, 10, 10 ).put( rendering );
+        assertSame( rendering, scope( 0, 0, 10, 10 ).get() );
+    }
+
+    @Test
+    public void testOtherExtentMisses() {
+        scope( 0, 0, 10, 10 ).put( rendering() );
+        assertNull( scope( 10, 0, 20, 10 ).get() );
+        assertNull( scope( 0, 0, 10, 10.5 ).get() );
+    }
+
+    @Test
+    public void testOtherResolutionMisses() {
+        scope( 0, 0, 10, 10 ).put( rendering() );
+        Envelope bbox = fac.createEnvelope( 0, 0, 10, 10, crs );
+        assertNull( cache.getScope( style, style, bbox, 0.02, null, -1 ).get() );
+        assertNull( cache.getScope( style, style, bbox, 0.01, null, 100 ).get() );
+    }
+
+    @Test
+    public void testOtherStyleMisses() {
+        scope( 0, 0, 10, 10 ).put( rendering() );
+        Style other = new Style();
+        assertNull( cache.getScope( other, other, fac.createEnvelope( 0, 0, 10, 10, crs ), 0.01, null, -1 ).get() );
+    }
+
+    @Test
+    public void testNoScopeWithoutCrsOrResolution() {
+        assertNull( cache.getScope( style, style, fac.createEnvelope( 0, 0, 10, 10, null ), 0.01, null, -1 ) );
+        assertNull( cache.getScope( style, style, fac.createEnvelope( 0, 0, 10, 10, crs ), Double.NaN, null, -1 ) );
+        assertNull( cache.getScope( style, style, null, 0.01, null, -1 ) );
+    }
+
+    @Test
+    public void testChangeOfFeatureTypeInvalidates() {
+        scope( 0, 0, 10, 10 ).put( rendering() );
+        ChangeTracker changes = new ChangeTracker();
+        changes.update( FT );
+        cache.featuresChanged( null, changes );
+        assertNull( scope( 0, 0, 10, 10 ).get() );
+    }
+
+    @Test
+    public void testChangeOfOtherFeatureTypeKeepsEntries() {
+        scope( 0, 0, 10, 10 ).put( rendering() );
+        ChangeTracker changes = new ChangeTracker();
+        changes.delete( OTHER_FT );
+        cache.featuresChanged( null, changes );
+        assertNotNull( scope( 0, 0, 10, 10 ).get() );
+    }
+
+    @Test
+    public void testChangeOfAnyFeatureTypeInvalidatesWithoutFeatureType() {
+        cache = new FeatureRenderCache( 2, null, null );
+        scope( 0, 0, 10, 10 ).put( rendering() );
+        ChangeTracker changes = new ChangeTracker();
+        changes.insert( OTHER_FT, "RIVER_1" );
+        cache.featuresChanged( null, changes );
+        assertNull( scope( 0, 0, 10, 10 ).get() );
+    }
+
+    @Test
+    public void testRenderingStartedBeforeChangeIsNotCached() {
+        Scope scope = scope( 0, 0, 10, 10 );
+        ChangeTracker changes = new ChangeTracker();
+        changes.update( FT );
+        cache.featuresChanged( null, changes );
+        scope.put( rendering() );
+        assertNull( scope( 0, 0, 10, 10 ).get() );
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        scope( 0, 0, 10, 10 ).put( rendering() );
+        scope( 10, 0, 20, 10 ).put( rendering() );
+        assertNotNull( scope( 0, 0, 10, 10 ).get() );
+        scope( 20, 0, 30, 10 ).put( rendering() );
+        assertNotNull( scope( 0, 0, 10, 10 ).get() );
+        assertNull( scope( 10, 0, 20, 10 ).get() );
+        assertNotNull( scope( 20, 0, 30, 10 ).get() );
+    }
+
+    @Test
+    public void testPrepareKeepsGeometriesInMapCrs() {
+        Point point = fac.createPoint( null, 5, 6, crs );
+        LinkedList<Geometry> geoms = new LinkedList<Geometry>();
+        geoms.add( point );
+        LinkedList<Triple<Styling, LinkedList<Geometry>, String>> evalds = new LinkedList<Triple<Styling, LinkedList<Geometry>, String>>();
+        evalds.add( new Triple<Styling, LinkedList<Geometry>, String>( null, geoms, "label" ) );
+        LinkedList<Triple<Styling, LinkedList<Geometry>, String>> prepared = scope( 0, 0, 10, 10 ).prepare( evalds );
+        assertEquals( 1, prepared.size() );
+        Point preparedPoint = (Point) prepared.get( 0 ).second.get( 0 );
+        assertEquals( 5, preparedPoint.get0(), 1e-9 );
+        assertEquals( 6, preparedPoint.get1(), 1e-9 );
+        assertEquals( "label", prepared.get( 0 ).third );
+    }
+
+    private Scope scope( double minx, double miny, double maxx, double maxy ) {
+        Envelope bbox = fac.createEnvelope( minx, miny, maxx, maxy, crs );
+        return cache.getScope( style, style, bbox, 0.01, null, -1 );
+    }
+
+    private static List<Triple<Styling, LinkedList<Geometry>, String>> rendering() {
+        return new ArrayList<Triple<Styling, LinkedList<Geometry>, String>>();
+    }
+
+}
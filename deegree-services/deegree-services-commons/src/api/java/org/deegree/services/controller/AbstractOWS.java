@@ -450,6 +450,10 @@ public abstract class AbstractOWS implements OWS {
                 throw new ServletException( e );
             }
             response.setExceptionSent();
+        } else {
+            LOG.debug( "Response already committed, signalling exception in-band: " + exception.getMessage() );
+            response.writeLateError( exception.getMessage() );
+            response.setExceptionSent();
         }
 
         if ( userAgent != null && userAgent.toLowerCase().contains( "mozilla" ) ) {
@@ -48,6 +48,9 @@ import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.deegree.commons.utils.ComparablePair;
 import org.deegree.commons.utils.ConfigManager;
@@ -74,17 +77,19 @@ public class FrontControllerStats {
 
     private static final Logger LOG = getLogger( FrontControllerStats.class );
 
-    private static long numDispatched;
+    private static final LongAdder numDispatched = new LongAdder();
 
-    private static long numFinished;
+    private static final LongAdder numFinished = new LongAdder();
 
-    private static double averageResponseTime;
+    private static final LongAdder totalResponseTime = new LongAdder();
 
-    private static double maxResponseTime;
+    private static final AtomicLong maxResponseTime = new AtomicLong();
 
-    private static Envelope bbox;
+    private static final AtomicReference<Envelope> bbox = new AtomicReference<Envelope>();
 
-    private static GeometryTransformer trans;
+    private static volatile GeometryTransformer trans;
+
+    private static final Object requestsFileLock = new Object();
 
     private static final GeometryFactory fac = new GeometryFactory();
 
@@ -94,8 +99,8 @@ public class FrontControllerStats {
      * 
      * @return current time
      */
-    synchronized static long requestDispatched() {
-        numDispatched++;
+    static long requestDispatched() {
+        numDispatched.increment();
         return System.currentTimeMillis();
     }
 
@@ -105,13 +110,14 @@ public class FrontControllerStats {
      * @param dispatchTime
      *            time when the request has been dispatched
      */
-    synchronized static void requestFinished( long dispatchTime ) {
+    static void requestFinished( long dispatchTime ) {
         long duration = System.currentTimeMillis() - dispatchTime;
-        if ( duration > maxResponseTime ) {
-            maxResponseTime = duration;
+        long max = maxResponseTime.get();
+        while ( duration > max && !maxResponseTime.compareAndSet( max, duration ) ) {
+            max = maxResponseTime.get();
         }
-        averageResponseTime = ( averageResponseTime * numFinished + duration ) / ( numFinished + 1 );
-        numFinished++;
+        totalResponseTime.add( duration );
+        numFinished.increment();
     }
 
     /**
@@ -119,13 +125,15 @@ public class FrontControllerStats {
      *            the query string
      * @param timestamp
      */
-    public synchronized static void incomingKVP( String request, long timestamp ) {
+    public static void incomingKVP( String request, long timestamp ) {
         try {
-            OutputStream os = ConfigManager.getOutputResource( "requests.txt", true );
-            PrintWriter out = new PrintWriter( new OutputStreamWriter( os, "UTF-8" ) );
-            out.println( timestamp + " " + request );
-            out.close();
-            if ( request.toUpperCase().contains( "REQUEST=GETMAP" ) ) {
+            synchronized ( requestsFileLock ) {
+                OutputStream os = ConfigManager.getOutputResource( "requests.txt", true );
+                PrintWriter out = new PrintWriter( new OutputStreamWriter( os, "UTF-8" ) );
+                out.println( timestamp + " " + request );
+                out.close();
+            }
+            if ( request.toUpperCase().contains( "REQUEST=GETMAP" ) && bbox.get() != null ) {
                 try {
                     Map<String, String> map = KVPUtils.getNormalizedKVPMap( request, "UTF-8" );
                     if ( map.get( "LAYERS" ).equals( "statistics" ) ) {
@@ -134,9 +142,7 @@ public class FrontControllerStats {
                     double[] ds = splitAsDoubles( map.get( "BBOX" ), "," );
                     Envelope newBox = fac.createEnvelope( ds[0], ds[1], ds[2], ds[3],
                                                           CRSManager.getCRSRef( map.get( "SRS" ) ) );
-                    if ( bbox != null ) {
-                        bbox.merge( trans.transform( newBox ) );
-                    }
+                    mergeGetMapEnvelope( newBox );
                 } catch ( UnsupportedEncodingException e ) {
                     LOG.trace( "Stack trace:", e );
                 } catch ( IllegalArgumentException e ) {
@@ -156,13 +162,33 @@ public class FrontControllerStats {
         }
     }
 
+    private static void mergeGetMapEnvelope( Envelope newBox )
+                            throws TransformationException, UnknownCRSException {
+        Envelope current = bbox.get();
+        if ( current == null ) {
+            if ( bbox.compareAndSet( null, newBox ) ) {
+                trans = new GeometryTransformer( newBox.getCoordinateSystem() );
+                return;
+            }
+            current = bbox.get();
+        }
+        GeometryTransformer t = trans;
+        if ( t == null ) {
+            t = new GeometryTransformer( current.getCoordinateSystem() );
+        }
+        Envelope transformed = t.transform( newBox );
+        while ( !bbox.compareAndSet( current, current.merge( transformed ) ) ) {
+            current = bbox.get();
+        }
+    }
+
     /**
      * Returns the number of requests that the {@link OGCFrontController} dispatched to service controllers.
      * 
      * @return number of dispatched requests
      */
     public static long getDispatchedRequests() {
-        return numDispatched;
+        return numDispatched.sum();
     }
 
     /**
@@ -172,7 +198,9 @@ public class FrontControllerStats {
      * @return number of active requests
      */
     public static long getActiveRequests() {
-        return numDispatched - numFinished;
+        // read finished first, so the result can't become negative
+        long finished = numFinished.sum();
+        return numDispatched.sum() - finished;
     }
 
     /**
@@ -181,7 +209,8 @@ public class FrontControllerStats {
      * @return the average response time
      */
     public static long getAverageResponseTime() {
-        return (long) averageResponseTime;
+        long finished = numFinished.sum();
+        return finished == 0 ? 0 : totalResponseTime.sum() / finished;
     }
 
     /**
@@ -190,7 +219,7 @@ public class FrontControllerStats {
      * @return the maximum response time
      */
     public static long getMaximumResponseTime() {
-        return (long) maxResponseTime;
+        return maxResponseTime.get();
     }
 
     /**
@@ -264,8 +293,8 @@ public class FrontControllerStats {
     /**
      * @return an envelope of all the logged GetMap requests
      */
-    public static synchronized Envelope getCombinedGetMapEnvelope() {
-        if ( bbox == null ) {
+    public static Envelope getCombinedGetMapEnvelope() {
+        if ( bbox.get() == null ) {
             for ( Pair<Long, String> req : getKVPRequests() ) {
                 if ( !req.second.toUpperCase().contains( "REQUEST=GETMAP" ) ) {
                     continue;
@@ -281,12 +310,7 @@ public class FrontControllerStats {
                     double[] ds = splitAsDoubles( map.get( "BBOX" ), "," );
                     Envelope newBox = fac.createEnvelope( ds[0], ds[1], ds[2], ds[3],
                                                           CRSManager.getCRSRef( map.get( "SRS" ) ) );
-                    if ( bbox == null ) {
-                        bbox = newBox;
-                        trans = new GeometryTransformer( bbox.getCoordinateSystem() );
-                    } else {
-                        bbox.merge( trans.transform( newBox ) );
-                    }
+                    mergeGetMapEnvelope( newBox );
                 } catch ( UnsupportedEncodingException e ) {
                     LOG.trace( "Stack trace:", e );
                 } catch ( IllegalArgumentException e ) {
@@ -298,7 +322,7 @@ public class FrontControllerStats {
                 }
             }
         }
-        return bbox;
+        return bbox.get();
     }
 
 }
@@ -113,6 +113,7 @@ import org.deegree.services.OWS;
 import org.deegree.services.OWSProvider;
 import org.deegree.services.OwsManager;
 import org.deegree.services.authentication.SecurityException;
+import org.deegree.services.controller.RequestMetrics.MetricsContext;
 import org.deegree.services.controller.exception.serializer.XMLExceptionSerializer;
 import org.deegree.services.controller.security.SecurityConfiguration;
 import org.deegree.services.controller.utils.HttpResponseBuffer;
@@ -802,12 +803,13 @@ public class OGCFrontController extends HttpServlet {
             }
 
             LOG.debug( "Dispatching request to OWS class: " + ows.getClass().getName() );
-            long dispatchTime = FrontControllerStats.requestDispatched();
+            MetricsContext metricsContext = RequestMetrics.requestDispatched( ows, request );
             try {
                 watchTimeout( ows, request );
                 ows.doKVP( normalizedKVPParams, requestWrapper, response, multiParts );
+                metricsContext.responseSent( response );
             } finally {
-                FrontControllerStats.requestFinished( dispatchTime );
+                RequestMetrics.requestFinished( metricsContext );
                 unwatchTimeout();
             }
         } catch ( SecurityException e ) {
@@ -889,12 +891,13 @@ public class OGCFrontController extends HttpServlet {
             }
             if ( ows != null ) {
                 LOG.debug( "Dispatching request to OWS: " + ows.getClass().getName() );
-                long dispatchTime = FrontControllerStats.requestDispatched();
+                MetricsContext metricsContext = RequestMetrics.requestDispatched( ows, xmlStream.getLocalName() );
                 try {
                     watchTimeout( ows, xmlStream.getLocalName() );
                     ows.doXML( xmlStream, requestWrapper, response, multiParts );
+                    metricsContext.responseSent( response );
                 } finally {
-                    FrontControllerStats.requestFinished( dispatchTime );
+                    RequestMetrics.requestFinished( metricsContext );
                     unwatchTimeout();
                 }
             }
@@ -1009,12 +1012,14 @@ public class OGCFrontController extends HttpServlet {
             }
 
             LOG.debug( "Dispatching request to OWS class: " + ows.getClass().getName() );
-            long dispatchTime = FrontControllerStats.requestDispatched();
+            MetricsContext metricsContext = RequestMetrics.requestDispatched( ows,
+                                                                             env.getSOAPBodyFirstElementLocalName() );
             try {
                 watchTimeout( ows, env.getSOAPBodyFirstElementLocalName() );
                 ows.doSOAP( env, requestWrapper, response, multiParts, factory );
+                metricsContext.responseSent( response );
             } finally {
-                FrontControllerStats.requestFinished( dispatchTime );
+                RequestMetrics.requestFinished( metricsContext );
             }
         } catch ( SecurityException e ) {
             if ( credentialsProvider != null ) {
@@ -1550,6 +1555,9 @@ public class OGCFrontController extends HttpServlet {
                     throw new ServletException( e2 );
                 }
                 res.setExceptionSent();
+            } else {
+                res.writeLateError( e.getMessage() );
+                res.setExceptionSent();
             }
         }
 
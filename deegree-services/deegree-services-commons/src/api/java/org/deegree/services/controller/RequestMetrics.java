@@ -0,0 +1,197 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.deegree.commons.metrics.LatencyHistogram;
+import org.deegree.commons.metrics.Metrics;
+import org.deegree.services.OWS;
+import org.deegree.services.OWSProvider;
+import org.deegree.services.controller.utils.HttpResponseBuffer;
+
+/**
+ * Records per service, operation and resource (layer or feature type) metrics for the requests dispatched by the
+ * {@link OGCFrontController}.
+ * <p>
+ * The front controller opens a {@link MetricsContext} for every dispatched request, services may then tag the request
+ * with the resources it accesses using {@link #addResource(String)}. All metrics end up in the {@link Metrics}
+ * registry, the global counters of {@link FrontControllerStats} are updated as well.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class RequestMetrics {
+
+    static final String REQUEST_DURATION = "deegree_ows_request_duration_seconds";
+
+    static final String REQUEST_ERRORS = "deegree_ows_request_errors_total";
+
+    static final String RESOURCE_DURATION = "deegree_ows_resource_request_duration_seconds";
+
+    static final String ACTIVE_REQUESTS = "deegree_ows_active_requests";
+
+    private static final int MAX_RESOURCES_PER_REQUEST = 32;
+
+    private static final Pattern OPERATION_NAME = Pattern.compile( "[A-Za-z][A-Za-z0-9_]{0,63}" );
+
+    private static final ThreadLocal<MetricsContext> CONTEXT = new ThreadLocal<MetricsContext>();
+
+    /**
+     * Called by the {@link OGCFrontController} before a request is dispatched to an {@link OWS}.
+     * 
+     * @param ows
+     *            service that handles the request, must not be <code>null</code>
+     * @param operation
+     *            name of the requested operation, can be <code>null</code>
+     * @return context of the request, to be passed to {@link #requestFinished(MetricsContext)}, never
+     *         <code>null</code>
+     */
+    static MetricsContext requestDispatched( OWS ows, String operation ) {
+        MetricsContext ctx = new MetricsContext( getServiceType( ows ), ows.getMetadata().getIdentifier().getId(),
+                                                 getOperationName( operation ),
+                                                 FrontControllerStats.requestDispatched() );
+        Metrics.getGauge( ACTIVE_REQUESTS, "Number of requests currently processed by a service.", "service",
+                          ctx.serviceType ).increment();
+        CONTEXT.set( ctx );
+        return ctx;
+    }
+
+    /**
+     * Called by the {@link OGCFrontController} after the {@link OWS} returned (or failed).
+     * 
+     * @param ctx
+     *            context returned by {@link #requestDispatched(OWS, String)}, must not be <code>null</code>
+     */
+    static void requestFinished( MetricsContext ctx ) {
+        CONTEXT.remove();
+        FrontControllerStats.requestFinished( ctx.dispatchTime );
+        long micros = ( System.nanoTime() - ctx.startNanos ) / 1000;
+        Metrics.getGauge( ACTIVE_REQUESTS, null, "service", ctx.serviceType ).decrement();
+        Metrics.getHistogram( REQUEST_DURATION, "Processing time of service requests.", "service", ctx.serviceType,
+                              "service_id", ctx.serviceId, "operation", ctx.operation ).record( micros );
+        if ( !ctx.succeeded ) {
+            LongAdder errors = Metrics.getCounter( REQUEST_ERRORS, "Number of service requests that failed with an "
+                                                                   + "exception.", "service", ctx.serviceType,
+                                                   "service_id", ctx.serviceId, "operation", ctx.operation );
+            errors.increment();
+        }
+        for ( String resource : ctx.resources ) {
+            LatencyHistogram histogram = Metrics.getHistogram( RESOURCE_DURATION, "Processing time of service requests "
+                                                                                  + "per layer or feature type.",
+                                                               "service", ctx.serviceType, "service_id",
+                                                               ctx.serviceId, "operation", ctx.operation, "resource",
+                                                               resource );
+            histogram.record( micros );
+        }
+    }
+
+    /**
+     * Tags the request that is currently processed by the calling thread with a resource (e.g. a layer or a feature
+     * type) it accesses. Does nothing if the calling thread doesn't process a request dispatched by the
+     * {@link OGCFrontController}.
+     * 
+     * @param resource
+     *            name of the resource, can be <code>null</code> (ignored)
+     */
+    public static void addResource( String resource ) {
+        MetricsContext ctx = CONTEXT.get();
+        if ( ctx != null && resource != null && ctx.resources.size() < MAX_RESOURCES_PER_REQUEST ) {
+            ctx.resources.add( resource );
+        }
+    }
+
+    private static String getServiceType( OWS ows ) {
+        try {
+            OWSProvider provider = (OWSProvider) ows.getMetadata().getProvider();
+            return provider.getImplementationMetadata().getImplementedServiceName()[0].toLowerCase();
+        } catch ( Exception e ) {
+            return "unknown";
+        }
+    }
+
+    private static String getOperationName( String operation ) {
+        // operation names are taken from the request, so restrict them to sane values
+        if ( operation == null || !OPERATION_NAME.matcher( operation ).matches() ) {
+            return "unknown";
+        }
+        return operation;
+    }
+
+    /**
+     * Per request state, bound to the thread that processes the request.
+     */
+    static class MetricsContext {
+
+        private final String serviceType;
+
+        private final String serviceId;
+
+        private final String operation;
+
+        private final long dispatchTime;
+
+        private final long startNanos = System.nanoTime();
+
+        private final Set<String> resources = new LinkedHashSet<String>();
+
+        private boolean succeeded;
+
+        private MetricsContext( String serviceType, String serviceId, String operation, long dispatchTime ) {
+            this.serviceType = serviceType;
+            this.serviceId = serviceId;
+            this.operation = operation;
+            this.dispatchTime = dispatchTime;
+        }
+
+        /**
+         * Marks the request as processed. Services report most errors by sending an exception report instead of
+         * throwing, so the request only counts as successful if no exception report has been sent.
+         * 
+         * @param response
+         *            the response of the request, must not be <code>null</code>
+         */
+        void responseSent( HttpResponseBuffer response ) {
+            succeeded = !response.isExceptionSent();
+        }
+    }
+
+}
@@ -0,0 +1,289 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller.utils;
+
+import static org.deegree.commons.utils.ByteUtils.md5Hex;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+
+/**
+ * Caches serialized capabilities documents, so repeated GetCapabilities requests don't have to rebuild them.
+ * <p>
+ * Entries are identified by a key that has to cover everything the document depends on (request parameters, service
+ * URLs). If the cache is full, the least recently used document is discarded. The cache is bound to an update
+ * sequence: when a different update sequence is passed to {@link #validate(long)}, all entries are discarded. Each entry
+ * keeps a gzipped variant, so clients that send <code>Accept-Encoding: gzip</code> or <code>If-None-Match</code> are
+ * served with less bandwidth. The plain and the gzipped variant have different ETags, as their bodies differ.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class CapabilitiesCache {
+
+    private static final Logger LOG = getLogger( CapabilitiesCache.class );
+
+    private static final int DEFAULT_MAX_ENTRIES = 64;
+
+    // GetCapabilities parameters that influence the document (other parameters must not create new entries)
+    private static final Set<String> KEY_PARAMS = new HashSet<String>( Arrays.asList( "SERVICE", "VERSION", "WMTVER",
+                                                                                      "ACCEPTVERSIONS", "LANGUAGE",
+                                                                                      "ACCEPTLANGUAGES", "FORMAT",
+                                                                                      "ACCEPTFORMATS", "SECTIONS",
+                                                                                      "UPDATESEQUENCE" ) );
+
+    // access ordered, guarded by this
+    private final Map<String, Entry> entries;
+
+    private volatile long updateSequence = Long.MIN_VALUE;
+
+    /**
+     * Creates a new {@link CapabilitiesCache} that holds up to 64 documents.
+     */
+    public CapabilitiesCache() {
+        this( DEFAULT_MAX_ENTRIES );
+    }
+
+    /**
+     * Creates a new {@link CapabilitiesCache}.
+     * 
+     * @param maxEntries
+     *            maximum number of cached documents
+     */
+    public CapabilitiesCache( final int maxEntries ) {
+        entries = new LinkedHashMap<String, Entry>( 16, 0.75f, true ) {
+
+            private static final long serialVersionUID = -2318840562961432427L;
+
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, Entry> eldest ) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Discards all entries if the given update sequence differs from the one of the cached documents.
+     * 
+     * @param currentUpdateSequence
+     *            current update sequence of the service
+     */
+    public void validate( long currentUpdateSequence ) {
+        if ( updateSequence != currentUpdateSequence ) {
+            synchronized ( this ) {
+                if ( updateSequence != currentUpdateSequence ) {
+                    entries.clear();
+                    updateSequence = currentUpdateSequence;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the cached document for the given key, if there is one.
+     * 
+     * @param key
+     *            cache key, must not be <code>null</code>
+     * @param request
+     *            the request, used to evaluate <code>If-None-Match</code> and <code>Accept-Encoding</code>, must not be
+     *            <code>null</code>
+     * @param response
+     *            response to send to, must not be <code>null</code>
+     * @return <code>true</code> if the response has been sent from the cache, <code>false</code> otherwise
+     * @throws IOException
+     */
+    public boolean send( String key, HttpServletRequest request, HttpServletResponse response )
+                            throws IOException {
+        Entry entry;
+        synchronized ( this ) {
+            entry = entries.get( key );
+        }
+        if ( entry == null ) {
+            return false;
+        }
+        LOG.debug( "Sending cached capabilities document." );
+        boolean gzip = entry.gzipped != null && acceptsGzip( request );
+        String etag = gzip ? entry.gzipEtag : entry.etag;
+        setCacheHeaders( response, etag );
+        if ( HttpCacheHeaders.matches( request.getHeader( "If-None-Match" ), etag ) ) {
+            response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+            return true;
+        }
+        if ( entry.contentType != null ) {
+            response.setContentType( entry.contentType );
+        }
+        if ( entry.characterEncoding != null ) {
+            response.setCharacterEncoding( entry.characterEncoding );
+        }
+        byte[] data = entry.data;
+        if ( gzip ) {
+            response.setHeader( "Content-Encoding", "gzip" );
+            data = entry.gzipped;
+        }
+        response.setContentLength( data.length );
+        OutputStream os = response.getOutputStream();
+        os.write( data );
+        return true;
+    }
+
+    /**
+     * Stores the document that has been written to the given (buffered) response and adds the ETag header to the
+     * response.
+     * 
+     * @param key
+     *            cache key, must not be <code>null</code>
+     * @param response
+     *            response containing the complete document, must not be <code>null</code>
+     * @throws IOException
+     */
+    public void put( String key, HttpResponseBuffer response )
+                            throws IOException {
+        byte[] data = response.getBufferedContent();
+        if ( data == null || data.length == 0 ) {
+            return;
+        }
+        String md5 = md5Hex( data );
+        Entry entry = new Entry( data, gzip( data ), response.getContentType(), response.getCharacterEncoding(),
+                                 HttpCacheHeaders.createETag( md5 ), HttpCacheHeaders.createETag( md5 + "-gzip" ) );
+        synchronized ( this ) {
+            entries.put( key, entry );
+        }
+        setCacheHeaders( response, entry.etag );
+    }
+
+    /**
+     * Discards all cached documents.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Builds a cache key from request parameters and additional values. Only the standard GetCapabilities parameters
+     * (SERVICE, VERSION, LANGUAGE, FORMAT, SECTIONS, UPDATESEQUENCE and their variants) are considered, so arbitrary
+     * additional parameters don't create new entries.
+     * 
+     * @param kvp
+     *            request parameters, can be <code>null</code>
+     * @param values
+     *            additional values, e.g. the service URLs
+     * @return cache key, never <code>null</code>
+     */
+    public static String createKey( Map<String, String> kvp, String... values ) {
+        StringBuilder sb = new StringBuilder();
+        for ( String value : values ) {
+            sb.append( value ).append( '\n' );
+        }
+        if ( kvp != null ) {
+            Map<String, String> keyParams = new TreeMap<String, String>();
+            for ( Map.Entry<String, String> param : kvp.entrySet() ) {
+                String name = param.getKey().toUpperCase();
+                if ( KEY_PARAMS.contains( name ) ) {
+                    keyParams.put( name, param.getValue() );
+                }
+            }
+            for ( Map.Entry<String, String> param : keyParams.entrySet() ) {
+                sb.append( param.getKey() ).append( '=' ).append( param.getValue() ).append( '\n' );
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void setCacheHeaders( HttpServletResponse response, String etag ) {
+        response.setHeader( "ETag", etag );
+        response.setHeader( "Vary", "Accept-Encoding" );
+    }
+
+    private static boolean acceptsGzip( HttpServletRequest request ) {
+        String encoding = request.getHeader( "Accept-Encoding" );
+        return encoding != null && encoding.toLowerCase().contains( "gzip" );
+    }
+
+    private static byte[] gzip( byte[] data ) {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream( data.length / 4 );
+            GZIPOutputStream gzip = new GZIPOutputStream( bos );
+            gzip.write( data );
+            gzip.close();
+            return bos.toByteArray();
+        } catch ( IOException e ) {
+            LOG.debug( "Unable to compress capabilities document: " + e.getMessage() );
+            return null;
+        }
+    }
+
+    private static class Entry {
+
+        private final byte[] data;
+
+        private final byte[] gzipped;
+
+        private final String contentType;
+
+        private final String characterEncoding;
+
+        private final String etag;
+
+        private final String gzipEtag;
+
+        Entry( byte[] data, byte[] gzipped, String contentType, String characterEncoding, String etag,
+               String gzipEtag ) {
+            this.data = data;
+            this.gzipped = gzipped;
+            this.contentType = contentType;
+            this.characterEncoding = characterEncoding;
+            this.etag = etag;
+            this.gzipEtag = gzipEtag;
+        }
+    }
+
+}
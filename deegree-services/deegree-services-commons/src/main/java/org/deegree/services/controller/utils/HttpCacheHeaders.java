@@ -0,0 +1,220 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller.utils;
+
+import static org.deegree.commons.utils.ByteUtils.md5Hex;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Adds HTTP caching headers (<code>ETag</code>, <code>Last-Modified</code> and <code>Cache-Control</code>) to
+ * responses and evaluates conditional requests (<code>If-None-Match</code> and <code>If-Modified-Since</code>).
+ * <p>
+ * If the client's copy is still valid, the response status is set to <code>304 Not Modified</code> and the caller must
+ * not write a response body. When the validators are known in advance (e.g. for stored tiles), the check should be
+ * performed before the data is accessed at all, see {@link #checkNotModified(HttpServletRequest, HttpServletResponse,
+ * String, long)}.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class HttpCacheHeaders {
+
+    private final String cacheControl;
+
+    /**
+     * Creates a new {@link HttpCacheHeaders} instance.
+     * 
+     * @param cacheControl
+     *            value of the <code>Cache-Control</code> header to send (e.g. <code>public, max-age=3600</code>), can
+     *            be <code>null</code> (no <code>Cache-Control</code> header)
+     */
+    public HttpCacheHeaders( String cacheControl ) {
+        this.cacheControl = cacheControl == null || cacheControl.trim().isEmpty() ? null : cacheControl.trim();
+    }
+
+    /**
+     * @return value of the <code>Cache-Control</code> header, can be <code>null</code>
+     */
+    public String getCacheControl() {
+        return cacheControl;
+    }
+
+    /**
+     * @return <code>true</code>, if a <code>Cache-Control</code> header is configured that allows clients to store
+     *         responses (i.e. validators are worth calculating)
+     */
+    public boolean isCacheable() {
+        return cacheControl != null && !cacheControl.toLowerCase().contains( "no-store" );
+    }
+
+    /**
+     * Adds the caching headers for a resource with the given validators and checks whether the client's copy of the
+     * resource is still valid.
+     * 
+     * @param request
+     *            the request, must not be <code>null</code>
+     * @param response
+     *            response to add the headers to, must not be <code>null</code>
+     * @param version
+     *            version stamp of the resource, used as entity tag, can be <code>null</code> (unknown)
+     * @param lastModified
+     *            modification time of the resource in milliseconds since the epoch, <code>-1</code> if unknown
+     * @return <code>true</code>, if the status has been set to <code>304 Not Modified</code> (nothing else must be
+     *         written), <code>false</code> if the resource has to be sent
+     */
+    public boolean checkNotModified( HttpServletRequest request, HttpServletResponse response, String version,
+                                     long lastModified ) {
+        String etag = version == null ? null : createETag( version );
+        setHeaders( response, etag, lastModified );
+        if ( isNotModified( request, etag, lastModified ) ) {
+            response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the caching headers for a response that has been generated completely into the given buffer, using a hash
+     * of the content as entity tag. If the client's copy is still valid, the buffered content is discarded.
+     * <p>
+     * This does not save generating the response, but the transfer of unchanged responses.
+     * </p>
+     * 
+     * @param request
+     *            the request, must not be <code>null</code>
+     * @param response
+     *            response containing the complete content, must not be <code>null</code>
+     * @return <code>true</code>, if the content has been discarded and the status has been set to
+     *         <code>304 Not Modified</code>, <code>false</code> otherwise
+     * @throws IOException
+     */
+    public boolean checkNotModified( HttpServletRequest request, HttpResponseBuffer response )
+                            throws IOException {
+        byte[] data = response.getBufferedContent();
+        if ( data == null || data.length == 0 ) {
+            // not buffered (anymore), headers may already have been sent
+            return false;
+        }
+        String etag = calcETag( data );
+        if ( isNotModified( request, etag, -1 ) ) {
+            response.reset();
+            setHeaders( response, etag, -1 );
+            response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+            return true;
+        }
+        setHeaders( response, etag, -1 );
+        return false;
+    }
+
+    private void setHeaders( HttpServletResponse response, String etag, long lastModified ) {
+        if ( etag != null ) {
+            response.setHeader( "ETag", etag );
+        }
+        if ( lastModified >= 0 ) {
+            response.setDateHeader( "Last-Modified", lastModified );
+        }
+        if ( cacheControl != null ) {
+            response.setHeader( "Cache-Control", cacheControl );
+        }
+    }
+
+    private static boolean isNotModified( HttpServletRequest request, String etag, long lastModified ) {
+        String ifNoneMatch = request.getHeader( "If-None-Match" );
+        if ( ifNoneMatch != null ) {
+            // If-Modified-Since must be ignored if If-None-Match is present (RFC 7232, section 3.3)
+            return etag != null && matches( ifNoneMatch, etag );
+        }
+        if ( lastModified < 0 ) {
+            return false;
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader( "If-Modified-Since" );
+        } catch ( IllegalArgumentException e ) {
+            return false;
+        }
+        // HTTP dates have a resolution of seconds
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * @param version
+     *            version stamp, must not be <code>null</code>
+     * @return (strong) entity tag for the version stamp, never <code>null</code>
+     */
+    static String createETag( String version ) {
+        return "\"" + version.replace( "\"", "" ) + "\"";
+    }
+
+    /**
+     * @param data
+     *            content, must not be <code>null</code>
+     * @return entity tag derived from a hash of the content, never <code>null</code>
+     */
+    static String calcETag( byte[] data ) {
+        return createETag( md5Hex( data ) );
+    }
+
+    /**
+     * @param ifNoneMatch
+     *            value of the <code>If-None-Match</code> header, can be <code>null</code>
+     * @param etag
+     *            entity tag of the current resource, must not be <code>null</code>
+     * @return <code>true</code>, if the header matches the entity tag (using weak comparison)
+     */
+    static boolean matches( String ifNoneMatch, String etag ) {
+        if ( ifNoneMatch == null ) {
+            return false;
+        }
+        for ( String candidate : ifNoneMatch.split( "," ) ) {
+            candidate = candidate.trim();
+            if ( candidate.startsWith( "W/" ) ) {
+                candidate = candidate.substring( 2 );
+            }
+            if ( candidate.equals( "*" ) || candidate.equals( etag ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -38,6 +38,7 @@ package org.deegree.services.controller.utils;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
@@ -93,6 +94,11 @@ import org.slf4j.Logger;
  */
 public class HttpResponseBuffer extends HttpServletResponseWrapper {
 
+    /**
+     * Start of the XML comment that is appended to a response if an error occurs after streaming has started.
+     */
+    public static final String LATE_ERROR_MARKER = "DEEGREE-RESPONSE-ERROR:";
+
     private static final Logger LOG = getLogger( HttpResponseBuffer.class );
 
     private boolean addEncoding = true;
@@ -118,6 +124,13 @@ public class HttpResponseBuffer extends HttpServletResponseWrapper {
 
     private final HttpServletResponse wrappee;
 
+    // if >= 0, buffered output is passed through to the wrapped response once it exceeds this number of bytes
+    private int streamingThreshold = -1;
+
+    private boolean streaming;
+
+    private boolean exceptionSent;
+
     /**
      * @param response
      */
@@ -151,6 +164,72 @@ public class HttpResponseBuffer extends HttpServletResponseWrapper {
         this.buffer = null;
     }
 
+    /**
+     * Enables the streaming mode: output is buffered until it exceeds the given number of bytes. From then on, the
+     * buffered and all subsequent output is written directly to the wrapped response.
+     * <p>
+     * This combines the benefits of both modes: exceptions that occur early (e.g. because of invalid parameters) can
+     * still be reported properly, while large responses are neither held in memory (or temporary files) completely nor
+     * delayed until they have been generated completely. Exceptions that occur after streaming has started can only be
+     * signalled in-band, see {@link #writeLateError(String)}.
+     * </p>
+     * 
+     * @param threshold
+     *            number of bytes to buffer before streaming starts, must not be negative
+     */
+    public void enableStreaming( int threshold ) {
+        if ( threshold < 0 ) {
+            throw new IllegalArgumentException( "Streaming threshold must not be negative." );
+        }
+        LOG.debug( "Enabling streaming after {} bytes.", threshold );
+        streamingThreshold = threshold;
+    }
+
+    /**
+     * Returns whether output is currently passed through to the wrapped response (either because buffering has been
+     * disabled or because the streaming threshold has been exceeded).
+     * 
+     * @return <code>true</code>, if output is not buffered (anymore), <code>false</code> otherwise
+     */
+    public boolean isStreaming() {
+        return buffer == null || streaming;
+    }
+
+    /**
+     * Signals an error that occurred after parts of the response have already been sent to the client, so the
+     * response can neither be reset nor replaced by an exception report.
+     * <p>
+     * For XML responses, the error is appended as a comment that starts with {@link #LATE_ERROR_MARKER}. As the
+     * response is aborted, the document will usually be incomplete (not well-formed), the marker allows clients to
+     * distinguish a service side error from a broken connection. For other content types, nothing is written.
+     * </p>
+     * 
+     * @param message
+     *            error message, can be <code>null</code>
+     */
+    public void writeLateError( String message ) {
+        boolean isXML = xmlWriter != null || ( getContentType() != null && getContentType().contains( "xml" ) );
+        if ( !isXML ) {
+            return;
+        }
+        // comments must not contain '--'
+        String comment = " " + LATE_ERROR_MARKER + " " + ( message == null ? "" : message.replace( "--", "- -" ) )
+                         + " ";
+        try {
+            if ( xmlWriter != null ) {
+                xmlWriter.writeComment( comment );
+                xmlWriter.flush();
+            } else {
+                String encoding = getCharacterEncoding() == null ? "UTF-8" : getCharacterEncoding();
+                getOutputStream().write( ( "<!--" + comment + "-->" ).getBytes( encoding ) );
+                getOutputStream().flush();
+            }
+        } catch ( Exception e ) {
+            LOG.debug( "Unable to write late error marker: " + e.getLocalizedMessage() );
+            LOG.trace( "Stack trace:", e );
+        }
+    }
+
     @Override
     public PrintWriter getWriter()
                             throws IOException {
@@ -250,7 +329,7 @@ public class HttpResponseBuffer extends HttpServletResponseWrapper {
      */
     public void validate() {
 
-        if ( buffer != null ) {
+        if ( buffer != null && !streaming ) {
 
             boolean isXML = xmlWriter != null || ( getContentType() != null && getContentType().contains( "xml" ) );
 
@@ -322,6 +401,9 @@ public class HttpResponseBuffer extends HttpServletResponseWrapper {
             super.reset();
             returnType = ReturnType.NOT_DEFINED_YET;
             xmlWriter = null;
+            if ( streaming ) {
+                ( (BufferedServletOutputStream) outputStream ).stopStreaming();
+            }
         } else {
             super.reset(); // throws IllegalStateException
         }
@@ -342,12 +424,49 @@ public class HttpResponseBuffer extends HttpServletResponseWrapper {
         return buffer;
     }
 
+    /**
+     * Returns a copy of the bytes that have been written to this response so far.
+     * 
+     * @return the buffered bytes, <code>null</code> if buffering is disabled or streaming has started
+     * @throws IOException
+     */
+    public byte[] getBufferedContent()
+                            throws IOException {
+        if ( buffer == null || streaming ) {
+            return null;
+        }
+        if ( xmlWriter != null ) {
+            try {
+                xmlWriter.flush();
+            } catch ( XMLStreamException e ) {
+                throw new IOException( e );
+            }
+        }
+        if ( printWriter != null ) {
+            printWriter.flush();
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream( buffer.size() );
+        buffer.writeTo( bos );
+        return bos.toByteArray();
+    }
+
+    /**
+     * Marks the response as an exception report.
+     */
     public void setExceptionSent() {
+        exceptionSent = true;
         if ( wrappee instanceof LoggingHttpResponseWrapper ) {
             ( (LoggingHttpResponseWrapper) wrappee ).setExceptionSent();
         }
     }
 
+    /**
+     * @return <code>true</code>, if an exception report has been sent (or signalled in-band) for this response
+     */
+    public boolean isExceptionSent() {
+        return exceptionSent;
+    }
+
     public void setCredentials( Credentials creds ) {
         if ( wrappee instanceof LoggingHttpResponseWrapper ) {
             ( (LoggingHttpResponseWrapper) wrappee ).setCredentials( creds );
@@ -355,32 +474,62 @@ public class HttpResponseBuffer extends HttpServletResponseWrapper {
     }
 
     /**
-     * This is a ServletOutputStream that uses our internal ByteArrayOutputStream to buffer all data.
+     * This is a ServletOutputStream that uses our internal buffer, or the output stream of the wrapped response once
+     * streaming has been started.
      */
-    private static class BufferedServletOutputStream extends ServletOutputStream {
+    private class BufferedServletOutputStream extends ServletOutputStream {
 
-        private final OutputStream buffer;
+        private OutputStream target;
 
         public BufferedServletOutputStream( OutputStream buffer ) {
-            this.buffer = buffer;
+            this.target = buffer;
         }
 
         @Override
         public void write( byte[] b )
                                 throws IOException {
-            buffer.write( b );
+            target.write( b );
+            checkStreamingThreshold();
         }
 
         @Override
         public void write( byte[] b, int off, int len )
                                 throws IOException {
-            buffer.write( b, off, len );
+            target.write( b, off, len );
+            checkStreamingThreshold();
         }
 
         @Override
         public void write( int b )
                                 throws IOException {
-            buffer.write( b );
+            target.write( b );
+            checkStreamingThreshold();
+        }
+
+        @Override
+        public void flush()
+                                throws IOException {
+            if ( streaming ) {
+                target.flush();
+            }
+        }
+
+        private void checkStreamingThreshold()
+                                throws IOException {
+            if ( !streaming && streamingThreshold >= 0 && buffer != null && buffer.size() >= streamingThreshold ) {
+                LOG.debug( "Buffered output exceeds {} bytes, streaming remaining output.", streamingThreshold );
+                streaming = true;
+                ServletOutputStream os = wrappee.getOutputStream();
+                buffer.flush();
+                buffer.writeTo( os );
+                buffer.reset();
+                target = os;
+            }
+        }
+
+        private void stopStreaming() {
+            streaming = false;
+            target = buffer;
         }
     }
 }
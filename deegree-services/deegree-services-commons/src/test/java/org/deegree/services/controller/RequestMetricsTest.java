@@ -0,0 +1,109 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller;
+
+import static org.deegree.services.controller.RequestMetrics.REQUEST_ERRORS;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.deegree.commons.metrics.Metrics;
+import org.deegree.services.OWS;
+import org.deegree.services.controller.RequestMetrics.MetricsContext;
+import org.deegree.services.controller.utils.HttpResponseBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RequestMetrics}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class RequestMetricsTest {
+
+    private OWS ows;
+
+    @Before
+    public void setUp() {
+        Metrics.clear();
+        ows = mock( OWS.class, RETURNS_DEEP_STUBS );
+        when( ows.getMetadata().getIdentifier().getId() ).thenReturn( "wms1" );
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.clear();
+    }
+
+    @Test
+    public void testGetMapWithExceptionReportIsCountedAsError() {
+        HttpResponseBuffer response = new HttpResponseBuffer( mock( HttpServletResponse.class ) );
+        MetricsContext ctx = RequestMetrics.requestDispatched( ows, "GetMap" );
+        // the service returns normally after sending an exception report (e.g. for an unknown layer)
+        response.setExceptionSent();
+        ctx.responseSent( response );
+        RequestMetrics.requestFinished( ctx );
+        assertEquals( 1, errors( "GetMap" ) );
+    }
+
+    @Test
+    public void testGetMapWithoutExceptionReportIsNotCountedAsError() {
+        HttpResponseBuffer response = new HttpResponseBuffer( mock( HttpServletResponse.class ) );
+        MetricsContext ctx = RequestMetrics.requestDispatched( ows, "GetMap" );
+        ctx.responseSent( response );
+        RequestMetrics.requestFinished( ctx );
+        assertEquals( 0, errors( "GetMap" ) );
+    }
+
+    @Test
+    public void testGetMapThrowingIsCountedAsError() {
+        MetricsContext ctx = RequestMetrics.requestDispatched( ows, "GetMap" );
+        RequestMetrics.requestFinished( ctx );
+        assertEquals( 1, errors( "GetMap" ) );
+    }
+
+    private static long errors( String operation ) {
+        return Metrics.getCounter( REQUEST_ERRORS, null, "service", "unknown", "service_id", "wms1", "operation",
+                                   operation ).sum();
+    }
+
+}
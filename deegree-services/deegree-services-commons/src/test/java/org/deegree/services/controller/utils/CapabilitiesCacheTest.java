@@ -0,0 +1,238 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Tests for {@link CapabilitiesCache}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class CapabilitiesCacheTest {
+
+    private static final byte[] DOC = "<Capabilities/>".getBytes();
+
+    private static final String KEY = CapabilitiesCache.createKey( Collections.singletonMap( "REQUEST",
+                                                                                             "GetCapabilities" ),
+                                                                   "http://localhost/services" );
+
+    @Test
+    public void testMissReturnsFalse()
+                            throws IOException {
+        CapabilitiesCache cache = new CapabilitiesCache();
+        HttpServletResponse response = mock( HttpServletResponse.class );
+        assertFalse( cache.send( KEY, mock( HttpServletRequest.class ), response ) );
+        verify( response, never() ).getOutputStream();
+    }
+
+    @Test
+    public void testHitSendsDocumentAndETag()
+                            throws IOException {
+        CapabilitiesCache cache = createFilledCache();
+        HttpServletRequest request = mock( HttpServletRequest.class );
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        HttpServletResponse response = mockResponse( bos );
+
+        assertTrue( cache.send( KEY, request, response ) );
+        assertArrayEquals( DOC, bos.toByteArray() );
+        verify( response ).setHeader( eq( "ETag" ), anyString() );
+        verify( response, never() ).setHeader( eq( "Content-Encoding" ), anyString() );
+    }
+
+    @Test
+    public void testHitWithGzip()
+                            throws IOException {
+        CapabilitiesCache cache = createFilledCache();
+        HttpServletRequest request = mock( HttpServletRequest.class );
+        when( request.getHeader( "Accept-Encoding" ) ).thenReturn( "gzip, deflate" );
+        HttpServletResponse response = mockResponse( new ByteArrayOutputStream() );
+
+        assertTrue( cache.send( KEY, request, response ) );
+        verify( response ).setHeader( "Content-Encoding", "gzip" );
+    }
+
+    @Test
+    public void testIfNoneMatch()
+                            throws IOException {
+        CapabilitiesCache cache = createFilledCache();
+        HttpServletResponse first = mockResponse( new ByteArrayOutputStream() );
+        cache.send( KEY, mock( HttpServletRequest.class ), first );
+        ArgumentCaptor<String> etag = ArgumentCaptor.forClass( String.class );
+        verify( first ).setHeader( eq( "ETag" ), etag.capture() );
+
+        HttpServletRequest request = mock( HttpServletRequest.class );
+        when( request.getHeader( "If-None-Match" ) ).thenReturn( etag.getValue() );
+        HttpServletResponse response = mockResponse( new ByteArrayOutputStream() );
+        assertTrue( cache.send( KEY, request, response ) );
+        verify( response ).setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+        verify( response, never() ).getOutputStream();
+    }
+
+    @Test
+    public void testGzipVariantHasOwnETag()
+                            throws IOException {
+        CapabilitiesCache cache = createFilledCache();
+        HttpServletResponse plain = mockResponse( new ByteArrayOutputStream() );
+        cache.send( KEY, mock( HttpServletRequest.class ), plain );
+        ArgumentCaptor<String> plainEtag = ArgumentCaptor.forClass( String.class );
+        verify( plain ).setHeader( eq( "ETag" ), plainEtag.capture() );
+        verify( plain ).setHeader( "Vary", "Accept-Encoding" );
+
+        HttpServletRequest gzipRequest = mock( HttpServletRequest.class );
+        when( gzipRequest.getHeader( "Accept-Encoding" ) ).thenReturn( "gzip" );
+        HttpServletResponse gzipped = mockResponse( new ByteArrayOutputStream() );
+        cache.send( KEY, gzipRequest, gzipped );
+        ArgumentCaptor<String> gzipEtag = ArgumentCaptor.forClass( String.class );
+        verify( gzipped ).setHeader( eq( "ETag" ), gzipEtag.capture() );
+        verify( gzipped ).setHeader( "Vary", "Accept-Encoding" );
+        assertFalse( plainEtag.getValue().equals( gzipEtag.getValue() ) );
+
+        // a validator of the plain body must not revalidate the gzipped one
+        when( gzipRequest.getHeader( "If-None-Match" ) ).thenReturn( plainEtag.getValue() );
+        HttpServletResponse response = mockResponse( new ByteArrayOutputStream() );
+        cache.send( KEY, gzipRequest, response );
+        verify( response, never() ).setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+        verify( response ).setHeader( "Content-Encoding", "gzip" );
+
+        when( gzipRequest.getHeader( "If-None-Match" ) ).thenReturn( gzipEtag.getValue() );
+        response = mockResponse( new ByteArrayOutputStream() );
+        cache.send( KEY, gzipRequest, response );
+        verify( response ).setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+    }
+
+    @Test
+    public void testValidateWithNewUpdateSequenceClears()
+                            throws IOException {
+        CapabilitiesCache cache = createFilledCache();
+        cache.validate( 1 );
+        assertFalse( cache.send( KEY, mock( HttpServletRequest.class ), mockResponse( new ByteArrayOutputStream() ) ) );
+    }
+
+    @Test
+    public void testCreateKeyIgnoresOtherParameters() {
+        Map<String, String> kvp = new HashMap<String, String>();
+        kvp.put( "SERVICE", "WMS" );
+        kvp.put( "REQUEST", "GetCapabilities" );
+        kvp.put( "VERSION", "1.3.0" );
+        String key = CapabilitiesCache.createKey( kvp, "http://localhost/services" );
+
+        kvp.put( "FOO", "random-1" );
+        kvp.put( "_", "1476857000" );
+        assertEquals( key, CapabilitiesCache.createKey( kvp, "http://localhost/services" ) );
+    }
+
+    @Test
+    public void testCreateKeyConsidersCapabilitiesParameters() {
+        String[] params = { "SERVICE", "VERSION", "WMTVER", "ACCEPTVERSIONS", "LANGUAGE", "ACCEPTLANGUAGES", "FORMAT",
+                           "ACCEPTFORMATS", "SECTIONS", "UPDATESEQUENCE" };
+        Map<String, String> kvp = new HashMap<String, String>();
+        kvp.put( "REQUEST", "GetCapabilities" );
+        String key = CapabilitiesCache.createKey( kvp, "http://localhost/services" );
+        for ( String param : params ) {
+            Map<String, String> withParam = new HashMap<String, String>( kvp );
+            withParam.put( param, "value" );
+            assertFalse( param, key.equals( CapabilitiesCache.createKey( withParam, "http://localhost/services" ) ) );
+        }
+        assertFalse( key.equals( CapabilitiesCache.createKey( kvp, "http://otherhost/services" ) ) );
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted()
+                            throws IOException {
+        CapabilitiesCache cache = new CapabilitiesCache( 2 );
+        put( cache, "a" );
+        put( cache, "b" );
+        // touch the first entry, so the second one is the least recently used
+        assertTrue( cache.send( "a", mock( HttpServletRequest.class ), mockResponse( new ByteArrayOutputStream() ) ) );
+        put( cache, "c" );
+
+        assertTrue( cache.send( "a", mock( HttpServletRequest.class ), mockResponse( new ByteArrayOutputStream() ) ) );
+        assertFalse( cache.send( "b", mock( HttpServletRequest.class ), mockResponse( new ByteArrayOutputStream() ) ) );
+        assertTrue( cache.send( "c", mock( HttpServletRequest.class ), mockResponse( new ByteArrayOutputStream() ) ) );
+    }
+
+    private CapabilitiesCache createFilledCache()
+                            throws IOException {
+        CapabilitiesCache cache = new CapabilitiesCache();
+        put( cache, KEY );
+        return cache;
+    }
+
+    private void put( CapabilitiesCache cache, String key )
+                            throws IOException {
+        HttpResponseBuffer buffer = new HttpResponseBuffer( mock( HttpServletResponse.class ) );
+        buffer.getOutputStream().write( DOC );
+        cache.put( key, buffer );
+    }
+
+    private HttpServletResponse mockResponse( final ByteArrayOutputStream bos )
+                            throws IOException {
+        HttpServletResponse response = mock( HttpServletResponse.class );
+        when( response.getOutputStream() ).thenReturn( new ServletOutputStream() {
+            @Override
+            public void write( int b ) {
+                bos.write( b );
+            }
+        } );
+        return response;
+    }
+
+}
@@ -0,0 +1,163 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller.utils;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Tests for {@link HttpCacheHeaders}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class HttpCacheHeadersTest {
+
+    private static final long LAST_MODIFIED = 1400000000000L;
+
+    @Test
+    public void testHeadersAreSet() {
+        HttpCacheHeaders headers = new HttpCacheHeaders( "public, max-age=3600" );
+        HttpServletResponse response = mock( HttpServletResponse.class );
+        assertFalse( headers.checkNotModified( mock( HttpServletRequest.class ), response, "abc", LAST_MODIFIED ) );
+        verify( response ).setHeader( "ETag", "\"abc\"" );
+        verify( response ).setDateHeader( "Last-Modified", LAST_MODIFIED );
+        verify( response ).setHeader( "Cache-Control", "public, max-age=3600" );
+        verify( response, never() ).setStatus( anyInt() );
+    }
+
+    @Test
+    public void testIsCacheable() {
+        assertTrue( new HttpCacheHeaders( "public, max-age=3600" ).isCacheable() );
+        assertFalse( new HttpCacheHeaders( null ).isCacheable() );
+        assertFalse( new HttpCacheHeaders( " " ).isCacheable() );
+        assertFalse( new HttpCacheHeaders( "No-Store" ).isCacheable() );
+    }
+
+    @Test
+    public void testUnknownValidators() {
+        HttpCacheHeaders headers = new HttpCacheHeaders( null );
+        HttpServletRequest request = mock( HttpServletRequest.class );
+        when( request.getHeader( "If-None-Match" ) ).thenReturn( "*" );
+        HttpServletResponse response = mock( HttpServletResponse.class );
+        assertFalse( headers.checkNotModified( request, response, null, -1 ) );
+        verify( response, never() ).setHeader( anyString(), anyString() );
+        verify( response, never() ).setDateHeader( anyString(), anyLong() );
+    }
+
+    @Test
+    public void testIfNoneMatch() {
+        HttpCacheHeaders headers = new HttpCacheHeaders( null );
+        HttpServletRequest request = mock( HttpServletRequest.class );
+        when( request.getHeader( "If-None-Match" ) ).thenReturn( "\"xyz\", W/\"abc\"" );
+        HttpServletResponse response = mock( HttpServletResponse.class );
+        assertTrue( headers.checkNotModified( request, response, "abc", -1 ) );
+        verify( response ).setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+
+        response = mock( HttpServletResponse.class );
+        assertFalse( headers.checkNotModified( request, response, "def", -1 ) );
+        verify( response, never() ).setStatus( anyInt() );
+    }
+
+    @Test
+    public void testIfNoneMatchTakesPrecedence() {
+        HttpCacheHeaders headers = new HttpCacheHeaders( null );
+        HttpServletRequest request = mock( HttpServletRequest.class );
+        when( request.getHeader( "If-None-Match" ) ).thenReturn( "\"old\"" );
+        when( request.getDateHeader( "If-Modified-Since" ) ).thenReturn( LAST_MODIFIED );
+        assertFalse( headers.checkNotModified( request, mock( HttpServletResponse.class ), "new", LAST_MODIFIED ) );
+    }
+
+    @Test
+    public void testIfModifiedSince() {
+        HttpCacheHeaders headers = new HttpCacheHeaders( null );
+        HttpServletRequest request = mock( HttpServletRequest.class );
+        when( request.getDateHeader( "If-Modified-Since" ) ).thenReturn( LAST_MODIFIED );
+        HttpServletResponse response = mock( HttpServletResponse.class );
+        // HTTP dates have a resolution of seconds
+        assertTrue( headers.checkNotModified( request, response, null, LAST_MODIFIED + 999 ) );
+        verify( response ).setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+        assertFalse( headers.checkNotModified( request, mock( HttpServletResponse.class ), null, LAST_MODIFIED + 1000 ) );
+    }
+
+    @Test
+    public void testInvalidIfModifiedSince() {
+        HttpCacheHeaders headers = new HttpCacheHeaders( null );
+        HttpServletRequest request = mock( HttpServletRequest.class );
+        when( request.getDateHeader( "If-Modified-Since" ) ).thenThrow( new IllegalArgumentException() );
+        assertFalse( headers.checkNotModified( request, mock( HttpServletResponse.class ), null, LAST_MODIFIED ) );
+    }
+
+    @Test
+    public void testBufferedResponse()
+                            throws IOException {
+        HttpCacheHeaders headers = new HttpCacheHeaders( "max-age=60" );
+        HttpServletResponse first = mock( HttpServletResponse.class );
+        HttpResponseBuffer buffer = new HttpResponseBuffer( first );
+        buffer.getOutputStream().write( "image".getBytes() );
+        assertFalse( headers.checkNotModified( mock( HttpServletRequest.class ), buffer ) );
+        ArgumentCaptor<String> etag = ArgumentCaptor.forClass( String.class );
+        verify( first ).setHeader( eq( "ETag" ), etag.capture() );
+
+        HttpServletRequest request = mock( HttpServletRequest.class );
+        when( request.getHeader( "If-None-Match" ) ).thenReturn( etag.getValue() );
+        HttpServletResponse second = mock( HttpServletResponse.class );
+        buffer = new HttpResponseBuffer( second );
+        buffer.getOutputStream().write( "image".getBytes() );
+        assertTrue( headers.checkNotModified( request, buffer ) );
+        verify( second ).setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+        verify( second ).setHeader( "Cache-Control", "max-age=60" );
+        assertTrue( buffer.getBufferedContent().length == 0 );
+    }
+
+}
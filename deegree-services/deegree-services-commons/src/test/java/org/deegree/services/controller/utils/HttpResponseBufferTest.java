@@ -0,0 +1,177 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.controller.utils;
+
+import static org.deegree.services.controller.utils.HttpResponseBuffer.LATE_ERROR_MARKER;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.junit.Test;
+
+/**
+ * Tests for the streaming mode of {@link HttpResponseBuffer}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class HttpResponseBufferTest {
+
+    private final ByteArrayOutputStream sent = new ByteArrayOutputStream();
+
+    @Test
+    public void testOutputBelowThresholdIsBuffered()
+                            throws IOException {
+        HttpServletResponse response = mockResponse( null );
+        HttpResponseBuffer buffer = new HttpResponseBuffer( response );
+        buffer.enableStreaming( 10 );
+        buffer.getOutputStream().write( "12345".getBytes() );
+
+        assertFalse( buffer.isStreaming() );
+        assertArrayEquals( "12345".getBytes(), buffer.getBufferedContent() );
+        assertEquals( 0, sent.size() );
+        verify( response, never() ).getOutputStream();
+    }
+
+    @Test
+    public void testSwitchToStreamingSendsBufferedOutput()
+                            throws IOException {
+        HttpResponseBuffer buffer = new HttpResponseBuffer( mockResponse( null ) );
+        buffer.enableStreaming( 10 );
+        ServletOutputStream os = buffer.getOutputStream();
+        os.write( "12345".getBytes() );
+        os.write( "67890abc".getBytes() );
+
+        assertTrue( buffer.isStreaming() );
+        assertEquals( "1234567890abc", sent.toString( "UTF-8" ) );
+        assertNull( buffer.getBufferedContent() );
+
+        // subsequent output is passed through directly
+        os.write( 'd' );
+        os.write( "efg".getBytes(), 1, 2 );
+        assertEquals( "1234567890abcdfg", sent.toString( "UTF-8" ) );
+        assertEquals( 0, buffer.getBufferSize() );
+
+        // flushing must not send anything twice
+        buffer.flushBuffer();
+        assertEquals( "1234567890abcdfg", sent.toString( "UTF-8" ) );
+    }
+
+    @Test
+    public void testBufferedOutputIsSentOnFlush()
+                            throws IOException {
+        HttpResponseBuffer buffer = new HttpResponseBuffer( mockResponse( null ) );
+        buffer.enableStreaming( 100 );
+        buffer.getOutputStream().write( "12345".getBytes() );
+        buffer.flushBuffer();
+
+        assertFalse( buffer.isStreaming() );
+        assertEquals( "12345", sent.toString( "UTF-8" ) );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeThreshold() {
+        new HttpResponseBuffer( mock( HttpServletResponse.class ) ).enableStreaming( -1 );
+    }
+
+    @Test
+    public void testWriteLateErrorAfterCommit()
+                            throws IOException {
+        HttpResponseBuffer buffer = new HttpResponseBuffer( mockResponse( "text/xml" ) );
+        buffer.enableStreaming( 0 );
+        buffer.getOutputStream().write( "<Features>".getBytes() );
+        assertTrue( buffer.isStreaming() );
+
+        buffer.writeLateError( "Connection lost -- giving up" );
+        assertEquals( "<Features><!-- " + LATE_ERROR_MARKER + " Connection lost - - giving up -->",
+                      sent.toString( "UTF-8" ) );
+    }
+
+    @Test
+    public void testWriteLateErrorWithXMLWriter()
+                            throws Exception {
+        HttpResponseBuffer buffer = new HttpResponseBuffer( mockResponse( null ) );
+        buffer.enableStreaming( 0 );
+        XMLStreamWriter writer = buffer.getXMLWriter();
+        writer.writeStartElement( "Features" );
+        writer.flush();
+        assertTrue( buffer.isStreaming() );
+
+        buffer.writeLateError( "Backend failure" );
+        String output = sent.toString( "UTF-8" );
+        assertTrue( output, output.contains( "<Features>" ) );
+        assertTrue( output, output.endsWith( "<!-- " + LATE_ERROR_MARKER + " Backend failure -->" ) );
+    }
+
+    @Test
+    public void testWriteLateErrorIgnoresNonXMLContent()
+                            throws IOException {
+        HttpResponseBuffer buffer = new HttpResponseBuffer( mockResponse( "image/png" ) );
+        buffer.enableStreaming( 0 );
+        buffer.getOutputStream().write( new byte[] { 1, 2, 3 } );
+
+        buffer.writeLateError( "Rendering failed" );
+        assertArrayEquals( new byte[] { 1, 2, 3 }, sent.toByteArray() );
+    }
+
+    private HttpServletResponse mockResponse( String contentType )
+                            throws IOException {
+        HttpServletResponse response = mock( HttpServletResponse.class );
+        when( response.getContentType() ).thenReturn( contentType );
+        when( response.getOutputStream() ).thenReturn( new ServletOutputStream() {
+            @Override
+            public void write( int b ) {
+                sent.write( b );
+            }
+        } );
+        return response;
+    }
+
+}
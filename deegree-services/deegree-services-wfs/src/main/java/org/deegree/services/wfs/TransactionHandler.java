@@ -96,6 +96,7 @@ import org.deegree.cs.persistence.CRSManager;
 import org.deegree.feature.Feature;
 import org.deegree.feature.FeatureCollection;
 import org.deegree.feature.GenericFeatureCollection;
+import org.deegree.feature.persistence.BulkLoadTransaction;
 import org.deegree.feature.persistence.FeatureStore;
 import org.deegree.feature.persistence.FeatureStoreException;
 import org.deegree.feature.persistence.FeatureStoreGMLIdResolver;
@@ -155,6 +156,11 @@ class TransactionHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger( TransactionHandler.class );
 
+    // vendor id of native operations that are handled by deegree (e.g. <BulkLoad deferIndexes="true"/>)
+    private static final String DEEGREE_VENDOR_ID = "deegree";
+
+    private static final String BULK_LOAD = "BulkLoad";
+
     private final WebFeatureService master;
 
     private final WfsFeatureStoreManager service;
@@ -175,6 +181,11 @@ class TransactionHandler {
 
     private final boolean allowFeatureReferencesToDatastore;
 
+    // set by a native BulkLoad operation, applies to subsequent inserts
+    private boolean bulkLoad;
+
+    private boolean deferIndexes;
+
     /**
      * Creates a new {@link TransactionHandler} instance that uses the given service to lookup requested
      * {@link FeatureType}s.
@@ -402,6 +413,9 @@ class TransactionHandler {
             FeatureCollection fc = parseFeaturesOrCollection( xmlStream, inputFormat, defaultCRS );
             FeatureStore fs = service.getStores()[0];
             ta = acquireTransaction( fs );
+            if ( bulkLoad && ta instanceof BulkLoadTransaction ) {
+                ( (BulkLoadTransaction) ta ).enableBulkLoad( deferIndexes );
+            }
             IDGenMode mode = insert.getIdGen();
             if ( mode == null ) {
                 if ( VERSION_110.equals( request.getVersion() ) ) {
@@ -524,6 +538,10 @@ class TransactionHandler {
     private void doNative( Native nativeOp )
                             throws OWSException {
         LOG.debug( "doNative: " + nativeOp );
+        if ( DEEGREE_VENDOR_ID.equals( nativeOp.getVendorId() ) ) {
+            doDeegreeNative( nativeOp );
+            return;
+        }
         if ( nativeOp.isSafeToIgnore() == false ) {
             throw new OWSException( "Native operations are not supported by this WFS.", INVALID_PARAMETER_VALUE,
                                     "Native" );
@@ -538,6 +556,29 @@ class TransactionHandler {
         }
     }
 
+    private void doDeegreeNative( Native nativeOp )
+                            throws OWSException {
+        XMLStreamReader xmlStream = nativeOp.getVendorSpecificData();
+        try {
+            xmlStream.nextTag();
+            while ( xmlStream.isStartElement() ) {
+                if ( BULK_LOAD.equals( xmlStream.getLocalName() ) ) {
+                    bulkLoad = true;
+                    deferIndexes = Boolean.parseBoolean( xmlStream.getAttributeValue( null, "deferIndexes" ) );
+                    LOG.debug( "Bulk load requested (deferred indexes: " + deferIndexes + ")." );
+                } else if ( !nativeOp.isSafeToIgnore() ) {
+                    String msg = "Native operation '" + xmlStream.getLocalName() + "' is not supported by this WFS.";
+                    throw new OWSException( msg, INVALID_PARAMETER_VALUE, "Native" );
+                }
+                skipElement( xmlStream );
+                xmlStream.nextTag();
+            }
+        } catch ( XMLStreamException e ) {
+            String msg = "Error in native operation: " + e.getMessage();
+            throw new OWSException( msg, INVALID_PARAMETER_VALUE );
+        }
+    }
+
     private void doUpdate( Update update, Lock lock )
                             throws OWSException {
 
@@ -113,6 +113,7 @@ import org.deegree.services.controller.AbstractOWS;
 import org.deegree.services.controller.ImplementationMetadata;
 import org.deegree.services.controller.OGCFrontController;
 import org.deegree.services.controller.exception.serializer.XMLExceptionSerializer;
+import org.deegree.services.controller.utils.CapabilitiesCache;
 import org.deegree.services.controller.utils.HttpResponseBuffer;
 import org.deegree.services.encoding.LimitedSupportedEncodings;
 import org.deegree.services.encoding.SupportedEncodings;
@@ -125,11 +126,14 @@ import org.deegree.services.jaxb.wfs.CustomFormat;
 import org.deegree.services.jaxb.wfs.DeegreeWFS;
 import org.deegree.services.jaxb.wfs.DeegreeWFS.EnableTransactions;
 import org.deegree.services.jaxb.wfs.DeegreeWFS.ExtendedCapabilities;
+import org.deegree.services.jaxb.wfs.DeegreeWFS.ResponseStreaming;
 import org.deegree.services.jaxb.wfs.DeegreeWFS.SupportedRequests;
 import org.deegree.services.jaxb.wfs.DeegreeWFS.SupportedVersions;
 import org.deegree.services.jaxb.wfs.DisabledResources;
 import org.deegree.services.jaxb.wfs.FeatureTypeMetadata;
+import org.deegree.services.jaxb.wfs.FlatGeobufFormat;
 import org.deegree.services.jaxb.wfs.GMLFormat;
+import org.deegree.services.jaxb.wfs.GeoJSONFormat;
 import org.deegree.services.jaxb.wfs.IdentifierGenerationOptionType;
 import org.deegree.services.jaxb.wfs.RequestType;
 import org.deegree.services.metadata.MetadataUtils;
@@ -166,6 +170,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -242,6 +247,11 @@ public class WebFeatureService extends AbstractOWS {
 
     private boolean disableBuffering = true;
 
+    // operations whose responses are buffered up to streamingThreshold bytes, then streamed
+    private final Set<WFSRequestType> streamingRequests = EnumSet.noneOf( WFSRequestType.class );
+
+    private int streamingThreshold;
+
     private ICRS defaultQueryCRS = CRSUtils.EPSG_4326;
 
     private List<ICRS> queryCRS = new ArrayList<ICRS>();
@@ -266,6 +276,8 @@ public class WebFeatureService extends AbstractOWS {
 
     private ReferencePatternMatcher referencePatternMatcher;
 
+    private final CapabilitiesCache capabilitiesCache = new CapabilitiesCache();
+
     public WebFeatureService( ResourceMetadata<OWS> metadata, Workspace workspace, Object jaxbConfig ) {
         super( metadata, workspace, jaxbConfig );
     }
@@ -291,6 +303,7 @@ public class WebFeatureService extends AbstractOWS {
         } else if ( jaxbConfig.isDisableResponseBuffering() != null ) {
             disableBuffering = jaxbConfig.isDisableResponseBuffering();
         }
+        initResponseStreaming( jaxbConfig.getResponseStreaming() );
 
         queryMaxFeatures = jaxbConfig.getQueryMaxFeatures() == null ? DEFAULT_MAX_FEATURES
                                                                    : jaxbConfig.getQueryMaxFeatures().intValue();
@@ -532,7 +545,7 @@ public class WebFeatureService extends AbstractOWS {
         defaultQueryCRS = this.queryCRS.get( 0 );
     }
 
-    private void initFormats( List<JAXBElement<? extends AbstractFormatType>> formatList ) {
+    void initFormats( List<JAXBElement<? extends AbstractFormatType>> formatList ) {
 
         if ( formatList == null || formatList.isEmpty() ) {
             LOG.debug( "Using default format configuration." );
@@ -569,6 +582,12 @@ public class WebFeatureService extends AbstractOWS {
                 Format format = null;
                 if ( formatDef instanceof GMLFormat ) {
                     format = new org.deegree.services.wfs.format.gml.GmlFormat( this, (GMLFormat) formatDef );
+                } else if ( formatDef instanceof GeoJSONFormat ) {
+                    format = new org.deegree.services.wfs.format.geojson.GeoJsonFormat( this, (GeoJSONFormat) formatDef );
+                } else if ( formatDef instanceof FlatGeobufFormat ) {
+                    format = new org.deegree.services.wfs.format.flatgeobuf.FlatGeobufFormat(
+                                                                                             this,
+                                                                                             (FlatGeobufFormat) formatDef );
                 } else if ( formatDef instanceof CustomFormat ) {
                     CustomFormat cf = (CustomFormat) formatDef;
                     String className = cf.getJavaClass();
@@ -695,6 +714,7 @@ public class WebFeatureService extends AbstractOWS {
     @Override
     public void destroy() {
         LOG.debug( "destroy" );
+        capabilitiesCache.clear();
     }
 
     /**
@@ -752,9 +772,7 @@ public class WebFeatureService extends AbstractOWS {
             // build namespaces from NamespaceHints given in the configuration
             Map<String, String> nsMap = service.getPrefixToNs();
 
-            if ( disableBuffering ) {
-                response.disableBuffering();
-            }
+            configureBuffering( requestType, response );
 
             switch ( requestType ) {
             case CreateStoredQuery:
@@ -775,7 +793,12 @@ public class WebFeatureService extends AbstractOWS {
                 break;
             case GetCapabilities:
                 GetCapabilities getCapabilities = GetCapabilitiesKVPParser.parse( kvpParamsUC );
-                doGetCapabilities( getCapabilities, response );
+                String cacheKey = CapabilitiesCache.createKey( kvpParamsUC, OGCFrontController.getHttpGetURL(),
+                                                               OGCFrontController.getHttpPostURL() );
+                if ( !capabilitiesCache.send( cacheKey, request, response ) ) {
+                    doGetCapabilities( getCapabilities, response );
+                    capabilitiesCache.put( cacheKey, response );
+                }
                 break;
             case GetFeature:
                 GetFeature getFeature = GetFeatureKVPAdapter.parse( kvpParamsUC, nsMap );
@@ -821,6 +844,8 @@ public class WebFeatureService extends AbstractOWS {
                 checkTransactionsEnabled( requestName );
                 Transaction transaction = TransactionKVPAdapter.parse( kvpParamsUC );
                 new TransactionHandler( this, service, transaction, idGenMode, allowFeatureReferencesToDatastore ).doTransaction( response );
+                // envelopes announced in the capabilities may have changed
+                capabilitiesCache.clear();
                 break;
             default:
                 throw new RuntimeException( "Internal error: Unhandled request '" + requestName + "'." );
@@ -894,9 +919,7 @@ public class WebFeatureService extends AbstractOWS {
                 }
             }
 
-            if ( disableBuffering ) {
-                response.disableBuffering();
-            }
+            configureBuffering( requestType, response );
 
             switch ( requestType ) {
             case CreateStoredQuery:
@@ -984,6 +1007,8 @@ public class WebFeatureService extends AbstractOWS {
                 TransactionXmlReader transactionReader = new TransactionXmlReaderFactory().createReader( xmlStream );
                 Transaction transaction = transactionReader.read( xmlStream );
                 new TransactionHandler( this, service, transaction, idGenMode, allowFeatureReferencesToDatastore ).doTransaction( response );
+                // envelopes announced in the capabilities may have changed
+                capabilitiesCache.clear();
                 break;
             default:
                 throw new RuntimeException( "Internal error: Unhandled request '" + requestName + "'." );
@@ -1151,6 +1176,8 @@ public class WebFeatureService extends AbstractOWS {
                 TransactionXmlReader transactionReader = new TransactionXmlReaderFactory().createReader( requestVersion );
                 Transaction transaction = transactionReader.read( bodyXmlStream );
                 new TransactionHandler( this, service, transaction, idGenMode, allowFeatureReferencesToDatastore ).doTransaction( response );
+                // envelopes announced in the capabilities may have changed
+                capabilitiesCache.clear();
                 break;
             default:
                 throw new RuntimeException( "Internal error: Unhandled request '" + requestName + "'." );
@@ -1245,6 +1272,32 @@ public class WebFeatureService extends AbstractOWS {
         xmlWriter.flush();
     }
 
+    private void initResponseStreaming( ResponseStreaming config ) {
+        if ( config == null ) {
+            return;
+        }
+        streamingThreshold = config.getThreshold();
+        if ( config.getOperation().isEmpty() ) {
+            streamingRequests.add( GetFeature );
+            streamingRequests.add( GetPropertyValue );
+        }
+        for ( String operation : config.getOperation() ) {
+            try {
+                streamingRequests.add( WFSRequestType.valueOf( operation.trim() ) );
+            } catch ( IllegalArgumentException e ) {
+                throw new ResourceInitException( "Invalid operation '" + operation + "' in ResponseStreaming." );
+            }
+        }
+    }
+
+    private void configureBuffering( WFSRequestType requestType, HttpResponseBuffer response ) {
+        if ( streamingRequests.contains( requestType ) ) {
+            response.enableStreaming( streamingThreshold );
+        } else if ( disableBuffering ) {
+            response.disableBuffering();
+        }
+    }
+
     private Collection<FeatureType> getFeatureTypesToExport() {
         if ( mdProvider.getDatasetMetadata() != null && !mdProvider.getDatasetMetadata().isEmpty() ) {
             LOG.debug( "Dataset metadata available. Only announcing feature types with metadata." );
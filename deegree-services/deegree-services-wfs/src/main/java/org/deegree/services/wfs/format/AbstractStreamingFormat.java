@@ -0,0 +1,321 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wfs.format;
+
+import static org.deegree.commons.ows.exception.OWSException.INVALID_PARAMETER_VALUE;
+import static org.deegree.protocol.wfs.getfeature.ResultType.RESULTS;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.ows.exception.OWSException;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.feature.Feature;
+import org.deegree.feature.persistence.FeatureStore;
+import org.deegree.feature.persistence.query.Query;
+import org.deegree.feature.stream.FeatureInputStream;
+import org.deegree.filter.projection.ProjectionClause;
+import org.deegree.filter.projection.PropertyName;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryTransformer;
+import org.deegree.geometry.linearization.GeometryLinearizer;
+import org.deegree.geometry.linearization.NumPointsCriterion;
+import org.deegree.geometry.refs.GeometryReference;
+import org.deegree.protocol.wfs.describefeaturetype.DescribeFeatureType;
+import org.deegree.protocol.wfs.getfeature.GetFeature;
+import org.deegree.protocol.wfs.getfeature.ResultType;
+import org.deegree.protocol.wfs.getfeaturewithlock.GetFeatureWithLock;
+import org.deegree.protocol.wfs.getgmlobject.GetGmlObject;
+import org.deegree.protocol.wfs.getpropertyvalue.GetPropertyValue;
+import org.deegree.services.controller.utils.HttpResponseBuffer;
+import org.deegree.services.wfs.WebFeatureService;
+import org.deegree.services.wfs.query.QueryAnalyzer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Base class for {@link Format}s that only support <code>GetFeature</code> requests and write the features one by one
+ * as they are retrieved from the feature stores (e.g. GeoJSON).
+ * <p>
+ * Takes care of query evaluation, paging (<code>startIndex</code>/<code>count</code>) and the configured maximum
+ * number of features, subclasses only need to serialize the features.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public abstract class AbstractStreamingFormat implements Format {
+
+    private static final Logger LOG = LoggerFactory.getLogger( AbstractStreamingFormat.class );
+
+    private static final GeometryLinearizer linearizer = new GeometryLinearizer();
+
+    /**
+     * Writes the features of one <code>GetFeature</code> response.
+     */
+    protected interface FeatureWriter {
+
+        /**
+         * @param feature
+         *            feature to write, never <code>null</code>
+         * @throws Exception
+         */
+        void write( Feature feature )
+                                throws Exception;
+
+        /**
+         * Finishes the response.
+         * 
+         * @param numberReturned
+         *            number of features that have been written
+         * @throws Exception
+         */
+        void finish( int numberReturned )
+                                throws Exception;
+    }
+
+    protected final WebFeatureService master;
+
+    private final String mimeType;
+
+    /**
+     * @param master
+     *            service that uses this format, must not be <code>null</code>
+     * @param mimeType
+     *            content type of the responses, must not be <code>null</code>
+     */
+    protected AbstractStreamingFormat( WebFeatureService master, String mimeType ) {
+        this.master = master;
+        this.mimeType = mimeType;
+    }
+
+    /**
+     * Creates the writer for a <code>GetFeature</code> response.
+     * 
+     * @param analyzer
+     *            the analyzed queries, never <code>null</code>
+     * @param os
+     *            stream to write the response to, never <code>null</code>
+     * @return writer, never <code>null</code>
+     * @throws Exception
+     */
+    protected abstract FeatureWriter createWriter( QueryAnalyzer analyzer, OutputStream os )
+                            throws Exception;
+
+    /**
+     * Writes the response to a <code>GetFeature</code> request with <code>resultType=hits</code>.
+     * 
+     * @param analyzer
+     *            the analyzed queries, never <code>null</code>
+     * @param numberMatched
+     *            number of matching features
+     * @param os
+     *            stream to write the response to, never <code>null</code>
+     * @throws Exception
+     */
+    protected abstract void writeHits( QueryAnalyzer analyzer, int numberMatched, OutputStream os )
+                            throws Exception;
+
+    /**
+     * Returns the maximum number of features that this format writes per response (in addition to the configured
+     * maximum of the service).
+     * 
+     * @return maximum number of features, or -1 if the format has no limit
+     */
+    protected int getMaxFeatures() {
+        return -1;
+    }
+
+    @Override
+    public void destroy() {
+        // nothing to do
+    }
+
+    @Override
+    public void doDescribeFeatureType( DescribeFeatureType request, HttpResponseBuffer response, boolean isSoap )
+                            throws OWSException {
+        throw unsupported( "DescribeFeatureType" );
+    }
+
+    @Override
+    public void doGetFeature( GetFeature request, HttpResponseBuffer response )
+                            throws Exception {
+        if ( request instanceof GetFeatureWithLock ) {
+            throw unsupported( "GetFeatureWithLock" );
+        }
+        QueryAnalyzer analyzer = new QueryAnalyzer( request.getQueries(), master, master.getStoreManager(),
+                                                    master.getCheckAreaOfUse() );
+        ResultType type = request.getPresentationParams().getResultType();
+        if ( type == RESULTS || type == null ) {
+            doGetFeatureResults( request, analyzer, response );
+        } else {
+            int hits = 0;
+            for ( Map.Entry<FeatureStore, List<Query>> fsToQueries : analyzer.getQueries().entrySet() ) {
+                List<Query> queries = fsToQueries.getValue();
+                for ( int singleHits : fsToQueries.getKey().queryHits( queries.toArray( new Query[queries.size()] ) ) ) {
+                    hits += singleHits;
+                }
+            }
+            response.setContentType( mimeType );
+            writeHits( analyzer, hits, response.getOutputStream() );
+        }
+    }
+
+    private void doGetFeatureResults( GetFeature request, QueryAnalyzer analyzer, HttpResponseBuffer response )
+                            throws Exception {
+        int maxFeatures = master.getQueryMaxFeatures();
+        int formatMaxFeatures = getMaxFeatures();
+        if ( formatMaxFeatures > 0 && ( maxFeatures < 1 || formatMaxFeatures < maxFeatures ) ) {
+            maxFeatures = formatMaxFeatures;
+        }
+        BigInteger count = request.getPresentationParams().getCount();
+        if ( count != null && ( maxFeatures < 1 || count.intValue() < maxFeatures ) ) {
+            maxFeatures = count.intValue();
+        }
+        int startIndex = 0;
+        if ( request.getPresentationParams().getStartIndex() != null ) {
+            startIndex = request.getPresentationParams().getStartIndex().intValue();
+        }
+
+        response.setContentType( mimeType );
+        FeatureWriter writer = createWriter( analyzer, response.getOutputStream() );
+        int featuresAdded = 0;
+        int featuresSkipped = 0;
+        for ( Map.Entry<FeatureStore, List<Query>> fsToQueries : analyzer.getQueries().entrySet() ) {
+            if ( featuresAdded == maxFeatures ) {
+                break;
+            }
+            List<Query> queries = fsToQueries.getValue();
+            FeatureInputStream rs = fsToQueries.getKey().query( queries.toArray( new Query[queries.size()] ) );
+            try {
+                for ( Feature member : rs ) {
+                    if ( featuresAdded == maxFeatures ) {
+                        // limit the number of features written to maxfeatures
+                        break;
+                    }
+                    if ( featuresSkipped < startIndex ) {
+                        featuresSkipped++;
+                    } else {
+                        writer.write( member );
+                        featuresAdded++;
+                    }
+                }
+            } finally {
+                LOG.debug( "Closing FeatureResultSet (stream)" );
+                rs.close();
+            }
+        }
+        writer.finish( featuresAdded );
+    }
+
+    @Override
+    public void doGetGmlObject( GetGmlObject request, HttpResponseBuffer response )
+                            throws OWSException {
+        throw unsupported( "GetGmlObject" );
+    }
+
+    @Override
+    public void doGetPropertyValue( GetPropertyValue getPropertyValue, HttpResponseBuffer response )
+                            throws OWSException {
+        throw unsupported( "GetPropertyValue" );
+    }
+
+    /**
+     * Returns the names of the properties that have been requested.
+     * 
+     * @param analyzer
+     *            the analyzed queries, never <code>null</code>
+     * @return the property names, or <code>null</code> if all properties are requested
+     */
+    protected static Set<QName> getRequestedProperties( QueryAnalyzer analyzer ) {
+        List<ProjectionClause> projections = analyzer.getProjections();
+        if ( projections == null || projections.isEmpty() ) {
+            return null;
+        }
+        Set<QName> names = new HashSet<QName>();
+        for ( ProjectionClause projection : projections ) {
+            if ( projection instanceof PropertyName ) {
+                QName name = ( (PropertyName) projection ).getPropertyName().getAsQName();
+                if ( name != null ) {
+                    names.add( name );
+                }
+            }
+        }
+        return names.isEmpty() ? null : names;
+    }
+
+    /**
+     * Prepares a geometry for output: resolves references, transforms it into the output crs and linearizes curved
+     * segments.
+     * 
+     * @param geom
+     *            geometry, never <code>null</code>
+     * @param transformer
+     *            transformer into the output crs, may be <code>null</code> (keep the native crs)
+     * @return the prepared geometry
+     * @throws IOException
+     *             if the geometry could not be transformed
+     */
+    protected static Geometry prepareGeometry( Geometry geom, GeometryTransformer transformer )
+                            throws IOException {
+        if ( geom instanceof GeometryReference<?> ) {
+            geom = ( (GeometryReference<?>) geom ).getReferencedObject();
+        }
+        ICRS crs = geom.getCoordinateSystem();
+        if ( transformer != null && crs != null && !transformer.getTargetCRS().equals( crs ) ) {
+            try {
+                geom = transformer.transform( geom );
+            } catch ( Exception e ) {
+                throw new IOException( "Unable to transform geometry to '" + transformer.getTargetCRS().getAlias()
+                                       + "': " + e.getMessage(), e );
+            }
+        }
+        return linearizer.linearize( geom, new NumPointsCriterion( 100 ) );
+    }
+
+    private OWSException unsupported( String operation ) {
+        String msg = "Output format '" + mimeType + "' is not supported for " + operation + " requests.";
+        return new OWSException( msg, INVALID_PARAMETER_VALUE, "outputFormat" );
+    }
+
+}
@@ -0,0 +1,409 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wfs.format.flatgeobuf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Minimal builder for FlatBuffers binary encoded tables, vectors and strings.
+ * <p>
+ * Like the reference implementation, the buffer is filled back to front: children (strings, vectors and nested tables)
+ * have to be created before the table that refers to them. Vtables are not shared between tables. The builder can be
+ * reused after calling {@link #clear()}, so encoding does not allocate once the buffer has grown large enough.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class FlatBufferBuilder {
+
+    private static final Charset UTF8 = Charset.forName( "UTF-8" );
+
+    private byte[] buf;
+
+    // index of the first used byte, data is located in [space, buf.length)
+    private int space;
+
+    private int minAlign = 1;
+
+    private int[] vtable = new int[16];
+
+    private int vtableInUse;
+
+    private int objectStart;
+
+    private int vectorNumElems;
+
+    /**
+     * @param initialSize
+     *            initial size of the buffer in bytes
+     */
+    FlatBufferBuilder( int initialSize ) {
+        buf = new byte[Math.max( initialSize, 8 )];
+        space = buf.length;
+    }
+
+    /**
+     * Resets the builder, so it can be used for creating a new buffer.
+     */
+    void clear() {
+        space = buf.length;
+        minAlign = 1;
+        vtableInUse = 0;
+    }
+
+    /**
+     * @return current offset (from the end of the buffer)
+     */
+    int offset() {
+        return buf.length - space;
+    }
+
+    private void pad( int n ) {
+        for ( int i = 0; i < n; i++ ) {
+            buf[--space] = 0;
+        }
+    }
+
+    /**
+     * Prepares writing an element of <code>size</code> bytes after <code>additionalBytes</code> have been written,
+     * i.e. inserts padding to align the element and grows the buffer if necessary.
+     */
+    private void prep( int size, int additionalBytes ) {
+        if ( size > minAlign ) {
+            minAlign = size;
+        }
+        int alignSize = ( ~( buf.length - space + additionalBytes ) + 1 ) & ( size - 1 );
+        while ( space < alignSize + size + additionalBytes ) {
+            grow();
+        }
+        pad( alignSize );
+    }
+
+    private void grow() {
+        int oldSize = buf.length;
+        byte[] newBuf = new byte[oldSize * 2];
+        System.arraycopy( buf, space, newBuf, newBuf.length - ( oldSize - space ), oldSize - space );
+        space += newBuf.length - oldSize;
+        buf = newBuf;
+    }
+
+    private void putByte( byte x ) {
+        buf[--space] = x;
+    }
+
+    private void putShort( short x ) {
+        buf[--space] = (byte) ( x >> 8 );
+        buf[--space] = (byte) x;
+    }
+
+    private void putInt( int x ) {
+        space -= 4;
+        putInt( space, x );
+    }
+
+    private void putInt( int index, int x ) {
+        buf[index] = (byte) x;
+        buf[index + 1] = (byte) ( x >> 8 );
+        buf[index + 2] = (byte) ( x >> 16 );
+        buf[index + 3] = (byte) ( x >> 24 );
+    }
+
+    private void putLong( long x ) {
+        space -= 8;
+        for ( int i = 0; i < 8; i++ ) {
+            buf[space + i] = (byte) ( x >> ( 8 * i ) );
+        }
+    }
+
+    private void addByte( byte x ) {
+        prep( 1, 0 );
+        putByte( x );
+    }
+
+    private void addShort( short x ) {
+        prep( 2, 0 );
+        putShort( x );
+    }
+
+    private void addInt( int x ) {
+        prep( 4, 0 );
+        putInt( x );
+    }
+
+    private void addLong( long x ) {
+        prep( 8, 0 );
+        putLong( x );
+    }
+
+    private void addOffset( int off ) {
+        prep( 4, 0 );
+        putInt( offset() - off + 4 );
+    }
+
+    /**
+     * Starts a vector, elements have to be added in reverse order.
+     * 
+     * @param elemSize
+     *            size of an element in bytes
+     * @param numElems
+     *            number of elements
+     * @param alignment
+     *            required alignment of the elements
+     */
+    void startVector( int elemSize, int numElems, int alignment ) {
+        vectorNumElems = numElems;
+        prep( 4, elemSize * numElems );
+        prep( alignment, elemSize * numElems );
+    }
+
+    /**
+     * @return offset of the vector
+     */
+    int endVector() {
+        putInt( vectorNumElems );
+        return offset();
+    }
+
+    /**
+     * Adds an element to the current vector of <code>uint</code>s.
+     */
+    void addVectorInt( int x ) {
+        addInt( x );
+    }
+
+    /**
+     * Adds an element to the current vector of <code>double</code>s.
+     */
+    void addVectorDouble( double x ) {
+        addLong( Double.doubleToRawLongBits( x ) );
+    }
+
+    /**
+     * Adds an element to the current vector of table offsets.
+     */
+    void addVectorOffset( int off ) {
+        addOffset( off );
+    }
+
+    /**
+     * Creates a vector of <code>double</code>s.
+     * 
+     * @param values
+     *            array that contains the values, must not be <code>null</code>
+     * @param from
+     *            index of the first value
+     * @param to
+     *            index after the last value
+     * @return offset of the vector
+     */
+    int createDoubleVector( double[] values, int from, int to ) {
+        startVector( 8, to - from, 8 );
+        for ( int i = to - 1; i >= from; i-- ) {
+            putLong( Double.doubleToRawLongBits( values[i] ) );
+        }
+        return endVector();
+    }
+
+    /**
+     * Creates a vector of <code>uint</code>s.
+     * 
+     * @param values
+     *            array that contains the values, must not be <code>null</code>
+     * @param from
+     *            index of the first value
+     * @param to
+     *            index after the last value
+     * @return offset of the vector
+     */
+    int createIntVector( int[] values, int from, int to ) {
+        startVector( 4, to - from, 4 );
+        for ( int i = to - 1; i >= from; i-- ) {
+            putInt( values[i] );
+        }
+        return endVector();
+    }
+
+    /**
+     * Creates a vector of <code>ubyte</code>s.
+     * 
+     * @param values
+     *            array that contains the values, must not be <code>null</code>
+     * @param from
+     *            index of the first value
+     * @param to
+     *            index after the last value
+     * @return offset of the vector
+     */
+    int createByteVector( byte[] values, int from, int to ) {
+        int length = to - from;
+        startVector( 1, length, 1 );
+        space -= length;
+        System.arraycopy( values, from, buf, space, length );
+        return endVector();
+    }
+
+    /**
+     * Creates a (zero terminated) UTF-8 string.
+     * 
+     * @param s
+     *            string, must not be <code>null</code>
+     * @return offset of the string
+     */
+    int createString( String s ) {
+        byte[] bytes = s.getBytes( UTF8 );
+        addByte( (byte) 0 );
+        startVector( 1, bytes.length, 1 );
+        space -= bytes.length;
+        System.arraycopy( bytes, 0, buf, space, bytes.length );
+        return endVector();
+    }
+
+    /**
+     * Starts a table. Fields have to be added before the table is finished with {@link #endTable()}.
+     * 
+     * @param numFields
+     *            number of fields defined in the schema of the table
+     */
+    void startTable( int numFields ) {
+        if ( vtable.length < numFields ) {
+            vtable = new int[numFields];
+        }
+        for ( int i = 0; i < numFields; i++ ) {
+            vtable[i] = 0;
+        }
+        vtableInUse = numFields;
+        objectStart = offset();
+    }
+
+    void addFieldByte( int slot, byte x ) {
+        addByte( x );
+        vtable[slot] = offset();
+    }
+
+    void addFieldBoolean( int slot, boolean x ) {
+        addFieldByte( slot, (byte) ( x ? 1 : 0 ) );
+    }
+
+    void addFieldShort( int slot, short x ) {
+        addShort( x );
+        vtable[slot] = offset();
+    }
+
+    void addFieldInt( int slot, int x ) {
+        addInt( x );
+        vtable[slot] = offset();
+    }
+
+    void addFieldLong( int slot, long x ) {
+        addLong( x );
+        vtable[slot] = offset();
+    }
+
+    void addFieldOffset( int slot, int off ) {
+        addOffset( off );
+        vtable[slot] = offset();
+    }
+
+    /**
+     * Finishes the current table.
+     * 
+     * @return offset of the table
+     */
+    int endTable() {
+        addInt( 0 );
+        int vtableLoc = offset();
+        int i = vtableInUse - 1;
+        while ( i >= 0 && vtable[i] == 0 ) {
+            i--;
+        }
+        int trimmedSize = i + 1;
+        for ( ; i >= 0; i-- ) {
+            addShort( (short) ( vtable[i] != 0 ? vtableLoc - vtable[i] : 0 ) );
+        }
+        addShort( (short) ( vtableLoc - objectStart ) );
+        addShort( (short) ( ( trimmedSize + 2 ) * 2 ) );
+        // the vtable is located right in front of the table
+        putInt( buf.length - vtableLoc, offset() - vtableLoc );
+        vtableInUse = 0;
+        return vtableLoc;
+    }
+
+    /**
+     * Finishes the buffer by adding the reference to the root table and a size prefix.
+     * 
+     * @param rootTable
+     *            offset of the root table
+     */
+    void finishSizePrefixed( int rootTable ) {
+        prep( minAlign, 8 );
+        addOffset( rootTable );
+        addInt( offset() );
+    }
+
+    /**
+     * @return size of the finished buffer in bytes
+     */
+    int size() {
+        return buf.length - space;
+    }
+
+    /**
+     * Writes the finished buffer to the given stream.
+     * 
+     * @param os
+     *            stream to write to, must not be <code>null</code>
+     * @throws IOException
+     */
+    void writeTo( OutputStream os )
+                            throws IOException {
+        os.write( buf, space, buf.length - space );
+    }
+
+    /**
+     * Copies the finished buffer into the given array.
+     * 
+     * @param target
+     *            target array, must not be <code>null</code>
+     * @param offset
+     *            index of the first byte to write
+     */
+    void copyTo( byte[] target, int offset ) {
+        System.arraycopy( buf, space, target, offset, buf.length - space );
+    }
+}
@@ -0,0 +1,715 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wfs.format.flatgeobuf;
+
+import static org.deegree.cs.CRSUtils.EPSG_4326;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.tom.TypedObjectNode;
+import org.deegree.commons.tom.gml.property.Property;
+import org.deegree.commons.tom.gml.property.PropertyType;
+import org.deegree.commons.tom.primitive.BaseType;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.cs.CRSCodeType;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.feature.Feature;
+import org.deegree.feature.types.FeatureType;
+import org.deegree.feature.types.property.SimplePropertyType;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryTransformer;
+import org.deegree.geometry.multi.MultiCurve;
+import org.deegree.geometry.multi.MultiGeometry;
+import org.deegree.geometry.multi.MultiPoint;
+import org.deegree.geometry.multi.MultiSurface;
+import org.deegree.geometry.points.Points;
+import org.deegree.geometry.primitive.Curve;
+import org.deegree.geometry.primitive.Point;
+import org.deegree.geometry.primitive.Surface;
+import org.deegree.services.wfs.WebFeatureService;
+import org.deegree.services.wfs.format.AbstractStreamingFormat;
+import org.deegree.services.wfs.query.QueryAnalyzer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link org.deegree.services.wfs.format.Format} that encodes <code>GetFeature</code> responses in the binary
+ * <a href="https://flatgeobuf.org/">FlatGeobuf</a> format.
+ * <p>
+ * The columns of the file are derived from the simple properties of the queried feature types (plus a
+ * <code>gml_id</code> column). By default, features are written while they are retrieved from the feature stores and
+ * the file has no spatial index. If a spatial index is configured, the encoded features are buffered in memory, sorted
+ * along a Hilbert curve and written after the packed R-tree. Geometries are written in two dimensions, in
+ * <code>EPSG:4326</code> (x/y axis order), unless a different crs has been requested.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class FlatGeobufFormat extends AbstractStreamingFormat {
+
+    private static final Logger LOG = LoggerFactory.getLogger( FlatGeobufFormat.class );
+
+    /** Default mime type of FlatGeobuf. */
+    public static final String MIME_TYPE = "application/flatgeobuf";
+
+    private static final byte[] MAGIC_BYTES = { 0x66, 0x67, 0x62, 0x03, 0x66, 0x67, 0x62, 0x00 };
+
+    private static final Charset UTF8 = Charset.forName( "UTF-8" );
+
+    private static final String ID_COLUMN = "gml_id";
+
+    // geometry types
+    private static final byte UNKNOWN = 0;
+
+    private static final byte POINT = 1;
+
+    private static final byte LINE_STRING = 2;
+
+    private static final byte POLYGON = 3;
+
+    private static final byte MULTI_POINT = 4;
+
+    private static final byte MULTI_LINE_STRING = 5;
+
+    private static final byte MULTI_POLYGON = 6;
+
+    private static final byte GEOMETRY_COLLECTION = 7;
+
+    // column types
+    private static final byte BOOL = 2;
+
+    private static final byte LONG = 7;
+
+    private static final byte DOUBLE = 10;
+
+    private static final byte STRING = 11;
+
+    private static final byte DATE_TIME = 13;
+
+    private final int indexNodeSize;
+
+    private final int indexMaxFeatures;
+
+    /**
+     * Creates a new {@link FlatGeobufFormat} that writes files without spatial index.
+     * 
+     * @param master
+     *            service that uses this format, must not be <code>null</code>
+     */
+    public FlatGeobufFormat( WebFeatureService master ) {
+        this( master, null );
+    }
+
+    /**
+     * Creates a new {@link FlatGeobufFormat}.
+     * 
+     * @param master
+     *            service that uses this format, must not be <code>null</code>
+     * @param formatDef
+     *            format configuration, may be <code>null</code>
+     */
+    public FlatGeobufFormat( WebFeatureService master, org.deegree.services.jaxb.wfs.FlatGeobufFormat formatDef ) {
+        super( master, MIME_TYPE );
+        if ( formatDef != null && formatDef.getSpatialIndex() != null ) {
+            if ( formatDef.getSpatialIndex().getNodeSize() != null ) {
+                indexNodeSize = Math.max( 2, Math.min( 65535, formatDef.getSpatialIndex().getNodeSize().intValue() ) );
+            } else {
+                indexNodeSize = 16;
+            }
+            if ( formatDef.getSpatialIndex().getMaxFeatures() != null ) {
+                BigInteger maxFeatures = formatDef.getSpatialIndex().getMaxFeatures();
+                indexMaxFeatures = maxFeatures.min( BigInteger.valueOf( Integer.MAX_VALUE ) ).intValue();
+            } else {
+                indexMaxFeatures = 100000;
+            }
+        } else {
+            indexNodeSize = 0;
+            indexMaxFeatures = -1;
+        }
+    }
+
+    @Override
+    protected int getMaxFeatures() {
+        // features are buffered in memory to build the index
+        return indexMaxFeatures;
+    }
+
+    @Override
+    protected FeatureWriter createWriter( QueryAnalyzer analyzer, OutputStream os )
+                            throws Exception {
+        ICRS crs = analyzer.getRequestedCRS() != null ? analyzer.getRequestedCRS() : EPSG_4326;
+        Set<QName> requestedProps = getRequestedProperties( analyzer );
+        Collection<FeatureType> fts = analyzer.getFeatureTypes();
+        String name = fts.size() == 1 ? fts.iterator().next().getName().getLocalPart() : null;
+        Map<String, Byte> columns = new LinkedHashMap<String, Byte>();
+        columns.put( ID_COLUMN, STRING );
+        for ( FeatureType ft : fts ) {
+            for ( PropertyType pt : ft.getPropertyDeclarations() ) {
+                String column = pt.getName().getLocalPart();
+                if ( pt instanceof SimplePropertyType && !columns.containsKey( column )
+                     && ( requestedProps == null || requestedProps.contains( pt.getName() ) ) ) {
+                    BaseType baseType = ( (SimplePropertyType) pt ).getPrimitiveType().getBaseType();
+                    columns.put( column, getColumnType( baseType ) );
+                }
+            }
+        }
+        FlatGeobufFeatureWriter writer = new FlatGeobufFeatureWriter( os, name, columns, crs, indexNodeSize,
+                                                                      new GeometryTransformer( crs ) );
+        if ( indexNodeSize == 0 ) {
+            writer.writeHeader( 0, null, null );
+        }
+        return writer;
+    }
+
+    @Override
+    protected void writeHits( QueryAnalyzer analyzer, int numberMatched, OutputStream os )
+                            throws Exception {
+        // a header without features, the number of matched features is announced in the metadata
+        Collection<FeatureType> fts = analyzer.getFeatureTypes();
+        String name = fts.size() == 1 ? fts.iterator().next().getName().getLocalPart() : null;
+        Map<String, Byte> columns = new LinkedHashMap<String, Byte>();
+        columns.put( ID_COLUMN, STRING );
+        ICRS crs = analyzer.getRequestedCRS() != null ? analyzer.getRequestedCRS() : EPSG_4326;
+        FlatGeobufFeatureWriter writer = new FlatGeobufFeatureWriter( os, name, columns, crs, 0, null );
+        writer.writeHeader( 0, null, "{\"numberMatched\":" + numberMatched + "}" );
+        os.flush();
+    }
+
+    private static byte getColumnType( BaseType type ) {
+        switch ( type ) {
+        case BOOLEAN:
+            return BOOL;
+        case INTEGER:
+            return LONG;
+        case DECIMAL:
+        case DOUBLE:
+            return DOUBLE;
+        case DATE:
+        case DATE_TIME:
+            return DATE_TIME;
+        default:
+            return STRING;
+        }
+    }
+
+    /**
+     * Returns the EPSG code of the given crs.
+     * 
+     * @return EPSG code, or 0 if the crs has no EPSG code
+     */
+    private static int getEpsgCode( ICRS crs ) {
+        for ( CRSCodeType code : crs.getCodes() ) {
+            if ( code.getCodeSpace() != null && code.getCodeSpace().toUpperCase().contains( "EPSG" ) ) {
+                try {
+                    return Integer.parseInt( code.getCode() );
+                } catch ( NumberFormatException e ) {
+                    LOG.debug( "Ignoring non-numeric EPSG code '" + code.getCode() + "'." );
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static class FlatGeobufFeatureWriter implements FeatureWriter {
+
+        private final OutputStream os;
+
+        private final String name;
+
+        private final Map<String, Integer> columnIndexes = new LinkedHashMap<String, Integer>();
+
+        private final byte[] columnTypes;
+
+        private final ICRS crs;
+
+        private final int indexNodeSize;
+
+        private final GeometryTransformer transformer;
+
+        private final FlatBufferBuilder builder = new FlatBufferBuilder( 1024 );
+
+        // reusable buffers for the geometry and property encoding
+        private double[] xy = new double[256];
+
+        private int numXy;
+
+        private int[] ends = new int[16];
+
+        private int numEnds;
+
+        private byte[] props = new byte[256];
+
+        private int numProps;
+
+        // columns that already have a value for the current feature
+        private final boolean[] written;
+
+        // bounding box of the current feature
+        private final double[] bbox = new double[4];
+
+        // only used when writing a spatial index
+        private ByteArrayOutputStream featureData;
+
+        private double[] boxes;
+
+        private long[] offsets;
+
+        private int[] sizes;
+
+        private int numFeatures;
+
+        FlatGeobufFeatureWriter( OutputStream os, String name, Map<String, Byte> columns, ICRS crs,
+                                 int indexNodeSize, GeometryTransformer transformer ) {
+            this.os = os;
+            this.name = name;
+            this.crs = crs;
+            this.indexNodeSize = indexNodeSize;
+            this.transformer = transformer;
+            columnTypes = new byte[columns.size()];
+            written = new boolean[columns.size()];
+            for ( Map.Entry<String, Byte> column : columns.entrySet() ) {
+                columnTypes[columnIndexes.size()] = column.getValue();
+                columnIndexes.put( column.getKey(), columnIndexes.size() );
+            }
+            if ( indexNodeSize > 0 ) {
+                featureData = new ByteArrayOutputStream();
+                boxes = new double[4 * 64];
+                offsets = new long[64];
+                sizes = new int[64];
+            }
+        }
+
+        void writeHeader( long featuresCount, double[] envelope, String metadata )
+                                throws IOException {
+            builder.clear();
+            int metadataOffset = metadata != null ? builder.createString( metadata ) : 0;
+            int nameOffset = name != null ? builder.createString( name ) : 0;
+            int envelopeOffset = envelope != null ? builder.createDoubleVector( envelope, 0, 4 ) : 0;
+            int[] columnOffsets = new int[columnTypes.length];
+            int i = 0;
+            for ( String column : columnIndexes.keySet() ) {
+                int columnName = builder.createString( column );
+                builder.startTable( 11 );
+                builder.addFieldOffset( 0, columnName );
+                builder.addFieldByte( 1, columnTypes[i] );
+                columnOffsets[i++] = builder.endTable();
+            }
+            builder.startVector( 4, columnOffsets.length, 4 );
+            for ( i = columnOffsets.length - 1; i >= 0; i-- ) {
+                builder.addVectorOffset( columnOffsets[i] );
+            }
+            int columnsOffset = builder.endVector();
+            int crsOffset = 0;
+            int epsgCode = getEpsgCode( crs );
+            if ( epsgCode != 0 ) {
+                int org = builder.createString( "EPSG" );
+                builder.startTable( 6 );
+                builder.addFieldOffset( 0, org );
+                builder.addFieldInt( 1, epsgCode );
+                crsOffset = builder.endTable();
+            }
+            builder.startTable( 14 );
+            builder.addFieldLong( 8, featuresCount );
+            if ( nameOffset != 0 ) {
+                builder.addFieldOffset( 0, nameOffset );
+            }
+            if ( envelopeOffset != 0 ) {
+                builder.addFieldOffset( 1, envelopeOffset );
+            }
+            builder.addFieldOffset( 7, columnsOffset );
+            if ( crsOffset != 0 ) {
+                builder.addFieldOffset( 10, crsOffset );
+            }
+            if ( metadataOffset != 0 ) {
+                builder.addFieldOffset( 13, metadataOffset );
+            }
+            // index_node_size defaults to 16, so 0 (no index) must be written explicitly
+            builder.addFieldShort( 9, (short) ( featuresCount > 0 ? indexNodeSize : 0 ) );
+            builder.addFieldByte( 2, UNKNOWN );
+            int header = builder.endTable();
+            builder.finishSizePrefixed( header );
+            os.write( MAGIC_BYTES );
+            builder.writeTo( os );
+        }
+
+        @Override
+        public void write( Feature feature )
+                                throws Exception {
+            bbox[0] = Double.POSITIVE_INFINITY;
+            bbox[1] = Double.POSITIVE_INFINITY;
+            bbox[2] = Double.NEGATIVE_INFINITY;
+            bbox[3] = Double.NEGATIVE_INFINITY;
+            builder.clear();
+
+            int geometryOffset = 0;
+            numProps = 0;
+            for ( int i = 0; i < written.length; i++ ) {
+                written[i] = false;
+            }
+            if ( feature.getId() != null ) {
+                writeProperty( 0, feature.getId() );
+            }
+            for ( Property prop : feature.getProperties() ) {
+                TypedObjectNode value = prop.getValue();
+                if ( value instanceof Geometry ) {
+                    if ( geometryOffset == 0 ) {
+                        geometryOffset = buildGeometry( prepareGeometry( (Geometry) value, transformer ) );
+                    }
+                } else if ( value instanceof PrimitiveValue ) {
+                    Integer column = columnIndexes.get( prop.getName().getLocalPart() );
+                    // FlatGeobuf allows one value per column, so only the first value of a property is written
+                    if ( column != null && !written[column] ) {
+                        writeProperty( column, (PrimitiveValue) value );
+                    }
+                }
+            }
+            int propertiesOffset = numProps > 0 ? builder.createByteVector( props, 0, numProps ) : 0;
+            builder.startTable( 3 );
+            if ( geometryOffset != 0 ) {
+                builder.addFieldOffset( 0, geometryOffset );
+            }
+            if ( propertiesOffset != 0 ) {
+                builder.addFieldOffset( 1, propertiesOffset );
+            }
+            builder.finishSizePrefixed( builder.endTable() );
+
+            if ( indexNodeSize == 0 ) {
+                builder.writeTo( os );
+            } else {
+                addIndexItem();
+            }
+        }
+
+        private void addIndexItem() {
+            if ( numFeatures == sizes.length ) {
+                boxes = grow( boxes, 2 * boxes.length );
+                offsets = grow( offsets, 2 * offsets.length );
+                sizes = grow( sizes, 2 * sizes.length );
+            }
+            System.arraycopy( bbox, 0, boxes, 4 * numFeatures, 4 );
+            offsets[numFeatures] = featureData.size();
+            sizes[numFeatures] = builder.size();
+            numFeatures++;
+            try {
+                builder.writeTo( featureData );
+            } catch ( IOException e ) {
+                // cannot happen for a ByteArrayOutputStream
+                throw new RuntimeException( e );
+            }
+        }
+
+        @Override
+        public void finish( int numberReturned )
+                                throws Exception {
+            if ( indexNodeSize > 0 ) {
+                if ( numFeatures == 0 ) {
+                    writeHeader( 0, null, null );
+                } else {
+                    writeIndexed();
+                }
+            }
+            os.flush();
+        }
+
+        private void writeIndexed()
+                                throws IOException {
+            double[] extent = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                               Double.NEGATIVE_INFINITY };
+            for ( int i = 0; i < numFeatures; i++ ) {
+                extent[0] = Math.min( extent[0], boxes[4 * i] );
+                extent[1] = Math.min( extent[1], boxes[4 * i + 1] );
+                extent[2] = Math.max( extent[2], boxes[4 * i + 2] );
+                extent[3] = Math.max( extent[3], boxes[4 * i + 3] );
+            }
+            boolean hasExtent = extent[0] <= extent[2];
+            int[] order = PackedRTree.hilbertSort( boxes, numFeatures, extent );
+            double[] sortedBoxes = new double[4 * numFeatures];
+            long[] sortedOffsets = new long[numFeatures];
+            long offset = 0;
+            for ( int i = 0; i < numFeatures; i++ ) {
+                System.arraycopy( boxes, 4 * order[i], sortedBoxes, 4 * i, 4 );
+                sortedOffsets[i] = offset;
+                offset += sizes[order[i]];
+            }
+            writeHeader( numFeatures, hasExtent ? extent : null, null );
+            PackedRTree.write( sortedBoxes, sortedOffsets, numFeatures, indexNodeSize, os );
+            byte[] data = featureData.toByteArray();
+            featureData = null;
+            for ( int i = 0; i < numFeatures; i++ ) {
+                os.write( data, (int) offsets[order[i]], sizes[order[i]] );
+            }
+        }
+
+        /**
+         * Builds the geometry table for the given (linear) geometry.
+         * 
+         * @return offset of the table, or 0 if the geometry cannot be represented
+         */
+        private int buildGeometry( Geometry geom ) {
+            numXy = 0;
+            numEnds = 0;
+            byte type;
+            int[] parts = null;
+            if ( geom instanceof Point ) {
+                type = POINT;
+                addPoint( (Point) geom );
+            } else if ( geom instanceof Curve ) {
+                type = LINE_STRING;
+                addPoints( ( (Curve) geom ).getControlPoints() );
+            } else if ( geom instanceof Surface ) {
+                type = POLYGON;
+                addRings( (Surface) geom );
+            } else if ( geom instanceof Envelope ) {
+                type = POLYGON;
+                Envelope env = (Envelope) geom;
+                double minX = env.getMin().get0();
+                double minY = env.getMin().get1();
+                double maxX = env.getMax().get0();
+                double maxY = env.getMax().get1();
+                addXy( minX, minY );
+                addXy( maxX, minY );
+                addXy( maxX, maxY );
+                addXy( minX, maxY );
+                addXy( minX, minY );
+            } else if ( geom instanceof MultiPoint ) {
+                type = MULTI_POINT;
+                for ( Point p : (MultiPoint) geom ) {
+                    addPoint( p );
+                }
+            } else if ( geom instanceof MultiCurve<?> ) {
+                type = MULTI_LINE_STRING;
+                for ( Curve c : (MultiCurve<?>) geom ) {
+                    addPoints( c.getControlPoints() );
+                    addEnd();
+                }
+            } else if ( geom instanceof MultiSurface<?> ) {
+                type = MULTI_POLYGON;
+                MultiSurface<?> ms = (MultiSurface<?>) geom;
+                parts = new int[ms.size()];
+                for ( int i = 0; i < parts.length; i++ ) {
+                    parts[i] = buildGeometry( ms.get( i ) );
+                }
+            } else if ( geom instanceof MultiGeometry<?> ) {
+                type = GEOMETRY_COLLECTION;
+                MultiGeometry<?> mg = (MultiGeometry<?>) geom;
+                parts = new int[mg.size()];
+                for ( int i = 0; i < parts.length; i++ ) {
+                    parts[i] = buildGeometry( mg.get( i ) );
+                }
+            } else {
+                LOG.debug( "Geometry type '" + geom.getClass().getSimpleName()
+                           + "' cannot be represented in FlatGeobuf, skipping it." );
+                return 0;
+            }
+
+            int partsOffset = 0;
+            int xyOffset = 0;
+            int endsOffset = 0;
+            if ( parts != null ) {
+                int numParts = 0;
+                for ( int part : parts ) {
+                    if ( part != 0 ) {
+                        numParts++;
+                    }
+                }
+                builder.startVector( 4, numParts, 4 );
+                for ( int i = parts.length - 1; i >= 0; i-- ) {
+                    if ( parts[i] != 0 ) {
+                        builder.addVectorOffset( parts[i] );
+                    }
+                }
+                partsOffset = builder.endVector();
+            } else {
+                xyOffset = builder.createDoubleVector( xy, 0, numXy );
+                // a single part does not need the ends
+                if ( numEnds > 1 ) {
+                    endsOffset = builder.createIntVector( ends, 0, numEnds );
+                }
+            }
+            builder.startTable( 8 );
+            if ( partsOffset != 0 ) {
+                builder.addFieldOffset( 7, partsOffset );
+            }
+            if ( xyOffset != 0 ) {
+                builder.addFieldOffset( 1, xyOffset );
+            }
+            if ( endsOffset != 0 ) {
+                builder.addFieldOffset( 0, endsOffset );
+            }
+            builder.addFieldByte( 6, type );
+            return builder.endTable();
+        }
+
+        private void addRings( Surface surface ) {
+            addPoints( surface.getExteriorRingCoordinates() );
+            addEnd();
+            List<Points> interiors = surface.getInteriorRingsCoordinates();
+            if ( interiors != null ) {
+                for ( Points interior : interiors ) {
+                    addPoints( interior );
+                    addEnd();
+                }
+            }
+        }
+
+        private void addPoint( Point p ) {
+            addXy( p.get0(), p.get1() );
+        }
+
+        private void addPoints( Points points ) {
+            int n = points.size();
+            for ( int i = 0; i < n; i++ ) {
+                addXy( points.getOrdinate( i, 0 ), points.getOrdinate( i, 1 ) );
+            }
+        }
+
+        private void addXy( double x, double y ) {
+            if ( numXy + 2 > xy.length ) {
+                xy = grow( xy, 2 * xy.length );
+            }
+            xy[numXy++] = x;
+            xy[numXy++] = y;
+            bbox[0] = Math.min( bbox[0], x );
+            bbox[1] = Math.min( bbox[1], y );
+            bbox[2] = Math.max( bbox[2], x );
+            bbox[3] = Math.max( bbox[3], y );
+        }
+
+        private void addEnd() {
+            if ( numEnds == ends.length ) {
+                ends = grow( ends, 2 * ends.length );
+            }
+            ends[numEnds++] = numXy / 2;
+        }
+
+        private void writeProperty( int column, PrimitiveValue value ) {
+            Object o = value.getValue();
+            switch ( columnTypes[column] ) {
+            case BOOL:
+                if ( o instanceof Boolean ) {
+                    ensureProps( 3 );
+                    writeColumn( column );
+                    props[numProps++] = (byte) ( ( (Boolean) o ) ? 1 : 0 );
+                }
+                break;
+            case LONG:
+                if ( o instanceof Number ) {
+                    ensureProps( 10 );
+                    writeColumn( column );
+                    writeLong( ( (Number) o ).longValue() );
+                }
+                break;
+            case DOUBLE:
+                if ( o instanceof Number ) {
+                    ensureProps( 10 );
+                    writeColumn( column );
+                    writeLong( Double.doubleToRawLongBits( ( (Number) o ).doubleValue() ) );
+                }
+                break;
+            default:
+                writeProperty( column, value.getAsText() );
+            }
+        }
+
+        private void writeProperty( int column, String value ) {
+            byte[] bytes = value.getBytes( UTF8 );
+            ensureProps( 6 + bytes.length );
+            writeColumn( column );
+            int length = bytes.length;
+            for ( int i = 0; i < 4; i++ ) {
+                props[numProps++] = (byte) ( length >> ( 8 * i ) );
+            }
+            System.arraycopy( bytes, 0, props, numProps, bytes.length );
+            numProps += bytes.length;
+        }
+
+        private void writeColumn( int column ) {
+            written[column] = true;
+            props[numProps++] = (byte) column;
+            props[numProps++] = (byte) ( column >> 8 );
+        }
+
+        private void writeLong( long x ) {
+            for ( int i = 0; i < 8; i++ ) {
+                props[numProps++] = (byte) ( x >> ( 8 * i ) );
+            }
+        }
+
+        private void ensureProps( int n ) {
+            if ( numProps + n > props.length ) {
+                props = grow( props, Math.max( 2 * props.length, numProps + n ) );
+            }
+        }
+
+        private static double[] grow( double[] array, int size ) {
+            double[] newArray = new double[size];
+            System.arraycopy( array, 0, newArray, 0, array.length );
+            return newArray;
+        }
+
+        private static long[] grow( long[] array, int size ) {
+            long[] newArray = new long[size];
+            System.arraycopy( array, 0, newArray, 0, array.length );
+            return newArray;
+        }
+
+        private static int[] grow( int[] array, int size ) {
+            int[] newArray = new int[size];
+            System.arraycopy( array, 0, newArray, 0, array.length );
+            return newArray;
+        }
+
+        private static byte[] grow( byte[] array, int size ) {
+            byte[] newArray = new byte[size];
+            System.arraycopy( array, 0, newArray, 0, array.length );
+            return newArray;
+        }
+    }
+
+}
@@ -0,0 +1,277 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wfs.format.flatgeobuf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Static packed Hilbert R-tree as used by the FlatGeobuf format.
+ * <p>
+ * The tree is stored as a flat array of nodes (bounding box and offset, 40 bytes each), beginning with the root node.
+ * The leaf nodes refer to the byte offsets of the features (relative to the start of the feature data), inner nodes to
+ * the index of their first child node.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class PackedRTree {
+
+    static final int NODE_ITEM_BYTES = 40;
+
+    private static final int HILBERT_MAX = ( 1 << 16 ) - 1;
+
+    private PackedRTree() {
+        // only static methods
+    }
+
+    /**
+     * Returns the number of bytes of a packed R-tree.
+     * 
+     * @param numItems
+     *            number of indexed items, must be greater than zero
+     * @param nodeSize
+     *            maximum number of children per node, at least two
+     * @return size in bytes
+     */
+    static long calcSize( long numItems, int nodeSize ) {
+        long numNodes = 0;
+        for ( long[] bounds : levelBounds( numItems, nodeSize ) ) {
+            numNodes += bounds[1] - bounds[0];
+        }
+        return numNodes * NODE_ITEM_BYTES;
+    }
+
+    /**
+     * Returns the node index ranges of the tree levels, beginning with the leaf level.
+     */
+    private static List<long[]> levelBounds( long numItems, int nodeSize ) {
+        if ( numItems < 1 ) {
+            throw new IllegalArgumentException( "Number of items must be greater than zero." );
+        }
+        if ( nodeSize < 2 ) {
+            throw new IllegalArgumentException( "Node size must be at least 2." );
+        }
+        List<Long> levelNumNodes = new ArrayList<Long>();
+        long n = numItems;
+        long numNodes = n;
+        levelNumNodes.add( n );
+        do {
+            n = ( n + nodeSize - 1 ) / nodeSize;
+            numNodes += n;
+            levelNumNodes.add( n );
+        } while ( n != 1 );
+        List<long[]> levelBounds = new ArrayList<long[]>( levelNumNodes.size() );
+        n = numNodes;
+        for ( long size : levelNumNodes ) {
+            levelBounds.add( new long[] { n - size, n } );
+            n -= size;
+        }
+        return levelBounds;
+    }
+
+    /**
+     * Sorts the given items by the Hilbert value of the centers of their bounding boxes (descending, like the reference
+     * implementation).
+     * 
+     * @param boxes
+     *            bounding boxes of the items (minX, minY, maxX, maxY), must not be <code>null</code>
+     * @param numItems
+     *            number of items
+     * @param extent
+     *            extent of all items (minX, minY, maxX, maxY), must not be <code>null</code>
+     * @return indexes of the items in sorted order
+     */
+    static int[] hilbertSort( double[] boxes, int numItems, double[] extent ) {
+        double minX = extent[0];
+        double minY = extent[1];
+        double width = extent[2] - extent[0];
+        double height = extent[3] - extent[1];
+        long[] keys = new long[numItems];
+        for ( int i = 0; i < numItems; i++ ) {
+            int x = 0;
+            int y = 0;
+            if ( width > 0 ) {
+                x = (int) Math.floor( HILBERT_MAX * ( ( boxes[4 * i] + boxes[4 * i + 2] ) / 2 - minX ) / width );
+            }
+            if ( height > 0 ) {
+                y = (int) Math.floor( HILBERT_MAX * ( ( boxes[4 * i + 1] + boxes[4 * i + 3] ) / 2 - minY ) / height );
+            }
+            long h = hilbert( x, y ) & 0xFFFFFFFFL;
+            keys[i] = ( h << 31 ) | i;
+        }
+        Arrays.sort( keys );
+        int[] order = new int[numItems];
+        for ( int i = 0; i < numItems; i++ ) {
+            order[i] = (int) ( keys[numItems - 1 - i] & 0x7FFFFFFFL );
+        }
+        return order;
+    }
+
+    /**
+     * Writes the tree for the given leaf items.
+     * 
+     * @param boxes
+     *            bounding boxes of the leaf items in tree order (minX, minY, maxX, maxY), must not be <code>null</code>
+     * @param offsets
+     *            offsets of the leaf items, must not be <code>null</code>
+     * @param numItems
+     *            number of items, must be greater than zero
+     * @param nodeSize
+     *            maximum number of children per node, at least two
+     * @param os
+     *            stream to write to, must not be <code>null</code>
+     * @throws IOException
+     */
+    static void write( double[] boxes, long[] offsets, int numItems, int nodeSize, OutputStream os )
+                            throws IOException {
+        List<long[]> levelBounds = levelBounds( numItems, nodeSize );
+        int numNodes = (int) levelBounds.get( 0 )[1];
+        double[] nodeBoxes = new double[4 * numNodes];
+        long[] nodeOffsets = new long[numNodes];
+        int leafStart = numNodes - numItems;
+        System.arraycopy( boxes, 0, nodeBoxes, 4 * leafStart, 4 * numItems );
+        System.arraycopy( offsets, 0, nodeOffsets, leafStart, numItems );
+        for ( int level = 0; level < levelBounds.size() - 1; level++ ) {
+            int pos = (int) levelBounds.get( level )[0];
+            int end = (int) levelBounds.get( level )[1];
+            int parent = (int) levelBounds.get( level + 1 )[0];
+            while ( pos < end ) {
+                double minX = Double.POSITIVE_INFINITY;
+                double minY = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY;
+                double maxY = Double.NEGATIVE_INFINITY;
+                nodeOffsets[parent] = pos;
+                for ( int j = 0; j < nodeSize && pos < end; j++, pos++ ) {
+                    minX = Math.min( minX, nodeBoxes[4 * pos] );
+                    minY = Math.min( minY, nodeBoxes[4 * pos + 1] );
+                    maxX = Math.max( maxX, nodeBoxes[4 * pos + 2] );
+                    maxY = Math.max( maxY, nodeBoxes[4 * pos + 3] );
+                }
+                nodeBoxes[4 * parent] = minX;
+                nodeBoxes[4 * parent + 1] = minY;
+                nodeBoxes[4 * parent + 2] = maxX;
+                nodeBoxes[4 * parent + 3] = maxY;
+                parent++;
+            }
+        }
+        byte[] buffer = new byte[NODE_ITEM_BYTES * 256];
+        int bufferPos = 0;
+        for ( int i = 0; i < numNodes; i++ ) {
+            if ( bufferPos == buffer.length ) {
+                os.write( buffer );
+                bufferPos = 0;
+            }
+            for ( int j = 0; j < 4; j++ ) {
+                putLong( buffer, bufferPos, Double.doubleToRawLongBits( nodeBoxes[4 * i + j] ) );
+                bufferPos += 8;
+            }
+            putLong( buffer, bufferPos, nodeOffsets[i] );
+            bufferPos += 8;
+        }
+        os.write( buffer, 0, bufferPos );
+    }
+
+    private static void putLong( byte[] buffer, int pos, long x ) {
+        for ( int i = 0; i < 8; i++ ) {
+            buffer[pos + i] = (byte) ( x >> ( 8 * i ) );
+        }
+    }
+
+    /**
+     * Calculates the Hilbert curve index of the given cell of a 2^16 x 2^16 grid.
+     * 
+     * @see <a href="https://github.com/rawrunprotected/hilbert_curves">hilbert_curves</a>
+     */
+    static int hilbert( int x, int y ) {
+        int a = x ^ y;
+        int b = 0xFFFF ^ a;
+        int c = 0xFFFF ^ ( x | y );
+        int d = x & ( y ^ 0xFFFF );
+
+        int A = a | ( b >>> 1 );
+        int B = ( a >>> 1 ) ^ a;
+        int C = ( ( c >>> 1 ) ^ ( b & ( d >>> 1 ) ) ) ^ c;
+        int D = ( ( a & ( c >>> 1 ) ) ^ ( d >>> 1 ) ) ^ d;
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        A = ( ( a & ( a >>> 2 ) ) ^ ( b & ( b >>> 2 ) ) );
+        B = ( ( a & ( b >>> 2 ) ) ^ ( b & ( ( a ^ b ) >>> 2 ) ) );
+        C ^= ( ( a & ( c >>> 2 ) ) ^ ( b & ( d >>> 2 ) ) );
+        D ^= ( ( b & ( c >>> 2 ) ) ^ ( ( a ^ b ) & ( d >>> 2 ) ) );
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        A = ( ( a & ( a >>> 4 ) ) ^ ( b & ( b >>> 4 ) ) );
+        B = ( ( a & ( b >>> 4 ) ) ^ ( b & ( ( a ^ b ) >>> 4 ) ) );
+        C ^= ( ( a & ( c >>> 4 ) ) ^ ( b & ( d >>> 4 ) ) );
+        D ^= ( ( b & ( c >>> 4 ) ) ^ ( ( a ^ b ) & ( d >>> 4 ) ) );
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        C ^= ( ( a & ( c >>> 8 ) ) ^ ( b & ( d >>> 8 ) ) );
+        D ^= ( ( b & ( c >>> 8 ) ) ^ ( ( a ^ b ) & ( d >>> 8 ) ) );
+
+        a = C ^ ( C >>> 1 );
+        b = D ^ ( D >>> 1 );
+
+        int i0 = x ^ y;
+        int i1 = b | ( 0xFFFF ^ ( i0 | a ) );
+
+        i0 = ( i0 | ( i0 << 8 ) ) & 0x00FF00FF;
+        i0 = ( i0 | ( i0 << 4 ) ) & 0x0F0F0F0F;
+        i0 = ( i0 | ( i0 << 2 ) ) & 0x33333333;
+        i0 = ( i0 | ( i0 << 1 ) ) & 0x55555555;
+
+        i1 = ( i1 | ( i1 << 8 ) ) & 0x00FF00FF;
+        i1 = ( i1 | ( i1 << 4 ) ) & 0x0F0F0F0F;
+        i1 = ( i1 | ( i1 << 2 ) ) & 0x33333333;
+        i1 = ( i1 | ( i1 << 1 ) ) & 0x55555555;
+
+        return ( i1 << 1 ) | i0;
+    }
+}
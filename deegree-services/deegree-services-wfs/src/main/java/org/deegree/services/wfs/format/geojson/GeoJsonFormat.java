@@ -0,0 +1,343 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wfs.format.geojson;
+
+import static org.deegree.cs.CRSUtils.EPSG_4326;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.tom.ElementNode;
+import org.deegree.commons.tom.TypedObjectNode;
+import org.deegree.commons.tom.gml.property.Property;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.feature.Feature;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryTransformer;
+import org.deegree.geometry.io.FastCoordinateFormatter;
+import org.deegree.gml.reference.FeatureReference;
+import org.deegree.services.wfs.WebFeatureService;
+import org.deegree.services.wfs.format.AbstractStreamingFormat;
+import org.deegree.services.wfs.query.QueryAnalyzer;
+
+/**
+ * {@link org.deegree.services.wfs.format.Format} that encodes <code>GetFeature</code> responses as GeoJSON (RFC 7946)
+ * feature collections.
+ * <p>
+ * The features are written while they are retrieved from the feature stores. The first geometry property of a feature
+ * becomes the GeoJSON geometry, all other properties are written as members of the <code>properties</code> object.
+ * Repeated properties are written as arrays, complex property values as nested objects. Geometries are written in
+ * <code>EPSG:4326</code> (x/y axis order), unless a different crs has been requested.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class GeoJsonFormat extends AbstractStreamingFormat {
+
+    /** Default mime type of GeoJSON. */
+    public static final String MIME_TYPE = "application/geo+json";
+
+    private final Integer decimalPlaces;
+
+    /**
+     * Creates a new {@link GeoJsonFormat} that uses a number of decimal places suitable for the output crs.
+     * 
+     * @param master
+     *            service that uses this format, must not be <code>null</code>
+     */
+    public GeoJsonFormat( WebFeatureService master ) {
+        this( master, null );
+    }
+
+    /**
+     * Creates a new {@link GeoJsonFormat}.
+     * 
+     * @param master
+     *            service that uses this format, must not be <code>null</code>
+     * @param formatDef
+     *            format configuration, may be <code>null</code>
+     */
+    public GeoJsonFormat( WebFeatureService master, org.deegree.services.jaxb.wfs.GeoJSONFormat formatDef ) {
+        super( master, MIME_TYPE );
+        if ( formatDef != null && formatDef.getDecimalPlaces() != null ) {
+            decimalPlaces = formatDef.getDecimalPlaces().intValue();
+        } else {
+            decimalPlaces = null;
+        }
+    }
+
+    @Override
+    protected FeatureWriter createWriter( QueryAnalyzer analyzer, OutputStream os )
+                            throws Exception {
+        ICRS crs = analyzer.getRequestedCRS() != null ? analyzer.getRequestedCRS() : EPSG_4326;
+        FastCoordinateFormatter formatter;
+        if ( decimalPlaces != null ) {
+            formatter = new FastCoordinateFormatter( decimalPlaces );
+        } else {
+            formatter = new FastCoordinateFormatter( crs.getUnits()[0] );
+        }
+        return startCollection( new OutputStreamWriter( os, "UTF-8" ), crs, formatter,
+                                getRequestedProperties( analyzer ) );
+    }
+
+    /**
+     * Writes the start of a feature collection and returns the writer for its features.
+     * 
+     * @param out
+     *            writer to write to, must not be <code>null</code>
+     * @param crs
+     *            output crs, must not be <code>null</code>
+     * @param formatter
+     *            formatter for coordinates, must not be <code>null</code>
+     * @param requestedProps
+     *            names of the properties to be written, <code>null</code> for all properties
+     * @return writer for the features of the collection, never <code>null</code>
+     * @throws IOException
+     */
+    static GeoJsonFeatureWriter startCollection( Writer out, ICRS crs, FastCoordinateFormatter formatter,
+                                                 Set<QName> requestedProps )
+                            throws IOException {
+        GeoJsonWriter json = new GeoJsonWriter( out, formatter );
+        json.beginObject();
+        json.name( "type" ).value( "FeatureCollection" );
+        if ( !crs.equals( EPSG_4326 ) ) {
+            // not part of RFC 7946 anymore, but still understood by most clients
+            json.name( "crs" ).beginObject();
+            json.name( "type" ).value( "name" );
+            json.name( "properties" ).beginObject().name( "name" ).value( crs.getAlias() ).endObject();
+            json.endObject();
+        }
+        json.name( "features" ).beginArray();
+        return new GeoJsonFeatureWriter( json, new GeometryTransformer( crs ), requestedProps );
+    }
+
+    @Override
+    protected void writeHits( QueryAnalyzer analyzer, int numberMatched, OutputStream os )
+                            throws Exception {
+        GeoJsonWriter json = new GeoJsonWriter( new OutputStreamWriter( os, "UTF-8" ), new FastCoordinateFormatter() );
+        json.beginObject();
+        json.name( "type" ).value( "FeatureCollection" );
+        json.name( "features" ).beginArray().endArray();
+        json.name( "numberMatched" ).value( numberMatched );
+        json.name( "numberReturned" ).value( 0 );
+        json.endObject();
+        json.flush();
+    }
+
+    static class GeoJsonFeatureWriter implements FeatureWriter {
+
+        private final GeoJsonWriter json;
+
+        private final GeometryTransformer transformer;
+
+        private final Set<QName> requestedProps;
+
+        GeoJsonFeatureWriter( GeoJsonWriter json, GeometryTransformer transformer, Set<QName> requestedProps ) {
+            this.json = json;
+            this.transformer = transformer;
+            this.requestedProps = requestedProps;
+        }
+
+        @Override
+        public void write( Feature feature )
+                                throws Exception {
+            writeFeature( feature, requestedProps );
+        }
+
+        @Override
+        public void finish( int numberReturned )
+                                throws Exception {
+            json.endArray();
+            json.name( "numberReturned" ).value( numberReturned );
+            json.endObject();
+            json.flush();
+        }
+
+        private void writeFeature( Feature feature, Set<QName> propNames )
+                                throws IOException {
+            List<Property> props = feature.getProperties();
+            Property geometryProp = null;
+            for ( Property prop : props ) {
+                if ( prop.getValue() instanceof Geometry && isRequested( prop, propNames ) ) {
+                    geometryProp = prop;
+                    break;
+                }
+            }
+            json.beginObject();
+            json.name( "type" ).value( "Feature" );
+            if ( feature.getId() != null ) {
+                json.name( "id" ).value( feature.getId() );
+            }
+            json.name( "geometry" );
+            if ( geometryProp != null ) {
+                json.geometry( prepareGeometry( (Geometry) geometryProp.getValue(), transformer ) );
+            } else {
+                json.nullValue();
+            }
+            json.name( "properties" ).beginObject();
+            int size = props.size();
+            for ( int i = 0; i < size; i++ ) {
+                Property prop = props.get( i );
+                if ( prop == geometryProp || !isRequested( prop, propNames ) ) {
+                    continue;
+                }
+                QName name = prop.getName();
+                // properties with the same name are adjacent, write them as an array
+                int end = i + 1;
+                while ( end < size && props.get( end ).getName().equals( name ) ) {
+                    end++;
+                }
+                json.name( name.getLocalPart() );
+                if ( end - i > 1 ) {
+                    json.beginArray();
+                    for ( int j = i; j < end; j++ ) {
+                        if ( props.get( j ) != geometryProp ) {
+                            writeValue( props.get( j ).getValue() );
+                        }
+                    }
+                    json.endArray();
+                } else {
+                    writeValue( prop.getValue() );
+                }
+                i = end - 1;
+            }
+            json.endObject();
+            json.endObject();
+        }
+
+        private void writeValue( TypedObjectNode node )
+                                throws IOException {
+            if ( node == null ) {
+                json.nullValue();
+            } else if ( node instanceof PrimitiveValue ) {
+                writePrimitive( (PrimitiveValue) node );
+            } else if ( node instanceof Geometry ) {
+                json.geometry( prepareGeometry( (Geometry) node, transformer ) );
+            } else if ( node instanceof FeatureReference ) {
+                json.value( ( (FeatureReference) node ).getURI() );
+            } else if ( node instanceof Feature ) {
+                writeFeature( (Feature) node, null );
+            } else if ( node instanceof ElementNode ) {
+                writeElement( (ElementNode) node );
+            } else {
+                json.nullValue();
+            }
+        }
+
+        private void writePrimitive( PrimitiveValue value )
+                                throws IOException {
+            Object o = value.getValue();
+            if ( o instanceof Boolean ) {
+                json.value( ( (Boolean) o ).booleanValue() );
+            } else if ( o instanceof Number ) {
+                json.value( (Number) o );
+            } else {
+                json.value( value.getAsText() );
+            }
+        }
+
+        private void writeElement( ElementNode element )
+                                throws IOException {
+            Map<QName, PrimitiveValue> attrs = element.getAttributes();
+            List<TypedObjectNode> children = element.getChildren();
+            boolean hasAttrs = attrs != null && !attrs.isEmpty();
+            if ( !hasAttrs && ( children == null || children.isEmpty() ) ) {
+                json.nullValue();
+                return;
+            }
+            if ( !hasAttrs && children.size() == 1 && children.get( 0 ) instanceof PrimitiveValue ) {
+                // simple content
+                writePrimitive( (PrimitiveValue) children.get( 0 ) );
+                return;
+            }
+            json.beginObject();
+            if ( hasAttrs ) {
+                for ( Map.Entry<QName, PrimitiveValue> attr : attrs.entrySet() ) {
+                    json.name( "@" + attr.getKey().getLocalPart() );
+                    writePrimitive( attr.getValue() );
+                }
+            }
+            if ( children != null ) {
+                int size = children.size();
+                for ( int i = 0; i < size; i++ ) {
+                    TypedObjectNode child = children.get( i );
+                    if ( child instanceof ElementNode ) {
+                        QName name = ( (ElementNode) child ).getName();
+                        int end = i + 1;
+                        while ( end < size && children.get( end ) instanceof ElementNode
+                                && ( (ElementNode) children.get( end ) ).getName().equals( name ) ) {
+                            end++;
+                        }
+                        json.name( name.getLocalPart() );
+                        if ( end - i > 1 ) {
+                            json.beginArray();
+                            for ( int j = i; j < end; j++ ) {
+                                writeElement( (ElementNode) children.get( j ) );
+                            }
+                            json.endArray();
+                        } else {
+                            writeElement( (ElementNode) child );
+                        }
+                        i = end - 1;
+                    } else if ( child instanceof PrimitiveValue ) {
+                        if ( !( (PrimitiveValue) child ).getAsText().trim().isEmpty() ) {
+                            json.name( "value" );
+                            writePrimitive( (PrimitiveValue) child );
+                        }
+                    } else {
+                        json.name( "value" );
+                        writeValue( child );
+                    }
+                }
+            }
+            json.endObject();
+        }
+
+        private static boolean isRequested( Property prop, Set<QName> propNames ) {
+            return propNames == null || propNames.contains( prop.getName() );
+        }
+    }
+
+}
@@ -0,0 +1,598 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wfs.format.geojson;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.io.FastCoordinateFormatter;
+import org.deegree.geometry.multi.MultiCurve;
+import org.deegree.geometry.multi.MultiGeometry;
+import org.deegree.geometry.multi.MultiPoint;
+import org.deegree.geometry.multi.MultiSurface;
+import org.deegree.geometry.points.Points;
+import org.deegree.geometry.primitive.Curve;
+import org.deegree.geometry.primitive.Point;
+import org.deegree.geometry.primitive.Surface;
+
+/**
+ * Minimal JSON generator with support for writing GeoJSON geometries.
+ * <p>
+ * Characters are collected in a reusable buffer and numbers (including coordinates) are written without intermediate
+ * string objects. The caller is responsible for producing a well-formed structure, commas between members and array
+ * elements are inserted automatically.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class GeoJsonWriter implements Flushable, Closeable {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final char[] NULL = "null".toCharArray();
+
+    private static final char[] TRUE = "true".toCharArray();
+
+    private static final char[] FALSE = "false".toCharArray();
+
+    private static final int MAX_NUMBER_LENGTH = 32;
+
+    private final Writer out;
+
+    private final FastCoordinateFormatter formatter;
+
+    private final FastCoordinateFormatter doubleFormatter = new FastCoordinateFormatter(
+                                                                                        FastCoordinateFormatter.ROUNDTRIP );
+
+    private final char[] buffer = new char[8192];
+
+    private int pos;
+
+    // per nesting level: has a value already been written (needs a comma before the next one)?
+    private boolean[] hasValue = new boolean[16];
+
+    private int depth;
+
+    private boolean afterName;
+
+    /**
+     * Creates a new {@link GeoJsonWriter}.
+     * 
+     * @param out
+     *            writer to write to, must not be <code>null</code>
+     * @param formatter
+     *            formatter for coordinates, must not be <code>null</code>
+     */
+    public GeoJsonWriter( Writer out, FastCoordinateFormatter formatter ) {
+        this.out = out;
+        this.formatter = formatter;
+    }
+
+    /**
+     * Starts a JSON object.
+     * 
+     * @return this writer
+     * @throws IOException
+     */
+    public GeoJsonWriter beginObject()
+                            throws IOException {
+        return begin( '{' );
+    }
+
+    /**
+     * Ends the current JSON object.
+     * 
+     * @return this writer
+     * @throws IOException
+     */
+    public GeoJsonWriter endObject()
+                            throws IOException {
+        return end( '}' );
+    }
+
+    /**
+     * Starts a JSON array.
+     * 
+     * @return this writer
+     * @throws IOException
+     */
+    public GeoJsonWriter beginArray()
+                            throws IOException {
+        return begin( '[' );
+    }
+
+    /**
+     * Ends the current JSON array.
+     * 
+     * @return this writer
+     * @throws IOException
+     */
+    public GeoJsonWriter endArray()
+                            throws IOException {
+        return end( ']' );
+    }
+
+    /**
+     * Writes the name of the next member of the current object.
+     * 
+     * @param name
+     *            member name, must not be <code>null</code>
+     * @return this writer
+     * @throws IOException
+     */
+    public GeoJsonWriter name( String name )
+                            throws IOException {
+        separate();
+        string( name );
+        append( ':' );
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Writes a string value.
+     * 
+     * @param value
+     *            value, may be <code>null</code>
+     * @return this writer
+     * @throws IOException
+     */
+    public GeoJsonWriter value( String value )
+                            throws IOException {
+        if ( value == null ) {
+            return nullValue();
+        }
+        separate();
+        string( value );
+        return this;
+    }
+
+    /**
+     * Writes a boolean value.
+     * 
+     * @param value
+     * @return this writer
+     * @throws IOException
+     */
+    public GeoJsonWriter value( boolean value )
+                            throws IOException {
+        separate();
+        append( value ? TRUE : FALSE );
+        return this;
+    }
+
+    /**
+     * Writes an integral number value.
+     * 
+     * @param value
+     * @return this writer
+     * @throws IOException
+     */
+    public GeoJsonWriter value( long value )
+                            throws IOException {
+        separate();
+        ensure( 20 );
+        if ( value == Long.MIN_VALUE ) {
+            append( Long.toString( value ) );
+            return this;
+        }
+        if ( value < 0 ) {
+            buffer[pos++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for ( long v = value / 10; v > 0; v /= 10 ) {
+            digits++;
+        }
+        for ( int i = pos + digits - 1; i >= pos; i-- ) {
+            buffer[i] = (char) ( '0' + value % 10 );
+            value /= 10;
+        }
+        pos += digits;
+        return this;
+    }
+
+    /**
+     * Writes a floating point number value (<code>null</code> for NaN and infinite values, as those are not allowed in
+     * JSON).
+     * 
+     * @param value
+     * @return this writer
+     * @throws IOException
+     */
+    public GeoJsonWriter value( double value )
+                            throws IOException {
+        if ( Double.isNaN( value ) || Double.isInfinite( value ) ) {
+            return nullValue();
+        }
+        separate();
+        ensure( MAX_NUMBER_LENGTH );
+        pos = doubleFormatter.format( value, buffer, pos );
+        return this;
+    }
+
+    /**
+     * Writes a number value.
+     * 
+     * @param value
+     *            value, may be <code>null</code>
+     * @return this writer
+     * @throws IOException
+     */
+    public GeoJsonWriter value( Number value )
+                            throws IOException {
+        if ( value == null ) {
+            return nullValue();
+        }
+        if ( value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte ) {
+            return value( value.longValue() );
+        }
+        if ( value instanceof BigInteger ) {
+            separate();
+            append( value.toString() );
+            return this;
+        }
+        if ( value instanceof BigDecimal ) {
+            separate();
+            append( ( (BigDecimal) value ).toPlainString() );
+            return this;
+        }
+        return value( value.doubleValue() );
+    }
+
+    /**
+     * Writes a <code>null</code> value.
+     * 
+     * @return this writer
+     * @throws IOException
+     */
+    public GeoJsonWriter nullValue()
+                            throws IOException {
+        separate();
+        append( NULL );
+        return this;
+    }
+
+    /**
+     * Writes the GeoJSON representation of the given geometry. The geometry must not contain non-linear segments.
+     * Geometries that have no GeoJSON representation (e.g. solids) are written as <code>null</code>.
+     * 
+     * @param geom
+     *            geometry, may be <code>null</code>
+     * @return this writer
+     * @throws IOException
+     */
+    public GeoJsonWriter geometry( Geometry geom )
+                            throws IOException {
+        if ( geom instanceof Point ) {
+            geometryStart( "Point" );
+            name( "coordinates" );
+            position( (Point) geom );
+        } else if ( geom instanceof Curve ) {
+            geometryStart( "LineString" );
+            name( "coordinates" );
+            positions( ( (Curve) geom ).getControlPoints() );
+        } else if ( geom instanceof Surface ) {
+            geometryStart( "Polygon" );
+            name( "coordinates" );
+            rings( (Surface) geom );
+        } else if ( geom instanceof Envelope ) {
+            geometryStart( "Polygon" );
+            name( "coordinates" );
+            rings( (Envelope) geom );
+        } else if ( geom instanceof MultiPoint ) {
+            geometryStart( "MultiPoint" );
+            name( "coordinates" );
+            beginArray();
+            for ( Point p : (MultiPoint) geom ) {
+                position( p );
+            }
+            endArray();
+        } else if ( geom instanceof MultiCurve<?> ) {
+            geometryStart( "MultiLineString" );
+            name( "coordinates" );
+            beginArray();
+            for ( Curve c : (MultiCurve<?>) geom ) {
+                positions( c.getControlPoints() );
+            }
+            endArray();
+        } else if ( geom instanceof MultiSurface<?> ) {
+            geometryStart( "MultiPolygon" );
+            name( "coordinates" );
+            beginArray();
+            for ( Surface s : (MultiSurface<?>) geom ) {
+                rings( s );
+            }
+            endArray();
+        } else if ( geom instanceof MultiGeometry<?> ) {
+            geometryStart( "GeometryCollection" );
+            name( "geometries" ).beginArray();
+            for ( Geometry member : (MultiGeometry<?>) geom ) {
+                geometry( member );
+            }
+            endArray();
+            return endObject();
+        } else {
+            return nullValue();
+        }
+        return endObject();
+    }
+
+    private void geometryStart( String type )
+                            throws IOException {
+        beginObject();
+        name( "type" ).value( type );
+    }
+
+    private void rings( Surface surface )
+                            throws IOException {
+        beginArray();
+        positions( surface.getExteriorRingCoordinates() );
+        List<Points> interiors = surface.getInteriorRingsCoordinates();
+        if ( interiors != null ) {
+            for ( Points interior : interiors ) {
+                positions( interior );
+            }
+        }
+        endArray();
+    }
+
+    private void rings( Envelope env )
+                            throws IOException {
+        double minX = env.getMin().get0();
+        double minY = env.getMin().get1();
+        double maxX = env.getMax().get0();
+        double maxY = env.getMax().get1();
+        beginArray().beginArray();
+        position( minX, minY );
+        position( maxX, minY );
+        position( maxX, maxY );
+        position( minX, maxY );
+        position( minX, minY );
+        endArray().endArray();
+    }
+
+    private void positions( Points points )
+                            throws IOException {
+        beginArray();
+        int n = points.size();
+        boolean is3D = points.getDimension() > 2;
+        for ( int i = 0; i < n; i++ ) {
+            if ( is3D ) {
+                position( points.getOrdinate( i, 0 ), points.getOrdinate( i, 1 ), points.getOrdinate( i, 2 ) );
+            } else {
+                position( points.getOrdinate( i, 0 ), points.getOrdinate( i, 1 ) );
+            }
+        }
+        endArray();
+    }
+
+    private void position( Point p )
+                            throws IOException {
+        if ( p.getCoordinateDimension() > 2 ) {
+            position( p.get0(), p.get1(), p.get2() );
+        } else {
+            position( p.get0(), p.get1() );
+        }
+    }
+
+    private void position( double x, double y )
+                            throws IOException {
+        separate();
+        ensure( 3 + 2 * MAX_NUMBER_LENGTH );
+        buffer[pos++] = '[';
+        ordinate( x );
+        buffer[pos++] = ',';
+        ordinate( y );
+        buffer[pos++] = ']';
+    }
+
+    private void position( double x, double y, double z )
+                            throws IOException {
+        if ( Double.isNaN( z ) ) {
+            position( x, y );
+            return;
+        }
+        separate();
+        ensure( 4 + 3 * MAX_NUMBER_LENGTH );
+        buffer[pos++] = '[';
+        ordinate( x );
+        buffer[pos++] = ',';
+        ordinate( y );
+        buffer[pos++] = ',';
+        ordinate( z );
+        buffer[pos++] = ']';
+    }
+
+    private void ordinate( double value )
+                            throws IOException {
+        if ( Double.isNaN( value ) || Double.isInfinite( value ) ) {
+            append( NULL );
+            return;
+        }
+        int end = formatter.format( value, buffer, pos );
+        if ( end < 0 ) {
+            // exceptionally long representation
+            append( formatter.format( value ) );
+        } else {
+            pos = end;
+        }
+    }
+
+    private GeoJsonWriter begin( char c )
+                            throws IOException {
+        separate();
+        append( c );
+        if ( ++depth == hasValue.length ) {
+            boolean[] newHasValue = new boolean[hasValue.length * 2];
+            System.arraycopy( hasValue, 0, newHasValue, 0, hasValue.length );
+            hasValue = newHasValue;
+        }
+        hasValue[depth] = false;
+        return this;
+    }
+
+    private GeoJsonWriter end( char c )
+                            throws IOException {
+        depth--;
+        append( c );
+        return this;
+    }
+
+    private void separate()
+                            throws IOException {
+        if ( afterName ) {
+            afterName = false;
+            return;
+        }
+        if ( hasValue[depth] ) {
+            append( ',' );
+        } else {
+            hasValue[depth] = true;
+        }
+    }
+
+    private void string( String s )
+                            throws IOException {
+        append( '"' );
+        int length = s.length();
+        for ( int i = 0; i < length; i++ ) {
+            char c = s.charAt( i );
+            if ( c == '"' || c == '\\' ) {
+                ensure( 2 );
+                buffer[pos++] = '\\';
+                buffer[pos++] = c;
+            } else if ( c < 0x20 || c == '\u2028' || c == '\u2029' ) {
+                escape( c );
+            } else {
+                append( c );
+            }
+        }
+        append( '"' );
+    }
+
+    private void escape( char c )
+                            throws IOException {
+        ensure( 6 );
+        buffer[pos++] = '\\';
+        switch ( c ) {
+        case '\n':
+            buffer[pos++] = 'n';
+            break;
+        case '\r':
+            buffer[pos++] = 'r';
+            break;
+        case '\t':
+            buffer[pos++] = 't';
+            break;
+        case '\b':
+            buffer[pos++] = 'b';
+            break;
+        case '\f':
+            buffer[pos++] = 'f';
+            break;
+        default:
+            buffer[pos++] = 'u';
+            buffer[pos++] = HEX[( c >> 12 ) & 0xf];
+            buffer[pos++] = HEX[( c >> 8 ) & 0xf];
+            buffer[pos++] = HEX[( c >> 4 ) & 0xf];
+            buffer[pos++] = HEX[c & 0xf];
+        }
+    }
+
+    private void append( char c )
+                            throws IOException {
+        if ( pos == buffer.length ) {
+            flushBuffer();
+        }
+        buffer[pos++] = c;
+    }
+
+    private void append( char[] chars )
+                            throws IOException {
+        ensure( chars.length );
+        System.arraycopy( chars, 0, buffer, pos, chars.length );
+        pos += chars.length;
+    }
+
+    private void append( String s )
+                            throws IOException {
+        int length = s.length();
+        if ( length > buffer.length ) {
+            flushBuffer();
+            out.write( s );
+            return;
+        }
+        ensure( length );
+        s.getChars( 0, length, buffer, pos );
+        pos += length;
+    }
+
+    private void ensure( int n )
+                            throws IOException {
+        if ( buffer.length - pos < n ) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer()
+                            throws IOException {
+        out.write( buffer, 0, pos );
+        pos = 0;
+    }
+
+    @Override
+    public void flush()
+                            throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close()
+                            throws IOException {
+        flushBuffer();
+        out.close();
+    }
+}
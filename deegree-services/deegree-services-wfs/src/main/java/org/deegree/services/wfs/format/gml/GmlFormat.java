@@ -49,7 +49,7 @@ import org.deegree.commons.ows.exception.OWSException;
 import org.deegree.commons.xml.NamespaceBindings;
 import org.deegree.geometry.SFSProfiler;
 import org.deegree.geometry.io.CoordinateFormatter;
-import org.deegree.geometry.io.DecimalCoordinateFormatter;
+import org.deegree.geometry.io.FastCoordinateFormatter;
 import org.deegree.geometry.linearization.MaxErrorCriterion;
 import org.deegree.gml.GMLVersion;
 import org.deegree.protocol.wfs.describefeaturetype.DescribeFeatureType;
@@ -185,7 +185,7 @@ public class GmlFormat implements Format {
                 if ( formatterConf instanceof org.deegree.services.jaxb.wfs.DecimalCoordinateFormatter ) {
                     LOG.info( "Setting up configured DecimalCoordinateFormatter." );
                     org.deegree.services.jaxb.wfs.DecimalCoordinateFormatter decimalFormatterConf = (org.deegree.services.jaxb.wfs.DecimalCoordinateFormatter) formatterConf;
-                    formatter = new DecimalCoordinateFormatter( decimalFormatterConf.getPlaces().intValue() );
+                    formatter = new FastCoordinateFormatter( decimalFormatterConf.getPlaces().intValue() );
                 } else if ( formatterConf instanceof org.deegree.services.jaxb.wfs.CustomCoordinateFormatter ) {
                     LOG.info( "Setting up CustomCoordinateFormatter." );
                     org.deegree.services.jaxb.wfs.CustomCoordinateFormatter customFormatterConf = (org.deegree.services.jaxb.wfs.CustomCoordinateFormatter) formatterConf;
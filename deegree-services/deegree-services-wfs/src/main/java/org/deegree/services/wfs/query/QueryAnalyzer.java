@@ -96,6 +96,7 @@ import org.deegree.protocol.wfs.query.xml.QueryXMLAdapter;
 import org.deegree.protocol.wfs.storedquery.QueryExpressionText;
 import org.deegree.protocol.wfs.storedquery.StoredQueryDefinition;
 import org.deegree.protocol.wfs.storedquery.xml.StoredQueryDefinitionXMLAdapter;
+import org.deegree.services.controller.RequestMetrics;
 import org.deegree.services.wfs.WebFeatureService;
 import org.deegree.services.wfs.WfsFeatureStoreManager;
 import org.jaxen.NamespaceContext;
@@ -383,6 +384,9 @@ public class QueryAnalyzer {
             }
             requestedFts.add( ft );
             QName ftName = ft.getName();
+            String prefix = ftName.getPrefix();
+            String local = ftName.getLocalPart();
+            RequestMetrics.addResource( prefix.isEmpty() ? local : prefix + ":" + local );
             typeNames[i] = new TypeName( ftName, alias );
         }
         if ( wfsTypeNames.length == 0 ) {
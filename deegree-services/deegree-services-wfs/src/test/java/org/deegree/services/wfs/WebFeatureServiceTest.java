@@ -39,23 +39,33 @@ import static org.deegree.protocol.wfs.WFSRequestType.DescribeFeatureType;
 import static org.deegree.protocol.wfs.WFSRequestType.GetCapabilities;
 import static org.deegree.protocol.wfs.WFSRequestType.GetFeature;
 import static org.deegree.protocol.wfs.WFSRequestType.GetPropertyValue;
+import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.xml.bind.JAXBElement;
+import javax.xml.namespace.QName;
+
 import org.deegree.protocol.wfs.WFSRequestType;
 import org.deegree.services.encoding.LimitedSupportedEncodings;
 import org.deegree.services.encoding.SupportedEncodings;
 import org.deegree.services.encoding.UnlimitedSupportedEncodings;
+import org.deegree.services.jaxb.wfs.AbstractFormatType;
 import org.deegree.services.jaxb.wfs.DeegreeWFS;
 import org.deegree.services.jaxb.wfs.DeegreeWFS.SupportedRequests;
+import org.deegree.services.jaxb.wfs.GeoJSONFormat;
 import org.deegree.services.jaxb.wfs.RequestType;
+import org.deegree.services.wfs.format.flatgeobuf.FlatGeobufFormat;
+import org.deegree.services.wfs.format.geojson.GeoJsonFormat;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.CoreMatchers;
 import org.hamcrest.Description;
@@ -209,6 +219,41 @@ public class WebFeatureServiceTest {
         assertThat( unlimitedSupportedEncodings, CoreMatchers.instanceOf( UnlimitedSupportedEncodings.class ) );
     }
 
+    @Test
+    public void testInitFormatsDefaultRegistersGmlOnly() {
+        webFeatureService.initFormats( null );
+
+        Collection<String> outputFormats = webFeatureService.getOutputFormats();
+        assertThat( outputFormats, hasItem( "application/gml+xml; version=3.2" ) );
+        assertThat( outputFormats, hasItem( "text/xml; subtype=gml/2.1.2" ) );
+        assertThat( outputFormats, not( hasItem( GeoJsonFormat.MIME_TYPE ) ) );
+        assertThat( outputFormats, not( hasItem( FlatGeobufFormat.MIME_TYPE ) ) );
+    }
+
+    @Test
+    public void testInitFormatsRegistersConfiguredStreamingFormats() {
+        GeoJSONFormat geoJson = new GeoJSONFormat();
+        geoJson.getMimeType().add( GeoJsonFormat.MIME_TYPE );
+        org.deegree.services.jaxb.wfs.FlatGeobufFormat flatGeobuf;
+        flatGeobuf = new org.deegree.services.jaxb.wfs.FlatGeobufFormat();
+        flatGeobuf.getMimeType().add( FlatGeobufFormat.MIME_TYPE );
+        List<JAXBElement<? extends AbstractFormatType>> formats;
+        formats = new ArrayList<JAXBElement<? extends AbstractFormatType>>();
+        formats.add( formatElement( "GeoJSONFormat", geoJson ) );
+        formats.add( formatElement( "FlatGeobufFormat", flatGeobuf ) );
+
+        webFeatureService.initFormats( formats );
+
+        assertThat( webFeatureService.getOutputFormats(),
+                    hasOnlyItems( GeoJsonFormat.MIME_TYPE, FlatGeobufFormat.MIME_TYPE ) );
+    }
+
+    private static <T extends AbstractFormatType> JAXBElement<T> formatElement( String name, T format ) {
+        @SuppressWarnings("unchecked")
+        Class<T> type = (Class<T>) format.getClass();
+        return new JAXBElement<T>( new QName( "http://www.deegree.org/services/wfs", name ), type, format );
+    }
+
     private DeegreeWFS prepareSupportedRequestsWithRequestTypeSpecific() {
         SupportedRequests supportedRequests = new SupportedRequests();
 
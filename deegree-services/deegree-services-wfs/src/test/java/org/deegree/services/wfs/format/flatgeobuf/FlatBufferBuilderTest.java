@@ -0,0 +1,179 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wfs.format.flatgeobuf;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link FlatBufferBuilder}, the buffers are decoded according to the FlatBuffers binary format.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class FlatBufferBuilderTest {
+
+    @Test
+    public void testTableWithScalarsAndString()
+                            throws IOException {
+        FlatBufferBuilder builder = new FlatBufferBuilder( 8 );
+        int name = builder.createString( "roads" );
+        builder.startTable( 10 );
+        builder.addFieldLong( 8, 4711L );
+        builder.addFieldOffset( 0, name );
+        builder.addFieldShort( 9, (short) 16 );
+        builder.addFieldByte( 2, (byte) 3 );
+        builder.finishSizePrefixed( builder.endTable() );
+
+        ByteBuffer bb = toByteBuffer( builder );
+        assertEquals( bb.capacity() - 4, bb.getInt( 0 ) );
+        int table = root( bb );
+        assertEquals( 4711L, bb.getLong( field( bb, table, 8 ) ) );
+        assertEquals( 16, bb.getShort( field( bb, table, 9 ) ) );
+        assertEquals( 3, bb.get( field( bb, table, 2 ) ) );
+        assertEquals( 0, field( bb, table, 1 ) );
+        assertEquals( "roads", string( bb, field( bb, table, 0 ) ) );
+    }
+
+    @Test
+    public void testVectors()
+                            throws IOException {
+        FlatBufferBuilder builder = new FlatBufferBuilder( 8 );
+        double[] xy = { 1.5, 2.5, -3.25, 4.0, 7.0 };
+        int[] ends = { 2, 5 };
+        byte[] bytes = { 9, 8, 7 };
+        int xyOffset = builder.createDoubleVector( xy, 1, 5 );
+        int endsOffset = builder.createIntVector( ends, 0, 2 );
+        int bytesOffset = builder.createByteVector( bytes, 0, 3 );
+        builder.startTable( 3 );
+        builder.addFieldOffset( 0, xyOffset );
+        builder.addFieldOffset( 1, endsOffset );
+        builder.addFieldOffset( 2, bytesOffset );
+        builder.finishSizePrefixed( builder.endTable() );
+
+        ByteBuffer bb = toByteBuffer( builder );
+        int table = root( bb );
+        int xyVector = deref( bb, field( bb, table, 0 ) );
+        assertEquals( 4, bb.getInt( xyVector ) );
+        assertEquals( 0, ( xyVector + 4 ) % 8 );
+        for ( int i = 0; i < 4; i++ ) {
+            assertEquals( xy[i + 1], bb.getDouble( xyVector + 4 + 8 * i ), 0.0 );
+        }
+        int endsVector = deref( bb, field( bb, table, 1 ) );
+        assertEquals( 2, bb.getInt( endsVector ) );
+        assertEquals( 2, bb.getInt( endsVector + 4 ) );
+        assertEquals( 5, bb.getInt( endsVector + 8 ) );
+        int bytesVector = deref( bb, field( bb, table, 2 ) );
+        assertEquals( 3, bb.getInt( bytesVector ) );
+        assertEquals( 7, bb.get( bytesVector + 6 ) );
+    }
+
+    @Test
+    public void testNestedTablesAndReuse()
+                            throws IOException {
+        FlatBufferBuilder builder = new FlatBufferBuilder( 8 );
+        for ( int run = 0; run < 2; run++ ) {
+            builder.clear();
+            int[] children = new int[3];
+            for ( int i = 0; i < children.length; i++ ) {
+                int name = builder.createString( "column" + i );
+                builder.startTable( 2 );
+                builder.addFieldOffset( 0, name );
+                builder.addFieldByte( 1, (byte) ( 10 + i ) );
+                children[i] = builder.endTable();
+            }
+            builder.startVector( 4, children.length, 4 );
+            for ( int i = children.length - 1; i >= 0; i-- ) {
+                builder.addVectorOffset( children[i] );
+            }
+            int vector = builder.endVector();
+            builder.startTable( 8 );
+            builder.addFieldOffset( 7, vector );
+            builder.finishSizePrefixed( builder.endTable() );
+
+            ByteBuffer bb = toByteBuffer( builder );
+            int table = root( bb );
+            int columns = deref( bb, field( bb, table, 7 ) );
+            assertEquals( 3, bb.getInt( columns ) );
+            for ( int i = 0; i < 3; i++ ) {
+                int column = deref( bb, columns + 4 + 4 * i );
+                assertEquals( "column" + i, string( bb, field( bb, column, 0 ) ) );
+                assertEquals( 10 + i, bb.get( field( bb, column, 1 ) ) );
+            }
+        }
+    }
+
+    private static ByteBuffer toByteBuffer( FlatBufferBuilder builder )
+                            throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        builder.writeTo( bos );
+        assertEquals( builder.size(), bos.size() );
+        return ByteBuffer.wrap( bos.toByteArray() ).order( LITTLE_ENDIAN );
+    }
+
+    private static int root( ByteBuffer bb ) {
+        // skip size prefix
+        return deref( bb, 4 );
+    }
+
+    private static int deref( ByteBuffer bb, int pos ) {
+        return pos + bb.getInt( pos );
+    }
+
+    private static int field( ByteBuffer bb, int table, int slot ) {
+        int vtable = table - bb.getInt( table );
+        int vtableSize = bb.getShort( vtable );
+        if ( 4 + 2 * slot >= vtableSize ) {
+            return 0;
+        }
+        int offset = bb.getShort( vtable + 4 + 2 * slot );
+        return offset == 0 ? 0 : table + offset;
+    }
+
+    private static String string( ByteBuffer bb, int fieldPos )
+                            throws IOException {
+        int pos = deref( bb, fieldPos );
+        int length = bb.getInt( pos );
+        assertEquals( 0, bb.get( pos + 4 + length ) );
+        return new String( bb.array(), pos + 4, length, "UTF-8" );
+    }
+}
@@ -0,0 +1,109 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wfs.format.flatgeobuf;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link PackedRTree}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class PackedRTreeTest {
+
+    @Test
+    public void testCalcSize() {
+        assertEquals( 2 * PackedRTree.NODE_ITEM_BYTES, PackedRTree.calcSize( 1, 16 ) );
+        assertEquals( 6 * PackedRTree.NODE_ITEM_BYTES, PackedRTree.calcSize( 3, 2 ) );
+        assertEquals( ( 100 + 7 + 1 ) * PackedRTree.NODE_ITEM_BYTES, PackedRTree.calcSize( 100, 16 ) );
+    }
+
+    @Test
+    public void testHilbertCorners() {
+        assertEquals( 0, PackedRTree.hilbert( 0, 0 ) );
+        assertEquals( 1, PackedRTree.hilbert( 1, 0 ) );
+        assertEquals( 2, PackedRTree.hilbert( 1, 1 ) );
+        assertEquals( 3, PackedRTree.hilbert( 0, 1 ) );
+        assertEquals( 0xFFFFFFFF, PackedRTree.hilbert( 0xFFFF, 0 ) );
+    }
+
+    @Test
+    public void testHilbertSortDescending() {
+        double[] boxes = { 0, 0, 0, 0, 10, 0, 10, 0, 0, 10, 0, 10 };
+        int[] order = PackedRTree.hilbertSort( boxes, 3, new double[] { 0, 0, 10, 10 } );
+        assertEquals( 1, order[0] );
+        assertEquals( 2, order[1] );
+        assertEquals( 0, order[2] );
+    }
+
+    @Test
+    public void testWrite()
+                            throws IOException {
+        double[] boxes = { 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5 };
+        long[] offsets = { 0, 100, 250 };
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        PackedRTree.write( boxes, offsets, 3, 2, bos );
+        assertEquals( PackedRTree.calcSize( 3, 2 ), bos.size() );
+
+        ByteBuffer bb = ByteBuffer.wrap( bos.toByteArray() ).order( LITTLE_ENDIAN );
+        // root, covers everything and refers to the first node of the next level
+        assertNode( bb, 0, 0, 0, 5, 5, 1 );
+        assertNode( bb, 1, 0, 0, 3, 3, 3 );
+        assertNode( bb, 2, 4, 4, 5, 5, 5 );
+        // leaves
+        assertNode( bb, 3, 0, 0, 1, 1, 0 );
+        assertNode( bb, 4, 2, 2, 3, 3, 100 );
+        assertNode( bb, 5, 4, 4, 5, 5, 250 );
+    }
+
+    private static void assertNode( ByteBuffer bb, int node, double minX, double minY, double maxX, double maxY,
+                                    long offset ) {
+        int pos = node * PackedRTree.NODE_ITEM_BYTES;
+        assertEquals( minX, bb.getDouble( pos ), 0.0 );
+        assertEquals( minY, bb.getDouble( pos + 8 ), 0.0 );
+        assertEquals( maxX, bb.getDouble( pos + 16 ), 0.0 );
+        assertEquals( maxY, bb.getDouble( pos + 24 ), 0.0 );
+        assertEquals( offset, bb.getLong( pos + 32 ) );
+    }
+}
@@ -0,0 +1,183 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wfs.format.geojson;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.deegree.cs.CRSUtils.EPSG_4326;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
+import org.deegree.commons.tom.TypedObjectNode;
+import org.deegree.commons.tom.gml.property.Property;
+import org.deegree.commons.tom.primitive.PrimitiveValue;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.cs.persistence.CRSManager;
+import org.deegree.feature.Feature;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.io.FastCoordinateFormatter;
+import org.deegree.services.wfs.format.geojson.GeoJsonFormat.GeoJsonFeatureWriter;
+import org.junit.Test;
+
+/**
+ * Tests for the feature collections written by {@link GeoJsonFormat}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class GeoJsonFormatTest {
+
+    private static final String NS = "http://www.deegree.org/app";
+
+    private final GeometryFactory fac = new GeometryFactory();
+
+    @Test
+    public void testFeatureWithProperties()
+                            throws Exception {
+        Feature feature = feature( "f1", property( "name", new PrimitiveValue( "Main \"Street\"" ) ),
+                                   property( "geom", fac.createPoint( null, 7.5, 50, EPSG_4326 ) ),
+                                   property( "lanes", new PrimitiveValue( BigInteger.valueOf( 2 ) ) ),
+                                   property( "oneway", new PrimitiveValue( Boolean.TRUE ) ),
+                                   property( "tag", new PrimitiveValue( "a" ) ),
+                                   property( "tag", new PrimitiveValue( "b" ) ), property( "note", null ) );
+
+        String json = write( EPSG_4326, null, feature );
+
+        assertEquals( "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"id\":\"f1\","
+                      + "\"geometry\":{\"type\":\"Point\",\"coordinates\":[7.5,50.0]},"
+                      + "\"properties\":{\"name\":\"Main \\\"Street\\\"\",\"lanes\":2,\"oneway\":true,"
+                      + "\"tag\":[\"a\",\"b\"],\"note\":null}}],\"numberReturned\":1}", json );
+    }
+
+    @Test
+    public void testFeatureWithoutIdAndGeometry()
+                            throws Exception {
+        Feature feature = feature( null, property( "name", new PrimitiveValue( "x" ) ) );
+
+        String json = write( EPSG_4326, null, feature );
+
+        assertEquals( "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"geometry\":null,"
+                      + "\"properties\":{\"name\":\"x\"}}],\"numberReturned\":1}", json );
+    }
+
+    @Test
+    public void testRequestedProperties()
+                            throws Exception {
+        Feature feature = feature( "f1", property( "name", new PrimitiveValue( "x" ) ),
+                                   property( "geom", fac.createPoint( null, 7.5, 50, EPSG_4326 ) ),
+                                   property( "lanes", new PrimitiveValue( BigInteger.valueOf( 2 ) ) ) );
+
+        String json = write( EPSG_4326, singleton( new QName( NS, "lanes" ) ), feature );
+
+        assertEquals( "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"id\":\"f1\","
+                      + "\"geometry\":null,\"properties\":{\"lanes\":2}}],\"numberReturned\":1}", json );
+    }
+
+    @Test
+    public void testMultipleFeatures()
+                            throws Exception {
+        String json = write( EPSG_4326, null, feature( "f1" ), feature( "f2" ) );
+
+        assertEquals( "{\"type\":\"FeatureCollection\",\"features\":["
+                      + "{\"type\":\"Feature\",\"id\":\"f1\",\"geometry\":null,\"properties\":{}},"
+                      + "{\"type\":\"Feature\",\"id\":\"f2\",\"geometry\":null,\"properties\":{}}],"
+                      + "\"numberReturned\":2}", json );
+    }
+
+    @Test
+    public void testLatLonGeometryIsWrittenInLonLatOrder()
+                            throws Exception {
+        ICRS latLon = CRSManager.lookup( "urn:ogc:def:crs:EPSG::4326" );
+        Feature feature = feature( "f1", property( "geom", fac.createPoint( null, 50, 7.5, latLon ) ) );
+
+        String json = write( EPSG_4326, null, feature );
+
+        assertEquals( "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"id\":\"f1\","
+                      + "\"geometry\":{\"type\":\"Point\",\"coordinates\":[7.5,50.0]},"
+                      + "\"properties\":{}}],\"numberReturned\":1}", json );
+    }
+
+    @Test
+    public void testRequestedCrsIsNamed()
+                            throws Exception {
+        ICRS utm = CRSManager.lookup( "EPSG:25832" );
+        Feature feature = feature( "f1", property( "geom", fac.createPoint( null, 400000, 5500000, utm ) ) );
+
+        String json = write( utm, null, feature );
+
+        assertEquals( "{\"type\":\"FeatureCollection\","
+                      + "\"crs\":{\"type\":\"name\",\"properties\":{\"name\":\"" + utm.getAlias() + "\"}},"
+                      + "\"features\":[{\"type\":\"Feature\",\"id\":\"f1\","
+                      + "\"geometry\":{\"type\":\"Point\",\"coordinates\":[400000.0,5500000.0]},"
+                      + "\"properties\":{}}],\"numberReturned\":1}", json );
+    }
+
+    private String write( ICRS crs, Set<QName> requestedProps, Feature... features )
+                            throws Exception {
+        StringWriter out = new StringWriter();
+        GeoJsonFeatureWriter writer = GeoJsonFormat.startCollection( out, crs, new FastCoordinateFormatter( 1 ),
+                                                                     requestedProps );
+        for ( Feature feature : features ) {
+            writer.write( feature );
+        }
+        writer.finish( features.length );
+        return out.toString();
+    }
+
+    private static Feature feature( String id, Property... props ) {
+        Feature feature = mock( Feature.class );
+        List<Property> list = asList( props );
+        when( feature.getId() ).thenReturn( id );
+        when( feature.getProperties() ).thenReturn( list );
+        return feature;
+    }
+
+    private static Property property( String name, TypedObjectNode value ) {
+        Property prop = mock( Property.class );
+        when( prop.getName() ).thenReturn( new QName( NS, name ) );
+        when( prop.getValue() ).thenReturn( value );
+        return prop;
+    }
+
+}
@@ -0,0 +1,203 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wfs.format.geojson;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.deegree.cs.CRSUtils.EPSG_4326;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.io.FastCoordinateFormatter;
+import org.deegree.geometry.primitive.LineString;
+import org.deegree.geometry.primitive.Point;
+import org.deegree.geometry.primitive.Ring;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GeoJsonWriter}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class GeoJsonWriterTest {
+
+    private final GeometryFactory fac = new GeometryFactory();
+
+    @Test
+    public void testPoint()
+                            throws IOException {
+        assertEquals( "{\"type\":\"Point\",\"coordinates\":[7.5,50.0]}", write( point( 7.5, 50 ) ) );
+    }
+
+    @Test
+    public void testPoint3D()
+                            throws IOException {
+        Point p = fac.createPoint( null, 7.5, 50, 112.5, EPSG_4326 );
+        assertEquals( "{\"type\":\"Point\",\"coordinates\":[7.5,50.0,112.5]}", write( p ) );
+    }
+
+    @Test
+    public void testPointWithoutZ()
+                            throws IOException {
+        Point p = fac.createPoint( null, 7.5, 50, Double.NaN, EPSG_4326 );
+        assertEquals( "{\"type\":\"Point\",\"coordinates\":[7.5,50.0]}", write( p ) );
+    }
+
+    @Test
+    public void testLineString()
+                            throws IOException {
+        LineString ls = lineString( point( 0, 0 ), point( 1, 2 ) );
+        assertEquals( "{\"type\":\"LineString\",\"coordinates\":[[0.0,0.0],[1.0,2.0]]}", write( ls ) );
+    }
+
+    @Test
+    public void testPolygonWithHole()
+                            throws IOException {
+        Ring exterior = ring( 0, 0, 10, 10 );
+        Ring interior = ring( 2, 2, 4, 4 );
+        Geometry polygon = fac.createPolygon( null, EPSG_4326, exterior, singletonList( interior ) );
+        assertEquals( "{\"type\":\"Polygon\",\"coordinates\":[[[0.0,0.0],[10.0,0.0],[10.0,10.0],[0.0,10.0],[0.0,0.0]],"
+                      + "[[2.0,2.0],[4.0,2.0],[4.0,4.0],[2.0,4.0],[2.0,2.0]]]}", write( polygon ) );
+    }
+
+    @Test
+    public void testEnvelope()
+                            throws IOException {
+        Geometry env = fac.createEnvelope( 1, 2, 3, 4, EPSG_4326 );
+        assertEquals( "{\"type\":\"Polygon\",\"coordinates\":[[[1.0,2.0],[3.0,2.0],[3.0,4.0],[1.0,4.0],[1.0,2.0]]]}",
+                      write( env ) );
+    }
+
+    @Test
+    public void testMultiPoint()
+                            throws IOException {
+        Geometry mp = fac.createMultiPoint( null, EPSG_4326, asList( point( 1, 2 ), point( 3, 4 ) ) );
+        assertEquals( "{\"type\":\"MultiPoint\",\"coordinates\":[[1.0,2.0],[3.0,4.0]]}", write( mp ) );
+    }
+
+    @Test
+    public void testMultiLineString()
+                            throws IOException {
+        LineString ls1 = lineString( point( 0, 0 ), point( 1, 1 ) );
+        LineString ls2 = lineString( point( 2, 2 ), point( 3, 3 ) );
+        Geometry mls = fac.createMultiLineString( null, EPSG_4326, asList( ls1, ls2 ) );
+        assertEquals( "{\"type\":\"MultiLineString\",\"coordinates\":[[[0.0,0.0],[1.0,1.0]],[[2.0,2.0],[3.0,3.0]]]}",
+                      write( mls ) );
+    }
+
+    @Test
+    public void testGeometryCollection()
+                            throws IOException {
+        LineString ls = lineString( point( 0, 0 ), point( 1, 1 ) );
+        Geometry gc = fac.createMultiGeometry( null, EPSG_4326, Collections.<Geometry> singletonList( ls ) );
+        assertEquals( "{\"type\":\"GeometryCollection\",\"geometries\":["
+                      + "{\"type\":\"LineString\",\"coordinates\":[[0.0,0.0],[1.0,1.0]]}]}", write( gc ) );
+    }
+
+    @Test
+    public void testNullGeometry()
+                            throws IOException {
+        assertEquals( "null", write( null ) );
+    }
+
+    @Test
+    public void testValues()
+                            throws IOException {
+        StringWriter out = new StringWriter();
+        GeoJsonWriter json = new GeoJsonWriter( out, new FastCoordinateFormatter( 1 ) );
+        json.beginObject();
+        json.name( "s" ).value( "a\"b\\c\nd\u0001" );
+        json.name( "b" ).value( true );
+        json.name( "l" ).value( 42L );
+        json.name( "d" ).value( 0.1 );
+        json.name( "nan" ).value( Double.NaN );
+        json.name( "big" ).value( new BigDecimal( "12345678901234567890.5" ) );
+        json.name( "n" ).value( (Number) null );
+        json.name( "a" ).beginArray().value( 1 ).value( "x" ).beginObject().endObject().endArray();
+        json.endObject();
+        json.flush();
+        assertEquals( "{\"s\":\"a\\\"b\\\\c\\nd\\u0001\",\"b\":true,\"l\":42,\"d\":0.1,\"nan\":null,"
+                      + "\"big\":12345678901234567890.5,\"n\":null,\"a\":[1,\"x\",{}]}", out.toString() );
+    }
+
+    @Test
+    public void testLongOutputIsFlushedCompletely()
+                            throws IOException {
+        StringWriter out = new StringWriter();
+        GeoJsonWriter json = new GeoJsonWriter( out, new FastCoordinateFormatter( 1 ) );
+        StringBuilder expected = new StringBuilder( "[" );
+        json.beginArray();
+        for ( int i = 0; i < 10000; i++ ) {
+            json.value( i );
+            expected.append( i == 0 ? "" : "," ).append( i );
+        }
+        json.endArray();
+        json.flush();
+        assertEquals( expected.append( "]" ).toString(), out.toString() );
+    }
+
+    private String write( Geometry geom )
+                            throws IOException {
+        StringWriter out = new StringWriter();
+        GeoJsonWriter json = new GeoJsonWriter( out, new FastCoordinateFormatter( 1 ) );
+        json.geometry( geom );
+        json.flush();
+        return out.toString();
+    }
+
+    private Point point( double x, double y ) {
+        return fac.createPoint( null, x, y, EPSG_4326 );
+    }
+
+    private LineString lineString( Point... points ) {
+        return fac.createLineString( null, EPSG_4326, fac.createPoints( asList( points ) ) );
+    }
+
+    private Ring ring( double minX, double minY, double maxX, double maxY ) {
+        List<Point> points = asList( point( minX, minY ), point( maxX, minY ), point( maxX, maxY ), point( minX, maxY ),
+                                     point( minX, minY ) );
+        return fac.createLinearRing( null, EPSG_4326, fac.createPoints( points ) );
+    }
+
+}
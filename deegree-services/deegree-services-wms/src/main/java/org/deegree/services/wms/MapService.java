@@ -54,13 +54,16 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.Callable;
 
 import org.deegree.commons.annotations.LoggingNotes;
+import org.deegree.commons.concurrent.ExecutionFinishedEvent;
+import org.deegree.commons.concurrent.Executor;
 import org.deegree.commons.ows.exception.OWSException;
 import org.deegree.commons.utils.Pair;
+import org.deegree.feature.DuplicateFeatureFilter;
 import org.deegree.feature.Feature;
 import org.deegree.feature.FeatureCollection;
-import org.deegree.feature.Features;
 import org.deegree.feature.GenericFeatureCollection;
 import org.deegree.feature.types.FeatureType;
 import org.deegree.filter.OperatorFilter;
@@ -68,12 +71,14 @@ import org.deegree.layer.Layer;
 import org.deegree.layer.LayerData;
 import org.deegree.layer.LayerQuery;
 import org.deegree.layer.LayerRef;
+import org.deegree.layer.dims.Dimension;
 import org.deegree.protocol.wms.filter.ScaleFunction;
 import org.deegree.protocol.wms.ops.GetFeatureInfoSchema;
 import org.deegree.protocol.wms.ops.GetLegendGraphic;
 import org.deegree.rendering.r2d.context.MapOptions;
 import org.deegree.rendering.r2d.context.MapOptionsMaps;
 import org.deegree.rendering.r2d.context.RenderContext;
+import org.deegree.services.controller.RequestMetrics;
 import org.deegree.services.jaxb.wms.ServiceConfigurationType;
 import org.deegree.style.StyleRef;
 import org.deegree.style.se.unevaluated.Style;
@@ -234,6 +239,7 @@ public class MapService {
             LayerQuery query = queryIter.next();
             List<Layer> layers = getAllLayers( themeMap.get( lr.getName() ) );
             assertStyleApplicableForAtLeastOneLayer( layers, query.getStyle(), lr.getName() );
+            RequestMetrics.addResource( lr.getName() );
             for ( org.deegree.layer.Layer layer : layers ) {
                 if ( layer.getMetadata().getScaleDenominators().first > scale
                      || layer.getMetadata().getScaleDenominators().second < scale ) {
@@ -284,6 +290,7 @@ public class MapService {
         ListIterator<LayerQuery> queryIter = queries.listIterator();
         for ( LayerRef n : gfi.getQueryLayers() ) {
             LayerQuery query = queryIter.next();
+            RequestMetrics.addResource( n.getName() );
             for ( org.deegree.layer.Layer l : Themes.getAllLayers( themeMap.get( n.getName() ) ) ) {
                 if ( l.getMetadata().getScaleDenominators().first > scale
                      || l.getMetadata().getScaleDenominators().second < scale ) {
@@ -300,22 +307,73 @@ public class MapService {
             }
         }
 
-        List<Feature> feats = new ArrayList<Feature>( gfi.getFeatureCount() );
-        for ( LayerData d : list ) {
-            FeatureCollection col = d.info();
-            if ( col != null ) {
-                feats.addAll( col );
+        return mergeInfoResults( queryInfo( list ), gfi.getFeatureCount() );
+    }
+
+    /**
+     * Merges the feature info results of several layers, removing duplicates (see {@link DuplicateFeatureFilter}).
+     * 
+     * @param results
+     *            results of the layers, in the order of the layers, may contain <code>null</code> entries
+     * @param featureCount
+     *            maximum number of features to return
+     * @return the distinct features, never <code>null</code>
+     */
+    static FeatureCollection mergeInfoResults( List<FeatureCollection> results, int featureCount ) {
+        GenericFeatureCollection result = new GenericFeatureCollection();
+        DuplicateFeatureFilter filter = new DuplicateFeatureFilter();
+        for ( FeatureCollection col : results ) {
+            if ( col == null ) {
+                continue;
+            }
+            for ( Feature f : col ) {
+                if ( result.size() >= featureCount ) {
+                    return result;
+                }
+                if ( filter.add( f ) ) {
+                    result.add( f );
+                }
             }
         }
+        return result;
+    }
 
-        feats = Features.clearDuplicates( feats );
-
-        if ( feats.size() > gfi.getFeatureCount() ) {
-            feats = feats.subList( 0, gfi.getFeatureCount() );
+    /**
+     * Performs the info queries of the given layers, in parallel if there is more than one.
+     * 
+     * @return the results, in the order of the layers, may contain <code>null</code> entries
+     */
+    private List<FeatureCollection> queryInfo( List<LayerData> list )
+                            throws OWSException {
+        List<FeatureCollection> results = new ArrayList<FeatureCollection>( list.size() );
+        if ( list.size() == 1 ) {
+            results.add( list.get( 0 ).info() );
+            return results;
         }
-        GenericFeatureCollection col = new GenericFeatureCollection();
-        col.addAll( feats );
-        return col;
+        List<Callable<FeatureCollection>> tasks = new ArrayList<Callable<FeatureCollection>>( list.size() );
+        for ( final LayerData d : list ) {
+            tasks.add( new Callable<FeatureCollection>() {
+                @Override
+                public FeatureCollection call() {
+                    return d.info();
+                }
+            } );
+        }
+        try {
+            List<ExecutionFinishedEvent<FeatureCollection>> events = Executor.getInstance().performSynchronously( tasks );
+            for ( ExecutionFinishedEvent<FeatureCollection> event : events ) {
+                try {
+                    results.add( event.getResult() );
+                } catch ( Throwable e ) {
+                    LOG.warn( "Feature info query failed: {}", e.getLocalizedMessage() );
+                    LOG.trace( "Stack trace:", e );
+                    results.add( null );
+                }
+            }
+        } catch ( InterruptedException e ) {
+            throw new OWSException( "Request time-out.", NO_APPLICABLE_CODE );
+        }
+        return results;
     }
 
     private List<LayerQuery> prepareGetFeatures( org.deegree.protocol.wms.ops.GetFeatureInfo gfi ) {
@@ -405,4 +463,20 @@ public class MapService {
         return updateSequence;
     }
 
+    /**
+     * @return the sum of the extent versions of the dimensions of all layers, changes whenever a layer replaces a
+     *         dimension extent (e.g. with an extent computed from its data)
+     */
+    public long getDimensionExtentVersion() {
+        long version = 0;
+        for ( Theme theme : themes ) {
+            for ( Layer layer : getAllLayers( theme ) ) {
+                for ( Dimension<?> dim : layer.getMetadata().getDimensions().values() ) {
+                    version += dim.getExtentVersion();
+                }
+            }
+        }
+        return version;
+    }
+
 }
@@ -137,6 +137,8 @@ import org.deegree.services.controller.ImplementationMetadata;
 import org.deegree.services.controller.OGCFrontController;
 import org.deegree.services.controller.exception.serializer.ExceptionSerializer;
 import org.deegree.services.controller.exception.serializer.XMLExceptionSerializer;
+import org.deegree.services.controller.utils.CapabilitiesCache;
+import org.deegree.services.controller.utils.HttpCacheHeaders;
 import org.deegree.services.controller.utils.HttpResponseBuffer;
 import org.deegree.services.controller.utils.StandardFeatureInfoContext;
 import org.deegree.services.encoding.SupportedEncodings;
@@ -217,6 +219,10 @@ public class WMSController extends AbstractOWS {
 
     private final GetMapLimitChecker getMapLimitChecker = new GetMapLimitChecker();
 
+    private final CapabilitiesCache capabilitiesCache = new CapabilitiesCache();
+
+    private HttpCacheHeaders mapCacheHeaders = new HttpCacheHeaders( null );
+
     private SupportedEncodings supportedEncodings;    
 
     public WMSController( ResourceMetadata<OWS> metadata, Workspace workspace, DeegreeWMS jaxbConfig ) {
@@ -262,6 +268,7 @@ public class WMSController extends AbstractOWS {
         nsContext.addNamespace( "wms", "http://www.deegree.org/services/wms" );
 
         conf = (DeegreeWMS) controllerConf;
+        mapCacheHeaders = new HttpCacheHeaders( conf.getCacheControl() );
 
         if ( conf.getExtendedCapabilities() != null ) {
             this.extendedCaps = new HashMap<String, List<OMElement>>();
@@ -362,7 +369,7 @@ public class WMSController extends AbstractOWS {
                 throw new OWSException( "GET/KVP is not supported for " + requestName + " requests.",
                                         OWSException.OPERATION_NOT_SUPPORTED );
             }
-            handleRequest( req, response, map, version );
+            handleRequest( req, request, response, map, version );
         } catch ( OWSException e ) {
             if ( controllers.get( version ) == null ) {
                 // happens if non capabilities request is made with unsupported version
@@ -376,8 +383,8 @@ public class WMSController extends AbstractOWS {
         }
     }
 
-    private void handleRequest( WMSRequestType req, HttpResponseBuffer response, Map<String, String> map,
-                                Version version )
+    private void handleRequest( WMSRequestType req, HttpServletRequest request, HttpResponseBuffer response,
+                                Map<String, String> map, Version version )
                             throws IOException, OWSException {
         try {
             switch ( req ) {
@@ -397,7 +404,7 @@ public class WMSController extends AbstractOWS {
                                         OPERATION_NOT_SUPPORTED );
             case capabilities:
             case GetCapabilities:
-                getCapabilities( map, response );
+                getCapabilities( map, request, response );
                 break;
             case GetFeatureInfo:
                 getFeatureInfo( map, response, version );
@@ -405,6 +412,10 @@ public class WMSController extends AbstractOWS {
             case GetMap:
             case map:
                 getMap( map, response, version );
+                if ( mapCacheHeaders.isCacheable() && !response.isExceptionSent() ) {
+                    // the entity tag is a hash of the image, only calculate it if clients may store the image
+                    mapCacheHeaders.checkNotModified( request, response );
+                }
                 break;
             case GetFeatureInfoSchema:
                 getFeatureInfoSchema( map, response );
@@ -569,6 +580,11 @@ public class WMSController extends AbstractOWS {
 
     protected void getCapabilities( Map<String, String> map, HttpResponseBuffer response )
                             throws OWSException, IOException {
+        getCapabilities( map, null, response );
+    }
+
+    private void getCapabilities( Map<String, String> map, HttpServletRequest request, HttpResponseBuffer response )
+                            throws OWSException, IOException {
         String version = map.get( "VERSION" );
         // not putting it into the bean, why should I? It's used just a few lines below...
 
@@ -577,7 +593,19 @@ public class WMSController extends AbstractOWS {
             version = map.get( "WMTVER" );
         }
         GetCapabilities req = new GetCapabilities( version );
-        doGetCapabilities( map, response, updateSequence, req );
+
+        // requests with update sequence are rare, and may have to result in an exception
+        String cacheKey = null;
+        if ( request != null && updateSequence == null ) {
+            // dimension extents computed from the data may change without an update sequence change
+            capabilitiesCache.validate( service.getCurrentUpdateSequence() + service.getDimensionExtentVersion() );
+            cacheKey = CapabilitiesCache.createKey( map, OGCFrontController.getHttpGetURL(),
+                                                    OGCFrontController.getHttpPostURL() );
+            if ( capabilitiesCache.send( cacheKey, request, response ) ) {
+                return;
+            }
+        }
+        doGetCapabilities( map, response, updateSequence, req, cacheKey );
     }
 
     @Override
@@ -602,7 +630,7 @@ public class WMSController extends AbstractOWS {
                 getCapabilitiesXMLAdapter.setRootElement( new XMLAdapter( xmlStream ).getRootElement() );
                 GetCapabilities getCapabilities = getCapabilitiesXMLAdapter.parse( requestVersion );
                 String updateSequence = getCapabilities.getUpdateSequence();
-                doGetCapabilities( new HashMap<String, String>(), response, updateSequence, getCapabilities );
+                doGetCapabilities( new HashMap<String, String>(), response, updateSequence, getCapabilities, null );
                 break;
             case GetMap:
                 GetMapParser getMapParser = new GetMapParser();
@@ -662,7 +690,7 @@ public class WMSController extends AbstractOWS {
                     getCapabilitiesXMLAdapter.setRootElement( body );
                     GetCapabilities getCapabilities = getCapabilitiesXMLAdapter.parse( requestVersion );
                     String updateSequence = getCapabilities.getUpdateSequence();
-                    doGetCapabilities( new HashMap<String, String>(), response, updateSequence, getCapabilities );
+                    doGetCapabilities( new HashMap<String, String>(), response, updateSequence, getCapabilities, null );
                     break;
                 case GetFeatureInfo:
                     GetFeatureInfoParser getFeatureInfoParser = new GetFeatureInfoParser();
@@ -801,7 +829,7 @@ public class WMSController extends AbstractOWS {
     }
 
     private void doGetCapabilities( Map<String, String> map, HttpResponseBuffer response, String updateSequence,
-                                    GetCapabilities req )
+                                    GetCapabilities req, String cacheKey )
                             throws OWSException, IOException {
         Version myVersion = negotiateVersion( req );
 
@@ -818,6 +846,9 @@ public class WMSController extends AbstractOWS {
                                                           identification, provider, map, this, null );
         }
 
+        if ( cacheKey != null ) {
+            capabilitiesCache.put( cacheKey, response );
+        }
         response.flushBuffer(); // TODO remove this to enable validation, enable validation on a DTD basis...
     }
 
@@ -1208,7 +1239,7 @@ public class WMSController extends AbstractOWS {
 
     @Override
     public void destroy() {
-        // nothing to do
+        capabilitiesCache.clear();
     }
 
 }
@@ -147,6 +147,8 @@ public class ExceptionsManager {
         ExceptionsSerializer serializer = getSerializer( version, format );
         if ( serializer != null ) {
             serializer.serializeException( response, exception, exceptionSerializer, map );
+            // also for blank and inimage exceptions, which are images
+            response.setExceptionSent();
         } else {
             throw new SerializingException( "Exceptions format '" + format + "' is unknown." );
         }
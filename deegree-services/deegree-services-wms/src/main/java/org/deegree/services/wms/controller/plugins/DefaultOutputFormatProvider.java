@@ -41,6 +41,7 @@ import java.util.Collection;
 import java.util.LinkedHashSet;
 
 import org.deegree.rendering.r2d.context.LazyImageRenderContext;
+import org.deegree.rendering.r2d.context.MvtRenderContext;
 import org.deegree.rendering.r2d.context.RenderContext;
 import org.deegree.rendering.r2d.context.RenderingInfo;
 import org.deegree.rendering.r2d.context.SvgRenderContext;
@@ -62,7 +63,8 @@ public class DefaultOutputFormatProvider implements OutputFormatProvider {
                                                                                                                  "image/jpeg",
                                                                                                                  "image/tiff",
                                                                                                                  "image/x-ms-bmp",
-                                                                                                                 "image/svg+xml" ) );
+                                                                                                                 "image/svg+xml",
+                                                                                                                 MvtRenderContext.FORMAT ) );
 
     @Override
     public Collection<String> getSupportedOutputFormats() {
@@ -73,6 +75,8 @@ public class DefaultOutputFormatProvider implements OutputFormatProvider {
     public RenderContext getRenderers( RenderingInfo info, OutputStream outputStream ) {
         if ( "image/svg+xml".equals( info.getFormat() ) ) {
             return SvgRenderContext.createInstance( info, outputStream );
+        } else if ( MvtRenderContext.FORMAT.equals( info.getFormat() ) ) {
+            return new MvtRenderContext( info, outputStream );
         } else {
             return new LazyImageRenderContext( info, outputStream );
         }
@@ -0,0 +1,96 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wms;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.deegree.feature.Feature;
+import org.deegree.feature.FeatureCollection;
+import org.deegree.feature.GenericFeatureCollection;
+import org.junit.Test;
+
+/**
+ * Tests for the merging of GetFeatureInfo results of {@link MapService}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class MapServiceTest {
+
+    @Test
+    public void testDuplicateIdsAcrossLayersAreRemoved() {
+        Feature road = feature( "ROAD_1" );
+        Feature river = feature( "RIVER_1" );
+        FeatureCollection layer1 = collection( road, river );
+        FeatureCollection layer2 = collection( feature( "ROAD_1" ), feature( "RIVER_2" ) );
+        FeatureCollection result = MapService.mergeInfoResults( asList( layer1, null, layer2 ), 10 );
+        assertEquals( 3, result.size() );
+        assertSame( road, result.toArray()[0] );
+        assertSame( river, result.toArray()[1] );
+        assertEquals( "RIVER_2", ( (Feature) result.toArray()[2] ).getId() );
+    }
+
+    @Test
+    public void testFeaturesWithoutIdAreKept() {
+        FeatureCollection layer1 = collection( feature( null ), feature( null ) );
+        FeatureCollection layer2 = collection( feature( null ), feature( "ROAD_1" ) );
+        FeatureCollection result = MapService.mergeInfoResults( asList( layer1, layer2 ), 10 );
+        assertEquals( 4, result.size() );
+    }
+
+    @Test
+    public void testFeatureCountIsRespected() {
+        FeatureCollection layer1 = collection( feature( null ), feature( "ROAD_1" ) );
+        FeatureCollection layer2 = collection( feature( null ), feature( "ROAD_2" ) );
+        assertEquals( 3, MapService.mergeInfoResults( asList( layer1, layer2 ), 3 ).size() );
+    }
+
+    private static FeatureCollection collection( Feature... features ) {
+        return new GenericFeatureCollection( null, asList( features ) );
+    }
+
+    private static Feature feature( String id ) {
+        Feature f = mock( Feature.class );
+        when( f.getId() ).thenReturn( id );
+        return f;
+    }
+
+}
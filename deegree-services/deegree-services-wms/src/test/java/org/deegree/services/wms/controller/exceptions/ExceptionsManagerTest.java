@@ -0,0 +1,81 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2015 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wms.controller.exceptions;
+
+import static org.deegree.commons.ows.exception.OWSException.NO_APPLICABLE_CODE;
+import static org.deegree.protocol.wms.WMSConstants.VERSION_130;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.deegree.commons.ows.exception.OWSException;
+import org.deegree.services.controller.utils.HttpResponseBuffer;
+import org.deegree.services.wms.controller.WMSController;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ExceptionsManager}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class ExceptionsManagerTest {
+
+    @Test
+    public void testFailingGetMapMarksResponseAsException()
+                            throws Exception {
+        ExceptionsManager manager = new ExceptionsManager( true, mock( WMSController.class ) );
+        HttpResponseBuffer response = new HttpResponseBuffer( mock( HttpServletResponse.class ) );
+        Map<String, String> map = new HashMap<String, String>();
+        map.put( "REQUEST", "GetMap" );
+        map.put( "WIDTH", "10" );
+        map.put( "HEIGHT", "10" );
+        map.put( "FORMAT", "image/png" );
+        assertFalse( response.isExceptionSent() );
+
+        manager.serialize( VERSION_130, "BLANK", response, new OWSException( "Unknown layer.", NO_APPLICABLE_CODE ),
+                           null, map );
+
+        assertTrue( response.isExceptionSent() );
+    }
+
+}
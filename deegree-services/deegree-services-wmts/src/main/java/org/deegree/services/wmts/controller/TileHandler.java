@@ -52,11 +52,13 @@ import java.util.List;
 import java.util.Map;
 
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
 
 import org.deegree.commons.ows.exception.OWSException;
 import org.deegree.layer.Layer;
 import org.deegree.layer.persistence.tile.TileLayer;
 import org.deegree.protocol.wmts.ops.GetTile;
+import org.deegree.services.controller.utils.HttpCacheHeaders;
 import org.deegree.services.controller.utils.HttpResponseBuffer;
 import org.deegree.theme.Theme;
 import org.deegree.theme.Themes;
@@ -77,7 +79,10 @@ class TileHandler {
 
     private Map<String, TileLayer> layers;
 
-    TileHandler( List<Theme> themes ) {
+    private final HttpCacheHeaders cacheHeaders;
+
+    TileHandler( List<Theme> themes, HttpCacheHeaders cacheHeaders ) {
+        this.cacheHeaders = cacheHeaders;
         layers = new HashMap<String, TileLayer>();
         for ( Theme theme : themes ) {
             for ( Layer l : Themes.getAllLayers( theme ) ) {
@@ -88,13 +93,13 @@ class TileHandler {
         }
     }
 
-    void getTile( Map<String, String> map, HttpResponseBuffer response )
+    void getTile( Map<String, String> map, HttpServletRequest request, HttpResponseBuffer response )
                             throws OWSException, ServletException {
         GetTile op = new GetTile( map );
-        getTile( op, response );
+        getTile( op, request, response );
     }
 
-    private void getTile( final GetTile op, final HttpResponseBuffer response )
+    private void getTile( final GetTile op, final HttpServletRequest request, final HttpResponseBuffer response )
                             throws OWSException, ServletException {
         final TileLayer layer = layers.get( op.getLayer() );
         if ( layer == null ) {
@@ -136,6 +141,10 @@ class TileHandler {
 
         InputStream in = null;
         try {
+            // validators are cheap to determine, so unchanged tiles are answered without accessing the tile data
+            if ( cacheHeaders.checkNotModified( request, response, t.getVersion(), t.getLastModified() ) ) {
+                return;
+            }
             in = t.getAsStream();
             if ( in == null ) {
                 throw new OWSException( "Tile yielded no data.", NO_APPLICABLE_CODE );
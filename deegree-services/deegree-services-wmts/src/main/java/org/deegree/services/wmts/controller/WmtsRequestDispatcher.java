@@ -48,10 +48,12 @@ import static org.slf4j.LoggerFactory.getLogger;
 import java.util.Map;
 
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
 
 import org.deegree.commons.ows.exception.OWSException;
 import org.deegree.commons.tom.ows.Version;
 import org.deegree.protocol.wmts.WMTSConstants.WMTSRequestType;
+import org.deegree.services.controller.utils.HttpCacheHeaders;
 import org.deegree.services.controller.utils.HttpResponseBuffer;
 import org.deegree.services.jaxb.metadata.DeegreeServicesMetadataType;
 import org.deegree.services.wmts.jaxb.DeegreeWMTS;
@@ -84,10 +86,11 @@ class WmtsRequestDispatcher {
                                                      builder.getThemes() );
         capabilitiesHandler = new CapabilitiesHandler( mainMetadataConf, workspace, builder.getMetadataUrlTemplate(),
                                                        wmtsId, builder.getThemes(), featureInfoHandler.getManager() );
-        tileHandler = new TileHandler( builder.getThemes() );
+        tileHandler = new TileHandler( builder.getThemes(), new HttpCacheHeaders( builder.getCacheControl() ) );
     }
 
-    void handleRequest( WMTSRequestType req, HttpResponseBuffer response, Map<String, String> map, Version version )
+    void handleRequest( WMTSRequestType req, HttpServletRequest request, HttpResponseBuffer response,
+                        Map<String, String> map, Version version )
                             throws OWSException, ServletException {
         if ( !map.get( "SERVICE" ).equals( "WMTS" ) ) {
             throw new OWSException( "The service parameter must to be WMTS.", INVALID_PARAMETER_VALUE, "service" );
@@ -116,7 +119,7 @@ class WmtsRequestDispatcher {
             }
             break;
         case GetTile:
-            tileHandler.getTile( map, response );
+            tileHandler.getTile( map, request, response );
             break;
         }
     }
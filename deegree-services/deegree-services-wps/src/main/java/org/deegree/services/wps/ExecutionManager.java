@@ -50,8 +50,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import javax.xml.bind.JAXBElement;
 import javax.xml.stream.XMLOutputFactory;
@@ -101,7 +99,7 @@ public class ExecutionManager {
 
     private final StorageManager storageManager;
 
-    private final ExecutorService exec;
+    private final ExecutionScheduler scheduler;
 
     // number of executions to keep track of
     private final int maxEntries;
@@ -122,10 +120,12 @@ public class ExecutionManager {
      *            outputs)
      * @param maxExecutions
      *            number of executions to keep track of
+     * @param scheduler
+     *            used for running asynchronous executions
      */
-    ExecutionManager( WPService master, StorageManager storageManager, int maxExecutions ) {
+    ExecutionManager( WPService master, StorageManager storageManager, int maxExecutions, ExecutionScheduler scheduler ) {
         this.storageManager = storageManager;
-        this.exec = Executors.newCachedThreadPool();
+        this.scheduler = scheduler;
         this.maxEntries = maxExecutions;
     }
 
@@ -158,6 +158,22 @@ public class ExecutionManager {
         return processStateList;
     }
 
+    /**
+     * Returns the scheduler that runs the asynchronous executions, e.g. for querying queue and run-time statistics.
+     * 
+     * @return the scheduler, never <code>null</code>
+     */
+    public ExecutionScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Stops the scheduler, running asynchronous executions are interrupted.
+     */
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
     /**
      * Returns a collection of information on all running processes.
      * 
@@ -305,10 +321,18 @@ public class ExecutionManager {
 
             state = createProcessletExecution( request, responseStorage, serviceInstance, outputParams, outputs );
 
-            // submit the process for asynchronous execution
+            // submit the process for asynchronous execution, register the storage location of the response document
+            // right away, so the status can be requested while the execution is queued
             ProcessWorker worker = new ProcessWorker( process.getProcesslet(), outputs, state, outputParams,
                                                       responseStorage, request, serviceInstance );
-            exec.execute( worker );
+            responseDocumentIdToState.put( responseStorage, state );
+            try {
+                scheduler.submit( request.getProcessId().getCode(), state, worker );
+            } catch ( OWSException e ) {
+                responseDocumentIdToState.remove( responseStorage );
+                discardOutputSinks( outputs );
+                throw e;
+            }
         } else {
             // response is directly returned in the HTTP response stream (-> synchronous process execution)
             LOG.debug( "Return response document in response stream (synchronous execution)" );
@@ -319,9 +343,25 @@ public class ExecutionManager {
             }
 
             state = createProcessletExecution( request, responseStorage, serviceInstance, outputParams, outputs );
-            executeProcess( process.getProcesslet(), inputs, outputs, state );
+            try {
+                executeProcess( process.getProcesslet(), inputs, outputs, state );
+                writeResponseDocument( response, state, responseStorage, serviceInstance, outputParams, outputs,
+                                       request );
+            } finally {
+                discardOutputSinks( outputs );
+            }
+            return;
         }
 
+        // the asynchronous worker writes the final response document and discards the sinks
+        writeResponseDocument( response, state, responseStorage, serviceInstance, outputParams, outputs, request );
+    }
+
+    private void writeResponseDocument( HttpResponseBuffer response, ProcessExecution state,
+                                        ResponseDocumentStorage responseStorage, URL serviceInstance,
+                                        List<RequestedOutput> outputParams, ProcessletOutputs outputs,
+                                        ExecuteRequest request )
+                            throws OWSException {
         // write ExecuteResponse document
         response.setContentType( "text/xml; charset=UTF-8" );
 
@@ -338,6 +378,18 @@ public class ExecutionManager {
         }
     }
 
+    /**
+     * Releases the buffers (and spill files) of the complex outputs that are embedded in the response document, must be
+     * called once the response document has been written or the execution has been abandoned.
+     */
+    private static void discardOutputSinks( ProcessletOutputs outputs ) {
+        for ( ProcessletOutput output : outputs.getParameters() ) {
+            if ( output instanceof ComplexOutputImpl ) {
+                ( (ComplexOutputImpl) output ).discard();
+            }
+        }
+    }
+
     /**
      * @param response
      * @param location
@@ -407,9 +459,17 @@ public class ExecutionManager {
                 String requestedMimeType = outputDef.getMimeType();
                 String requestedEncoding = outputDef.getEncoding();
                 String requestedSchema = outputDef.getSchemaURL();
-                processOutput = new ComplexOutputImpl( (ComplexOutputDefinition) outputType,
-                                                       storageManager.newOutputStorage( requestedMimeType ), true,
-                                                       requestedMimeType, requestedSchema, requestedEncoding );
+                if ( outputDef.getAsReference() ) {
+                    processOutput = new ComplexOutputImpl( (ComplexOutputDefinition) outputType,
+                                                           storageManager.newOutputStorage( requestedMimeType ),
+                                                           true, requestedMimeType, requestedSchema,
+                                                           requestedEncoding );
+                } else {
+                    // embedded in the response document, no need to publish it
+                    processOutput = new ComplexOutputImpl( (ComplexOutputDefinition) outputType,
+                                                           storageManager.newOutputSink(), true, requestedMimeType,
+                                                           requestedSchema, requestedEncoding );
+                }
             } catch ( Exception e ) {
                 String msg = "Unable to create sink for complex output parameter: " + e.getMessage();
                 LOG.error( msg, e );
@@ -421,6 +481,10 @@ public class ExecutionManager {
 
     private void executeProcess( Processlet process, ProcessletInputs inputs, ProcessletOutputs outputs,
                                  ProcessExecution state ) {
+        if ( state.getExecutionState() == FAILED ) {
+            // aborted before it has been started
+            return;
+        }
         try {
             // process execution is about to start right now
             state.setStarted();
@@ -497,9 +561,6 @@ public class ExecutionManager {
         @Override
         public void run() {
 
-            // register the storage location of the response document from the lookup map
-            responseDocumentIdToState.put( responseStorage, state );
-
             try {
                 executeProcess( process, request.getDataInputs(), outputs, state );
 
@@ -524,6 +585,7 @@ public class ExecutionManager {
             } finally {
                 // deregister the storage location of the response document
                 responseDocumentIdToState.remove( responseStorage );
+                discardOutputSinks( outputs );
             }
         }
     }
@@ -0,0 +1,458 @@
+//$HeadURL: svn+ssh://mschneider@svn.wald.intevation.org/deegree/base/trunk/resources/eclipse/files_template.xml $
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wps;
+
+import static org.deegree.commons.ows.exception.OWSException.NO_APPLICABLE_CODE;
+import static org.deegree.commons.ows.exception.OWSException.SERVER_BUSY;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.deegree.commons.ows.exception.OWSException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules asynchronous process executions on a bounded number of worker threads.
+ * <p>
+ * Executions are started as long as the global and the per-process concurrency limits permit. Other executions are
+ * queued, ordered by the priority of the process (higher values first) and the time of submission. If the queue is
+ * full, new executions are rejected with a <code>ServerBusy</code> exception. Executions that exceed the timeout of
+ * their process are marked as failed and their worker thread is interrupted; the execution slot is only released after
+ * the processlet has actually returned.
+ * </p>
+ * 
+ * @see ExecutionManager
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class ExecutionScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger( ExecutionScheduler.class );
+
+    private final int maxConcurrent;
+
+    private final int maxConcurrentPerProcess;
+
+    private final int queueLength;
+
+    private final long defaultTimeout;
+
+    private final Map<String, ProcessLimits> processLimits;
+
+    private final ExecutorService workers;
+
+    private final ScheduledExecutorService timer;
+
+    // guarded by this
+    private final TreeSet<Job> queue = new TreeSet<Job>( new Comparator<Job>() {
+        @Override
+        public int compare( Job j1, Job j2 ) {
+            if ( j1.priority != j2.priority ) {
+                return j1.priority > j2.priority ? -1 : 1;
+            }
+            return j1.seq < j2.seq ? -1 : ( j1.seq == j2.seq ? 0 : 1 );
+        }
+    } );
+
+    private final Map<String, Integer> runningPerProcess = new HashMap<String, Integer>();
+
+    private long seq;
+
+    private int running;
+
+    private long submitted;
+
+    private long rejected;
+
+    private long timedOut;
+
+    private long completed;
+
+    private long totalQueueTime;
+
+    private long totalRunTime;
+
+    /**
+     * Creates a new {@link ExecutionScheduler}.
+     * 
+     * @param maxConcurrent
+     *            maximum number of executions running at the same time, must be positive
+     * @param maxConcurrentPerProcess
+     *            default maximum number of executions of a single process running at the same time, must be positive
+     * @param queueLength
+     *            maximum number of executions waiting for a free slot, zero rejects all executions that cannot be
+     *            started immediately
+     * @param defaultTimeout
+     *            default maximum execution time in milliseconds, zero or negative for no limit
+     * @param processLimits
+     *            limits for specific processes (key: process identifier), may be empty but not <code>null</code>
+     */
+    public ExecutionScheduler( int maxConcurrent, int maxConcurrentPerProcess, int queueLength, long defaultTimeout,
+                               Map<String, ProcessLimits> processLimits ) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxConcurrentPerProcess = maxConcurrentPerProcess;
+        this.queueLength = queueLength;
+        this.defaultTimeout = defaultTimeout;
+        this.processLimits = processLimits;
+        this.workers = Executors.newFixedThreadPool( maxConcurrent, new NamedThreadFactory( "deegree-wps-worker-" ) );
+        this.timer = Executors.newSingleThreadScheduledExecutor( new NamedThreadFactory( "deegree-wps-timeout-" ) );
+    }
+
+    /**
+     * Submits an execution. It is started immediately if the limits permit, else it is queued.
+     * 
+     * @param processId
+     *            identifier of the process, never <code>null</code>
+     * @param state
+     *            the execution state, never <code>null</code>
+     * @param task
+     *            performs the execution, never <code>null</code>
+     * @throws OWSException
+     *             with code <code>ServerBusy</code>, if the queue is full
+     */
+    public synchronized void submit( String processId, ProcessExecution state, Runnable task )
+                            throws OWSException {
+        ProcessLimits limits = processLimits.get( processId );
+        Job job = new Job( processId, state, task, limits == null ? 0 : limits.priority, seq++ );
+        // before dispatching, the job may be started (and update its state) right away
+        state.setQueued( this );
+        queue.add( job );
+        dispatch();
+        if ( queue.size() > queueLength && queue.remove( job ) ) {
+            rejected++;
+            LOG.warn( "Rejecting execution of process '{}': {} executions running, {} queued.", processId, running,
+                      queue.size() );
+            throw new OWSException( "The server is too busy to accept the execution of process '" + processId
+                                    + "', please try again later.", SERVER_BUSY );
+        }
+        submitted++;
+    }
+
+    /**
+     * Returns a human-readable description of the queue position of an execution that has not been started yet.
+     * 
+     * @param state
+     *            the execution state, never <code>null</code>
+     * @return description, or <code>null</code> if the execution is not queued (any more)
+     */
+    public synchronized String getQueueStatus( ProcessExecution state ) {
+        int position = 1;
+        for ( Job job : queue ) {
+            if ( job.state == state ) {
+                return "Process accepted, waiting for execution (queue position " + position + " of " + queue.size()
+                       + ", " + running + " of " + maxConcurrent + " slots busy, average waiting time "
+                       + ( getAverageQueueTime() / 1000 ) + " s, average run time " + ( getAverageRunTime() / 1000 )
+                       + " s).";
+            }
+            ++position;
+        }
+        return null;
+    }
+
+    /**
+     * @return number of executions waiting for a free slot
+     */
+    public synchronized int getQueued() {
+        return queue.size();
+    }
+
+    /**
+     * @return number of running executions
+     */
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    /**
+     * @return number of accepted executions since startup
+     */
+    public synchronized long getSubmitted() {
+        return submitted;
+    }
+
+    /**
+     * @return number of rejected executions since startup
+     */
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return number of executions that exceeded their timeout since startup
+     */
+    public synchronized long getTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * @return number of finished executions since startup
+     */
+    public synchronized long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return average time (in milliseconds) finished executions have been waiting in the queue
+     */
+    public synchronized long getAverageQueueTime() {
+        return completed == 0 ? 0 : totalQueueTime / completed;
+    }
+
+    /**
+     * @return average run time (in milliseconds) of finished executions
+     */
+    public synchronized long getAverageRunTime() {
+        return completed == 0 ? 0 : totalRunTime / completed;
+    }
+
+    /**
+     * Stops all workers, running executions are interrupted and queued executions are marked as failed.
+     */
+    public void shutdown() {
+        List<Job> dropped;
+        synchronized ( this ) {
+            dropped = new ArrayList<Job>( queue );
+            queue.clear();
+        }
+        for ( Job job : dropped ) {
+            String msg = "The service has been shut down before the process execution could be started.";
+            job.state.setFailed( new OWSException( msg, NO_APPLICABLE_CODE ) );
+        }
+        if ( !dropped.isEmpty() ) {
+            LOG.warn( "Shutting down, {} queued execution(s) have been dropped.", dropped.size() );
+        }
+        workers.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    // must be called with the lock held
+    private void dispatch() {
+        Iterator<Job> iter = queue.iterator();
+        while ( running < maxConcurrent && iter.hasNext() ) {
+            Job job = iter.next();
+            Integer count = runningPerProcess.get( job.processId );
+            int current = count == null ? 0 : count;
+            if ( current < getMaxConcurrent( job.processId ) ) {
+                iter.remove();
+                runningPerProcess.put( job.processId, current + 1 );
+                running++;
+                start( job );
+            }
+        }
+    }
+
+    private int getMaxConcurrent( String processId ) {
+        ProcessLimits limits = processLimits.get( processId );
+        if ( limits != null && limits.maxConcurrent > 0 ) {
+            return limits.maxConcurrent;
+        }
+        return maxConcurrentPerProcess;
+    }
+
+    private long getTimeout( String processId ) {
+        ProcessLimits limits = processLimits.get( processId );
+        if ( limits != null && limits.timeout > 0 ) {
+            return limits.timeout;
+        }
+        return defaultTimeout;
+    }
+
+    private void start( final Job job ) {
+        job.startTime = System.currentTimeMillis();
+        long timeout = getTimeout( job.processId );
+        if ( timeout > 0 ) {
+            job.timeoutFuture = timer.schedule( new Runnable() {
+                @Override
+                public void run() {
+                    timeout( job );
+                }
+            }, timeout, TimeUnit.MILLISECONDS );
+        }
+        workers.execute( new Runnable() {
+            @Override
+            public void run() {
+                synchronized ( job ) {
+                    job.thread = Thread.currentThread();
+                }
+                try {
+                    // also run if timed out already, so the task can write its final (failed) status
+                    job.task.run();
+                } catch ( Throwable t ) {
+                    LOG.error( "Execution of process '" + job.processId + "' failed: " + t.getMessage(), t );
+                } finally {
+                    synchronized ( job ) {
+                        job.thread = null;
+                        // clear the interrupt of a timeout that came too late
+                        Thread.interrupted();
+                    }
+                    finished( job );
+                }
+            }
+        } );
+    }
+
+    private void timeout( Job job ) {
+        synchronized ( job ) {
+            if ( job.done ) {
+                return;
+            }
+            String msg = "Process execution exceeded the maximum execution time and has been aborted.";
+            job.state.setFailed( new OWSException( msg, NO_APPLICABLE_CODE ) );
+            if ( job.thread != null ) {
+                job.thread.interrupt();
+            }
+        }
+        synchronized ( this ) {
+            timedOut++;
+        }
+        LOG.warn( "Execution of process '{}' timed out.", job.processId );
+    }
+
+    private void finished( Job job ) {
+        synchronized ( job ) {
+            job.done = true;
+            if ( job.timeoutFuture != null ) {
+                job.timeoutFuture.cancel( false );
+            }
+        }
+        synchronized ( this ) {
+            running--;
+            int count = runningPerProcess.get( job.processId ) - 1;
+            if ( count == 0 ) {
+                runningPerProcess.remove( job.processId );
+            } else {
+                runningPerProcess.put( job.processId, count );
+            }
+            completed++;
+            totalQueueTime += job.startTime - job.submitTime;
+            totalRunTime += System.currentTimeMillis() - job.startTime;
+            dispatch();
+        }
+    }
+
+    /**
+     * Scheduling limits of a single process.
+     */
+    public static class ProcessLimits {
+
+        final int maxConcurrent;
+
+        final int priority;
+
+        final long timeout;
+
+        /**
+         * @param maxConcurrent
+         *            maximum number of executions of the process running at the same time, zero or negative for the
+         *            scheduler default
+         * @param priority
+         *            priority of queued executions, higher values are started first
+         * @param timeout
+         *            maximum execution time in milliseconds, zero or negative for the scheduler default
+         */
+        public ProcessLimits( int maxConcurrent, int priority, long timeout ) {
+            this.maxConcurrent = maxConcurrent;
+            this.priority = priority;
+            this.timeout = timeout;
+        }
+    }
+
+    private static class Job {
+
+        final String processId;
+
+        final ProcessExecution state;
+
+        final Runnable task;
+
+        final int priority;
+
+        final long seq;
+
+        final long submitTime = System.currentTimeMillis();
+
+        long startTime;
+
+        ScheduledFuture<?> timeoutFuture;
+
+        // guarded by the job
+        Thread thread;
+
+        boolean done;
+
+        Job( String processId, ProcessExecution state, Runnable task, int priority, long seq ) {
+            this.processId = processId;
+            this.state = state;
+            this.task = task;
+            this.priority = priority;
+            this.seq = seq;
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        private final String prefix;
+
+        NamedThreadFactory( String prefix ) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread( Runnable r ) {
+            Thread t = new Thread( r, prefix + count.incrementAndGet() );
+            t.setDaemon( true );
+            return t;
+        }
+    }
+
+}
@@ -76,7 +76,7 @@ public class ProcessExecution implements ProcessletExecutionInfo {
 
     private final ProcessletOutputs outputs;
 
-    private ExecutionState processState;
+    private volatile ExecutionState processState;
 
     private String acceptedMessage;
 
@@ -94,6 +94,8 @@ public class ProcessExecution implements ProcessletExecutionInfo {
 
     private int percentCompleted;
 
+    private volatile ExecutionScheduler scheduler;
+
     /**
      * Creates a new {@link ProcessExecution} for a {@link Processlet} that has been accepted for execution.
      * <p>
@@ -141,6 +143,10 @@ public class ProcessExecution implements ProcessletExecutionInfo {
      * @return optional additional human-readable text, null if it is not available
      */
     public String getAcceptedMessage() {
+        ExecutionScheduler scheduler = this.scheduler;
+        if ( acceptedMessage == null && scheduler != null && processState == ACCEPTED ) {
+            return scheduler.getQueueStatus( this );
+        }
         return acceptedMessage;
     }
 
@@ -224,6 +230,17 @@ public class ProcessExecution implements ProcessletExecutionInfo {
         this.startTime = System.currentTimeMillis();
     }
 
+    /**
+     * Marks the execution as waiting in the queue of the given scheduler (processing state stays
+     * {@link ExecutionState#ACCEPTED}).
+     * 
+     * @param scheduler
+     *            scheduler that will start the execution, never <code>null</code>
+     */
+    void setQueued( ExecutionScheduler scheduler ) {
+        this.scheduler = scheduler;
+    }
+
     /**
      * Sets the processing state to {@link ExecutionState#SUCCEEDED}.
      * 
@@ -231,6 +248,10 @@ public class ProcessExecution implements ProcessletExecutionInfo {
      *            additional human-readable client information, may be null
      */
     void setSucceeded( String msg ) {
+        if ( processState == FAILED ) {
+            // aborted (timeout)
+            return;
+        }
         this.processState = SUCCEEDED;
         this.finishTime = System.currentTimeMillis();
         this.succeededMessage = msg;
@@ -254,6 +275,10 @@ public class ProcessExecution implements ProcessletExecutionInfo {
      *            exception that describes the reason for the failure
      */
     void setFailed( OWSException e ) {
+        if ( processState == FAILED ) {
+            // keep the original reason (e.g. timeout instead of the resulting interruption)
+            return;
+        }
         this.processState = FAILED;
         this.failedException = e;
     }
@@ -152,6 +152,8 @@ public class WPService extends AbstractOWS {
         String storage = "../var/wps";
         int trackedExecutions = 100;
         int inputDiskSwitchLimit = 1024 * 1024;
+        int outputDiskSwitchLimit = 1024 * 1024;
+        DefaultExecutionManager.Scheduler schedulerConfig = null;
         if ( sc.getAbstractExecutionManager() != null ) {
             LOG.info( "Explicit ExecutionManager config." );
             DefaultExecutionManager execManagerConfig = (DefaultExecutionManager) sc.getAbstractExecutionManager().getValue();
@@ -164,6 +166,10 @@ public class WPService extends AbstractOWS {
             if ( execManagerConfig.getInputDiskSwitchLimit() != null ) {
                 inputDiskSwitchLimit = execManagerConfig.getInputDiskSwitchLimit().intValue();
             }
+            if ( execManagerConfig.getOutputDiskSwitchLimit() != null ) {
+                outputDiskSwitchLimit = execManagerConfig.getOutputDiskSwitchLimit().intValue();
+            }
+            schedulerConfig = execManagerConfig.getScheduler();
         }
 
         File storageDir = null;
@@ -178,18 +184,56 @@ public class WPService extends AbstractOWS {
             String msg = "Storage directory error: " + t.getMessage();
             throw new ResourceInitException( msg );
         }
-        storageManager = new StorageManager( storageDir, inputDiskSwitchLimit );
+        storageManager = new StorageManager( storageDir, inputDiskSwitchLimit, outputDiskSwitchLimit );
 
         this.processManager = workspace.getResourceManager( ProcessManager.class );
 
         validateAndSetOfferedVersions( sc.getSupportedVersions().getVersion() );
 
-        executeHandler = new ExecutionManager( this, storageManager, trackedExecutions );
+        executeHandler = new ExecutionManager( this, storageManager, trackedExecutions,
+                                               createScheduler( schedulerConfig ) );
         mainMetadataConf = serviceMetadata;
     }
 
+    private ExecutionScheduler createScheduler( DefaultExecutionManager.Scheduler conf ) {
+        int maxConcurrent = Runtime.getRuntime().availableProcessors();
+        int maxConcurrentPerProcess = -1;
+        int queueLength = 100;
+        long timeout = -1;
+        Map<String, ExecutionScheduler.ProcessLimits> processLimits = new HashMap<String, ExecutionScheduler.ProcessLimits>();
+        if ( conf != null ) {
+            if ( conf.getMaxConcurrent() != null ) {
+                maxConcurrent = conf.getMaxConcurrent().intValue();
+            }
+            if ( conf.getMaxConcurrentPerProcess() != null ) {
+                maxConcurrentPerProcess = conf.getMaxConcurrentPerProcess().intValue();
+            }
+            if ( conf.getQueueLength() != null ) {
+                queueLength = conf.getQueueLength().intValue();
+            }
+            if ( conf.getTimeout() != null ) {
+                timeout = conf.getTimeout().longValue() * 1000;
+            }
+            for ( DefaultExecutionManager.Scheduler.Process process : conf.getProcess() ) {
+                int max = process.getMaxConcurrent() == null ? -1 : process.getMaxConcurrent().intValue();
+                long processTimeout = process.getTimeout() == null ? -1 : process.getTimeout().longValue() * 1000;
+                processLimits.put( process.getId(), new ExecutionScheduler.ProcessLimits( max, process.getPriority(),
+                                                                                        processTimeout ) );
+            }
+        }
+        if ( maxConcurrentPerProcess <= 0 || maxConcurrentPerProcess > maxConcurrent ) {
+            maxConcurrentPerProcess = maxConcurrent;
+        }
+        LOG.info( "Asynchronous executions: at most {} concurrently ({} per process), queue length {}.",
+                  maxConcurrent, maxConcurrentPerProcess, queueLength );
+        return new ExecutionScheduler( maxConcurrent, maxConcurrentPerProcess, queueLength, timeout, processLimits );
+    }
+
     @Override
     public void destroy() {
+        if ( executeHandler != null ) {
+            executeHandler.shutdown();
+        }
         // rest should be done by workspace
     }
 
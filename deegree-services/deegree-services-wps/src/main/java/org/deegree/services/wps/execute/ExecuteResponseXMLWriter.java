@@ -38,9 +38,9 @@ package org.deegree.services.wps.execute;
 
 import static org.deegree.protocol.wps.WPSConstants.VERSION_100;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Date;
 import java.util.List;
 
@@ -49,7 +49,8 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 
-import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64OutputStream;
+import org.apache.commons.io.IOUtils;
 import org.deegree.commons.tom.datetime.ISO8601Converter;
 import org.deegree.commons.xml.XMLAdapter;
 import org.deegree.process.jaxb.java.ProcessDefinition;
@@ -669,25 +670,25 @@ public class ExecuteResponseXMLWriter extends XMLAdapter {
         LOG.warn( "TODO Handle other encodings. Using fixed encoding: base64." );
         writer.writeAttribute( "encoding", "base64" );
 
-        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        // encode while copying, so the output is never held in memory as a whole
         InputStream is = output.getInputStream();
-        byte[] buffer = new byte[1024];
+        OutputStream os = new Base64OutputStream( new XMLCharactersOutputStream( writer ), true, 0, null );
+        byte[] buffer = new byte[8192];
         int bytesRead = 0;
         try {
             while ( ( bytesRead = is.read( buffer ) ) != -1 ) {
                 os.write( buffer, 0, bytesRead );
             }
-            os.flush();
             os.close();
         } catch ( IOException e ) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
+            if ( e.getCause() instanceof XMLStreamException ) {
+                throw (XMLStreamException) e.getCause();
+            }
+            LOG.error( "Unable to read complex output: " + e.getMessage(), e );
+        } finally {
+            IOUtils.closeQuietly( is );
         }
 
-        byte[] binary = os.toByteArray();
-        String base64 = Base64.encodeBase64String( binary );
-        writer.writeCharacters( base64 );
-
         writer.writeEndElement();
     }
 }
@@ -0,0 +1,122 @@
+//$HeadURL: svn+ssh://mschneider@svn.wald.intevation.org/deegree/base/trunk/resources/eclipse/svn_classfile_header_template.xml $
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wps.execute;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * {@link OutputStream} that writes (ASCII) bytes as character data to an {@link XMLStreamWriter}, e.g. the output of a
+ * base64 encoder.
+ * <p>
+ * {@link XMLStreamException}s are reported as {@link IOException}s with the original exception as cause. Closing this
+ * stream does not close the writer.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class XMLCharactersOutputStream extends OutputStream {
+
+    private final XMLStreamWriter writer;
+
+    private final char[] chars = new char[8192];
+
+    private int len;
+
+    /**
+     * @param writer
+     *            never <code>null</code>
+     */
+    XMLCharactersOutputStream( XMLStreamWriter writer ) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void write( int b )
+                            throws IOException {
+        if ( len == chars.length ) {
+            flushChars();
+        }
+        chars[len++] = (char) ( b & 0xff );
+    }
+
+    @Override
+    public void write( byte[] b, int off, int n )
+                            throws IOException {
+        while ( n > 0 ) {
+            if ( len == chars.length ) {
+                flushChars();
+            }
+            int count = Math.min( n, chars.length - len );
+            for ( int i = 0; i < count; ++i ) {
+                chars[len + i] = (char) ( b[off + i] & 0xff );
+            }
+            len += count;
+            off += count;
+            n -= count;
+        }
+    }
+
+    @Override
+    public void flush()
+                            throws IOException {
+        flushChars();
+    }
+
+    @Override
+    public void close()
+                            throws IOException {
+        flushChars();
+    }
+
+    private void flushChars()
+                            throws IOException {
+        if ( len == 0 ) {
+            return;
+        }
+        try {
+            writer.writeCharacters( chars, 0, len );
+        } catch ( XMLStreamException e ) {
+            throw new IOException( e.getMessage(), e );
+        }
+        len = 0;
+    }
+}
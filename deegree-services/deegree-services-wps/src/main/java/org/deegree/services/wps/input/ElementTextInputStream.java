@@ -0,0 +1,168 @@
+//$HeadURL: svn+ssh://mschneider@svn.wald.intevation.org/deegree/base/trunk/resources/eclipse/files_template.xml $
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wps.input;
+
+import static javax.xml.stream.XMLStreamConstants.CDATA;
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.END_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.SPACE;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * {@link InputStream} that provides the (ASCII) text content of an element, e.g. base64 encoded data, without
+ * collecting it into a string first.
+ * <p>
+ * The text is taken directly from the character buffers of the {@link XMLStreamReader}, characters are truncated to
+ * bytes. Nested elements are not allowed.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class ElementTextInputStream extends InputStream {
+
+    private final XMLStreamReader xmlStream;
+
+    private final InputStream source;
+
+    private char[] chars;
+
+    private int pos;
+
+    private int end;
+
+    private boolean eof;
+
+    /**
+     * Creates a new {@link ElementTextInputStream}.
+     * 
+     * @param xmlStream
+     *            positioned at the START_ELEMENT event of the element, never <code>null</code>
+     * @param source
+     *            the stream the reader has been created on, closed with this stream, may be <code>null</code>
+     */
+    ElementTextInputStream( XMLStreamReader xmlStream, InputStream source ) {
+        this.xmlStream = xmlStream;
+        this.source = source;
+    }
+
+    @Override
+    public int read()
+                            throws IOException {
+        if ( pos == end && !fill() ) {
+            return -1;
+        }
+        return chars[pos++] & 0xff;
+    }
+
+    @Override
+    public int read( byte[] b, int off, int len )
+                            throws IOException {
+        if ( len == 0 ) {
+            return 0;
+        }
+        if ( pos == end && !fill() ) {
+            return -1;
+        }
+        int n = Math.min( len, end - pos );
+        for ( int i = 0; i < n; ++i ) {
+            b[off + i] = (byte) chars[pos + i];
+        }
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return end - pos;
+    }
+
+    @Override
+    public void close()
+                            throws IOException {
+        eof = true;
+        try {
+            xmlStream.close();
+        } catch ( XMLStreamException e ) {
+            // nothing to do
+        }
+        if ( source != null ) {
+            source.close();
+        }
+    }
+
+    private boolean fill()
+                            throws IOException {
+        try {
+            while ( !eof ) {
+                int event = xmlStream.next();
+                switch ( event ) {
+                case CHARACTERS:
+                case CDATA:
+                case SPACE:
+                    int length = xmlStream.getTextLength();
+                    if ( length > 0 ) {
+                        chars = xmlStream.getTextCharacters();
+                        pos = xmlStream.getTextStart();
+                        end = pos + length;
+                        return true;
+                    }
+                    break;
+                case END_ELEMENT:
+                case END_DOCUMENT:
+                    eof = true;
+                    break;
+                case START_ELEMENT:
+                    throw new IOException( "Unexpected element '" + xmlStream.getName()
+                                           + "', expected text content only." );
+                default:
+                    // comments, processing instructions
+                }
+            }
+        } catch ( XMLStreamException e ) {
+            throw new IOException( e.getMessage(), e );
+        }
+        return false;
+    }
+}
@@ -43,7 +43,8 @@ import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
-import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64InputStream;
+import org.apache.commons.io.IOUtils;
 import org.deegree.commons.tom.ows.LanguageString;
 import org.deegree.commons.utils.io.StreamBufferStore;
 import org.deegree.commons.xml.stax.XMLStreamUtils;
@@ -90,6 +91,22 @@ public class EmbeddedComplexInput extends ComplexInputImpl {
     @Override
     public InputStream getValueAsBinaryStream() {
 
+        if ( "base64".equals( getEncoding() ) ) {
+            // decode while reading, so large inputs are never held in memory as a whole
+            LOG.debug( "Performing streaming base64 decoding of embedded ComplexInput." );
+            InputStream is = null;
+            try {
+                is = store.getInputStream();
+                XMLStreamReader xmlStream = XMLInputFactory.newInstance().createXMLStreamReader( is );
+                XMLStreamUtils.skipStartDocument( xmlStream );
+                return new Base64InputStream( new ElementTextInputStream( xmlStream, is ) );
+            } catch ( Throwable t ) {
+                IOUtils.closeQuietly( is );
+                LOG.error( t.getMessage(), t );
+                throw new RuntimeException( t.getMessage() );
+            }
+        }
+
         XMLStreamReader xmlStream = null;
         String textValue = null;
         try {
@@ -113,17 +130,8 @@ public class EmbeddedComplexInput extends ComplexInputImpl {
             }
         }
 
-        ByteArrayInputStream is = null;
-
-        if ( "base64".equals( getEncoding() ) ) {
-            LOG.debug( "Performing base64 decoding of embedded ComplexInput: " + textValue );
-            is = new ByteArrayInputStream( Base64.decodeBase64( textValue ) );
-        } else {
-            LOG.warn( "Unsupported encoding '" + getEncoding() + "'." );
-            is = new ByteArrayInputStream( textValue.getBytes() );
-        }
-
-        return is;
+        LOG.warn( "Unsupported encoding '" + getEncoding() + "'." );
+        return new ByteArrayInputStream( textValue.getBytes() );
     }
 
     @Override
@@ -49,6 +49,8 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 
+import org.apache.commons.io.IOUtils;
+import org.deegree.commons.utils.io.StreamBufferStore;
 import org.deegree.process.jaxb.java.ComplexOutputDefinition;
 import org.deegree.services.wps.storage.OutputStorage;
 import org.slf4j.Logger;
@@ -73,6 +75,8 @@ public class ComplexOutputImpl extends ProcessletOutputImpl implements ComplexOu
 
     private OutputStorage location;
 
+    private StreamBufferStore buffer;
+
     private OutputStream os;
 
     private BufferedInputStream is;
@@ -116,6 +120,28 @@ public class ComplexOutputImpl extends ProcessletOutputImpl implements ComplexOu
         this.requestedEncoding = requestedEncoding;
     }
 
+    /**
+     * Construct a complex output, values will be written to the buffer (which switches to a file when its memory limit
+     * is exceeded) to be embedded in the response document afterwards.
+     * 
+     * @param outputType
+     * @param buffer
+     * @param isRequested
+     * @param requestedMimeType
+     * @param requestedSchema
+     * @param requestedEncoding
+     */
+    public ComplexOutputImpl( ComplexOutputDefinition outputType, StreamBufferStore buffer, boolean isRequested,
+                              String requestedMimeType, String requestedSchema, String requestedEncoding ) {
+        super( outputType, isRequested );
+        LOG.debug( "Creating buffered sink for complex output" );
+        this.buffer = buffer;
+        os = buffer;
+        this.requestedMimeType = requestedMimeType;
+        this.requestedSchema = requestedSchema;
+        this.requestedEncoding = requestedEncoding;
+    }
+
     /**
      * Construct a complex output, values will be written to the stream and (probably) not stored.
      * 
@@ -194,6 +220,9 @@ public class ComplexOutputImpl extends ProcessletOutputImpl implements ComplexOu
             streamWriter.close();
             if ( location != null ) {
                 streamReader = inputFactory.createXMLStreamReader( new BufferedInputStream( location.getInputStream() ) );
+            } else if ( buffer != null ) {
+                buffer.close();
+                streamReader = inputFactory.createXMLStreamReader( buffer.getInputStream() );
             }
         } else {
             if ( location != null ) {
@@ -201,8 +230,30 @@ public class ComplexOutputImpl extends ProcessletOutputImpl implements ComplexOu
                 os.flush();
                 os.close();
                 is = new BufferedInputStream( location.getInputStream() );
+            } else if ( buffer != null ) {
+                buffer.close();
+                is = new BufferedInputStream( buffer.getInputStream() );
+            }
+        }
+    }
+
+    /**
+     * Releases the buffer of an output that is embedded in the response document, including the file it may have been
+     * switched to. Does nothing for outputs that are stored as web-accessible resources.
+     */
+    public void discard() {
+        if ( buffer == null ) {
+            return;
+        }
+        if ( streamReader != null ) {
+            try {
+                streamReader.close();
+            } catch ( XMLStreamException e ) {
+                LOG.debug( "Unable to close reader: " + e.getMessage() );
             }
         }
+        IOUtils.closeQuietly( is );
+        buffer.reset();
     }
 
     /**
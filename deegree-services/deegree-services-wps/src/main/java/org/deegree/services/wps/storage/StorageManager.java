@@ -74,6 +74,8 @@ public class StorageManager {
 
     private final int inputDiskSwitchLimit;
 
+    private final int outputDiskSwitchLimit;
+
     /**
      * Creates a new {@link StorageManager} instance.
      * 
@@ -83,6 +85,20 @@ public class StorageManager {
      *            number of bytes allowed for each embedded complex input in memory
      */
     public StorageManager( File baseDir, int inputDiskSwitchLimit ) {
+        this( baseDir, inputDiskSwitchLimit, inputDiskSwitchLimit );
+    }
+
+    /**
+     * Creates a new {@link StorageManager} instance.
+     * 
+     * @param baseDir
+     *            base directory where the resources are stored on the filesystem
+     * @param inputDiskSwitchLimit
+     *            number of bytes allowed for each embedded complex input in memory
+     * @param outputDiskSwitchLimit
+     *            number of bytes allowed for each complex output in memory (if it is embedded in the response)
+     */
+    public StorageManager( File baseDir, int inputDiskSwitchLimit, int outputDiskSwitchLimit ) {
         LOG.info( "Using directory '" + baseDir + "' for publishing complex outputs and response documents." );
         if ( !baseDir.exists() ) {
             LOG.error( "Configured WPS storage directory name '" + baseDir
@@ -94,6 +110,7 @@ public class StorageManager {
         }
         this.baseDir = baseDir;
         this.inputDiskSwitchLimit = inputDiskSwitchLimit;
+        this.outputDiskSwitchLimit = outputDiskSwitchLimit;
     }
 
     public synchronized OutputStorage newOutputStorage( String mimeType )
@@ -146,6 +163,23 @@ public class StorageManager {
         return new StreamBufferStore( inputDiskSwitchLimit, resourceFile );
     }
 
+    /**
+     * Allocates a sink for a complex output that is embedded in the response document (not published as a
+     * web-accessible resource). The output is kept in memory up to the configured limit.
+     * 
+     * @return a new sink, never <code>null</code>
+     */
+    public synchronized StreamBufferStore newOutputSink() {
+        LOG.debug( "Allocating new sink for temporarily storing complex output parameter." );
+        String resourceName = OUTPUT_PREFIX + generateOutputId();
+        File resourceFile = new File( baseDir, resourceName );
+        if ( resourceFile.exists() ) {
+            LOG.debug( "File '" + resourceFile + "' already exists. Deleting it." );
+            resourceFile.delete();
+        }
+        return new StreamBufferStore( outputDiskSwitchLimit, resourceFile );
+    }
+
     public ResponseDocumentStorage lookupResponseDocumentStorage( String responseId, String getUrl ) {
         File resourceFile = new File( baseDir, RESPONSE_PREFIX + responseId );
         return new ResponseDocumentStorage( resourceFile, responseId, getUrl );
@@ -0,0 +1,213 @@
+//$HeadURL: svn+ssh://mschneider@svn.wald.intevation.org/deegree/base/trunk/resources/eclipse/files_template.xml $
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wps;
+
+import static org.deegree.commons.ows.exception.OWSException.SERVER_BUSY;
+import static org.deegree.services.wps.ExecutionState.ACCEPTED;
+import static org.deegree.services.wps.ExecutionState.FAILED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.deegree.commons.ows.exception.OWSException;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ExecutionScheduler}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class ExecutionSchedulerTest {
+
+    private final CountDownLatch release = new CountDownLatch( 1 );
+
+    private ExecutionScheduler scheduler;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        if ( scheduler != null ) {
+            scheduler.shutdown();
+        }
+    }
+
+    private static ProcessExecution newState() {
+        return new ProcessExecution( null, null, null, null, null );
+    }
+
+    private Runnable blocking( final CountDownLatch started ) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch ( InterruptedException e ) {
+                    // aborted
+                }
+            }
+        };
+    }
+
+    private static Runnable recording( final List<String> order, final String id, final CountDownLatch done ) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                order.add( id );
+                done.countDown();
+            }
+        };
+    }
+
+    @Test
+    public void testQueueAndReject()
+                            throws Exception {
+        scheduler = new ExecutionScheduler( 1, 1, 1, -1, new HashMap<String, ExecutionScheduler.ProcessLimits>() );
+        CountDownLatch started = new CountDownLatch( 1 );
+        scheduler.submit( "p", newState(), blocking( started ) );
+        assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+
+        ProcessExecution queued = newState();
+        scheduler.submit( "p", queued, blocking( new CountDownLatch( 1 ) ) );
+        assertEquals( 1, scheduler.getRunning() );
+        assertEquals( 1, scheduler.getQueued() );
+        assertEquals( ACCEPTED, queued.getExecutionState() );
+        assertTrue( queued.getAcceptedMessage().contains( "queue position 1 of 1" ) );
+
+        try {
+            scheduler.submit( "p", newState(), blocking( new CountDownLatch( 1 ) ) );
+            fail( "Expected the execution to be rejected." );
+        } catch ( OWSException e ) {
+            assertEquals( SERVER_BUSY, e.getExceptionCode() );
+        }
+        assertEquals( 1, scheduler.getRejected() );
+        assertEquals( 2, scheduler.getSubmitted() );
+        assertEquals( 1, scheduler.getQueued() );
+    }
+
+    @Test
+    public void testPriority()
+                            throws Exception {
+        Map<String, ExecutionScheduler.ProcessLimits> limits = new HashMap<String, ExecutionScheduler.ProcessLimits>();
+        limits.put( "high", new ExecutionScheduler.ProcessLimits( -1, 10, -1 ) );
+        scheduler = new ExecutionScheduler( 1, 1, 10, -1, limits );
+        CountDownLatch started = new CountDownLatch( 1 );
+        scheduler.submit( "blocker", newState(), blocking( started ) );
+        assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+
+        List<String> order = Collections.synchronizedList( new ArrayList<String>() );
+        CountDownLatch done = new CountDownLatch( 3 );
+        scheduler.submit( "low", newState(), recording( order, "low1", done ) );
+        scheduler.submit( "low", newState(), recording( order, "low2", done ) );
+        scheduler.submit( "high", newState(), recording( order, "high", done ) );
+        release.countDown();
+
+        assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+        assertEquals( "high", order.get( 0 ) );
+        assertEquals( "low1", order.get( 1 ) );
+        assertEquals( "low2", order.get( 2 ) );
+    }
+
+    @Test
+    public void testStartImmediatelyWithoutQueue()
+                            throws Exception {
+        scheduler = new ExecutionScheduler( 1, 1, 0, -1, new HashMap<String, ExecutionScheduler.ProcessLimits>() );
+        final ProcessExecution state = newState();
+        final List<String> messages = Collections.synchronizedList( new ArrayList<String>() );
+        final CountDownLatch done = new CountDownLatch( 1 );
+        scheduler.submit( "p", state, new Runnable() {
+            @Override
+            public void run() {
+                messages.add( String.valueOf( state.getAcceptedMessage() ) );
+                done.countDown();
+            }
+        } );
+        assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+        assertEquals( "null", messages.get( 0 ) );
+        assertEquals( 1, scheduler.getSubmitted() );
+    }
+
+    @Test
+    public void testTimeout()
+                            throws Exception {
+        scheduler = new ExecutionScheduler( 1, 1, 1, 100, new HashMap<String, ExecutionScheduler.ProcessLimits>() );
+        ProcessExecution state = newState();
+        CountDownLatch started = new CountDownLatch( 1 );
+        scheduler.submit( "p", state, blocking( started ) );
+        assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+
+        long end = System.currentTimeMillis() + 10000;
+        while ( scheduler.getCompleted() == 0 && System.currentTimeMillis() < end ) {
+            Thread.sleep( 10 );
+        }
+        assertEquals( 1, scheduler.getCompleted() );
+        assertEquals( 1, scheduler.getTimedOut() );
+        assertEquals( FAILED, state.getExecutionState() );
+        assertNotNull( state.getFailedException() );
+    }
+
+    @Test
+    public void testShutdownFailsQueuedExecutions()
+                            throws Exception {
+        scheduler = new ExecutionScheduler( 1, 1, 5, -1, new HashMap<String, ExecutionScheduler.ProcessLimits>() );
+        CountDownLatch started = new CountDownLatch( 1 );
+        scheduler.submit( "p", newState(), blocking( started ) );
+        assertTrue( started.await( 10, TimeUnit.SECONDS ) );
+        ProcessExecution queued = newState();
+        scheduler.submit( "p", queued, blocking( new CountDownLatch( 1 ) ) );
+
+        scheduler.shutdown();
+
+        assertEquals( 0, scheduler.getQueued() );
+        assertEquals( FAILED, queued.getExecutionState() );
+        assertNotNull( queued.getFailedException() );
+        assertNull( scheduler.getQueueStatus( queued ) );
+    }
+
+}
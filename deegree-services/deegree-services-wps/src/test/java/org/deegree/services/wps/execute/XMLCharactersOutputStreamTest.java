@@ -0,0 +1,98 @@
+//$HeadURL: svn+ssh://mschneider@svn.wald.intevation.org/deegree/base/trunk/resources/eclipse/files_template.xml $
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wps.execute;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.OutputStream;
+import java.io.StringWriter;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64OutputStream;
+import org.junit.Test;
+
+/**
+ * Tests for {@link XMLCharactersOutputStream}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class XMLCharactersOutputStreamTest {
+
+    @Test
+    public void testBase64Encoding()
+                            throws Exception {
+        byte[] data = new byte[50000];
+        for ( int i = 0; i < data.length; i++ ) {
+            data[i] = (byte) ( i * 31 );
+        }
+        StringWriter sw = new StringWriter();
+        XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter( sw );
+        writer.writeStartElement( "Data" );
+        OutputStream os = new Base64OutputStream( new XMLCharactersOutputStream( writer ), true, 0, null );
+        // uneven chunks, to cross the internal buffer boundaries
+        for ( int off = 0; off < data.length; off += 777 ) {
+            os.write( data, off, Math.min( 777, data.length - off ) );
+        }
+        os.close();
+        writer.writeEndElement();
+        writer.close();
+
+        String xml = sw.toString();
+        assertEquals( "<Data>" + new String( Base64.encodeBase64( data ), "US-ASCII" ) + "</Data>", xml );
+    }
+
+    @Test
+    public void testSingleBytes()
+                            throws Exception {
+        StringWriter sw = new StringWriter();
+        XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter( sw );
+        writer.writeStartElement( "Data" );
+        OutputStream os = new XMLCharactersOutputStream( writer );
+        for ( byte b : "a<b".getBytes( "US-ASCII" ) ) {
+            os.write( b );
+        }
+        os.close();
+        writer.writeEndElement();
+        writer.close();
+        assertEquals( "<Data>a&lt;b</Data>", sw.toString() );
+    }
+
+}
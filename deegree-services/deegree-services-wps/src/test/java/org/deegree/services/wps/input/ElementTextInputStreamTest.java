@@ -0,0 +1,129 @@
+//$HeadURL: svn+ssh://mschneider@svn.wald.intevation.org/deegree/base/trunk/resources/eclipse/files_template.xml $
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wps.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64InputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ElementTextInputStream}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class ElementTextInputStreamTest {
+
+    private static InputStream open( String xml )
+                            throws Exception {
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader( new StringReader( xml ) );
+        reader.nextTag();
+        return new ElementTextInputStream( reader, null );
+    }
+
+    @Test
+    public void testText()
+                            throws Exception {
+        InputStream is = open( "<Data>abc<!-- comment -->def<![CDATA[ghi]]></Data>" );
+        assertEquals( "abcdefghi", IOUtils.toString( is, "US-ASCII" ) );
+        assertEquals( -1, is.read() );
+    }
+
+    @Test
+    public void testEmpty()
+                            throws Exception {
+        assertEquals( -1, open( "<Data/>" ).read() );
+    }
+
+    @Test
+    public void testBase64Decoding()
+                            throws Exception {
+        byte[] data = new byte[100000];
+        for ( int i = 0; i < data.length; i++ ) {
+            data[i] = (byte) i;
+        }
+        String base64 = new String( Base64.encodeBase64Chunked( data ), "US-ASCII" );
+        InputStream is = new Base64InputStream( open( "<Data>" + base64 + "</Data>" ) );
+        byte[] decoded = IOUtils.toByteArray( is );
+        assertEquals( data.length, decoded.length );
+        for ( int i = 0; i < data.length; i++ ) {
+            assertEquals( data[i], decoded[i] );
+        }
+    }
+
+    @Test
+    public void testNestedElement()
+                            throws Exception {
+        InputStream is = open( "<Data>abc<Nested/></Data>" );
+        try {
+            IOUtils.toByteArray( is );
+            fail( "Expected an IOException." );
+        } catch ( IOException e ) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCloseClosesSource()
+                            throws Exception {
+        final boolean[] closed = new boolean[1];
+        InputStream source = new ByteArrayInputStream( "<Data>abc</Data>".getBytes( "UTF-8" ) ) {
+            @Override
+            public void close()
+                                    throws IOException {
+                closed[0] = true;
+            }
+        };
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader( source );
+        reader.nextTag();
+        new ElementTextInputStream( reader, source ).close();
+        assertEquals( true, closed[0] );
+    }
+
+}
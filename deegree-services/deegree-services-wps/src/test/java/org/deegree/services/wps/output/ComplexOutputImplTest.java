@@ -0,0 +1,121 @@
+//$HeadURL: svn+ssh://mschneider@svn.wald.intevation.org/deegree/base/trunk/resources/eclipse/files_template.xml $
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.services.wps.output;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.OutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.deegree.commons.utils.io.StreamBufferStore;
+import org.deegree.process.jaxb.java.ComplexOutputDefinition;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link ComplexOutputImpl} with a {@link StreamBufferStore} sink.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class ComplexOutputImplTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] data( int size ) {
+        byte[] data = new byte[size];
+        for ( int i = 0; i < size; i++ ) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    @Test
+    public void testBufferedInMemory()
+                            throws Exception {
+        File spill = new File( folder.getRoot(), "out" );
+        ComplexOutputImpl output = new ComplexOutputImpl( new ComplexOutputDefinition(),
+                                                          new StreamBufferStore( 1024, spill ), true, null, null,
+                                                          null );
+        byte[] data = data( 100 );
+        OutputStream os = output.getBinaryOutputStream();
+        os.write( data );
+        output.close();
+
+        assertFalse( spill.exists() );
+        assertArrayEquals( data, IOUtils.toByteArray( output.getInputStream() ) );
+        output.discard();
+    }
+
+    @Test
+    public void testSpillFileIsDeleted()
+                            throws Exception {
+        File spill = new File( folder.getRoot(), "out" );
+        ComplexOutputImpl output = new ComplexOutputImpl( new ComplexOutputDefinition(),
+                                                          new StreamBufferStore( 1024, spill ), true, null, null,
+                                                          null );
+        byte[] data = data( 5000 );
+        OutputStream os = output.getBinaryOutputStream();
+        os.write( data );
+        output.close();
+
+        assertTrue( spill.exists() );
+        assertArrayEquals( data, IOUtils.toByteArray( output.getInputStream() ) );
+        output.discard();
+        assertFalse( spill.exists() );
+    }
+
+    @Test
+    public void testDiscardWithoutClose()
+                            throws Exception {
+        // e.g. the processlet failed while writing
+        File spill = new File( folder.getRoot(), "out" );
+        ComplexOutputImpl output = new ComplexOutputImpl( new ComplexOutputDefinition(),
+                                                          new StreamBufferStore( 1024, spill ), true, null, null,
+                                                          null );
+        output.getBinaryOutputStream().write( data( 5000 ) );
+        assertTrue( spill.exists() );
+        output.discard();
+        assertFalse( spill.exists() );
+    }
+
+}
@@ -38,6 +38,7 @@ import static javax.faces.application.FacesMessage.SEVERITY_ERROR;
 import static javax.faces.application.FacesMessage.SEVERITY_INFO;
 import static javax.faces.application.FacesMessage.SEVERITY_WARN;
 import static javax.faces.context.FacesContext.getCurrentInstance;
+import static org.deegree.workspace.ResourceStates.ResourceState.Initialized;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.io.ByteArrayInputStream;
@@ -248,7 +249,10 @@ public class XmlEditorBean implements Serializable {
             Class<?> cls = workspace.getModuleClassLoader().loadClass( resourceProviderClass );
             ResourceMetadata<?> md = workspace.getResourceMetadata( (Class) cls, id );
 
-            if ( md != null ) {
+            if ( md != null && workspace.getStates().getState( md.getIdentifier() ) == Initialized ) {
+                // running resource: swap in the new configuration without tearing down the dependents first
+                reload( workspace, md );
+            } else if ( md != null ) {
                 workspace.destroy( md.getIdentifier() );
 
                 md.getLocation().setContent( IOUtils.toInputStream( content ) );
@@ -290,6 +294,32 @@ public class XmlEditorBean implements Serializable {
         }
     }
 
+    /**
+     * Writes the new configuration of a running resource and reloads it. If the reload fails, the current resources
+     * stay active and the previous configuration file is restored, so the file keeps matching the running resource.
+     */
+    private void reload( Workspace workspace, ResourceMetadata<?> md )
+                            throws IOException {
+        ResourceLocation<?> location = md.getLocation();
+        byte[] previous;
+        InputStream in = location.getAsStream();
+        try {
+            previous = IOUtils.toByteArray( in );
+        } finally {
+            IOUtils.closeQuietly( in );
+        }
+        location.setContent( IOUtils.toInputStream( content ) );
+        workspace.getLocationHandler().persist( location );
+        try {
+            workspace.reload( md.getIdentifier() );
+        } catch ( RuntimeException e ) {
+            LOG.info( "Restoring previous configuration of {}.", md.getIdentifier() );
+            location.setContent( new ByteArrayInputStream( previous ) );
+            workspace.getLocationHandler().persist( location );
+            throw e;
+        }
+    }
+
     public boolean checkValidity() {
         try {
             InputStream xml = new ByteArrayInputStream( content.getBytes( "UTF-8" ) );
@@ -0,0 +1,177 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tools.coverage;
+
+import static org.deegree.commons.tools.CommandUtils.OPT_VERBOSE;
+import static org.deegree.commons.tools.CommandUtils.getIntOption;
+import static org.deegree.coverage.tools.RasterCommandUtils.getInterpolationType;
+import static org.deegree.coverage.tools.RasterOptionsParser.OPT_RASTER_OUT_LOC;
+import static org.deegree.coverage.tools.RasterOptionsParser.OPT_RASTER_OUT_LOC_ABBREV;
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+import org.deegree.commons.annotations.Tool;
+import org.deegree.commons.tools.CommandUtils;
+import org.deegree.coverage.AbstractCoverage;
+import org.deegree.coverage.raster.AbstractRaster;
+import org.deegree.coverage.raster.interpolation.InterpolationType;
+import org.deegree.coverage.raster.io.RasterIOOptions;
+import org.deegree.coverage.tools.RasterOptionsParser;
+import org.deegree.tools.coverage.overview.OverviewBuilder;
+
+/**
+ * This is the commandline interface for the {@link OverviewBuilder}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+@Tool("Builds power-of-two overview levels (grid/blob format) for a raster.")
+public class OverviewClient {
+
+    private static final String OPT_NUM_THREADS = "num_threads";
+
+    private static final String OPT_INTERPOLATION = "interpolation";
+
+    private static final String OPT_NUM_LEVELS = "num_levels";
+
+    private static final String OPT_TILE_SIZE = "tile_size";
+
+    private static final int DEFAULT_TILE_SIZE = 512;
+
+    /**
+     * @param args
+     */
+    public static void main( String[] args ) {
+        CommandLineParser parser = new PosixParser();
+
+        Options options = initOptions();
+
+        // for the moment, using the CLI API there is no way to respond to a help argument; see
+        // https://issues.apache.org/jira/browse/CLI-179
+        if ( args != null && args.length > 0 ) {
+            for ( String a : args ) {
+                if ( a != null && a.toLowerCase().contains( "help" ) || "-?".equals( a ) ) {
+                    printHelp( options );
+                }
+            }
+        }
+        boolean verbose = false;
+        try {
+            CommandLine line = parser.parse( options, args );
+            verbose = line.hasOption( OPT_VERBOSE );
+
+            RasterIOOptions rasterOptions = RasterOptionsParser.parseRasterIOOptions( line );
+            AbstractCoverage source = RasterOptionsParser.loadCoverage( line, rasterOptions );
+            if ( !( source instanceof AbstractRaster ) ) {
+                throw new IllegalArgumentException(
+                                                    "Given raster location already contains a multiresolution raster." );
+            }
+
+            File outDir = new File( line.getOptionValue( OPT_RASTER_OUT_LOC ) );
+            InterpolationType interpolationType = getInterpolationType( line.getOptionValue( OPT_INTERPOLATION ) );
+            int tileSize = getIntOption( line, OPT_TILE_SIZE, DEFAULT_TILE_SIZE );
+
+            OverviewBuilder builder = new OverviewBuilder( outDir, tileSize, interpolationType );
+            builder.setNumThreads( getIntOption( line, OPT_NUM_THREADS, 1 ) );
+            List<File> levels = builder.buildOverviews( (AbstractRaster) source,
+                                                        getIntOption( line, OPT_NUM_LEVELS, -1 ) );
+            System.out.println( "Created " + levels.size() + " overview level(s) in " + outDir
+                                + ", configure it as OverviewDirectory of the raster coverage." );
+        } catch ( ParseException exp ) {
+            System.err.println( "ERROR: Invalid command line: " + exp.getMessage() );
+            printHelp( options );
+        } catch ( Throwable e ) {
+            System.err.println( "An Exception occurred while building the overviews, error message: "
+                                + e.getMessage() );
+            if ( verbose ) {
+                e.printStackTrace();
+            }
+            System.exit( 1 );
+        }
+
+        System.exit( 0 );
+    }
+
+    private static Options initOptions() {
+        Options options = new Options();
+
+        Option option = new Option( OPT_RASTER_OUT_LOC_ABBREV, OPT_RASTER_OUT_LOC, true,
+                                    "the output directory for the overview levels" );
+        option.setRequired( true );
+        option.setArgs( 1 );
+        option.setArgName( "dir" );
+        options.addOption( option );
+
+        option = new Option( OPT_TILE_SIZE, "the max tile size in pixel of the grid files (defaults to "
+                                            + DEFAULT_TILE_SIZE + ")" );
+        option.setArgs( 1 );
+        option.setArgName( "size" );
+        options.addOption( option );
+
+        option = new Option( OPT_NUM_LEVELS,
+                             "the number of overview levels. when omitted, generate levels until a level fits into one tile." );
+        option.setArgs( 1 );
+        option.setArgName( "levels" );
+        options.addOption( option );
+
+        option = new Option( OPT_INTERPOLATION, "the raster interpolation (nn: nearest neighbour, bl: bilinear" );
+        option.setArgs( 1 );
+        option.setArgName( "nn|bl" );
+        options.addOption( option );
+
+        option = new Option( OPT_NUM_THREADS, "the number of threads used." );
+        option.setArgs( 1 );
+        option.setArgName( "threads" );
+        options.addOption( option );
+
+        CommandUtils.addDefaultOptions( options );
+        RasterOptionsParser.addRasterIOLineOptions( options );
+
+        return options;
+    }
+
+    private static void printHelp( Options options ) {
+        CommandUtils.printHelp( options, OverviewClient.class.getSimpleName(), null, null );
+    }
+}
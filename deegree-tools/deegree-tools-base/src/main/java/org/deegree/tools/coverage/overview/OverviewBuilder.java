@@ -0,0 +1,269 @@
+//$HeadURL$
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2009 by:
+ Department of Geography, University of Bonn
+ and
+ lat/lon GmbH
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tools.coverage.overview;
+
+import static org.deegree.coverage.raster.container.GriddedBlobTileContainer.BLOB_FILE_EXT;
+import static org.deegree.coverage.raster.container.GriddedBlobTileContainer.BLOB_FILE_NAME;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.deegree.coverage.raster.AbstractRaster;
+import org.deegree.coverage.raster.TiledRaster;
+import org.deegree.coverage.raster.container.GriddedBlobTileContainer;
+import org.deegree.coverage.raster.data.info.RasterDataInfo;
+import org.deegree.coverage.raster.geom.RasterGeoReference;
+import org.deegree.coverage.raster.geom.RasterGeoReference.OriginLocation;
+import org.deegree.coverage.raster.geom.RasterRect;
+import org.deegree.coverage.raster.interpolation.InterpolationType;
+import org.deegree.coverage.raster.interpolation.RasterInterpolater;
+import org.deegree.coverage.raster.io.RasterIOOptions;
+import org.deegree.coverage.raster.io.grid.GridWriter;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.geometry.Envelope;
+import org.slf4j.Logger;
+
+/**
+ * Builds power-of-two overview levels for a (large) raster. Every level is written in the deegree grid/blob format
+ * into a sub directory of the output directory, named by the resolution of the level. Such a directory can be
+ * configured as <code>OverviewDirectory</code> of a raster coverage, or be loaded as a multi resolution raster.
+ * <p>
+ * Every level is calculated from the previously written level, so the full resolution data is read exactly once.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class OverviewBuilder {
+
+    private static final Logger LOG = getLogger( OverviewBuilder.class );
+
+    private final File dstDir;
+
+    private final int tileSize;
+
+    private final InterpolationType interpolation;
+
+    private int numThreads = 1;
+
+    /**
+     * @param dstDir
+     *            the output directory, the levels will be written in sub directories named by their resolution.
+     * @param tileSize
+     *            the maximum width and height of a tile in the grid files.
+     * @param interpolation
+     *            used for down sampling.
+     */
+    public OverviewBuilder( File dstDir, int tileSize, InterpolationType interpolation ) {
+        this.dstDir = dstDir;
+        this.tileSize = tileSize;
+        this.interpolation = interpolation;
+    }
+
+    /**
+     * @param numThreads
+     *            number of threads used to calculate the tiles of a level.
+     */
+    public void setNumThreads( int numThreads ) {
+        this.numThreads = Math.max( 1, numThreads );
+    }
+
+    /**
+     * Create the overview levels of the given raster, level <code>n</code> has a resolution of
+     * <code>2<sup>n</sup></code> times the resolution of the source raster.
+     * 
+     * @param srcRaster
+     *            the full resolution raster
+     * @param numOfLevels
+     *            number of levels to create, if &lt;= 0 levels will be created until a level fits into a single tile.
+     * @return the directories of the created levels.
+     * @throws IOException
+     */
+    public List<File> buildOverviews( AbstractRaster srcRaster, int numOfLevels )
+                            throws IOException {
+        ICRS crs = srcRaster.getCoordinateSystem();
+        RasterGeoReference srcRef = srcRaster.getRasterReference().createRelocatedReference( OriginLocation.OUTER );
+        RasterDataInfo dataInfo = srcRaster.getRasterDataInfo();
+        RasterIOOptions options = new RasterIOOptions();
+        if ( crs != null ) {
+            options.add( RasterIOOptions.CRS, crs.getAlias() );
+        }
+
+        List<File> result = new ArrayList<File>();
+        AbstractRaster previous = srcRaster;
+        int width = srcRaster.getColumns();
+        int height = srcRaster.getRows();
+        int level = 1;
+        while ( hasNextLevel( level, numOfLevels, width, height, tileSize ) ) {
+            long factor = 1L << level;
+            width = levelSize( srcRaster.getColumns(), level );
+            height = levelSize( srcRaster.getRows(), level );
+            double[] origin = srcRef.getOrigin();
+            RasterGeoReference levelRef = new RasterGeoReference( OriginLocation.OUTER, srcRef.getResolutionX()
+                                                                                        * factor,
+                                                                  srcRef.getResolutionY() * factor, origin[0],
+                                                                  origin[1], crs );
+            File levelDir = levelDir( Math.abs( levelRef.getResolutionX() ) );
+            LOG.info( "Generating overview level {} ({}x{}) in {}", new Object[] { level, width, height, levelDir } );
+            createLevel( previous, levelRef, width, height, dataInfo, levelDir );
+            result.add( levelDir );
+            previous = new TiledRaster( GriddedBlobTileContainer.create( levelDir, options ), null );
+            previous.setCoordinateSystem( crs );
+            level++;
+        }
+        return result;
+    }
+
+    private void createLevel( final AbstractRaster srcRaster, final RasterGeoReference levelRef, int width, int height,
+                              RasterDataInfo dataInfo, File levelDir )
+                            throws IOException {
+        int columns = (int) Math.ceil( width / (double) tileSize );
+        int rows = (int) Math.ceil( height / (double) tileSize );
+        ICRS crs = levelRef.getCrs();
+        Envelope levelEnv = levelRef.getEnvelope( width, height, crs );
+
+        File blobFile = new File( levelDir, BLOB_FILE_NAME + 0 + BLOB_FILE_EXT );
+        final GridWriter writer = new GridWriter( columns, rows, levelEnv, levelRef, blobFile, dataInfo );
+        final int tileWidth = writer.getTileRasterWidth();
+        final int tileHeight = writer.getTileRasterHeight();
+        allocate( blobFile, (long) columns * rows * tileWidth * tileHeight * dataInfo.bands * dataInfo.dataSize );
+
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        ExecutorService executor = Executors.newFixedThreadPool( numThreads );
+        for ( int row = 0; row < rows; row++ ) {
+            for ( int column = 0; column < columns; column++ ) {
+                final RasterRect rect = new RasterRect( column * tileWidth, row * tileHeight, tileWidth, tileHeight );
+                executor.execute( new Runnable() {
+                    @Override
+                    public void run() {
+                        if ( failure.get() != null ) {
+                            return;
+                        }
+                        try {
+                            Envelope tileEnv = levelRef.getEnvelope( rect, levelRef.getCrs() );
+                            RasterInterpolater interpolater = new RasterInterpolater( interpolation );
+                            AbstractRaster tile = interpolater.interPolate( srcRaster.getSubRaster( tileEnv ),
+                                                                           tileWidth, tileHeight );
+                            writer.write( tile, null );
+                        } catch ( Exception e ) {
+                            failure.compareAndSet( null, e );
+                        }
+                    }
+                } );
+            }
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination( 42, TimeUnit.DAYS );
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while creating the overview in " + levelDir );
+        }
+        if ( failure.get() != null ) {
+            throw new IOException( "Could not create the overview in " + levelDir + ": "
+                                   + failure.get().getLocalizedMessage(), failure.get() );
+        }
+        RasterIOOptions metaOptions = new RasterIOOptions();
+        writer.writeMetadataFile( metaOptions );
+    }
+
+    /**
+     * @param srcSize
+     *            number of columns or rows of the full resolution raster
+     * @param level
+     *            the overview level, starting with 1
+     * @return the number of columns or rows of the level, at least 1
+     */
+    static int levelSize( int srcSize, int level ) {
+        return (int) Math.max( 1, Math.ceil( srcSize / (double) ( 1L << level ) ) );
+    }
+
+    /**
+     * @param level
+     *            the next level to create, starting with 1
+     * @param numOfLevels
+     *            number of levels to create, if &lt;= 0 levels will be created until a level fits into a single tile
+     * @param width
+     *            number of columns of the previous level
+     * @param height
+     *            number of rows of the previous level
+     * @param tileSize
+     *            maximum width and height of a tile
+     * @return <code>true</code>, if the level has to be created
+     */
+    static boolean hasNextLevel( int level, int numOfLevels, int width, int height, int tileSize ) {
+        if ( numOfLevels > 0 ) {
+            return level <= numOfLevels;
+        }
+        return width > tileSize || height > tileSize;
+    }
+
+    File levelDir( double resolution )
+                            throws IOException {
+        File levelDir = new File( dstDir, Double.toString( resolution ) );
+        if ( !levelDir.isDirectory() && !levelDir.mkdirs() ) {
+            throw new IOException( "Could not create the overview directory " + levelDir );
+        }
+        File[] old = levelDir.listFiles();
+        if ( old != null ) {
+            for ( File f : old ) {
+                if ( f.isFile() && !f.delete() ) {
+                    throw new IOException( "Could not remove the old overview file " + f );
+                }
+            }
+        }
+        return levelDir;
+    }
+
+    private static void allocate( File blobFile, long size )
+                            throws IOException {
+        RandomAccessFile raf = new RandomAccessFile( blobFile, "rw" );
+        try {
+            raf.setLength( size );
+        } finally {
+            raf.close();
+        }
+    }
+}
@@ -54,6 +54,7 @@ import org.deegree.commons.tools.CommandUtils;
 import org.deegree.commons.xml.XMLParsingException;
 import org.deegree.cs.exceptions.UnknownCRSException;
 import org.deegree.feature.FeatureCollection;
+import org.deegree.feature.persistence.BulkLoadTransaction;
 import org.deegree.feature.persistence.FeatureStore;
 import org.deegree.feature.persistence.FeatureStoreException;
 import org.deegree.feature.persistence.FeatureStoreProvider;
@@ -90,11 +91,16 @@ public class FeatureStoreLoader {
 
     private static final String OPT_IDGEN_MODE = "idgen";
 
+    private static final String OPT_BULK = "bulk";
+
+    private static final String OPT_DEFER_INDEXES = "deferindexes";
+
     private enum Action {
         insert, stats
     }
 
-    private static void insert( FeatureStore fs, String datasetFile, GMLVersion gmlVersion, IDGenMode mode )
+    private static void insert( FeatureStore fs, String datasetFile, GMLVersion gmlVersion, IDGenMode mode,
+                                boolean bulk, boolean deferIndexes )
                             throws XMLStreamException, FactoryConfigurationError, IOException, XMLParsingException,
                             UnknownCRSException, FeatureStoreException {
 
@@ -109,6 +115,14 @@ public class FeatureStoreLoader {
         FeatureStoreTransaction ta = null;
         try {
             ta = fs.acquireTransaction();
+            if ( bulk ) {
+                boolean supported = ta instanceof BulkLoadTransaction;
+                if ( supported && ( (BulkLoadTransaction) ta ).enableBulkLoad( deferIndexes ) ) {
+                    System.out.println( "- Using bulk load mode." );
+                } else {
+                    System.out.println( "- Bulk load mode is not supported by the feature store. Inserting as usual." );
+                }
+            }
             System.out.print( "- Inserting features..." );
             List<String> fids = ta.performInsert( fc, mode );
             System.out.println( "done." );
@@ -191,7 +205,8 @@ public class FeatureStoreLoader {
 
             switch ( action ) {
             case insert:
-                insert( fs, inputFileName, format, idGenMode );
+                insert( fs, inputFileName, format, idGenMode, cmdline.hasOption( OPT_BULK ),
+                        cmdline.hasOption( OPT_DEFER_INDEXES ) );
                 break;
             case stats:
                 System.out.println( "TODO: Stats..." );
@@ -245,6 +260,13 @@ public class FeatureStoreLoader {
         opt.setRequired( true );
         opts.addOption( opt );
 
+        opt = new Option( OPT_BULK, false, "use bulk load mode (PostgreSQL COPY), if supported by the feature store" );
+        opts.addOption( opt );
+
+        opt = new Option( OPT_DEFER_INDEXES, false,
+                          "bulk load mode: drop indexes during load and recreate them (if allowed by the feature store)" );
+        opts.addOption( opt );
+
         CommandUtils.addDefaultOptions( opts );
         return opts;
     }
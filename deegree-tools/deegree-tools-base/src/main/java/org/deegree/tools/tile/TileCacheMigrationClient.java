@@ -0,0 +1,175 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tools.tile;
+
+import static org.deegree.commons.tools.CommandUtils.OPT_VERBOSE;
+
+import java.io.File;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+import org.deegree.commons.annotations.Tool;
+import org.deegree.commons.tools.CommandUtils;
+import org.deegree.tile.TileDataSet;
+import org.deegree.tile.persistence.TileStore;
+import org.deegree.tile.persistence.TileStoreProvider;
+import org.deegree.tile.persistence.bundle.BundleTileStore;
+import org.deegree.workspace.Workspace;
+import org.deegree.workspace.standard.DefaultWorkspace;
+
+/**
+ * This is the commandline interface for the {@link TileCacheMigrator}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+@Tool("Copies the tiles of a file system tile store (TileCache layout) into a bundle tile store.")
+public class TileCacheMigrationClient {
+
+    private static final String OPT_WORKSPACE = "workspace";
+
+    private static final String OPT_TILE_STORE = "tilestore";
+
+    private static final String OPT_TILE_DATA_SET = "tiledataset";
+
+    private static final String OPT_TILE_CACHE_DIR = "tilecache";
+
+    /**
+     * @param args
+     */
+    public static void main( String[] args ) {
+        CommandLineParser parser = new PosixParser();
+
+        Options options = initOptions();
+
+        // for the moment, using the CLI API there is no way to respond to a help argument; see
+        // https://issues.apache.org/jira/browse/CLI-179
+        if ( args != null && args.length > 0 ) {
+            for ( String a : args ) {
+                if ( a != null && a.toLowerCase().contains( "help" ) || "-?".equals( a ) ) {
+                    printHelp( options );
+                }
+            }
+        }
+        boolean verbose = false;
+        Workspace workspace = null;
+        try {
+            CommandLine line = parser.parse( options, args );
+            verbose = line.hasOption( OPT_VERBOSE );
+
+            workspace = new DefaultWorkspace( new File( line.getOptionValue( OPT_WORKSPACE ) ) );
+            workspace.initAll();
+
+            String tileStoreId = line.getOptionValue( OPT_TILE_STORE );
+            TileStore tileStore = workspace.getResource( TileStoreProvider.class, tileStoreId );
+            if ( !( tileStore instanceof BundleTileStore ) ) {
+                throw new IllegalArgumentException( "The workspace does not contain a bundle tile store with id "
+                                                    + tileStoreId + "." );
+            }
+            String tileDataSetId = line.getOptionValue( OPT_TILE_DATA_SET, tileStoreId );
+            TileDataSet dataSet = tileStore.getTileDataSet( tileDataSetId );
+            if ( dataSet == null ) {
+                throw new IllegalArgumentException( "The tile store " + tileStoreId
+                                                    + " does not contain a tile data set with id " + tileDataSetId
+                                                    + "." );
+            }
+
+            String format = dataSet.getNativeImageFormat();
+            String fileType = format.substring( format.indexOf( '/' ) + 1 );
+            File tileCacheDir = new File( line.getOptionValue( OPT_TILE_CACHE_DIR ) );
+            TileCacheMigrator migrator = new TileCacheMigrator( tileCacheDir, fileType );
+            long start = System.currentTimeMillis();
+            long numTiles = migrator.migrate( dataSet,
+                                              ( (BundleTileStore) tileStore ).acquireTransaction( tileDataSetId ) );
+            System.out.println( "Copied " + numTiles + " tiles from " + tileCacheDir + " in "
+                                + ( System.currentTimeMillis() - start ) / 1000 + "s." );
+        } catch ( ParseException exp ) {
+            System.err.println( "ERROR: Invalid command line: " + exp.getMessage() );
+            printHelp( options );
+        } catch ( Throwable e ) {
+            System.err.println( "An Exception occurred while copying the tiles, error message: " + e.getMessage() );
+            if ( verbose ) {
+                e.printStackTrace();
+            }
+            System.exit( 1 );
+        } finally {
+            if ( workspace != null ) {
+                // closes the bundle files
+                workspace.destroy();
+            }
+        }
+
+        System.exit( 0 );
+    }
+
+    private static Options initOptions() {
+        Options options = new Options();
+
+        Option option = new Option( "w", OPT_WORKSPACE, true, "the deegree workspace directory" );
+        option.setRequired( true );
+        option.setArgName( "dir" );
+        options.addOption( option );
+
+        option = new Option( "s", OPT_TILE_STORE, true, "the id of the bundle tile store to copy the tiles into" );
+        option.setRequired( true );
+        option.setArgName( "id" );
+        options.addOption( option );
+
+        option = new Option( OPT_TILE_DATA_SET, true,
+                             "the id of the tile data set to copy the tiles into (defaults to the tile store id)" );
+        option.setArgName( "id" );
+        options.addOption( option );
+
+        option = new Option( "c", OPT_TILE_CACHE_DIR, true,
+                             "the layer directory of the TileCache hierarchy (e.g. the LayerDirectory of a file "
+                                                     + "system tile store)" );
+        option.setRequired( true );
+        option.setArgName( "dir" );
+        options.addOption( option );
+
+        CommandUtils.addDefaultOptions( options );
+
+        return options;
+    }
+
+    private static void printHelp( Options options ) {
+        CommandUtils.printHelp( options, TileCacheMigrationClient.class.getSimpleName(), null, null );
+    }
+}
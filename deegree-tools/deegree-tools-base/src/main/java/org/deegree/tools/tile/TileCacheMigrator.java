@@ -0,0 +1,194 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tools.tile;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.deegree.tile.TileDataLevel;
+import org.deegree.tile.TileDataSet;
+import org.deegree.tile.TileMatrix;
+import org.deegree.tile.persistence.bundle.BundleTileStoreTransaction;
+import org.slf4j.Logger;
+
+/**
+ * Copies the tiles of a <a href="http://tilecache.org/">TileCache</a> directory hierarchy (as used by the file system
+ * tile store) into a bundle tile store.
+ * <p>
+ * The tile files are copied as they are, so the file type of the tile cache must match the file type of the bundle
+ * tile store. Tiles of tile matrices that are not part of the target tile data set are skipped. The source directory is
+ * not modified.
+ * </p>
+ * 
+ * @see org.deegree.tile.persistence.bundle.BundleTileStore
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class TileCacheMigrator {
+
+    private static final Logger LOG = getLogger( TileCacheMigrator.class );
+
+    private static final Pattern THREE_DIGITS = Pattern.compile( "\\d{3}" );
+
+    private static final Pattern TWO_DIGITS = Pattern.compile( "\\d{2}" );
+
+    private final File layerDir;
+
+    private final String fileType;
+
+    private long numTiles;
+
+    private long lastReport;
+
+    /**
+     * @param layerDir
+     *            the layer directory of the tile cache, must not be <code>null</code>
+     * @param fileType
+     *            suffix of the tile files (without '.'), must not be <code>null</code>
+     */
+    public TileCacheMigrator( File layerDir, String fileType ) {
+        this.layerDir = layerDir;
+        this.fileType = fileType;
+    }
+
+    /**
+     * Copies all tiles of the tile cache into the given tile data set.
+     * 
+     * @param dataSet
+     *            the target tile data set, must not be <code>null</code>
+     * @param ta
+     *            transaction of the target tile data set, must not be <code>null</code>
+     * @return the number of copied tiles
+     * @throws IOException
+     *             if reading a tile file failed
+     */
+    public long migrate( TileDataSet dataSet, BundleTileStoreTransaction ta )
+                            throws IOException {
+        if ( !layerDir.isDirectory() ) {
+            throw new IOException( "Tile cache directory " + layerDir + " does not exist." );
+        }
+        numTiles = 0;
+        lastReport = System.currentTimeMillis();
+        // the level directories use the index in the (sorted) list of tile data levels, see TileCacheDiskLayout
+        List<TileDataLevel> levels = dataSet.getTileDataLevels();
+        for ( File levelDir : list( layerDir, TWO_DIGITS, true ) ) {
+            int index = Integer.parseInt( levelDir.getName() );
+            if ( index >= levels.size() ) {
+                LOG.warn( "Skipping {}, the tile data set has only {} tile matrices.", levelDir, levels.size() );
+                continue;
+            }
+            TileMatrix matrix = levels.get( index ).getMetadata();
+            LOG.info( "Copying tiles of tile matrix {} from {}.", matrix.getIdentifier(), levelDir );
+            migrateLevel( levelDir, matrix, ta );
+            ta.commit();
+        }
+        return numTiles;
+    }
+
+    private void migrateLevel( File levelDir, TileMatrix matrix, BundleTileStoreTransaction ta )
+                            throws IOException {
+        for ( File x1 : list( levelDir, THREE_DIGITS, true ) ) {
+            for ( File x2 : list( x1, THREE_DIGITS, true ) ) {
+                for ( File x3 : list( x2, THREE_DIGITS, true ) ) {
+                    long x = parse( x1, x2, x3.getName() );
+                    for ( File y1 : list( x3, THREE_DIGITS, true ) ) {
+                        for ( File y2 : list( y1, THREE_DIGITS, true ) ) {
+                            for ( File tile : list( y2, null, false ) ) {
+                                String name = tile.getName();
+                                if ( !name.endsWith( "." + fileType ) ) {
+                                    continue;
+                                }
+                                String y3 = name.substring( 0, name.length() - fileType.length() - 1 );
+                                if ( !THREE_DIGITS.matcher( y3 ).matches() ) {
+                                    continue;
+                                }
+                                // TileCache's y-axis is inverted
+                                long y = matrix.getNumTilesY() - 1 - parse( y1, y2, y3 );
+                                copy( tile, matrix, x, y, ta );
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void copy( File tile, TileMatrix matrix, long x, long y, BundleTileStoreTransaction ta )
+                            throws IOException {
+        if ( x >= matrix.getNumTilesX() || y < 0 ) {
+            LOG.warn( "Skipping {}, it is outside of tile matrix {}.", tile, matrix.getIdentifier() );
+            return;
+        }
+        ta.putEncoded( matrix.getIdentifier(), FileUtils.readFileToByteArray( tile ), x, y );
+        ++numTiles;
+        long now = System.currentTimeMillis();
+        if ( now - lastReport > 10000 ) {
+            LOG.info( "Copied {} tiles.", numTiles );
+            lastReport = now;
+        }
+    }
+
+    private static long parse( File part1, File part2, String part3 ) {
+        return Long.parseLong( part1.getName() ) * 1000000 + Long.parseLong( part2.getName() ) * 1000
+               + Long.parseLong( part3 );
+    }
+
+    private static File[] list( File dir, final Pattern pattern, final boolean directories ) {
+        File[] files = dir.listFiles( new FileFilter() {
+            @Override
+            public boolean accept( File file ) {
+                if ( directories != file.isDirectory() ) {
+                    return false;
+                }
+                return pattern == null || pattern.matcher( file.getName() ).matches();
+            }
+        } );
+        if ( files == null ) {
+            return new File[0];
+        }
+        Arrays.sort( files );
+        return files;
+    }
+
+}
@@ -0,0 +1,311 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tools.tile;
+
+import static org.deegree.commons.tools.CommandUtils.OPT_VERBOSE;
+import static org.deegree.commons.tools.CommandUtils.getIntOption;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
+import org.deegree.commons.annotations.Tool;
+import org.deegree.commons.tools.CommandUtils;
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.io.WKTReader;
+import org.deegree.theme.Theme;
+import org.deegree.theme.persistence.ThemeProvider;
+import org.deegree.tile.TileDataLevel;
+import org.deegree.tile.TileDataSet;
+import org.deegree.tile.persistence.TileStore;
+import org.deegree.tile.persistence.TileStoreProvider;
+import org.deegree.tools.tile.seed.SeedProgress;
+import org.deegree.tools.tile.seed.SeedProgressListener;
+import org.deegree.tools.tile.seed.TileSeeder;
+import org.deegree.workspace.Workspace;
+import org.deegree.workspace.standard.DefaultWorkspace;
+
+/**
+ * This is the commandline interface for the {@link TileSeeder}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+@Tool("Pre-renders the tiles of a tile store from a theme of a deegree workspace.")
+public class TileSeederClient {
+
+    private static final String OPT_WORKSPACE = "workspace";
+
+    private static final String OPT_THEME = "theme";
+
+    private static final String OPT_TILE_STORE = "tilestore";
+
+    private static final String OPT_TILE_DATA_SET = "tiledataset";
+
+    private static final String OPT_BBOX = "bbox";
+
+    private static final String OPT_WKT = "wkt";
+
+    private static final String OPT_MIN_LEVEL = "min_level";
+
+    private static final String OPT_MAX_LEVEL = "max_level";
+
+    private static final String OPT_NUM_THREADS = "num_threads";
+
+    private static final String OPT_META_TILE_SIZE = "metatile_size";
+
+    private static final String OPT_BUFFER = "buffer";
+
+    private static final String OPT_PROGRESS_FILE = "progress_file";
+
+    private static final int DEFAULT_META_TILE_SIZE = 4;
+
+    /**
+     * @param args
+     */
+    public static void main( String[] args ) {
+        CommandLineParser parser = new PosixParser();
+
+        Options options = initOptions();
+
+        // for the moment, using the CLI API there is no way to respond to a help argument; see
+        // https://issues.apache.org/jira/browse/CLI-179
+        if ( args != null && args.length > 0 ) {
+            for ( String a : args ) {
+                if ( a != null && a.toLowerCase().contains( "help" ) || "-?".equals( a ) ) {
+                    printHelp( options );
+                }
+            }
+        }
+        boolean verbose = false;
+        Workspace workspace = null;
+        try {
+            CommandLine line = parser.parse( options, args );
+            verbose = line.hasOption( OPT_VERBOSE );
+
+            workspace = new DefaultWorkspace( new File( line.getOptionValue( OPT_WORKSPACE ) ) );
+            workspace.initAll();
+
+            String themeId = line.getOptionValue( OPT_THEME );
+            Theme theme = workspace.getResource( ThemeProvider.class, themeId );
+            if ( theme == null ) {
+                throw new IllegalArgumentException( "The workspace does not contain a theme with id " + themeId + "." );
+            }
+            String tileStoreId = line.getOptionValue( OPT_TILE_STORE );
+            TileStore tileStore = workspace.getResource( TileStoreProvider.class, tileStoreId );
+            if ( tileStore == null ) {
+                throw new IllegalArgumentException( "The workspace does not contain a tile store with id "
+                                                    + tileStoreId + "." );
+            }
+            String tileDataSetId = line.getOptionValue( OPT_TILE_DATA_SET, tileStoreId );
+            TileDataSet dataSet = tileStore.getTileDataSet( tileDataSetId );
+            if ( dataSet == null ) {
+                throw new IllegalArgumentException( "The tile store " + tileStoreId
+                                                    + " does not contain a tile data set with id " + tileDataSetId
+                                                    + "." );
+            }
+
+            Geometry area = parseArea( line, dataSet );
+            List<String> levels = parseLevels( line, dataSet );
+
+            TileSeeder seeder = new TileSeeder( theme, tileStore, tileDataSetId );
+            seeder.setNumThreads( getIntOption( line, OPT_NUM_THREADS, 1 ) );
+            seeder.setMetaTileSize( getIntOption( line, OPT_META_TILE_SIZE, DEFAULT_META_TILE_SIZE ) );
+            seeder.setBuffer( getIntOption( line, OPT_BUFFER, 0 ) );
+            if ( line.hasOption( OPT_PROGRESS_FILE ) ) {
+                seeder.setProgressFile( new File( line.getOptionValue( OPT_PROGRESS_FILE ) ) );
+            }
+            seeder.setProgressListener( new SeedProgressListener() {
+                @Override
+                public void progress( SeedProgress progress ) {
+                    System.out.println( progress );
+                }
+            }, 10000 );
+
+            System.out.println( "Seeding tile matrices " + levels + " of tile data set " + tileDataSetId + "." );
+            SeedProgress result = seeder.seed( area, levels );
+            System.out.println( "Wrote " + result.getWrittenTiles() + " tiles in " + result.getElapsedMillis() / 1000
+                                + "s (" + String.format( "%.1f", result.getTilesPerSecond() ) + " tiles/s)." );
+        } catch ( ParseException exp ) {
+            System.err.println( "ERROR: Invalid command line: " + exp.getMessage() );
+            printHelp( options );
+        } catch ( Throwable e ) {
+            System.err.println( "An Exception occurred while seeding the tile store, error message: "
+                                + e.getMessage() );
+            if ( verbose ) {
+                e.printStackTrace();
+            }
+            System.exit( 1 );
+        } finally {
+            if ( workspace != null ) {
+                workspace.destroy();
+            }
+        }
+
+        System.exit( 0 );
+    }
+
+    private static Geometry parseArea( CommandLine line, TileDataSet dataSet )
+                            throws Exception {
+        Envelope env = dataSet.getTileMatrixSet().getSpatialMetadata().getEnvelope();
+        ICRS crs = env.getCoordinateSystem();
+        if ( line.hasOption( OPT_WKT ) ) {
+            return new WKTReader( crs ).read( line.getOptionValue( OPT_WKT ) );
+        }
+        if ( line.hasOption( OPT_BBOX ) ) {
+            String[] coords = line.getOptionValue( OPT_BBOX ).split( "," );
+            if ( coords.length != 4 ) {
+                throw new IllegalArgumentException( "The bbox must be given as minx,miny,maxx,maxy." );
+            }
+            double[] vals = new double[4];
+            for ( int i = 0; i < 4; i++ ) {
+                vals[i] = Double.parseDouble( coords[i].trim() );
+            }
+            return new GeometryFactory().createEnvelope( vals[0], vals[1], vals[2], vals[3], crs );
+        }
+        return env;
+    }
+
+    private static List<String> parseLevels( CommandLine line, TileDataSet dataSet ) {
+        List<TileDataLevel> levels = dataSet.getTileDataLevels();
+        int min = findLevel( levels, line.getOptionValue( OPT_MIN_LEVEL ), 0 );
+        int max = findLevel( levels, line.getOptionValue( OPT_MAX_LEVEL ), levels.size() - 1 );
+        List<String> ids = new ArrayList<String>();
+        for ( int i = min; i <= max; i++ ) {
+            ids.add( levels.get( i ).getMetadata().getIdentifier() );
+        }
+        return ids;
+    }
+
+    private static int findLevel( List<TileDataLevel> levels, String level, int defaultValue ) {
+        if ( level == null ) {
+            return defaultValue;
+        }
+        for ( int i = 0; i < levels.size(); i++ ) {
+            if ( levels.get( i ).getMetadata().getIdentifier().equals( level ) ) {
+                return i;
+            }
+        }
+        try {
+            int idx = Integer.parseInt( level );
+            if ( idx >= 0 && idx < levels.size() ) {
+                return idx;
+            }
+        } catch ( NumberFormatException e ) {
+            // not an index
+        }
+        throw new IllegalArgumentException( "The tile data set does not contain a tile matrix " + level + "." );
+    }
+
+    private static Options initOptions() {
+        Options options = new Options();
+
+        Option option = new Option( "w", OPT_WORKSPACE, true, "the deegree workspace directory" );
+        option.setRequired( true );
+        option.setArgName( "dir" );
+        options.addOption( option );
+
+        option = new Option( "t", OPT_THEME, true, "the id of the theme to render" );
+        option.setRequired( true );
+        option.setArgName( "id" );
+        options.addOption( option );
+
+        option = new Option( "s", OPT_TILE_STORE, true, "the id of the tile store to seed" );
+        option.setRequired( true );
+        option.setArgName( "id" );
+        options.addOption( option );
+
+        option = new Option( OPT_TILE_DATA_SET, true,
+                             "the id of the tile data set to seed (defaults to the tile store id)" );
+        option.setArgName( "id" );
+        options.addOption( option );
+
+        option = new Option( OPT_BBOX, true,
+                             "the area to seed in the crs of the tile matrix set "
+                                                     + "(defaults to the extent of the tile matrix set)" );
+        option.setArgName( "minx,miny,maxx,maxy" );
+        options.addOption( option );
+
+        option = new Option( OPT_WKT, true,
+                             "the area to seed as WKT geometry in the crs of the tile matrix set, "
+                                                     + "e.g. the polygon of an updated area" );
+        option.setArgName( "wkt" );
+        options.addOption( option );
+
+        option = new Option( OPT_MIN_LEVEL, true, "identifier or index of the first tile matrix to seed" );
+        option.setArgName( "level" );
+        options.addOption( option );
+
+        option = new Option( OPT_MAX_LEVEL, true, "identifier or index of the last tile matrix to seed" );
+        option.setArgName( "level" );
+        options.addOption( option );
+
+        option = new Option( OPT_NUM_THREADS, true, "the number of threads used." );
+        option.setArgName( "threads" );
+        options.addOption( option );
+
+        option = new Option( OPT_META_TILE_SIZE, true, "the number of tile columns and rows rendered at once "
+                                                       + "(defaults to " + DEFAULT_META_TILE_SIZE + ")" );
+        option.setArgName( "n" );
+        options.addOption( option );
+
+        option = new Option( OPT_BUFFER, true, "the number of pixels rendered around every meta tile (defaults to 0)" );
+        option.setArgName( "pixels" );
+        options.addOption( option );
+
+        option = new Option( OPT_PROGRESS_FILE, true,
+                             "file to record finished meta tiles in, an interrupted run is resumed when given again" );
+        option.setArgName( "file" );
+        options.addOption( option );
+
+        CommandUtils.addDefaultOptions( options );
+
+        return options;
+    }
+
+    private static void printHelp( Options options ) {
+        CommandUtils.printHelp( options, TileSeederClient.class.getSimpleName(), null, null );
+    }
+}
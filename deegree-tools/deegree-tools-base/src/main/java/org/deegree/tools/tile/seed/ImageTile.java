@@ -0,0 +1,111 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tools.tile.seed;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+import org.deegree.feature.FeatureCollection;
+import org.deegree.geometry.Envelope;
+import org.deegree.tile.Tile;
+import org.deegree.tile.TileIOException;
+
+/**
+ * {@link Tile} wrapping a slice of a rendered meta tile, used to hand the result to a
+ * {@link org.deegree.tile.persistence.TileStoreTransaction}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+class ImageTile implements Tile {
+
+    private final BufferedImage image;
+
+    private final Envelope envelope;
+
+    private final String format;
+
+    /**
+     * @param image
+     *            tile image, must not be <code>null</code>
+     * @param envelope
+     *            tile envelope, must not be <code>null</code>
+     * @param format
+     *            informal image format name used for {@link #getAsStream()}, e.g. <code>png</code>
+     */
+    ImageTile( BufferedImage image, Envelope envelope, String format ) {
+        this.image = image;
+        this.envelope = envelope;
+        this.format = format;
+    }
+
+    @Override
+    public BufferedImage getAsImage()
+                            throws TileIOException {
+        return image;
+    }
+
+    @Override
+    public InputStream getAsStream()
+                            throws TileIOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            if ( !ImageIO.write( image, format, out ) ) {
+                throw new TileIOException( "No image writer available for format " + format );
+            }
+        } catch ( IOException e ) {
+            throw new TileIOException( e );
+        }
+        return new ByteArrayInputStream( out.toByteArray() );
+    }
+
+    @Override
+    public Envelope getEnvelope() {
+        return envelope;
+    }
+
+    @Override
+    public FeatureCollection getFeatures( int i, int j, int limit )
+                            throws UnsupportedOperationException {
+        throw new UnsupportedOperationException( "ImageTile does not support getFeatures" );
+    }
+
+}
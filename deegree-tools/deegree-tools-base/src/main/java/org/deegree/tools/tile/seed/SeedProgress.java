@@ -0,0 +1,160 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tools.tile.seed;
+
+/**
+ * Snapshot of the state of a seeding run of the {@link TileSeeder}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class SeedProgress {
+
+    private final long totalTiles;
+
+    private final long writtenTiles;
+
+    private final long skippedTiles;
+
+    private final long metaTiles;
+
+    private final long elapsedMillis;
+
+    /**
+     * @param totalTiles
+     *            number of tiles covered by the seeding run
+     * @param writtenTiles
+     *            number of tiles rendered and written to the tile store so far
+     * @param skippedTiles
+     *            number of tiles skipped so far, because they were seeded by a previous run or are outside of the
+     *            seeding area
+     * @param metaTiles
+     *            number of meta tiles rendered so far
+     * @param elapsedMillis
+     *            time since the start of the seeding run
+     */
+    public SeedProgress( long totalTiles, long writtenTiles, long skippedTiles, long metaTiles, long elapsedMillis ) {
+        this.totalTiles = totalTiles;
+        this.writtenTiles = writtenTiles;
+        this.skippedTiles = skippedTiles;
+        this.metaTiles = metaTiles;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return number of tiles covered by the seeding run (upper bound if seeding a polygon)
+     */
+    public long getTotalTiles() {
+        return totalTiles;
+    }
+
+    /**
+     * @return number of tiles rendered and written to the tile store
+     */
+    public long getWrittenTiles() {
+        return writtenTiles;
+    }
+
+    /**
+     * @return number of tiles that have been skipped, either because a previous run already seeded them or because
+     *         they are outside of the seeding area
+     */
+    public long getSkippedTiles() {
+        return skippedTiles;
+    }
+
+    /**
+     * @return number of meta tiles rendered
+     */
+    public long getMetaTiles() {
+        return metaTiles;
+    }
+
+    /**
+     * @return milliseconds since the start of the seeding run
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return the number of tiles written per second, 0 if nothing has been written yet
+     */
+    public double getTilesPerSecond() {
+        if ( elapsedMillis <= 0 ) {
+            return 0;
+        }
+        return writtenTiles * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * @return the percentage of processed (written or skipped) tiles, between 0 and 100
+     */
+    public double getPercentDone() {
+        if ( totalTiles == 0 ) {
+            return 100;
+        }
+        return Math.min( 100, ( writtenTiles + skippedTiles ) * 100.0 / totalTiles );
+    }
+
+    /**
+     * @return the estimated number of milliseconds until the seeding run is finished, -1 if unknown
+     */
+    public long getEstimatedMillisLeft() {
+        if ( writtenTiles == 0 ) {
+            return -1;
+        }
+        long left = totalTiles - writtenTiles - skippedTiles;
+        return Math.max( 0, (long) ( left * ( elapsedMillis / (double) writtenTiles ) ) );
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append( String.format( "%.1f%% (%d of %d tiles", getPercentDone(), writtenTiles + skippedTiles,
+                                  totalTiles ) );
+        if ( skippedTiles > 0 ) {
+            sb.append( ", " ).append( skippedTiles ).append( " skipped" );
+        }
+        sb.append( String.format( "), %d meta tiles, %.1f tiles/s, %ds elapsed", metaTiles, getTilesPerSecond(),
+                                  elapsedMillis / 1000 ) );
+        long left = getEstimatedMillisLeft();
+        if ( left >= 0 ) {
+            sb.append( ", ~" ).append( left / 1000 ).append( "s left" );
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,521 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tools.tile.seed;
+
+import static org.deegree.commons.utils.MapUtils.DEFAULT_PIXEL_SIZE;
+import static org.deegree.rendering.r2d.RenderHelper.calcScaleWMS130;
+import static org.deegree.rendering.r2d.context.MapOptionsHelper.insertMissingOptions;
+import static org.deegree.style.utils.ImageUtils.prepareImage;
+import static org.deegree.theme.Themes.getAllLayers;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.io.IOUtils;
+import org.deegree.commons.ows.exception.OWSException;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.Geometry;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.layer.Layer;
+import org.deegree.layer.LayerData;
+import org.deegree.layer.LayerQuery;
+import org.deegree.layer.metadata.LayerMetadata;
+import org.deegree.protocol.wms.filter.ScaleFunction;
+import org.deegree.rendering.r2d.context.ImageRenderContext;
+import org.deegree.rendering.r2d.context.MapOptions;
+import org.deegree.rendering.r2d.context.MapOptions.Antialias;
+import org.deegree.rendering.r2d.context.MapOptions.Interpolation;
+import org.deegree.rendering.r2d.context.MapOptions.Quality;
+import org.deegree.rendering.r2d.context.MapOptionsMaps;
+import org.deegree.rendering.r2d.context.RenderContext;
+import org.deegree.rendering.r2d.context.RenderingInfo;
+import org.deegree.style.StyleRef;
+import org.deegree.theme.Theme;
+import org.deegree.tile.TileDataLevel;
+import org.deegree.tile.TileDataSet;
+import org.deegree.tile.TileMatrix;
+import org.deegree.tile.Tiles;
+import org.deegree.tile.persistence.TileStore;
+import org.deegree.tile.persistence.TileStoreTransaction;
+import org.deegree.tile.persistence.bundle.BundleTileStoreTransaction;
+import org.slf4j.Logger;
+
+/**
+ * Pre-renders the tiles of a {@link TileDataSet} from a {@link Theme} and writes them into the {@link TileStore} using
+ * a {@link TileStoreTransaction}, so that the first requests after a data update do not have to wait for on-demand
+ * rendering.
+ * <p>
+ * Tiles are rendered in blocks of <code>n x n</code> tiles (meta tiles) and sliced afterwards, which avoids cut-off
+ * labels and symbols at tile borders and reduces the number of data store queries. The meta tiles are rendered by a
+ * configurable number of threads. Every finished meta tile is appended to an optional progress file, a later run with
+ * the same progress file skips these meta tiles, so an interrupted seeding run can be resumed.
+ * </p>
+ * <p>
+ * The seeding area is specified in the crs of the tile matrix set. If it is not an {@link Envelope} (e.g. the polygon
+ * of an area that has to be invalidated after a data update), only tiles intersecting it are rendered.
+ * </p>
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class TileSeeder {
+
+    private static final Logger LOG = getLogger( TileSeeder.class );
+
+    private static final GeometryFactory FAC = new GeometryFactory();
+
+    private static final MapOptions DEFAULT_OPTIONS = new MapOptions( Quality.NORMAL, Interpolation.NEARESTNEIGHBOR,
+                                                                      Antialias.BOTH, 10000, 1 );
+
+    private static final Map<String, String> NO_PARAMETERS = Collections.emptyMap();
+
+    private static final Map<String, List<?>> NO_DIMENSIONS = Collections.emptyMap();
+
+    private final Theme theme;
+
+    private final TileStore tileStore;
+
+    private final String tileDataSetId;
+
+    private int numThreads = 1;
+
+    private int metaTileSize = 4;
+
+    private int buffer;
+
+    private StyleRef style = new StyleRef( "default" );
+
+    private Color bgColor = Color.WHITE;
+
+    private File progressFile;
+
+    private SeedProgressListener listener;
+
+    private long reportInterval = 10000;
+
+    private final AtomicLong writtenTiles = new AtomicLong();
+
+    private final AtomicLong skippedTiles = new AtomicLong();
+
+    private final AtomicLong renderedMetaTiles = new AtomicLong();
+
+    private final AtomicLong lastReport = new AtomicLong();
+
+    private long totalTiles;
+
+    private long startTime;
+
+    /**
+     * @param theme
+     *            the theme to render, must not be <code>null</code>
+     * @param tileStore
+     *            the tile store to write the tiles to, must not be <code>null</code>
+     * @param tileDataSetId
+     *            the id of the tile data set to seed, must not be <code>null</code>
+     */
+    public TileSeeder( Theme theme, TileStore tileStore, String tileDataSetId ) {
+        this.theme = theme;
+        this.tileStore = tileStore;
+        this.tileDataSetId = tileDataSetId;
+    }
+
+    /**
+     * @param numThreads
+     *            number of threads rendering meta tiles, default is 1.
+     */
+    public void setNumThreads( int numThreads ) {
+        this.numThreads = Math.max( 1, numThreads );
+    }
+
+    /**
+     * @param metaTileSize
+     *            number of tile columns and rows rendered at once, default is 4.
+     */
+    public void setMetaTileSize( int metaTileSize ) {
+        this.metaTileSize = Math.max( 1, metaTileSize );
+    }
+
+    /**
+     * @param buffer
+     *            number of pixels rendered in addition around every meta tile, so symbols and labels crossing the
+     *            meta tile border are not cut off. Default is 0.
+     */
+    public void setBuffer( int buffer ) {
+        this.buffer = Math.max( 0, buffer );
+    }
+
+    /**
+     * @param style
+     *            the style used for rendering the layers, default is the <code>default</code> style.
+     */
+    public void setStyle( StyleRef style ) {
+        this.style = style;
+    }
+
+    /**
+     * @param bgColor
+     *            background color used for image formats that do not support transparency, default is white.
+     */
+    public void setBackgroundColor( Color bgColor ) {
+        this.bgColor = bgColor;
+    }
+
+    /**
+     * @param progressFile
+     *            file to record finished meta tiles in, may be <code>null</code>. If the file exists, the meta tiles
+     *            recorded in it are skipped.
+     */
+    public void setProgressFile( File progressFile ) {
+        this.progressFile = progressFile;
+    }
+
+    /**
+     * @param listener
+     *            receives progress reports, may be <code>null</code>
+     * @param reportInterval
+     *            minimum number of milliseconds between two progress reports
+     */
+    public void setProgressListener( SeedProgressListener listener, long reportInterval ) {
+        this.listener = listener;
+        this.reportInterval = reportInterval;
+    }
+
+    /**
+     * Renders all tiles of the given tile matrices that intersect the given area.
+     * 
+     * @param area
+     *            the area to seed, in the crs of the tile matrix set, must not be <code>null</code>
+     * @param tileMatrixIds
+     *            identifiers of the tile matrices to seed, must not be <code>null</code>
+     * @return the statistics of the seeding run, never <code>null</code>
+     * @throws IOException
+     *             if rendering or writing a tile failed, or if the seeding was interrupted
+     */
+    public SeedProgress seed( final Geometry area, List<String> tileMatrixIds )
+                            throws IOException {
+        TileDataSet dataSet = tileStore.getTileDataSet( tileDataSetId );
+        if ( dataSet == null ) {
+            throw new IllegalArgumentException( "The tile store does not contain a tile data set with id "
+                                                + tileDataSetId + "." );
+        }
+        startTime = System.currentTimeMillis();
+        writtenTiles.set( 0 );
+        skippedTiles.set( 0 );
+        renderedMetaTiles.set( 0 );
+        lastReport.set( startTime );
+        totalTiles = 0;
+
+        Set<String> finished = readProgressFile();
+        List<MetaTile> metaTiles = new ArrayList<MetaTile>();
+        for ( String id : tileMatrixIds ) {
+            TileDataLevel level = dataSet.getTileDataLevel( id );
+            if ( level == null ) {
+                throw new IllegalArgumentException( "The tile data set " + tileDataSetId
+                                                    + " does not contain a tile matrix with id " + id + "." );
+            }
+            collectMetaTiles( level, area.getEnvelope(), finished, metaTiles );
+        }
+        LOG.info( "Seeding {} tiles in {} meta tiles, {} tiles have been seeded by a previous run.",
+                  new Object[] { totalTiles, metaTiles.size(), skippedTiles.get() } );
+
+        final String format = getFormat( dataSet.getNativeImageFormat() );
+        final boolean clip = !( area instanceof Envelope );
+        final Queue<MetaTile> queue = new ConcurrentLinkedQueue<MetaTile>( metaTiles );
+        final PrintWriter progressLog = openProgressFile();
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        ExecutorService executor = Executors.newFixedThreadPool( numThreads );
+        try {
+            // every worker uses its own transaction, transactions are not required to be thread safe
+            for ( int i = 0; i < numThreads; i++ ) {
+                executor.execute( new Runnable() {
+                    public void run() {
+                        try {
+                            TileStoreTransaction ta = tileStore.acquireTransaction( tileDataSetId );
+                            MetaTile metaTile;
+                            while ( failure.get() == null && ( metaTile = queue.poll() ) != null ) {
+                                seed( metaTile, area, clip, format, ta );
+                                if ( ta instanceof BundleTileStoreTransaction ) {
+                                    // the meta tile is only logged as done once its tiles are on disk
+                                    ( (BundleTileStoreTransaction) ta ).commit();
+                                }
+                                if ( progressLog != null ) {
+                                    synchronized ( progressLog ) {
+                                        progressLog.println( metaTile.getKey() );
+                                        progressLog.flush();
+                                    }
+                                }
+                                reportProgress( false );
+                            }
+                        } catch ( Exception e ) {
+                            failure.compareAndSet( null, e );
+                        }
+                    }
+                } );
+            }
+            executor.shutdown();
+            executor.awaitTermination( 42, TimeUnit.DAYS );
+        } catch ( InterruptedException e ) {
+            queue.clear();
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while seeding tile data set " + tileDataSetId + "." );
+        } finally {
+            IOUtils.closeQuietly( progressLog );
+        }
+        reportProgress( true );
+        if ( failure.get() != null ) {
+            throw new IOException( "Could not seed tile data set " + tileDataSetId + ": "
+                                   + failure.get().getLocalizedMessage(), failure.get() );
+        }
+        return getProgress();
+    }
+
+    /**
+     * @return the current state of the seeding run, never <code>null</code>
+     */
+    public SeedProgress getProgress() {
+        return new SeedProgress( totalTiles, writtenTiles.get(), skippedTiles.get(), renderedMetaTiles.get(),
+                                 System.currentTimeMillis() - startTime );
+    }
+
+    void collectMetaTiles( TileDataLevel level, Envelope bbox, Set<String> finished, List<MetaTile> metaTiles ) {
+        long[] range = Tiles.getTileIndexRange( level, bbox );
+        if ( range == null ) {
+            return;
+        }
+        TileMatrix matrix = level.getMetadata();
+        // meta tiles are aligned to the tile matrix, so neighbouring seeding areas produce the same meta tiles
+        for ( long my = range[1] / metaTileSize; my <= range[3] / metaTileSize; my++ ) {
+            for ( long mx = range[0] / metaTileSize; mx <= range[2] / metaTileSize; mx++ ) {
+                long minX = Math.max( mx * metaTileSize, range[0] );
+                long minY = Math.max( my * metaTileSize, range[1] );
+                long maxX = Math.min( mx * metaTileSize + metaTileSize - 1, range[2] );
+                long maxY = Math.min( my * metaTileSize + metaTileSize - 1, range[3] );
+                MetaTile metaTile = new MetaTile( matrix, minX, minY, maxX, maxY );
+                totalTiles += metaTile.getNumTiles();
+                if ( finished.contains( metaTile.getKey() ) ) {
+                    skippedTiles.addAndGet( metaTile.getNumTiles() );
+                } else {
+                    metaTiles.add( metaTile );
+                }
+            }
+        }
+    }
+
+    private void seed( MetaTile metaTile, Geometry area, boolean clip, String format, TileStoreTransaction ta )
+                            throws Exception {
+        TileMatrix matrix = metaTile.matrix;
+        int tilePixelsX = (int) matrix.getTilePixelsX();
+        int tilePixelsY = (int) matrix.getTilePixelsY();
+        int columns = (int) ( metaTile.maxX - metaTile.minX + 1 );
+        int rows = (int) ( metaTile.maxY - metaTile.minY + 1 );
+
+        Envelope tilesEnv = calcEnvelope( matrix, metaTile.minX, metaTile.minY, metaTile.maxX, metaTile.maxY, 0 );
+        if ( clip && !area.intersects( tilesEnv ) ) {
+            skippedTiles.addAndGet( metaTile.getNumTiles() );
+            return;
+        }
+
+        int width = columns * tilePixelsX + 2 * buffer;
+        int height = rows * tilePixelsY + 2 * buffer;
+        Envelope bbox = calcEnvelope( matrix, metaTile.minX, metaTile.minY, metaTile.maxX, metaTile.maxY, buffer );
+        BufferedImage image = render( bbox, width, height, format );
+
+        String imageType = format.substring( format.indexOf( '/' ) + 1 );
+        for ( long y = metaTile.minY; y <= metaTile.maxY; y++ ) {
+            for ( long x = metaTile.minX; x <= metaTile.maxX; x++ ) {
+                Envelope tileEnv = calcEnvelope( matrix, x, y, x, y, 0 );
+                if ( clip && !area.intersects( tileEnv ) ) {
+                    skippedTiles.incrementAndGet();
+                    continue;
+                }
+                int offsetX = buffer + (int) ( x - metaTile.minX ) * tilePixelsX;
+                int offsetY = buffer + (int) ( y - metaTile.minY ) * tilePixelsY;
+                BufferedImage slice = image.getSubimage( offsetX, offsetY, tilePixelsX, tilePixelsY );
+                ta.put( matrix.getIdentifier(), new ImageTile( slice, tileEnv, imageType ), x, y );
+                writtenTiles.incrementAndGet();
+            }
+        }
+        renderedMetaTiles.incrementAndGet();
+    }
+
+    private BufferedImage render( Envelope bbox, int width, int height, String format )
+                            throws OWSException, InterruptedException, IOException {
+        boolean transparent = !( format.equals( "image/jpeg" ) || format.equals( "image/x-ms-bmp" ) );
+        BufferedImage image = prepareImage( format, width, height, transparent, bgColor );
+        RenderingInfo info = new RenderingInfo( format, width, height, transparent, bgColor, bbox,
+                                                DEFAULT_PIXEL_SIZE, NO_PARAMETERS );
+        RenderContext ctx = ImageRenderContext.createInstance( info, image, null );
+        double scale = calcScaleWMS130( width, height, bbox, bbox.getCoordinateSystem(), DEFAULT_PIXEL_SIZE );
+
+        // scale function is thread local, so every worker sets the scale of its own meta tile
+        ScaleFunction.getCurrentScaleValue().set( scale );
+        try {
+            MapOptionsMaps options = new MapOptionsMaps();
+            for ( Layer layer : getAllLayers( theme ) ) {
+                LayerMetadata md = layer.getMetadata();
+                if ( md.getScaleDenominators().first > scale || md.getScaleDenominators().second < scale ) {
+                    continue;
+                }
+                if ( !layer.isStyleApplicable( style ) ) {
+                    continue;
+                }
+                insertMissingOptions( md.getName(), options, md.getMapOptions(), DEFAULT_OPTIONS );
+                LayerQuery query = new LayerQuery( bbox, width, height, style, null, NO_PARAMETERS, NO_DIMENSIONS,
+                                                   DEFAULT_PIXEL_SIZE, options, bbox );
+                LayerData data = layer.mapQuery( query, new ArrayList<String>() );
+                if ( data != null ) {
+                    ctx.applyOptions( options.get( md.getName() ) );
+                    data.render( ctx );
+                }
+            }
+            ctx.optimizeAndDrawLabels();
+        } finally {
+            ScaleFunction.getCurrentScaleValue().remove();
+            ctx.close();
+        }
+        return image;
+    }
+
+    static Envelope calcEnvelope( TileMatrix matrix, long minX, long minY, long maxX, long maxY, int buffer ) {
+        Envelope env = matrix.getSpatialMetadata().getEnvelope();
+        double bufferX = buffer * matrix.getTileWidth() / matrix.getTilePixelsX();
+        double bufferY = buffer * matrix.getTileHeight() / matrix.getTilePixelsY();
+        double minx = env.getMin().get0() + minX * matrix.getTileWidth() - bufferX;
+        double maxx = env.getMin().get0() + ( maxX + 1 ) * matrix.getTileWidth() + bufferX;
+        double maxy = env.getMax().get1() - minY * matrix.getTileHeight() + bufferY;
+        double miny = env.getMax().get1() - ( maxY + 1 ) * matrix.getTileHeight() - bufferY;
+        return FAC.createEnvelope( minx, miny, maxx, maxy, env.getCoordinateSystem() );
+    }
+
+    private static String getFormat( String nativeFormat ) {
+        if ( nativeFormat == null ) {
+            return "image/png";
+        }
+        if ( nativeFormat.equals( "image/jpg" ) ) {
+            return "image/jpeg";
+        }
+        return nativeFormat;
+    }
+
+    private void reportProgress( boolean finished ) {
+        if ( listener == null ) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long last = lastReport.get();
+        if ( finished || ( now - last >= reportInterval && lastReport.compareAndSet( last, now ) ) ) {
+            listener.progress( getProgress() );
+        }
+    }
+
+    private Set<String> readProgressFile()
+                            throws IOException {
+        Set<String> finished = new HashSet<String>();
+        if ( progressFile == null || !progressFile.exists() ) {
+            return finished;
+        }
+        BufferedReader in = new BufferedReader( new InputStreamReader( new FileInputStream( progressFile ), "UTF-8" ) );
+        try {
+            String line;
+            while ( ( line = in.readLine() ) != null ) {
+                line = line.trim();
+                if ( !line.isEmpty() ) {
+                    finished.add( line );
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly( in );
+        }
+        LOG.info( "Resuming seeding run, {} meta tiles have been finished before.", finished.size() );
+        return finished;
+    }
+
+    private PrintWriter openProgressFile()
+                            throws IOException {
+        if ( progressFile == null ) {
+            return null;
+        }
+        return new PrintWriter( new OutputStreamWriter( new FileOutputStream( progressFile, true ), "UTF-8" ) );
+    }
+
+    static class MetaTile {
+
+        final TileMatrix matrix;
+
+        final long minX, minY, maxX, maxY;
+
+        MetaTile( TileMatrix matrix, long minX, long minY, long maxX, long maxY ) {
+            this.matrix = matrix;
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+
+        long getNumTiles() {
+            return ( maxX - minX + 1 ) * ( maxY - minY + 1 );
+        }
+
+        // the key contains the tile range, so a meta tile clipped by a smaller seeding area is not skipped later on
+        String getKey() {
+            return matrix.getIdentifier() + " " + minX + " " + minY + " " + maxX + " " + maxY;
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree
+ Copyright (C) 2001-2013 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+ and
+ - Occam Labs UG (haftungsbeschränkt) -
+ and others
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ e-mail: info@deegree.org
+ website: http://www.deegree.org/
+----------------------------------------------------------------------------*/
+package org.deegree.tools.coverage.overview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.deegree.coverage.raster.AbstractRaster;
+import org.deegree.coverage.raster.SimpleRaster;
+import org.deegree.coverage.raster.TiledRaster;
+import org.deegree.coverage.raster.container.GriddedBlobTileContainer;
+import org.deegree.coverage.raster.data.RasterData;
+import org.deegree.coverage.raster.data.RasterDataFactory;
+import org.deegree.coverage.raster.data.info.DataType;
+import org.deegree.coverage.raster.geom.RasterGeoReference;
+import org.deegree.coverage.raster.geom.RasterGeoReference.OriginLocation;
+import org.deegree.coverage.raster.interpolation.InterpolationType;
+import org.deegree.coverage.raster.io.RasterIOOptions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link OverviewBuilder}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class OverviewBuilderTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testLevelSize() {
+        assertEquals( 500, OverviewBuilder.levelSize( 1000, 1 ) );
+        assertEquals( 250, OverviewBuilder.levelSize( 1000, 2 ) );
+        assertEquals( 126, OverviewBuilder.levelSize( 1001, 3 ) );
+        assertEquals( 1, OverviewBuilder.levelSize( 3, 5 ) );
+    }
+
+    @Test
+    public void testFixedNumberOfLevels() {
+        assertTrue( OverviewBuilder.hasNextLevel( 1, 2, 10, 10, 256 ) );
+        assertTrue( OverviewBuilder.hasNextLevel( 2, 2, 10, 10, 256 ) );
+        assertFalse( OverviewBuilder.hasNextLevel( 3, 2, 10000, 10000, 256 ) );
+    }
+
+    @Test
+    public void testLevelsUntilSingleTile() {
+        assertTrue( OverviewBuilder.hasNextLevel( 1, 0, 1000, 100, 256 ) );
+        assertTrue( OverviewBuilder.hasNextLevel( 3, 0, 100, 257, 256 ) );
+        assertFalse( OverviewBuilder.hasNextLevel( 4, 0, 256, 256, 256 ) );
+    }
+
+    @Test
+    public void testLevelDirIsCreatedAndCleared()
+                            throws IOException {
+        OverviewBuilder builder = new OverviewBuilder( tmp.getRoot(), 256, InterpolationType.BILINEAR );
+        File dir = builder.levelDir( 2.5 );
+        assertTrue( dir.isDirectory() );
+        assertEquals( "2.5", dir.getName() );
+        assertTrue( new File( dir, "blob_0.bin" ).createNewFile() );
+        assertEquals( dir, builder.levelDir( 2.5 ) );
+        assertEquals( 0, dir.listFiles().length );
+    }
+
+    @Test
+    public void testBuildOverviewLevels()
+                            throws IOException {
+        OverviewBuilder builder = new OverviewBuilder( tmp.getRoot(), 256, InterpolationType.NEAREST_NEIGHBOR );
+        List<File> levels = builder.buildOverviews( createSource( 600, 400 ), 2 );
+        assertEquals( 2, levels.size() );
+        assertEquals( "2.0", levels.get( 0 ).getName() );
+        assertEquals( "4.0", levels.get( 1 ).getName() );
+
+        SimpleRaster level1 = loadLevel( levels.get( 0 ) );
+        assertEquals( 300, level1.getColumns() );
+        assertEquals( 200, level1.getRows() );
+        assertEquals( 2.0, level1.getRasterReference().getResolutionX(), 1e-9 );
+        assertEquals( 10, level1.getRasterData().getByteSample( 50, 100, 0 ) );
+        assertEquals( (byte) 200, level1.getRasterData().getByteSample( 250, 100, 0 ) );
+
+        SimpleRaster level2 = loadLevel( levels.get( 1 ) );
+        assertEquals( 150, level2.getColumns() );
+        assertEquals( 100, level2.getRows() );
+        assertEquals( 4.0, level2.getRasterReference().getResolutionX(), 1e-9 );
+        assertEquals( 10, level2.getRasterData().getByteSample( 25, 50, 0 ) );
+        assertEquals( (byte) 200, level2.getRasterData().getByteSample( 125, 50, 0 ) );
+    }
+
+    @Test
+    public void testBuildOverviewLevelsUntilSingleTile()
+                            throws IOException {
+        OverviewBuilder builder = new OverviewBuilder( tmp.getRoot(), 256, InterpolationType.NEAREST_NEIGHBOR );
+        List<File> levels = builder.buildOverviews( createSource( 600, 400 ), 0 );
+        // 300x200 still needs two tiles, 150x100 fits into one
+        assertEquals( 2, levels.size() );
+    }
+
+    /**
+     * @return a raster with a resolution of 1, the left half has the value 10, the right half 200
+     */
+    private static AbstractRaster createSource( int width, int height ) {
+        RasterData data = RasterDataFactory.createRasterData( width, height, DataType.BYTE, false );
+        for ( int y = 0; y < height; y++ ) {
+            for ( int x = 0; x < width; x++ ) {
+                data.setByteSample( x, y, 0, (byte) ( x < width / 2 ? 10 : 200 ) );
+            }
+        }
+        RasterGeoReference ref = new RasterGeoReference( OriginLocation.OUTER, 1, -1, 1000, 2000 + height );
+        return new SimpleRaster( data, ref.getEnvelope( width, height, null ), ref, null );
+    }
+
+    private static SimpleRaster loadLevel( File levelDir )
+                            throws IOException {
+        TiledRaster level = new TiledRaster( GriddedBlobTileContainer.create( levelDir, new RasterIOOptions() ), null );
+        return level.getAsSimpleRaster();
+    }
+
+}
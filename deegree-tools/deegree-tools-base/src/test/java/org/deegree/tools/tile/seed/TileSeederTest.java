@@ -0,0 +1,185 @@
+/*----------------------------------------------------------------------------
+ This file is part of deegree, http://deegree.org/
+ Copyright (C) 2001-2014 by:
+ - Department of Geography, University of Bonn -
+ and
+ - lat/lon GmbH -
+
+ This library is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Lesser General Public License as published by the Free
+ Software Foundation; either version 2.1 of the License, or (at your option)
+ any later version.
+ This library is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ details.
+ You should have received a copy of the GNU Lesser General Public License
+ along with this library; if not, write to the Free Software Foundation, Inc.,
+ 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+ Contact information:
+
+ lat/lon GmbH
+ Aennchenstr. 19, 53177 Bonn
+ Germany
+ http://lat-lon.de/
+
+ Department of Geography, University of Bonn
+ Prof. Dr. Klaus Greve
+ Postfach 1147, 53001 Bonn
+ Germany
+ http://www.geographie.uni-bonn.de/deegree/
+
+ e-mail: info@deegree.org
+ ----------------------------------------------------------------------------*/
+package org.deegree.tools.tile.seed;
+
+import static java.util.Collections.singleton;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.deegree.cs.coordinatesystems.ICRS;
+import org.deegree.geometry.Envelope;
+import org.deegree.geometry.GeometryFactory;
+import org.deegree.geometry.metadata.SpatialMetadata;
+import org.deegree.tile.Tile;
+import org.deegree.tile.TileDataLevel;
+import org.deegree.tile.TileMatrix;
+import org.deegree.tools.tile.seed.TileSeeder.MetaTile;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link TileSeeder}.
+ * 
+ * @author last edited by: $Author$
+ * 
+ * @version $Revision$, $Date$
+ */
+public class TileSeederTest {
+
+    private static final GeometryFactory FAC = new GeometryFactory();
+
+    private static final double DELTA = 1E-9;
+
+    // 10 x 10 tiles of 256 x 256 pixels, every tile covers 100 x 100 units
+    private final TileMatrix matrix = new TileMatrix( "m", new SpatialMetadata( env( 0, 0, 1000, 1000 ),
+                                                                                Collections.<ICRS> emptyList() ),
+                                                      256, 256, 100.0 / 256, 10, 10 );
+
+    private final TileDataLevel level = new TileDataLevel() {
+        @Override
+        public TileMatrix getMetadata() {
+            return matrix;
+        }
+
+        @Override
+        public Tile getTile( long x, long y ) {
+            return null;
+        }
+
+        @Override
+        public List<String> getStyles() {
+            return null;
+        }
+    };
+
+    private TileSeeder seeder;
+
+    @Before
+    public void setUp() {
+        seeder = new TileSeeder( null, null, "ds" );
+        seeder.setMetaTileSize( 4 );
+    }
+
+    @Test
+    public void testCollectMetaTilesWholeMatrix() {
+        List<MetaTile> metaTiles = new ArrayList<MetaTile>();
+        seeder.collectMetaTiles( level, env( 0, 0, 1000, 1000 ), new HashSet<String>(), metaTiles );
+        assertEquals( 9, metaTiles.size() );
+        assertEquals( "m 0 0 3 3", metaTiles.get( 0 ).getKey() );
+        assertEquals( "m 4 0 7 3", metaTiles.get( 1 ).getKey() );
+        assertEquals( "m 8 0 9 3", metaTiles.get( 2 ).getKey() );
+        assertEquals( "m 8 8 9 9", metaTiles.get( 8 ).getKey() );
+        assertEquals( 100, seeder.getProgress().getTotalTiles() );
+        assertEquals( 0, seeder.getProgress().getSkippedTiles() );
+    }
+
+    @Test
+    public void testCollectMetaTilesAreAlignedToMatrix() {
+        List<MetaTile> metaTiles = new ArrayList<MetaTile>();
+        // tile columns 1 to 5, tile rows 0 to 3
+        seeder.collectMetaTiles( level, env( 150, 650, 550, 850 ), new HashSet<String>(), metaTiles );
+        assertEquals( 2, metaTiles.size() );
+        assertEquals( "m 1 0 3 3", metaTiles.get( 0 ).getKey() );
+        assertEquals( 12, metaTiles.get( 0 ).getNumTiles() );
+        assertEquals( "m 4 0 5 3", metaTiles.get( 1 ).getKey() );
+        assertEquals( 8, metaTiles.get( 1 ).getNumTiles() );
+        assertEquals( 20, seeder.getProgress().getTotalTiles() );
+    }
+
+    @Test
+    public void testCollectMetaTilesOutsideMatrix() {
+        List<MetaTile> metaTiles = new ArrayList<MetaTile>();
+        seeder.collectMetaTiles( level, env( 2000, 2000, 3000, 3000 ), new HashSet<String>(), metaTiles );
+        assertTrue( metaTiles.isEmpty() );
+        assertEquals( 0, seeder.getProgress().getTotalTiles() );
+    }
+
+    @Test
+    public void testCollectMetaTilesSkipsFinishedKeys() {
+        List<MetaTile> metaTiles = new ArrayList<MetaTile>();
+        Set<String> finished = singleton( "m 1 0 3 3" );
+        seeder.collectMetaTiles( level, env( 150, 650, 550, 850 ), finished, metaTiles );
+        assertEquals( 1, metaTiles.size() );
+        assertEquals( "m 4 0 5 3", metaTiles.get( 0 ).getKey() );
+        assertEquals( 20, seeder.getProgress().getTotalTiles() );
+        assertEquals( 12, seeder.getProgress().getSkippedTiles() );
+    }
+
+    @Test
+    public void testCollectMetaTilesDoesNotSkipClippedKeys() {
+        List<MetaTile> metaTiles = new ArrayList<MetaTile>();
+        // the finished meta tile only covered a part of the full meta tile
+        Set<String> finished = singleton( "m 1 0 3 3" );
+        seeder.collectMetaTiles( level, env( 0, 0, 1000, 1000 ), finished, metaTiles );
+        assertEquals( 9, metaTiles.size() );
+        assertEquals( "m 0 0 3 3", metaTiles.get( 0 ).getKey() );
+        assertEquals( 0, seeder.getProgress().getSkippedTiles() );
+    }
+
+    @Test
+    public void testCalcEnvelopeSingleTile() {
+        assertEnvelope( 0, 900, 100, 1000, TileSeeder.calcEnvelope( matrix, 0, 0, 0, 0, 0 ) );
+        assertEnvelope( 900, 0, 1000, 100, TileSeeder.calcEnvelope( matrix, 9, 9, 9, 9, 0 ) );
+    }
+
+    @Test
+    public void testCalcEnvelopeTileRange() {
+        assertEnvelope( 100, 600, 400, 800, TileSeeder.calcEnvelope( matrix, 1, 2, 3, 3, 0 ) );
+    }
+
+    @Test
+    public void testCalcEnvelopeWithBuffer() {
+        // 128 pixels are half a tile
+        assertEnvelope( 50, 550, 450, 850, TileSeeder.calcEnvelope( matrix, 1, 2, 3, 3, 128 ) );
+    }
+
+    private static Envelope env( double minx, double miny, double maxx, double maxy ) {
+        return FAC.createEnvelope( minx, miny, maxx, maxy, null );
+    }
+
+    private static void assertEnvelope( double minx, double miny, double maxx, double maxy, Envelope env ) {
+        assertEquals( minx, env.getMin().get0(), DELTA );
+        assertEquals( miny, env.getMin().get1(), DELTA );
+        assertEquals( maxx, env.getMax().get0(), DELTA );
+        assertEquals( maxy, env.getMax().get1(), DELTA );
+    }
+
+}